@@ -47,6 +47,8 @@ import org.openrdf.query.resultio.TupleQueryResultParserRegistry;
 import org.openrdf.rio.RDFFormat;
 import org.openrdf.rio.RDFParserRegistry;
 
+import com.bigdata.rdf.ServiceProviderHook;
+
 /**
  * Utility class for generating accept heades modeled on
  * {@link RDFFormat#getAcceptParams(Iterable, boolean, RDFFormat)}, but extended
@@ -249,8 +251,16 @@ public class AcceptHeaderFactory {
 
         }
         
+        /*
+         * Prefer the compact binary encoding of the solutions when we have a
+         * parser for that format.
+         */
+        final TupleQueryResultFormat preferredFormat = values
+                .contains(ServiceProviderHook.BINARY_RESULTS) ? ServiceProviderHook.BINARY_RESULTS
+                : TupleQueryResultFormat.BINARY;
+
         final List<String> list2 = AcceptHeaderFactory.getAcceptParams(values,
-                TupleQueryResultFormat.BINARY);
+                preferredFormat);
 
         return toString(list2);
         
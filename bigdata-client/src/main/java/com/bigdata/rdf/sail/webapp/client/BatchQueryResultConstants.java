@@ -0,0 +1,71 @@
+/**
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+package com.bigdata.rdf.sail.webapp.client;
+
+/**
+ * Constants for the response to a batch of SPARQL queries. The results of the
+ * queries are multiplexed onto a single response. Each query in the batch is
+ * evaluated independently and its results are sent as one frame as soon as
+ * that query is done, so the frames arrive in completion order rather than in
+ * the order in which the queries were given.
+ * 
+ * <pre>
+ * response := MAGIC int(VERSION) frame* int(END)
+ * frame    := int(index) int(status) utf(mimeType) int(#bytes) byte*
+ * </pre>
+ * 
+ * The integers are written as by {@link java.io.DataOutput#writeInt(int)} and
+ * the MIME type as by {@link java.io.DataOutput#writeUTF(String)}. The
+ * <code>index</code> is the zero-based position of the query in the request.
+ * The <code>status</code> is an http status code. For a successful query, the
+ * bytes are a result document in the given MIME type. Otherwise they describe
+ * the error using <code>text/plain</code>.
+ * 
+ * @see RemoteRepository#batchTupleQuery(String...)
+ */
+public interface BatchQueryResultConstants {
+
+    /**
+     * The MIME type of the response.
+     */
+    String MIME_BATCH_RESULTS = "application/x-bigdata-batch-results";
+
+    /**
+     * The magic bytes which begin a response.
+     */
+    byte[] MAGIC = new byte[] { 'B', 'B', 'A', 'T' };
+
+    /**
+     * The version of the encoding.
+     */
+    int VERSION = 1;
+
+    /**
+     * The value which follows the last frame.
+     */
+    int END = -1;
+
+}
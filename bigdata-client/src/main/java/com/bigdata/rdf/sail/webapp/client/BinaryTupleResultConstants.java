@@ -0,0 +1,91 @@
+/**
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+package com.bigdata.rdf.sail.webapp.client;
+
+import com.bigdata.rdf.ServiceProviderHook;
+
+/**
+ * Constants for the compact binary encoding of SPARQL solutions. The values in
+ * a response are dictionary encoded: each distinct value and each distinct
+ * URI namespace is sent once and is then referenced by its index. The rows are
+ * sent as variable length integers and are framed in chunks so the receiver
+ * can decode each chunk from a single read and can detect a truncated
+ * response.
+ * 
+ * <pre>
+ * response := MAGIC VERSION header chunk* varint(0)
+ * header   := varint(#bytes) varint(#names) string(name)*
+ * chunk    := varint(#bytes) flags
+ *             varint(#namespaces) string(namespace)*
+ *             varint(#values) value*
+ *             varint(#rows) row*
+ * row      := varint(code)*  -- one per name: 0 iff unbound, else index+1
+ * value    := URI_VALUE varint(namespace) string(localName)
+ *           | BNODE_VALUE string(id)
+ *           | PLAIN_LITERAL_VALUE string(label)
+ *           | LANG_LITERAL_VALUE string(label) string(language)
+ *           | TYPED_LITERAL_VALUE string(label) varint(datatype)
+ * string   := varint(#bytes) UTF-8 bytes
+ * </pre>
+ * 
+ * The variable length integers are unsigned with 7 bits per byte, least
+ * significant group first. The datatype of a typed literal is the index of a
+ * URI which was sent before that literal. The namespace and value indices
+ * continue across chunks until a chunk has the {@link #FLAG_RESET} flag, in
+ * which case both dictionaries are cleared before that chunk is decoded.
+ * 
+ * @see ServiceProviderHook#BINARY_RESULTS
+ * @see BinaryTupleResultParser
+ */
+public interface BinaryTupleResultConstants {
+
+    /**
+     * The magic bytes which begin a response.
+     */
+    byte[] MAGIC = new byte[] { 'B', 'B', 'R', 'S' };
+
+    /**
+     * The version of the encoding.
+     */
+    int VERSION = 1;
+
+    /**
+     * Flag indicates that the namespace and value dictionaries are cleared
+     * before the chunk is decoded.
+     */
+    int FLAG_RESET = 0x01;
+
+    byte URI_VALUE = 1;
+
+    byte BNODE_VALUE = 2;
+
+    byte PLAIN_LITERAL_VALUE = 3;
+
+    byte LANG_LITERAL_VALUE = 4;
+
+    byte TYPED_LITERAL_VALUE = 5;
+
+}
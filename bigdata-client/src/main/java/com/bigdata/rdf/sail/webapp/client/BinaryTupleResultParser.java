@@ -0,0 +1,351 @@
+/**
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+package com.bigdata.rdf.sail.webapp.client;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.query.QueryResultHandlerException;
+import org.openrdf.query.TupleQueryResultHandlerException;
+import org.openrdf.query.impl.ListBindingSet;
+import org.openrdf.query.resultio.QueryResultParseException;
+import org.openrdf.query.resultio.TupleQueryResultFormat;
+import org.openrdf.query.resultio.TupleQueryResultParserBase;
+
+import com.bigdata.rdf.ServiceProviderHook;
+
+/**
+ * Parser for the compact binary encoding of SPARQL solutions.
+ * 
+ * @see BinaryTupleResultConstants
+ */
+public class BinaryTupleResultParser extends TupleQueryResultParserBase
+        implements BinaryTupleResultConstants {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * The chunk being decoded.
+     */
+    private byte[] buf = new byte[1024];
+
+    /**
+     * The offset of the next byte in {@link #buf}.
+     */
+    private int pos;
+
+    /**
+     * The #of bytes in {@link #buf}.
+     */
+    private int limit;
+
+    private final List<String> namespaces = new ArrayList<String>();
+
+    private final List<Value> values = new ArrayList<Value>();
+
+    public BinaryTupleResultParser() {
+        super();
+    }
+
+    public BinaryTupleResultParser(final ValueFactory valueFactory) {
+        super(valueFactory);
+    }
+
+    @Override
+    public TupleQueryResultFormat getTupleQueryResultFormat() {
+
+        return ServiceProviderHook.BINARY_RESULTS;
+
+    }
+
+    @Override
+    public void parse(final InputStream is) throws IOException,
+            QueryResultParseException, TupleQueryResultHandlerException {
+
+        try {
+            parseQueryResult(is);
+        } catch (TupleQueryResultHandlerException e) {
+            throw e;
+        } catch (QueryResultHandlerException e) {
+            throw new TupleQueryResultHandlerException(e);
+        }
+
+    }
+
+    @Override
+    public void parseQueryResult(final InputStream is) throws IOException,
+            QueryResultParseException, QueryResultHandlerException {
+
+        final DataInputStream in = new DataInputStream(is);
+
+        try {
+
+            final byte[] magic = new byte[MAGIC.length];
+
+            in.readFully(magic);
+
+            if (!Arrays.equals(MAGIC, magic))
+                throw new QueryResultParseException("Not a binary result");
+
+            final int version = in.readUnsignedByte();
+
+            if (version != VERSION)
+                throw new QueryResultParseException("Unsupported version: "
+                        + version);
+
+            // The binding names.
+            readChunk(in, readInt(in));
+
+            final int nnames = readInt();
+
+            final List<String> bindingNames = new ArrayList<String>(nnames);
+
+            for (int i = 0; i < nnames; i++) {
+
+                bindingNames.add(readString());
+
+            }
+
+            if (handler != null)
+                handler.startQueryResult(bindingNames);
+
+            int nbytes;
+
+            while ((nbytes = readInt(in)) != 0) {
+
+                readChunk(in, nbytes);
+
+                decodeChunk(bindingNames);
+
+            }
+
+            if (handler != null)
+                handler.endQueryResult();
+
+        } catch (EOFException ex) {
+
+            throw new QueryResultParseException("Unexpected end of stream",
+                    ex);
+
+        }
+
+    }
+
+    /**
+     * Decode the chunk in {@link #buf}, reporting each solution to the
+     * handler.
+     */
+    private void decodeChunk(final List<String> bindingNames)
+            throws QueryResultParseException, QueryResultHandlerException {
+
+        final int flags = buf[pos++];
+
+        if ((flags & FLAG_RESET) != 0) {
+
+            namespaces.clear();
+
+            values.clear();
+
+        }
+
+        final int nnamespaces = readInt();
+
+        for (int i = 0; i < nnamespaces; i++) {
+
+            namespaces.add(readString());
+
+        }
+
+        final int nvalues = readInt();
+
+        for (int i = 0; i < nvalues; i++) {
+
+            values.add(readValue());
+
+        }
+
+        final int nrows = readInt();
+
+        final int nnames = bindingNames.size();
+
+        for (int i = 0; i < nrows; i++) {
+
+            final Value[] row = new Value[nnames];
+
+            for (int j = 0; j < nnames; j++) {
+
+                final int code = readInt();
+
+                row[j] = code == 0 ? null : getValue(code - 1);
+
+            }
+
+            if (handler != null)
+                handler.handleSolution(new ListBindingSet(bindingNames, row));
+
+        }
+
+        if (pos != limit)
+            throw new QueryResultParseException("Chunk has " + (limit - pos)
+                    + " trailing bytes");
+
+    }
+
+    private Value readValue() throws QueryResultParseException {
+
+        final byte type = buf[pos++];
+
+        switch (type) {
+        case URI_VALUE: {
+            final int ns = readInt();
+            if (ns >= namespaces.size())
+                throw new QueryResultParseException("Unknown namespace: " + ns);
+            return valueFactory.createURI(namespaces.get(ns), readString());
+        }
+        case BNODE_VALUE:
+            return valueFactory.createBNode(readString());
+        case PLAIN_LITERAL_VALUE:
+            return valueFactory.createLiteral(readString());
+        case LANG_LITERAL_VALUE: {
+            final String label = readString();
+            return valueFactory.createLiteral(label, readString());
+        }
+        case TYPED_LITERAL_VALUE: {
+            final String label = readString();
+            final Value datatype = getValue(readInt());
+            if (!(datatype instanceof URI))
+                throw new QueryResultParseException("Not a datatype: "
+                        + datatype);
+            return valueFactory.createLiteral(label, (URI) datatype);
+        }
+        default:
+            throw new QueryResultParseException("Unknown value type: " + type);
+        }
+
+    }
+
+    private Value getValue(final int index) throws QueryResultParseException {
+
+        if (index >= values.size())
+            throw new QueryResultParseException("Unknown value: " + index);
+
+        return values.get(index);
+
+    }
+
+    /**
+     * Read the next chunk into {@link #buf}.
+     */
+    private void readChunk(final DataInputStream in, final int nbytes)
+            throws IOException {
+
+        if (nbytes > buf.length) {
+
+            buf = new byte[Math.max(nbytes, buf.length * 2)];
+
+        }
+
+        in.readFully(buf, 0, nbytes);
+
+        pos = 0;
+
+        limit = nbytes;
+
+    }
+
+    private String readString() throws QueryResultParseException {
+
+        final int len = readInt();
+
+        if (len > limit - pos)
+            throw new QueryResultParseException("String overruns chunk");
+
+        final String s = new String(buf, pos, len, UTF8);
+
+        pos += len;
+
+        return s;
+
+    }
+
+    /**
+     * Read a variable length integer from {@link #buf}.
+     */
+    private int readInt() throws QueryResultParseException {
+
+        int v = 0;
+
+        for (int shift = 0; shift < 32; shift += 7) {
+
+            if (pos >= limit)
+                throw new QueryResultParseException("Integer overruns chunk");
+
+            final int b = buf[pos++];
+
+            v |= (b & 0x7f) << shift;
+
+            if ((b & 0x80) == 0)
+                return v;
+
+        }
+
+        throw new QueryResultParseException("Malformed integer");
+
+    }
+
+    /**
+     * Read a variable length integer from the stream.
+     */
+    private static int readInt(final DataInputStream in) throws IOException,
+            QueryResultParseException {
+
+        int v = 0;
+
+        for (int shift = 0; shift < 32; shift += 7) {
+
+            final int b = in.readUnsignedByte();
+
+            v |= (b & 0x7f) << shift;
+
+            if ((b & 0x80) == 0)
+                return v;
+
+        }
+
+        throw new QueryResultParseException("Malformed integer");
+
+    }
+
+}
@@ -31,6 +31,8 @@ import org.eclipse.jetty.util.ssl.SslContextFactory;
  * <ul>
  * <li>Creates an {@link AutoCloseHttpClient}.</li>
  * <li>Sets up redirect handling.</li>
+ * <li>Makes the limits of the connection pool for each end point tunable. The
+ * defaults are those of the jetty platform.</li>
  * <li>Sets a default SSL context factory. By default the
  * {@link SslContextFactory} will trusts all certificates. This allows encrypted
  * communications with any SSL endpoint, but it does not verify the identity
@@ -105,6 +107,51 @@ public final class DefaultHttpClientFactory implements IHttpClientFactory {
 		 */
 		public static final int DEFAULT_REQUEST_BUFFER_SIZE = 16 * 1024;
 
+		/**
+		 * The name of the system property that may be used to specify the
+		 * maximum number of connections that will be opened to a given end
+		 * point (default {@value #DEFAULT_MAX_CONNECTIONS_PER_DESTINATION}).
+		 * Concurrent requests in excess of this limit are queued by the jetty
+		 * client until a pooled connection becomes available.
+		 * <p>
+		 * Note: This only makes the jetty limit tunable. The default is the
+		 * jetty default, so the behavior of the client is unchanged unless
+		 * this property is set.
+		 * 
+		 * @see #MAX_REQUESTS_QUEUED_PER_DESTINATION
+		 */
+		public static final String MAX_CONNECTIONS_PER_DESTINATION = DefaultHttpClientFactory.class
+				.getName() + ".maxConnectionsPerDestination";
+
+		/**
+		 * The default maximum number of connections per end point (@value
+		 * {@value #DEFAULT_MAX_CONNECTIONS_PER_DESTINATION}).
+		 * <p>
+		 * Note: The default value for the jetty platform is 64.
+		 */
+		public static final int DEFAULT_MAX_CONNECTIONS_PER_DESTINATION = 64;
+
+		/**
+		 * The name of the system property that may be used to specify the
+		 * maximum number of requests that may be queued for a given end point
+		 * while waiting for a connection (default
+		 * {@value #DEFAULT_MAX_REQUESTS_QUEUED_PER_DESTINATION}). Requests in
+		 * excess of this limit are failed by the client.
+		 * <p>
+		 * Note: This only makes the jetty limit tunable. The default is the
+		 * jetty default.
+		 */
+		public static final String MAX_REQUESTS_QUEUED_PER_DESTINATION = DefaultHttpClientFactory.class
+				.getName() + ".maxRequestsQueuedPerDestination";
+
+		/**
+		 * The default maximum number of queued requests per end point (@value
+		 * {@value #DEFAULT_MAX_REQUESTS_QUEUED_PER_DESTINATION}).
+		 * <p>
+		 * Note: The default value for the jetty platform is 1024.
+		 */
+		public static final int DEFAULT_MAX_REQUESTS_QUEUED_PER_DESTINATION = 1024;
+
 	}
 
 	@Override
@@ -190,6 +237,35 @@ public final class DefaultHttpClientFactory implements IHttpClientFactory {
 
 			}
 
+			/*
+			 * Configure the limits of the connection pool. The defaults are
+			 * those of the jetty platform, so these only make the limits
+			 * tunable. The client remains on HTTP/1.1 since the http2 client
+			 * transport is not available.
+			 */
+			{
+
+				final int maxConnections = Integer.parseInt(System
+						.getProperty(Options.MAX_CONNECTIONS_PER_DESTINATION,
+								Integer.toString(Options.DEFAULT_MAX_CONNECTIONS_PER_DESTINATION)));
+
+				final int maxQueued = Integer.parseInt(System.getProperty(
+						Options.MAX_REQUESTS_QUEUED_PER_DESTINATION,
+						Integer.toString(Options.DEFAULT_MAX_REQUESTS_QUEUED_PER_DESTINATION)));
+
+				if (log.isInfoEnabled()) {
+					log.info(Options.MAX_CONNECTIONS_PER_DESTINATION + "="
+							+ maxConnections);
+					log.info(Options.MAX_REQUESTS_QUEUED_PER_DESTINATION + "="
+							+ maxQueued);
+				}
+
+				cm.setMaxConnectionsPerDestination(maxConnections);
+
+				cm.setMaxRequestsQueuedPerDestination(maxQueued);
+
+			}
+
 			// Start the client.
 			cm.start();
 
@@ -25,17 +25,24 @@ package com.bigdata.rdf.sail.webapp.client;
 
 import info.aduna.io.IOUtil;
 
+import java.io.ByteArrayInputStream;
 import java.io.Closeable;
+import java.io.DataInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.UUID;
 
+import org.apache.http.entity.AbstractHttpEntity;
 import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.entity.mime.FormBodyPart;
 import org.apache.http.entity.mime.MultipartEntity;
 import org.apache.http.entity.mime.content.ByteArrayBody;
@@ -46,6 +53,8 @@ import org.openrdf.model.URI;
 import org.openrdf.model.Value;
 import org.openrdf.query.GraphQueryResult;
 import org.openrdf.query.TupleQueryResult;
+import org.openrdf.query.resultio.QueryResultIO;
+import org.openrdf.query.resultio.TupleQueryResultFormat;
 import org.openrdf.rio.RDFFormat;
 
 import com.bigdata.rdf.sail.remote.BigdataSailRemoteRepository;
@@ -364,6 +373,126 @@ public class RemoteRepository extends RemoteRepositoryBase {
 
     }
 
+    /**
+     * Evaluate a batch of SPARQL SELECT queries using a single request. The
+     * server evaluates the queries concurrently against the same read-only
+     * view of the namespace and multiplexes their results onto one response.
+     * This avoids the per-request overhead when issuing many small queries.
+     * 
+     * @param queries
+     *            The queries.
+     * 
+     * @return The (fully materialized) results for each query, in the same
+     *         order as the queries.
+     * 
+     * @throws HttpException
+     *             if the request fails or any query in the batch fails.
+     * 
+     * @see BatchQueryResultConstants
+     */
+    public TupleQueryResult[] batchTupleQuery(final String... queries)
+            throws Exception {
+
+        if (queries == null || queries.length == 0)
+            throw new IllegalArgumentException();
+
+        final ConnectOptions opts = mgr.newQueryConnectOptions(
+                sparqlEndpointURL, UUID.randomUUID(), tx);
+
+        // The queries are sent in the request body.
+        opts.method = "POST";
+
+        opts.addRequestParam("batch");
+
+        opts.addRequestParam("query", queries);
+
+        opts.setAcceptHeader(BatchQueryResultConstants.MIME_BATCH_RESULTS
+                + ", " + ConnectOptions.DEFAULT_SOLUTIONS_ACCEPT_HEADER);
+
+        JettyResponseListener resp = null;
+        try {
+
+            checkResponseCode(resp = doConnect(opts));
+
+            return batchTupleResults(resp.getInputStream(), queries.length);
+
+        } finally {
+
+            if (resp != null)
+                resp.abort();
+
+        }
+
+    }
+
+    /**
+     * Demultiplex the frames of the response to a batch of queries.
+     * 
+     * @see BatchQueryResultConstants
+     */
+    private static TupleQueryResult[] batchTupleResults(final InputStream is,
+            final int nqueries) throws Exception {
+
+        final DataInputStream in = new DataInputStream(is);
+
+        final byte[] magic = new byte[BatchQueryResultConstants.MAGIC.length];
+
+        in.readFully(magic);
+
+        if (!Arrays.equals(BatchQueryResultConstants.MAGIC, magic))
+            throw new IOException("Not a batch response");
+
+        final int version = in.readInt();
+
+        if (version != BatchQueryResultConstants.VERSION)
+            throw new IOException("Unknown version: " + version);
+
+        final TupleQueryResult[] results = new TupleQueryResult[nqueries];
+
+        int index;
+        while ((index = in.readInt()) != BatchQueryResultConstants.END) {
+
+            final int status = in.readInt();
+
+            final String mimeType = in.readUTF();
+
+            final byte[] data = new byte[in.readInt()];
+
+            in.readFully(data);
+
+            if (index < 0 || index >= nqueries)
+                throw new IOException("Bad index: " + index);
+
+            if (status != 200) {
+
+                throw new HttpException(status, "query[" + index + "]: "
+                        + new String(data, "UTF-8"));
+
+            }
+
+            final TupleQueryResultFormat format = TupleQueryResultFormat
+                    .forMIMEType(new MiniMime(mimeType).getMimeType());
+
+            if (format == null)
+                throw new IOException("Could not identify format: query["
+                        + index + "], contentType=" + mimeType);
+
+            results[index] = QueryResultIO.parse(new ByteArrayInputStream(
+                    data), format);
+
+        }
+
+        for (int i = 0; i < nqueries; i++) {
+
+            if (results[i] == null)
+                throw new IOException("No results: query[" + i + "]");
+
+        }
+
+        return results;
+
+    }
+
     /**
      * Return all matching statements.
      * 
@@ -707,9 +836,25 @@ public class RemoteRepository extends RemoteRepositoryBase {
         
         add.prepareForWire();
         
+        // The stream opened on a file for a streaming insert.
+        InputStream fileStream = null;
+
         if (add.format != null) {
             
-            final ByteArrayEntity entity = new ByteArrayEntity(add.data);
+            final AbstractHttpEntity entity;
+
+            if (add.data != null) {
+
+                entity = new ByteArrayEntity(add.data);
+
+            } else {
+
+                // Streaming insert: send the data without buffering it.
+                entity = new InputStreamEntity(
+                        add.file != null ? (fileStream = new FileInputStream(
+                                add.file)) : add.is, -1L/* length */);
+
+            }
 
             entity.setContentType(add.format.getDefaultMIMEType());
             
@@ -717,6 +862,16 @@ public class RemoteRepository extends RemoteRepositoryBase {
             
         }
   
+        if (add.streaming) {
+            opts.addRequestParam("streaming", "true");
+            if (add.parserThreads > 0)
+                opts.addRequestParam("parserThreads",
+                        Integer.toString(add.parserThreads));
+            if (add.commitEvery > 0)
+                opts.addRequestParam("commitEvery",
+                        Long.toString(add.commitEvery));
+        }
+
         if (add.uris != null) {
             // set the resource(s) to load
             opts.addRequestParam("uri", add.uris.toArray(new String[0]));
@@ -758,6 +913,11 @@ public class RemoteRepository extends RemoteRepositoryBase {
                     }
                 }
             }
+
+            if (fileStream != null) {
+                fileStream.close();
+            }
+
         }
         
     }
@@ -1340,6 +1500,9 @@ public class RemoteRepository extends RemoteRepositoryBase {
         private Reader reader;
         private RDFFormat format;
         private Resource[] context;
+        private boolean streaming;
+        private int parserThreads;
+        private long commitEvery;
         
         public AddOp(final String uri) {
             if (uri == null)
@@ -1386,9 +1549,36 @@ public class RemoteRepository extends RemoteRepositoryBase {
             this.context = context;
         }
         
+        /**
+         * Request a streaming insert. Data given as a {@link File} or an
+         * {@link InputStream} is sent without first being buffered in memory.
+         * The server parses the data as it arrives and slows down the upload
+         * if the writer falls behind.
+         * 
+         * @param parserThreads
+         *            The number of threads parsing the data on the server or
+         *            <code>0</code> for the server default. Only N-Triples and
+         *            N-Quads are parsed on more than one thread.
+         * @param commitEvery
+         *            The number of statements after which the server commits
+         *            or <code>0</code> to commit once at the end (atomic).
+         */
+        public void setStreaming(final int parserThreads,
+                final long commitEvery) {
+            if (parserThreads < 0 || commitEvery < 0)
+                throw new IllegalArgumentException();
+            this.streaming = true;
+            this.parserThreads = parserThreads;
+            this.commitEvery = commitEvery;
+        }
+        
         private void prepareForWire() throws Exception {
             
-            if (file != null) {
+            if (streaming && (file != null || is != null)) {
+
+                // sent as a stream.
+
+            } else if (file != null) {
 
                 // set the data
                 data = IOUtil.readBytes(file);
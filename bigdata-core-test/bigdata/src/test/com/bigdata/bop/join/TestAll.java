@@ -63,6 +63,9 @@ public class TestAll extends TestCase {
         // Test suite for pipeline join.
         suite.addTestSuite(TestPipelineJoin.class);
 
+        // Test suite for the join key filters for hash joins.
+        suite.addTestSuite(TestJoinKeyFilter.class);
+
         // Test suite for the guts of the JVM hash join logic.
         suite.addTestSuite(TestJVMHashJoinUtility.class);
 
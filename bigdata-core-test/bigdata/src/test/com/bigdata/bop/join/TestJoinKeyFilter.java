@@ -0,0 +1,260 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+package com.bigdata.bop.join;
+
+import java.util.UUID;
+
+import junit.framework.TestCase2;
+
+import com.bigdata.bop.Constant;
+import com.bigdata.bop.DefaultQueryAttributes;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IQueryAttributes;
+import com.bigdata.bop.IVariable;
+import com.bigdata.bop.NamedSolutionSetRefUtility;
+import com.bigdata.bop.Var;
+import com.bigdata.bop.bindingSet.ListBindingSet;
+import com.bigdata.bop.controller.INamedSolutionSetRef;
+import com.bigdata.relation.accesspath.ThickCloseableIterator;
+
+import cutthecrap.utils.striterators.ICloseableIterator;
+
+/**
+ * Test suite for the {@link JoinKeyFilter}.
+ */
+public class TestJoinKeyFilter extends TestCase2 {
+
+    public TestJoinKeyFilter() {
+    }
+
+    public TestJoinKeyFilter(final String name) {
+        super(name);
+    }
+
+    private final IVariable<?> x = Var.var("x");
+
+    private final IVariable<?> y = Var.var("y");
+
+    private IBindingSet newBindingSet(final Object xval, final Object yval) {
+
+        final IBindingSet bset = new ListBindingSet();
+
+        if (xval != null)
+            bset.set(x, new Constant<Object>(xval));
+
+        if (yval != null)
+            bset.set(y, new Constant<Object>(yval));
+
+        return bset;
+
+    }
+
+    /**
+     * The filter never rejects a join key which was added and rejects most
+     * join keys which were not added.
+     */
+    public void test_filter() {
+
+        final JoinKeyFilter filter = new JoinKeyFilter(new IVariable[] { x, y });
+
+        final int n = 10000;
+
+        for (int i = 0; i < n; i++) {
+
+            filter.add(newBindingSet(i, "a" + i));
+
+            // duplicate join keys are only counted once.
+            filter.add(newBindingSet(i, "a" + i));
+
+        }
+
+        assertFalse(filter.isSealed());
+
+        filter.seal();
+
+        assertTrue(filter.isSealed());
+
+        assertFalse(filter.isMatchAll());
+
+        assertEquals(n, filter.getKeyCount());
+
+        for (int i = 0; i < n; i++) {
+
+            assertTrue(filter.isMatch(newBindingSet(i, "a" + i)));
+
+        }
+
+        int nfalsePositives = 0;
+
+        for (int i = n; i < 2 * n; i++) {
+
+            if (filter.isMatch(newBindingSet(i, "a" + i)))
+                nfalsePositives++;
+
+        }
+
+        // ~1% expected.
+        assertTrue("falsePositives=" + nfalsePositives, nfalsePositives < n / 20);
+
+        // a solution which does not bind all join variables is a match.
+        assertTrue(filter.isMatch(newBindingSet(2 * n, null)));
+
+    }
+
+    /**
+     * The filter may not be used until it has been sealed and may not be
+     * modified once it has been sealed.
+     */
+    public void test_sealed() {
+
+        final JoinKeyFilter filter = new JoinKeyFilter(new IVariable[] { x });
+
+        filter.add(newBindingSet(1, null));
+
+        try {
+            filter.isMatch(newBindingSet(1, null));
+            fail("Expecting: " + IllegalStateException.class);
+        } catch (IllegalStateException ex) {
+            if (log.isInfoEnabled())
+                log.info("Ignoring expected exception: " + ex);
+        }
+
+        filter.seal();
+
+        try {
+            filter.add(newBindingSet(2, null));
+            fail("Expecting: " + IllegalStateException.class);
+        } catch (IllegalStateException ex) {
+            if (log.isInfoEnabled())
+                log.info("Ignoring expected exception: " + ex);
+        }
+
+    }
+
+    /**
+     * If a solution in the hash index does not bind all join variables then
+     * the filter can not rule out any solution.
+     */
+    public void test_matchAll() {
+
+        final JoinKeyFilter filter = new JoinKeyFilter(new IVariable[] { x, y });
+
+        filter.add(newBindingSet(1, "a"));
+
+        filter.add(newBindingSet(2, null));
+
+        filter.seal();
+
+        assertTrue(filter.isMatchAll());
+
+        assertTrue(filter.isMatch(newBindingSet(3, "b")));
+
+    }
+
+    /**
+     * The filter is located using the {@link IQueryAttributes} and is only
+     * reported once it has been sealed and can rule out some solutions.
+     */
+    public void test_queryAttributes() {
+
+        final IQueryAttributes attrs = new DefaultQueryAttributes();
+
+        final INamedSolutionSetRef ref = NamedSolutionSetRefUtility
+                .newInstance(UUID.randomUUID(), "set1", new IVariable[] { x });
+
+        final JoinKeyFilter filter = JoinKeyFilter.getOrCreate(attrs, ref);
+
+        assertTrue(filter == JoinKeyFilter.getOrCreate(attrs, ref));
+
+        filter.add(newBindingSet(1, null));
+
+        assertNull(JoinKeyFilter.get(attrs, ref));
+
+        filter.seal();
+
+        assertTrue(filter == JoinKeyFilter.get(attrs, ref));
+
+        final INamedSolutionSetRef ref2 = NamedSolutionSetRefUtility
+                .newInstance(UUID.randomUUID(), "set2", new IVariable[] { x });
+
+        final JoinKeyFilter filter2 = JoinKeyFilter.getOrCreate(attrs, ref2);
+
+        filter2.add(newBindingSet(null, null));
+
+        filter2.seal();
+
+        assertNull(JoinKeyFilter.get(attrs, ref2));
+
+    }
+
+    /**
+     * The iterators which build and apply the filter.
+     */
+    @SuppressWarnings("unchecked")
+    public void test_iterators() {
+
+        final JoinKeyFilter filter = new JoinKeyFilter(new IVariable[] { x });
+
+        final IBindingSet[] build = new IBindingSet[] {
+                newBindingSet(1, null), newBindingSet(2, null) };
+
+        final ICloseableIterator<IBindingSet[]> itr = filter
+                .add(new ThickCloseableIterator<IBindingSet[]>(
+                        new IBindingSet[][] { build }));
+
+        assertTrue(itr.hasNext());
+        assertSameArray(build, itr.next());
+        assertFalse(itr.hasNext());
+
+        filter.seal();
+
+        final IBindingSet[] chunk1 = new IBindingSet[] {
+                newBindingSet(1, "a"), newBindingSet(5000, "b"),
+                newBindingSet(2, "c"), newBindingSet(null, "d") };
+
+        final IBindingSet[] chunk2 = new IBindingSet[] {
+                newBindingSet(5001, "e") };
+
+        final IBindingSet[] chunk3 = new IBindingSet[] {
+                newBindingSet(1, "f") };
+
+        final ICloseableIterator<IBindingSet[]> itr2 = filter
+                .filter(new ThickCloseableIterator<IBindingSet[]>(
+                        new IBindingSet[][] { chunk1, chunk2, chunk3 }));
+
+        assertTrue(itr2.hasNext());
+        assertSameArray(new IBindingSet[] { newBindingSet(1, "a"),
+                newBindingSet(2, "c"), newBindingSet(null, "d") }, itr2.next());
+        // the 2nd chunk is empty and is skipped.
+        assertTrue(itr2.hasNext());
+        assertSameArray(new IBindingSet[] { newBindingSet(1, "f") },
+                itr2.next());
+        assertFalse(itr2.hasNext());
+
+    }
+
+}
@@ -1089,4 +1089,117 @@ public class TestPipelineJoin extends TestCase2 {
 
     }
 
+    /**
+     * Unit test for a pipeline join whose access paths for a chunk of source
+     * solutions are read using a shared cursor on the index.
+     * 
+     * @see PipelineJoin.Annotations#SORTED_PROBES
+     */
+    public void test_join_sortedProbes() throws InterruptedException,
+            ExecutionException {
+
+        // the expected solutions.
+        final IBindingSet[] expected = new IBindingSet[] {//
+                new ListBindingSet(//
+                        new IVariable[] { Var.var("x"), Var.var("y") },//
+                        new IConstant[] { new Constant<String>("John"), new Constant<String>("Mary") }//
+                ),//
+                new ListBindingSet(//
+                        new IVariable[] { Var.var("x"), Var.var("y") },//
+                        new IConstant[] { new Constant<String>("Mary"), new Constant<String>("Paul") }//
+                ),//
+                new ListBindingSet(//
+                        new IVariable[] { Var.var("x"), Var.var("y") },//
+                        new IConstant[] { new Constant<String>("Mary"), new Constant<String>("John") }//
+                ),//
+                new ListBindingSet(//
+                        new IVariable[] { Var.var("x"), Var.var("y") },//
+                        new IConstant[] { new Constant<String>("Paul"), new Constant<String>("Leon") }//
+                ),//
+                new ListBindingSet(//
+                        new IVariable[] { Var.var("x"), Var.var("y") },//
+                        new IConstant[] { new Constant<String>("Leon"), new Constant<String>("Paul") }//
+                ),//
+        };
+
+        // The source solutions are not ordered by the index.
+        final String[] names = new String[] { "Paul", "Zed", "John", "Leon",
+                "Mary" };
+
+        assertEquals(5L, doSortedProbesTest(true/* sortedProbes */, names,
+                expected));
+
+        assertEquals(0L, doSortedProbesTest(false/* sortedProbes */, names,
+                expected));
+
+    }
+
+    /**
+     * Run a join of <code>(x y)</code> against source solutions binding
+     * <code>x</code> to each of the given names.
+     * 
+     * @return The #of access paths read using a shared cursor.
+     */
+    private long doSortedProbesTest(final boolean sortedProbes,
+            final String[] names, final IBindingSet[] expected)
+            throws InterruptedException, ExecutionException {
+
+        final int joinId = 2;
+        final int predId = 3;
+
+        final Predicate<E> predOp = new Predicate<E>(new IVariableOrConstant[] {
+                Var.var("x"), Var.var("y") }, NV
+                .asMap(new NV[] {//
+                        new NV(Predicate.Annotations.RELATION_NAME,
+                                new String[] { namespace }),//
+                        new NV(Predicate.Annotations.BOP_ID, predId),//
+                        new NV(Annotations.TIMESTAMP,
+                                jnl.getLastCommitTime()),//
+                }));
+
+        final PipelineJoin<E> query = new PipelineJoin<E>(
+                new BOp[] { },// args
+                new NV(Predicate.Annotations.BOP_ID, joinId),//
+                new NV(PipelineJoin.Annotations.PREDICATE, predOp),//
+                new NV(PipelineJoin.Annotations.SORTED_PROBES, sortedProbes)//
+                );
+
+        final PipelineJoinStats stats = query.newStats();
+
+        final IBindingSet[] chunk = new IBindingSet[names.length];
+
+        for (int i = 0; i < names.length; i++) {
+
+            chunk[i] = new ListBindingSet();
+
+            chunk[i].set(Var.var("x"), new Constant<String>(names[i]));
+
+        }
+
+        final IAsynchronousIterator<IBindingSet[]> source = new ThickAsynchronousIterator<IBindingSet[]>(
+                new IBindingSet[][] { chunk });
+
+        final IBlockingBuffer<IBindingSet[]> sink = new BlockingBufferWithStats<IBindingSet[]>(query, stats);
+
+        final BOpContext<IBindingSet> context = new BOpContext<IBindingSet>(
+                new MockRunningQuery(null/* fed */, jnl/* indexManager */
+                ), -1/* partitionId */, stats,query/* op */,
+                false/* lastInvocation */, 
+                source, sink, null/* sink2 */);
+
+        // get task.
+        final FutureTask<Void> ft = query.eval(context);
+        
+        // execute task.
+        jnl.getExecutorService().execute(ft);
+
+        AbstractQueryEngineTestCase.assertSameSolutionsAnyOrder(expected,
+                sink.iterator(), ft);
+
+        assertEquals(5L, stats.accessPathCount.get());
+
+        return stats.sortedProbeCount.get();
+
+    }
+
 }
@@ -125,11 +125,13 @@ public class TestJoinGraph extends TestCase2 {
             };
             final int limit = 50;
             final int nedges = 1;
+            final long maxSamplingTime = 250L;
             final JoinGraph joinGraph = new JoinGraph(new BOp[0],//
                     new NV(JoinGraph.Annotations.VERTICES, vertices),//
                     new NV(JoinGraph.Annotations.CONSTRAINTS, constraints),//
                     new NV(JoinGraph.Annotations.LIMIT, limit),//
                     new NV(JoinGraph.Annotations.NEDGES, nedges),//
+                    new NV(JoinGraph.Annotations.MAX_SAMPLING_TIME, maxSamplingTime),//
                     new NV(JoinGraph.Annotations.CONTROLLER, true), //
                     new NV(JoinGraph.Annotations.EVALUATION_CONTEXT,
                             BOpEvaluationContext.CONTROLLER)//
@@ -138,6 +140,8 @@ public class TestJoinGraph extends TestCase2 {
             assertEquals("constraints", constraints, joinGraph.getConstraints());
             assertEquals("limit", limit, joinGraph.getLimit());
             assertEquals("nedges", nedges, joinGraph.getNEdges());
+            assertEquals("maxSamplingTime", maxSamplingTime,
+                    joinGraph.getMaxSamplingTime());
         }
 
     }
@@ -285,6 +289,27 @@ public class TestJoinGraph extends TestCase2 {
             }
         }
 
+        // Correct rejection [maxSamplingTime].
+        {
+            try {
+                final IPredicate[] vertices = new IPredicate[] {
+                        new Predicate(new BOp[] { Var.var("x"), Var.var("y") }),//
+                        new Predicate(new BOp[] { Var.var("y"), Var.var("z") }),//
+                };
+                new JoinGraph(new BOp[0],//
+                        new NV(JoinGraph.Annotations.VERTICES, vertices),//
+                        new NV(JoinGraph.Annotations.MAX_SAMPLING_TIME, -1L),//
+                        new NV(JoinGraph.Annotations.CONTROLLER, true), //
+                        new NV(JoinGraph.Annotations.EVALUATION_CONTEXT,
+                                BOpEvaluationContext.CONTROLLER)//
+                );
+                fail("Expecting: " + IllegalArgumentException.class);
+            } catch (IllegalArgumentException ex) {
+                if (log.isInfoEnabled())
+                    log.info("Ignoring expected exception: " + ex);
+            }
+        }
+
     }
 
 }
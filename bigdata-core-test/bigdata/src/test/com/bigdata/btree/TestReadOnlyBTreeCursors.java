@@ -101,5 +101,70 @@ public class TestReadOnlyBTreeCursors extends AbstractBTreeCursorTestCase {
         }
         
     }
+
+    /**
+     * Verify {@link ITupleCursor#seek(Object)} for a sequence of ascending and
+     * descending keys, including keys which are not in the index. The current
+     * leaf is reused by a seek to a key which it spans, so the keys are chosen
+     * such that there are several seeks into the same leaf as well as seeks to
+     * keys before, after and between the leaves.
+     */
+    public void test_seek_sameLeaf() {
+
+        final IndexMetadata md = new IndexMetadata(UUID.randomUUID());
+
+        md.setBranchingFactor(4);
+
+        BTree btree = BTree.create(new SimpleMemoryRawStore(), md);
+
+        // Only the even keys are in the index.
+        for (int i = 0; i < 100; i += 2) {
+
+            btree.insert(i, "v" + i);
+
+        }
+
+        btree.writeCheckpoint();
+
+        btree = btree.asReadOnly();
+
+        final ITupleCursor<String> cursor = newCursor(btree);
+
+        final int[] keys = new int[] { -1, 0, 1, 2, 3, 4, 5, 6, 9, 10, 11, 37,
+                38, 40, 41, 42, 97, 98, 99, 50, 51, 52, 0 };
+
+        for (int key : keys) {
+
+            final ITuple<String> t = cursor.seek(key);
+
+            if (key >= 0 && key < 100 && key % 2 == 0) {
+
+                assertEquals(new TestTuple<String>(key, "v" + key), t);
+
+            } else {
+
+                assertNull(t);
+
+            }
+
+            // The next tuple is the next even key.
+            final int next = key < 0 ? 0 : (key + 2) & ~1;
+
+            if (next < 100) {
+
+                assertTrue(cursor.hasNext());
+
+                assertEquals(new TestTuple<String>(next, "v" + next),
+                        cursor.next());
+
+            } else {
+
+                assertFalse(cursor.hasNext());
+
+            }
+
+        }
+
+    }
     
 }
@@ -103,6 +103,15 @@ public class TestAll extends TestCase {
         
         // test of prefix search
         suite.addTestSuite(TestPrefixSearch.class);
+
+        // test of top-k search.
+        suite.addTestSuite(TestTopKSearch.class);
+
+        // test of phrase and proximity search.
+        suite.addTestSuite(TestPhraseSearch.class);
+
+        // test of prefix completion.
+        suite.addTestSuite(TestCompletionTrie.class);
         
         // test verifies search index is restart safe.
         suite.addTestSuite(TestSearchRestartSafe.class);
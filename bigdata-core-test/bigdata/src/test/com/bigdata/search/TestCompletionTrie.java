@@ -0,0 +1,349 @@
+/*
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+package com.bigdata.search;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import com.bigdata.journal.IIndexManager;
+import com.bigdata.journal.Journal;
+
+/**
+ * Test suite for the {@link CompletionTrie} and the completion index of the
+ * {@link FullTextIndex}.
+ */
+public class TestCompletionTrie extends AbstractSearchTest {
+
+    public TestCompletionTrie() {
+    }
+
+    public TestCompletionTrie(String name) {
+        super(name);
+    }
+
+    private static final String languageCode = "EN";
+
+    public void test_empty() {
+
+        assertEquals(0, CompletionTrie.EMPTY.size());
+
+        assertEquals(0, CompletionTrie.EMPTY.complete("a", 10).size());
+
+        assertEquals(0, CompletionTrie.EMPTY.complete("", 10).size());
+
+    }
+
+    public void test_complete() {
+
+        final SortedMap<String, Long> tokens = new TreeMap<String, Long>();
+
+        tokens.put("bravo", 3L);
+        tokens.put("brave", 7L);
+        tokens.put("bread", 7L);
+        tokens.put("broken", 1L);
+        tokens.put("alpha", 100L);
+        tokens.put("charlie", 50L);
+
+        final CompletionTrie trie = CompletionTrie.build(tokens);
+
+        assertEquals(6, trie.size());
+
+        // descending weight, ties in token order.
+        assertCompletions(new String[] { "brave", "bread", "bravo" },
+                trie.complete("br", 3));
+
+        assertCompletions(new String[] { "brave", "bravo" },
+                trie.complete("brav", 10));
+
+        assertCompletions(new String[] { "broken" }, trie.complete("broken", 10));
+
+        assertCompletions(new String[] {}, trie.complete("brokenx", 10));
+
+        assertCompletions(new String[] {}, trie.complete("d", 10));
+
+        assertCompletions(new String[] { "alpha", "charlie" },
+                trie.complete("", 2));
+
+        assertEquals(7L, trie.complete("brav", 1).get(0).getWeight());
+
+    }
+
+    public void test_builder_order() {
+
+        final CompletionTrie.Builder b = new CompletionTrie.Builder(2);
+
+        b.add("b", 1L);
+
+        try {
+            b.add("a", 1L);
+            fail("Expecting: " + IllegalArgumentException.class);
+        } catch (IllegalArgumentException ex) {
+            // ignore
+        }
+
+    }
+
+    public void test_merge() {
+
+        final SortedMap<String, Long> tokens = new TreeMap<String, Long>();
+
+        tokens.put("bravo", 3L);
+        tokens.put("brave", 7L);
+        tokens.put("bread", 7L);
+
+        final CompletionTrie trie = CompletionTrie.build(tokens);
+
+        final SortedMap<String, Long> changes = new TreeMap<String, Long>();
+
+        changes.put("bravo", 9L); // update
+        changes.put("brave", 0L); // remove
+        changes.put("broth", 2L); // insert
+
+        final CompletionTrie trie2 = trie.merge(changes);
+
+        // the original trie is not modified.
+        assertCompletions(new String[] { "brave", "bread", "bravo" },
+                trie.complete("b", 10));
+
+        assertEquals(3, trie2.size());
+
+        assertCompletions(new String[] { "bravo", "bread", "broth" },
+                trie2.complete("b", 10));
+
+    }
+
+    /**
+     * Compare the trie against a brute force scan of a large random
+     * vocabulary (spanning many buckets).
+     */
+    public void test_stress() {
+
+        final Random r = new Random(219L);
+
+        final SortedMap<String, Long> tokens = new TreeMap<String, Long>();
+
+        while (tokens.size() < 5000) {
+
+            final StringBuilder sb = new StringBuilder();
+
+            final int len = 1 + r.nextInt(6);
+
+            for (int i = 0; i < len; i++)
+                sb.append((char) ('a' + r.nextInt(4)));
+
+            tokens.put(sb.toString(), (long) (1 + r.nextInt(100)));
+
+        }
+
+        final CompletionTrie trie = CompletionTrie.build(tokens);
+
+        assertEquals(tokens.size(), trie.size());
+
+        for (String prefix : new String[] { "", "a", "ab", "dd", "cab",
+                "bbbb", "dcba", "ddddddd" }) {
+
+            for (int k : new int[] { 1, 5, 50, 10000 }) {
+
+                final List<CompletionTrie.Completion> actual = trie.complete(
+                        prefix, k);
+
+                final List<Map.Entry<String, Long>> expected = new ArrayList<Map.Entry<String, Long>>();
+
+                for (Map.Entry<String, Long> e : tokens.entrySet()) {
+
+                    if (e.getKey().startsWith(prefix))
+                        expected.add(e);
+
+                }
+
+                assertEquals(prefix + ", k=" + k, Math.min(k, expected.size()),
+                        actual.size());
+
+                long last = Long.MAX_VALUE;
+
+                final Set<String> reported = new HashSet<String>();
+
+                for (CompletionTrie.Completion c : actual) {
+
+                    assertTrue(reported.add(c.getToken()));
+
+                    assertTrue(c.getToken().startsWith(prefix));
+
+                    assertEquals(tokens.get(c.getToken()).longValue(),
+                            c.getWeight());
+
+                    assertTrue(c.getWeight() <= last);
+
+                    last = c.getWeight();
+
+                }
+
+                if (actual.size() < expected.size()) {
+
+                    // nothing which was not reported is heavier.
+                    for (Map.Entry<String, Long> e : expected) {
+
+                        if (!reported.contains(e.getKey()))
+                            assertTrue(e.getValue() <= last);
+
+                    }
+
+                }
+
+            }
+
+        }
+
+    }
+
+    public void test_completion_index_not_enabled() {
+
+        init();
+
+        assertFalse(getNdx().isCompletionIndexEnabled());
+
+        try {
+            getNdx().complete("a", languageCode, 10);
+            fail("Expecting: " + UnsupportedOperationException.class);
+        } catch (UnsupportedOperationException ex) {
+            // ignore
+        }
+
+    }
+
+    /**
+     * Verify that the completion index is maintained as documents are indexed
+     * and that the completions reflect the #of postings for each token.
+     */
+    public void test_completion_index() {
+
+        init(FullTextIndex.Options.COMPLETION_INDEX, "true");
+
+        assertTrue(getNdx().isCompletionIndexEnabled());
+
+        index(1L, "the brown bread was broken");
+        index(2L, "brown bread");
+        index(3L, "brown");
+
+        assertCompletions(new String[] { "brown", "bread", "broken" },
+                getNdx().complete("br", languageCode, 10));
+
+        assertEquals(3L, getNdx().complete("br", languageCode, 1).get(0)
+                .getWeight());
+
+        // the last token is completed.
+        assertCompletions(new String[] { "bread" },
+                getNdx().complete("brown bre", languageCode, 10));
+
+        assertCompletions(new String[] {},
+                getNdx().complete("zulu", languageCode, 10));
+
+        assertCompletions(new String[] {},
+                getNdx().complete("  ", languageCode, 10));
+
+    }
+
+    /**
+     * Verify that the completion trie for a read-only view reflects the state
+     * of the index as of that commit point and that newer commit points are
+     * handled correctly when the trie is maintained incrementally.
+     */
+    public void test_completion_index_commits() {
+
+        init(FullTextIndex.Options.COMPLETION_INDEX, "true");
+
+        final IIndexManager indexManager = getIndexManager();
+
+        if (!(indexManager instanceof Journal))
+            return;
+
+        final Journal jnl = (Journal) indexManager;
+
+        index(1L, "broken bread");
+
+        final long commitTime1 = jnl.commit();
+
+        index(2L, "brown bread");
+        index(3L, "brown");
+        index(4L, "brown");
+
+        final long commitTime2 = jnl.commit();
+
+        assertCompletions(new String[] { "bread", "broken" },
+                readOnlyView(commitTime1).complete("br", languageCode, 10));
+
+        assertCompletions(new String[] { "brown", "bread", "broken" },
+                readOnlyView(commitTime2).complete("br", languageCode, 10));
+
+        // the prior commit point is still correct.
+        assertCompletions(new String[] { "bread", "broken" },
+                readOnlyView(commitTime1).complete("br", languageCode, 10));
+
+    }
+
+    private FullTextIndex<Long> readOnlyView(final long commitTime) {
+
+        return new FullTextIndex<Long>(getIndexManager(), getNamespace(),
+                commitTime, getSearchProperties());
+
+    }
+
+    private void index(final long docId, final String text) {
+
+        final TokenBuffer<Long> buffer = new TokenBuffer<Long>(10, getNdx());
+
+        getNdx().index(buffer, Long.valueOf(docId), 0/* fieldId */,
+                languageCode, new StringReader(text));
+
+        buffer.flush();
+
+    }
+
+    private static void assertCompletions(final String[] expected,
+            final List<CompletionTrie.Completion> actual) {
+
+        final List<String> tokens = new ArrayList<String>();
+
+        for (CompletionTrie.Completion c : actual) {
+
+            tokens.add(c.getToken());
+
+        }
+
+        assertEquals(Arrays.asList(expected), tokens);
+
+    }
+
+}
@@ -0,0 +1,192 @@
+/*
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+package com.bigdata.search;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import com.bigdata.rdf.lexicon.ITextIndexer.FullTextQuery;
+
+/**
+ * Test suite for phrase and proximity queries answered from the positions
+ * stored in the full text index.
+ * 
+ * @see FullTextIndex.Options#POSITIONS_ENABLED
+ */
+public class TestPhraseSearch extends AbstractSearchTest {
+
+    public TestPhraseSearch() {
+    }
+
+    public TestPhraseSearch(String name) {
+        super(name);
+    }
+
+    private static final String languageCode = "EN";
+
+    private static final String[] docs = new String[] {//
+            "quick brown fox",// 1
+            "brown quick fox",// 2
+            "quick red brown fox",// 3
+            "the quick brown dog jumps",// 4
+            "fox",// 5
+    };
+
+    public void test_phrase() {
+
+        init(FullTextIndex.Options.POSITIONS_ENABLED, "true");
+
+        index(docs);
+
+        assertSameDocs(new long[] { 1, 4 }, search("quick brown",
+                true/* matchPhrase */, Integer.MAX_VALUE));
+
+        assertSameDocs(new long[] { 1 }, search("quick brown fox",
+                true/* matchPhrase */, Integer.MAX_VALUE));
+
+        assertSameDocs(new long[] { 2 }, search("brown quick",
+                true/* matchPhrase */, Integer.MAX_VALUE));
+
+        assertSameDocs(new long[] {}, search("fox quick",
+                true/* matchPhrase */, Integer.MAX_VALUE));
+
+        // a single token phrase matches any document having that token.
+        assertSameDocs(new long[] { 1, 2, 3, 5 }, search("fox",
+                true/* matchPhrase */, Integer.MAX_VALUE));
+
+    }
+
+    public void test_proximity() {
+
+        init(FullTextIndex.Options.POSITIONS_ENABLED, "true");
+
+        index(docs);
+
+        assertSameDocs(new long[] { 2 }, search("quick fox",
+                false/* matchPhrase */, 1/* proximity */));
+
+        assertSameDocs(new long[] { 1, 2 }, search("quick fox",
+                false/* matchPhrase */, 2/* proximity */));
+
+        assertSameDocs(new long[] { 1, 2, 3 }, search("fox quick",
+                false/* matchPhrase */, 3/* proximity */));
+
+        // proximity implies that all tokens must be present.
+        assertSameDocs(new long[] { 4 }, search("dog quick",
+                false/* matchPhrase */, 10/* proximity */));
+
+    }
+
+    /**
+     * Phrase and proximity queries are rejected if the index does not store
+     * positions.
+     */
+    public void test_positionsNotEnabled() {
+
+        init();
+
+        index(docs);
+
+        try {
+            search("quick brown", true/* matchPhrase */, Integer.MAX_VALUE);
+            fail("Expecting: " + UnsupportedOperationException.class);
+        } catch (UnsupportedOperationException ex) {
+            // ignore
+        }
+
+        // other queries are not affected.
+        assertSameDocs(new long[] { 1, 2, 3, 4 }, search("quick brown",
+                false/* matchPhrase */, Integer.MAX_VALUE));
+
+    }
+
+    /**
+     * Unit test for the minimum window over the positions of the tokens.
+     */
+    public void test_minWindow() {
+
+        assertEquals(0, PositionMatcher.minWindow(new int[][] { { 4 } }));
+
+        assertEquals(1, PositionMatcher.minWindow(new int[][] { { 1, 9 },
+                { 10 } }));
+
+        assertEquals(2, PositionMatcher.minWindow(new int[][] { { 0, 20 },
+                { 5, 21 }, { 22 } }));
+
+        assertEquals(Integer.MAX_VALUE, PositionMatcher
+                .minWindow(new int[][] { { 0 }, {} }));
+
+    }
+
+    private void assertSameDocs(final long[] expected, final Hit<Long>[] hits) {
+
+        final long[] actual = new long[hits.length];
+
+        for (int i = 0; i < hits.length; i++) {
+
+            actual[i] = hits[i].getDocId().longValue();
+
+        }
+
+        Arrays.sort(actual);
+
+        assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+
+    }
+
+    private void index(final String[] docs) {
+
+        final TokenBuffer<Long> buffer = new TokenBuffer<Long>(docs.length,
+                getNdx());
+
+        long docId = 1;
+
+        for (String s : docs) {
+
+            getNdx().index(buffer, Long.valueOf(docId++), 0/* fieldId */,
+                    languageCode, new StringReader(s));
+
+        }
+
+        buffer.flush();
+
+    }
+
+    private Hit<Long>[] search(final String query, final boolean matchPhrase,
+            final int proximity) {
+
+        return getNdx()._search(new FullTextQuery(query, languageCode,
+                false/* prefixMatch */, null/* regex */,
+                false/* matchAllTerms */, false/* matchExact */,
+                0d/* minCosine */, 1d/* maxCosine */, 1/* minRank */,
+                Integer.MAX_VALUE/* maxRank */, Long.MAX_VALUE/* timeout */,
+                TimeUnit.MILLISECONDS, matchPhrase, proximity));
+
+    }
+
+}
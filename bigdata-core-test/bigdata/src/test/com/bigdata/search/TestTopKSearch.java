@@ -0,0 +1,228 @@
+/*
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+package com.bigdata.search;
+
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.bigdata.rdf.lexicon.ITextIndexer.FullTextQuery;
+
+/**
+ * Test suite for the {@link TopKEvaluator}. The hits reported for a query
+ * with a maxRank are compared against the hits reported when all postings are
+ * read for each {@link RelevanceModelEnum}.
+ */
+public class TestTopKSearch extends AbstractSearchTest {
+
+    public TestTopKSearch() {
+    }
+
+    public TestTopKSearch(String name) {
+        super(name);
+    }
+
+    private static final String languageCode = "EN";
+
+    /**
+     * The vocabulary. Words are drawn with a skewed distribution so the early
+     * words have a large document frequency.
+     */
+    private static final String[] words = new String[] { "alpha", "bravo",
+            "charlie", "delta", "echo", "foxtrot", "golf", "hotel", "india",
+            "juliet", "kilo", "lima", "mike", "november", "oscar", "papa",
+            "quebec", "romeo", "sierra", "tango", "uniform", "victor",
+            "whiskey", "xray", "yankee", "zulu" };
+
+    public void test_cosine() {
+
+        init(FullTextIndex.Options.RELEVANCE_MODEL,
+                RelevanceModelEnum.Cosine.toString());
+
+        doTopKTest();
+
+    }
+
+    public void test_bm25() {
+
+        init(FullTextIndex.Options.RELEVANCE_MODEL,
+                RelevanceModelEnum.BM25.toString());
+
+        doTopKTest();
+
+    }
+
+    /**
+     * The BM25 relevance is in [0:1] and is larger for a document having a
+     * rare token than for one having only a common token.
+     */
+    public void test_bm25_idf() {
+
+        init(FullTextIndex.Options.RELEVANCE_MODEL,
+                RelevanceModelEnum.BM25.toString());
+
+        index(new String[] { "alpha", "alpha", "alpha", "alpha bravo" });
+
+        final Hit<Long>[] hits = search("alpha bravo", Integer.MAX_VALUE);
+
+        assertEquals(4, hits.length);
+
+        assertEquals(4L, hits[0].getDocId().longValue());
+
+        for (Hit<Long> hit : hits) {
+
+            assertTrue(hit.getCosine() > 0d);
+
+            assertTrue(hit.getCosine() <= 1d);
+
+        }
+
+    }
+
+    private void doTopKTest() {
+
+        final Random r = new Random(537L);
+
+        final String[] docs = new String[2000];
+
+        for (int i = 0; i < docs.length; i++) {
+
+            final StringBuilder sb = new StringBuilder();
+
+            final int len = 1 + r.nextInt(10);
+
+            for (int j = 0; j < len; j++) {
+
+                // skewed toward the start of the vocabulary.
+                final double x = r.nextDouble();
+
+                sb.append(words[(int) (x * x * words.length)]).append(' ');
+
+            }
+
+            docs[i] = sb.toString();
+
+        }
+
+        index(docs);
+
+        for (String query : new String[] { "alpha", "alpha bravo",
+                "alpha zulu", "charlie delta echo", "alpha alpha kilo",
+                "nothing" }) {
+
+            final int[] ks = new int[] { 1, 10, 100 };
+
+            /*
+             * Note: The top-k queries are run first since the hit cache would
+             * otherwise answer them from the hits for the same query.
+             */
+            @SuppressWarnings("unchecked")
+            final Hit<Long>[][] results = new Hit[ks.length][];
+
+            for (int i = 0; i < ks.length; i++) {
+
+                results[i] = search(query, ks[i]);
+
+            }
+
+            final Hit<Long>[] all = search(query, Integer.MAX_VALUE);
+
+            final Map<Long, Double> relevance = new HashMap<Long, Double>();
+
+            for (Hit<Long> hit : all) {
+
+                relevance.put(hit.getDocId(), hit.getCosine());
+
+            }
+
+            for (int j = 0; j < ks.length; j++) {
+
+                final int k = ks[j];
+
+                final Hit<Long>[] topK = results[j];
+
+                assertEquals(query + ", k=" + k, Math.min(k, all.length),
+                        topK.length);
+
+                for (int i = 0; i < topK.length; i++) {
+
+                    /*
+                     * Note: Ties may be broken differently, so verify the
+                     * relevance at each rank and the relevance of each
+                     * document rather than the docId at each rank.
+                     */
+
+                    final Hit<Long> hit = topK[i];
+
+                    assertEquals(query + ", k=" + k + ", rank=" + (i + 1),
+                            all[i].getCosine(), hit.getCosine(), 1e-9);
+
+                    assertEquals(query + ", k=" + k + ", hit=" + hit,
+                            relevance.get(hit.getDocId()), hit.getCosine(),
+                            1e-9);
+
+                    assertEquals(i + 1, hit.getRank());
+
+                }
+
+            }
+
+        }
+
+    }
+
+    private void index(final String[] docs) {
+
+        final TokenBuffer<Long> buffer = new TokenBuffer<Long>(docs.length,
+                getNdx());
+
+        long docId = 1;
+
+        for (String s : docs) {
+
+            getNdx().index(buffer, Long.valueOf(docId++), 0/* fieldId */,
+                    languageCode, new StringReader(s));
+
+        }
+
+        buffer.flush();
+
+    }
+
+    private Hit<Long>[] search(final String query, final int maxRank) {
+
+        return getNdx()._search(new FullTextQuery(query, languageCode,
+                false/* prefixMatch */, null/* regex */,
+                false/* matchAllTerms */, false/* matchExact */,
+                0d/* minCosine */, 1d/* maxCosine */, 1/* minRank */,
+                maxRank, Long.MAX_VALUE/* timeout */, TimeUnit.MILLISECONDS));
+
+    }
+
+}
@@ -261,8 +261,10 @@ public class NativeDistinctFilter extends BOpFilterBase {
         
         /**
          * The fast JVM based cache. This is always allocated.
+         * 
+         * @see #getLRUKey(ISPO)
          */
-        private final LinkedHashMap<ISPO, byte[]> lru;
+        private final LinkedHashMap<Object, byte[]> lru;
 
         /**
          * The metadata used to create the index.
@@ -280,7 +282,7 @@ public class NativeDistinctFilter extends BOpFilterBase {
          * 
          * @see NativeDistinctFilter#getFilterKeyOrder(SPOKeyOrder)
          */
-        private final int[] filterKeyOrder;
+        protected final int[] filterKeyOrder;
         
         /**
          * A persistence capable index for very large data sets. This is
@@ -392,7 +394,7 @@ public class NativeDistinctFilter extends BOpFilterBase {
                     Annotations.LOAD_FACTOR,
                     Annotations.DEFAULT_LOAD_FACTOR);
                     
-            lru = new LinkedHashMap<ISPO, byte[]>(initialCapacity, loadFactor);
+            lru = new LinkedHashMap<Object, byte[]>(initialCapacity, loadFactor);
 
             this.nominalCapacity = initialCapacity;
 
@@ -469,7 +471,7 @@ public class NativeDistinctFilter extends BOpFilterBase {
             final byte[][] a = new byte[n][];
             {
                 // Evict everything into an array.
-                final Iterator<Map.Entry<ISPO, byte[]>> itr = lru.entrySet()
+                final Iterator<Map.Entry<Object, byte[]>> itr = lru.entrySet()
                         .iterator();
                 int i = 0;
                 while (itr.hasNext()) {
@@ -554,24 +556,16 @@ public class NativeDistinctFilter extends BOpFilterBase {
          */
         private boolean add(final ISPO spo) {
 
-            if(lru.containsKey(spo)) {
+            final Object lruKey = getLRUKey(spo);
+            
+            if(lru.containsKey(lruKey)) {
                 // already in the LRU
                 return false;
             }
 
-            /*
-             * Build the key in the order in which the hash join is visiting the
-             * B+Tree AP. This gives the DISTINCT index the best possible
-             * locality in terms of the natural order in which the SPOs will be
-             * arriving.
-             */
             keyBuilder.reset();
 
-            for (int i = 0; i < 3; i++) {
-
-                IVUtility.encode(keyBuilder, spo.get(filterKeyOrder[i]));
-
-            }
+            encodeKey(keyBuilder, spo);
 
             final byte[] key = keyBuilder.getKey();
             
@@ -592,7 +586,7 @@ public class NativeDistinctFilter extends BOpFilterBase {
             }
             
             // Add to LRU.
-            lru.put(spo, key);
+            lru.put(lruKey, key);
 
             if (lru.size() >= nominalCapacity) {
                 // Batch evict the entries into the index.
@@ -604,6 +598,34 @@ public class NativeDistinctFilter extends BOpFilterBase {
 
         }
 
+        /**
+         * Return the object used to test the {@link #lru} for the {@link ISPO}.
+         * The default returns the {@link ISPO} itself. This must be consistent
+         * with {@link #encodeKey(IKeyBuilder, ISPO)}.
+         */
+        protected Object getLRUKey(final ISPO spo) {
+
+            return spo;
+
+        }
+
+        /**
+         * Format the key for the {@link ISPO} onto the caller's
+         * {@link IKeyBuilder}. The default builds the key from the {@link IV}s
+         * in the order in which the hash join is visiting the B+Tree AP. This
+         * gives the DISTINCT index the best possible locality in terms of the
+         * natural order in which the SPOs will be arriving.
+         */
+        protected void encodeKey(final IKeyBuilder keyBuilder, final ISPO spo) {
+
+            for (int i = 0; i < 3; i++) {
+
+                IVUtility.encode(keyBuilder, spo.get(filterKeyOrder[i]));
+
+            }
+
+        }
+
         /**
          * Add to {@link BTree}.
          * 
@@ -0,0 +1,713 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+
+package com.bigdata.bop.rdf.join;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+import com.bigdata.bop.BOp;
+import com.bigdata.bop.BOpContext;
+import com.bigdata.bop.BOpUtility;
+import com.bigdata.bop.Constant;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IConstant;
+import com.bigdata.bop.IConstraint;
+import com.bigdata.bop.IPredicate;
+import com.bigdata.bop.IVariable;
+import com.bigdata.bop.IVariableOrConstant;
+import com.bigdata.bop.NV;
+import com.bigdata.bop.PipelineOp;
+import com.bigdata.bop.engine.BOpStats;
+import com.bigdata.bop.join.JoinAnnotations;
+import com.bigdata.btree.IRangeQuery;
+import com.bigdata.btree.keys.IKeyBuilder;
+import com.bigdata.btree.keys.KeyBuilder;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.IVUtility;
+import com.bigdata.rdf.spo.ISPO;
+import com.bigdata.rdf.spo.SPOKeyOrder;
+import com.bigdata.rdf.spo.SPORelation;
+import com.bigdata.relation.accesspath.IAccessPath;
+import com.bigdata.relation.accesspath.IBlockingBuffer;
+import com.bigdata.relation.accesspath.UnsyncLocalOutputBuffer;
+import com.bigdata.striterator.IChunkedOrderedIterator;
+import com.bigdata.util.BytesUtil;
+
+import cutthecrap.utils.striterators.ICloseableIterator;
+
+/**
+ * A merge join of two triple patterns which share a variable. For each source
+ * solution, the access paths for both triple patterns are scanned in the
+ * order of the join variable and the scans are merged. This replaces one
+ * random index probe per solution of the first triple pattern with a single
+ * sequential scan of each access path, which is much cheaper when both triple
+ * patterns have a large range count.
+ * <p>
+ * The scan of an access path is ordered by the join variable when the join
+ * variable is the first variable in the key order of that access path (the
+ * constants of the triple pattern always form the key prefix). For triples,
+ * this is true for the object of <code>(?s, p, ?o)</code> and the subject of
+ * <code>(?s, p, o)</code>, <code>(?s, ?p, o)</code> and
+ * <code>(?s, ?p, ?o)</code>, among others. The {@link #isOrderedBy(IPredicate,
+ * IVariable)} test is used by the query optimizer to recognize those cases.
+ * If an access path turns out not to be ordered by the join variable for some
+ * source solution, then the elements visited by that access path are sorted
+ * in memory before the merge.
+ * <p>
+ * The join variable values are compared using the unsigned byte order of
+ * their encoded {@link IV}s, which is the order of the values in the
+ * statement indices.
+ * <p>
+ * Note: This operator only supports triples.
+ */
+public class AccessPathMergeJoin extends PipelineOp {
+
+    /**
+     * 
+     */
+    private static final long serialVersionUID = 1L;
+
+    public interface Annotations extends PipelineOp.Annotations {
+
+        /**
+         * The two triple patterns to be joined (required). This is an
+         * {@link IPredicate}[].
+         */
+        String PREDICATES = AccessPathMergeJoin.class.getName()
+                + ".predicates";
+
+        /**
+         * The variable shared by the triple patterns on which they are merged
+         * (required).
+         */
+        String JOIN_VAR = AccessPathMergeJoin.class.getName() + ".joinVar";
+
+        /**
+         * Constraints to be applied to the solutions (optional).
+         */
+        String CONSTRAINTS = JoinAnnotations.CONSTRAINTS;
+
+    }
+
+    /**
+     * Deep copy constructor.
+     * 
+     * @param op
+     */
+    public AccessPathMergeJoin(final AccessPathMergeJoin op) {
+
+        super(op);
+
+    }
+
+    /**
+     * Shallow copy constructor.
+     * 
+     * @param args
+     * @param annotations
+     */
+    public AccessPathMergeJoin(final BOp[] args,
+            final Map<String, Object> annotations) {
+
+        super(args, annotations);
+
+        if (getPredicates().length != 2)
+            throw new IllegalArgumentException(Annotations.PREDICATES);
+
+        getRequiredProperty(Annotations.JOIN_VAR);
+
+    }
+
+    public AccessPathMergeJoin(final BOp[] args, final NV... annotations) {
+
+        this(args, NV.asMap(annotations));
+
+    }
+
+    /**
+     * @see Annotations#PREDICATES
+     */
+    @SuppressWarnings("unchecked")
+    public IPredicate<ISPO>[] getPredicates() {
+
+        return (IPredicate<ISPO>[]) getRequiredProperty(Annotations.PREDICATES);
+
+    }
+
+    /**
+     * @see Annotations#JOIN_VAR
+     */
+    public IVariable<?> getJoinVar() {
+
+        return (IVariable<?>) getRequiredProperty(Annotations.JOIN_VAR);
+
+    }
+
+    /**
+     * @see Annotations#CONSTRAINTS
+     */
+    public IConstraint[] constraints() {
+
+        return getProperty(Annotations.CONSTRAINTS, null/* defaultValue */);
+
+    }
+
+    @Override
+    public FutureTask<Void> eval(final BOpContext<IBindingSet> context) {
+
+        return new FutureTask<Void>(new ChunkTask(this, context));
+
+    }
+
+    /**
+     * Return the position (0:s, 1:p, 2:o) of the variable in the triple
+     * pattern -or- <code>-1</code> if the variable is not used by the triple
+     * pattern.
+     */
+    static int indexOf(final IPredicate<ISPO> pred, final IVariable<?> var) {
+
+        for (int i = 0; i < 3; i++) {
+
+            if (var.equals(pred.get(i)))
+                return i;
+
+        }
+
+        return -1;
+
+    }
+
+    /**
+     * Return <code>true</code> iff the access path for the triple pattern (in
+     * triples mode) visits the statements in the order of the given variable.
+     * This is true when the variable is the first position after the
+     * constants in the key order used for the triple pattern.
+     * 
+     * @param pred
+     *            The triple pattern.
+     * @param var
+     *            The variable.
+     */
+    static public boolean isOrderedBy(final IPredicate<ISPO> pred,
+            final IVariable<?> var) {
+
+        return isOrderedBy(pred, var, SPOKeyOrder.getKeyOrder(pred, 3/* keyArity */));
+
+    }
+
+    /**
+     * Return <code>true</code> iff the triple pattern visits the statements in
+     * the order of the given variable when read using the given key order.
+     */
+    static boolean isOrderedBy(final IPredicate<ISPO> pred,
+            final IVariable<?> var, final SPOKeyOrder keyOrder) {
+
+        final int pos = indexOf(pred, var);
+
+        if (pos == -1)
+            return false;
+
+        for (int j = 0; j < 3; j++) {
+
+            final int i = keyOrder.getKeyOrder(j);
+
+            if (pred.get(i).isVar()) {
+
+                // The first variable in the key order.
+                return i == pos;
+
+            }
+
+        }
+
+        return false;
+
+    }
+
+    /**
+     * A statement and the encoded value of the join variable.
+     */
+    private static class Entry {
+
+        final byte[] key;
+
+        final ISPO spo;
+
+        Entry(final byte[] key, final ISPO spo) {
+            this.key = key;
+            this.spo = spo;
+        }
+
+    }
+
+    private static final Comparator<Entry> ENTRY_COMPARATOR = new Comparator<Entry>() {
+        @Override
+        public int compare(final Entry a, final Entry b) {
+            return BytesUtil.compareBytes(a.key, b.key);
+        }
+    };
+
+    /**
+     * Visits the statements for a triple pattern in the order of the join
+     * variable.
+     */
+    private static class EntryIterator {
+
+        /**
+         * The statements read from an access path -or- <code>null</code> if
+         * the statements were sorted.
+         */
+        private final ICloseableIterator<ISPO> src;
+
+        /**
+         * The sorted statements -or- <code>null</code>.
+         */
+        private final Iterator<Entry> sorted;
+
+        private final int pos;
+
+        private final IKeyBuilder keyBuilder;
+
+        private Entry current;
+
+        /**
+         * Visit the statements in the order in which they are read.
+         * 
+         * @param src
+         *            The statements.
+         * @param pos
+         *            The position of the join variable.
+         */
+        EntryIterator(final ICloseableIterator<ISPO> src, final int pos) {
+            this.src = src;
+            this.sorted = null;
+            this.pos = pos;
+            this.keyBuilder = KeyBuilder.newInstance();
+            advance();
+        }
+
+        /**
+         * Visit the sorted statements.
+         */
+        EntryIterator(final List<Entry> sorted) {
+            this.src = null;
+            this.sorted = sorted.iterator();
+            this.pos = -1;
+            this.keyBuilder = null;
+            advance();
+        }
+
+        Entry current() {
+            return current;
+        }
+
+        void close() {
+            if (src != null)
+                src.close();
+        }
+
+        void advance() {
+
+            if (sorted != null) {
+
+                current = sorted.hasNext() ? sorted.next() : null;
+
+                return;
+
+            }
+
+            if (!src.hasNext()) {
+
+                current = null;
+
+                return;
+
+            }
+
+            final ISPO spo = src.next();
+
+            keyBuilder.reset();
+
+            IVUtility.encode(keyBuilder, spo.get(pos));
+
+            current = new Entry(keyBuilder.getKey(), spo);
+
+        }
+
+    }
+
+    /**
+     * Evaluate the join for each source solution.
+     */
+    static private class ChunkTask implements Callable<Void> {
+
+        private final AccessPathMergeJoin op;
+
+        private final BOpContext<IBindingSet> context;
+
+        private final IPredicate<ISPO> left;
+
+        private final IPredicate<ISPO> right;
+
+        private final IVariable<?> joinVar;
+
+        /**
+         * The position of the join variable in each triple pattern.
+         */
+        private final int posLeft, posRight;
+
+        private final IConstraint[] constraints;
+
+        private final SPORelation relation;
+
+        private final BOpStats stats;
+
+        private UnsyncLocalOutputBuffer<IBindingSet> unsyncBuffer;
+
+        private long nvisited = 0;
+
+        ChunkTask(final AccessPathMergeJoin op,
+                final BOpContext<IBindingSet> context) {
+
+            this.op = op;
+
+            this.context = context;
+
+            final IPredicate<ISPO>[] preds = op.getPredicates();
+
+            this.left = preds[0];
+
+            this.right = preds[1];
+
+            this.joinVar = op.getJoinVar();
+
+            this.posLeft = indexOf(left, joinVar);
+
+            this.posRight = indexOf(right, joinVar);
+
+            if (posLeft == -1 || posRight == -1)
+                throw new IllegalArgumentException(Annotations.JOIN_VAR);
+
+            this.constraints = op.constraints();
+
+            this.relation = (SPORelation) context.getRelation(left);
+
+            this.stats = context.getStats();
+
+            if (relation.getKeyArity() != 3) {
+
+                // Note: Quads are not supported.
+                throw new UnsupportedOperationException();
+
+            }
+
+        }
+
+        @Override
+        public Void call() throws Exception {
+
+            final ICloseableIterator<IBindingSet[]> source = context
+                    .getSource();
+
+            final IBlockingBuffer<IBindingSet[]> sink = context.getSink();
+
+            try {
+
+                unsyncBuffer = new UnsyncLocalOutputBuffer<IBindingSet>(
+                        op.getChunkCapacity(), sink);
+
+                while (source.hasNext()) {
+
+                    final IBindingSet[] chunk = source.next();
+
+                    stats.chunksIn.increment();
+
+                    stats.unitsIn.add(chunk.length);
+
+                    for (IBindingSet bset : chunk) {
+
+                        join(bset);
+
+                    }
+
+                }
+
+                unsyncBuffer.flush();
+
+                sink.flush();
+
+                return null;
+
+            } finally {
+
+                sink.close();
+
+                source.close();
+
+            }
+
+        }
+
+        /**
+         * Merge the access paths of the two triple patterns for a source
+         * solution.
+         */
+        private void join(final IBindingSet bset) throws Exception {
+
+            final IPredicate<ISPO> a = left.asBound(bset);
+
+            final IPredicate<ISPO> b = right.asBound(bset);
+
+            if (a == null || b == null) {
+
+                // The source solution can not be unified with the patterns.
+                return;
+
+            }
+
+            final EntryIterator itra = newIterator(a, posLeft);
+
+            final EntryIterator itrb;
+
+            try {
+
+                itrb = newIterator(b, posRight);
+
+            } catch (RuntimeException ex) {
+
+                itra.close();
+
+                throw ex;
+
+            }
+
+            try {
+
+                merge(bset, a, itra, b, itrb);
+
+            } finally {
+
+                itra.close();
+
+                itrb.close();
+
+            }
+
+        }
+
+        private void merge(final IBindingSet bset, final IPredicate<ISPO> a,
+                final EntryIterator itra, final IPredicate<ISPO> b,
+                final EntryIterator itrb) throws InterruptedException {
+
+            final List<Entry> group = new ArrayList<Entry>();
+
+            while (itra.current() != null && itrb.current() != null) {
+
+                if ((++nvisited & 0xffff) == 0 && Thread.interrupted())
+                    throw new InterruptedException();
+
+                final int ret = BytesUtil.compareBytes(itra.current().key,
+                        itrb.current().key);
+
+                if (ret < 0) {
+
+                    itra.advance();
+
+                } else if (ret > 0) {
+
+                    itrb.advance();
+
+                } else {
+
+                    // Collect the statements on the right having that value.
+                    final byte[] key = itrb.current().key;
+
+                    group.clear();
+
+                    do {
+
+                        group.add(itrb.current());
+
+                        itrb.advance();
+
+                    } while (itrb.current() != null
+                            && BytesUtil.bytesEqual(key, itrb.current().key));
+
+                    // Join them with the statements on the left.
+                    do {
+
+                        for (Entry e : group) {
+
+                            emit(bset, a, itra.current().spo, b, e.spo);
+
+                        }
+
+                        itra.advance();
+
+                    } while (itra.current() != null
+                            && BytesUtil.bytesEqual(key, itra.current().key));
+
+                }
+
+            }
+
+        }
+
+        /**
+         * Return an iterator visiting the statements for the as-bound triple
+         * pattern in the order of the join variable.
+         * 
+         * @param pred
+         *            The as-bound triple pattern.
+         * @param pos
+         *            The position of the join variable.
+         */
+        @SuppressWarnings("unchecked")
+        private EntryIterator newIterator(final IPredicate<ISPO> pred,
+                final int pos) {
+
+            /*
+             * Note: Iterator level parallelism could visit the statements out
+             * of order.
+             */
+            final int flags = pred.getProperty(IPredicate.Annotations.FLAGS,
+                    IPredicate.Annotations.DEFAULT_FLAGS);
+
+            final IPredicate<ISPO> tmp = (IPredicate<ISPO>) pred.setProperty(
+                    IPredicate.Annotations.FLAGS, flags & ~IRangeQuery.PARALLEL);
+
+            final IAccessPath<ISPO> ap = context.getAccessPath(relation, tmp);
+
+            final IChunkedOrderedIterator<ISPO> itr = ap.iterator();
+
+            if (!pred.get(pos).isVar()
+                    || isOrderedBy(pred, joinVar,
+                            (SPOKeyOrder) ap.getKeyOrder())) {
+
+                return new EntryIterator(itr, pos);
+
+            }
+
+            /*
+             * The access path is not ordered by the join variable. Sort the
+             * statements.
+             */
+            final List<Entry> entries = new ArrayList<Entry>();
+
+            try {
+
+                final EntryIterator t = new EntryIterator(itr, pos);
+
+                while (t.current() != null) {
+
+                    entries.add(t.current());
+
+                    t.advance();
+
+                }
+
+            } finally {
+
+                itr.close();
+
+            }
+
+            Collections.sort(entries, ENTRY_COMPARATOR);
+
+            return new EntryIterator(entries);
+
+        }
+
+        /**
+         * Combine the source solution with a statement from each access path.
+         */
+        private void emit(final IBindingSet bset, final IPredicate<ISPO> a,
+                final ISPO x, final IPredicate<ISPO> b, final ISPO y) {
+
+            final IBindingSet out = bset.clone();
+
+            if (!bind(a, x, out) || !bind(b, y, out))
+                return;
+
+            if (constraints != null
+                    && !BOpUtility.isConsistent(constraints, out))
+                return;
+
+            unsyncBuffer.add(out);
+
+        }
+
+    }
+
+    /**
+     * Bind the variables of the triple pattern to the values of the statement.
+     * 
+     * @return <code>false</code> if a variable is already bound to a different
+     *         value.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static boolean bind(final IPredicate<ISPO> pred, final ISPO spo,
+            final IBindingSet bset) {
+
+        for (int i = 0; i < 3; i++) {
+
+            final IVariableOrConstant<?> t = pred.get(i);
+
+            if (!t.isVar())
+                continue;
+
+            final IVariable<?> var = (IVariable<?>) t;
+
+            final IV iv = spo.get(i);
+
+            final IConstant<?> c = bset.get(var);
+
+            if (c != null) {
+
+                if (!iv.equals(c.get()))
+                    return false;
+
+                continue;
+
+            }
+
+            bset.set(var, new Constant<IV>(iv));
+
+        }
+
+        return true;
+
+    }
+
+}
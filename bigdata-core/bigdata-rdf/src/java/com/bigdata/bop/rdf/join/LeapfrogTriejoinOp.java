@@ -0,0 +1,1394 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+
+package com.bigdata.bop.rdf.join;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+import com.bigdata.bop.BOp;
+import com.bigdata.bop.BOpContext;
+import com.bigdata.bop.Constant;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IConstraint;
+import com.bigdata.bop.IPredicate;
+import com.bigdata.bop.IVariable;
+import com.bigdata.bop.IVariableOrConstant;
+import com.bigdata.bop.NV;
+import com.bigdata.bop.PipelineOp;
+import com.bigdata.bop.bindingSet.ListBindingSet;
+import com.bigdata.bop.engine.BOpStats;
+import com.bigdata.bop.join.JoinAnnotations;
+import com.bigdata.btree.IIndex;
+import com.bigdata.btree.IRangeQuery;
+import com.bigdata.btree.ITuple;
+import com.bigdata.btree.ITupleCursor;
+import com.bigdata.btree.ITupleIterator;
+import com.bigdata.btree.keys.IKeyBuilder;
+import com.bigdata.btree.keys.KeyBuilder;
+import com.bigdata.btree.keys.NoSuccessorException;
+import com.bigdata.btree.keys.SuccessorUtil;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.IVUtility;
+import com.bigdata.rdf.internal.impl.TermId;
+import com.bigdata.rdf.spo.ISPO;
+import com.bigdata.rdf.spo.SPOKeyOrder;
+import com.bigdata.rdf.spo.SPORelation;
+import com.bigdata.relation.accesspath.IBlockingBuffer;
+import com.bigdata.relation.accesspath.UnsyncLocalOutputBuffer;
+import com.bigdata.util.BytesUtil;
+
+import cutthecrap.utils.striterators.ICloseableIterator;
+
+/**
+ * A worst-case optimal multi-way join of a set of triple patterns using the
+ * leapfrog triejoin algorithm (Veldhuizen, "Leapfrog Triejoin: A Simple,
+ * Worst-Case Optimal Join Algorithm", ICDT 2014).
+ * <p>
+ * Rather than joining the triple patterns one at a time, the variables are
+ * bound one at a time. A global order is chosen for the variables and each
+ * triple pattern is viewed as a trie whose levels are its constants followed
+ * by its variables in that order. The values of a variable are found by a
+ * leapfrog intersection of the tries of the triple patterns which use that
+ * variable, seeking each trie forward to the largest value seen so far. This
+ * bounds the work by the size of the output rather than by the size of the
+ * intermediate results of a join chain, which matters for cyclic patterns
+ * such as triangles and cliques.
+ * <p>
+ * A triple pattern is read directly from a statement index using an
+ * {@link ITupleCursor} when one of the statement indices has the constants of
+ * the triple pattern as a key prefix followed by its variables in the chosen
+ * order. For the triples mode statement indices ({@link SPOKeyOrder#SPO},
+ * {@link SPOKeyOrder#POS} and {@link SPOKeyOrder#OSP}) that is not possible
+ * for every variable order. The variable order is chosen to minimize the #of
+ * triple patterns which can not be read this way. Those triple patterns are
+ * read once into a sorted in-memory trie.
+ * <p>
+ * Values are compared using the unsigned byte order of their encoded
+ * {@link IV}s, which is the order of the values in the statement indices.
+ * <p>
+ * The operator is evaluated once for each source solution. Variables bound by
+ * the source solution are treated as constants. The operator only supports
+ * triples mode. Triple patterns must not have filters, expanders or range
+ * constraints on their access paths and must not use the same variable more
+ * than once.
+ */
+public class LeapfrogTriejoinOp extends PipelineOp {
+
+    /**
+     * 
+     */
+    private static final long serialVersionUID = 1L;
+
+    public interface Annotations extends PipelineOp.Annotations {
+
+        /**
+         * The triple patterns to be joined (required). This is an
+         * {@link IPredicate}[].
+         */
+        String PREDICATES = LeapfrogTriejoinOp.class.getName()
+                + ".predicates";
+
+        /**
+         * Constraints to be applied to the solutions (optional).
+         */
+        String CONSTRAINTS = JoinAnnotations.CONSTRAINTS;
+
+    }
+
+    /**
+     * All variable orders are considered when there are no more than this
+     * many variables. Otherwise the variables are ordered by their first
+     * appearance in the triple patterns.
+     */
+    static final int MAX_PERMUTATION_VARS = 8;
+
+    /**
+     * Deep copy constructor.
+     * 
+     * @param op
+     */
+    public LeapfrogTriejoinOp(final LeapfrogTriejoinOp op) {
+
+        super(op);
+
+    }
+
+    /**
+     * Shallow copy constructor.
+     * 
+     * @param args
+     * @param annotations
+     */
+    public LeapfrogTriejoinOp(final BOp[] args,
+            final Map<String, Object> annotations) {
+
+        super(args, annotations);
+
+        final IPredicate<ISPO>[] preds = getPredicates();
+
+        if (preds.length == 0)
+            throw new IllegalArgumentException(Annotations.PREDICATES);
+
+        for (IPredicate<ISPO> pred : preds) {
+
+            if (pred.isOptional())
+                throw new UnsupportedOperationException("optional: " + pred);
+
+            final Set<IVariable<?>> vars = new LinkedHashSet<IVariable<?>>();
+
+            for (int i = 0; i < 3; i++) {
+
+                final IVariableOrConstant<?> t = pred.get(i);
+
+                if (t != null && t.isVar() && !vars.add((IVariable<?>) t))
+                    throw new UnsupportedOperationException(
+                            "Variable used more than once: " + pred);
+
+            }
+
+        }
+
+    }
+
+    public LeapfrogTriejoinOp(final BOp[] args, final NV... annotations) {
+
+        this(args, NV.asMap(annotations));
+
+    }
+
+    /**
+     * @see Annotations#PREDICATES
+     */
+    @SuppressWarnings("unchecked")
+    public IPredicate<ISPO>[] getPredicates() {
+
+        return (IPredicate<ISPO>[]) getRequiredProperty(Annotations.PREDICATES);
+
+    }
+
+    /**
+     * @see Annotations#CONSTRAINTS
+     */
+    public IConstraint[] constraints() {
+
+        return getProperty(Annotations.CONSTRAINTS, null/* defaultValue */);
+
+    }
+
+    @Override
+    public FutureTask<Void> eval(final BOpContext<IBindingSet> context) {
+
+        return new FutureTask<Void>(new ChunkTask(this, context));
+
+    }
+
+    /**
+     * The statement indices for triples. Each triple pattern has a key prefix
+     * in one of these indices for any combination of constants.
+     */
+    private static final SPOKeyOrder[] KEY_ORDERS = new SPOKeyOrder[] {
+            SPOKeyOrder.SPO, SPOKeyOrder.POS, SPOKeyOrder.OSP };
+
+    /**
+     * How a triple pattern is read for a given variable order.
+     */
+    private static class PatternPlan {
+
+        /**
+         * The positions (0:s, 1:p, 2:o) of the variables of the triple
+         * pattern in the variable order.
+         */
+        final int[] varPositions;
+
+        /**
+         * The index of each of those variables in the variable order.
+         */
+        final int[] varIndices;
+
+        /**
+         * The statement index which is read.
+         */
+        final SPOKeyOrder keyOrder;
+
+        /**
+         * <code>true</code> iff the statement index is read directly.
+         * Otherwise the key range for the constants is read into an
+         * in-memory trie.
+         */
+        final boolean direct;
+
+        PatternPlan(final int[] varPositions, final int[] varIndices,
+                final SPOKeyOrder keyOrder, final boolean direct) {
+            this.varPositions = varPositions;
+            this.varIndices = varIndices;
+            this.keyOrder = keyOrder;
+            this.direct = direct;
+        }
+
+    }
+
+    /**
+     * The variable order and how each triple pattern is read.
+     */
+    private static class Plan {
+
+        final IVariable<?>[] order;
+
+        final PatternPlan[] patterns;
+
+        Plan(final IVariable<?>[] order, final PatternPlan[] patterns) {
+            this.order = order;
+            this.patterns = patterns;
+        }
+
+    }
+
+    /**
+     * Return the statement index which has the constants of a triple pattern
+     * as a key prefix followed by its variables in the given order -or-
+     * <code>null</code> if there is no such index.
+     * 
+     * @param isVar
+     *            <code>true</code> for each position which is a variable.
+     * @param rank
+     *            The rank of the variable at each position in the variable
+     *            order.
+     */
+    static SPOKeyOrder getDirectKeyOrder(final boolean[] isVar,
+            final int[] rank) {
+
+        int nconst = 0;
+        for (int i = 0; i < 3; i++)
+            if (!isVar[i])
+                nconst++;
+
+        for (SPOKeyOrder keyOrder : KEY_ORDERS) {
+
+            boolean ok = true;
+
+            int last = -1;
+
+            for (int j = 0; j < 3 && ok; j++) {
+
+                final int pos = keyOrder.getKeyOrder(j);
+
+                if (j < nconst) {
+
+                    // constants first.
+                    ok = !isVar[pos];
+
+                } else {
+
+                    // then the variables in order.
+                    ok = isVar[pos] && rank[pos] > last;
+
+                    last = rank[pos];
+
+                }
+
+            }
+
+            if (ok)
+                return keyOrder;
+
+        }
+
+        return null;
+
+    }
+
+    /**
+     * Return a statement index which has the constants of a triple pattern as
+     * a key prefix.
+     */
+    static SPOKeyOrder getPrefixKeyOrder(final boolean[] isVar) {
+
+        for (SPOKeyOrder keyOrder : KEY_ORDERS) {
+
+            boolean ok = true;
+
+            boolean seenVar = false;
+
+            for (int j = 0; j < 3 && ok; j++) {
+
+                final int pos = keyOrder.getKeyOrder(j);
+
+                if (isVar[pos])
+                    seenVar = true;
+                else
+                    ok = !seenVar;
+
+            }
+
+            if (ok)
+                return keyOrder;
+
+        }
+
+        // Note: Not reachable for triples.
+        throw new AssertionError();
+
+    }
+
+    /**
+     * Choose the variable order for the as-bound triple patterns. The order
+     * minimizes the #of triple patterns which can not be read directly from a
+     * statement index. Ties are broken in favor of the order in which the
+     * variables first appear, which reflects the join order chosen by the
+     * query optimizer.
+     * 
+     * @param preds
+     *            The as-bound triple patterns having at least one variable.
+     */
+    static Plan getPlan(final List<IPredicate<ISPO>> preds) {
+
+        final List<IVariable<?>> vars = new ArrayList<IVariable<?>>();
+
+        for (IPredicate<ISPO> pred : preds) {
+
+            for (int i = 0; i < 3; i++) {
+
+                final IVariableOrConstant<?> t = pred.get(i);
+
+                if (t.isVar() && !vars.contains(t))
+                    vars.add((IVariable<?>) t);
+
+            }
+
+        }
+
+        final int n = vars.size();
+
+        final int[] perm = new int[n];
+
+        for (int i = 0; i < n; i++)
+            perm[i] = i;
+
+        int[] best = perm.clone();
+
+        int bestCost = cost(preds, vars, perm);
+
+        if (n <= MAX_PERMUTATION_VARS) {
+
+            while (bestCost > 0 && nextPermutation(perm)) {
+
+                final int cost = cost(preds, vars, perm);
+
+                if (cost < bestCost) {
+
+                    bestCost = cost;
+
+                    best = perm.clone();
+
+                }
+
+            }
+
+        }
+
+        // best[i] is the variable at index i in the order.
+        final IVariable<?>[] order = new IVariable<?>[n];
+
+        for (int i = 0; i < n; i++)
+            order[i] = vars.get(best[i]);
+
+        final PatternPlan[] patterns = new PatternPlan[preds.size()];
+
+        for (int k = 0; k < patterns.length; k++) {
+
+            patterns[k] = getPatternPlan(preds.get(k), Arrays.asList(order));
+
+        }
+
+        return new Plan(order, patterns);
+
+    }
+
+    /**
+     * The #of triple patterns which can not be read directly for the variable
+     * order in which <code>vars.get(perm[i])</code> is at index <i>i</i>.
+     */
+    private static int cost(final List<IPredicate<ISPO>> preds,
+            final List<IVariable<?>> vars, final int[] perm) {
+
+        // the index in the order of each variable in [vars].
+        final int[] rankOf = new int[perm.length];
+
+        for (int i = 0; i < perm.length; i++)
+            rankOf[perm[i]] = i;
+
+        int cost = 0;
+
+        final boolean[] isVar = new boolean[3];
+
+        final int[] rank = new int[3];
+
+        for (IPredicate<ISPO> pred : preds) {
+
+            for (int i = 0; i < 3; i++) {
+
+                final IVariableOrConstant<?> t = pred.get(i);
+
+                isVar[i] = t.isVar();
+
+                rank[i] = isVar[i] ? rankOf[vars.indexOf(t)] : -1;
+
+            }
+
+            if (getDirectKeyOrder(isVar, rank) == null)
+                cost++;
+
+        }
+
+        return cost;
+
+    }
+
+    private static PatternPlan getPatternPlan(final IPredicate<ISPO> pred,
+            final List<IVariable<?>> order) {
+
+        final boolean[] isVar = new boolean[3];
+
+        final int[] rank = new int[3];
+
+        int nvars = 0;
+
+        for (int i = 0; i < 3; i++) {
+
+            final IVariableOrConstant<?> t = pred.get(i);
+
+            isVar[i] = t.isVar();
+
+            rank[i] = isVar[i] ? order.indexOf(t) : -1;
+
+            if (isVar[i])
+                nvars++;
+
+        }
+
+        // The variable positions sorted by their rank.
+        final Integer[] positions = new Integer[nvars];
+
+        for (int i = 0, j = 0; i < 3; i++)
+            if (isVar[i])
+                positions[j++] = i;
+
+        Arrays.sort(positions, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer a, final Integer b) {
+                return rank[a] - rank[b];
+            }
+        });
+
+        final int[] varPositions = new int[nvars];
+
+        final int[] varIndices = new int[nvars];
+
+        for (int j = 0; j < nvars; j++) {
+
+            varPositions[j] = positions[j];
+
+            varIndices[j] = rank[positions[j]];
+
+        }
+
+        final SPOKeyOrder direct = getDirectKeyOrder(isVar, rank);
+
+        return new PatternPlan(varPositions, varIndices,
+                direct != null ? direct : getPrefixKeyOrder(isVar),
+                direct != null);
+
+    }
+
+    /**
+     * Advance to the next permutation in lexicographic order.
+     * 
+     * @return <code>false</code> if there is no next permutation.
+     */
+    private static boolean nextPermutation(final int[] a) {
+
+        int i = a.length - 2;
+
+        while (i >= 0 && a[i] >= a[i + 1])
+            i--;
+
+        if (i < 0)
+            return false;
+
+        int j = a.length - 1;
+
+        while (a[j] <= a[i])
+            j--;
+
+        swap(a, i, j);
+
+        for (int l = i + 1, r = a.length - 1; l < r; l++, r--)
+            swap(a, l, r);
+
+        return true;
+
+    }
+
+    private static void swap(final int[] a, final int i, final int j) {
+        final int t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+
+    /**
+     * Return the successor of a key prefix (the first key which does not have
+     * that prefix) -or- <code>null</code> if there is no such key.
+     */
+    private static byte[] successor(final byte[] prefix) {
+
+        if (prefix.length == 0)
+            return null;
+
+        try {
+
+            return SuccessorUtil.successor(prefix.clone());
+
+        } catch (NoSuccessorException ex) {
+
+            return null;
+
+        }
+
+    }
+
+    /**
+     * The length of the encoded {@link IV} at the given offset in a key.
+     */
+    @SuppressWarnings("rawtypes")
+    private static int ivLength(final byte[] key, final int off) {
+
+        final IV iv = IVUtility.decodeFromOffset(key, off);
+
+        return iv == null ? TermId.NullIV.byteLength() : iv.byteLength();
+
+    }
+
+    /**
+     * A trie over the variables of a triple pattern. The iterator is
+     * positioned on a value at some level of the trie. Only the operations
+     * required by the leapfrog triejoin are supported.
+     */
+    static abstract class TrieIterator {
+
+        /**
+         * The #of levels (the #of variables of the triple pattern).
+         */
+        protected final int depth;
+
+        /**
+         * The current level (-1 before the first {@link #open()}).
+         */
+        protected int level = -1;
+
+        /**
+         * <code>true</code> iff there are no more values at the current
+         * level.
+         */
+        protected boolean atEnd;
+
+        TrieIterator(final int depth) {
+            this.depth = depth;
+        }
+
+        /**
+         * Position on the first value at the next level below the current
+         * value.
+         */
+        abstract void open();
+
+        /**
+         * Return to the value at the previous level.
+         */
+        final void up() {
+            level--;
+            atEnd = false;
+        }
+
+        /**
+         * The encoded current value.
+         */
+        abstract byte[] key();
+
+        /**
+         * Advance to the next value at the current level.
+         */
+        abstract void next();
+
+        /**
+         * Advance to the first value at the current level which is GTE the
+         * given value. This is a NOP if the current value is GTE the given
+         * value.
+         */
+        abstract void seek(byte[] key);
+
+        final boolean atEnd() {
+            return atEnd;
+        }
+
+    }
+
+    /**
+     * A trie which reads a statement index whose key has the constants of the
+     * triple pattern followed by its variables in the variable order. An
+     * {@link ITupleCursor} is used when the index supports one. Otherwise each
+     * seek reads the first tuple of a key range.
+     */
+    static class IndexTrieIterator extends TrieIterator {
+
+        private final IIndex ndx;
+
+        /**
+         * The encoded constants.
+         */
+        private final byte[] prefix;
+
+        /**
+         * The cursor -or- <code>null</code> if the index does not support a
+         * cursor.
+         */
+        private final ITupleCursor<?> cursor;
+
+        /**
+         * The current value at each level.
+         */
+        private final byte[][] keys;
+
+        /**
+         * The key prefix through the current value at each level.
+         */
+        private final byte[][] paths;
+
+        /**
+         * The #of index probes.
+         */
+        long nprobes = 0;
+
+        IndexTrieIterator(final IIndex ndx, final byte[] prefix,
+                final int depth) {
+
+            super(depth);
+
+            this.ndx = ndx;
+
+            this.prefix = prefix;
+
+            this.keys = new byte[depth][];
+
+            this.paths = new byte[depth][];
+
+            final ITupleIterator<?> itr = ndx.rangeIterator(
+                    prefix.length == 0 ? null : prefix, successor(prefix),
+                    0/* capacity */, IRangeQuery.KEYS | IRangeQuery.CURSOR,
+                    null/* filter */);
+
+            this.cursor = itr instanceof ITupleCursor ? (ITupleCursor<?>) itr
+                    : null;
+
+        }
+
+        /**
+         * The key prefix of the current level.
+         */
+        private byte[] parent() {
+            return level == 0 ? prefix : paths[level - 1];
+        }
+
+        /**
+         * Return the first key in the half-open key range -or-
+         * <code>null</code> if the key range is empty.
+         */
+        private byte[] probe(final byte[] fromKey, final byte[] toKey) {
+
+            nprobes++;
+
+            if (cursor != null) {
+
+                ITuple<?> t = cursor.seek(fromKey);
+
+                if (t == null) {
+
+                    if (!cursor.hasNext())
+                        return null;
+
+                    t = cursor.next();
+
+                }
+
+                final byte[] key = t.getKey();
+
+                if (toKey != null && BytesUtil.compareBytes(key, toKey) >= 0)
+                    return null;
+
+                return key;
+
+            }
+
+            final ITupleIterator<?> itr = ndx.rangeIterator(fromKey, toKey,
+                    1/* capacity */, IRangeQuery.KEYS, null/* filter */);
+
+            return itr.hasNext() ? itr.next().getKey() : null;
+
+        }
+
+        /**
+         * Position on the value of the given key at the current level.
+         */
+        private void set(final byte[] key) {
+
+            if (key == null) {
+
+                atEnd = true;
+
+                return;
+
+            }
+
+            final int off = parent().length;
+
+            final int len = ivLength(key, off);
+
+            keys[level] = Arrays.copyOfRange(key, off, off + len);
+
+            paths[level] = Arrays.copyOf(key, off + len);
+
+            atEnd = false;
+
+        }
+
+        @Override
+        void open() {
+
+            level++;
+
+            final byte[] parent = parent();
+
+            set(probe(parent, successor(parent)));
+
+        }
+
+        @Override
+        byte[] key() {
+            return keys[level];
+        }
+
+        @Override
+        void next() {
+
+            final byte[] fromKey = successor(paths[level]);
+
+            if (fromKey == null) {
+
+                atEnd = true;
+
+                return;
+
+            }
+
+            set(probe(fromKey, successor(parent())));
+
+        }
+
+        @Override
+        void seek(final byte[] key) {
+
+            if (BytesUtil.compareBytes(keys[level], key) >= 0)
+                return;
+
+            final byte[] parent = parent();
+
+            final byte[] fromKey = new byte[parent.length + key.length];
+
+            System.arraycopy(parent, 0, fromKey, 0, parent.length);
+
+            System.arraycopy(key, 0, fromKey, parent.length, key.length);
+
+            set(probe(fromKey, successor(parent)));
+
+        }
+
+    }
+
+    /**
+     * A trie over sorted rows held in memory. Each row has the encoded value
+     * of each variable of the triple pattern in the variable order.
+     */
+    static class SortedTrieIterator extends TrieIterator {
+
+        private final byte[][][] rows;
+
+        /**
+         * The current row at each level. This is always the first row having
+         * the current value at that level.
+         */
+        private final int[] pos;
+
+        /**
+         * The exclusive upper bound on the rows at each level.
+         */
+        private final int[] hi;
+
+        SortedTrieIterator(final byte[][][] rows, final int depth) {
+
+            super(depth);
+
+            this.rows = rows;
+
+            this.pos = new int[depth];
+
+            this.hi = new int[depth];
+
+        }
+
+        @Override
+        void open() {
+
+            level++;
+
+            if (level == 0) {
+
+                pos[0] = 0;
+
+                hi[0] = rows.length;
+
+            } else {
+
+                pos[level] = pos[level - 1];
+
+                hi[level] = upperBound(pos[level - 1], hi[level - 1],
+                        level - 1, rows[pos[level - 1]][level - 1]);
+
+            }
+
+            atEnd = pos[level] >= hi[level];
+
+        }
+
+        @Override
+        byte[] key() {
+            return rows[pos[level]][level];
+        }
+
+        @Override
+        void next() {
+
+            pos[level] = upperBound(pos[level], hi[level], level, key());
+
+            atEnd = pos[level] >= hi[level];
+
+        }
+
+        @Override
+        void seek(final byte[] key) {
+
+            if (BytesUtil.compareBytes(key(), key) >= 0)
+                return;
+
+            pos[level] = lowerBound(pos[level], hi[level], level, key);
+
+            atEnd = pos[level] >= hi[level];
+
+        }
+
+        /**
+         * The first row in [lo:hi) whose value at the level is GTE the key.
+         */
+        private int lowerBound(int lo, int hi, final int level,
+                final byte[] key) {
+
+            while (lo < hi) {
+
+                final int mid = (lo + hi) >>> 1;
+
+                if (BytesUtil.compareBytes(rows[mid][level], key) < 0)
+                    lo = mid + 1;
+                else
+                    hi = mid;
+
+            }
+
+            return lo;
+
+        }
+
+        /**
+         * The first row in [lo:hi) whose value at the level is GT the key.
+         */
+        private int upperBound(int lo, int hi, final int level,
+                final byte[] key) {
+
+            while (lo < hi) {
+
+                final int mid = (lo + hi) >>> 1;
+
+                if (BytesUtil.compareBytes(rows[mid][level], key) <= 0)
+                    lo = mid + 1;
+                else
+                    hi = mid;
+
+            }
+
+            return lo;
+
+        }
+
+    }
+
+    /**
+     * Orders rows by their values at each level.
+     */
+    private static final Comparator<byte[][]> ROW_COMPARATOR = new Comparator<byte[][]>() {
+        @Override
+        public int compare(final byte[][] a, final byte[][] b) {
+            for (int i = 0; i < a.length; i++) {
+                final int ret = BytesUtil.compareBytes(a[i], b[i]);
+                if (ret != 0)
+                    return ret;
+            }
+            return 0;
+        }
+    };
+
+    /**
+     * Evaluate the join for each source solution.
+     */
+    static private class ChunkTask implements Callable<Void> {
+
+        private final LeapfrogTriejoinOp op;
+
+        private final BOpContext<IBindingSet> context;
+
+        private final IPredicate<ISPO>[] predicates;
+
+        private final IConstraint[] constraints;
+
+        private final SPORelation relation;
+
+        private final BOpStats stats;
+
+        /**
+         * The plans for the as-bound triple patterns, keyed by the positions
+         * which are variables.
+         */
+        private final Map<BitSet, Plan> plans = new HashMap<BitSet, Plan>();
+
+        private final IKeyBuilder keyBuilder = KeyBuilder.newInstance();
+
+        private UnsyncLocalOutputBuffer<IBindingSet> unsyncBuffer;
+
+        /*
+         * State for the current source solution.
+         */
+
+        private IBindingSet left;
+
+        private IVariable<?>[] order;
+
+        /**
+         * The tries having a level for the variable at each index in the
+         * variable order.
+         */
+        private TrieIterator[][] itrs;
+
+        /**
+         * The values of the variables.
+         */
+        @SuppressWarnings("rawtypes")
+        private IV[] values;
+
+        private long nvisited = 0;
+
+        ChunkTask(final LeapfrogTriejoinOp op,
+                final BOpContext<IBindingSet> context) {
+
+            this.op = op;
+
+            this.context = context;
+
+            this.predicates = op.getPredicates();
+
+            this.constraints = op.constraints();
+
+            this.relation = (SPORelation) context.getRelation(predicates[0]);
+
+            this.stats = context.getStats();
+
+            if (relation.getKeyArity() != 3) {
+
+                // Note: Quads are not supported.
+                throw new UnsupportedOperationException();
+
+            }
+
+        }
+
+        @Override
+        public Void call() throws Exception {
+
+            final ICloseableIterator<IBindingSet[]> source = context
+                    .getSource();
+
+            final IBlockingBuffer<IBindingSet[]> sink = context.getSink();
+
+            try {
+
+                unsyncBuffer = new UnsyncLocalOutputBuffer<IBindingSet>(
+                        op.getChunkCapacity(), sink);
+
+                while (source.hasNext()) {
+
+                    final IBindingSet[] chunk = source.next();
+
+                    stats.chunksIn.increment();
+
+                    stats.unitsIn.add(chunk.length);
+
+                    for (IBindingSet bset : chunk) {
+
+                        join(bset);
+
+                    }
+
+                }
+
+                unsyncBuffer.flush();
+
+                sink.flush();
+
+                return null;
+
+            } finally {
+
+                sink.close();
+
+                source.close();
+
+            }
+
+        }
+
+        /**
+         * Join the triple patterns for a source solution.
+         */
+        @SuppressWarnings("rawtypes")
+        private void join(final IBindingSet bset) throws Exception {
+
+            final List<IPredicate<ISPO>> preds = new ArrayList<IPredicate<ISPO>>(
+                    predicates.length);
+
+            final BitSet signature = new BitSet();
+
+            for (IPredicate<ISPO> pred : predicates) {
+
+                final IPredicate<ISPO> asBound = pred.asBound(bset);
+
+                if (asBound == null) {
+
+                    // The source solution can not be unified with the pattern.
+                    return;
+
+                }
+
+                boolean ground = true;
+
+                for (int i = 0; i < 3; i++) {
+
+                    if (asBound.get(i).isVar()) {
+
+                        signature.set(preds.size() * 3 + i);
+
+                        ground = false;
+
+                    }
+
+                }
+
+                if (ground) {
+
+                    // The statement must exist.
+                    final byte[] key = SPOKeyOrder.SPO.encodeKey(keyBuilder,
+                            asSPO(asBound));
+
+                    if (!relation.getIndex(SPOKeyOrder.SPO).contains(key))
+                        return;
+
+                    continue;
+
+                }
+
+                preds.add(asBound);
+
+            }
+
+            if (preds.isEmpty()) {
+
+                emit(bset, new ListBindingSet());
+
+                return;
+
+            }
+
+            Plan plan = plans.get(signature);
+
+            if (plan == null) {
+
+                plans.put(signature, plan = getPlan(preds));
+
+            }
+
+            this.left = bset;
+
+            this.order = plan.order;
+
+            this.values = new IV[order.length];
+
+            // The tries for each level.
+            final List<List<TrieIterator>> tmp = new ArrayList<List<TrieIterator>>();
+
+            for (int i = 0; i < order.length; i++)
+                tmp.add(new ArrayList<TrieIterator>());
+
+            for (int k = 0; k < preds.size(); k++) {
+
+                final TrieIterator itr = newTrieIterator(preds.get(k),
+                        plan.patterns[k]);
+
+                for (int i : plan.patterns[k].varIndices)
+                    tmp.get(i).add(itr);
+
+            }
+
+            itrs = new TrieIterator[order.length][];
+
+            for (int i = 0; i < order.length; i++)
+                itrs[i] = tmp.get(i).toArray(new TrieIterator[0]);
+
+            leapfrog(0);
+
+        }
+
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        private static ISPO asSPO(final IPredicate<ISPO> pred) {
+
+            return new com.bigdata.rdf.spo.SPO((IV) pred.get(0).get(),
+                    (IV) pred.get(1).get(), (IV) pred.get(2).get());
+
+        }
+
+        /**
+         * Return the trie for an as-bound triple pattern.
+         */
+        private TrieIterator newTrieIterator(final IPredicate<ISPO> pred,
+                final PatternPlan plan) {
+
+            final SPOKeyOrder keyOrder = plan.keyOrder;
+
+            final IIndex ndx = relation.getIndex(keyOrder);
+
+            // encode the constants in the key order.
+            keyBuilder.reset();
+
+            for (int j = 0; j < 3; j++) {
+
+                final IVariableOrConstant<?> t = pred.get(keyOrder
+                        .getKeyOrder(j));
+
+                if (t.isVar())
+                    break;
+
+                IVUtility.encode(keyBuilder, (IV<?, ?>) t.get());
+
+            }
+
+            final byte[] prefix = keyBuilder.getKey();
+
+            final int depth = plan.varPositions.length;
+
+            if (plan.direct) {
+
+                return new IndexTrieIterator(ndx, prefix, depth);
+
+            }
+
+            /*
+             * Read the key range into a sorted in-memory trie.
+             */
+
+            // The position in the key of each variable in the order.
+            final int[] keyPos = new int[depth];
+
+            for (int j = 0; j < depth; j++)
+                keyPos[j] = keyOrder.getPositionInIndex(plan.varPositions[j]);
+
+            final List<byte[][]> rows = new ArrayList<byte[][]>();
+
+            final ITupleIterator<?> itr = ndx.rangeIterator(
+                    prefix.length == 0 ? null : prefix, successor(prefix),
+                    0/* capacity */, IRangeQuery.KEYS, null/* filter */);
+
+            final int[] off = new int[4];
+
+            while (itr.hasNext()) {
+
+                final byte[] key = itr.next().getKey();
+
+                for (int j = 0; j < 3; j++)
+                    off[j + 1] = off[j] + ivLength(key, off[j]);
+
+                final byte[][] row = new byte[depth][];
+
+                for (int j = 0; j < depth; j++)
+                    row[j] = Arrays.copyOfRange(key, off[keyPos[j]],
+                            off[keyPos[j] + 1]);
+
+                rows.add(row);
+
+            }
+
+            final byte[][][] a = rows.toArray(new byte[rows.size()][][]);
+
+            Arrays.sort(a, ROW_COMPARATOR);
+
+            return new SortedTrieIterator(a, depth);
+
+        }
+
+        /**
+         * Bind the variable at the given index in the variable order to each
+         * value in the intersection of the tries having a level for that
+         * variable.
+         */
+        private void leapfrog(final int index) throws Exception {
+
+            if (index == order.length) {
+
+                final IBindingSet right = new ListBindingSet();
+
+                for (int i = 0; i < order.length; i++) {
+
+                    right.set(order[i], new Constant<IV<?, ?>>(values[i]));
+
+                }
+
+                emit(left, right);
+
+                return;
+
+            }
+
+            final TrieIterator[] a = itrs[index];
+
+            final int k = a.length;
+
+            for (TrieIterator t : a)
+                t.open();
+
+            try {
+
+                for (TrieIterator t : a)
+                    if (t.atEnd())
+                        return;
+
+                Arrays.sort(a, new Comparator<TrieIterator>() {
+                    @Override
+                    public int compare(final TrieIterator x,
+                            final TrieIterator y) {
+                        return BytesUtil.compareBytes(x.key(), y.key());
+                    }
+                });
+
+                int p = 0;
+
+                byte[] max = a[k - 1].key();
+
+                while (true) {
+
+                    if ((++nvisited & 0xffff) == 0 && Thread.interrupted())
+                        throw new InterruptedException();
+
+                    final byte[] x = a[p].key();
+
+                    if (BytesUtil.compareBytes(x, max) == 0) {
+
+                        // All tries agree on this value.
+                        values[index] = IVUtility.decode(x);
+
+                        leapfrog(index + 1);
+
+                        a[p].next();
+
+                    } else {
+
+                        a[p].seek(max);
+
+                    }
+
+                    if (a[p].atEnd())
+                        return;
+
+                    max = a[p].key();
+
+                    p = (p + 1) % k;
+
+                }
+
+            } finally {
+
+                for (TrieIterator t : a)
+                    t.up();
+
+            }
+
+        }
+
+        private void emit(final IBindingSet left, final IBindingSet right) {
+
+            final IBindingSet out = BOpContext.bind(left, right, constraints,
+                    null/* varsToKeep */);
+
+            if (out != null)
+                unsyncBuffer.add(out);
+
+        }
+
+    }
+
+}
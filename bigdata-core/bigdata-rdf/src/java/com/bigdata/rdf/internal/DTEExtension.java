@@ -26,6 +26,8 @@ package com.bigdata.rdf.internal;
 import org.openrdf.model.URI;
 
 import com.bigdata.rdf.internal.impl.AbstractIV;
+import com.bigdata.rdf.internal.impl.extensions.InlineLiteralDictionaryExtension;
+import com.bigdata.rdf.internal.impl.literal.LiteralExtensionIV;
 import com.bigdata.rdf.internal.impl.literal.PackedLongIV;
 
 /**
@@ -63,6 +65,13 @@ public enum DTEExtension {
      */
     MOCKED_IV((byte) 3, 0/* len */, Void.class, null/*datatypeURI*/, DTEFlags.NOFLAGS),
 
+    /**
+     * The code of a literal in the {@link InlineLiteralDictionary}. This is
+     * only used as the delegate of a {@link LiteralExtensionIV} whose datatype
+     * is the marker datatype of the {@link InlineLiteralDictionaryExtension}.
+     */
+    INLINE_DICTIONARY_CODE((byte) 4, 0/* len */, Integer.class, null/*datatypeURI*/, DTEFlags.NOFLAGS),
+
     
 	/**
 	 * This is a place holder for extension of the intrinsic data types. Its
@@ -124,6 +133,8 @@ public enum DTEExtension {
             return ARRAY;
         case 3:
             return MOCKED_IV;
+        case 4:
+            return INLINE_DICTIONARY_CODE;
          default:
             throw new IllegalArgumentException(Byte.toString(b));
         }
@@ -9,6 +9,7 @@ import java.util.List;
 import com.bigdata.rdf.internal.impl.extensions.DateTimeExtension;
 import com.bigdata.rdf.internal.impl.extensions.DerivedNumericsExtension;
 import com.bigdata.rdf.internal.impl.extensions.GeoSpatialLiteralExtension;
+import com.bigdata.rdf.internal.impl.extensions.InlineLiteralDictionaryExtension;
 import com.bigdata.rdf.internal.impl.extensions.XSDStringExtension;
 import com.bigdata.rdf.model.BigdataLiteral;
 import com.bigdata.rdf.model.BigdataValue;
@@ -25,6 +26,9 @@ import com.bigdata.service.geospatial.GeoSpatialDatatypeConfiguration;
  * <dt>{@link DerivedNumericsExtension}</dt>
  * <dd>Inlining literals which represent derived numeric values into
  * the statement indices.</dd>
+ * <dt>{@link InlineLiteralDictionaryExtension}</dt>
+ * <dd>Inlining high frequency literals declared by the
+ * {@link InlineLiteralDictionary} (if any) into the statement indices.</dd>
  * </dl>
  */
 public class DefaultExtensionFactory implements IExtensionFactory {
@@ -68,6 +72,14 @@ public class DefaultExtensionFactory implements IExtensionFactory {
     		
     	}
 
+        if (config.getInlineLiteralDictionary() != null) {
+            /*
+             * Inline the high frequency literals declared by the dictionary.
+             */
+            extensions.add(new InlineLiteralDictionaryExtension<BigdataLiteral>(
+                    resolver, config.getInlineLiteralDictionary()));
+        }
+
         if (config.getMaxInlineStringLength() > 0) {
 			/*
 			 * Note: This extension is used for both literals and URIs. It MUST
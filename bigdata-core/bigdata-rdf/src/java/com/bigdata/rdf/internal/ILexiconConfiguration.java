@@ -86,6 +86,12 @@ public interface ILexiconConfiguration<V extends BigdataValue> {
      */
     public GeoSpatialConfig getGeoSpatialConfig();
 
+    /**
+     * Return the {@link InlineLiteralDictionary} -or- <code>null</code> if
+     * high frequency literals are not inlined using a dictionary.
+     */
+    public InlineLiteralDictionary getInlineLiteralDictionary();
+
     /**
      * Return the default time zone to be used for inlining.
      */
@@ -56,6 +56,7 @@ import com.bigdata.rdf.internal.impl.literal.AbstractLiteralIV;
 import com.bigdata.rdf.internal.impl.literal.FullyInlineTypedLiteralIV;
 import com.bigdata.rdf.internal.impl.literal.IPv4AddrIV;
 import com.bigdata.rdf.internal.impl.literal.LiteralArrayIV;
+import com.bigdata.rdf.internal.impl.literal.InlineDictionaryCodeIV;
 import com.bigdata.rdf.internal.impl.literal.LiteralExtensionIV;
 import com.bigdata.rdf.internal.impl.literal.MockedValueIV;
 import com.bigdata.rdf.internal.impl.literal.PackedLongIV;
@@ -750,6 +751,11 @@ public class IVUtility {
             case MOCKED_IV: {
                 return new MockedValueIV(decodeFromOffset(key,o));
             }
+            case INLINE_DICTIONARY_CODE: {
+                final AbstractLiteralIV iv = new InlineDictionaryCodeIV<>(
+                        (int) LongPacker.unpackLong(key, o));
+                return isExtension ? new LiteralExtensionIV<>(iv, datatype) : iv;
+            }
             case ARRAY: {
                 // byte(0...255) --> int(1...256) 
                 final int n = ((int) key[o++] & 0xFF) + 1;
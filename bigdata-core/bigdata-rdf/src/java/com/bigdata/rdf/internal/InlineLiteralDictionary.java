@@ -0,0 +1,295 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package com.bigdata.rdf.internal;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.Reader;
+import java.io.Serializable;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openrdf.model.Literal;
+import org.openrdf.model.impl.LiteralImpl;
+import org.openrdf.model.impl.URIImpl;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.rio.ntriples.NTriplesUtil;
+
+import com.bigdata.rdf.internal.impl.TermId;
+import com.bigdata.rdf.internal.impl.extensions.InlineLiteralDictionaryExtension;
+import com.bigdata.rdf.store.AbstractTripleStore;
+import com.bigdata.rdf.store.InlineLiteralDictionaryBuilder;
+import com.bigdata.rdf.store.TripleStoreSchema;
+
+/**
+ * A per-namespace dictionary of high frequency {@link Literal}s. Each literal
+ * in the dictionary is assigned a stable integer code (its ordinal position in
+ * the dictionary) and is inlined into the statement indices by the
+ * {@link InlineLiteralDictionaryExtension} rather than being assigned a
+ * {@link TermId} in the lexicon.
+ * <p>
+ * The dictionary is captured when the KB instance is created and is stored in
+ * the global row store under {@link TripleStoreSchema#INLINE_LITERAL_DICTIONARY}
+ * (just like the {@link com.bigdata.rdf.vocab.Vocabulary}). The codes MUST NOT
+ * change once data has been written against the dictionary, so changing the
+ * dictionary requires a new KB instance and a reload.
+ * <p>
+ * The external representation is a text file having one literal per line in
+ * N-Triples syntax, ordered by decreasing frequency. Blank lines and lines
+ * starting with <code>#</code> are ignored. Such a file may be generated from
+ * an existing KB instance using the {@link InlineLiteralDictionaryBuilder}.
+ *
+ * @see AbstractTripleStore.Options#INLINE_LITERAL_DICTIONARY
+ */
+public class InlineLiteralDictionary implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The literals in code order.
+     */
+    private final Literal[] literals;
+
+    /**
+     * Reverse index from the literal to its code.
+     */
+    private transient Map<Literal, Integer> codes;
+
+    /**
+     * @param literals
+     *            The literals in code order (most frequent first). Duplicates
+     *            are not permitted.
+     */
+    public InlineLiteralDictionary(final List<? extends Literal> literals) {
+
+        if (literals == null)
+            throw new IllegalArgumentException();
+
+        this.literals = new Literal[literals.size()];
+
+        for (int i = 0; i < this.literals.length; i++) {
+
+            final Literal lit = literals.get(i);
+
+            if (lit == null)
+                throw new IllegalArgumentException();
+
+            this.literals[i] = asKey(lit);
+
+        }
+
+        this.codes = buildCodes(this.literals);
+
+    }
+
+    private static Map<Literal, Integer> buildCodes(final Literal[] literals) {
+
+        final Map<Literal, Integer> codes = new HashMap<Literal, Integer>(
+                Math.max(16, literals.length * 2));
+
+        for (int i = 0; i < literals.length; i++) {
+
+            if (codes.put(literals[i], i) != null)
+                throw new IllegalArgumentException("Duplicate literal: "
+                        + literals[i]);
+
+        }
+
+        return codes;
+
+    }
+
+    private void readObject(final ObjectInputStream in) throws IOException,
+            ClassNotFoundException {
+
+        in.defaultReadObject();
+
+        codes = buildCodes(literals);
+
+    }
+
+    /**
+     * Return an openrdf {@link Literal} with value semantics for
+     * {@link Object#equals(Object)} and {@link Object#hashCode()}. This
+     * decouples the dictionary from any {@link IV} cached on a
+     * {@link com.bigdata.rdf.model.BigdataLiteral}.
+     */
+    private static Literal asKey(final Literal lit) {
+
+        if (lit.getLanguage() != null)
+            return new LiteralImpl(lit.getLabel(), lit.getLanguage());
+
+        if (lit.getDatatype() != null)
+            return new LiteralImpl(lit.getLabel(), new URIImpl(lit
+                    .getDatatype().stringValue()));
+
+        return new LiteralImpl(lit.getLabel());
+
+    }
+
+    /**
+     * The number of literals in the dictionary.
+     */
+    public int size() {
+
+        return literals.length;
+
+    }
+
+    /**
+     * Return the code for the literal.
+     *
+     * @return The code -or- <code>-1</code> if the literal is not in the
+     *         dictionary.
+     */
+    public int getCode(final Literal lit) {
+
+        final Integer code = codes.get(asKey(lit));
+
+        return code == null ? -1 : code.intValue();
+
+    }
+
+    /**
+     * Return the literal for the code.
+     *
+     * @throws IllegalArgumentException
+     *             if the code is not defined by this dictionary.
+     */
+    public Literal getLiteral(final int code) {
+
+        if (code < 0 || code >= literals.length)
+            throw new IllegalArgumentException("code=" + code + ", size="
+                    + literals.length);
+
+        return literals[code];
+
+    }
+
+    /**
+     * Write the dictionary in the external format.
+     */
+    public void write(final Writer w) throws IOException {
+
+        for (Literal lit : literals) {
+
+            w.write(NTriplesUtil.toNTriplesString(lit));
+
+            w.write('\n');
+
+        }
+
+        w.flush();
+
+    }
+
+    /**
+     * Read a dictionary from its external format.
+     *
+     * @param r
+     *            The reader.
+     * @param maxSize
+     *            The maximum number of literals to read from the input.
+     */
+    public static InlineLiteralDictionary read(final Reader r,
+            final int maxSize) throws IOException {
+
+        final BufferedReader br = new BufferedReader(r);
+
+        final List<Literal> list = new ArrayList<Literal>();
+
+        final ValueFactoryImpl vf = ValueFactoryImpl.getInstance();
+
+        String line;
+        int lineNo = 0;
+        while (list.size() < maxSize && (line = br.readLine()) != null) {
+
+            lineNo++;
+
+            line = line.trim();
+
+            if (line.length() == 0 || line.charAt(0) == '#')
+                continue;
+
+            try {
+                list.add(NTriplesUtil.parseLiteral(line, vf));
+            } catch (IllegalArgumentException ex) {
+                throw new IOException("Bad literal: line=" + lineNo + " : "
+                        + line, ex);
+            }
+
+        }
+
+        return new InlineLiteralDictionary(list);
+
+    }
+
+    /**
+     * Read a dictionary from a file or (if there is no such file) from a
+     * resource on the CLASSPATH.
+     *
+     * @param name
+     *            The file name or resource name.
+     * @param maxSize
+     *            The maximum number of literals to read from the input.
+     */
+    public static InlineLiteralDictionary load(final String name,
+            final int maxSize) throws IOException {
+
+        final File file = new File(name);
+
+        final InputStream is;
+        if (file.exists()) {
+            is = new FileInputStream(file);
+        } else {
+            is = InlineLiteralDictionary.class.getClassLoader()
+                    .getResourceAsStream(name);
+            if (is == null)
+                throw new IOException("Not found: " + name);
+        }
+
+        try {
+            return read(new InputStreamReader(is, "UTF-8"), maxSize);
+        } finally {
+            is.close();
+        }
+
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getName() + "{size=" + literals.length + "}";
+
+    }
+
+}
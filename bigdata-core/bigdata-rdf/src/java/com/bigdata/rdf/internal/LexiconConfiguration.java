@@ -55,6 +55,7 @@ import com.bigdata.rdf.internal.impl.AbstractInlineIV;
 import com.bigdata.rdf.internal.impl.bnode.FullyInlineUnicodeBNodeIV;
 import com.bigdata.rdf.internal.impl.bnode.NumericBNodeIV;
 import com.bigdata.rdf.internal.impl.bnode.UUIDBNodeIV;
+import com.bigdata.rdf.internal.impl.extensions.InlineLiteralDictionaryExtension;
 import com.bigdata.rdf.internal.impl.extensions.XSDStringExtension;
 import com.bigdata.rdf.internal.impl.literal.AbstractLiteralIV;
 import com.bigdata.rdf.internal.impl.literal.FullyInlineTypedLiteralIV;
@@ -211,6 +212,18 @@ public class LexiconConfiguration<V extends BigdataValue>
      */
     private final Map<String, IExtension<? extends BigdataValue>> datatype2ext;
     
+    /**
+     * @see AbstractTripleStore.Options#INLINE_LITERAL_DICTIONARY
+     */
+    private final InlineLiteralDictionary inlineLiteralDictionary;
+
+    /**
+     * The registered {@link InlineLiteralDictionaryExtension} -or-
+     * <code>null</code> if there is no {@link #inlineLiteralDictionary}. This
+     * is set by {@link #initExtensions(IDatatypeURIResolver)}.
+     */
+    private InlineLiteralDictionaryExtension<? extends BigdataValue> literalDictionaryExt;
+
     /**
      * The set of inline datatypes that should be included in the text index 
      * even though they are inline and not normally text indexed.
@@ -263,6 +276,11 @@ public class LexiconConfiguration<V extends BigdataValue>
         return geoSpatialConfig;
     }
         
+    @Override
+    public InlineLiteralDictionary getInlineLiteralDictionary() {
+        return inlineLiteralDictionary;
+    }
+
     @Override
     public boolean isInlineDateTimes() {
         return inlineDateTimes;
@@ -338,6 +356,9 @@ public class LexiconConfiguration<V extends BigdataValue>
         sb.append(", " + AbstractTripleStore.Options.INLINE_URI_FACTORY_CLASS + "="
                 + uriFactory.getClass().getName());
 
+        sb.append(", " + AbstractTripleStore.Options.INLINE_LITERAL_DICTIONARY + "="
+                + inlineLiteralDictionary);
+
         sb.append(", " + LexiconConfiguration.class.getName() + ".inlineDatatypesToTextIndex="
                 + inlineDatatypesToTextIndex);
 
@@ -365,6 +386,33 @@ public class LexiconConfiguration<V extends BigdataValue>
             final boolean geoSpatial,
             final GeoSpatialConfig geoSpatialConfig) {
 
+        this(blobsThreshold, inlineXSDDatatypeLiterals, inlineTextLiterals,
+                maxInlineTextLength, inlineBNodes, inlineDateTimes,
+                inlineDateTimesTimeZone, rejectInvalidXSDValues,
+                enableRawRecordsSupport, xFactory, vocab, valueFactory,
+                uriFactory, geoSpatial, geoSpatialConfig, null/* inlineLiteralDictionary */);
+
+    }
+
+    @SuppressWarnings("rawtypes")
+    public LexiconConfiguration(//
+            final int blobsThreshold,
+            final boolean inlineXSDDatatypeLiterals,//
+            final boolean inlineTextLiterals,//
+            final int maxInlineTextLength,//
+            final boolean inlineBNodes,//
+            final boolean inlineDateTimes,//
+            final TimeZone inlineDateTimesTimeZone,
+            final boolean rejectInvalidXSDValues,
+            final boolean enableRawRecordsSupport,//
+            final IExtensionFactory xFactory,//
+            final Vocabulary vocab,
+            final BigdataValueFactory valueFactory,//
+            final IInlineURIFactory uriFactory,//
+            final boolean geoSpatial,
+            final GeoSpatialConfig geoSpatialConfig,
+            final InlineLiteralDictionary inlineLiteralDictionary) {
+
         if (blobsThreshold < 0)
             throw new IllegalArgumentException();
 
@@ -392,6 +440,7 @@ public class LexiconConfiguration<V extends BigdataValue>
         this.uriFactory = uriFactory;
         this.geoSpatial = geoSpatial;
         this.geoSpatialConfig = geoSpatialConfig;
+        this.inlineLiteralDictionary = inlineLiteralDictionary;
         
         /*
          * TODO Make this configurable.
@@ -446,6 +495,10 @@ public class LexiconConfiguration<V extends BigdataValue>
 
         	}
 
+        	if (extension instanceof InlineLiteralDictionaryExtension) {
+        	    literalDictionaryExt = (InlineLiteralDictionaryExtension<?>) extension;
+        	}
+
         	if (extension instanceof IMathOpHandler) {
         	    typeHandlers.add((IMathOpHandler)extension);
         	}
@@ -673,6 +726,19 @@ public class LexiconConfiguration<V extends BigdataValue>
         if ((iv = createInlineDatatypeIV(value, datatype)) != null)
             return iv;
 
+        if (literalDictionaryExt != null) {
+
+            /*
+             * Attempt to inline a high frequency literal using its code in the
+             * inline literal dictionary. This is done after the intrinsic
+             * datatypes so such literals retain their natural encoding.
+             */
+
+            if ((iv = literalDictionaryExt.createIV(value)) != null)
+                return iv;
+
+        }
+
         if (inlineTextLiterals && maxInlineTextLength > 0) {
 
             /*
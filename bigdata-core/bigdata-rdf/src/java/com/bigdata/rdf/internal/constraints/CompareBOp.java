@@ -40,6 +40,7 @@ import com.bigdata.bop.solutions.IVComparator;
 import com.bigdata.rdf.error.SparqlTypeErrorException;
 import com.bigdata.rdf.internal.IV;
 import com.bigdata.rdf.internal.impl.literal.AbstractLiteralIV;
+import com.bigdata.rdf.internal.impl.literal.InlineDictionaryCodeIV;
 import com.bigdata.rdf.internal.impl.literal.LiteralExtensionIV;
 import com.bigdata.rdf.internal.impl.literal.PackedLongIV;
 import com.bigdata.rdf.internal.impl.literal.XSDIntegerIV;
@@ -209,7 +210,15 @@ public class CompareBOp extends XSDBooleanIVValueExpression
             @SuppressWarnings("rawtypes")
     		final IV rightDatatype = ((LiteralExtensionIV) right).getExtensionIV();
     		
-    		if (leftDatatype.equals(rightDatatype)) {
+    		/*
+    		 * Note: The codes of an InlineLiteralDictionary are assigned by
+    		 * frequency, so they only support (in)equality tests.
+    		 */
+    		final boolean ordered = !(((LiteralExtensionIV) left)
+    		        .getDelegate() instanceof InlineDictionaryCodeIV);
+    		
+    		if (leftDatatype.equals(rightDatatype)
+    		        && (ordered || op == CompareOp.EQ || op == CompareOp.NE)) {
     		
         		final boolean accept = 
         			_accept(left.compareTo(right), op);
@@ -927,6 +927,11 @@ public abstract class AbstractIV<V extends BigdataValue, T>
                 ((KeyBuilder) keyBuilder).pack(((Long) t.getInlineValue()).longValue());
                 break;
             }
+            case INLINE_DICTIONARY_CODE: {
+                // Emit the packed dictionary code.
+                ((KeyBuilder) keyBuilder).pack(((Integer) t.getInlineValue()).longValue());
+                break;
+            }
             case MOCKED_IV: {
                 final IV<?,?> iv = ((MockedValueIV) t).getIV();
                 iv.encode(keyBuilder);
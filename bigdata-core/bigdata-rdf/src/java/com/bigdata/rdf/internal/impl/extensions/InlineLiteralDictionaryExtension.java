@@ -0,0 +1,144 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+
+package com.bigdata.rdf.internal.impl.extensions;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.openrdf.model.Literal;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.impl.URIImpl;
+
+import com.bigdata.rdf.internal.IDatatypeURIResolver;
+import com.bigdata.rdf.internal.IExtension;
+import com.bigdata.rdf.internal.InlineLiteralDictionary;
+import com.bigdata.rdf.internal.impl.literal.AbstractLiteralIV;
+import com.bigdata.rdf.internal.impl.literal.InlineDictionaryCodeIV;
+import com.bigdata.rdf.internal.impl.literal.LiteralExtensionIV;
+import com.bigdata.rdf.model.BigdataLiteral;
+import com.bigdata.rdf.model.BigdataURI;
+import com.bigdata.rdf.model.BigdataValue;
+import com.bigdata.rdf.model.BigdataValueFactory;
+import com.bigdata.rdf.store.AbstractTripleStore;
+
+/**
+ * Inlines the literals declared by an {@link InlineLiteralDictionary} as a
+ * {@link LiteralExtensionIV} whose delegate is an
+ * {@link InlineDictionaryCodeIV}. Such literals are never entered into the
+ * lexicon indices, so joins and filters on them never touch ID2TERM and they
+ * are materialized directly from the dictionary.
+ * <p>
+ * Unlike other {@link IExtension}s, this extension is not selected by the
+ * datatype of the {@link Literal} (dictionary literals may be plain, language
+ * tagged or typed). Instead, {@link #DICTIONARY_LITERAL} is used as a marker
+ * datatype for the {@link LiteralExtensionIV} so the IV can be routed back to
+ * this extension for materialization. The marker datatype must be declared by
+ * the {@link com.bigdata.rdf.vocab.Vocabulary}.
+ * 
+ * @see AbstractTripleStore.Options#INLINE_LITERAL_DICTIONARY
+ */
+public class InlineLiteralDictionaryExtension<V extends BigdataValue>
+        implements IExtension<V> {
+
+    public static final URI DICTIONARY_LITERAL = new URIImpl(
+            "http://www.bigdata.com/rdf/datatype#inlineLiteralDictionary");
+
+    private final BigdataURI datatype;
+
+    private final InlineLiteralDictionary dictionary;
+
+    public InlineLiteralDictionaryExtension(
+            final IDatatypeURIResolver resolver,
+            final InlineLiteralDictionary dictionary) {
+
+        if (dictionary == null)
+            throw new IllegalArgumentException();
+
+        this.datatype = resolver.resolve(DICTIONARY_LITERAL);
+
+        this.dictionary = dictionary;
+
+    }
+
+    public InlineLiteralDictionary getDictionary() {
+
+        return dictionary;
+
+    }
+
+    @Override
+    public Set<BigdataURI> getDatatypes() {
+
+        return Collections.singleton(datatype);
+
+    }
+
+    /**
+     * Return the inline IV for a literal in the dictionary.
+     * 
+     * @return The {@link LiteralExtensionIV} -or- <code>null</code> if the
+     *         value is not a {@link Literal} in the dictionary.
+     */
+    @Override
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public LiteralExtensionIV createIV(final Value value) {
+
+        if (!(value instanceof Literal))
+            return null;
+
+        final int code = dictionary.getCode((Literal) value);
+
+        if (code == -1)
+            return null;
+
+        final AbstractLiteralIV delegate = new InlineDictionaryCodeIV(code);
+
+        return new LiteralExtensionIV(delegate, datatype.getIV());
+
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V asValue(final LiteralExtensionIV iv, final BigdataValueFactory vf) {
+
+        final AbstractLiteralIV<BigdataLiteral, ?> delegate = iv.getDelegate();
+
+        if (!(delegate instanceof InlineDictionaryCodeIV))
+            throw new IllegalArgumentException();
+
+        final Literal lit = dictionary
+                .getLiteral(((InlineDictionaryCodeIV<?>) delegate).getCode());
+
+        if (lit.getLanguage() != null)
+            return (V) vf.createLiteral(lit.getLabel(), lit.getLanguage());
+
+        if (lit.getDatatype() != null)
+            return (V) vf.createLiteral(lit.getLabel(), lit.getDatatype());
+
+        return (V) vf.createLiteral(lit.getLabel());
+
+    }
+
+}
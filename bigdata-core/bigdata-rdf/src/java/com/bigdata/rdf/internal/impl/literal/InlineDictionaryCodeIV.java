@@ -0,0 +1,164 @@
+/**
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package com.bigdata.rdf.internal.impl.literal;
+
+import com.bigdata.io.LongPacker;
+import com.bigdata.rdf.internal.DTE;
+import com.bigdata.rdf.internal.DTEExtension;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.InlineLiteralDictionary;
+import com.bigdata.rdf.internal.impl.extensions.InlineLiteralDictionaryExtension;
+import com.bigdata.rdf.lexicon.LexiconRelation;
+import com.bigdata.rdf.model.BigdataLiteral;
+
+/**
+ * The code of a {@link org.openrdf.model.Literal} in an
+ * {@link InlineLiteralDictionary}. This IV is meant to be used as the delegate
+ * of a {@link LiteralExtensionIV} created by the
+ * {@link InlineLiteralDictionaryExtension}. It is not directly materializable
+ * into a Literal outside the context of that extension.
+ * <p>
+ * Encoded as flags, {@link DTEExtension#INLINE_DICTIONARY_CODE}, packed code.
+ * The packed encoding is order preserving for non-negative values, so the
+ * codes of the most frequent literals (which are assigned first) have the
+ * shortest keys.
+ * 
+ * @see InlineLiteralDictionaryExtension
+ */
+public class InlineDictionaryCodeIV<V extends BigdataLiteral> extends
+        AbstractLiteralIV<V, Integer> {
+
+    private static final long serialVersionUID = -2305893734462118247L;
+
+    /**
+     * The dictionary code.
+     */
+    private final int code;
+
+    public InlineDictionaryCodeIV(final int code) {
+
+        super(DTE.Extension);
+
+        if (code < 0)
+            throw new IllegalArgumentException("code=" + code);
+
+        this.code = code;
+
+    }
+
+    @Override
+    public IV<V, Integer> clone(final boolean clearCache) {
+
+        return new InlineDictionaryCodeIV<V>(code);
+
+    }
+
+    @Override
+    public DTEExtension getDTEX() {
+
+        return DTEExtension.INLINE_DICTIONARY_CODE;
+
+    }
+
+    /**
+     * The dictionary code.
+     */
+    public int getCode() {
+
+        return code;
+
+    }
+
+    @Override
+    public Integer getInlineValue() {
+
+        return code;
+
+    }
+
+    @Override
+    public int byteLength() {
+
+        return 1 /* flags */+ 1 /* DTEExtension */
+                + LongPacker.getByteLength(code);
+
+    }
+
+    @Override
+    public int hashCode() {
+
+        return code;
+
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+
+        if (this == o)
+            return true;
+
+        if (o instanceof InlineDictionaryCodeIV) {
+
+            return code == ((InlineDictionaryCodeIV<?>) o).code;
+
+        }
+
+        return false;
+
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public int _compareTo(final IV o) {
+
+        final int c = ((InlineDictionaryCodeIV<?>) o).code;
+
+        return code < c ? -1 : code > c ? 1 : 0;
+
+    }
+
+    /**
+     * Implement {@link org.openrdf.model.Literal#getLabel()} for logging.
+     * Superclass uses inline value.
+     */
+    @Override
+    public String getLabel() {
+
+        return "InlineDictionaryCodeIV[" + code + "]";
+
+    }
+
+    /**
+     * This IV cannot be materialized on its own. It can only be used within
+     * the context of a {@link LiteralExtensionIV} whose {@link IV} is
+     * interpreted by the {@link InlineLiteralDictionaryExtension}.
+     */
+    @Override
+    public V asValue(final LexiconRelation lex)
+            throws UnsupportedOperationException {
+
+        throw new UnsupportedOperationException();
+
+    }
+
+}
@@ -113,6 +113,18 @@ public class BigdataSubjectCentricFullTextIndex extends FullTextIndex implements
 
     }
 
+    /**
+     * The completion index is not maintained for the subject-centric text
+     * index. It shares the namespace of the value-centric text index, which
+     * owns the completion index.
+     */
+    @Override
+    public boolean isCompletionIndexEnabled() {
+
+        return false;
+
+    }
+
     /**
      * Conditionally registers the necessary index(s).
      * 
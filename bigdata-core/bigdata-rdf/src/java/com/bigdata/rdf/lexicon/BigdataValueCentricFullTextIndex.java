@@ -180,6 +180,13 @@ public class BigdataValueCentricFullTextIndex extends FullTextIndex implements
             if (log.isInfoEnabled())
                 log.info(Options.FIELDS_ENABLED + "=" + fieldsEnabled);
     
+            final boolean positionsEnabled = Boolean.parseBoolean(p
+                    .getProperty(Options.POSITIONS_ENABLED,
+                            Options.DEFAULT_POSITIONS_ENABLED));
+    
+            if (log.isInfoEnabled())
+                log.info(Options.POSITIONS_ENABLED + "=" + positionsEnabled);
+    
 //            final boolean doublePrecision = Boolean.parseBoolean(p
 //                    .getProperty(Options.DOUBLE_PRECISION,
 //                            Options.DEFAULT_DOUBLE_PRECISION));
@@ -196,7 +203,8 @@ public class BigdataValueCentricFullTextIndex extends FullTextIndex implements
                     DefaultTupleSerializer.getDefaultLeafKeysCoder(),//
 //                    DefaultTupleSerializer.getDefaultValuesCoder(),//
                     SimpleRabaCoder.INSTANCE,
-                    fieldsEnabled
+                    fieldsEnabled,
+                    positionsEnabled
             ));
             
             indexManager.registerIndex(indexMetadata);
@@ -204,6 +212,9 @@ public class BigdataValueCentricFullTextIndex extends FullTextIndex implements
             if (log.isInfoEnabled())
                 log.info("Registered new text index: name=" + name);
 
+            if (isCompletionIndexEnabled())
+                createCompletionIndex();
+
             /*
              * Note: defer resolution of the index.
              */
@@ -237,6 +248,9 @@ public class BigdataValueCentricFullTextIndex extends FullTextIndex implements
         
         getIndexManager().dropIndex(name);
 
+        if (isCompletionIndexEnabled())
+            getIndexManager().dropIndex(getNamespace() + "." + NAME_COMPLETION);
+
     }
 
     public void index(final int capacity,
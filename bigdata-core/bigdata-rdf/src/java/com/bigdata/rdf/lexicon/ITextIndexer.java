@@ -122,6 +122,8 @@ public interface ITextIndexer<A extends IHit> {
         final long timeout; 
         final TimeUnit unit; 
         final String matchRegex;
+        final boolean matchPhrase;
+        final int proximity;
 		
         public FullTextQuery(final String query) {
         	this(
@@ -244,6 +246,51 @@ public interface ITextIndexer<A extends IHit> {
 	            final double minCosine, final double maxCosine,
 	            final int minRank, final int maxRank, 
 	            long timeout, final TimeUnit unit) {
+			this(
+				query,
+				languageCode,
+				prefixMatch,
+				matchRegex,
+				matchAllTerms,
+				matchExact,
+				minCosine,
+				maxCosine,
+				minRank,
+				maxRank,
+				timeout,
+				unit,
+				BDS.DEFAULT_MATCH_PHRASE,
+				BDS.DEFAULT_PROXIMITY
+				);
+		}
+
+		/**
+		 * Construct a full text query with a phrase or proximity constraint.
+		 * Both are answered from the token positions in the full text index.
+		 * 
+		 * @param matchPhrase
+		 *            if true, return only hits in which the search tokens
+		 *            appear at the same relative positions as in the search
+		 *            string.
+		 * @param proximity
+		 *            The maximum distance between the positions of the first
+		 *            and the last search token in a hit -or-
+		 *            {@link Integer#MAX_VALUE} for no constraint.
+		 * 
+		 * @see BDS#MATCH_PHRASE
+		 * @see BDS#PROXIMITY
+		 * @see FullTextIndex.Options#POSITIONS_ENABLED
+		 */
+		public FullTextQuery(final String query, final String languageCode,
+	            final boolean prefixMatch, final String matchRegex, 
+	            final boolean matchAllTerms, final boolean matchExact, 
+	            final double minCosine, final double maxCosine,
+	            final int minRank, final int maxRank, 
+	            long timeout, final TimeUnit unit,
+	            final boolean matchPhrase, final int proximity) {
+
+			if (proximity < 0)
+				throw new IllegalArgumentException();
 			
 			this.query = query;
 			this.languageCode = languageCode;
@@ -257,6 +304,8 @@ public interface ITextIndexer<A extends IHit> {
 			this.maxRank = maxRank;
 			this.timeout = timeout;
 			this.unit = unit;
+			this.matchPhrase = matchPhrase;
+			this.proximity = proximity;
 			
 		}
 		
@@ -302,6 +351,28 @@ public interface ITextIndexer<A extends IHit> {
 			return matchExact;
 		}
 
+		/**
+		 * @return the matchPhrase
+		 */
+		public boolean isMatchPhrase() {
+			return matchPhrase;
+		}
+
+		/**
+		 * @return the proximity
+		 */
+		public int getProximity() {
+			return proximity;
+		}
+
+		/**
+		 * Return <code>true</code> iff the query has a phrase or proximity
+		 * constraint.
+		 */
+		public boolean isPositional() {
+			return matchPhrase || proximity != BDS.DEFAULT_PROXIMITY;
+		}
+
 		/**
 		 * @return the minCosine
 		 */
@@ -358,6 +429,8 @@ public interface ITextIndexer<A extends IHit> {
 			result = prime * result + (prefixMatch ? 1231 : 1237);
 			result = prime * result + ((query == null) ? 0 : query.hashCode());
 			result = prime * result + ((matchRegex == null) ? 0 : matchRegex.hashCode());
+			result = prime * result + (matchPhrase ? 1231 : 1237);
+			result = prime * result + proximity;
 			return result;
 		}
 
@@ -394,6 +467,10 @@ public interface ITextIndexer<A extends IHit> {
 					return false;
 			} else if (!matchRegex.equals(other.matchRegex))
 				return false;
+			if (matchPhrase != other.matchPhrase)
+				return false;
+			if (proximity != other.proximity)
+				return false;
 			return true;
 		}
 
@@ -50,6 +50,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.log4j.Logger;
@@ -66,8 +67,10 @@ import com.bigdata.bop.IPredicate;
 import com.bigdata.bop.IVariableOrConstant;
 import com.bigdata.bop.ap.Predicate;
 import com.bigdata.btree.IIndex;
+import com.bigdata.btree.ILinearList;
 import com.bigdata.btree.IRangeQuery;
 import com.bigdata.btree.ITuple;
+import com.bigdata.btree.ITupleIterator;
 import com.bigdata.btree.ITupleSerializer;
 import com.bigdata.btree.IndexMetadata;
 import com.bigdata.btree.IndexTypeEnum;
@@ -89,6 +92,7 @@ import com.bigdata.rdf.internal.IInlineURIFactory;
 import com.bigdata.rdf.internal.ILexiconConfiguration;
 import com.bigdata.rdf.internal.IV;
 import com.bigdata.rdf.internal.IVUtility;
+import com.bigdata.rdf.internal.InlineLiteralDictionary;
 import com.bigdata.rdf.internal.LexiconConfiguration;
 import com.bigdata.rdf.internal.NoExtensionFactory;
 import com.bigdata.rdf.internal.NoInlineURIFactory;
@@ -129,9 +133,12 @@ import com.bigdata.striterator.ChunkedArrayIterator;
 import com.bigdata.striterator.IChunkedOrderedIterator;
 import com.bigdata.striterator.IKeyOrder;
 import com.bigdata.util.Bytes;
+import com.bigdata.util.BytesUtil;
 import com.bigdata.util.NT;
 import com.bigdata.util.concurrent.CanonicalFactory;
+import com.bigdata.util.concurrent.LatchedExecutor;
 
+import cutthecrap.utils.striterators.Filter;
 import cutthecrap.utils.striterators.Resolver;
 import cutthecrap.utils.striterators.Striterator;
 
@@ -604,6 +611,10 @@ public class LexiconRelation extends AbstractRelation<BigdataValue>
             final GeoSpatialConfig geoSpatialConfig = 
                 geoSpatial!=null && geoSpatial ?  getContainer().getGeoSpatialConfig() : null;
 
+            // Resolve the inline literal dictionary (optional).
+            final InlineLiteralDictionary inlineLiteralDictionary = getContainer()
+                    .getInlineLiteralDictionary();
+
 
             final IExtensionFactory xFactory;
             try {
@@ -654,7 +665,8 @@ public class LexiconRelation extends AbstractRelation<BigdataValue>
                     maxInlineTextLength, inlineBNodes, inlineDateTimes,
                     inlineDateTimesTimeZone,
                     rejectInvalidXSDValues, enableRawRecordsSupport, xFactory, 
-                    vocab, valueFactory, uriFactory, geoSpatial, geoSpatialConfig);
+                    vocab, valueFactory, uriFactory, geoSpatial, geoSpatialConfig,
+                    inlineLiteralDictionary);
 
         }
         
@@ -2180,12 +2192,39 @@ public class LexiconRelation extends AbstractRelation<BigdataValue>
      *            When <code>true</code> a new text index will be created
      *            for a namespace that had no it before.
      */
-    @SuppressWarnings("unchecked")
     public void rebuildTextIndex(final boolean forceCreate) {
 
+        rebuildTextIndex(forceCreate, 1/* nthreads */);
+
+    }
+
+    /**
+     * Utility method to (re-)build the full text index using up to
+     * <i>nthreads</i> concurrent workers. The {@link LexiconKeyOrder#ID2TERM}
+     * and {@link LexiconKeyOrder#BLOBS} indices are divided into key ranges
+     * having roughly the same number of tuples and each key range is tokenized
+     * by a {@link FullTextIndexWriterTask}. Each task buffers its
+     * {term,doc,field} tuples, sorts them into index order and writes them on
+     * the text index in large batches.
+     * 
+     * @param forceCreate
+     *            When <code>true</code> a new text index will be created
+     *            for a namespace that had no it before.
+     * @param nthreads
+     *            The maximum number of concurrent workers. When ONE (1), the
+     *            literals are indexed by the caller's thread.
+     * 
+     * @see #rebuildTextIndex(boolean)
+     */
+    @SuppressWarnings("unchecked")
+    public void rebuildTextIndex(final boolean forceCreate, final int nthreads) {
+
         if (getTimestamp() != ITx.UNISOLATED)
             throw new UnsupportedOperationException("Unisolated connection required to rebuild full text index");
         
+        if (nthreads <= 0)
+            throw new IllegalArgumentException();
+
         final IValueCentricTextIndexer<?> textIndexer;
         
         if (textIndex) {
@@ -2226,121 +2265,302 @@ public class LexiconRelation extends AbstractRelation<BigdataValue>
         // create a new index.
         textIndexer.create();
 
-        // TermIVs
-        {
-            // The index to scan for the RDF Literals.
-            final IIndex terms = getId2TermIndex();
+        // index all literals (TermIVs and BlobIVs).
+        indexLiterals(textIndexer, 0L/* sinceCommitTime */, nthreads);
 
-            // used to decode the
-            @SuppressWarnings("rawtypes")
-            final ITupleSerializer tupSer = terms.getIndexMetadata()
-                    .getTupleSerializer();
+        // We need to finally commit the changes to apply them
+        // See https://jira.blazegraph.com/browse/BLZG-1893 (Problems with Fulltext Index)
+        if (indexManager instanceof IJournal) {
 
-            /*
-             * Visit all plain, language code, and datatype literals in the
-             * lexicon.
-             * 
-             * Note: This uses a filter on the ITupleIterator in order to filter
-             * out non-literal terms before they are shipped from a remote index
-             * shard.
-             */
-            final Iterator<BigdataValue> itr = new Striterator(
-                    terms.rangeIterator(null/* fromKey */, null/* toKey */,
-                            0/* capacity */, IRangeQuery.DEFAULT,
-                            new TupleFilter<BigdataValue>() {
-                                private static final long serialVersionUID = 1L;
+            // make the changes restart safe (not required for federation).
+            ((IJournal) indexManager).commit();
 
-                                protected boolean isValid(
-                                        final ITuple<BigdataValue> obj) {
-                                    @SuppressWarnings("rawtypes")
-                                    final IV iv = (IV) tupSer
-                                            .deserializeKey(obj);
-                                    if (iv != null && iv.isLiteral()) {
-                                        return true;
-                                    }
-                                    return false;
-                                }
-                            })).addFilter(new Resolver() {
-                private static final long serialVersionUID = 1L;
+        }
+    	
+    }
 
-                protected Object resolve(final Object obj) {
-                    final BigdataLiteral lit = (BigdataLiteral) tupSer
-                            .deserialize((ITuple<?>) obj);
-                    // System.err.println("lit: "+lit);
-                    return lit;
-                }
-            });
+    /**
+     * Utility method to incrementally update the full text index with the
+     * literals which were added to the lexicon after the given commit point.
+     * This is useful when the text index was disabled during a bulk load, or
+     * was built from a snapshot, and only needs to be brought up to date. The
+     * existing text index is retained. You must be using the unisolated view
+     * of the {@link AbstractTripleStore} for this operation and
+     * {@link AbstractTripleStore.Options#TEXT_INDEX} must be enabled.
+     * <p>
+     * The new literals are identified by a merge of the current lexicon
+     * indices against their views as of <i>sinceCommitTime</i>, so each index
+     * is scanned once in key order without point lookups. Literals are never
+     * removed from the lexicon, so there is nothing to delete from the text
+     * index.
+     * 
+     * @param sinceCommitTime
+     *            A commit time. Only literals which did not exist as of that
+     *            commit point will be indexed.
+     * @param nthreads
+     *            The maximum number of concurrent workers.
+     */
+    public void updateTextIndex(final long sinceCommitTime, final int nthreads) {
+
+        if (getTimestamp() != ITx.UNISOLATED)
+            throw new UnsupportedOperationException("Unisolated connection required to update full text index");
+
+        if (!textIndex)
+            throw new UnsupportedOperationException("Could not update full text index, because it is not enabled");
+
+        if (sinceCommitTime <= 0L)
+            throw new IllegalArgumentException();
+
+        if (nthreads <= 0)
+            throw new IllegalArgumentException();
+
+        indexLiterals(getSearchEngine(), sinceCommitTime, nthreads);
+
+        // discard the FTS instance since its hit cache is now stale.
+        viewRef.set(null);
 
-            final int capacity = 10000;
+        if (indexManager instanceof IJournal) {
 
-            textIndexer.index(capacity, itr);
+            // make the changes restart safe (not required for federation).
+            ((IJournal) indexManager).commit();
 
         }
 
-        // BlobIVs
-        {
-            // the index to scan for the RDF Literals.
-            final IIndex terms = getBlobsIndex();
+    }
 
-            // used to decode the
-            @SuppressWarnings("rawtypes")
-            final ITupleSerializer tupSer = terms.getIndexMetadata()
-                    .getTupleSerializer();
+    /**
+     * Index the literals in the {@link LexiconKeyOrder#ID2TERM} and
+     * {@link LexiconKeyOrder#BLOBS} indices.
+     * 
+     * @param textIndexer
+     *            The text index.
+     * @param sinceCommitTime
+     *            When non-zero, only literals which did not exist as of that
+     *            commit time are indexed.
+     * @param nthreads
+     *            The maximum number of concurrent workers.
+     */
+    private void indexLiterals(final IValueCentricTextIndexer<?> textIndexer,
+            final long sinceCommitTime, final int nthreads) {
+
+        final int capacity = 10000;
+
+        final List<Callable<Long>> tasks = new LinkedList<Callable<Long>>();
+
+        for (LexiconKeyOrder keyOrder : new LexiconKeyOrder[] {
+                LexiconKeyOrder.ID2TERM, LexiconKeyOrder.BLOBS }) {
+
+            final IIndex ndx = getIndex(keyOrder);
 
             /*
-             * Visit all plain, language code, and datatype literals in the
-             * lexicon.
-             * 
-             * Note: This uses a filter on the ITupleIterator in order to filter
-             * out non-literal terms before they are shipped from a remote index
-             * shard.
+             * The view of the index as of the commit point -or- null if we are
+             * indexing all literals (or if the index did not exist as of that
+             * commit point).
              */
-            final Iterator<BigdataValue> itr = new Striterator(
-                    terms.rangeIterator(null/* fromKey */, null/* toKey */,
-                            0/* capacity */, IRangeQuery.DEFAULT,
-                            new TupleFilter<BigdataValue>() {
-                                private static final long serialVersionUID = 1L;
+            final IIndex priorView = sinceCommitTime == 0L ? null
+                    : AbstractRelation.getIndex(indexManager,
+                            getFQN(keyOrder), sinceCommitTime);
 
-                                protected boolean isValid(
-                                        final ITuple<BigdataValue> obj) {
-                                    @SuppressWarnings("rawtypes")
-                                    final IV iv = (IV) tupSer
-                                            .deserializeKey(obj);
-                                    if (iv != null && iv.isLiteral()) {
-                                        return true;
-                                    }
-                                    return false;
-                                }
-                            })).addFilter(new Resolver() {
-                private static final long serialVersionUID = 1L;
+            final byte[][] separatorKeys = getSeparatorKeys(ndx, nthreads);
+
+            for (int i = 0; i <= separatorKeys.length; i++) {
+
+                final byte[] fromKey = i == 0 ? null : separatorKeys[i - 1];
+
+                final byte[] toKey = i == separatorKeys.length ? null
+                        : separatorKeys[i];
+
+                tasks.add(new FullTextIndexWriterTask(textIndexer, capacity,
+                        newLiteralIterator(ndx, priorView, fromKey, toKey)));
+
+            }
+
+        }
+
+        final long begin = System.currentTimeMillis();
+
+        try {
+
+            if (nthreads == 1) {
+
+                for (Callable<Long> task : tasks) {
+
+                    task.call();
 
-                protected Object resolve(final Object obj) {
-                    final BigdataLiteral lit = (BigdataLiteral) tupSer
-                            .deserialize((ITuple<?>) obj);
-                    // System.err.println("lit: "+lit);
-                    return lit;
                 }
-            });
 
-            final int capacity = 10000;
+            } else {
 
-            while (itr.hasNext()) {
+                /*
+                 * Run the tasks on the shared executor service, but limit the
+                 * parallelism to nthreads.
+                 */
+                final LatchedExecutor executor = new LatchedExecutor(
+                        getExecutorService(), nthreads);
+
+                final List<FutureTask<Long>> futures = new LinkedList<FutureTask<Long>>();
+
+                for (Callable<Long> task : tasks) {
+
+                    final FutureTask<Long> ft = new FutureTask<Long>(task);
+
+                    futures.add(ft);
+
+                    executor.execute(ft);
+
+                }
+
+                try {
+
+                    for (FutureTask<Long> ft : futures) {
+
+                        ft.get();
+
+                    }
+
+                } finally {
+
+                    for (FutureTask<Long> ft : futures) {
+
+                        ft.cancel(true/* mayInterruptIfRunning */);
+
+                    }
 
-                textIndexer.index(capacity, itr);
+                }
 
             }
 
+        } catch (Throwable t) {
+
+            throw new RuntimeException(t);
+
         }
 
-        // We need to finally commit the changes to apply them
-        // See https://jira.blazegraph.com/browse/BLZG-1893 (Problems with Fulltext Index)
-        if (indexManager instanceof IJournal) {
+        if (log.isInfoEnabled())
+            log.info("Indexed literals: ntasks=" + tasks.size() + ", nthreads="
+                    + nthreads + ", sinceCommitTime=" + sinceCommitTime
+                    + ", elapsed=" + (System.currentTimeMillis() - begin));
 
-            // make the changes restart safe (not required for federation).
-            ((IJournal) indexManager).commit();
+    }
+
+    /**
+     * Return the separator keys which divide the index into <i>n</i> key
+     * ranges having roughly the same number of tuples. If the index does not
+     * support {@link ILinearList} (e.g., scale-out, where the index is already
+     * processed in parallel by shard), then an empty array is returned and the
+     * index is processed as a single key range.
+     */
+    private static byte[][] getSeparatorKeys(final IIndex ndx, final int n) {
+
+        if (n <= 1 || !(ndx instanceof ILinearList))
+            return new byte[0][];
+
+        final long rangeCount = ndx.rangeCount();
+
+        if (rangeCount < n * 1000L) {
+
+            // Not worth splitting.
+            return new byte[0][];
 
         }
-    	
+
+        final byte[][] keys = new byte[n - 1][];
+
+        for (int i = 1; i < n; i++) {
+
+            keys[i - 1] = ((ILinearList) ndx).keyAt(rangeCount * i / n);
+
+        }
+
+        return keys;
+
+    }
+
+    /**
+     * Visit all plain, language code, and datatype literals in a key range of
+     * the {@link LexiconKeyOrder#ID2TERM} or {@link LexiconKeyOrder#BLOBS}
+     * index.
+     * <p>
+     * Note: This uses a filter on the ITupleIterator in order to filter out
+     * non-literal terms before they are shipped from a remote index shard.
+     * 
+     * @param ndx
+     *            The index.
+     * @param priorView
+     *            When non-<code>null</code>, the view of the same index as of
+     *            some earlier commit point. Literals which are found in that
+     *            view are not visited.
+     * @param fromKey
+     *            The inclusive lower bound -or- <code>null</code>.
+     * @param toKey
+     *            The exclusive upper bound -or- <code>null</code>.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Iterator<BigdataValue> newLiteralIterator(final IIndex ndx,
+            final IIndex priorView, final byte[] fromKey, final byte[] toKey) {
+
+        // used to decode the
+        final ITupleSerializer tupSer = ndx.getIndexMetadata()
+                .getTupleSerializer();
+
+        final Striterator itr = new Striterator(ndx.rangeIterator(fromKey,
+                toKey, 0/* capacity */, IRangeQuery.DEFAULT,
+                new TupleFilter<BigdataValue>() {
+                    private static final long serialVersionUID = 1L;
+
+                    protected boolean isValid(final ITuple<BigdataValue> obj) {
+                        final IV iv = (IV) tupSer.deserializeKey(obj);
+                        if (iv != null && iv.isLiteral()) {
+                            return true;
+                        }
+                        return false;
+                    }
+                }));
+
+        if (priorView != null) {
+
+            /*
+             * Both iterators visit the keys in the same order, so we can skip
+             * the pre-existing literals with a merge.
+             */
+            final ITupleIterator<?> priorItr = priorView.rangeIterator(
+                    fromKey, toKey, 0/* capacity */, IRangeQuery.KEYS, null/* filter */);
+
+            itr.addFilter(new Filter() {
+                private static final long serialVersionUID = 1L;
+
+                private byte[] priorKey = null;
+
+                @Override
+                public boolean isValid(final Object obj) {
+                    final byte[] key = ((ITuple<?>) obj).getKey();
+                    while (priorKey == null
+                            || BytesUtil.compareBytes(priorKey, key) < 0) {
+                        if (!priorItr.hasNext()) {
+                            // no more pre-existing keys.
+                            return true;
+                        }
+                        priorKey = priorItr.next().getKey();
+                    }
+                    return !BytesUtil.bytesEqual(priorKey, key);
+                }
+            });
+
+        }
+
+        itr.addFilter(new Resolver() {
+            private static final long serialVersionUID = 1L;
+
+            protected Object resolve(final Object obj) {
+                final BigdataLiteral lit = (BigdataLiteral) tupSer
+                        .deserialize((ITuple<?>) obj);
+                // System.err.println("lit: "+lit);
+                return lit;
+            }
+        });
+
+        return itr;
+
     }
 
     private void updateTextIndexConfiguration(final SparseRowStore global, final String namespace) {
@@ -41,6 +41,7 @@ import com.bigdata.btree.keys.IKeyBuilder;
 import com.bigdata.btree.keys.IKeyBuilderFactory;
 import com.bigdata.btree.raba.codec.IRabaCoder;
 import com.bigdata.io.ByteArrayBuffer;
+import com.bigdata.io.DataInputBuffer;
 import com.bigdata.io.DataOutputBuffer;
 import com.bigdata.io.ShortPacker;
 import com.bigdata.rdf.internal.IV;
@@ -51,6 +52,7 @@ import com.bigdata.search.ITermDocRecord;
 import com.bigdata.search.ITermDocVal;
 import com.bigdata.search.ReadOnlyTermDocKey;
 import com.bigdata.search.ReadOnlyTermDocRecord;
+import com.bigdata.search.TokenBuffer;
 import com.bigdata.util.Bytes;
 import com.bigdata.util.BytesUtil;
 
@@ -79,6 +81,19 @@ public class RDFFullTextIndexTupleSerializer extends
     
     static private final transient int NO_FIELD = -1;
 
+    private boolean positionsEnabled;
+
+    /**
+     * When <code>true</code> the positions of the token within the literal are
+     * stored in the value of the tuple (after the byte length of the
+     * {@link IV}).
+     * 
+     * @see com.bigdata.search.FullTextIndex.Options#POSITIONS_ENABLED
+     */
+    public boolean isPositionsEnabled() {
+        return positionsEnabled;
+    }
+
 //    public boolean isDoublePrecision() {
 //        return doublePrecision;
 //    }
@@ -86,10 +101,22 @@ public class RDFFullTextIndexTupleSerializer extends
     /**
      * Used to serialize the values for the tuples in the index.
      * <p>
-     * Note: While this object is not thread-safe, the mutable B+Tree is
-     * restricted to a single writer so it does not have to be thread-safe.
+     * Note: The mutable B+Tree is restricted to a single writer, but the
+     * values are serialized by each {@link TokenBuffer} before they are
+     * written and several {@link TokenBuffer}s may be flushed concurrently
+     * by a parallel rebuild of the index. The buffer is therefore thread-local,
+     * like the {@link #getKeyBuilder() key builder}.
      */
-    final transient private DataOutputBuffer buf = new DataOutputBuffer(24);
+    final transient private ThreadLocal<DataOutputBuffer> buf = new ThreadLocal<DataOutputBuffer>() {
+
+        @Override
+        protected DataOutputBuffer initialValue() {
+
+            return new DataOutputBuffer(24);
+
+        }
+
+    };
 
     /**
      * De-serialization constructor.
@@ -121,8 +148,27 @@ public class RDFFullTextIndexTupleSerializer extends
 //            final boolean doublePrecision//
     ) {
 
+        this(keyBuilderFactory, leafKeysCoder, leafValsCoder, fieldsEnabled,
+                false/* positionsEnabled */);
+
+    }
+
+    /**
+     * @param positionsEnabled
+     *            When <code>true</code> the positions of the token within the
+     *            literal will be stored in the value of the tuple.
+     */
+    public RDFFullTextIndexTupleSerializer(//
+            final IKeyBuilderFactory keyBuilderFactory,//
+            final IRabaCoder leafKeysCoder, //
+            final IRabaCoder leafValsCoder,//
+            final boolean fieldsEnabled,//
+            final boolean positionsEnabled//
+    ) {
+
         super(keyBuilderFactory, leafKeysCoder, leafValsCoder);
 
+        this.positionsEnabled = positionsEnabled;
 //        this.doublePrecision = doublePrecision;
 
     }
@@ -180,6 +226,8 @@ public class RDFFullTextIndexTupleSerializer extends
             log.debug(val);
         }
 
+        final DataOutputBuffer buf = this.buf.get();
+
         buf.reset();
 
 //        final int termFreq = val.termFreq();
@@ -198,6 +246,13 @@ public class RDFFullTextIndexTupleSerializer extends
         // The byte length of the document identifier IV.
         buf.packShort((short) byteLen);
         
+        if (positionsEnabled) {
+
+            // The positions of the token in the literal.
+            FullTextIndexTupleSerializer.writePositions(buf, val.getPositions());
+
+        }
+
         // The term frequency
 //        buf.packLong(termFreq);
 //        buf.putShort(termFreq > Short.MAX_VALUE ? Short.MAX_VALUE
@@ -231,13 +286,14 @@ public class RDFFullTextIndexTupleSerializer extends
 
         final ByteArrayBuffer kbuf = tuple.getKeyBuffer();
 
+        final DataInputBuffer vbuf = tuple.getValueStream();
+
         // The byte length of the docId IV.
         final int byteLength;
         try {
 //            byteLength = LongPacker.unpackInt((DataInput) tuple
 //                    .getValueStream());
-            byteLength = ShortPacker.unpackShort((DataInput) tuple
-            		.getValueStream());
+            byteLength = ShortPacker.unpackShort((DataInput) vbuf);
         } catch (IOException ex) {
             throw new RuntimeException(ex);
         }
@@ -291,8 +347,20 @@ public class RDFFullTextIndexTupleSerializer extends
 //
 //        }
 
+        final int[] positions;
+        if (positionsEnabled) {
+            try {
+                // The positions follow the byte length of the IV.
+                positions = FullTextIndexTupleSerializer.readPositions(vbuf);
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        } else {
+            positions = null;
+        }
+
         return new ReadOnlyTermDocRecord(null/* token */, docId, NO_FIELD,
-                /* termFreq, */ termWeight);
+                /* termFreq, */ termWeight, positions);
 
     }
 
@@ -301,7 +369,12 @@ public class RDFFullTextIndexTupleSerializer extends
      */
     private static final transient byte VERSION0 = 0;
 
-    private static final transient byte VERSION = VERSION0;
+    /**
+     * Adds {@link #positionsEnabled}.
+     */
+    private static final transient byte VERSION1 = 1;
+
+    private static final transient byte VERSION = VERSION1;
 
     public void readExternal(final ObjectInput in) throws IOException,
             ClassNotFoundException {
@@ -309,10 +382,12 @@ public class RDFFullTextIndexTupleSerializer extends
         final byte version = in.readByte();
         switch (version) {
         case VERSION0:
+        case VERSION1:
             break;
         default:
             throw new IOException("unknown version=" + version);
         }
+        this.positionsEnabled = version >= VERSION1 ? in.readBoolean() : false;
 //        this.doublePrecision = in.readBoolean();
 
     }
@@ -320,6 +395,7 @@ public class RDFFullTextIndexTupleSerializer extends
     public void writeExternal(final ObjectOutput out) throws IOException {
         super.writeExternal(out);
         out.writeByte(VERSION);
+        out.writeBoolean(positionsEnabled);
 //        out.writeBoolean(doublePrecision);
     }
 
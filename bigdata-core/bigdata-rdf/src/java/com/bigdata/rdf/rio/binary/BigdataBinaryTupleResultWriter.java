@@ -0,0 +1,457 @@
+/**
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+package com.bigdata.rdf.rio.binary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openrdf.model.BNode;
+import org.openrdf.model.Literal;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.QueryResultHandlerException;
+import org.openrdf.query.TupleQueryResultHandlerException;
+import org.openrdf.query.resultio.QueryResultFormat;
+import org.openrdf.query.resultio.QueryResultWriterBase;
+import org.openrdf.query.resultio.TupleQueryResultFormat;
+import org.openrdf.query.resultio.TupleQueryResultWriter;
+
+import com.bigdata.rdf.ServiceProviderHook;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.model.BigdataValue;
+import com.bigdata.rdf.sail.webapp.client.BinaryTupleResultConstants;
+import com.bigdata.rdf.sail.webapp.client.BinaryTupleResultParser;
+
+/**
+ * Writer for the compact binary encoding of SPARQL solutions. Each distinct
+ * value is written once per response and is then referenced by its index.
+ * When the value is a {@link BigdataValue} having an {@link IV}, the value is
+ * recognized by its {@link IV} so repeated values are neither hashed by their
+ * lexical form nor written again. The solutions are buffered and written in
+ * chunks.
+ * 
+ * @see BinaryTupleResultConstants
+ * @see BinaryTupleResultParser
+ */
+public class BigdataBinaryTupleResultWriter extends QueryResultWriterBase
+        implements TupleQueryResultWriter, BinaryTupleResultConstants {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * The target size in bytes of a chunk.
+     */
+    static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * The dictionaries are cleared once they have this many values so the
+     * memory used by the writer and by the parser is bounded for large
+     * results.
+     */
+    static final int DEFAULT_MAX_DICTIONARY_SIZE = 100000;
+
+    private final OutputStream os;
+
+    private final int chunkSize;
+
+    private final int maxDictionarySize;
+
+    /**
+     * The index of each value sent in this response. The key is the
+     * {@link IV} of a {@link BigdataValue} and otherwise the {@link Value}.
+     */
+    private final Map<Object, Integer> values = new HashMap<Object, Integer>();
+
+    /**
+     * The index of each URI namespace sent in this response.
+     */
+    private final Map<String, Integer> namespaces = new HashMap<String, Integer>();
+
+    /*
+     * The current chunk.
+     */
+    private final ByteArrayOutputStream namespaceBuf = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream valueBuf = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream rowBuf = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream headerBuf = new ByteArrayOutputStream();
+    private int nnamespaces;
+    private int nvalues;
+    private int nrows;
+    private boolean reset;
+
+    private String[] bindingNames;
+
+    public BigdataBinaryTupleResultWriter(final OutputStream os) {
+
+        this(os, DEFAULT_CHUNK_SIZE, DEFAULT_MAX_DICTIONARY_SIZE);
+
+    }
+
+    public BigdataBinaryTupleResultWriter(final OutputStream os,
+            final int chunkSize, final int maxDictionarySize) {
+
+        if (os == null)
+            throw new IllegalArgumentException();
+
+        if (chunkSize <= 0)
+            throw new IllegalArgumentException();
+
+        if (maxDictionarySize <= 0)
+            throw new IllegalArgumentException();
+
+        this.os = os;
+        this.chunkSize = chunkSize;
+        this.maxDictionarySize = maxDictionarySize;
+
+    }
+
+    @Override
+    public TupleQueryResultFormat getTupleQueryResultFormat() {
+        return ServiceProviderHook.BINARY_RESULTS;
+    }
+
+    @Override
+    public QueryResultFormat getQueryResultFormat() {
+        return getTupleQueryResultFormat();
+    }
+
+    @Override
+    public void startQueryResult(final List<String> bindingNames)
+            throws TupleQueryResultHandlerException {
+
+        this.bindingNames = bindingNames.toArray(new String[bindingNames
+                .size()]);
+
+        try {
+
+            os.write(MAGIC);
+
+            os.write(VERSION);
+
+            final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+
+            writeInt(buf, this.bindingNames.length);
+
+            for (String name : this.bindingNames) {
+
+                writeString(buf, name);
+
+            }
+
+            writeInt(os, buf.size());
+
+            buf.writeTo(os);
+
+        } catch (IOException ex) {
+
+            throw new TupleQueryResultHandlerException(ex);
+
+        }
+
+    }
+
+    @Override
+    public void handleSolution(final BindingSet bindingSet)
+            throws TupleQueryResultHandlerException {
+
+        for (String name : bindingNames) {
+
+            final Value v = bindingSet.getValue(name);
+
+            writeInt(rowBuf, v == null ? 0 : getValueIndex(v) + 1);
+
+        }
+
+        nrows++;
+
+        if (rowBuf.size() + valueBuf.size() + namespaceBuf.size() >= chunkSize) {
+
+            try {
+
+                flushChunk();
+
+            } catch (IOException ex) {
+
+                throw new TupleQueryResultHandlerException(ex);
+
+            }
+
+        }
+
+    }
+
+    @Override
+    public void endQueryResult() throws TupleQueryResultHandlerException {
+
+        try {
+
+            if (nrows > 0)
+                flushChunk();
+
+            // End of the response.
+            writeInt(os, 0);
+
+            os.flush();
+
+        } catch (IOException ex) {
+
+            throw new TupleQueryResultHandlerException(ex);
+
+        }
+
+    }
+
+    /**
+     * Return the index of the value, adding it to the current chunk if it has
+     * not been sent.
+     */
+    private int getValueIndex(final Value v) {
+
+        final IV<?, ?> iv = v instanceof BigdataValue ? ((BigdataValue) v)
+                .getIV() : null;
+
+        final Object key = iv == null ? v : iv;
+
+        final Integer index = values.get(key);
+
+        if (index != null)
+            return index.intValue();
+
+        if (v instanceof URI) {
+
+            final URI uri = (URI) v;
+
+            final int ns = getNamespaceIndex(uri.getNamespace());
+
+            valueBuf.write(URI_VALUE);
+            writeInt(valueBuf, ns);
+            writeString(valueBuf, uri.getLocalName());
+
+        } else if (v instanceof Literal) {
+
+            final Literal lit = (Literal) v;
+
+            if (lit.getLanguage() != null) {
+
+                valueBuf.write(LANG_LITERAL_VALUE);
+                writeString(valueBuf, lit.getLabel());
+                writeString(valueBuf, lit.getLanguage());
+
+            } else if (lit.getDatatype() != null) {
+
+                // Note: The datatype is sent before the literal.
+                final int datatype = getValueIndex(lit.getDatatype());
+
+                valueBuf.write(TYPED_LITERAL_VALUE);
+                writeString(valueBuf, lit.getLabel());
+                writeInt(valueBuf, datatype);
+
+            } else {
+
+                valueBuf.write(PLAIN_LITERAL_VALUE);
+                writeString(valueBuf, lit.getLabel());
+
+            }
+
+        } else if (v instanceof BNode) {
+
+            valueBuf.write(BNODE_VALUE);
+            writeString(valueBuf, ((BNode) v).getID());
+
+        } else {
+
+            throw new IllegalArgumentException("Value: " + v);
+
+        }
+
+        final int i = values.size();
+
+        values.put(key, i);
+
+        nvalues++;
+
+        return i;
+
+    }
+
+    private int getNamespaceIndex(final String ns) {
+
+        final Integer index = namespaces.get(ns);
+
+        if (index != null)
+            return index.intValue();
+
+        final int i = namespaces.size();
+
+        namespaces.put(ns, i);
+
+        writeString(namespaceBuf, ns);
+
+        nnamespaces++;
+
+        return i;
+
+    }
+
+    /**
+     * Write the current chunk and then clear the dictionaries if they are
+     * full.
+     */
+    private void flushChunk() throws IOException {
+
+        headerBuf.reset();
+
+        headerBuf.write(reset ? FLAG_RESET : 0);
+
+        writeInt(headerBuf, nnamespaces);
+
+        final ByteArrayOutputStream valueCountBuf = new ByteArrayOutputStream(5);
+
+        writeInt(valueCountBuf, nvalues);
+
+        final ByteArrayOutputStream rowCountBuf = new ByteArrayOutputStream(5);
+
+        writeInt(rowCountBuf, nrows);
+
+        writeInt(os, headerBuf.size() + namespaceBuf.size()
+                + valueCountBuf.size() + valueBuf.size() + rowCountBuf.size()
+                + rowBuf.size());
+
+        headerBuf.writeTo(os);
+        namespaceBuf.writeTo(os);
+        valueCountBuf.writeTo(os);
+        valueBuf.writeTo(os);
+        rowCountBuf.writeTo(os);
+        rowBuf.writeTo(os);
+
+        namespaceBuf.reset();
+        valueBuf.reset();
+        rowBuf.reset();
+        nnamespaces = nvalues = nrows = 0;
+
+        reset = values.size() >= maxDictionarySize;
+
+        if (reset) {
+
+            values.clear();
+
+            namespaces.clear();
+
+        }
+
+    }
+
+    private static void writeString(final ByteArrayOutputStream os,
+            final String s) {
+
+        final byte[] b = s.getBytes(UTF8);
+
+        writeInt(os, b.length);
+
+        os.write(b, 0, b.length);
+
+    }
+
+    /**
+     * Write an unsigned variable length integer.
+     */
+    private static void writeInt(final ByteArrayOutputStream os, int v) {
+
+        while ((v & ~0x7f) != 0) {
+
+            os.write((v & 0x7f) | 0x80);
+
+            v >>>= 7;
+
+        }
+
+        os.write(v);
+
+    }
+
+    private static void writeInt(final OutputStream os, int v)
+            throws IOException {
+
+        while ((v & ~0x7f) != 0) {
+
+            os.write((v & 0x7f) | 0x80);
+
+            v >>>= 7;
+
+        }
+
+        os.write(v);
+
+    }
+
+    @Override
+    public void handleBoolean(final boolean value)
+            throws QueryResultHandlerException {
+
+        throw new UnsupportedOperationException("Cannot handle boolean results");
+
+    }
+
+    @Override
+    public void handleLinks(final List<String> linkUrls)
+            throws QueryResultHandlerException {
+        // NOP
+    }
+
+    @Override
+    public void handleNamespace(final String prefix, final String uri)
+            throws QueryResultHandlerException {
+        // NOP
+    }
+
+    @Override
+    public void startDocument() throws QueryResultHandlerException {
+        // NOP
+    }
+
+    @Override
+    public void handleStylesheet(final String stylesheetUrl)
+            throws QueryResultHandlerException {
+        // NOP
+    }
+
+    @Override
+    public void startHeader() throws QueryResultHandlerException {
+        // NOP
+    }
+
+    @Override
+    public void endHeader() throws QueryResultHandlerException {
+        // NOP
+    }
+
+}
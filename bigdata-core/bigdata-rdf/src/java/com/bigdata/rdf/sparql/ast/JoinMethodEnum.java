@@ -0,0 +1,76 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+package com.bigdata.rdf.sparql.ast;
+
+import com.bigdata.bop.join.HTreeHashJoinOp;
+import com.bigdata.bop.join.JVMHashJoinOp;
+import com.bigdata.bop.join.PipelineJoin;
+import com.bigdata.bop.rdf.join.AccessPathMergeJoin;
+import com.bigdata.rdf.sparql.ast.optimizers.ASTStaticJoinOptimizer;
+
+/**
+ * Type-safe enumeration of the operators which may be used to join a
+ * {@link StatementPatternNode} with the solutions produced by the joins which
+ * precede it in its join group.
+ * 
+ * @see StatementPatternNode.Annotations#JOIN_METHOD
+ * @see ASTStaticJoinOptimizer
+ */
+public enum JoinMethodEnum {
+
+    /**
+     * An index nested-loop join ({@link PipelineJoin}) which probes the access
+     * path once for each distinct as-bound source solution.
+     */
+    PipelineJoin,
+    /**
+     * A hash join which reads the access path once and probes a JVM hash
+     * index built from the source solutions ({@link JVMHashJoinOp}).
+     */
+    JVMHashJoin,
+    /**
+     * A hash join which reads the access path once and probes an HTree hash
+     * index on the native heap built from the source solutions (
+     * {@link HTreeHashJoinOp}).
+     */
+    HTreeHashJoin,
+    /**
+     * A merge join of two access paths read in the order of a shared variable
+     * ({@link AccessPathMergeJoin}).
+     */
+    MergeJoin;
+
+    /**
+     * Return <code>true</code> iff this is one of the hash join methods.
+     */
+    public boolean isHashJoin() {
+
+        return this == JVMHashJoin || this == HTreeHashJoin;
+
+    }
+
+}
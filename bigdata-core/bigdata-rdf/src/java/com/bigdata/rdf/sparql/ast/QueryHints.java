@@ -38,6 +38,11 @@ import com.bigdata.bop.engine.QueryEngine;
 import com.bigdata.bop.fed.QueryEngineFactory;
 import com.bigdata.bop.join.HashJoinAnnotations;
 import com.bigdata.bop.join.JoinAnnotations;
+import com.bigdata.bop.join.JoinKeyFilter;
+import com.bigdata.bop.join.PipelineJoin;
+import com.bigdata.bop.joinGraph.rto.AdaptiveJoinGraph;
+import com.bigdata.bop.rdf.join.AccessPathMergeJoin;
+import com.bigdata.bop.rdf.join.LeapfrogTriejoinOp;
 import com.bigdata.htree.HTree;
 import com.bigdata.io.DirectBufferPool;
 import com.bigdata.rdf.sparql.ast.cache.CacheConnectionFactory;
@@ -47,6 +52,7 @@ import com.bigdata.rdf.sparql.ast.optimizers.ASTDistinctTermScanOptimizer;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTFastRangeCountOptimizer;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTJoinGroupOrderOptimizer;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTJoinOrderByTypeOptimizer;
+import com.bigdata.rdf.sparql.ast.optimizers.ASTLeapfrogJoinOptimizer;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTOptimizerList;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTStaticJoinOptimizer;
 import com.bigdata.rdf.sparql.ast.optimizers.DefaultOptimizerList;
@@ -152,6 +158,54 @@ public interface QueryHints {
 
     int DEFAULT_RTO_NEDGES = 1;
 
+    /**
+     * The maximum time in milliseconds which the runtime optimizer will spend
+     * sampling the join graph (default {@value #DEFAULT_RTO_MAX_SAMPLING_TIME}
+     * ). Once this time has elapsed, the runtime optimizer stops re-sampling
+     * join paths having a cardinality estimate underflow and completes the
+     * join ordering by greedily extending the best join path found so far.
+     * This bounds the overhead of the RTO for interactive queries. ZERO (0)
+     * means no limit.
+     */
+    String RTO_MAX_SAMPLING_TIME = "RTO-maxSamplingTime";
+
+    long DEFAULT_RTO_MAX_SAMPLING_TIME = 10000L;
+
+    /**
+     * When <code>true</code>, the joins ordered by the static optimizer are
+     * monitored at runtime and the remaining joins in the join group are
+     * re-ordered if the observed cardinality of an intermediate result differs
+     * from the estimated cardinality by more than
+     * {@link #REOPTIMIZE_ERROR_FACTOR} (default {@value #DEFAULT_REOPTIMIZE}).
+     * This protects against runaway query plans when the static cardinality
+     * estimates are badly wrong, e.g., due to correlations in the data. The
+     * intermediate results are materialized between the joins, so this trades
+     * some pipelining for robustness. This has no effect unless the static
+     * optimizer is in use for the join group.
+     * 
+     * <pre>
+     * hint:Query hint:reoptimize true .
+     * </pre>
+     * 
+     * @see AdaptiveJoinGraph
+     */
+    String REOPTIMIZE = "reoptimize";
+
+    boolean DEFAULT_REOPTIMIZE = false;
+
+    /**
+     * The factor by which the observed cardinality of an intermediate result
+     * must differ from the estimated cardinality before the remaining joins
+     * are re-ordered (default {@value #DEFAULT_REOPTIMIZE_ERROR_FACTOR}). The
+     * evaluation of a join is also cut off and the join re-planned once it
+     * has produced more than this factor times its estimated cardinality.
+     * 
+     * @see #REOPTIMIZE
+     */
+    String REOPTIMIZE_ERROR_FACTOR = "reoptimizeErrorFactor";
+
+    double DEFAULT_REOPTIMIZE_ERROR_FACTOR = 10d;
+
     /**
      * Query hint sets the optimistic threshold for the static join order
      * optimizer.
@@ -237,6 +291,8 @@ public interface QueryHints {
      * per-query limit will be rounded up to a multiple of buffers based on the
      * configured buffer capacity. The default is a 1MB buffer, so the
      * granularity of the limit is multiples of 1MB.
+     * <p>
+     * Note: This query hint MUST be applied in the {@link QueryHintScope#Query}.
      * 
      * @see DirectBufferPool
      * @see <a href="http://jira.blazegraph.com/browse/BLZG-42" > Per query
@@ -324,6 +380,21 @@ public interface QueryHints {
 
     boolean DEFAULT_NATIVE_HASH_JOINS = DEFAULT_ANALYTIC;
 
+    /**
+     * When <code>true</code>, a {@link JoinKeyFilter} is built over the join
+     * keys of the hash index for a named subquery or a named solution set and
+     * is used to drop solutions which can not join with that hash index before
+     * they are probed against it, including the solutions produced by
+     * required statement pattern joins in the same group which run before the
+     * INCLUDE.
+     * <p>
+     * Note: This query hint MUST be applied in the {@link QueryHintScope#Query}.
+     */
+    String JOIN_KEY_FILTER = "joinKeyFilter";
+
+    boolean DEFAULT_JOIN_KEY_FILTER = Boolean.valueOf(System.getProperty(
+            QueryHints.class.getName() + "." + JOIN_KEY_FILTER, "true"));
+
     /**
      * When <code>true</code>, a merge-join pattern will be recognized if it
      * appears in a join group. When <code>false</code>, this can still be
@@ -333,6 +404,53 @@ public interface QueryHints {
 
     boolean DEFAULT_MERGE_JOIN = true;
 
+    /**
+     * When <code>true</code>, the leading required statement patterns of a
+     * join group are evaluated using a worst-case optimal leapfrog triejoin if
+     * they form a cycle (default {@value #DEFAULT_LEAPFROG_JOIN}). Cyclic
+     * patterns, such as triangles, can produce intermediate results for a
+     * sequence of binary joins which are much larger than the final result.
+     * The default may be overridden using the environment variable named
+     * 
+     * <pre>
+     * com.bigdata.rdf.sparql.ast.QueryHints.leapfrogJoin
+     * </pre>
+     * 
+     * Note: The leapfrog triejoin is only used in triples mode.
+     * 
+     * @see LeapfrogTriejoinOp
+     * @see ASTLeapfrogJoinOptimizer
+     */
+    String LEAPFROG_JOIN = "leapfrogJoin";
+
+    boolean DEFAULT_LEAPFROG_JOIN = Boolean.valueOf(System.getProperty(
+            QueryHints.class.getName() + "." + LEAPFROG_JOIN, "true"));
+
+    /**
+     * The minimum estimated cardinality of both of the first two statement
+     * patterns of a join group before they are joined by an
+     * {@link AccessPathMergeJoin} rather than a nested index join (default
+     * {@value #DEFAULT_ACCESS_PATH_MERGE_JOIN_THRESHOLD}). The merge join
+     * reads each access path once in the order of a shared variable rather
+     * than probing the access path of the second statement pattern once for
+     * each solution of the first. Use {@link Long#MAX_VALUE} to disable the
+     * merge join. The default may be overridden using the environment
+     * variable named
+     * 
+     * <pre>
+     * com.bigdata.rdf.sparql.ast.QueryHints.accessPathMergeJoinThreshold
+     * </pre>
+     * 
+     * Note: This query hint MUST be applied in the {@link QueryHintScope#Query}.
+     * 
+     * @see ASTStaticJoinOptimizer
+     */
+    String ACCESS_PATH_MERGE_JOIN_THRESHOLD = "accessPathMergeJoinThreshold";
+
+    long DEFAULT_ACCESS_PATH_MERGE_JOIN_THRESHOLD = Long.valueOf(System
+            .getProperty(QueryHints.class.getName() + "."
+                    + ACCESS_PATH_MERGE_JOIN_THRESHOLD, "100000"));
+
     /**
      * Query hint for disabling the DISTINCT SPO behavior for a CONSTRUCT QUERY
      * (default {@value #DEFAULT_CONSTRUCT_DISTINCT_SPO}). When disabled, the
@@ -351,6 +469,31 @@ public interface QueryHints {
     String CONSTRUCT_DISTINCT_SPO = "constructDistinctSPO";
     
     boolean DEFAULT_CONSTRUCT_DISTINCT_SPO = true;
+
+    /**
+     * Query hint for streaming a CONSTRUCT (or DESCRIBE) query in constant heap
+     * (default {@value #DEFAULT_CONSTRUCT_STREAMING}). When enabled, the
+     * DISTINCT SPO filter for the constructed graph is always backed by the
+     * native heap (regardless of {@link #NATIVE_DISTINCT_SPO}) and keeps only a
+     * bounded number of recently constructed statements on the JVM heap. If
+     * the DISTINCT SPO semantics were disabled using
+     * {@link #CONSTRUCT_DISTINCT_SPO}, then duplicate statements are only
+     * eliminated within a bounded window of recently constructed statements.
+     * <p>
+     * The default may be overridden using the environment variable named
+     * 
+     * <pre>
+     * com.bigdata.rdf.sparql.ast.QueryHints.constructStreaming
+     * </pre>
+     * 
+     * Note: This query hint MUST be applied in the {@link QueryHintScope#Query}.
+     * 
+     * @see com.bigdata.rdf.sparql.ast.eval.ASTConstructIterator
+     */
+    String CONSTRUCT_STREAMING = "constructStreaming";
+
+    boolean DEFAULT_CONSTRUCT_STREAMING = Boolean.valueOf(System.getProperty(
+            QueryHints.class.getName() + "." + CONSTRUCT_STREAMING, "false"));
     
     /**
      * When <code>true</code>, force the use of REMOTE access paths in scale-out
@@ -554,6 +697,76 @@ public interface QueryHints {
 
     boolean DEFAULT_HASH_JOIN = false;
 
+    /**
+     * The minimum estimated input cardinality of a required statement pattern
+     * join before the static join optimizer will choose its
+     * {@link JoinMethodEnum} using range counts (default
+     * {@value #DEFAULT_HASH_JOIN_THRESHOLD}). When the estimated number of
+     * solutions flowing into the join is at least the range count of the
+     * statement pattern, reading the access path once for a hash join is
+     * cheaper than probing it once per solution and a hash join is chosen.
+     * Otherwise the join is evaluated as a {@link PipelineJoin}. The decision
+     * and the estimated input cardinality are recorded on the statement
+     * pattern and are reported by EXPLAIN. Use {@link Long#MAX_VALUE} to
+     * disable the cost model. The default may be overridden using the
+     * environment variable named
+     * 
+     * <pre>
+     * com.bigdata.rdf.sparql.ast.QueryHints.hashJoinThreshold
+     * </pre>
+     * 
+     * Note: This query hint MUST be applied in the {@link QueryHintScope#Query}.
+     * 
+     * @see #HASH_JOIN
+     * @see #NATIVE_HASH_JOIN_THRESHOLD
+     * @see ASTStaticJoinOptimizer
+     */
+    String HASH_JOIN_THRESHOLD = "hashJoinThreshold";
+
+    long DEFAULT_HASH_JOIN_THRESHOLD = Long.valueOf(System.getProperty(
+            QueryHints.class.getName() + "." + HASH_JOIN_THRESHOLD, "100000"));
+
+    /**
+     * The minimum estimated input cardinality of a hash join chosen by the
+     * cost model of the static join optimizer before the hash index is built
+     * on the native heap using an {@link HTree} rather than on the JVM heap
+     * (default {@value #DEFAULT_NATIVE_HASH_JOIN_THRESHOLD}). A native hash
+     * join is always used when {@link #NATIVE_HASH_JOINS} is enabled. The
+     * default may be overridden using the environment variable named
+     * 
+     * <pre>
+     * com.bigdata.rdf.sparql.ast.QueryHints.nativeHashJoinThreshold
+     * </pre>
+     * 
+     * Note: The hash index for a statement pattern join is private to that
+     * join, so the cost model may mix JVM and native hash joins in the same
+     * query.
+     * <p>
+     * Note: This query hint MUST be applied in the {@link QueryHintScope#Query}.
+     * 
+     * @see #HASH_JOIN_THRESHOLD
+     */
+    String NATIVE_HASH_JOIN_THRESHOLD = "nativeHashJoinThreshold";
+
+    long DEFAULT_NATIVE_HASH_JOIN_THRESHOLD = Long.valueOf(System.getProperty(
+            QueryHints.class.getName() + "." + NATIVE_HASH_JOIN_THRESHOLD,
+            "1000000"));
+
+    /**
+     * The name of the workload class used by the NanoSparqlServer to admit the
+     * query. Each workload class has its own limit on the number of running
+     * and queued queries, its own timeout, and its own native memory budget.
+     * A workload class named by an HTTP header takes precedence over this
+     * query hint. There is no default. Queries which do not name a workload
+     * class are assigned to the workload class for their namespace or to the
+     * default workload class.
+     * <p>
+     * Note: This query hint MUST be applied in the {@link QueryHintScope#Query}.
+     * The query hint is read before the query is optimized and has no effect
+     * on the query plan.
+     */
+    String WORKLOAD_CLASS = "workloadClass";
+
     /**
      * When <code>true</code> a DESCRIBE cache will be maintained. This can
      * accelerate DESCRIBE queries, linked data queries (which are mapped to a
@@ -36,14 +36,17 @@ import com.bigdata.bop.BOp;
 import com.bigdata.bop.Constant;
 import com.bigdata.bop.IVariable;
 import com.bigdata.bop.NV;
+import com.bigdata.bop.rdf.join.AccessPathMergeJoin;
 import com.bigdata.htree.HTree;
 import com.bigdata.rdf.internal.constraints.RangeBOp;
 import com.bigdata.rdf.sparql.ast.eval.AST2BOpBase;
 import com.bigdata.rdf.sparql.ast.eval.AST2BOpJoins;
 import com.bigdata.rdf.sparql.ast.eval.AST2BOpUtility;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTGraphGroupOptimizer;
+import com.bigdata.rdf.sparql.ast.optimizers.ASTLeapfrogJoinOptimizer;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTRangeConstraintOptimizer;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTSimpleOptionalOptimizer;
+import com.bigdata.rdf.sparql.ast.optimizers.ASTStaticJoinOptimizer;
 import com.bigdata.rdf.sparql.ast.optimizers.StaticOptimizer;
 import com.bigdata.rdf.spo.DistinctTermAdvancer;
 import com.bigdata.rdf.spo.ISPO;
@@ -216,6 +219,40 @@ public class StatementPatternNode extends
 		 *      PREDICATEs query is slow </a>
 		 */
         String DISTINCT_TERM_SCAN_VAR = "distinctTermScanVar";
+
+        /**
+         * An optional boolean annotation which is <code>true</code> iff the
+         * triple pattern is part of a cyclic sequence of triple patterns at
+         * the head of the join group which will be evaluated using a leapfrog
+         * triejoin.
+         * 
+         * @see ASTLeapfrogJoinOptimizer
+         */
+        String LEAPFROG_JOIN = "leapfrogJoin";
+
+        boolean DEFAULT_LEAPFROG_JOIN = false;
+
+        /**
+         * An optional {@link IVariable} annotation which is present on two
+         * adjacent required triple patterns when they will be evaluated by an
+         * {@link AccessPathMergeJoin} on that variable.
+         * 
+         * @see ASTStaticJoinOptimizer
+         */
+        String MERGE_JOIN_VAR = "mergeJoinVar";
+
+        /**
+         * An optional {@link JoinMethodEnum} annotation which records the
+         * operator chosen by the cost model of the static join optimizer to
+         * join the triple pattern with the solutions of the joins which
+         * precede it. When present, the estimated input cardinality on which
+         * the decision was based is recorded as
+         * {@link AST2BOpBase.Annotations#ESTIMATED_INPUT_CARDINALITY}.
+         * 
+         * @see ASTStaticJoinOptimizer
+         * @see QueryHints#HASH_JOIN_THRESHOLD
+         */
+        String JOIN_METHOD = "joinMethod";
         
     }
     
@@ -460,6 +497,61 @@ public class StatementPatternNode extends
 		setProperty(Annotations.DISTINCT_TERM_SCAN_VAR, var);
 
 	}
+
+    /**
+     * Return <code>true</code> iff the triple pattern will be evaluated by a
+     * leapfrog triejoin.
+     * 
+     * @see Annotations#LEAPFROG_JOIN
+     */
+    final public boolean isLeapfrogJoin() {
+
+        return getProperty(Annotations.LEAPFROG_JOIN,
+                Annotations.DEFAULT_LEAPFROG_JOIN);
+
+    }
+
+    final public void setLeapfrogJoin(final boolean leapfrogJoin) {
+
+        setProperty(Annotations.LEAPFROG_JOIN, leapfrogJoin);
+
+    }
+
+    /**
+     * Return the variable on which this triple pattern will be merged with
+     * the adjacent triple pattern -or- <code>null</code>.
+     * 
+     * @see Annotations#MERGE_JOIN_VAR
+     */
+    final public IVariable<?> getMergeJoinVar() {
+
+        return (IVariable<?>) getProperty(Annotations.MERGE_JOIN_VAR);
+
+    }
+
+    final public void setMergeJoinVar(final IVariable<?> var) {
+
+        setProperty(Annotations.MERGE_JOIN_VAR, var);
+
+    }
+
+    /**
+     * Return the join method chosen by the cost model for this triple pattern
+     * -or- <code>null</code> if the cost model was not consulted.
+     * 
+     * @see Annotations#JOIN_METHOD
+     */
+    final public JoinMethodEnum getJoinMethod() {
+
+        return (JoinMethodEnum) getProperty(Annotations.JOIN_METHOD);
+
+    }
+
+    final public void setJoinMethod(final JoinMethodEnum joinMethod) {
+
+        setProperty(Annotations.JOIN_METHOD, joinMethod);
+
+    }
     
     /**
      * {@inheritDoc}
@@ -662,6 +754,21 @@ public class StatementPatternNode extends
             sb.append(keyOrder.toString());
         }
 
+        final JoinMethodEnum joinMethod = getJoinMethod();
+
+        if (joinMethod != null) {
+            sb.append("\n");
+            sb.append(indent(indent + 1));
+            shortenName(sb, Annotations.JOIN_METHOD);
+            sb.append("=");
+            sb.append(joinMethod.toString());
+            sb.append("\n");
+            sb.append(indent(indent + 1));
+            shortenName(sb, AST2BOpBase.Annotations.ESTIMATED_INPUT_CARDINALITY);
+            sb.append("=");
+            sb.append(getProperty(AST2BOpBase.Annotations.ESTIMATED_INPUT_CARDINALITY));
+        }
+
         return sb.toString();
 		
 	}
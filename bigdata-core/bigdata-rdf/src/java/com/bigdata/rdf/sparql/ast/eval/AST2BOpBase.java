@@ -40,6 +40,7 @@ import com.bigdata.bop.IPredicate;
 import com.bigdata.bop.PipelineOp;
 import com.bigdata.bop.cost.SubqueryCostReport;
 import com.bigdata.rdf.sparql.ast.ASTBase;
+import com.bigdata.rdf.sparql.ast.JoinMethodEnum;
 import com.bigdata.rdf.sparql.ast.StatementPatternNode;
 
 /**
@@ -138,6 +139,17 @@ public class AST2BOpBase {
         String ESTIMATED_CARDINALITY = AST2BOpBase.class.getName()
                 + ".estimatedCardinality";
 
+        /**
+         * The estimated number of solutions which will flow into a join as
+         * determined during static query optimization. This is the estimated
+         * cardinality of the joins which precede the join in its join group.
+         * It is used to choose the {@link JoinMethodEnum} for the join.
+         * 
+         * @see StatementPatternNode.Annotations#JOIN_METHOD
+         */
+        String ESTIMATED_INPUT_CARDINALITY = AST2BOpBase.class.getName()
+                + ".estimatedInputCardinality";
+
         /**
          * The estimated cost of a SCAN + FILTER approach to a default graph or
          * named graph query.
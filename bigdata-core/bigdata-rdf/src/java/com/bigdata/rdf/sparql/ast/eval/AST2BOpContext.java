@@ -218,6 +218,15 @@ public class AST2BOpContext implements IdFactory, IEvaluationContext {
      * occasionally for queries with LIMIT.
      */
     public boolean pipelinedHashJoins = QueryHints.DEFAULT_PIPELINED_HASH_JOIN;
+
+    /**
+     * When <code>true</code>, the hash indices for named subqueries and named
+     * solution sets are built with a filter over their join keys, which is
+     * used to drop solutions that can not join with the hash index.
+     * 
+     * @see QueryHints#JOIN_KEY_FILTER
+     */
+    public boolean joinKeyFilter = QueryHints.DEFAULT_JOIN_KEY_FILTER;
     
     /**
      * When <code>true</code>, a merge-join pattern will be recognized if it
@@ -227,6 +236,50 @@ public class AST2BOpContext implements IdFactory, IEvaluationContext {
      * @see QueryHints#MERGE_JOIN
      */
     public boolean mergeJoin = QueryHints.DEFAULT_MERGE_JOIN;
+
+    /**
+     * When <code>true</code>, the leading required statement patterns of a
+     * join group will be evaluated using a leapfrog triejoin if they form a
+     * cycle. When <code>false</code>, this can still be selectively enabled
+     * using a query hint.
+     * 
+     * @see QueryHints#LEAPFROG_JOIN
+     */
+    public boolean leapfrogJoin = QueryHints.DEFAULT_LEAPFROG_JOIN;
+
+    /**
+     * The minimum estimated cardinality of the first two statement patterns
+     * of a join group before they will be joined by a merge join of their
+     * access paths.
+     * 
+     * @see QueryHints#ACCESS_PATH_MERGE_JOIN_THRESHOLD
+     */
+    public long accessPathMergeJoinThreshold = QueryHints.DEFAULT_ACCESS_PATH_MERGE_JOIN_THRESHOLD;
+
+    /**
+     * The minimum estimated input cardinality of a statement pattern join
+     * before the static join optimizer chooses its join method using range
+     * counts.
+     * 
+     * @see QueryHints#HASH_JOIN_THRESHOLD
+     */
+    public long hashJoinThreshold = QueryHints.DEFAULT_HASH_JOIN_THRESHOLD;
+
+    /**
+     * The minimum estimated input cardinality of a hash join chosen by the
+     * static join optimizer before its hash index is built on the native heap.
+     * 
+     * @see QueryHints#NATIVE_HASH_JOIN_THRESHOLD
+     */
+    public long nativeHashJoinThreshold = QueryHints.DEFAULT_NATIVE_HASH_JOIN_THRESHOLD;
+
+    /**
+     * The maximum amount of native heap memory that may be allocated for this
+     * query -or- ZERO (0L) if no limit should be imposed.
+     * 
+     * @see QueryHints#ANALYTIC_MAX_MEMORY_PER_QUERY
+     */
+    public long analyticMaxMemoryPerQuery = QueryHints.DEFAULT_ANALYTIC_MAX_MEMORY_PER_QUERY;
     
     /**
      * The maximum parallelism for a solution set hash join when the join is
@@ -284,6 +337,15 @@ public class AST2BOpContext implements IdFactory, IEvaluationContext {
      */
     public boolean constructDistinctSPO = QueryHints.DEFAULT_CONSTRUCT_DISTINCT_SPO;
 
+    /**
+     * Set by the {@link ConstructStreamingHint}. When <code>true</code>, the
+     * {@link ASTConstructIterator} keeps only a bounded number of constructed
+     * statements on the JVM heap.
+     * 
+     * @see QueryHints#CONSTRUCT_STREAMING
+     */
+    public boolean constructStreaming = QueryHints.DEFAULT_CONSTRUCT_STREAMING;
+
     /**
      * When <code>true</code>, force the use of REMOTE access paths in scale-out
      * joins.
@@ -42,6 +42,7 @@ import com.bigdata.bop.BOp;
 import com.bigdata.bop.BOpEvaluationContext;
 import com.bigdata.bop.Constant;
 import com.bigdata.bop.IConstraint;
+import com.bigdata.bop.controller.INamedSolutionSetRef;
 import com.bigdata.bop.IPredicate;
 import com.bigdata.bop.IVariable;
 import com.bigdata.bop.NV;
@@ -69,6 +70,7 @@ import com.bigdata.rdf.internal.IV;
 import com.bigdata.rdf.internal.VTE;
 import com.bigdata.rdf.internal.impl.TermId;
 import com.bigdata.rdf.sparql.ast.DatasetNode;
+import com.bigdata.rdf.sparql.ast.JoinMethodEnum;
 import com.bigdata.rdf.sparql.ast.QueryHints;
 import com.bigdata.rdf.sparql.ast.StatementPatternNode;
 import com.bigdata.rdf.sparql.ast.VarNode;
@@ -184,11 +186,23 @@ public class AST2BOpJoins extends AST2BOpFilters {
         final DatasetNode dataset = (DatasetNode) pred
                 .getProperty(Annotations.DATASET);
 
+        // when non-null, move the join key filters onto the join.
+        final INamedSolutionSetRef[] joinKeyFilters = (INamedSolutionSetRef[]) pred
+                .getProperty(PipelineJoin.Annotations.JOIN_KEY_FILTERS);
+
         // strip off annotations that we do not want to propagate.
 		pred = pred.clearAnnotations(new String[] { Annotations.SCOPE,
 				Annotations.QUADS, Annotations.DATASET,
 				StatementPatternNode.Annotations.DISTINCT_TERM_SCAN_VAR,
-				StatementPatternNode.Annotations.FAST_RANGE_COUNT_VAR });
+				StatementPatternNode.Annotations.FAST_RANGE_COUNT_VAR,
+				PipelineJoin.Annotations.JOIN_KEY_FILTERS });
+
+        if (joinKeyFilters != null) {
+
+            anns.add(new NV(PipelineJoin.Annotations.JOIN_KEY_FILTERS,
+                    joinKeyFilters));
+
+        }
 
 		if (fastRangeCountVar != null) {
 
@@ -1294,21 +1308,21 @@ public class AST2BOpJoins extends AST2BOpFilters {
         if (hashJoin) {
             
             /*
-             * TODO Choose HTree versus JVM hash join operator based on the the
-             * estimated input cardinality to the join. The RTO can give us that
-             * (the static join optimizer does not really provide a decent
-             * estimate of the input/output cardinality of a join).
+             * Choose HTree versus JVM hash join operator. When the hash join
+             * was chosen by the cost model of the static join optimizer, that
+             * choice was based on the estimated input cardinality to the join.
+             * Otherwise the hash join was requested by a query hint.
              * 
              * TODO If we partition the hash join on a cluster then we should
              * divide the estimated input cardinality by the #of partitions to
              * get the estimated input cardinality per partition.
              */
-            
-//            final long estimatedInputCardinality = Long.MAX_VALUE; 
-//            
-//            final boolean useHTree = estimatedInputCardinality > 20 * Bytes.megabyte;
 
-            final boolean useHTree = ctx.nativeHashJoins;
+            final JoinMethodEnum joinMethod = (JoinMethodEnum) pred
+                    .getProperty(StatementPatternNode.Annotations.JOIN_METHOD);
+
+            final boolean useHTree = joinMethod != null ? joinMethod == JoinMethodEnum.HTreeHashJoin
+                    : ctx.nativeHashJoins;
             
             /*
              * The join variable(s) are variables which are (a) bound by the
@@ -65,6 +65,7 @@ import com.bigdata.bop.join.JoinAnnotations;
 import com.bigdata.bop.join.PipelineJoin;
 import com.bigdata.bop.join.PipelineJoinStats;
 import com.bigdata.bop.joinGraph.PartitionedJoinGroup;
+import com.bigdata.bop.joinGraph.rto.AdaptiveJoinGraph;
 import com.bigdata.bop.joinGraph.rto.EdgeSample;
 import com.bigdata.bop.joinGraph.rto.EstimateEnum;
 import com.bigdata.bop.joinGraph.rto.JGraph;
@@ -83,6 +84,7 @@ import com.bigdata.rdf.sparql.ast.IGroupMemberNode;
 import com.bigdata.rdf.sparql.ast.JoinGroupNode;
 import com.bigdata.rdf.sparql.ast.QueryHints;
 import com.bigdata.rdf.sparql.ast.StatementPatternNode;
+import com.bigdata.rdf.sparql.ast.optimizers.ASTStaticJoinOptimizer;
 import com.bigdata.rdf.store.AbstractTripleStore;
 import com.bigdata.striterator.Dechunkerator;
 import com.bigdata.util.NT;
@@ -266,22 +268,6 @@ public class AST2BOpRTO extends AST2BOpJoins {
 
         }
 
-        /*
-         * Consider the join group. See if it is complex enough to warrant
-         * running the RTO.
-         * 
-         * TODO Can we also make a decision based on whether there is uncertain,
-         * e.g., a swing in stakes, about the cardinality estimates for the
-         * predicates in the join graph, etc.? This could give us a means to
-         * avoid using the RTO if the join graph is known to run quickly or the
-         * ordering of the joins generated by the static query optimizer is
-         * known to be good.
-         * 
-         * TODO The static optimizer could simply annotate join groups for which
-         * it recognizes that it could have a bad join plan.
-         */
-        final int arity = joinGroup.arity();
-
         /*
          * Create a JoinGroup just for the pieces that the RTO will handle.
          * 
@@ -300,7 +286,200 @@ public class AST2BOpRTO extends AST2BOpJoins {
         final LinkedList<Predicate> preds = new LinkedList<Predicate>();
         // The constraints for the join graph.
         final List<IConstraint> constraints = new LinkedList<IConstraint>();
-        // The #of JOINs accepted into the RTO's join group.
+        final int naccepted = acceptJoinGraph(joinGroup, doneSet, ctx, start,
+                rtoJoinGroup, preds, constraints);
+
+        if (naccepted == 0) {
+
+            // There are not enough joins for the RTO.
+            return left;
+
+        }
+
+        final SampleType sampleType = joinGroup.getProperty(
+                QueryHints.RTO_SAMPLE_TYPE, QueryHints.DEFAULT_RTO_SAMPLE_TYPE);
+        
+        final int limit = joinGroup.getProperty(QueryHints.RTO_LIMIT,
+                QueryHints.DEFAULT_RTO_LIMIT);
+        
+        final int nedges = joinGroup.getProperty(QueryHints.RTO_NEDGES,
+                QueryHints.DEFAULT_RTO_NEDGES);
+        
+        final long maxSamplingTime = joinGroup.getProperty(
+                QueryHints.RTO_MAX_SAMPLING_TIME,
+                QueryHints.DEFAULT_RTO_MAX_SAMPLING_TIME);
+        
+        left = new JoinGraph(leftOrEmpty(left),//
+                new NV(BOp.Annotations.BOP_ID, ctx.nextId()),//
+                new NV(BOp.Annotations.EVALUATION_CONTEXT,
+                        BOpEvaluationContext.CONTROLLER),//
+                new NV(BOp.Annotations.CONTROLLER, true),// Drop "CONTROLLER" annotation?
+                // new NV(PipelineOp.Annotations.MAX_PARALLEL, 1),//
+                // new NV(PipelineOp.Annotations.LAST_PASS, true),// required
+//                new NV(JoinGraph.Annotations.SELECTED, selectVars
+//                        .toArray(new IVariable[selectVars.size()])),//
+                new NV(JoinGraph.Annotations.VERTICES,
+                        preds.toArray(new Predicate[preds.size()])),//
+                new NV(JoinGraph.Annotations.CONSTRAINTS, constraints
+                        .toArray(new IConstraint[constraints.size()])),//
+                new NV(JoinGraph.Annotations.JOIN_GROUP, rtoJoinGroup),//
+                new NV(JoinGraph.Annotations.LIMIT, limit),//
+                new NV(JoinGraph.Annotations.NEDGES, nedges),//
+                new NV(JoinGraph.Annotations.MAX_SAMPLING_TIME, maxSamplingTime),//
+                new NV(JoinGraph.Annotations.SAMPLE_TYPE, sampleType.name()),//
+                new NV(JoinGraph.Annotations.DONE_SET, doneSetIn),//
+                new NV(JoinGraph.Annotations.NT, new NT(ctx.getNamespace(),
+                        ctx.getTimestamp()))//
+        );
+
+        // These joins were consumed.
+        start.addAndGet(naccepted);
+
+        return left;
+        
+    }
+
+    /**
+     * Inspect the remainder of the join group. If we can isolate a join graph
+     * and filters, then we will push them down into an
+     * {@link AdaptiveJoinGraph}. The joins are evaluated in the order chosen by
+     * the static optimizer, but the remaining joins are re-ordered at runtime
+     * if the observed cardinality of an intermediate result is not consistent
+     * with the estimated cardinality.
+     * 
+     * @see QueryHints#REOPTIMIZE
+     */
+    static protected PipelineOp convertAdaptiveJoinGraph(PipelineOp left,
+            final JoinGroupNode joinGroup, final Set<IVariable<?>> doneSet,
+            final AST2BOpContext ctx, final AtomicInteger start) {
+
+        /*
+         * Snapshot of the doneSet on entry. This gets passed into the
+         * AdaptiveJoinGraph.
+         */
+        final Set<IVariable<?>> doneSetIn = Collections
+                .unmodifiableSet(new LinkedHashSet<IVariable<?>>(doneSet));
+
+        final JoinGroupNode adaptiveJoinGroup = new JoinGroupNode();
+        adaptiveJoinGroup.setQueryHints(joinGroup.getQueryHints());
+
+        // The predicates for the join graph.
+        @SuppressWarnings("rawtypes")
+        final LinkedList<Predicate> preds = new LinkedList<Predicate>();
+        // The constraints for the join graph.
+        final List<IConstraint> constraints = new LinkedList<IConstraint>();
+        final int naccepted = acceptJoinGraph(joinGroup, doneSet, ctx, start,
+                adaptiveJoinGroup, preds, constraints);
+
+        if (naccepted == 0) {
+
+            // There are not enough joins to re-order.
+            return left;
+
+        }
+
+        /*
+         * The estimated cardinality of each vertex as computed by the
+         * ASTRangeCountOptimizer (-1L if not known).
+         */
+        final long[] cardinalities = new long[naccepted];
+        {
+            final Map<Integer, StatementPatternNode> index = getIndex(adaptiveJoinGroup);
+            int i = 0;
+            for (Predicate<?> pred : preds) {
+                cardinalities[i++] = index.get(pred.getId())
+                        .getEstimatedCardinality(null/* opt */);
+            }
+        }
+
+        final double errorFactor = joinGroup.getProperty(
+                QueryHints.REOPTIMIZE_ERROR_FACTOR,
+                QueryHints.DEFAULT_REOPTIMIZE_ERROR_FACTOR);
+
+        final double optimistic = joinGroup.getProperty(
+                ASTStaticJoinOptimizer.Annotations.OPTIMISTIC,
+                ASTStaticJoinOptimizer.Annotations.DEFAULT_OPTIMISTIC);
+
+        left = new AdaptiveJoinGraph(leftOrEmpty(left),//
+                new NV(BOp.Annotations.BOP_ID, ctx.nextId()),//
+                new NV(BOp.Annotations.EVALUATION_CONTEXT,
+                        BOpEvaluationContext.CONTROLLER),//
+                new NV(BOp.Annotations.CONTROLLER, true),//
+                new NV(AdaptiveJoinGraph.Annotations.VERTICES,
+                        preds.toArray(new Predicate[preds.size()])),//
+                new NV(AdaptiveJoinGraph.Annotations.CARDINALITIES,
+                        cardinalities),//
+                new NV(AdaptiveJoinGraph.Annotations.CONSTRAINTS, constraints
+                        .toArray(new IConstraint[constraints.size()])),//
+                new NV(AdaptiveJoinGraph.Annotations.JOIN_GROUP,
+                        adaptiveJoinGroup),//
+                new NV(AdaptiveJoinGraph.Annotations.ERROR_FACTOR, errorFactor),//
+                new NV(AdaptiveJoinGraph.Annotations.OPTIMISTIC, optimistic),//
+                new NV(AdaptiveJoinGraph.Annotations.DONE_SET, doneSetIn),//
+                new NV(AdaptiveJoinGraph.Annotations.NT, new NT(
+                        ctx.getNamespace(), ctx.getTimestamp()))//
+        );
+
+        // These joins were consumed.
+        start.addAndGet(naccepted);
+
+        return left;
+
+    }
+
+    /**
+     * Accept the leading sequence of joins in the remainder of the join group
+     * into a join graph. The joins have already been ordered by the static
+     * optimizer, so we accept them in sequence along with any attachable
+     * filters, stopping at the first join which can not be handled by the join
+     * graph.
+     * 
+     * @param joinGroup
+     *            The join group.
+     * @param doneSet
+     *            The set of variables known to be materialized.
+     * @param ctx
+     *            The evaluation context.
+     * @param start
+     *            The index of the first child of the join group which has not
+     *            yet been handled.
+     * @param rtoJoinGroup
+     *            The {@link JoinGroupNode} for the joins accepted into the join
+     *            graph (out). The accepted {@link StatementPatternNode}s are
+     *            cloned into this group and tagged with the
+     *            {@link Annotations#PREDICATE_ID}.
+     * @param preds
+     *            The vertices of the join graph (out).
+     * @param constraints
+     *            The constraints of the join graph (out).
+     * 
+     * @return The #of joins accepted -or- ZERO (0) if there are not enough
+     *         joins for a join graph, in which case the caller should not
+     *         generate a join graph.
+     */
+    static private int acceptJoinGraph(final JoinGroupNode joinGroup,
+            final Set<IVariable<?>> doneSet, final AST2BOpContext ctx,
+            final AtomicInteger start, final JoinGroupNode rtoJoinGroup,
+            @SuppressWarnings("rawtypes") final List<Predicate> preds,
+            final List<IConstraint> constraints) {
+
+        /*
+         * Consider the join group. See if it is complex enough to warrant
+         * running the RTO.
+         * 
+         * TODO Can we also make a decision based on whether there is uncertain,
+         * e.g., a swing in stakes, about the cardinality estimates for the
+         * predicates in the join graph, etc.? This could give us a means to
+         * avoid using the RTO if the join graph is known to run quickly or the
+         * ordering of the joins generated by the static query optimizer is
+         * known to be good.
+         * 
+         * TODO The static optimizer could simply annotate join groups for which
+         * it recognizes that it could have a bad join plan.
+         */
+        final int arity = joinGroup.arity();
+
+        // The #of JOINs accepted into the join graph.
         int naccepted = 0;
         {
             /*
@@ -385,57 +564,25 @@ public class AST2BOpRTO extends AST2BOpJoins {
 
             if (naccepted < RTO_MIN_JOINS) {
 
-                // There are not enough joins for the RTO.
-                return left;
+                // There are not enough joins for the join graph.
+                return 0;
 
             }
 
             /*
-             * Since we will run the RTO, we now record any variables that are
-             * known to be materialized in order to support the FILTERs
-             * associated with the join group that we feed into the RTO.
+             * Since we will run the join graph, we now record any variables
+             * that are known to be materialized in order to support the
+             * FILTERs associated with the join group that we feed into the
+             * join graph.
              */
             doneSet.addAll(doneSetTmp);
 
         }
-        
-        final SampleType sampleType = joinGroup.getProperty(
-                QueryHints.RTO_SAMPLE_TYPE, QueryHints.DEFAULT_RTO_SAMPLE_TYPE);
-        
-        final int limit = joinGroup.getProperty(QueryHints.RTO_LIMIT,
-                QueryHints.DEFAULT_RTO_LIMIT);
-        
-        final int nedges = joinGroup.getProperty(QueryHints.RTO_NEDGES,
-                QueryHints.DEFAULT_RTO_NEDGES);
-        
-        left = new JoinGraph(leftOrEmpty(left),//
-                new NV(BOp.Annotations.BOP_ID, ctx.nextId()),//
-                new NV(BOp.Annotations.EVALUATION_CONTEXT,
-                        BOpEvaluationContext.CONTROLLER),//
-                new NV(BOp.Annotations.CONTROLLER, true),// Drop "CONTROLLER" annotation?
-                // new NV(PipelineOp.Annotations.MAX_PARALLEL, 1),//
-                // new NV(PipelineOp.Annotations.LAST_PASS, true),// required
-//                new NV(JoinGraph.Annotations.SELECTED, selectVars
-//                        .toArray(new IVariable[selectVars.size()])),//
-                new NV(JoinGraph.Annotations.VERTICES,
-                        preds.toArray(new Predicate[preds.size()])),//
-                new NV(JoinGraph.Annotations.CONSTRAINTS, constraints
-                        .toArray(new IConstraint[constraints.size()])),//
-                new NV(JoinGraph.Annotations.JOIN_GROUP, rtoJoinGroup),//
-                new NV(JoinGraph.Annotations.LIMIT, limit),//
-                new NV(JoinGraph.Annotations.NEDGES, nedges),//
-                new NV(JoinGraph.Annotations.SAMPLE_TYPE, sampleType.name()),//
-                new NV(JoinGraph.Annotations.DONE_SET, doneSetIn),//
-                new NV(JoinGraph.Annotations.NT, new NT(ctx.getNamespace(),
-                        ctx.getTimestamp()))//
-        );
 
-        // These joins were consumed.
-        start.addAndGet(naccepted);
+        return naccepted;
 
-        return left;
-        
     }
+        
 
     /**
      * Compile a join graph into a query plan.
@@ -487,9 +634,6 @@ public class AST2BOpRTO extends AST2BOpJoins {
         final JoinGroupNode rtoJoinGroup = (JoinGroupNode) joinGraph
                 .getRequiredProperty(JoinGraph.Annotations.JOIN_GROUP);
 
-        // Build an index over the bopIds in that JoinGroupNode.
-        final Map<Integer, StatementPatternNode> index = getIndex(rtoJoinGroup);
-
         // Factory avoids reuse of bopIds assigned to the predicates.
         final BOpIdFactory idFactory = new BOpIdFactory();
 
@@ -506,10 +650,48 @@ public class AST2BOpRTO extends AST2BOpJoins {
                 .getJoinGraphConstraints(predicates, constraints,
                         null/* knownBound */, true/* pathIsComplete */);
 
+        return compileJoins(queryEngine,
+                (NT) joinGraph.getRequiredProperty(JoinGraph.Annotations.NT),
+                rtoJoinGroup, predicates, constraintAttachmentArray, doneSet);
+
+    }
+
+    /**
+     * Compile a sequence of joins into a query plan.
+     * 
+     * @param queryEngine
+     *            The {@link QueryEngine} on which the returned query plan may
+     *            be executed.
+     * @param nt
+     *            The namespace and timestamp of the KB view.
+     * @param joinGroup
+     *            The AST {@link JoinGroupNode} for the joins. The
+     *            {@link StatementPatternNode}s in this group MUST be tagged
+     *            with the {@link Annotations#PREDICATE_ID}.
+     * @param predicates
+     *            The predicates in the order in which they will be evaluated.
+     * @param constraintAttachmentArray
+     *            The constraints to be attached to each join.
+     * @param doneSet
+     *            The set of variables known to be materialized. This is
+     *            updated as a side-effect to reflect the variables which are
+     *            materialized by the generated query plan.
+     * 
+     * @return The query plan.
+     */
+    public static PipelineOp compileJoins(final QueryEngine queryEngine,
+            final NT nt, final JoinGroupNode joinGroup,
+            final IPredicate<?>[] predicates,
+            final IConstraint[][] constraintAttachmentArray,
+            final Set<IVariable<?>> doneSet) {
+
+        // Build an index over the bopIds in that JoinGroupNode.
+        final Map<Integer, StatementPatternNode> index = getIndex(joinGroup);
+
         // Create an execution context for the query.
         final AST2BOpContext ctx = getExecutionContext(queryEngine,
                 // Identifies the KB instance (namespace and timestamp).
-                (NT) joinGraph.getRequiredProperty(JoinGraph.Annotations.NT));
+                nt);
 
         // Start with an empty plan.
         PipelineOp left = null;
@@ -69,12 +69,15 @@ import com.bigdata.bop.join.JVMSolutionSetHashJoinOp;
 import com.bigdata.bop.join.JoinAnnotations;
 import com.bigdata.bop.join.JoinTypeEnum;
 import com.bigdata.bop.join.NestedLoopJoinOp;
+import com.bigdata.bop.join.PipelineJoin;
 import com.bigdata.bop.join.PipelinedHashIndexAndSolutionSetJoinOp;
 import com.bigdata.bop.join.SolutionSetHashJoinOp;
 import com.bigdata.bop.paths.ArbitraryLengthPathOp;
 import com.bigdata.bop.paths.ZeroLengthPathOp;
 import com.bigdata.bop.rdf.join.ChunkedMaterializationOp;
 import com.bigdata.bop.rdf.join.DataSetJoin;
+import com.bigdata.bop.rdf.join.AccessPathMergeJoin;
+import com.bigdata.bop.rdf.join.LeapfrogTriejoinOp;
 import com.bigdata.bop.rdf.join.MockTermResolverOp;
 import com.bigdata.bop.rdf.join.VariableUnificationOp;
 import com.bigdata.bop.solutions.DropOp;
@@ -137,6 +140,7 @@ import com.bigdata.rdf.sparql.ast.IGroupNode;
 import com.bigdata.rdf.sparql.ast.ISolutionSetStats;
 import com.bigdata.rdf.sparql.ast.IValueExpressionNode;
 import com.bigdata.rdf.sparql.ast.JoinGroupNode;
+import com.bigdata.rdf.sparql.ast.JoinMethodEnum;
 import com.bigdata.rdf.sparql.ast.NamedSubqueriesNode;
 import com.bigdata.rdf.sparql.ast.NamedSubqueryInclude;
 import com.bigdata.rdf.sparql.ast.NamedSubqueryRoot;
@@ -162,8 +166,10 @@ import com.bigdata.rdf.sparql.ast.VarNode;
 import com.bigdata.rdf.sparql.ast.ZeroLengthPathNode;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTExistsOptimizer;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTJoinOrderByTypeOptimizer;
+import com.bigdata.rdf.sparql.ast.optimizers.ASTLeapfrogJoinOptimizer;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTNamedSubqueryOptimizer;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTSetValueExpressionsOptimizer;
+import com.bigdata.rdf.sparql.ast.optimizers.ASTStaticJoinOptimizer;
 import com.bigdata.rdf.sparql.ast.service.MockIVReturningServiceCall;
 import com.bigdata.rdf.sparql.ast.service.ServiceCall;
 import com.bigdata.rdf.sparql.ast.service.ServiceCallUtility;
@@ -325,6 +331,15 @@ public class AST2BOpUtility extends AST2BOpRTO {
                     ctx.queryEngineChunkHandler
                     );
 
+            if (ctx.analyticMaxMemoryPerQuery != QueryHints.DEFAULT_ANALYTIC_MAX_MEMORY_PER_QUERY) {
+
+                // Override the native memory limit for this query.
+                left = (PipelineOp) left.setProperty(
+                        QueryEngine.Annotations.MAX_MEMORY_PER_QUERY,
+                        ctx.analyticMaxMemoryPerQuery);
+
+            }
+
         }
 
         // Attach the query plan to the ASTContainer.
@@ -986,7 +1001,9 @@ public class AST2BOpUtility extends AST2BOpRTO {
                 new NV(HTreeNamedSubqueryOp.Annotations.SUBQUERY, subqueryPlan),//
                 new NV(HTreeNamedSubqueryOp.Annotations.JOIN_VARS, joinVars),//
                 new NV(NamedSetAnnotations.NAMED_SET_REF,
-                                namedSolutionSet)//
+                                namedSolutionSet),//
+                new NV(NamedSetAnnotations.JOIN_KEY_FILTER,
+                                ctx.joinKeyFilter)//
                 ), subqueryRoot, ctx);
         } else {
             left = applyQueryHints(new JVMNamedSubqueryOp(leftOrEmpty(left), //
@@ -999,7 +1016,9 @@ public class AST2BOpUtility extends AST2BOpRTO {
                     new NV(HTreeNamedSubqueryOp.Annotations.SUBQUERY, subqueryPlan),//
                     new NV(HTreeNamedSubqueryOp.Annotations.JOIN_VARS, joinVars),//
                     new NV(NamedSetAnnotations.NAMED_SET_REF,
-                                    namedSolutionSet)//
+                                    namedSolutionSet),//
+                    new NV(NamedSetAnnotations.JOIN_KEY_FILTER,
+                                    ctx.joinKeyFilter)//
                     ), subqueryRoot, ctx);
         }
 
@@ -1582,6 +1601,8 @@ public class AST2BOpUtility extends AST2BOpRTO {
                                     sourceSet),//
                             new NV(HashIndexOp.Annotations.NAMED_SET_REF,
                                     generatedSet),//
+                            new NV(HashIndexOp.Annotations.JOIN_KEY_FILTER,
+                                    ctx.joinKeyFilter),//
                             new NV(IPredicate.Annotations.RELATION_NAME, 
                                     new String[]{ctx.getLexiconNamespace()})
                         ), nsi, ctx);
@@ -3054,6 +3075,282 @@ public class AST2BOpUtility extends AST2BOpRTO {
 
     }
 
+    /**
+     * Return the {@link INamedSolutionSetRef}s for the hash indices against
+     * which the named subquery INCLUDEs in the group will be joined, indexed by
+     * the position of the INCLUDE in the group.
+     * <p>
+     * Note: Only INCLUDEs of a {@link NamedSubqueryRoot} are reported. Those
+     * hash indices (and their join key filters) are built before the main
+     * query runs. The hash index for a pre-existing named solution set is only
+     * built when the INCLUDE is evaluated, which is too late for the joins
+     * which precede that INCLUDE.
+     * 
+     * @param joinGroup
+     *            The group.
+     * @param start
+     *            The index of the first child to be considered.
+     * @param ctx
+     *            The evaluation context.
+     * 
+     * @return The {@link INamedSolutionSetRef}s -or- <code>null</code> if
+     *         there are no such INCLUDEs.
+     */
+    private static INamedSolutionSetRef[] getIncludeRefs(
+            final JoinGroupNode joinGroup, final int start,
+            final AST2BOpContext ctx) {
+
+        INamedSolutionSetRef[] refs = null;
+
+        final int arity = joinGroup.arity();
+
+        for (int i = start; i < arity; i++) {
+
+            final BOp child = joinGroup.get(i);
+
+            if (!(child instanceof NamedSubqueryInclude))
+                continue;
+
+            final NamedSubqueryInclude nsi = (NamedSubqueryInclude) child;
+
+            if (ctx.sa.getNamedSubqueryRoot(nsi.getName()) == null
+                    || nsi.getJoinVars() == null
+                    || nsi.getJoinVars().length == 0) {
+
+                // Not a named subquery or not a hash join.
+                continue;
+
+            }
+
+            if (refs == null)
+                refs = new INamedSolutionSetRef[arity];
+
+            refs[i] = NamedSolutionSetRefUtility.newInstance(ctx.queryId,
+                    nsi.getName(), ASTUtil.convert(nsi.getJoinVars()));
+
+        }
+
+        return refs;
+
+    }
+
+    /**
+     * Return the join key filters which may be applied to the solutions
+     * produced by a required statement pattern join. These are the hash
+     * indices of the INCLUDEs which follow that statement pattern in the group
+     * and whose join variables are used by that statement pattern. A solution
+     * which can not join with the hash index would be dropped by the INCLUDE
+     * anyway, so it may be dropped as soon as it is produced.
+     * 
+     * @param includeRefs
+     *            The hash indices for the INCLUDEs in the group.
+     * @param index
+     *            The position of the statement pattern in the group.
+     * @param sp
+     *            The statement pattern.
+     * 
+     * @return The join key filters -or- <code>null</code> if there are none.
+     * 
+     * @see #getIncludeRefs(JoinGroupNode, int, AST2BOpContext)
+     */
+    private static INamedSolutionSetRef[] getJoinKeyFilters(
+            final INamedSolutionSetRef[] includeRefs, final int index,
+            final StatementPatternNode sp) {
+
+        final Set<IVariable<?>> vars = sp.getProducedBindings();
+
+        final List<INamedSolutionSetRef> refs = new LinkedList<INamedSolutionSetRef>();
+
+        for (int i = index + 1; i < includeRefs.length; i++) {
+
+            final INamedSolutionSetRef ref = includeRefs[i];
+
+            if (ref == null)
+                continue;
+
+            for (IVariable<?> v : ref.getJoinVars()) {
+
+                if (vars.contains(v)) {
+
+                    refs.add(ref);
+
+                    break;
+
+                }
+
+            }
+
+        }
+
+        return refs.isEmpty() ? null : refs
+                .toArray(new INamedSolutionSetRef[refs.size()]);
+
+    }
+
+    /**
+     * Add a {@link LeapfrogTriejoinOp} for a cyclic sequence of required
+     * statement patterns. The join constraints of the statement patterns are
+     * applied to the solutions produced by the leapfrog triejoin.
+     * 
+     * @param left
+     * @param sps
+     *            The statement patterns (marked by the
+     *            {@link ASTLeapfrogJoinOptimizer}).
+     * @param doneSet
+     * @param ctx
+     * 
+     * @return The new pipeline -or- <code>null</code> if the statement
+     *         patterns require access path filters which are not supported by
+     *         the {@link LeapfrogTriejoinOp}, in which case they must be
+     *         handled as normal joins.
+     */
+    @SuppressWarnings("rawtypes")
+    private static PipelineOp addLeapfrogJoin(final PipelineOp left,
+            final List<StatementPatternNode> sps,
+            final Set<IVariable<?>> doneSet, final AST2BOpContext ctx) {
+
+        final List<IConstraint> constraints = new LinkedList<IConstraint>();
+
+        final IPredicate[] preds = toScanPredicates(sps, constraints, ctx);
+
+        if (preds == null)
+            return null;
+
+        final Map<IConstraint, Set<IVariable<IV>>> needsMaterialization = new LinkedHashMap<IConstraint, Set<IVariable<IV>>>();
+
+        PipelineOp op = new LeapfrogTriejoinOp(leftOrEmpty(left),//
+                new NV(BOp.Annotations.BOP_ID, ctx.nextId()),//
+                new NV(BOp.Annotations.EVALUATION_CONTEXT,
+                        BOpEvaluationContext.CONTROLLER),//
+                new NV(LeapfrogTriejoinOp.Annotations.PREDICATES, preds),//
+                new NV(LeapfrogTriejoinOp.Annotations.CONSTRAINTS,
+                        getJoinConstraints2(constraints, needsMaterialization,
+                                true/* conditionalRouting */))//
+        );
+
+        op = applyQueryHints(op, sps.get(0), ctx);
+
+        if (!needsMaterialization.isEmpty()) {
+
+            op = addMaterializationSteps3(op, doneSet, needsMaterialization,
+                    sps.get(0).getQueryHints(), ctx);
+
+        }
+
+        return op;
+
+    }
+
+    /**
+     * Add an {@link AccessPathMergeJoin} for two adjacent required statement
+     * patterns. The join constraints of the statement patterns are applied to
+     * the solutions produced by the merge join.
+     * 
+     * @param left
+     * @param sps
+     *            The two statement patterns (marked by the
+     *            {@link ASTStaticJoinOptimizer}).
+     * @param joinVar
+     *            The variable on which the access paths are merged.
+     * @param doneSet
+     * @param ctx
+     * 
+     * @return The new pipeline -or- <code>null</code> if the statement
+     *         patterns require access path filters which are not supported by
+     *         the {@link AccessPathMergeJoin}, in which case they must be
+     *         handled as normal joins.
+     */
+    @SuppressWarnings("rawtypes")
+    private static PipelineOp addAccessPathMergeJoin(final PipelineOp left,
+            final List<StatementPatternNode> sps, final IVariable<?> joinVar,
+            final Set<IVariable<?>> doneSet, final AST2BOpContext ctx) {
+
+        final List<IConstraint> constraints = new LinkedList<IConstraint>();
+
+        final IPredicate[] preds = toScanPredicates(sps, constraints, ctx);
+
+        if (preds == null)
+            return null;
+
+        final Map<IConstraint, Set<IVariable<IV>>> needsMaterialization = new LinkedHashMap<IConstraint, Set<IVariable<IV>>>();
+
+        PipelineOp op = new AccessPathMergeJoin(leftOrEmpty(left),//
+                new NV(BOp.Annotations.BOP_ID, ctx.nextId()),//
+                new NV(BOp.Annotations.EVALUATION_CONTEXT,
+                        BOpEvaluationContext.CONTROLLER),//
+                new NV(AccessPathMergeJoin.Annotations.PREDICATES, preds),//
+                new NV(AccessPathMergeJoin.Annotations.JOIN_VAR, joinVar),//
+                new NV(AccessPathMergeJoin.Annotations.CONSTRAINTS,
+                        getJoinConstraints2(constraints, needsMaterialization,
+                                true/* conditionalRouting */))//
+        );
+
+        op = applyQueryHints(op, sps.get(0), ctx);
+
+        if (!needsMaterialization.isEmpty()) {
+
+            op = addMaterializationSteps3(op, doneSet, needsMaterialization,
+                    sps.get(0).getQueryHints(), ctx);
+
+        }
+
+        return op;
+
+    }
+
+    /**
+     * Return the predicates for statement patterns which are evaluated by an
+     * operator which scans their access paths itself, such as the
+     * {@link LeapfrogTriejoinOp} or the {@link AccessPathMergeJoin}.
+     * 
+     * @param sps
+     *            The statement patterns.
+     * @param constraints
+     *            The join constraints of the statement patterns are added to
+     *            this list.
+     * @param ctx
+     * 
+     * @return The predicates -or- <code>null</code> if a statement pattern
+     *         requires an access path expander or filter.
+     */
+    @SuppressWarnings("rawtypes")
+    private static IPredicate[] toScanPredicates(
+            final List<StatementPatternNode> sps,
+            final List<IConstraint> constraints, final AST2BOpContext ctx) {
+
+        final IPredicate[] preds = new IPredicate[sps.size()];
+
+        int i = 0;
+
+        for (StatementPatternNode sp : sps) {
+
+            final Predicate<?> pred = toPredicate(sp, ctx);
+
+            if (pred.getProperty(IPredicate.Annotations.ACCESS_PATH_EXPANDER) != null
+                    || pred.getProperty(IPredicate.Annotations.INDEX_LOCAL_FILTER) != null
+                    || pred.getProperty(IPredicate.Annotations.ACCESS_PATH_FILTER) != null
+                    || pred.getProperty(IPredicate.Annotations.RANGE) != null) {
+
+                return null;
+
+            }
+
+            preds[i++] = pred.clearAnnotations(new String[] {
+                    AST2BOpJoins.Annotations.SCOPE,
+                    AST2BOpJoins.Annotations.QUADS,
+                    AST2BOpJoins.Annotations.DATASET });
+
+            final List<IConstraint> c = getJoinConstraints(sp);
+
+            if (c != null)
+                constraints.addAll(c);
+
+        }
+
+        return preds;
+
+    }
+
     /**
      * Join group consists of: statement patterns, constraints, and sub-groups
      * <p>
@@ -3221,8 +3518,35 @@ public class AST2BOpUtility extends AST2BOpRTO {
              * handled as part of normal join group processing below.
              */
 
+        } else if (QueryOptimizerEnum.Static.equals(joinGroup
+                .getQueryOptimizer())
+                && joinGroup.getProperty(QueryHints.REOPTIMIZE,
+                        QueryHints.DEFAULT_REOPTIMIZE)) {
+
+            /*
+             * Push the joins ordered by the static optimizer down into an
+             * AdaptiveJoinGraph, which will re-order the remaining joins if
+             * the cardinality estimates turn out to be wrong.
+             */
+            
+            left = convertAdaptiveJoinGraph(left, joinGroup, doneSet, ctx,
+                    start);
+            
+            /*
+             * Fall through. Anything not handled in this section will be
+             * handled as part of normal join group processing below.
+             */
+
         }
         
+        /*
+         * The hash indices for the named subquery INCLUDEs in the remainder of
+         * the group (if any). Their join key filters are pushed down onto the
+         * required statement pattern joins which precede those INCLUDEs.
+         */
+        final INamedSolutionSetRef[] includeRefs = ctx.joinKeyFilter ? getIncludeRefs(
+                joinGroup, start.get(), ctx) : null;
+
         /*
          * Translate the remainder of the group. 
          */
@@ -3231,6 +3555,55 @@ public class AST2BOpUtility extends AST2BOpRTO {
 
             final IGroupMemberNode child = (IGroupMemberNode) joinGroup.get(i);
 
+            if (child instanceof StatementPatternNode
+                    && ((StatementPatternNode) child).isLeapfrogJoin()) {
+                /*
+                 * A cyclic sequence of statement patterns which was marked by
+                 * the ASTLeapfrogJoinOptimizer.
+                 */
+                final List<StatementPatternNode> sps = new LinkedList<StatementPatternNode>();
+                for (int j = i; j < arity; j++) {
+                    final IGroupMemberNode t = (IGroupMemberNode) joinGroup
+                            .get(j);
+                    if (!(t instanceof StatementPatternNode)
+                            || !((StatementPatternNode) t).isLeapfrogJoin())
+                        break;
+                    sps.add((StatementPatternNode) t);
+                }
+                final PipelineOp tmp = addLeapfrogJoin(left, sps, doneSet, ctx);
+                if (tmp != null) {
+                    left = tmp;
+                    i += sps.size() - 1;
+                    continue;
+                }
+                // Fall through.
+            }
+            if (child instanceof StatementPatternNode
+                    && ((StatementPatternNode) child).getMergeJoinVar() != null
+                    && i + 1 < arity
+                    && joinGroup.get(i + 1) instanceof StatementPatternNode) {
+                /*
+                 * Two statement patterns which were marked by the
+                 * ASTStaticJoinOptimizer for an access path merge join.
+                 */
+                final StatementPatternNode sp = (StatementPatternNode) child;
+                final StatementPatternNode sp2 = (StatementPatternNode) joinGroup
+                        .get(i + 1);
+                final IVariable<?> joinVar = sp.getMergeJoinVar();
+                if (joinVar.equals(sp2.getMergeJoinVar())) {
+                    final List<StatementPatternNode> sps = new LinkedList<StatementPatternNode>();
+                    sps.add(sp);
+                    sps.add(sp2);
+                    final PipelineOp tmp = addAccessPathMergeJoin(left, sps,
+                            joinVar, doneSet, ctx);
+                    if (tmp != null) {
+                        left = tmp;
+                        i++;
+                        continue;
+                    }
+                }
+                // Fall through.
+            }
             if (child instanceof StatementPatternNode) {
                 final StatementPatternNode sp = (StatementPatternNode) child;
                 /*
@@ -3242,8 +3615,17 @@ public class AST2BOpUtility extends AST2BOpRTO {
                  * Note: This winds up handling materialization steps as well
                  * (it calls through to Rule2BOpUtility).
                  */
-                final Predicate<?> pred = toPredicate(sp, ctx);
+                Predicate<?> pred = toPredicate(sp, ctx);
                 final boolean optional = sp.isOptional();
+                if (!optional && includeRefs != null) {
+                    final INamedSolutionSetRef[] refs = getJoinKeyFilters(
+                            includeRefs, i, sp);
+                    if (refs != null) {
+                        pred = (Predicate<?>) pred.setProperty(
+                                PipelineJoin.Annotations.JOIN_KEY_FILTERS,
+                                refs);
+                    }
+                }
                 left = join(left, //
                         pred,//
                         optional ? new LinkedHashSet<IVariable<?>>(doneSet)
@@ -4977,6 +5359,15 @@ public class AST2BOpUtility extends AST2BOpRTO {
         anns.add(new NV(Annotations.ORIGINAL_INDEX,
                 sp.getProperty(Annotations.ORIGINAL_INDEX)));
 
+        // Propagate the join method chosen by the static join optimizer.
+        final JoinMethodEnum joinMethod = sp.getJoinMethod();
+        if (joinMethod != null) {
+            anns.add(new NV(StatementPatternNode.Annotations.JOIN_METHOD,
+                    joinMethod));
+            anns.add(new NV(Annotations.ESTIMATED_INPUT_CARDINALITY,
+                    sp.getProperty(Annotations.ESTIMATED_INPUT_CARDINALITY)));
+        }
+
         /*
          * BufferAnnotations are used by all PipelineOps to control their
          * vectoring. However, some BufferAnnotations are *also* used by the
@@ -5074,9 +5465,9 @@ public class AST2BOpUtility extends AST2BOpRTO {
 
         final Properties queryHints = sp.getQueryHints();
         
-        if (queryHints != null
-                && Boolean.parseBoolean(queryHints.getProperty(
-                        QueryHints.HASH_JOIN, "false"))) {
+        if ((queryHints != null && Boolean.parseBoolean(queryHints
+                .getProperty(QueryHints.HASH_JOIN, "false")))
+                || (joinMethod != null && joinMethod.isHashJoin())) {
 
             /*
              * Use a hash join for this predicate.
@@ -52,16 +52,22 @@ import com.bigdata.bop.IVariable;
 import com.bigdata.bop.IVariableOrConstant;
 import com.bigdata.bop.ap.filter.DistinctFilter;
 import com.bigdata.bop.rdf.filter.NativeDistinctFilter;
+import com.bigdata.btree.keys.IKeyBuilder;
+import com.bigdata.io.ByteArrayBuffer;
+import com.bigdata.io.DataOutputBuffer;
 import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.IVUtility;
 import com.bigdata.rdf.internal.impl.bnode.SidIV;
 import com.bigdata.rdf.model.BigdataBNode;
 import com.bigdata.rdf.model.BigdataQuadWrapper;
 import com.bigdata.rdf.model.BigdataStatement;
 import com.bigdata.rdf.model.BigdataValue;
 import com.bigdata.rdf.model.BigdataValueFactory;
+import com.bigdata.rdf.model.BigdataValueSerializer;
 import com.bigdata.rdf.sparql.ast.ConstantNode;
 import com.bigdata.rdf.sparql.ast.ConstructNode;
 import com.bigdata.rdf.sparql.ast.GraphPatternGroup;
+import com.bigdata.rdf.sparql.ast.QueryHints;
 import com.bigdata.rdf.sparql.ast.StatementPatternNode;
 import com.bigdata.rdf.sparql.ast.StaticAnalysis;
 import com.bigdata.rdf.sparql.ast.TermNode;
@@ -102,6 +108,14 @@ public class ASTConstructIterator implements
      */
     private final boolean constructDistinctSPO;
 
+    /**
+     * When <code>true</code>, only a bounded number of constructed statements
+     * will be retained on the JVM heap by the DISTINCT SPO filter.
+     * 
+     * @see QueryHints#CONSTRUCT_STREAMING
+     */
+    private final boolean constructStreaming;
+
     private final BigdataValueFactory f;
 
     /**
@@ -241,6 +255,8 @@ public class ASTConstructIterator implements
 
         this.constructDistinctSPO = context.constructDistinctSPO;
         
+        this.constructStreaming = context.constructStreaming;
+        
         this.f = tripleStore.getValueFactory();
 
         // Note: MAY be null (MUST be null for CONSTRUCT).
@@ -313,7 +329,8 @@ public class ASTConstructIterator implements
          */
 
 		final boolean distinctQuads = construct.isDistinctQuads() && tripleStore.isQuads() && hasMixedQuadData(templates);
-		final boolean nativeDistinct = construct.isNativeDistinct();
+		final boolean nativeDistinct = construct.isNativeDistinct()
+				|| constructStreaming;
 		
         if (!constructDistinctSPO) {
             /**
@@ -322,6 +339,15 @@ public class ASTConstructIterator implements
              * 
              * @see BLZG-1341.
              */
+            if (constructStreaming
+                    && !isObviouslyDistinct(tripleStore.isQuads(), templates,
+                            whereClause)) {
+                /*
+                 * Streaming CONSTRUCT. Duplicates are only eliminated within a
+                 * bounded window of recently constructed statements.
+                 */
+                return new ReducedFilter(distinctQuads);
+            }
             // No filter will be imposed.
             return null;
         }
@@ -366,14 +392,15 @@ public class ASTConstructIterator implements
 	}
 
 	/**
-	 * FIXME NATIVE DISTINCT : This needs to create a filter using a HTree to
-	 * impose a scalable distinct.  
+	 * Native memory DISTINCT filter for quads. The context position is part of
+	 * the key.
 	 * 
      * @see <a href="https://jira.blazegraph.com/browse/BLZG-260"> native
      *      distinct in quad mode (insert/delete) </a>
 	 */
 	private IFilterTest createNativeDistinctQuadsFilter(final ConstructNode construct) {
-		return createHashDistinctQuadsFilter(construct);
+		setFilterKeyOrder(construct);
+		return new NativeDistinctStatementFilter(construct, f, true/* quads */);
 	}
 
 	@SuppressWarnings("serial")
@@ -410,6 +437,12 @@ public class ASTConstructIterator implements
 	}
 
 	private IFilterTest createNativeDistinctTripleFilter(final ConstructNode construct) {
+		setFilterKeyOrder(construct);
+		// Native memory based DISTINCT filter.
+		return new NativeDistinctStatementFilter(construct, f, false/* quads */);
+	}
+
+	private void setFilterKeyOrder(final ConstructNode construct) {
 		/*
 		 * Construct a predicate for the first triple template. We will
 		 * use that as the bias for the scalable DISTINCT SPO filter.
@@ -455,9 +488,6 @@ public class ASTConstructIterator implements
 		construct.setProperty(
 		        NativeDistinctFilter.Annotations.KEY_ORDER,
 		        indexKeyOrder);
-
-		// Native memory based DISTINCT filter.
-		return new NativeDistinctFilter.DistinctFilterImpl(construct);
 	}
     
     /**
@@ -1056,4 +1086,164 @@ public class ASTConstructIterator implements
 
     }
     
+
+    /**
+     * A native memory DISTINCT filter for the constructed statements. The
+     * constructed statements do not always have {@link IV}s (blank nodes are
+     * created for each solution and computed values can have mock {@link IV}s),
+     * so the keys are formed from the serialized RDF Values rather than from
+     * the {@link IV}s. Only a bounded number of recently constructed
+     * statements are retained on the JVM heap.
+     */
+    // Note: package private to expose to test suite.
+    static class NativeDistinctStatementFilter extends
+            NativeDistinctFilter.DistinctFilterImpl {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * When <code>true</code>, the context position is part of the key.
+         */
+        private final boolean quads;
+
+        private final BigdataValueSerializer<BigdataValue> valueSer;
+
+        private final DataOutputBuffer out = new DataOutputBuffer(128);
+
+        private final ByteArrayBuffer tmp = new ByteArrayBuffer(128);
+
+        NativeDistinctStatementFilter(final ConstructNode construct,
+                final BigdataValueFactory f, final boolean quads) {
+
+            super(construct);
+
+            this.quads = quads;
+
+            this.valueSer = f.getValueSerializer();
+
+        }
+
+        @Override
+        protected Object getLRUKey(final ISPO spo) {
+
+            return quads ? new BigdataQuadWrapper((BigdataStatement) spo)
+                    : spo;
+
+        }
+
+        @Override
+        protected void encodeKey(final IKeyBuilder keyBuilder, final ISPO spo) {
+
+            final BigdataStatement stmt = (BigdataStatement) spo;
+
+            for (int i = 0; i < 3; i++) {
+
+                switch (filterKeyOrder[i]) {
+                case 0:
+                    encodeValue(keyBuilder, stmt.getSubject());
+                    break;
+                case 1:
+                    encodeValue(keyBuilder, stmt.getPredicate());
+                    break;
+                case 2:
+                    encodeValue(keyBuilder, stmt.getObject());
+                    break;
+                default:
+                    throw new AssertionError();
+                }
+
+            }
+
+            if (quads) {
+
+                encodeValue(keyBuilder, stmt.getContext());
+
+            }
+
+        }
+
+        private void encodeValue(final IKeyBuilder keyBuilder,
+                final BigdataValue v) {
+
+            if (v == null) {
+
+                keyBuilder.append((byte) 0);
+
+            } else if (v.getIV() instanceof SidIV) {
+
+                // Statement about a statement (RDR).
+                keyBuilder.append((byte) 1);
+
+                IVUtility.encode(keyBuilder, v.getIV());
+
+            } else {
+
+                out.reset();
+
+                valueSer.serialize2(v, out, tmp);
+
+                keyBuilder.append((byte) 2);
+
+                keyBuilder.append(out.pos());
+
+                keyBuilder.append(out.array(), 0, out.pos());
+
+            }
+
+        }
+
+    }
+
+    /**
+     * A filter which eliminates duplicate statements within a bounded window
+     * of recently constructed statements. This is used for a streaming
+     * CONSTRUCT when the DISTINCT SPO semantics were disabled, so nearby
+     * duplicates are still dropped without retaining the constructed graph.
+     * 
+     * @see QueryHints#CONSTRUCT_STREAMING
+     */
+    // Note: package private to expose to test suite.
+    static class ReducedFilter implements IFilterTest {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The maximum #of statements in the window.
+         */
+        private static final int capacity = NativeDistinctFilter.Annotations.DEFAULT_INITIAL_CAPACITY;
+
+        /**
+         * When <code>true</code>, the context position is considered.
+         */
+        private final boolean quads;
+
+        private final LinkedHashMap<Object, Object> window;
+
+        @SuppressWarnings("serial")
+        ReducedFilter(final boolean quads) {
+
+            this.quads = quads;
+
+            this.window = new LinkedHashMap<Object, Object>(capacity) {
+                @Override
+                protected boolean removeEldestEntry(
+                        final Map.Entry<Object, Object> eldest) {
+                    return size() > capacity;
+                }
+            };
+
+        }
+
+        @Override
+        public boolean isValid(final Object o) {
+
+            final Object key = quads ? new BigdataQuadWrapper(
+                    (BigdataStatement) o) : o;
+
+            return window.put(key, key) == null;
+
+        }
+
+    }
+
 }
@@ -75,6 +75,8 @@ public class ASTSearchOptimizer extends ASTSearchOptimizerBase {
         set.add(BDS.MIN_RELEVANCE);
         set.add(BDS.MATCH_ALL_TERMS);
         set.add(BDS.MATCH_EXACT);
+        set.add(BDS.MATCH_PHRASE);
+        set.add(BDS.PROXIMITY);
         set.add(BDS.SUBJECT_SEARCH);
         set.add(BDS.SEARCH_TIMEOUT);
         set.add(BDS.MATCH_REGEX);
@@ -0,0 +1,286 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+
+package com.bigdata.rdf.sparql.ast.eval;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openrdf.model.Literal;
+import org.openrdf.model.URI;
+
+import com.bigdata.bop.BOp;
+import com.bigdata.bop.Constant;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IVariable;
+import com.bigdata.bop.bindingSet.ListBindingSet;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.impl.literal.XSDNumericIV;
+import com.bigdata.rdf.model.BigdataValueFactory;
+import com.bigdata.rdf.sparql.ast.ConstantNode;
+import com.bigdata.rdf.sparql.ast.DummyConstantNode;
+import com.bigdata.rdf.sparql.ast.GroupNodeBase;
+import com.bigdata.rdf.sparql.ast.IGroupMemberNode;
+import com.bigdata.rdf.sparql.ast.StatementPatternNode;
+import com.bigdata.rdf.sparql.ast.TermNode;
+import com.bigdata.rdf.sparql.ast.VarNode;
+import com.bigdata.rdf.sparql.ast.service.BigdataNativeServiceOptions;
+import com.bigdata.rdf.sparql.ast.service.BigdataServiceCall;
+import com.bigdata.rdf.sparql.ast.service.IServiceOptions;
+import com.bigdata.rdf.sparql.ast.service.ServiceCallCreateParams;
+import com.bigdata.rdf.sparql.ast.service.ServiceNode;
+import com.bigdata.rdf.store.AbstractTripleStore;
+import com.bigdata.rdf.store.BDS;
+import com.bigdata.relation.accesspath.ThickCloseableIterator;
+import com.bigdata.search.CompletionTrie;
+import com.bigdata.search.FullTextIndex;
+
+import cutthecrap.utils.striterators.ICloseableIterator;
+
+/**
+ * A factory for the prefix completion service. It accepts a group having
+ * {@link BDS#COMPLETION} and optionally {@link BDS#COMPLETION_WEIGHT} and
+ * {@link BDS#MAX_COMPLETIONS} triple patterns for a single variable:
+ * 
+ * <pre>
+ * service bds:completion {
+ *   ?c bds:completion "scale-out tri" .
+ *   ?c bds:completionWeight ?w .
+ *   ?c bds:maxCompletions "5" .
+ * }
+ * </pre>
+ * 
+ * The last token in the literal is completed against the tokens in the full
+ * text index using the in-memory {@link CompletionTrie} and the completions
+ * are bound (as plain literals) to the variable in descending weight order.
+ * The completion index must be enabled using
+ * {@link FullTextIndex.Options#COMPLETION_INDEX}.
+ * 
+ * @see FullTextIndex#complete(String, String, int)
+ */
+public class CompletionServiceFactory extends AbstractServiceFactoryBase {
+
+    private final BigdataNativeServiceOptions serviceOptions;
+
+    public CompletionServiceFactory() {
+
+        serviceOptions = new BigdataNativeServiceOptions();
+
+        serviceOptions.setRunFirst(true);
+
+    }
+
+    @Override
+    public BigdataNativeServiceOptions getServiceOptions() {
+
+        return serviceOptions;
+
+    }
+
+    @Override
+    public BigdataServiceCall create(final ServiceCallCreateParams params) {
+
+        if (params == null)
+            throw new IllegalArgumentException();
+
+        final AbstractTripleStore store = params.getTripleStore();
+
+        if (store == null)
+            throw new IllegalArgumentException();
+
+        final ServiceNode serviceNode = params.getServiceNode();
+
+        if (serviceNode == null)
+            throw new IllegalArgumentException();
+
+        IVariable<?> completionVar = null;
+
+        final Map<URI, StatementPatternNode> statementPatterns = new LinkedHashMap<URI, StatementPatternNode>();
+
+        final GroupNodeBase<IGroupMemberNode> group = serviceNode
+                .getGraphPattern();
+
+        for (int i = 0; i < group.arity(); i++) {
+
+            final BOp child = group.get(i);
+
+            if (!(child instanceof StatementPatternNode))
+                throw new RuntimeException("Expecting completion predicate: "
+                        + child);
+
+            final StatementPatternNode sp = (StatementPatternNode) child;
+
+            final TermNode p = sp.p();
+
+            if (!p.isConstant())
+                throw new RuntimeException("Expecting completion predicate: "
+                        + sp);
+
+            final URI uri = (URI) ((ConstantNode) p).getValue();
+
+            if (!BDS.COMPLETION.equals(uri)
+                    && !BDS.COMPLETION_WEIGHT.equals(uri)
+                    && !BDS.MAX_COMPLETIONS.equals(uri))
+                throw new RuntimeException("Unknown completion predicate: "
+                        + uri);
+
+            if (!sp.s().isVariable())
+                throw new RuntimeException(
+                        "Subject of completion predicate is constant: " + sp);
+
+            final IVariable<?> var = ((VarNode) sp.s()).getValueExpression();
+
+            if (completionVar == null)
+                completionVar = var;
+            else if (!completionVar.equals(var))
+                throw new RuntimeException(
+                        "Multiple completion requests may not be combined.");
+
+            if (statementPatterns.put(uri, sp) != null)
+                throw new RuntimeException(
+                        "Completion predicate appears multiple times: " + uri);
+
+            if (BDS.COMPLETION_WEIGHT.equals(uri)) {
+
+                if (!sp.o().isVariable())
+                    throw new IllegalArgumentException(
+                            "Object must be variable: " + sp);
+
+            } else if (!sp.o().isConstant()
+                    || !(((ConstantNode) sp.o()).getValue() instanceof Literal)) {
+
+                throw new IllegalArgumentException("Object is not literal: "
+                        + sp);
+
+            }
+
+        }
+
+        if (!statementPatterns.containsKey(BDS.COMPLETION))
+            throw new RuntimeException("Required completion predicate not found: "
+                    + BDS.COMPLETION);
+
+        final Literal prefix = (Literal) statementPatterns.get(BDS.COMPLETION)
+                .o().getValue();
+
+        final IVariable<?> weightVar = statementPatterns
+                .containsKey(BDS.COMPLETION_WEIGHT) ? ((VarNode) statementPatterns
+                .get(BDS.COMPLETION_WEIGHT).o()).getValueExpression() : null;
+
+        final int maxCompletions = statementPatterns
+                .containsKey(BDS.MAX_COMPLETIONS) ? ((Literal) statementPatterns
+                .get(BDS.MAX_COMPLETIONS).o().getValue()).intValue()
+                : BDS.DEFAULT_MAX_COMPLETIONS;
+
+        return new CompletionCall(store, completionVar, weightVar, prefix,
+                maxCompletions, getServiceOptions());
+
+    }
+
+    /**
+     * Note: This has the {@link AbstractTripleStore} reference attached. This
+     * is not a {@link Serializable} object. It MUST run on the query
+     * controller.
+     */
+    private static class CompletionCall implements BigdataServiceCall {
+
+        private final AbstractTripleStore store;
+        private final IVariable<?> completionVar;
+        private final IVariable<?> weightVar;
+        private final Literal prefix;
+        private final int maxCompletions;
+        private final IServiceOptions serviceOptions;
+
+        public CompletionCall(final AbstractTripleStore store,
+                final IVariable<?> completionVar,
+                final IVariable<?> weightVar, final Literal prefix,
+                final int maxCompletions,
+                final IServiceOptions serviceOptions) {
+
+            this.store = store;
+            this.completionVar = completionVar;
+            this.weightVar = weightVar;
+            this.prefix = prefix;
+            this.maxCompletions = maxCompletions;
+            this.serviceOptions = serviceOptions;
+
+        }
+
+        @Override
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        public ICloseableIterator<IBindingSet> call(
+                final IBindingSet[] bindingsClause) {
+
+            final Object textIndex = store.getLexiconRelation()
+                    .getSearchEngine();
+
+            if (!(textIndex instanceof FullTextIndex))
+                throw new UnsupportedOperationException(
+                        "No completion index?");
+
+            final List<CompletionTrie.Completion> completions = ((FullTextIndex<?>) textIndex)
+                    .complete(prefix.getLabel(), prefix.getLanguage(),
+                            maxCompletions);
+
+            final BigdataValueFactory vf = store.getValueFactory();
+
+            final IBindingSet[] a = new IBindingSet[completions.size()];
+
+            int i = 0;
+
+            for (CompletionTrie.Completion c : completions) {
+
+                final IBindingSet bs = new ListBindingSet();
+
+                bs.set(completionVar, new Constant<IV>(
+                        DummyConstantNode.toDummyIV(vf.createLiteral(c
+                                .getToken()))));
+
+                if (weightVar != null)
+                    bs.set(weightVar, new Constant<IV>(new XSDNumericIV(c
+                            .getWeight())));
+
+                a[i++] = bs;
+
+            }
+
+            return new ThickCloseableIterator<IBindingSet>(a);
+
+        }
+
+        @Override
+        public IServiceOptions getServiceOptions() {
+
+            return serviceOptions;
+
+        }
+
+    }
+
+}
@@ -296,6 +296,14 @@ public class SearchServiceFactory extends AbstractServiceFactoryBase {
                 
                 assertObjectIsLiteral(sp);
                 
+            } else if(uri.equals(BDS.MATCH_PHRASE)) {
+                
+                assertObjectIsLiteral(sp);
+                
+            } else if(uri.equals(BDS.PROXIMITY)) {
+                
+                assertObjectIsLiteral(sp);
+                
             } else if(uri.equals(BDS.SUBJECT_SEARCH)) {
                 
                 assertObjectIsLiteral(sp);
@@ -372,6 +380,8 @@ public class SearchServiceFactory extends AbstractServiceFactoryBase {
         private final Literal maxRelevance;
         private final boolean matchAllTerms;
         private final boolean matchExact;
+        private final boolean matchPhrase;
+        private final Literal proximity;
         /**
 		 * @deprecated Feature was never completed due to scalability issues.
 		 * See BZLG-1548, BLZG-563.
@@ -436,6 +446,8 @@ public class SearchServiceFactory extends AbstractServiceFactoryBase {
             Literal maxRelevance = null;
             boolean matchAllTerms = false;
             boolean matchExact = false;
+            boolean matchPhrase = false;
+            Literal proximity = null;
             boolean subjectSearch = false;
             Literal searchTimeout = null;
             Literal matchRegex = null;
@@ -468,6 +480,10 @@ public class SearchServiceFactory extends AbstractServiceFactoryBase {
                     matchAllTerms = ((Literal) oVal).booleanValue();
                 } else if (BDS.MATCH_EXACT.equals(p)) {
                     matchExact = ((Literal) oVal).booleanValue();
+                } else if (BDS.MATCH_PHRASE.equals(p)) {
+                    matchPhrase = ((Literal) oVal).booleanValue();
+                } else if (BDS.PROXIMITY.equals(p)) {
+                    proximity = (Literal) oVal;
                 } else if (BDS.SUBJECT_SEARCH.equals(p)) {
                     subjectSearch = ((Literal) oVal).booleanValue();
                 } else if (BDS.SEARCH_TIMEOUT.equals(p)) {
@@ -498,6 +514,8 @@ public class SearchServiceFactory extends AbstractServiceFactoryBase {
             this.maxRelevance = maxRelevance;
             this.matchAllTerms = matchAllTerms;
             this.matchExact = matchExact;
+            this.matchPhrase = matchPhrase;
+            this.proximity = proximity;
             this.subjectSearch = subjectSearch;
             this.searchTimeout = searchTimeout;
             this.matchRegex = matchRegex;
@@ -540,7 +558,9 @@ public class SearchServiceFactory extends AbstractServiceFactoryBase {
                 minRank == null ? BDS.DEFAULT_MIN_RANK/*1*/ : minRank.intValue()/* minRank */,
                 maxRank == null ? BDS.DEFAULT_MAX_RANK/*Integer.MAX_VALUE*/ : maxRank.intValue()/* maxRank */,
                 searchTimeout == null ? BDS.DEFAULT_TIMEOUT/*0L*/ : searchTimeout.longValue()/* timeout */,
-                TimeUnit.MILLISECONDS
+                TimeUnit.MILLISECONDS,
+                matchPhrase,
+                proximity == null ? BDS.DEFAULT_PROXIMITY/*Integer.MAX_VALUE*/ : proximity.intValue()/* proximity */
                 ));
         
         }
@@ -580,7 +600,9 @@ public class SearchServiceFactory extends AbstractServiceFactoryBase {
                 minRank == null ? BDS.DEFAULT_MIN_RANK/*1*/ : minRank.intValue()/* minRank */,
                 maxRank == null ? BDS.DEFAULT_MAX_RANK/*Integer.MAX_VALUE*/ : maxRank.intValue()/* maxRank */,
                 searchTimeout == null ? BDS.DEFAULT_TIMEOUT/*0L*/ : searchTimeout.longValue()/* timeout */,
-                TimeUnit.MILLISECONDS
+                TimeUnit.MILLISECONDS,
+                matchPhrase,
+                proximity == null ? BDS.DEFAULT_PROXIMITY/*Integer.MAX_VALUE*/ : proximity.intValue()/* proximity */
                 ));
         
         }
@@ -101,6 +101,9 @@ public class QueryHintRegistry {
         add(new RTOSampleTypeQueryHint());
         add(new RTOLimitQueryHint());
         add(new RTONEdgesQueryHint());
+        add(new RTOMaxSamplingTimeQueryHint());
+        add(new ReoptimizeQueryHint());
+        add(new ReoptimizeErrorFactorQueryHint());
         add(new OptimisticQueryHint());
         add(new NormalizeFilterExpressionHint());
 
@@ -129,6 +132,7 @@ public class QueryHintRegistry {
 
         // CONSTRUCT
         add(new ConstructDistinctSPOHint());
+        add(new ConstructStreamingHint());
         
         /*
          * BufferAnnotations
@@ -184,6 +188,18 @@ public class QueryHintRegistry {
          * Selectively enable/disbale usage of pipelined hash joins.
          */
         add(new PipelinedHashJoinHint());
+
+        /*
+         * Enable/disable join key filters for hash joins against named
+         * solution sets.
+         */
+        add(new JoinKeyFilterHint());
+        add(new LeapfrogJoinHint());
+        add(new AccessPathMergeJoinThresholdHint());
+        add(new HashJoinThresholdHint());
+        add(new NativeHashJoinThresholdHint());
+        add(new AnalyticMaxMemoryPerQueryHint());
+        add(new WorkloadClassHint());
         
         /*
          * Disable default graph distinct filter
@@ -0,0 +1,91 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+
+package com.bigdata.rdf.sparql.ast.hints;
+
+import com.bigdata.bop.joinGraph.rto.AdaptiveJoinGraph;
+import com.bigdata.rdf.sparql.ast.ASTBase;
+import com.bigdata.rdf.sparql.ast.JoinGroupNode;
+import com.bigdata.rdf.sparql.ast.QueryHints;
+import com.bigdata.rdf.sparql.ast.QueryRoot;
+import com.bigdata.rdf.sparql.ast.eval.AST2BOpContext;
+
+/**
+ * The query hint governing the error factor in the cardinality estimates
+ * which will cause the remaining joins in a join group to be re-ordered at
+ * runtime.
+ * 
+ * @see AdaptiveJoinGraph
+ * @see QueryHints#REOPTIMIZE_ERROR_FACTOR
+ */
+final class ReoptimizeErrorFactorQueryHint extends AbstractDoubleQueryHint {
+
+    public ReoptimizeErrorFactorQueryHint() {
+        super(QueryHints.REOPTIMIZE_ERROR_FACTOR,
+                QueryHints.DEFAULT_REOPTIMIZE_ERROR_FACTOR);
+    }
+
+    @Override
+    public Double validate(final String value) {
+
+        final double d;
+        try {
+            d = Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a double value: hint="
+                    + getName() + ", value=" + value);
+        }
+
+        if (!(d > 1d))
+            throw new IllegalArgumentException("Must be greater than one: hint="
+                    + getName() + ", value=" + value);
+
+        return d;
+
+    }
+
+    @Override
+    public void handle(final AST2BOpContext ctx,
+            final QueryRoot queryRoot,
+            final QueryHintScope scope,
+            final ASTBase op, final Double value) {
+
+        switch (scope) {
+        case Group:
+        case GroupAndSubGroups:
+        case Query:
+        case SubQuery:
+            if (op instanceof JoinGroupNode) {
+                _setAnnotation(ctx, scope, op, getName(), value);
+            }
+            return;
+        }
+        throw new QueryHintException(scope, op, getName(), value);
+
+    }
+
+}
@@ -24,19 +24,26 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 
 package com.bigdata.rdf.sparql.ast.optimizers;
 
+import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.log4j.Logger;
 
 import com.bigdata.bop.IBindingSet;
+import com.bigdata.rdf.internal.IV;
 import com.bigdata.rdf.sparql.ast.ArbitraryLengthPathNode;
 import com.bigdata.rdf.sparql.ast.IBindingProducerNode;
 import com.bigdata.rdf.sparql.ast.IGroupMemberNode;
 import com.bigdata.rdf.sparql.ast.JoinGroupNode;
+import com.bigdata.rdf.sparql.ast.StatementPatternNode;
 import com.bigdata.rdf.sparql.ast.StaticAnalysis;
 import com.bigdata.rdf.sparql.ast.UnionNode;
+import com.bigdata.rdf.sparql.ast.VarNode;
 import com.bigdata.rdf.sparql.ast.eval.AST2BOpContext;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTStaticJoinOptimizer.Annotations;
+import com.bigdata.rdf.spo.CharacteristicSets;
 
 /**
  * Calculate the estimated cardinality of a join group.
@@ -154,14 +161,75 @@ public class ASTCardinalityOptimizer extends AbstractJoinGroupOptimizer
 		} else {
 		    
 		    /*
+		     * A star join on a subject variable is estimated from the
+		     * characteristic sets (when they are maintained).
+		     * 
 		     * TODO Calculate estimated cardinality according to logic in
 		     * ASTStaticJoinOptimizer.
 		     */
 		    
+		    final CharacteristicSets csets = StaticOptimizer
+		            .getCharacteristicSets(ctx);
+		    
+		    final long cardinality = csets == null ? -1L : estimateStar(
+		            csets, nodes);
+		    
+		    if (cardinality != -1L) {
+		        
+		        if (log.isDebugEnabled()) {
+		            log.debug("setting cardinality on a star join group: " + cardinality);
+		        }
+		        
+		        group.setProperty(Annotations.ESTIMATED_CARDINALITY, cardinality);
+		        
+		    }
+		    
 		}
 		
 //		group.setProperty(Annotations.ESTIMATED_CARDINALITY, cardinality);
         
     }
+
+    /**
+     * Return the estimated cardinality of a star join -or- <code>-1L</code>
+     * unless the nodes are statement patterns having the same subject
+     * variable, constant predicates and distinct object variables.
+     */
+    private static long estimateStar(final CharacteristicSets csets,
+            final List<IBindingProducerNode> nodes) {
+
+        String subject = null;
+
+        final Set<String> objects = new HashSet<String>();
+
+        final List<IV<?, ?>> predicates = new LinkedList<IV<?, ?>>();
+
+        for (IBindingProducerNode node : nodes) {
+
+            final IV<?, ?> p = StaticOptimizer.getStarPredicate(node);
+
+            if (p == null)
+                return -1L;
+
+            final StatementPatternNode sp = (StatementPatternNode) node;
+
+            final String s = ((VarNode) sp.s()).getValueExpression().getName();
+
+            if (subject == null) {
+                subject = s;
+            } else if (!subject.equals(s)) {
+                return -1L;
+            }
+
+            if (!objects.add(((VarNode) sp.o()).getValueExpression().getName()))
+                return -1L;
+
+            predicates.add(p);
+
+        }
+
+        return csets.estimateStar(predicates);
+
+    }
 	
 }
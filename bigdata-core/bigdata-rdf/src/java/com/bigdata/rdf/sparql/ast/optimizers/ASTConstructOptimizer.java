@@ -38,6 +38,7 @@ import com.bigdata.rdf.sparql.ast.IQueryNode;
 import com.bigdata.rdf.sparql.ast.JoinGroupNode;
 import com.bigdata.rdf.sparql.ast.OrderByNode;
 import com.bigdata.rdf.sparql.ast.ProjectionNode;
+import com.bigdata.rdf.sparql.ast.QueryHints;
 import com.bigdata.rdf.sparql.ast.QueryNodeWithBindingSet;
 import com.bigdata.rdf.sparql.ast.QueryRoot;
 import com.bigdata.rdf.sparql.ast.QueryType;
@@ -141,10 +142,11 @@ public class ASTConstructOptimizer implements IASTOptimizer {
 
         }
 
-        if (context.nativeDistinctSPO) {
+        if (context.nativeDistinctSPO || context.constructStreaming) {
 
             /**
              * 
+             * @see QueryHints#CONSTRUCT_STREAMING
              * @see <a
              *      href="https://sourceforge.net/apps/trac/bigdata/ticket/579">
              *      CONSTRUCT should apply DISTINCT (s,p,o) filter </a>
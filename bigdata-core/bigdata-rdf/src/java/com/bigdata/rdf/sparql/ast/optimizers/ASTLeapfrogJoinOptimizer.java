@@ -0,0 +1,349 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+
+package com.bigdata.rdf.sparql.ast.optimizers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IVariable;
+import com.bigdata.bop.rdf.join.LeapfrogTriejoinOp;
+import com.bigdata.rdf.sparql.ast.FilterNode;
+import com.bigdata.rdf.sparql.ast.IGroupMemberNode;
+import com.bigdata.rdf.sparql.ast.JoinGroupNode;
+import com.bigdata.rdf.sparql.ast.QueryHints;
+import com.bigdata.rdf.sparql.ast.QueryOptimizerEnum;
+import com.bigdata.rdf.sparql.ast.StatementPatternNode;
+import com.bigdata.rdf.sparql.ast.StaticAnalysis;
+import com.bigdata.rdf.sparql.ast.TermNode;
+import com.bigdata.rdf.sparql.ast.eval.AST2BOpContext;
+
+/**
+ * Identifies a cyclic basic graph pattern (such as a triangle) in the leading
+ * sequence of required statement patterns of a join group and marks those
+ * statement patterns for evaluation by a {@link LeapfrogTriejoinOp}. The
+ * marked statement patterns are moved to the head of that sequence. Their
+ * relative order is not changed, so the order chosen by the static join
+ * optimizer is still used to break ties when the variable order for the
+ * leapfrog triejoin is chosen.
+ * <p>
+ * Only statement patterns within a sequence of statement patterns are
+ * reordered, so this does not change the semantics of the join group. This
+ * optimizer MUST run after the join order is fixed and before the join
+ * filters are attached.
+ * 
+ * @see QueryHints#LEAPFROG_JOIN
+ */
+public class ASTLeapfrogJoinOptimizer extends AbstractJoinGroupOptimizer {
+
+    @Override
+    protected void optimizeJoinGroup(final AST2BOpContext ctx,
+            final StaticAnalysis sa, final IBindingSet[] bSets,
+            final JoinGroupNode group) {
+
+        if (ctx.isQuads() || ctx.getAbstractTripleStore().isRDRHistory()) {
+
+            /*
+             * Note: The leapfrog triejoin only supports triples and reads the
+             * statement indices directly, so it can not filter out the
+             * history.
+             */
+            return;
+
+        }
+
+        if (!group.getQueryHintAsBoolean(QueryHints.LEAPFROG_JOIN,
+                ctx.leapfrogJoin)) {
+
+            return;
+
+        }
+
+        if (QueryOptimizerEnum.Runtime.equals(group.getQueryOptimizer())
+                || group.getProperty(QueryHints.REOPTIMIZE,
+                        QueryHints.DEFAULT_REOPTIMIZE)) {
+
+            // The joins will be reordered at runtime.
+            return;
+
+        }
+
+        /*
+         * Find the first sequence of required statement patterns. The
+         * FILTERs placed within that sequence by the join order optimizer are
+         * included since they may be evaluated later without changing the
+         * semantics of the join group.
+         */
+        final int arity = group.arity();
+
+        int first = 0;
+
+        while (first < arity && !isRequiredSP(group.get(first)))
+            first++;
+
+        int last = first;
+
+        while (last < arity
+                && (isRequiredSP(group.get(last))
+                        || group.get(last) instanceof FilterNode))
+            last++;
+
+        final List<StatementPatternNode> run = new ArrayList<StatementPatternNode>(
+                last - first);
+
+        final List<FilterNode> filters = new LinkedList<FilterNode>();
+
+        for (int i = first; i < last; i++) {
+
+            final IGroupMemberNode child = (IGroupMemberNode) group.get(i);
+
+            if (child instanceof FilterNode) {
+
+                filters.add((FilterNode) child);
+
+                continue;
+
+            }
+
+            final StatementPatternNode sp = (StatementPatternNode) child;
+
+            if (sp.getProperty(QueryHints.RUN_FIRST, false)
+                    || sp.getProperty(QueryHints.RUN_LAST, false)) {
+
+                return;
+
+            }
+
+            run.add(sp);
+
+        }
+
+        if (run.size() < 3) {
+
+            // A cycle needs at least 3 triple patterns.
+            return;
+
+        }
+
+        final Set<StatementPatternNode> selected = getCyclicPatterns(run);
+
+        if (selected == null) {
+
+            // No cycle.
+            return;
+
+        }
+
+        /*
+         * Move the selected statement patterns to the head of the sequence,
+         * followed by the other statement patterns and then the FILTERs.
+         */
+        final List<IGroupMemberNode> tmp = new LinkedList<IGroupMemberNode>();
+
+        for (StatementPatternNode sp : run) {
+
+            if (selected.contains(sp)) {
+
+                sp.setLeapfrogJoin(true);
+
+                tmp.add(sp);
+
+            }
+
+        }
+
+        for (StatementPatternNode sp : run) {
+
+            if (!selected.contains(sp))
+                tmp.add(sp);
+
+        }
+
+        tmp.addAll(filters);
+
+        int i = first;
+
+        for (IGroupMemberNode child : tmp) {
+
+            group.setArg(i++, child);
+
+        }
+
+    }
+
+    /**
+     * Return <code>true</code> iff the node is a required statement pattern
+     * which may be evaluated by the {@link LeapfrogTriejoinOp}.
+     */
+    private static boolean isRequiredSP(final Object node) {
+
+        if (!(node instanceof StatementPatternNode))
+            return false;
+
+        final StatementPatternNode sp = (StatementPatternNode) node;
+
+        if (sp.isOptional() || sp.isMinus())
+            return false;
+
+        if (sp.sid() != null || sp.getRange() != null
+                || sp.getDistinctTermScanVar() != null
+                || sp.getFastRangeCountVar() != null
+                || sp.getMergeJoinVar() != null)
+            return false;
+
+        // The same variable may not be used more than once.
+        final Set<IVariable<?>> vars = new LinkedHashSet<IVariable<?>>();
+
+        int nvars = 0;
+
+        for (TermNode t : new TermNode[] { sp.s(), sp.p(), sp.o() }) {
+
+            if (t.isVariable()) {
+
+                vars.add((IVariable<?>) t.getValueExpression());
+
+                nvars++;
+
+            }
+
+        }
+
+        return vars.size() == nvars;
+
+    }
+
+    /**
+     * Return the statement patterns in the connected component of a cycle in
+     * the graph whose vertices are the variables and whose edges are the
+     * distinct pairs of variables used by the same statement pattern -or-
+     * <code>null</code> if there is no cycle. A statement pattern having three
+     * variables connects them without forming a cycle. Statement patterns
+     * having a single variable are included if that variable is in the
+     * component since they are then also intersected by the leapfrog
+     * triejoin.
+     */
+    static Set<StatementPatternNode> getCyclicPatterns(
+            final List<StatementPatternNode> run) {
+
+        final Map<IVariable<?>, IVariable<?>> parent = new HashMap<IVariable<?>, IVariable<?>>();
+
+        final Set<Set<IVariable<?>>> edges = new LinkedHashSet<Set<IVariable<?>>>();
+
+        IVariable<?> cycle = null;
+
+        for (StatementPatternNode sp : run) {
+
+            final List<IVariable<?>> vars = getVars(sp);
+
+            for (int i = 1; i < vars.size(); i++) {
+
+                final Set<IVariable<?>> edge = new LinkedHashSet<IVariable<?>>();
+
+                edge.add(vars.get(i - 1));
+
+                edge.add(vars.get(i));
+
+                if (!edges.add(edge)) {
+
+                    // Parallel edge.
+                    continue;
+
+                }
+
+                final IVariable<?> a = find(parent, vars.get(i - 1));
+
+                final IVariable<?> b = find(parent, vars.get(i));
+
+                if (a.equals(b)) {
+
+                    if (cycle == null)
+                        cycle = a;
+
+                } else {
+
+                    parent.put(a, b);
+
+                }
+
+            }
+
+        }
+
+        if (cycle == null)
+            return null;
+
+        final IVariable<?> root = find(parent, cycle);
+
+        final Set<StatementPatternNode> selected = new LinkedHashSet<StatementPatternNode>();
+
+        for (StatementPatternNode sp : run) {
+
+            final List<IVariable<?>> vars = getVars(sp);
+
+            if (!vars.isEmpty() && root.equals(find(parent, vars.get(0))))
+                selected.add(sp);
+
+        }
+
+        return selected;
+
+    }
+
+    private static List<IVariable<?>> getVars(final StatementPatternNode sp) {
+
+        final List<IVariable<?>> vars = new ArrayList<IVariable<?>>(3);
+
+        for (TermNode t : new TermNode[] { sp.s(), sp.p(), sp.o() }) {
+
+            if (t.isVariable())
+                vars.add((IVariable<?>) t.getValueExpression());
+
+        }
+
+        return vars;
+
+    }
+
+    private static IVariable<?> find(
+            final Map<IVariable<?>, IVariable<?>> parent, IVariable<?> v) {
+
+        IVariable<?> p;
+
+        while ((p = parent.get(v)) != null)
+            v = p;
+
+        return v;
+
+    }
+
+}
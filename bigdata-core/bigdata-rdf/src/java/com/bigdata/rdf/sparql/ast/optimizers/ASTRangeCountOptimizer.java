@@ -46,6 +46,8 @@ import com.bigdata.rdf.sparql.ast.StaticAnalysis;
 import com.bigdata.rdf.sparql.ast.TermNode;
 import com.bigdata.rdf.sparql.ast.eval.AST2BOpContext;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTStaticJoinOptimizer.Annotations;
+import com.bigdata.rdf.spo.Histograms;
+import com.bigdata.rdf.spo.SPOKeyOrder;
 import com.bigdata.rdf.spo.SPORelation;
 import com.bigdata.rdf.store.AbstractTripleStore;
 import com.bigdata.relation.accesspath.IAccessPath;
@@ -219,12 +221,29 @@ public class ASTRangeCountOptimizer extends AbstractJoinGroupOptimizer
 		final IAccessPath<?> ap = db.getAccessPath(s, p, o, c, range);
 		
 
-		final StaticAnalysisStats saStats = ctx.getStaticAnalysisStats();
-		long start = System.nanoTime();
-		
-		final long cardinality = ap.rangeCount(false/* exact */);
+		/*
+		 * Use the histograms (if available) unless the constant is selective
+		 * (not recorded by the histogram), in which case the range count is
+		 * both cheap and much more accurate.
+		 */
+		final long estimate = range == null ? getHistogramRangeCount(db, ap,
+				s, p, o, c) : -1L;
+
+		final long cardinality;
+		if (estimate != -1L) {
+
+			cardinality = estimate;
+
+		} else {
+
+			final StaticAnalysisStats saStats = ctx.getStaticAnalysisStats();
+			long start = System.nanoTime();
+
+			cardinality = ap.rangeCount(false/* exact */);
+
+			saStats.registerRangeCountCall(System.nanoTime() - start);
 
-        saStats.registerRangeCountCall(System.nanoTime() - start);
+		}
 		
 		
 		// Annotate with the fast range count.
@@ -247,6 +266,28 @@ public class ASTRangeCountOptimizer extends AbstractJoinGroupOptimizer
 		sp.setProperty(Annotations.ORIGINAL_INDEX, ap.getKeyOrder());
 	}
 
+    /**
+     * Return the range count of the access path from the {@link Histograms}
+     * -or- <code>-1L</code> if the histograms are not available or do not
+     * record the bound components of the access path.
+     */
+    private static long getHistogramRangeCount(final AbstractTripleStore db,
+            final IAccessPath<?> ap, final IV<?, ?> s, final IV<?, ?> p,
+            final IV<?, ?> o, final IV<?, ?> c) {
+
+        if (!(ap.getKeyOrder() instanceof SPOKeyOrder))
+            return -1L;
+
+        final Histograms histograms = db.getSPORelation().getHistograms();
+
+        if (histograms == null)
+            return -1L;
+
+        return histograms.getRangeCount((SPOKeyOrder) ap.getKeyOrder(), s, p,
+                o, c);
+
+    }
+
     /**
      * Helper method grabs the IV out of the TermNode, doing the appropriate
      * NULL and constant/var checks.
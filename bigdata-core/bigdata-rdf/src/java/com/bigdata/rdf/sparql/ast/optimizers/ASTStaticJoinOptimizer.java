@@ -38,8 +38,12 @@ import org.apache.log4j.Logger;
 import com.bigdata.bop.BOp;
 import com.bigdata.bop.BOpUtility;
 import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IPredicate;
 import com.bigdata.bop.IVariable;
+import com.bigdata.bop.join.PipelineJoin;
 import com.bigdata.bop.joinGraph.fast.DefaultEvaluationPlan2;
+import com.bigdata.bop.rdf.join.AccessPathMergeJoin;
+import com.bigdata.rdf.sparql.ast.FilterNode;
 import com.bigdata.rdf.sparql.ast.GraphPatternGroup;
 import com.bigdata.rdf.sparql.ast.IBindingProducerNode;
 import com.bigdata.rdf.sparql.ast.IGroupMemberNode;
@@ -47,6 +51,7 @@ import com.bigdata.rdf.sparql.ast.IJoinNode;
 import com.bigdata.rdf.sparql.ast.IQueryNode;
 import com.bigdata.rdf.sparql.ast.IReorderableNode;
 import com.bigdata.rdf.sparql.ast.JoinGroupNode;
+import com.bigdata.rdf.sparql.ast.JoinMethodEnum;
 import com.bigdata.rdf.sparql.ast.NamedSubqueriesNode;
 import com.bigdata.rdf.sparql.ast.NamedSubqueryRoot;
 import com.bigdata.rdf.sparql.ast.QueryBase;
@@ -54,12 +59,16 @@ import com.bigdata.rdf.sparql.ast.QueryHints;
 import com.bigdata.rdf.sparql.ast.QueryNodeWithBindingSet;
 import com.bigdata.rdf.sparql.ast.QueryOptimizerEnum;
 import com.bigdata.rdf.sparql.ast.QueryRoot;
+import com.bigdata.rdf.sparql.ast.StatementPatternNode;
 import com.bigdata.rdf.sparql.ast.StaticAnalysis;
 import com.bigdata.rdf.sparql.ast.SubqueryRoot;
+import com.bigdata.rdf.sparql.ast.TermNode;
 import com.bigdata.rdf.sparql.ast.UnionNode;
 import com.bigdata.rdf.sparql.ast.eval.AST2BOpBase;
 import com.bigdata.rdf.sparql.ast.eval.AST2BOpContext;
 import com.bigdata.rdf.sparql.ast.eval.IEvaluationContext;
+import com.bigdata.rdf.spo.ISPO;
+import com.bigdata.rdf.spo.SPOPredicate;
 
 /**
  * This is an AST optimizer port of the old "static" optimizer - 
@@ -586,8 +595,348 @@ public class ASTStaticJoinOptimizer implements IASTOptimizer {
 		    	joinGroup.setArg(slots[i++], runLast);
 		    	
 		    }
+
+            if (idxOfLastNonReorderableNode == -1 && ancestry.isEmpty()
+                    && required.size() >= 2
+                    && onlyFiltersBetween(joinGroup, slots[0], slots[1])) {
+
+                /*
+                 * The first two joins are not fed by any other join, so they
+                 * may be evaluated as a merge join of their access paths. The
+                 * FILTERs between them will be attached to the joins.
+                 */
+                markMergeJoin(ctx, joinGroup, required.get(order[0]),
+                        required.get(order[1]));
+
+                /*
+                 * The estimated input cardinality of each join is only known
+                 * when nothing other than the joins of this group feeds it.
+                 */
+                markJoinMethods(ctx, sa, joinGroup, required, order, opt);
+
+            }
+
 		}
 	}
+
+    /**
+     * Mark the first two joins in a join group for evaluation by an
+     * {@link AccessPathMergeJoin} iff both are required triple patterns whose
+     * range counts are at least
+     * {@link QueryHints#ACCESS_PATH_MERGE_JOIN_THRESHOLD} and which share a
+     * variable in the order of which both of their access paths are read.
+     * This replaces one index probe per solution of the first triple pattern
+     * by a sequential scan of the access path of the second triple pattern.
+     * <p>
+     * Note: This is only done for triples since there are no statement
+     * indices in the quads mode for which the context position would follow
+     * the join variable in the key.
+     */
+    private void markMergeJoin(final AST2BOpContext ctx,
+            final JoinGroupNode joinGroup, final IReorderableNode first,
+            final IReorderableNode second) {
+
+        if (ctx.isQuads())
+            return;
+
+        if (joinGroup.getProperty(QueryHints.REOPTIMIZE,
+                QueryHints.DEFAULT_REOPTIMIZE)) {
+
+            // The joins will be reordered at runtime.
+            return;
+
+        }
+
+        if (!isMergeJoinCandidate(ctx, first)
+                || !isMergeJoinCandidate(ctx, second))
+            return;
+
+        final StatementPatternNode a = (StatementPatternNode) first;
+
+        final StatementPatternNode b = (StatementPatternNode) second;
+
+        final IPredicate<ISPO> predA = toPredicate(a);
+
+        final IPredicate<ISPO> predB = toPredicate(b);
+
+        for (TermNode t : new TermNode[] { a.s(), a.p(), a.o() }) {
+
+            if (!t.isVariable())
+                continue;
+
+            final IVariable<?> var = (IVariable<?>) t.getValueExpression();
+
+            if (AccessPathMergeJoin.isOrderedBy(predA, var)
+                    && AccessPathMergeJoin.isOrderedBy(predB, var)) {
+
+                if (log.isInfoEnabled())
+                    log.info("Merge join on " + var + ": " + a + ", " + b);
+
+                a.setMergeJoinVar(var);
+
+                b.setMergeJoinVar(var);
+
+                return;
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Choose the {@link JoinMethodEnum} for each required triple pattern in
+     * the join group whose estimated input cardinality is at least
+     * {@link QueryHints#HASH_JOIN_THRESHOLD}. A hash join reads the access
+     * path once while a {@link PipelineJoin} probes it once per solution, so
+     * a hash join is chosen when the estimated input cardinality is at least
+     * the range count of the triple pattern and there is a join variable. The
+     * hash index is built on the native heap when
+     * {@link QueryHints#NATIVE_HASH_JOINS} is enabled or when the estimated
+     * input cardinality is at least
+     * {@link QueryHints#NATIVE_HASH_JOIN_THRESHOLD}. The chosen join method
+     * and the estimated input cardinality are recorded on the triple pattern.
+     * The triple patterns marked for an {@link AccessPathMergeJoin} are
+     * recorded as such.
+     * <p>
+     * Note: No hash join is chosen when the query or any enclosing subquery
+     * has a LIMIT or OFFSET. A hash join must read its entire access path
+     * before it produces any solution, which defeats the early termination of
+     * the {@link PipelineJoin}s once the SLICE is satisfied.
+     * 
+     * @param required
+     *            The required joins of the group.
+     * @param order
+     *            The evaluation order of those joins.
+     * @param opt
+     *            The {@link StaticOptimizer} which computed that order.
+     */
+    private void markJoinMethods(final AST2BOpContext ctx,
+            final StaticAnalysis sa, final JoinGroupNode joinGroup,
+            final List<IReorderableNode> required, final int[] order,
+            final StaticOptimizer opt) {
+
+        if (joinGroup.getProperty(QueryHints.REOPTIMIZE,
+                QueryHints.DEFAULT_REOPTIMIZE)) {
+
+            // The joins will be reordered at runtime.
+            return;
+
+        }
+
+        final boolean sliced = isSliced(sa, joinGroup);
+
+        for (int j = 0; j < order.length; j++) {
+
+            final IReorderableNode node = required.get(order[j]);
+
+            if (!(node instanceof StatementPatternNode))
+                continue;
+
+            final StatementPatternNode sp = (StatementPatternNode) node;
+
+            // The first join is fed by a single empty solution.
+            final long inputCard = j == 0 ? 1L : opt.getJoinCardinality(j - 1);
+
+            if (sp.getMergeJoinVar() != null) {
+
+                sp.setJoinMethod(JoinMethodEnum.MergeJoin);
+
+                sp.setProperty(Annotations.ESTIMATED_INPUT_CARDINALITY,
+                        inputCard);
+
+                continue;
+
+            }
+
+            if (j == 0 || sliced || inputCard < ctx.hashJoinThreshold)
+                continue;
+
+            if (!isJoinMethodCandidate(sp))
+                continue;
+
+            final long rangeCount = sp.getProperty(
+                    Annotations.ESTIMATED_CARDINALITY, -1L);
+
+            if (rangeCount < 0)
+                continue;
+
+            final JoinMethodEnum joinMethod;
+
+            if (rangeCount <= inputCard && hasJoinVars(sa, sp)) {
+
+                joinMethod = ctx.nativeHashJoins
+                        || inputCard >= ctx.nativeHashJoinThreshold ? JoinMethodEnum.HTreeHashJoin
+                        : JoinMethodEnum.JVMHashJoin;
+
+            } else {
+
+                joinMethod = JoinMethodEnum.PipelineJoin;
+
+            }
+
+            if (log.isInfoEnabled())
+                log.info(joinMethod + ": inputCard=" + inputCard
+                        + ", rangeCount=" + rangeCount + ", " + sp);
+
+            sp.setJoinMethod(joinMethod);
+
+            sp.setProperty(Annotations.ESTIMATED_INPUT_CARDINALITY, inputCard);
+
+        }
+
+    }
+
+    /**
+     * Return <code>true</code> iff the join group is evaluated within a
+     * {@link QueryBase} having a LIMIT or OFFSET. The search proceeds from the
+     * join group through each enclosing {@link SubqueryRoot} and stops at the
+     * {@link QueryRoot} or the {@link NamedSubqueryRoot} in which the join
+     * group appears. The result of a {@link NamedSubqueryRoot} is fully
+     * materialized, so a SLICE on the main query does not apply to it.
+     */
+    private static boolean isSliced(final StaticAnalysis sa,
+            final JoinGroupNode joinGroup) {
+
+        IQueryNode p = joinGroup;
+
+        while (p != null) {
+
+            if (p instanceof SubqueryRoot) {
+
+                if (((SubqueryRoot) p).hasSlice())
+                    return true;
+
+                p = ((SubqueryRoot) p).getParentJoinGroup();
+
+            } else if (p instanceof QueryBase) {
+
+                // QueryRoot or NamedSubqueryRoot.
+                return ((QueryBase) p).hasSlice();
+
+            } else if (p instanceof GraphPatternGroup) {
+
+                p = sa.findParent((GraphPatternGroup<?>) p);
+
+            } else if (p instanceof IGroupMemberNode) {
+
+                p = ((IGroupMemberNode) p).getParentJoinGroup();
+
+            } else {
+
+                return false;
+
+            }
+
+        }
+
+        return false;
+
+    }
+
+    /**
+     * Return <code>true</code> iff the join method for the triple pattern may
+     * be chosen by the cost model. Triple patterns which are evaluated by
+     * specialized operators or for which a hash join was requested by a query
+     * hint are excluded.
+     */
+    private static boolean isJoinMethodCandidate(final StatementPatternNode sp) {
+
+        if (sp.isOptional() || sp.isMinus())
+            return false;
+
+        if (sp.sid() != null || sp.getRange() != null
+                || sp.getDistinctTermScanVar() != null
+                || sp.getFastRangeCountVar() != null || sp.isLeapfrogJoin())
+            return false;
+
+        if (sp.getQueryHint(QueryHints.HASH_JOIN) != null)
+            return false;
+
+        return sp.getQueryHint(IPredicate.Annotations.CUTOFF_LIMIT) == null;
+
+    }
+
+    /**
+     * Return <code>true</code> iff the triple pattern binds at least one
+     * variable which is known to be bound by the joins which precede it. A
+     * hash join requires such a join variable.
+     */
+    private static boolean hasJoinVars(final StaticAnalysis sa,
+            final StatementPatternNode sp) {
+
+        final Set<IVariable<?>> joinVars = sa.getDefinitelyIncomingBindings(
+                sp, new LinkedHashSet<IVariable<?>>());
+
+        joinVars.retainAll(sa.getDefinitelyProducedBindings(sp,
+                new LinkedHashSet<IVariable<?>>(), false/* recursive */));
+
+        return !joinVars.isEmpty();
+
+    }
+
+    /**
+     * Return <code>true</code> iff all children of the join group between the
+     * given indices (exclusive) are {@link FilterNode}s.
+     */
+    private static boolean onlyFiltersBetween(final JoinGroupNode joinGroup,
+            final int from, final int to) {
+
+        for (int i = from + 1; i < to; i++) {
+
+            if (!(joinGroup.get(i) instanceof FilterNode))
+                return false;
+
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Return <code>true</code> iff the node is a required triple pattern which
+     * may be evaluated by an {@link AccessPathMergeJoin}.
+     */
+    private static boolean isMergeJoinCandidate(final AST2BOpContext ctx,
+            final IReorderableNode node) {
+
+        if (!(node instanceof StatementPatternNode))
+            return false;
+
+        final StatementPatternNode sp = (StatementPatternNode) node;
+
+        if (sp.isOptional() || sp.isMinus())
+            return false;
+
+        if (sp.sid() != null || sp.getRange() != null
+                || sp.getDistinctTermScanVar() != null
+                || sp.getFastRangeCountVar() != null
+                || sp.isLeapfrogJoin() || sp.getMergeJoinVar() != null)
+            return false;
+
+        if (sp.getProperty(QueryHints.RUN_FIRST, false)
+                || sp.getProperty(QueryHints.RUN_LAST, false))
+            return false;
+
+        final long rangeCount = sp.getProperty(
+                Annotations.ESTIMATED_CARDINALITY, -1L);
+
+        return rangeCount >= 0
+                && rangeCount >= ctx.accessPathMergeJoinThreshold;
+
+    }
+
+    /**
+     * Return a triple pattern having the variables and constants of the
+     * statement pattern. This is used to decide the key order of its access
+     * path.
+     */
+    private static IPredicate<ISPO> toPredicate(final StatementPatternNode sp) {
+
+        return new SPOPredicate(new BOp[] { sp.s().getValueExpression(),
+                sp.p().getValueExpression(), sp.o().getValueExpression() });
+
+    }
     
 //    /**
 //     * Use the SPORelation from the database to grab the appropriate range
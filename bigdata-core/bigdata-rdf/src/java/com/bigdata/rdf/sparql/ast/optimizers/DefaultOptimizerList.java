@@ -623,6 +623,12 @@ public class DefaultOptimizerList extends ASTOptimizerList {
          * Uses the query hints RUN_FIRST and RUN_LAST to rearrange IJoinNodes.
          */
         add(new ASTRunFirstRunLastOptimizer());
+
+        /**
+         * Marks a cyclic sequence of statement patterns at the head of a join
+         * group for evaluation by a leapfrog triejoin.
+         */
+        add(new ASTLeapfrogJoinOptimizer());
         
         /**
          * Optimizer attaches FilterNodes which will run as "join filters" to
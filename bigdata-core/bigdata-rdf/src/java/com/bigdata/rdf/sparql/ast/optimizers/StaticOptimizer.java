@@ -4,6 +4,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 
@@ -12,6 +13,8 @@ import org.apache.log4j.Logger;
 import com.bigdata.bop.IVariable;
 import com.bigdata.bop.joinGraph.fast.DefaultEvaluationPlan2;
 import com.bigdata.journal.ITx;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.sparql.ast.ConstantNode;
 import com.bigdata.rdf.sparql.ast.IBindingProducerNode;
 import com.bigdata.rdf.sparql.ast.IReorderableNode;
 import com.bigdata.rdf.sparql.ast.QueryHints;
@@ -21,6 +24,8 @@ import com.bigdata.rdf.sparql.ast.StaticAnalysis;
 import com.bigdata.rdf.sparql.ast.VarNode;
 import com.bigdata.rdf.sparql.ast.eval.AST2BOpContext;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTStaticJoinOptimizer.Annotations;
+import com.bigdata.rdf.spo.CharacteristicSets;
+import com.bigdata.rdf.store.AbstractTripleStore;
 
 /**
  * This is the old static optimizer code, taken directly from
@@ -58,6 +63,14 @@ public final class StaticOptimizer {
 	 */
 	private int[/* order */] order;
 
+	/**
+	 * The estimated cardinality of the solutions produced by the joins in the
+	 * computed evaluation order. The element at index <code>i</code> is the
+	 * estimated cardinality after the tails <code>order[0..i]</code> have
+	 * been joined.
+	 */
+	private long[/* order */] joinCardinality;
+
 	public int[] getOrder() {
 
 		if (order == null) {
@@ -75,6 +88,24 @@ public final class StaticOptimizer {
 
 	}
 
+	/**
+	 * Return the estimated cardinality of the solutions produced by the first
+	 * <code>i+1</code> tails in the computed evaluation order. This is the
+	 * estimated input cardinality of the tail at index <code>i+1</code> in
+	 * the evaluation order.
+	 * 
+	 * @param i
+	 *            An index into the evaluation order.
+	 */
+	public long getJoinCardinality(final int i) {
+
+		if (joinCardinality == null)
+			throw new IllegalStateException();
+
+		return joinCardinality[i];
+
+	}
+
 	/**
 	 * Cache of the computed range counts for the predicates in the tail. The
 	 * elements of this array are initialized to -1L, which indicates that the
@@ -103,20 +134,31 @@ public final class StaticOptimizer {
 	 */
 	private final double optimistic;
 
+	/**
+	 * The characteristic sets of the database -or- <code>null</code> if they
+	 * are not maintained. When available, they are used to estimate the
+	 * cardinality of star joins and chain joins.
+	 * 
+	 * @see AbstractTripleStore.Options#CHARACTERISTIC_SETS
+	 */
+	private final CharacteristicSets csets;
+
 	public StaticOptimizer(StaticOptimizer parent, List<IReorderableNode> nodes) {
-		this(parent.sa, parent.ancestry, nodes, parent.optimistic);
+		this(parent.sa, parent.ancestry, nodes, parent.optimistic,
+				parent.csets);
 	}
 
 	StaticOptimizer(final QueryRoot queryRoot, final AST2BOpContext context,
 			final IBindingProducerNode[] ancestry,
 			final List<IReorderableNode> nodes, final double optimistic) {
 		this(new StaticAnalysis(queryRoot, context), ancestry, nodes,
-				optimistic);
+				optimistic, getCharacteristicSets(context));
 	}
 
 	private StaticOptimizer(final StaticAnalysis sa,
 			final IBindingProducerNode[] ancestry,
-			final List<IReorderableNode> nodes, final double optimistic) {
+			final List<IReorderableNode> nodes, final double optimistic,
+			final CharacteristicSets csets) {
 
 		if (ancestry == null)
 			throw new IllegalArgumentException();
@@ -149,6 +191,8 @@ public final class StaticOptimizer {
 
 		this.optimistic = optimistic;
 
+		this.csets = csets;
+
 		this.cardinality = calc();
 
 		if (ASTStaticJoinOptimizer.log.isDebugEnabled()) {
@@ -170,6 +214,7 @@ public final class StaticOptimizer {
 					"calc should only be called from the constructor");
 
 		order = new int[arity];
+		joinCardinality = new long[arity];
 		rangeCount = new long[arity];
 		used = new boolean[arity];
 		tail = new Tail[arity];
@@ -187,7 +232,7 @@ public final class StaticOptimizer {
 
 		if (arity == 1) {
 			order[0] = 0;
-			return cardinality(0);
+			return joinCardinality[0] = cardinality(0);
 		}
 
 		/*
@@ -271,7 +316,9 @@ public final class StaticOptimizer {
 					order[1] = cardinality(0) <= cardinality(1) ? 1 : 0;
 				}
 			}
-			return computeJoinCardinality(getTail(0), getTail(1));
+			joinCardinality[0] = cardinality(order[0]);
+			return joinCardinality[1] = computeJoinCardinality(getTail(0),
+					getTail(1));
 		}
 
 		/*
@@ -297,10 +344,13 @@ public final class StaticOptimizer {
 		}
 		used[order[0]] = true;
 		used[order[1]] = true;
+		joinCardinality[0] = cardinality(order[0]);
+		joinCardinality[1] = join.cardinality;
 		for (int i = 2; i < arity; i++) {
 			join = getNextJoin(join);
 			order[i] = ((Tail) join.getD2()).getTailIndex();
 			used[order[i]] = true;
+			joinCardinality[i] = join.cardinality;
 		}
 		return cardinality;
 	}
@@ -601,6 +651,12 @@ public final class StaticOptimizer {
 		// }
 		final boolean sharedVars = hasSharedVars(d1, d2);
 		final boolean unsharedVars = hasUnsharedVars(d1, d2);
+		if (sharedVars && csets != null) {
+			final long joinCardinality = estimateJoinCardinality(d1, d2);
+			if (joinCardinality != -1L) {
+				return joinCardinality;
+			}
+		}
 		final long joinCardinality;
 		if (sharedVars == false) {
 			// no shared vars - take the sum
@@ -671,6 +727,157 @@ public final class StaticOptimizer {
 		return joinCardinality;
 	}
 
+	/**
+	 * Estimate the join cardinality from the {@link CharacteristicSets}. This
+	 * is possible when the join dimensions share exactly one variable and
+	 * either (a) all of the tails in both join dimensions are statement
+	 * patterns having that variable as their subject (a star join); or (b) one
+	 * join dimension is a single statement pattern having that variable as its
+	 * subject and the other join dimension includes a statement pattern having
+	 * that variable as its object (a chain join). In both cases the statement
+	 * patterns must have a constant predicate and distinct subject and object
+	 * variables.
+	 * 
+	 * @param d1
+	 *            the first join dimension
+	 * @param d2
+	 *            the second join dimension
+	 * @return the estimated join cardinality -or- <code>-1L</code> if the
+	 *         join cardinality can not be estimated from the statistics.
+	 */
+	private long estimateJoinCardinality(final IJoinDimension d1,
+			final IJoinDimension d2) {
+		final Set<String> shared = new HashSet<String>(d1.getVars());
+		shared.retainAll(d2.getVars());
+		if (shared.size() != 1) {
+			return -1L;
+		}
+		final String var = shared.iterator().next();
+		final List<Integer> tails1 = getTails(d1, new LinkedList<Integer>());
+		final List<Integer> tails2 = getTails(d2, new LinkedList<Integer>());
+		final List<IV<?, ?>> predicates = new LinkedList<IV<?, ?>>();
+		if (isStar(tails1, var, predicates) && isStar(tails2, var, predicates)) {
+			return csets.estimateStar(predicates);
+		}
+		long joinCardinality = estimateChainCardinality(d1, tails1, tails2, var);
+		if (joinCardinality == -1L) {
+			joinCardinality = estimateChainCardinality(d2, tails2, tails1, var);
+		}
+		return joinCardinality;
+	}
+
+	/**
+	 * Return <code>true</code> iff each tail is a statement pattern for a star
+	 * join on the given subject variable. The predicates of those statement
+	 * patterns are added to the caller's list.
+	 */
+	private boolean isStar(final List<Integer> tails, final String var,
+			final List<IV<?, ?>> predicates) {
+		for (int i : tails) {
+			final IV<?, ?> p = getStarPredicate(nodes.get(i));
+			if (p == null
+					|| !var.equals(((VarNode) ((StatementPatternNode) nodes
+							.get(i)).s()).getValueExpression().getName())) {
+				return false;
+			}
+			predicates.add(p);
+		}
+		return true;
+	}
+
+	/**
+	 * Estimate the cardinality of a chain join in which <i>tails2</i> is a
+	 * single statement pattern whose subject is the shared variable and
+	 * <i>d1</i> includes a statement pattern whose object is the shared
+	 * variable.
+	 */
+	private long estimateChainCardinality(final IJoinDimension d1,
+			final List<Integer> tails1, final List<Integer> tails2,
+			final String var) {
+		if (tails2.size() != 1) {
+			return -1L;
+		}
+		final IReorderableNode t2 = nodes.get(tails2.get(0));
+		final IV<?, ?> p2 = getStarPredicate(t2);
+		if (p2 == null
+				|| !var.equals(((VarNode) ((StatementPatternNode) t2).s())
+						.getValueExpression().getName())) {
+			return -1L;
+		}
+		for (int i : tails1) {
+			final IReorderableNode t1 = nodes.get(i);
+			final IV<?, ?> p1 = getStarPredicate(t1);
+			if (p1 == null
+					|| !var.equals(((VarNode) ((StatementPatternNode) t1).o())
+							.getValueExpression().getName())) {
+				continue;
+			}
+			final long pairCount = csets.getPairCount(p1, p2);
+			final long occurrences = csets.getOccurrences(p1);
+			if (pairCount == -1L || occurrences == 0L) {
+				return -1L;
+			}
+			/*
+			 * Scale the cardinality of the first join dimension by the #of
+			 * solutions for the predicate pair per statement using p1.
+			 */
+			return (long) Math.ceil(((double) d1.getCardinality()) * pairCount
+					/ occurrences);
+		}
+		return -1L;
+	}
+
+	/**
+	 * Collect the indices of the tails in a join dimension.
+	 */
+	private static List<Integer> getTails(final IJoinDimension d,
+			final List<Integer> tails) {
+		if (d instanceof Join) {
+			getTails(((Join) d).getD1(), tails);
+			getTails(((Join) d).getD2(), tails);
+		} else {
+			tails.add(((Tail) d).getTailIndex());
+		}
+		return tails;
+	}
+
+	/**
+	 * Return the predicate of a required statement pattern which can be
+	 * estimated using the {@link CharacteristicSets} -or- <code>null</code>.
+	 * The statement pattern must have a constant predicate, distinct subject
+	 * and object variables, and a variable (or no) context.
+	 */
+	static IV<?, ?> getStarPredicate(final IBindingProducerNode node) {
+		if (!(node instanceof StatementPatternNode)) {
+			return null;
+		}
+		final StatementPatternNode sp = (StatementPatternNode) node;
+		if (sp.isOptional() || !(sp.s() instanceof VarNode)
+				|| !(sp.p() instanceof ConstantNode)
+				|| !(sp.o() instanceof VarNode)
+				|| (sp.c() != null && !(sp.c() instanceof VarNode))
+				|| sp.s().equals(sp.o())) {
+			return null;
+		}
+		final IV<?, ?> p = ((ConstantNode) sp.p()).getValueExpression().get();
+		if (p == null || p.isNullIV()) {
+			return null;
+		}
+		return p;
+	}
+
+	/**
+	 * Return the {@link CharacteristicSets} for the database against which
+	 * the query will be evaluated -or- <code>null</code> if they are not
+	 * maintained.
+	 */
+	static CharacteristicSets getCharacteristicSets(
+			final AST2BOpContext context) {
+		final AbstractTripleStore db = context == null ? null : context
+				.getAbstractTripleStore();
+		return db == null ? null : db.getSPORelation().getCharacteristicSets();
+	}
+
 	/**
 	 * Get the named variables for a given tail. Is there a better way to do
 	 * this?
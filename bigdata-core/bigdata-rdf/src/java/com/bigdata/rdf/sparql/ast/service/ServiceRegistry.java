@@ -41,6 +41,7 @@ import com.bigdata.rdf.graph.impl.bd.GASService;
 import com.bigdata.rdf.sail.RDRHistoryServiceFactory;
 import com.bigdata.rdf.sparql.ast.QueryHints;
 import com.bigdata.rdf.sparql.ast.cache.DescribeServiceFactory;
+import com.bigdata.rdf.sparql.ast.eval.CompletionServiceFactory;
 import com.bigdata.rdf.sparql.ast.eval.GeoSpatialServiceFactory;
 import com.bigdata.rdf.sparql.ast.eval.SampleServiceFactory;
 import com.bigdata.rdf.sparql.ast.eval.SearchInSearchServiceFactory;
@@ -137,6 +138,9 @@ public class ServiceRegistry {
         // Add the Bigdata search in search service.
         add(BDS.SEARCH_IN_SEARCH, new SearchInSearchServiceFactory());
 
+        // Add the Bigdata prefix completion service.
+        add(BDS.COMPLETION, new CompletionServiceFactory());
+
         // Add the sample index service.
         add(SampleServiceFactory.SERVICE_KEY, new SampleServiceFactory());
 
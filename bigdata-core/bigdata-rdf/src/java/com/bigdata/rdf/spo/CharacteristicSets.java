@@ -0,0 +1,621 @@
+/*
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+
+package com.bigdata.rdf.spo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import com.bigdata.btree.IIndex;
+import com.bigdata.btree.IRangeQuery;
+import com.bigdata.btree.ITuple;
+import com.bigdata.btree.ITupleIterator;
+import com.bigdata.btree.keys.IKeyBuilder;
+import com.bigdata.btree.keys.KeyBuilder;
+import com.bigdata.io.DataInputBuffer;
+import com.bigdata.io.DataOutputBuffer;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.IVUtility;
+import com.bigdata.rdf.store.AbstractTripleStore;
+
+/**
+ * An immutable snapshot of the characteristic sets of an {@link SPORelation}.
+ * The characteristic set of a subject is the set of distinct predicates used
+ * by the statements for that subject. For each characteristic set we know the
+ * #of subjects having exactly that set and, for each predicate in the set, the
+ * #of statements using that predicate for those subjects. This is enough to
+ * estimate the cardinality of a star join
+ *
+ * <pre>
+ * ?s p1 ?o1 . ?s p2 ?o2 . ... ?s pn ?on
+ * </pre>
+ *
+ * as the sum over all characteristic sets S which are a superset of
+ * {p1,...,pn} of <code>count(S) * PROD(occ(S,pi) / count(S))</code>, where
+ * <code>occ(S,p)</code> is the #of statements using <code>p</code> for the
+ * subjects having the characteristic set S.
+ * <p>
+ * The snapshot also reports predicate pair statistics for chain joins
+ *
+ * <pre>
+ * ?x p1 ?y . ?y p2 ?z
+ * </pre>
+ *
+ * when those statistics were computed by
+ * {@link SPORelation#buildCharacteristicSets(int)}.
+ * <p>
+ * The index keys begin with a byte identifying the kind of record. A
+ * characteristic set is stored under <code>[CSET][p1]...[pn]</code> where the
+ * predicates are in {@link IV} order and the value is the packed subject count
+ * followed by the packed occurrence count of each predicate. A predicate pair
+ * is stored under <code>[PAIR][p1][p2]</code> and the value is the packed
+ * estimated #of solutions for the chain join.
+ *
+ * @see AbstractTripleStore.Options#CHARACTERISTIC_SETS
+ */
+public class CharacteristicSets {
+
+    /**
+     * The key prefix for a characteristic set.
+     */
+    static final byte CSET = 0;
+
+    /**
+     * The key prefix for a predicate pair.
+     */
+    static final byte PAIR = 1;
+
+    /**
+     * A characteristic set together with its statistics.
+     */
+    public static class CharacteristicSet {
+
+        private final IV<?, ?>[] predicates;
+
+        private final long count;
+
+        private final long[] occurrences;
+
+        CharacteristicSet(final IV<?, ?>[] predicates, final long count,
+                final long[] occurrences) {
+
+            this.predicates = predicates;
+
+            this.count = count;
+
+            this.occurrences = occurrences;
+
+        }
+
+        /**
+         * The predicates in the characteristic set (in {@link IV} order).
+         */
+        public List<IV<?, ?>> getPredicates() {
+
+            return Collections.unmodifiableList(Arrays.asList(predicates));
+
+        }
+
+        /**
+         * The #of subjects having exactly this characteristic set.
+         */
+        public long getCount() {
+
+            return count;
+
+        }
+
+        /**
+         * The #of statements using the predicate for the subjects having this
+         * characteristic set -or- ZERO (0L) if the predicate is not in the
+         * characteristic set.
+         */
+        public long getOccurrences(final IV<?, ?> p) {
+
+            final int i = indexOf(p);
+
+            return i == -1 ? 0L : occurrences[i];
+
+        }
+
+        private int indexOf(final IV<?, ?> p) {
+
+            for (int i = 0; i < predicates.length; i++) {
+
+                if (predicates[i].equals(p))
+                    return i;
+
+            }
+
+            return -1;
+
+        }
+
+        @Override
+        public String toString() {
+
+            return "CharacteristicSet{predicates="
+                    + Arrays.toString(predicates) + ",count=" + count
+                    + ",occurrences=" + Arrays.toString(occurrences) + "}";
+
+        }
+
+    }
+
+    private final CharacteristicSet[] sets;
+
+    private final Map<IV<?, ?>, Map<IV<?, ?>, Long>> pairs;
+
+    private final Map<IV<?, ?>, Long> occurrences;
+
+    private CharacteristicSets(final CharacteristicSet[] sets,
+            final Map<IV<?, ?>, Map<IV<?, ?>, Long>> pairs) {
+
+        this.sets = sets;
+
+        this.pairs = pairs;
+
+        this.occurrences = new HashMap<IV<?, ?>, Long>();
+
+        for (CharacteristicSet set : sets) {
+
+            for (int i = 0; i < set.predicates.length; i++) {
+
+                final Long n = occurrences.get(set.predicates[i]);
+
+                occurrences.put(set.predicates[i], (n == null ? 0L : n)
+                        + set.occurrences[i]);
+
+            }
+
+        }
+
+    }
+
+    /**
+     * The #of distinct characteristic sets.
+     */
+    public int size() {
+
+        return sets.length;
+
+    }
+
+    /**
+     * The characteristic sets.
+     */
+    public List<CharacteristicSet> getCharacteristicSets() {
+
+        return Collections.unmodifiableList(Arrays.asList(sets));
+
+    }
+
+    /**
+     * Return the #of statements using the predicate.
+     */
+    public long getOccurrences(final IV<?, ?> p) {
+
+        final Long n = occurrences.get(p);
+
+        return n == null ? 0L : n;
+
+    }
+
+    /**
+     * Return the #of distinct subjects which use all of the given predicates.
+     */
+    public long getSubjectCount(final Collection<IV<?, ?>> predicates) {
+
+        long n = 0L;
+
+        for (CharacteristicSet set : sets) {
+
+            if (containsAll(set, predicates))
+                n += set.count;
+
+        }
+
+        return n;
+
+    }
+
+    /**
+     * Return the estimated #of solutions for a star join in which the subject
+     * is shared by one statement pattern for each of the given predicates and
+     * the objects are distinct variables. A predicate may be given more than
+     * once.
+     *
+     * @param predicates
+     *            The predicates of the statement patterns.
+     *
+     * @return The estimated cardinality of the star join.
+     */
+    public long estimateStar(final Collection<IV<?, ?>> predicates) {
+
+        double n = 0d;
+
+        for (CharacteristicSet set : sets) {
+
+            if (!containsAll(set, predicates))
+                continue;
+
+            double m = set.count;
+
+            for (IV<?, ?> p : predicates) {
+
+                m *= ((double) set.occurrences[set.indexOf(p)]) / set.count;
+
+            }
+
+            n += m;
+
+        }
+
+        return (long) Math.ceil(n);
+
+    }
+
+    /**
+     * Return the estimated #of solutions for the chain join
+     * <code>?x p1 ?y . ?y p2 ?z</code> -or- <code>-1L</code> if the predicate
+     * pair statistics are not available.
+     */
+    public long getPairCount(final IV<?, ?> p1, final IV<?, ?> p2) {
+
+        if (pairs.isEmpty())
+            return -1L;
+
+        final Map<IV<?, ?>, Long> m = pairs.get(p1);
+
+        if (m == null)
+            return 0L;
+
+        final Long n = m.get(p2);
+
+        return n == null ? 0L : n;
+
+    }
+
+    private static boolean containsAll(final CharacteristicSet set,
+            final Collection<IV<?, ?>> predicates) {
+
+        for (IV<?, ?> p : predicates) {
+
+            if (set.indexOf(p) == -1)
+                return false;
+
+        }
+
+        return true;
+
+    }
+
+    @Override
+    public String toString() {
+
+        return "CharacteristicSets{size=" + sets.length + ",pairs="
+                + pairs.size() + "}";
+
+    }
+
+    /**
+     * Read the characteristic sets and predicate pairs from the index.
+     */
+    static CharacteristicSets read(final IIndex ndx) {
+
+        final List<CharacteristicSet> sets = new LinkedList<CharacteristicSet>();
+
+        final Map<IV<?, ?>, Map<IV<?, ?>, Long>> pairs = new HashMap<IV<?, ?>, Map<IV<?, ?>, Long>>();
+
+        final ITupleIterator<?> itr = ndx.rangeIterator(null/* fromKey */,
+                null/* toKey */, 0/* capacity */, IRangeQuery.KEYS
+                        | IRangeQuery.VALS, null/* filter */);
+
+        while (itr.hasNext()) {
+
+            final ITuple<?> tuple = itr.next();
+
+            final byte[] key = tuple.getKey();
+
+            @SuppressWarnings("rawtypes")
+            final IV[] ivs = IVUtility.decodeAll(key, 1/* off */,
+                    key.length - 1);
+
+            final DataInputBuffer in = tuple.getValueStream();
+
+            try {
+
+                if (key[0] == CSET) {
+
+                    final long count = in.unpackLong();
+
+                    final long[] occurrences = new long[ivs.length];
+
+                    for (int i = 0; i < ivs.length; i++) {
+
+                        occurrences[i] = in.unpackLong();
+
+                    }
+
+                    sets.add(new CharacteristicSet(ivs, count, occurrences));
+
+                } else if (key[0] == PAIR) {
+
+                    Map<IV<?, ?>, Long> m = pairs.get(ivs[0]);
+
+                    if (m == null) {
+
+                        pairs.put(ivs[0], m = new HashMap<IV<?, ?>, Long>());
+
+                    }
+
+                    m.put(ivs[1], in.unpackLong());
+
+                }
+
+            } catch (IOException ex) {
+
+                throw new RuntimeException(ex);
+
+            }
+
+        }
+
+        return new CharacteristicSets(
+                sets.toArray(new CharacteristicSet[sets.size()]), pairs);
+
+    }
+
+    /**
+     * The changes to be applied to the characteristic sets in the index. The
+     * changes are aggregated by characteristic set before they are written
+     * onto the index.
+     */
+    static class Delta {
+
+        private final IKeyBuilder keyBuilder = KeyBuilder.newInstance();
+
+        private final Map<ByteBuffer, CharacteristicSetDelta> sets = new HashMap<ByteBuffer, CharacteristicSetDelta>();
+
+        /**
+         * Add (or remove) a subject having the given #of statements for each
+         * of its predicates.
+         *
+         * @param counts
+         *            The #of statements for each predicate used by the
+         *            subject. Nothing is done if this map is empty.
+         * @param add
+         *            <code>true</code> to add the subject and
+         *            <code>false</code> to remove it.
+         *
+         * @return The aggregated changes for the characteristic set of the
+         *         subject -or- <code>null</code> if the map was empty.
+         */
+        CharacteristicSetDelta add(final Map<IV<?, ?>, Long> counts,
+                final boolean add) {
+
+            if (counts.isEmpty())
+                return null;
+
+            @SuppressWarnings("rawtypes")
+            final IV[] predicates = counts.keySet().toArray(
+                    new IV[counts.size()]);
+
+            Arrays.sort(predicates);
+
+            keyBuilder.reset().append(CSET);
+
+            for (IV<?, ?> p : predicates) {
+
+                IVUtility.encode(keyBuilder, p);
+
+            }
+
+            final ByteBuffer key = ByteBuffer.wrap(keyBuilder.getKey());
+
+            CharacteristicSetDelta d = sets.get(key);
+
+            if (d == null) {
+
+                sets.put(key, d = new CharacteristicSetDelta(predicates));
+
+            }
+
+            final int sign = add ? 1 : -1;
+
+            d.count += sign;
+
+            for (int i = 0; i < predicates.length; i++) {
+
+                d.occurrences[i] += sign * counts.get(predicates[i]);
+
+            }
+
+            return d;
+
+        }
+
+        /**
+         * The #of distinct characteristic sets which have been changed.
+         */
+        int size() {
+
+            return sets.size();
+
+        }
+
+        /**
+         * Write the aggregated changes onto the index. Characteristic sets
+         * whose subject count becomes ZERO are removed from the index.
+         */
+        void apply(final IIndex ndx) {
+
+            final DataOutputBuffer out = new DataOutputBuffer();
+
+            for (Map.Entry<ByteBuffer, CharacteristicSetDelta> e : sets
+                    .entrySet()) {
+
+                final byte[] key = e.getKey().array();
+
+                final CharacteristicSetDelta d = e.getValue();
+
+                long count = d.count;
+
+                final long[] occurrences = d.occurrences.clone();
+
+                if (count == 0 && isZero(occurrences))
+                    continue;
+
+                final byte[] val = ndx.lookup(key);
+
+                if (val != null) {
+
+                    final DataInputBuffer in = new DataInputBuffer(val);
+
+                    try {
+
+                        count += in.unpackLong();
+
+                        for (int i = 0; i < occurrences.length; i++) {
+
+                            occurrences[i] += in.unpackLong();
+
+                        }
+
+                    } catch (IOException ex) {
+
+                        throw new RuntimeException(ex);
+
+                    }
+
+                }
+
+                if (count <= 0) {
+
+                    if (val != null)
+                        ndx.remove(key);
+
+                    continue;
+
+                }
+
+                out.reset();
+
+                out.packLong(count);
+
+                for (int i = 0; i < occurrences.length; i++) {
+
+                    out.packLong(Math.max(0L, occurrences[i]));
+
+                }
+
+                ndx.insert(key, out.toByteArray());
+
+            }
+
+            sets.clear();
+
+        }
+
+        private static boolean isZero(final long[] a) {
+
+            for (long x : a) {
+
+                if (x != 0L)
+                    return false;
+
+            }
+
+            return true;
+
+        }
+
+    }
+
+    /**
+     * The aggregated changes for one characteristic set.
+     */
+    static class CharacteristicSetDelta {
+
+        final IV<?, ?>[] predicates;
+
+        long count;
+
+        final long[] occurrences;
+
+        CharacteristicSetDelta(final IV<?, ?>[] predicates) {
+
+            this.predicates = predicates;
+
+            this.occurrences = new long[predicates.length];
+
+        }
+
+    }
+
+    /**
+     * Write the estimated #of solutions for each predicate pair onto the
+     * index.
+     */
+    static void writePairs(final IIndex ndx,
+            final Map<IV<?, ?>, Map<IV<?, ?>, Double>> pairs) {
+
+        final IKeyBuilder keyBuilder = KeyBuilder.newInstance();
+
+        final DataOutputBuffer out = new DataOutputBuffer();
+
+        for (Map.Entry<IV<?, ?>, Map<IV<?, ?>, Double>> e : pairs.entrySet()) {
+
+            for (Map.Entry<IV<?, ?>, Double> f : e.getValue().entrySet()) {
+
+                keyBuilder.reset().append(PAIR);
+
+                IVUtility.encode(keyBuilder, e.getKey());
+
+                IVUtility.encode(keyBuilder, f.getKey());
+
+                out.reset();
+
+                out.packLong((long) Math.ceil(f.getValue()));
+
+                ndx.insert(keyBuilder.getKey(), out.toByteArray());
+
+            }
+
+        }
+
+    }
+
+}
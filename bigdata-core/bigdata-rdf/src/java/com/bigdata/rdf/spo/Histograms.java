@@ -0,0 +1,594 @@
+/*
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+
+package com.bigdata.rdf.spo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.btree.IIndex;
+import com.bigdata.btree.ILinearList;
+import com.bigdata.btree.IRangeQuery;
+import com.bigdata.btree.ITuple;
+import com.bigdata.btree.ITupleIterator;
+import com.bigdata.btree.keys.IKeyBuilder;
+import com.bigdata.btree.keys.KeyBuilder;
+import com.bigdata.btree.keys.SuccessorUtil;
+import com.bigdata.io.DataInputBuffer;
+import com.bigdata.io.DataOutputBuffer;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.IVUtility;
+import com.bigdata.rdf.sparql.ast.optimizers.ASTRangeCountOptimizer;
+import com.bigdata.rdf.store.AbstractTripleStore;
+
+/**
+ * An immutable snapshot of the histograms of the statement indices of an
+ * {@link SPORelation}. For each statement index and each prefix length
+ * <code>k</code> in <code>[1:{@value #MAX_PREFIX_LENGTH}]</code>, the snapshot
+ * reports the estimated #of distinct values of the leading <code>k</code> key
+ * components and the exact range count of the key prefixes found at the
+ * boundaries of an equi-depth histogram over the index. Every key prefix whose
+ * range count exceeds the depth of a bucket spans at least one bucket boundary
+ * and is therefore recorded. A key prefix which is not recorded is selective
+ * and {@link #getRangeCount(SPOKeyOrder, IV...)} reports <code>-1L</code> so
+ * the caller can fall back on a range count.
+ * <p>
+ * The histogram of a statement index is built from the index positions of an
+ * {@link ILinearList} index, so building a histogram requires
+ * <code>O(buckets)</code> index probes rather than a scan. The histograms are
+ * rebuilt by {@link #refresh(IIndex, SPOKeyOrder, IIndex, int, boolean)} when
+ * the entry count of the statement index has drifted by more than the depth of
+ * a bucket.
+ * <p>
+ * The index keys begin with the {@link SPOKeyOrder#index()} of the statement
+ * index, the prefix length and the kind of record. The entry count of the
+ * statement index is stored under <code>[keyOrder][0][SUMMARY]</code>. The
+ * estimated #of distinct prefixes of length <code>k</code> is stored under
+ * <code>[keyOrder][k][SUMMARY]</code>. The range count of a recorded prefix is
+ * stored under <code>[keyOrder][k][VALUE][iv1]...[ivk]</code>. All values are
+ * packed longs.
+ * 
+ * @see AbstractTripleStore.Options#HISTOGRAMS
+ * @see ASTRangeCountOptimizer
+ */
+public class Histograms {
+
+    private static final transient Logger log = Logger
+            .getLogger(Histograms.class);
+
+    /**
+     * The maximum #of leading key components for which statistics are
+     * maintained.
+     */
+    public static final int MAX_PREFIX_LENGTH = 2;
+
+    /**
+     * The record kind for the entry count and the distinct counts.
+     */
+    static final byte SUMMARY = 0;
+
+    /**
+     * The record kind for the range count of a key prefix.
+     */
+    static final byte VALUE = 1;
+
+    /**
+     * The maximum #of index probes used to count the distinct prefixes within
+     * a bucket. The count for the rest of the bucket is extrapolated from the
+     * density of the distinct prefixes visited by those probes.
+     */
+    static final int MAX_PROBES = 16;
+
+    /**
+     * The statistics for one statement index.
+     */
+    private static class Histogram {
+
+        long entryCount = -1L;
+
+        final long[] distinctCounts = new long[MAX_PREFIX_LENGTH + 1];
+
+        /**
+         * The range count for each recorded key prefix (keyed by the encoded
+         * prefix).
+         */
+        final Map<ByteBuffer, Long> counts = new HashMap<ByteBuffer, Long>();
+
+        Histogram() {
+
+            Arrays.fill(distinctCounts, -1L);
+
+        }
+
+    }
+
+    /**
+     * The statistics for each statement index (indexed by
+     * {@link SPOKeyOrder#index()}). An element is <code>null</code> if there
+     * is no histogram for that statement index.
+     */
+    private final Histogram[] histograms;
+
+    private Histograms(final Histogram[] histograms) {
+
+        this.histograms = histograms;
+
+    }
+
+    /**
+     * Return <code>true</code> iff there is a histogram for the statement
+     * index.
+     */
+    public boolean hasHistogram(final SPOKeyOrder keyOrder) {
+
+        return histograms[keyOrder.index()] != null;
+
+    }
+
+    /**
+     * Return the #of entries in the statement index when its histogram was
+     * built -or- <code>-1L</code> if there is no histogram for that index.
+     */
+    public long getEntryCount(final SPOKeyOrder keyOrder) {
+
+        final Histogram h = histograms[keyOrder.index()];
+
+        return h == null ? -1L : h.entryCount;
+
+    }
+
+    /**
+     * Return the estimated #of distinct values of the leading
+     * <i>prefixLength</i> key components of the statement index -or-
+     * <code>-1L</code> if that estimate is not available.
+     */
+    public long getDistinctCount(final SPOKeyOrder keyOrder,
+            final int prefixLength) {
+
+        final Histogram h = histograms[keyOrder.index()];
+
+        if (h == null || prefixLength < 1 || prefixLength > MAX_PREFIX_LENGTH)
+            return -1L;
+
+        return h.distinctCounts[prefixLength];
+
+    }
+
+    /**
+     * Return the range count of the key prefix in the statement index.
+     * 
+     * @param keyOrder
+     *            The statement index.
+     * @param prefix
+     *            The leading key components (may be empty).
+     * 
+     * @return The entry count of the index for an empty prefix, the range
+     *         count of the prefix if it is recorded by the histogram and
+     *         <code>-1L</code> otherwise (there is no histogram, the prefix is
+     *         too long or the prefix is selective).
+     */
+    public long getRangeCount(final SPOKeyOrder keyOrder,
+            final IV<?, ?>... prefix) {
+
+        final Histogram h = histograms[keyOrder.index()];
+
+        if (h == null || prefix.length > MAX_PREFIX_LENGTH)
+            return -1L;
+
+        if (prefix.length == 0)
+            return h.entryCount;
+
+        final IKeyBuilder keyBuilder = KeyBuilder.newInstance();
+
+        for (IV<?, ?> iv : prefix) {
+
+            IVUtility.encode(keyBuilder, iv);
+
+        }
+
+        final Long n = h.counts.get(ByteBuffer.wrap(keyBuilder.getKey()));
+
+        return n == null ? -1L : n;
+
+    }
+
+    /**
+     * Return the range count of the statement pattern on the statement index
+     * -or- <code>-1L</code> if it can not be answered from the histogram. The
+     * bound components of the statement pattern must form a key prefix of the
+     * statement index.
+     * 
+     * @param keyOrder
+     *            The statement index.
+     * @param s
+     *            The subject (optional).
+     * @param p
+     *            The predicate (optional).
+     * @param o
+     *            The object (optional).
+     * @param c
+     *            The context (optional).
+     */
+    public long getRangeCount(final SPOKeyOrder keyOrder, final IV<?, ?> s,
+            final IV<?, ?> p, final IV<?, ?> o, final IV<?, ?> c) {
+
+        final IV<?, ?>[] spoc = new IV[] { s, p, o, c };
+
+        final int keyArity = keyOrder.getKeyArity();
+
+        int prefixLength = 0;
+
+        while (prefixLength < keyArity
+                && spoc[keyOrder.getKeyOrder(prefixLength)] != null) {
+
+            prefixLength++;
+
+        }
+
+        for (int i = prefixLength; i < keyArity; i++) {
+
+            if (spoc[keyOrder.getKeyOrder(i)] != null) {
+
+                // the bound components are not a key prefix.
+                return -1L;
+
+            }
+
+        }
+
+        final IV<?, ?>[] prefix = new IV[prefixLength];
+
+        for (int i = 0; i < prefixLength; i++) {
+
+            prefix[i] = spoc[keyOrder.getKeyOrder(i)];
+
+        }
+
+        return getRangeCount(keyOrder, prefix);
+
+    }
+
+    @Override
+    public String toString() {
+
+        final StringBuilder sb = new StringBuilder("Histograms{");
+
+        for (int i = 0; i < histograms.length; i++) {
+
+            final Histogram h = histograms[i];
+
+            if (h == null)
+                continue;
+
+            sb.append(SPOKeyOrder.valueOf(i).getIndexName()).append("=")
+                    .append("{entryCount=").append(h.entryCount)
+                    .append(",distinctCounts=")
+                    .append(Arrays.toString(h.distinctCounts))
+                    .append(",values=").append(h.counts.size()).append("}");
+
+        }
+
+        return sb.append("}").toString();
+
+    }
+
+    /**
+     * Read the histograms from the index.
+     */
+    static Histograms read(final IIndex ndx) {
+
+        final Histogram[] histograms = new Histogram[SPOKeyOrder.MAX_INDEX_COUNT];
+
+        final ITupleIterator<?> itr = ndx.rangeIterator(null/* fromKey */,
+                null/* toKey */, 0/* capacity */, IRangeQuery.KEYS
+                        | IRangeQuery.VALS, null/* filter */);
+
+        while (itr.hasNext()) {
+
+            final ITuple<?> tuple = itr.next();
+
+            final byte[] key = tuple.getKey();
+
+            Histogram h = histograms[key[0]];
+
+            if (h == null) {
+
+                histograms[key[0]] = h = new Histogram();
+
+            }
+
+            final long n;
+
+            final DataInputBuffer in = tuple.getValueStream();
+
+            try {
+
+                n = in.unpackLong();
+
+            } catch (IOException ex) {
+
+                throw new RuntimeException(ex);
+
+            }
+
+            if (key[2] == VALUE) {
+
+                h.counts.put(
+                        ByteBuffer.wrap(Arrays.copyOfRange(key, 3, key.length)),
+                        n);
+
+            } else if (key[1] == 0) {
+
+                h.entryCount = n;
+
+            } else {
+
+                h.distinctCounts[key[1]] = n;
+
+            }
+
+        }
+
+        return new Histograms(histograms);
+
+    }
+
+    /**
+     * Rebuild the histogram for a statement index if the entry count of that
+     * index has drifted by more than the depth of a bucket since the
+     * histogram was built. Nothing is done unless the statement index
+     * implements {@link ILinearList}.
+     * <p>
+     * Note: This writes on the histogram index. The caller is responsible for
+     * the commit.
+     * 
+     * @param ndx
+     *            The statement index.
+     * @param keyOrder
+     *            The key order of that index.
+     * @param hist
+     *            The histogram index.
+     * @param buckets
+     *            The #of buckets.
+     * @param force
+     *            When <code>true</code> the histogram is rebuilt even if the
+     *            entry count has not drifted.
+     * 
+     * @return <code>true</code> iff the histogram was rebuilt.
+     */
+    static boolean refresh(final IIndex ndx, final SPOKeyOrder keyOrder,
+            final IIndex hist, final int buckets, final boolean force) {
+
+        if (buckets <= 0)
+            throw new IllegalArgumentException();
+
+        if (!(ndx instanceof ILinearList))
+            return false;
+
+        final ILinearList list = (ILinearList) ndx;
+
+        final long n = ndx.rangeCount();
+
+        final byte ko = (byte) keyOrder.index();
+
+        final byte[] summaryKey = new byte[] { ko, 0, SUMMARY };
+
+        if (!force) {
+
+            final byte[] val = hist.lookup(summaryKey);
+
+            if (val != null) {
+
+                final long prior;
+                try {
+                    prior = new DataInputBuffer(val).unpackLong();
+                } catch (IOException ex) {
+                    throw new RuntimeException(ex);
+                }
+
+                if (Math.abs(n - prior) < Math.max(1L, prior / buckets)) {
+
+                    // the histogram is still current.
+                    return false;
+
+                }
+
+            }
+
+        }
+
+        // remove the old histogram for this statement index.
+        {
+            final ITupleIterator<?> itr = hist.rangeIterator(new byte[] { ko },
+                    new byte[] { (byte) (ko + 1) }, 0/* capacity */,
+                    IRangeQuery.REMOVEALL, null/* filter */);
+
+            while (itr.hasNext()) {
+
+                itr.next();
+
+            }
+        }
+
+        final DataOutputBuffer out = new DataOutputBuffer();
+
+        hist.insert(summaryKey, pack(out, n));
+
+        if (n == 0L)
+            return true;
+
+        final IKeyBuilder keyBuilder = KeyBuilder.newInstance();
+
+        final long nbuckets = Math.min(buckets, n);
+
+        final int maxPrefixLength = Math.min(MAX_PREFIX_LENGTH,
+                keyOrder.getKeyArity() - 1);
+
+        for (int k = 1; k <= maxPrefixLength; k++) {
+
+            // the distinct prefixes found at the bucket boundaries.
+            final Set<ByteBuffer> values = new HashSet<ByteBuffer>();
+
+            long distinctCount = 0L;
+
+            for (long j = 0; j < nbuckets; j++) {
+
+                final long from = n * j / nbuckets;
+
+                final long to = n * (j + 1) / nbuckets;
+
+                final byte[] prefix = getPrefix(keyBuilder,
+                        list.keyAt(from), k);
+
+                values.add(ByteBuffer.wrap(prefix));
+
+                distinctCount += getDistinctCount(list, keyBuilder, prefix,
+                        from, to, k);
+
+            }
+
+            hist.insert(new byte[] { ko, (byte) k, SUMMARY },
+                    pack(out, distinctCount));
+
+            for (ByteBuffer b : values) {
+
+                final byte[] prefix = b.array();
+
+                final long rangeCount = ndx.rangeCount(prefix,
+                        SuccessorUtil.successor(prefix.clone()));
+
+                keyBuilder.reset().append(ko).append((byte) k).append(VALUE)
+                        .append(prefix);
+
+                hist.insert(keyBuilder.getKey(), pack(out, rangeCount));
+
+            }
+
+        }
+
+        if (log.isInfoEnabled())
+            log.info("Built histogram: index=" + keyOrder + ", entryCount="
+                    + n);
+
+        return true;
+
+    }
+
+    private static byte[] pack(final DataOutputBuffer out, final long n) {
+
+        out.reset();
+
+        out.packLong(n);
+
+        return out.toByteArray();
+
+    }
+
+    /**
+     * Return the encoded leading <i>k</i> components of the key.
+     */
+    private static byte[] getPrefix(final IKeyBuilder keyBuilder,
+            final byte[] key, final int k) {
+
+        final IV<?, ?>[] ivs = IVUtility.decode(key, k);
+
+        keyBuilder.reset();
+
+        for (IV<?, ?> iv : ivs) {
+
+            IVUtility.encode(keyBuilder, iv);
+
+        }
+
+        return keyBuilder.getKey();
+
+    }
+
+    /**
+     * Return the index position of the first key GTE the given key.
+     */
+    private static long positionOf(final ILinearList list, final byte[] key) {
+
+        final long pos = list.indexOf(key);
+
+        return pos < 0 ? -(pos + 1) : pos;
+
+    }
+
+    /**
+     * Return the estimated #of distinct prefixes whose first occurrence lies
+     * in the index positions <code>[from:to)</code>.
+     * 
+     * @param prefix
+     *            The prefix of the key at <i>from</i>.
+     */
+    private static long getDistinctCount(final ILinearList list,
+            final IKeyBuilder keyBuilder, byte[] prefix, final long from,
+            final long to, final int k) {
+
+        // do not count a prefix which was counted by the previous bucket.
+        long d = positionOf(list, prefix) < from ? 0L : 1L;
+
+        for (int probes = 0;; probes++) {
+
+            // the first position of the next prefix.
+            final long next = positionOf(list,
+                    SuccessorUtil.successor(prefix.clone()));
+
+            if (next >= to)
+                return d;
+
+            if (probes == MAX_PROBES) {
+
+                /*
+                 * Extrapolate from the density of the distinct prefixes in
+                 * [from:next).
+                 */
+
+                return d
+                        + (long) Math.ceil(((double) (to - next))
+                                * (probes + 1) / (next - from));
+
+            }
+
+            d++;
+
+            prefix = getPrefix(keyBuilder, list.keyAt(next), k);
+
+        }
+
+    }
+
+}
@@ -31,6 +31,7 @@ package com.bigdata.rdf.spo;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -42,6 +43,7 @@ import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.log4j.Logger;
@@ -60,6 +62,7 @@ import com.bigdata.btree.DefaultTupleSerializer;
 import com.bigdata.btree.IIndex;
 import com.bigdata.btree.IRangeQuery;
 import com.bigdata.btree.ITuple;
+import com.bigdata.btree.ITupleIterator;
 import com.bigdata.btree.IndexMetadata;
 import com.bigdata.btree.filter.TupleFilter;
 import com.bigdata.btree.isolation.IConflictResolver;
@@ -70,6 +73,7 @@ import com.bigdata.btree.proc.LongAggregator;
 import com.bigdata.btree.raba.codec.EmptyRabaValueCoder;
 import com.bigdata.btree.raba.codec.FixedLengthValueRabaCoder;
 import com.bigdata.btree.raba.codec.IRabaCoder;
+import com.bigdata.cache.ConcurrentWeakValueCacheWithTimeout;
 import com.bigdata.journal.AbstractTask;
 import com.bigdata.journal.IIndexManager;
 import com.bigdata.journal.IResourceLock;
@@ -158,6 +162,18 @@ public class SPORelation extends AbstractRelation<ISPO> {
     /** Hard reference to the justifications index iff used. */
     private volatile IIndex just;
 
+    /**
+     * A reference to the index on which the {@link CharacteristicSets} are
+     * stored (iff they are enabled).
+     */
+    private volatile IIndex cset;
+
+    /**
+     * A reference to the index on which the {@link Histograms} are stored
+     * (iff they are enabled).
+     */
+    private volatile IIndex hist;
+
     /**
      * Constant for the {@link SPORelation} namespace component.
      * <p>
@@ -170,6 +186,10 @@ public class SPORelation extends AbstractRelation<ISPO> {
     public static final String NAME_SPO_RELATION = "spo";
     
     private static final transient String NAME_JUST = "JUST";
+
+    private static final transient String NAME_CSET = "CSET";
+
+    private static final transient String NAME_HIST = "HIST";
     
     /**
      * This is used to conditionally enable the logic to retract justifications
@@ -195,6 +215,27 @@ public class SPORelation extends AbstractRelation<ISPO> {
      */
     final private boolean historyService;
 
+    /**
+     * This is used to conditionally maintain the {@link CharacteristicSets}.
+     * 
+     * @see AbstractTripleStore.Options#CHARACTERISTIC_SETS
+     */
+    final private boolean characteristicSets;
+
+    /**
+     * This is used to conditionally maintain the {@link Histograms}.
+     * 
+     * @see AbstractTripleStore.Options#HISTOGRAMS
+     */
+    final private boolean histograms;
+
+    /**
+     * The #of buckets for the {@link Histograms}.
+     * 
+     * @see AbstractTripleStore.Options#HISTOGRAM_BUCKETS
+     */
+    final private int histogramBuckets;
+
     /**
      * When true, SPOs will never be removed from the indices, only downgraded
      * to {@link StatementEnum#History}.
@@ -270,6 +311,23 @@ public class SPORelation extends AbstractRelation<ISPO> {
                 AbstractTripleStore.Options.HISTORY_SERVICE,
                 AbstractTripleStore.Options.DEFAULT_HISTORY_SERVICE));
 
+        this.characteristicSets = Boolean.parseBoolean(getProperty(
+                AbstractTripleStore.Options.CHARACTERISTIC_SETS,
+                AbstractTripleStore.Options.DEFAULT_CHARACTERISTIC_SETS));
+
+        this.histograms = Boolean.parseBoolean(getProperty(
+                AbstractTripleStore.Options.HISTOGRAMS,
+                AbstractTripleStore.Options.DEFAULT_HISTOGRAMS));
+
+        this.histogramBuckets = Integer.parseInt(getProperty(
+                AbstractTripleStore.Options.HISTOGRAM_BUCKETS,
+                AbstractTripleStore.Options.DEFAULT_HISTOGRAM_BUCKETS));
+
+        if (histogramBuckets <= 0)
+            throw new IllegalArgumentException(
+                    AbstractTripleStore.Options.HISTOGRAM_BUCKETS + "="
+                            + histogramBuckets);
+
         this.keyArity = Boolean.valueOf(getProperty(
                 AbstractTripleStore.Options.QUADS,
                 AbstractTripleStore.Options.DEFAULT_QUADS)) ? 4 : 3;
@@ -365,6 +423,18 @@ public class SPORelation extends AbstractRelation<ISPO> {
 
             }
 
+            if (characteristicSets) {
+
+                set.add(getNamespace() + "." + NAME_CSET);
+
+            }
+
+            if (histograms) {
+
+                set.add(getNamespace() + "." + NAME_HIST);
+
+            }
+
             this.indexNames = Collections.unmodifiableSet(set);
 
         }
@@ -477,6 +547,22 @@ public class SPORelation extends AbstractRelation<ISPO> {
 
             }
 
+            if (characteristicSets) {
+
+                final String fqn = getNamespace() + "." + NAME_CSET;
+
+                indexManager.registerIndex(newIndexMetadata(fqn));
+
+            }
+
+            if (histograms) {
+
+                final String fqn = getNamespace() + "." + NAME_HIST;
+
+                indexManager.registerIndex(newIndexMetadata(fqn));
+
+            }
+
             if (historyService) {
 
                 final SPOKeyOrder keyOrder = triples //
@@ -532,6 +618,10 @@ public class SPORelation extends AbstractRelation<ISPO> {
 //
 //            }
 
+            cset = null;
+
+            hist = null;
+
             // destroy the relation declaration metadata.
             super.destroy();
 
@@ -626,6 +716,476 @@ public class SPORelation extends AbstractRelation<ISPO> {
 
     }
 
+    /**
+     * The optional index on which the {@link CharacteristicSets} are stored
+     * -or- <code>null</code> unless
+     * {@link AbstractTripleStore.Options#CHARACTERISTIC_SETS} is enabled.
+     */
+    final public IIndex getCharacteristicSetIndex() {
+
+        if (!characteristicSets)
+            return null;
+
+        if (cset == null) {
+
+            synchronized (this) {
+
+                // attempt to resolve the index and set the index reference.
+                if ((cset = super.getIndex(getNamespace() + "." + NAME_CSET)) == null) {
+
+                    throw new IllegalStateException();
+
+                }
+
+            }
+
+        }
+
+        return cset;
+
+    }
+
+    /**
+     * A snapshot of the {@link CharacteristicSets} or the {@link Histograms}
+     * as of some commit point.
+     */
+    private static class StatisticsSnapshot<T> {
+
+        final long commitTime;
+
+        final T stats;
+
+        StatisticsSnapshot(final long commitTime, final T stats) {
+
+            this.commitTime = commitTime;
+
+            this.stats = stats;
+
+        }
+
+    }
+
+    /**
+     * The most recent {@link CharacteristicSets} for each characteristic set
+     * index (keyed by the index UUID).
+     */
+    private static final ConcurrentWeakValueCacheWithTimeout<UUID, StatisticsSnapshot<CharacteristicSets>> csetCache = new ConcurrentWeakValueCacheWithTimeout<UUID, StatisticsSnapshot<CharacteristicSets>>(
+            20/* queueCapacity */, TimeUnit.MINUTES.toNanos(5));
+
+    /**
+     * The most recent {@link Histograms} for each histogram index (keyed by
+     * the index UUID).
+     */
+    private static final ConcurrentWeakValueCacheWithTimeout<UUID, StatisticsSnapshot<Histograms>> histCache = new ConcurrentWeakValueCacheWithTimeout<UUID, StatisticsSnapshot<Histograms>>(
+            20/* queueCapacity */, TimeUnit.MINUTES.toNanos(5));
+
+    /**
+     * Return the {@link CharacteristicSets} for this view of the relation
+     * -or- <code>null</code> unless
+     * {@link AbstractTripleStore.Options#CHARACTERISTIC_SETS} is enabled. For
+     * a read-only view the snapshot is cached for the commit point of the
+     * index. Otherwise it is read from the current state of the index.
+     */
+    public CharacteristicSets getCharacteristicSets() {
+
+        final IIndex ndx = getCharacteristicSetIndex();
+
+        if (ndx == null)
+            return null;
+
+        if (!(ndx instanceof BTree) || !((BTree) ndx).isReadOnly()) {
+
+            return CharacteristicSets.read(ndx);
+
+        }
+
+        final long commitTime = ((BTree) ndx).getLastCommitTime();
+
+        final UUID indexUUID = ndx.getIndexMetadata().getIndexUUID();
+
+        final StatisticsSnapshot<CharacteristicSets> prior = csetCache
+                .get(indexUUID);
+
+        if (prior != null && prior.commitTime == commitTime) {
+
+            return prior.stats;
+
+        }
+
+        final CharacteristicSets sets = CharacteristicSets.read(ndx);
+
+        if (prior == null || prior.commitTime < commitTime) {
+
+            csetCache.put(indexUUID, new StatisticsSnapshot<CharacteristicSets>(
+                    commitTime, sets));
+
+        }
+
+        return sets;
+
+    }
+
+    /**
+     * The optional index on which the {@link Histograms} are stored -or-
+     * <code>null</code> unless {@link AbstractTripleStore.Options#HISTOGRAMS}
+     * is enabled.
+     */
+    final public IIndex getHistogramIndex() {
+
+        if (!histograms)
+            return null;
+
+        if (hist == null) {
+
+            synchronized (this) {
+
+                // attempt to resolve the index and set the index reference.
+                if ((hist = super.getIndex(getNamespace() + "." + NAME_HIST)) == null) {
+
+                    throw new IllegalStateException();
+
+                }
+
+            }
+
+        }
+
+        return hist;
+
+    }
+
+    /**
+     * Return the {@link Histograms} for this view of the relation -or-
+     * <code>null</code> unless {@link AbstractTripleStore.Options#HISTOGRAMS}
+     * is enabled and this is a read-only view. The snapshot is cached for the
+     * commit point of the index.
+     * <p>
+     * Note: The histograms are not reported for a mutable view since they do
+     * not reflect the writes made since the last commit.
+     */
+    public Histograms getHistograms() {
+
+        final IIndex ndx = getHistogramIndex();
+
+        if (!(ndx instanceof BTree) || !((BTree) ndx).isReadOnly())
+            return null;
+
+        final long commitTime = ((BTree) ndx).getLastCommitTime();
+
+        final UUID indexUUID = ndx.getIndexMetadata().getIndexUUID();
+
+        final StatisticsSnapshot<Histograms> prior = histCache.get(indexUUID);
+
+        if (prior != null && prior.commitTime == commitTime) {
+
+            return prior.stats;
+
+        }
+
+        final Histograms stats = Histograms.read(ndx);
+
+        if (prior == null || prior.commitTime < commitTime) {
+
+            histCache.put(indexUUID, new StatisticsSnapshot<Histograms>(
+                    commitTime, stats));
+
+        }
+
+        return stats;
+
+    }
+
+    /**
+     * Rebuild the {@link Histograms} for each statement index whose entry
+     * count has drifted by more than the depth of a bucket since its
+     * histogram was built. This is invoked by
+     * {@link AbstractTripleStore#commit()}. Nothing is done unless
+     * {@link AbstractTripleStore.Options#HISTOGRAMS} is enabled.
+     * <p>
+     * Note: This writes on the unisolated index. The caller is responsible
+     * for the commit.
+     * 
+     * @param force
+     *            When <code>true</code> all histograms are rebuilt.
+     * 
+     * @return The #of histograms which were rebuilt.
+     */
+    public int updateHistograms(final boolean force) {
+
+        final IIndex ndx = getHistogramIndex();
+
+        if (ndx == null)
+            return 0;
+
+        int n = 0;
+
+        final Iterator<SPOKeyOrder> itr = statementKeyOrderIterator();
+
+        while (itr.hasNext()) {
+
+            final SPOKeyOrder keyOrder = itr.next();
+
+            if (Histograms.refresh(getIndex(keyOrder), keyOrder, ndx,
+                    histogramBuckets, force)) {
+
+                n++;
+
+            }
+
+        }
+
+        return n;
+
+    }
+
+    /**
+     * Rebuild the {@link CharacteristicSets} from a scan of the primary
+     * statement index. The characteristic sets are maintained incrementally
+     * as statements are written, but the predicate pair statistics for chain
+     * joins are only computed by this method. Those statistics are computed
+     * from a second scan and require the characteristic set of each subject
+     * to be buffered in memory. They are not computed if there are more than
+     * <i>maxChainSubjects</i> distinct subjects.
+     * <p>
+     * Note: This writes on the unisolated index. The caller is responsible
+     * for the commit.
+     * 
+     * @param maxChainSubjects
+     *            The maximum #of subjects for which the predicate pair
+     *            statistics will be computed (ZERO disables those
+     *            statistics).
+     * 
+     * @return The #of distinct characteristic sets.
+     * 
+     * @throws UnsupportedOperationException
+     *             unless {@link AbstractTripleStore.Options#CHARACTERISTIC_SETS}
+     *             is enabled.
+     */
+    public int buildCharacteristicSets(final int maxChainSubjects) {
+
+        if (maxChainSubjects < 0)
+            throw new IllegalArgumentException();
+
+        final IIndex ndx = getCharacteristicSetIndex();
+
+        if (ndx == null)
+            throw new UnsupportedOperationException();
+
+        // remove the old statistics.
+        {
+            final ITupleIterator<?> itr = ndx.rangeIterator(null/* fromKey */,
+                    null/* toKey */, 0/* capacity */, IRangeQuery.REMOVEALL,
+                    null/* filter */);
+
+            while (itr.hasNext()) {
+
+                itr.next();
+
+            }
+        }
+
+        final IIndex primary = getPrimaryIndex();
+
+        final CharacteristicSets.Delta delta = new CharacteristicSets.Delta();
+
+        // the characteristic set of each subject (for the chain statistics).
+        Map<IV<?, ?>, CharacteristicSets.CharacteristicSetDelta> subjects = maxChainSubjects == 0 ? null
+                : new HashMap<IV<?, ?>, CharacteristicSets.CharacteristicSetDelta>();
+
+        {
+            final ITupleIterator<?> itr = primary.rangeIterator(
+                    null/* fromKey */, null/* toKey */, 0/* capacity */,
+                    IRangeQuery.KEYS, null/* filter */);
+
+            final Map<IV<?, ?>, Long> counts = new HashMap<IV<?, ?>, Long>();
+
+            IV<?, ?> s = null;
+
+            while (true) {
+
+                final IV<?, ?>[] ivs = itr.hasNext() ? IVUtility.decode(itr
+                        .next().getKey(), 2/* numTerms */) : null;
+
+                if (s != null && (ivs == null || !s.equals(ivs[0]))) {
+
+                    // end of the statements for the current subject.
+                    final CharacteristicSets.CharacteristicSetDelta d = delta
+                            .add(counts, true/* add */);
+
+                    if (subjects != null) {
+
+                        subjects.put(s, d);
+
+                        if (subjects.size() > maxChainSubjects) {
+
+                            if (log.isInfoEnabled())
+                                log.info("Too many subjects for chain statistics: "
+                                        + getNamespace());
+
+                            subjects = null;
+
+                        }
+
+                    }
+
+                    counts.clear();
+
+                }
+
+                if (ivs == null)
+                    break;
+
+                s = ivs[0];
+
+                final Long n = counts.get(ivs[1]);
+
+                counts.put(ivs[1], n == null ? 1L : n + 1);
+
+            }
+        }
+
+        final int size = delta.size();
+
+        delta.apply(ndx);
+
+        if (subjects != null) {
+
+            /*
+             * The estimated #of solutions for (?x p1 ?y . ?y p2 ?z) is the sum
+             * over the statements (x p1 y) of the average #of statements using
+             * p2 for the subjects having the characteristic set of y.
+             */
+
+            final Map<IV<?, ?>, Map<IV<?, ?>, Double>> pairs = new HashMap<IV<?, ?>, Map<IV<?, ?>, Double>>();
+
+            final ITupleIterator<?> itr = primary.rangeIterator(
+                    null/* fromKey */, null/* toKey */, 0/* capacity */,
+                    IRangeQuery.KEYS, null/* filter */);
+
+            while (itr.hasNext()) {
+
+                final IV<?, ?>[] ivs = IVUtility.decode(itr.next().getKey(),
+                        3/* numTerms */);
+
+                final CharacteristicSets.CharacteristicSetDelta d = subjects
+                        .get(ivs[2]);
+
+                if (d == null)
+                    continue;
+
+                Map<IV<?, ?>, Double> m = pairs.get(ivs[1]);
+
+                if (m == null) {
+
+                    pairs.put(ivs[1], m = new HashMap<IV<?, ?>, Double>());
+
+                }
+
+                for (int i = 0; i < d.predicates.length; i++) {
+
+                    final Double n = m.get(d.predicates[i]);
+
+                    m.put(d.predicates[i], (n == null ? 0d : n)
+                            + ((double) d.occurrences[i]) / d.count);
+
+                }
+
+            }
+
+            CharacteristicSets.writePairs(ndx, pairs);
+
+        }
+
+        if (log.isInfoEnabled())
+            log.info("Built " + size + " characteristic sets: "
+                    + getNamespace());
+
+        return size;
+
+    }
+
+    /**
+     * Return the #of statements for each predicate used by each distinct
+     * subject of the given statements.
+     */
+    private Map<IV<?, ?>, Map<IV<?, ?>, Long>> getPredicateCounts(
+            final IKeyBuilder keyBuilder, final ISPO[] a, final int numStmts) {
+
+        final Map<IV<?, ?>, Map<IV<?, ?>, Long>> m = new HashMap<IV<?, ?>, Map<IV<?, ?>, Long>>();
+
+        for (int i = 0; i < numStmts; i++) {
+
+            final IV<?, ?> s = a[i].s();
+
+            if (!m.containsKey(s)) {
+
+                m.put(s, getPredicateCounts(keyBuilder, s));
+
+            }
+
+        }
+
+        return m;
+
+    }
+
+    /**
+     * Return the #of statements for each predicate used by the subject.
+     */
+    private Map<IV<?, ?>, Long> getPredicateCounts(
+            final IKeyBuilder keyBuilder, final IV<?, ?> s) {
+
+        final byte[] fromKey = IVUtility.encode(keyBuilder.reset(), s)
+                .getKey();
+
+        final byte[] toKey = SuccessorUtil.successor(fromKey.clone());
+
+        final ITupleIterator<?> itr = getPrimaryIndex().rangeIterator(fromKey,
+                toKey, 0/* capacity */, IRangeQuery.KEYS, null/* filter */);
+
+        final Map<IV<?, ?>, Long> counts = new HashMap<IV<?, ?>, Long>();
+
+        while (itr.hasNext()) {
+
+            final IV<?, ?> p = IVUtility.decode(itr.next().getKey(), 2/* numTerms */)[1];
+
+            final Long n = counts.get(p);
+
+            counts.put(p, n == null ? 1L : n + 1);
+
+        }
+
+        return counts;
+
+    }
+
+    /**
+     * Update the {@link CharacteristicSets} for the subjects whose predicate
+     * counts before a write on the statement indices are given.
+     */
+    private void updateCharacteristicSets(final IKeyBuilder keyBuilder,
+            final Map<IV<?, ?>, Map<IV<?, ?>, Long>> before) {
+
+        final CharacteristicSets.Delta delta = new CharacteristicSets.Delta();
+
+        for (Map.Entry<IV<?, ?>, Map<IV<?, ?>, Long>> e : before.entrySet()) {
+
+            final Map<IV<?, ?>, Long> after = getPredicateCounts(keyBuilder,
+                    e.getKey());
+
+            if (after.equals(e.getValue()))
+                continue;
+
+            delta.add(e.getValue(), false/* add */);
+
+            delta.add(after, true/* add */);
+
+        }
+
+        delta.apply(getCharacteristicSetIndex());
+
+    }
+
     /**
      * Return an iterator that will visit the distinct (s,p,o) tuples in the
      * source iterator. The context and statement type information will be
@@ -2167,6 +2727,16 @@ public class SPORelation extends AbstractRelation<ISPO> {
          */
         final boolean reportMutation = true;
         
+        /*
+         * The predicate counts for the subjects of the statements before the
+         * write (when maintaining the characteristic sets).
+         */
+        final IKeyBuilder keyBuilder = characteristicSets ? KeyBuilder
+                .newInstance() : null;
+
+        final Map<IV<?, ?>, Map<IV<?, ?>, Long>> before = characteristicSets ? getPredicateCounts(
+                keyBuilder, a, numStmts) : null;
+
         if (keyArity == 3) {
 
             tasks.add(new SPOIndexWriter(this, a, numStmts, false/* clone */,
@@ -2273,6 +2843,12 @@ public class SPORelation extends AbstractRelation<ISPO> {
 
         }
 
+        if (before != null && mutationCount.get() > 0) {
+
+            updateCharacteristicSets(keyBuilder, before);
+
+        }
+
         final long elapsed = System.currentTimeMillis() - begin;
 
         if (log.isInfoEnabled() && numStmts > 1000) {
@@ -2372,6 +2948,16 @@ public class SPORelation extends AbstractRelation<ISPO> {
          */
         final boolean reportMutation = true;
 
+        /*
+         * The predicate counts for the subjects of the statements before the
+         * write (when maintaining the characteristic sets).
+         */
+        final IKeyBuilder keyBuilder = characteristicSets ? KeyBuilder
+                .newInstance() : null;
+
+        final Map<IV<?, ?>, Map<IV<?, ?>, Long>> before = characteristicSets ? getPredicateCounts(
+                keyBuilder, stmts, numStmts) : null;
+
         if (keyArity == 3) {
 
             tasks.add(new SPOIndexRemover(this, stmts, numStmts,
@@ -2497,6 +3083,12 @@ public class SPORelation extends AbstractRelation<ISPO> {
 
         }
 
+        if (before != null && mutationCount.get() > 0) {
+
+            updateCharacteristicSets(keyBuilder, before);
+
+        }
+
         final long elapsed = System.currentTimeMillis() - begin;
 
         if (log.isInfoEnabled() && numStmts > 1000) {
@@ -27,6 +27,7 @@
 
 package com.bigdata.rdf.store;
 
+import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
@@ -96,11 +97,13 @@ import com.bigdata.rdf.internal.IExtension;
 import com.bigdata.rdf.internal.IExtensionFactory;
 import com.bigdata.rdf.internal.IInlineURIFactory;
 import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.InlineLiteralDictionary;
 import com.bigdata.rdf.internal.InlineURIFactory;
 import com.bigdata.rdf.internal.NotMaterializedException;
 import com.bigdata.rdf.internal.VTE;
 import com.bigdata.rdf.internal.constraints.RangeBOp;
 import com.bigdata.rdf.internal.impl.BlobIV;
+import com.bigdata.rdf.internal.impl.extensions.InlineLiteralDictionaryExtension;
 import com.bigdata.rdf.internal.impl.extensions.XSDStringExtension;
 import com.bigdata.rdf.lexicon.BigdataSubjectCentricFullTextIndex;
 import com.bigdata.rdf.lexicon.BigdataValueCentricFullTextIndex;
@@ -127,9 +130,12 @@ import com.bigdata.rdf.rules.RDFJoinNexusFactory;
 import com.bigdata.rdf.rules.RuleContextEnum;
 import com.bigdata.rdf.sail.RDRHistory;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTBottomUpOptimizer;
+import com.bigdata.rdf.sparql.ast.optimizers.ASTRangeCountOptimizer;
 import com.bigdata.rdf.spo.BulkCompleteConverter;
 import com.bigdata.rdf.spo.BulkFilterConverter;
+import com.bigdata.rdf.spo.CharacteristicSets;
 import com.bigdata.rdf.spo.ExplicitSPOFilter;
+import com.bigdata.rdf.spo.Histograms;
 import com.bigdata.rdf.spo.ISPO;
 import com.bigdata.rdf.spo.JustificationWriter;
 import com.bigdata.rdf.spo.SPO;
@@ -143,7 +149,7 @@ import com.bigdata.rdf.vocab.BaseVocabulary;
 import com.bigdata.rdf.vocab.NoVocabulary;
 import com.bigdata.rdf.vocab.Vocabulary;
 import com.bigdata.rdf.vocab.VocabularyDecl;
-import com.bigdata.rdf.vocab.core.BigdataCoreVocabulary_v20160317;
+import com.bigdata.rdf.vocab.core.BigdataCoreVocabulary_v20261019;
 import com.bigdata.relation.AbstractResource;
 import com.bigdata.relation.IDatabase;
 import com.bigdata.relation.IMutableDatabase;
@@ -338,6 +344,11 @@ abstract public class AbstractTripleStore extends
      */
     final private boolean computeClosureForSids;
     
+    /**
+     * @see Options#HISTOGRAMS
+     */
+    final private boolean histograms;
+    
     /**
      * The {@link RDRHistory} class.
      * 
@@ -694,7 +705,7 @@ abstract public class AbstractTripleStore extends
          * which it provides for {@link AbstractTripleStore}s created using that
          * class.
          */
-        String DEFAULT_VOCABULARY_CLASS = BigdataCoreVocabulary_v20160317.class.getName();
+        String DEFAULT_VOCABULARY_CLASS = BigdataCoreVocabulary_v20261019.class.getName();
         
         /**
          * The {@link Axioms} model that will be used (default
@@ -1313,6 +1324,96 @@ abstract public class AbstractTripleStore extends
         String DEFAULT_INLINE_URI_FACTORY_CLASS = InlineURIFactory.class
                 .getName();
 
+        /**
+         * The name of a file or CLASSPATH resource containing an
+         * {@link InlineLiteralDictionary} (default none). When specified, the
+         * literals in that dictionary are inlined into the statement indices
+         * using a compact code rather than being assigned a term identifier in
+         * the lexicon. This is intended for the few thousand distinct literals
+         * (status codes, country names, enumerated strings, etc.) which
+         * appear in a large fraction of the statements.
+         * <p>
+         * The dictionary is read by {@link AbstractTripleStore#create()} and
+         * its state is stored in the global row store under the
+         * {@link TripleStoreSchema#INLINE_LITERAL_DICTIONARY} property. Later
+         * changes to the file have no effect on an existing KB instance. See
+         * {@link InlineLiteralDictionaryBuilder} for a utility which derives
+         * the dictionary from the literal frequencies of an existing KB
+         * instance.
+         * <p>
+         * Note: The {@link Vocabulary} must declare
+         * {@link InlineLiteralDictionaryExtension#DICTIONARY_LITERAL}. This is
+         * true of the {@link #DEFAULT_VOCABULARY_CLASS}.
+         */
+        String INLINE_LITERAL_DICTIONARY = AbstractTripleStore.class.getName()
+                + ".inlineLiteralDictionary";
+
+        /**
+         * The maximum number of literals which will be read from the
+         * {@link #INLINE_LITERAL_DICTIONARY} (default
+         * {@value #DEFAULT_INLINE_LITERAL_DICTIONARY_MAX_SIZE}).
+         */
+        String INLINE_LITERAL_DICTIONARY_MAX_SIZE = AbstractTripleStore.class
+                .getName() + ".inlineLiteralDictionaryMaxSize";
+
+        String DEFAULT_INLINE_LITERAL_DICTIONARY_MAX_SIZE = "16384";
+
+        /**
+         * When <code>true</code> (default
+         * {@value #DEFAULT_CHARACTERISTIC_SETS}) an index of the
+         * characteristic sets of the statement indices will be maintained. A
+         * characteristic set is the set of predicates used by a subject. The
+         * index records the #of subjects having each characteristic set and
+         * the #of statements for each predicate of that set. The static join
+         * optimizer uses these statistics to estimate the cardinality of star
+         * joins (statement patterns sharing a subject variable).
+         * <p>
+         * The characteristic sets are updated as statements are written. The
+         * predicate pair statistics used to estimate the cardinality of chain
+         * joins are only computed by
+         * {@link SPORelation#buildCharacteristicSets(int)} (see
+         * {@link BuildCharacteristicSets}).
+         *
+         * @see CharacteristicSets
+         */
+        String CHARACTERISTIC_SETS = AbstractTripleStore.class.getName()
+                + ".characteristicSets";
+
+        String DEFAULT_CHARACTERISTIC_SETS = "false";
+
+        /**
+         * When <code>true</code> (default {@value #DEFAULT_HISTOGRAMS})
+         * equi-depth histograms and distinct value counts will be maintained
+         * for the leading key components of each statement index. The
+         * histograms are refreshed by {@link AbstractTripleStore#commit()}
+         * for each statement index whose entry count has drifted by more than
+         * the depth of a bucket since the histogram was built. The
+         * {@link ASTRangeCountOptimizer} uses the histograms to estimate the
+         * cardinality of statement patterns without a range count and only
+         * falls back on a range count for the selective constants which the
+         * histograms do not record.
+         * 
+         * @see Histograms
+         * @see #HISTOGRAM_BUCKETS
+         */
+        String HISTOGRAMS = AbstractTripleStore.class.getName()
+                + ".histograms";
+
+        String DEFAULT_HISTOGRAMS = "false";
+
+        /**
+         * The #of buckets in the equi-depth histogram of each statement index
+         * (default {@value #DEFAULT_HISTOGRAM_BUCKETS}). Each bucket records
+         * the exact count for the key prefix at its boundary, so a constant
+         * whose frequency exceeds the depth of a bucket is always recorded.
+         * 
+         * @see #HISTOGRAMS
+         */
+        String HISTOGRAM_BUCKETS = AbstractTripleStore.class.getName()
+                + ".histogramBuckets";
+
+        String DEFAULT_HISTOGRAM_BUCKETS = "256";
+
         /**
          * The name of the {@link RDRHistory} class.  Null by default.
          */
@@ -1563,6 +1664,9 @@ abstract public class AbstractTripleStore extends
                 Options.BOTTOM_UP_EVALUATION,
                 Options.DEFAULT_BOTTOM_UP_EVALUATION));
         
+        this.histograms = Boolean.valueOf(getProperty(Options.HISTOGRAMS,
+                Options.DEFAULT_HISTOGRAMS));
+        
         { // RDR History class
             
             final String className = getProperty(Options.RDR_HISTORY_CLASS, null);
@@ -1856,6 +1960,39 @@ abstract public class AbstractTripleStore extends
                 }
 
 
+                /*
+                 * Snapshot the inline literal dictionary (if any). The codes
+                 * must be stable for the life of the KB instance.
+                 */
+                {
+                    assert inlineLiteralDictionaryRef.get() == null;
+
+                    final String dictionaryName = getProperty(
+                            AbstractTripleStore.Options.INLINE_LITERAL_DICTIONARY,
+                            null/* default */);
+
+                    if (dictionaryName != null) {
+
+                        final int maxSize = Integer.parseInt(getProperty(
+                                AbstractTripleStore.Options.INLINE_LITERAL_DICTIONARY_MAX_SIZE,
+                                AbstractTripleStore.Options.DEFAULT_INLINE_LITERAL_DICTIONARY_MAX_SIZE));
+
+                        try {
+                            inlineLiteralDictionaryRef.set(InlineLiteralDictionary
+                                    .load(dictionaryName, maxSize));
+                        } catch (IOException ex) {
+                            throw new RuntimeException("Bad option: "
+                                    + AbstractTripleStore.Options.INLINE_LITERAL_DICTIONARY
+                                    + "=" + dictionaryName, ex);
+                        }
+
+                        if (INFO)
+                            log.info("Inline literal dictionary: "
+                                    + inlineLiteralDictionaryRef.get());
+
+                    }
+                }
+
                 lexiconRelation = new LexiconRelation(this/* container */,
                         getIndexManager(), LEXICON_NAMESPACE, getTimestamp(),
                         new Properties(tmp)// Note: Must wrap properties!
@@ -1946,6 +2083,12 @@ abstract public class AbstractTripleStore extends
                     // setProperty(TripleStoreSchema.GEO_SPATIAL_CONFIG,geoSpatoalConfig)
                 }
 
+                if (inlineLiteralDictionaryRef.get() != null) {
+                    // inline literal dictionary.
+                    map.put(TripleStoreSchema.INLINE_LITERAL_DICTIONARY,
+                            inlineLiteralDictionaryRef.get());
+                }
+
                 /*
                  * Note: This will now be false automatically since the [map] is
                  * based on the Properties object [tmp] and we have already set
@@ -2271,6 +2414,44 @@ abstract public class AbstractTripleStore extends
         
     }    
     
+    /**
+     * Return the {@link InlineLiteralDictionary} for this KB instance.
+     * 
+     * @return The dictionary -or- <code>null</code> if the KB instance was
+     *         not created with an {@link Options#INLINE_LITERAL_DICTIONARY}.
+     * 
+     * @throws IllegalStateException
+     *             if there is no lexicon.
+     */
+    final public InlineLiteralDictionary getInlineLiteralDictionary() {
+
+        if (!lexicon)
+            throw new IllegalStateException();
+
+        InlineLiteralDictionary dictionary = inlineLiteralDictionaryRef.get();
+
+        if (dictionary == null) {
+
+            /*
+             * Note: The dictionary is optional, so we do not cache a miss. The
+             * lookup against the materialized properties is cheap.
+             */
+            dictionary = (InlineLiteralDictionary) getBareProperties().get(
+                    TripleStoreSchema.INLINE_LITERAL_DICTIONARY);
+
+            if (dictionary != null) {
+
+                inlineLiteralDictionaryRef.compareAndSet(null/* expect */,
+                        dictionary);
+
+            }
+
+        }
+
+        return dictionary;
+
+    }
+
     /**
      * Note: This is used both as a monitor object and as an atomic reference.
      * 
@@ -2285,6 +2466,14 @@ abstract public class AbstractTripleStore extends
      */
     private final AtomicReference<GeoSpatialConfig> geoSpatialConfigRef =
         new AtomicReference<GeoSpatialConfig>();
+
+    /**
+     * The inline literal dictionary -- if null, there is no dictionary.
+     * 
+     * @see #getInlineLiteralDictionary()
+     */
+    private final AtomicReference<InlineLiteralDictionary> inlineLiteralDictionaryRef =
+        new AtomicReference<InlineLiteralDictionary>();
     
     /**
      * The {@link SPORelation} (triples and their access paths).
@@ -2510,6 +2699,9 @@ abstract public class AbstractTripleStore extends
      * <p>
      * Note: This method MUST be extended to perform commit for implementations
      * with live indices.
+     * <p>
+     * Note: The {@link Histograms} are refreshed here (if enabled) so they
+     * are made durable by the same commit.
      * 
      * @throws IllegalStateException
      *             if the view is read only.
@@ -2520,6 +2712,16 @@ abstract public class AbstractTripleStore extends
         if (isReadOnly())
             throw new IllegalStateException();
 
+        if (histograms) {
+
+            final SPORelation spoRelation = getSPORelation();
+
+            // Note: null if the triple store was destroyed.
+            if (spoRelation != null)
+                spoRelation.updateHistograms(false/* force */);
+
+        }
+
         return 0L;
 
     }
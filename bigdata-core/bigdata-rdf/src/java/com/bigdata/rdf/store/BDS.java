@@ -318,6 +318,61 @@ public interface BDS {
     final URI MATCH_REGEX = new URIImpl(NAMESPACE + "matchRegex");
 
     final String DEFAULT_MATCH_REGEX = null;
+
+    /**
+     * Magic predicate used to query for free text search metadata indicates
+     * that only hits in which the search tokens appear as a phrase (in the
+     * same order and at the same relative positions as in the search string)
+     * will be reported. Use in conjunction with {@link #SEARCH} as follows:
+     * <p>
+     * 
+     * <pre>
+     * 
+     * select ?s
+     * where {
+     *   ?s bds:search &quot;scale-out RDF triplestore&quot; .
+     *   ?s bds:matchPhrase "true" .
+     * }
+     * 
+     * </pre>
+     * <p>
+     * This is answered from the token positions in the full text index and
+     * requires that the index was created with
+     * {@link com.bigdata.search.FullTextIndex.Options#POSITIONS_ENABLED}.
+     */
+    final URI MATCH_PHRASE = new URIImpl(NAMESPACE + "matchPhrase");
+
+    final boolean DEFAULT_MATCH_PHRASE = false;
+
+    /**
+     * Magic predicate used to query for free text search metadata indicates
+     * that only hits in which all of the search tokens appear within a window
+     * of at most the specified #of positions will be reported (the order of
+     * the tokens does not matter). Use in conjunction with {@link #SEARCH} as
+     * follows:
+     * <p>
+     * 
+     * <pre>
+     * 
+     * select ?s
+     * where {
+     *   ?s bds:search &quot;RDF triplestore&quot; .
+     *   ?s bds:proximity "3" .
+     * }
+     * 
+     * </pre>
+     * <p>
+     * The window is measured from the position of the first to the position
+     * of the last matched token, so adjacent tokens are within a proximity of
+     * ONE (1). Like {@link #MATCH_PHRASE}, this is answered from the token
+     * positions in the full text index.
+     */
+    final URI PROXIMITY = new URIImpl(NAMESPACE + "proximity");
+
+    /**
+     * The default imposes no proximity constraint.
+     */
+    final int DEFAULT_PROXIMITY = Integer.MAX_VALUE;
     
     /**
      * 
@@ -436,4 +491,45 @@ public interface BDS {
      */
     final URI RANGE_COUNT = new URIImpl(NAMESPACE + "rangeCount");
 
+    /**
+     * Magic predicate for the prefix completion service. Also serves as the
+     * identifier for the service itself. The object is a literal whose last
+     * token is completed against the tokens in the full text index. The
+     * subject is a variable which is bound to each completion (as a plain
+     * literal). For example:
+     * <p>
+     * 
+     * <pre>
+     * 
+     * select ?c ?w
+     * where {
+     *   SERVICE bds:completion {
+     *     ?c bds:completion &quot;scale-out tri&quot; .
+     *     ?c bds:completionWeight ?w .
+     *     ?c bds:maxCompletions &quot;5&quot; .
+     *   }
+     * }
+     * 
+     * </pre>
+     * <p>
+     * The completions are reported in descending order of their weight (the
+     * #of postings for the token). The completion index must be enabled via
+     * {@link com.bigdata.search.FullTextIndex.Options#COMPLETION_INDEX}.
+     */
+    final URI COMPLETION = new URIImpl(NAMESPACE + "completion");
+
+    /**
+     * Magic predicate used with {@link #COMPLETION} to bind the weight of
+     * each completion to the variable in the object position.
+     */
+    final URI COMPLETION_WEIGHT = new URIImpl(NAMESPACE + "completionWeight");
+
+    /**
+     * Magic predicate used with {@link #COMPLETION} to limit the #of reported
+     * completions (default {@value #DEFAULT_MAX_COMPLETIONS}).
+     */
+    final URI MAX_COMPLETIONS = new URIImpl(NAMESPACE + "maxCompletions");
+
+    final int DEFAULT_MAX_COMPLETIONS = 10;
+
 }
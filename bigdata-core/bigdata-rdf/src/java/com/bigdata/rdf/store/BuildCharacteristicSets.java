@@ -0,0 +1,206 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+package com.bigdata.rdf.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import com.bigdata.Banner;
+import com.bigdata.journal.ITx;
+import com.bigdata.journal.Journal;
+import com.bigdata.journal.Options;
+import com.bigdata.rdf.spo.CharacteristicSets;
+import com.bigdata.rdf.spo.SPORelation;
+
+/**
+ * A utility class to rebuild the {@link CharacteristicSets} of an
+ * {@link AbstractTripleStore}, including the predicate pair statistics which
+ * are not maintained incrementally.
+ * 
+ * @see AbstractTripleStore.Options#CHARACTERISTIC_SETS
+ */
+public class BuildCharacteristicSets {
+
+    /**
+     * Utility method to rebuild the characteristic sets in a local journal.
+     * 
+     * @param args
+     *            <code>[-namespace <i>namespace</i>] [-maxChainSubjects <i>n</i>] propertyFile</code>
+     *            where
+     *            <dl>
+     *            <dt>-namespace</dt>
+     *            <dd>The namespace of the KB instance (default is all KB
+     *            instances having the characteristic sets enabled).</dd>
+     *            <dt>-maxChainSubjects</dt>
+     *            <dd>The maximum #of distinct subjects for which the predicate
+     *            pair statistics will be computed (default is
+     *            {@value #DEFAULT_MAX_CHAIN_SUBJECTS}).</dd>
+     *            <dt>propertyFile</dt>
+     *            <dd>The configuration file for the database instance.</dd>
+     *            </dl>
+     * 
+     * @see SPORelation#buildCharacteristicSets(int)
+     */
+    public static void main(final String[] args) throws IOException {
+
+        Banner.banner();
+
+        String namespace = null;
+
+        int maxChainSubjects = DEFAULT_MAX_CHAIN_SUBJECTS;
+
+        int i = 0;
+
+        while (i < args.length) {
+
+            final String arg = args[i];
+
+            if (arg.startsWith("-")) {
+
+                if (arg.equals("-namespace")) {
+
+                    namespace = args[++i];
+
+                } else if (arg.equals("-maxChainSubjects")) {
+
+                    maxChainSubjects = Integer.valueOf(args[++i]);
+
+                } else {
+
+                    System.err.println("Unknown argument: " + arg);
+
+                    usage();
+
+                }
+
+            } else {
+
+                break;
+
+            }
+
+            i++;
+
+        }
+
+        final int remaining = args.length - i;
+
+        if (remaining < 1) {
+
+            System.err.println("Not enough arguments.");
+
+            usage();
+
+        }
+
+        final String propertyFileName = args[i++];
+
+        final Properties properties = RebuildTextIndex
+                .processProperties(propertyFileName);
+
+        final File journal = new File(properties.getProperty(Options.FILE));
+
+        if (!journal.exists()) {
+
+            System.err.println("Journal " + journal + " does not exist");
+
+            return;
+
+        }
+
+        System.out.println("Journal: " + properties.getProperty(Options.FILE));
+
+        final Journal jnl = new Journal(properties);
+
+        try {
+
+            final List<String> namespaces;
+
+            if (namespace == null) {
+
+                namespaces = jnl.getGlobalRowStore().getNamespaces(
+                        jnl.getLastCommitTime());
+
+            } else {
+
+                namespaces = Collections.singletonList(namespace);
+
+            }
+
+            for (String nm : namespaces) {
+
+                final AbstractTripleStore kb = (AbstractTripleStore) jnl
+                        .getResourceLocator().locate(nm, ITx.UNISOLATED);
+
+                if (kb == null) {
+
+                    System.err.println("Namespace " + nm + " does not exist");
+
+                } else if (kb.getSPORelation().getCharacteristicSetIndex() == null) {
+
+                    System.out.println(nm + " - no characteristic sets");
+
+                } else {
+
+                    final int n = kb.getSPORelation().buildCharacteristicSets(
+                            maxChainSubjects);
+
+                    kb.commit();
+
+                    System.out.println(nm + " - completed: " + n
+                            + " characteristic sets");
+
+                }
+
+            }
+
+        } finally {
+
+            jnl.close();
+
+        }
+
+    }
+
+    /**
+     * The default maximum #of distinct subjects for which the predicate pair
+     * statistics will be computed.
+     */
+    public static final int DEFAULT_MAX_CHAIN_SUBJECTS = 10000000;
+
+    private static void usage() {
+
+        System.err.println("usage: [-namespace namespace] [-maxChainSubjects n] propertyFile");
+
+        System.exit(1);
+
+    }
+
+}
@@ -0,0 +1,348 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package com.bigdata.rdf.store;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Properties;
+
+import org.apache.log4j.Logger;
+import org.openrdf.model.Literal;
+
+import com.bigdata.Banner;
+import com.bigdata.btree.IIndex;
+import com.bigdata.btree.IRangeQuery;
+import com.bigdata.btree.ITuple;
+import com.bigdata.btree.ITupleIterator;
+import com.bigdata.journal.Journal;
+import com.bigdata.journal.Options;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.IVUtility;
+import com.bigdata.rdf.internal.InlineLiteralDictionary;
+import com.bigdata.rdf.model.BigdataValue;
+import com.bigdata.rdf.spo.SPOKeyOrder;
+
+/**
+ * A utility class which derives an {@link InlineLiteralDictionary} from the
+ * literal frequencies of an existing {@link AbstractTripleStore}. The
+ * statement index whose keys lead with the object position (OSP or OCSP) is
+ * scanned once. Since all statements for a given object are adjacent in that
+ * index, the frequency of each literal is counted exactly using constant
+ * memory and only the top-N literals are retained in a heap. Inline literals
+ * are ignored since they already avoid the lexicon.
+ * <p>
+ * The generated file may be specified as the
+ * {@link AbstractTripleStore.Options#INLINE_LITERAL_DICTIONARY} when a new KB
+ * instance is created (for example, when reloading the data).
+ */
+public class InlineLiteralDictionaryBuilder {
+
+    private static final Logger log = Logger
+            .getLogger(InlineLiteralDictionaryBuilder.class);
+
+    /**
+     * A literal {@link IV} and the number of statements using it as the
+     * object.
+     */
+    private static class Entry {
+
+        final IV<?, ?> iv;
+
+        final long count;
+
+        Entry(final IV<?, ?> iv, final long count) {
+            this.iv = iv;
+            this.count = count;
+        }
+
+    }
+
+    /**
+     * Orders by increasing frequency, breaking ties on the {@link IV} so the
+     * generated dictionary is deterministic.
+     */
+    private static final Comparator<Entry> ASC = new Comparator<Entry>() {
+        @Override
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        public int compare(final Entry o1, final Entry o2) {
+            if (o1.count < o2.count)
+                return -1;
+            if (o1.count > o2.count)
+                return 1;
+            return ((IV) o2.iv).compareTo(o1.iv);
+        }
+    };
+
+    /**
+     * Derive an {@link InlineLiteralDictionary} from the statements in the
+     * KB instance.
+     * 
+     * @param kb
+     *            The KB instance.
+     * @param maxSize
+     *            The maximum number of literals in the dictionary.
+     * @param minCount
+     *            The minimum number of statements in which a literal must
+     *            appear as the object in order to be included.
+     * 
+     * @return The dictionary, with the most frequent literals first.
+     */
+    public static InlineLiteralDictionary build(final AbstractTripleStore kb,
+            final int maxSize, final long minCount) {
+
+        if (maxSize <= 0)
+            throw new IllegalArgumentException();
+
+        final SPOKeyOrder keyOrder = kb.isQuads() ? SPOKeyOrder.OCSP
+                : SPOKeyOrder.OSP;
+
+        final IIndex ndx = kb.getSPORelation().getIndex(keyOrder);
+
+        final PriorityQueue<Entry> heap = new PriorityQueue<Entry>(
+                maxSize + 1, ASC);
+
+        final ITupleIterator<?> itr = ndx.rangeIterator(null/* fromKey */,
+                null/* toKey */, 0/* capacity */, IRangeQuery.KEYS, null/* filter */);
+
+        IV<?, ?> current = null;
+        long count = 0;
+        long ntuples = 0;
+
+        while (itr.hasNext()) {
+
+            final ITuple<?> tuple = itr.next();
+
+            ntuples++;
+
+            final IV<?, ?> o = IVUtility.decode(tuple.getKey());
+
+            if (o.equals(current)) {
+                count++;
+                continue;
+            }
+
+            offer(heap, current, count, maxSize, minCount);
+
+            current = o;
+            count = 1;
+
+        }
+
+        offer(heap, current, count, maxSize, minCount);
+
+        // Most frequent first.
+        final List<Entry> entries = new ArrayList<Entry>(heap);
+        Collections.sort(entries, Collections.reverseOrder(ASC));
+
+        final List<IV<?, ?>> ivs = new ArrayList<IV<?, ?>>(entries.size());
+        for (Entry e : entries)
+            ivs.add(e.iv);
+
+        final Map<IV<?, ?>, BigdataValue> terms = kb.getLexiconRelation()
+                .getTerms(ivs);
+
+        final List<Literal> literals = new ArrayList<Literal>(entries.size());
+        for (Entry e : entries) {
+            final BigdataValue value = terms.get(e.iv);
+            if (value == null) {
+                log.warn("Could not resolve: " + e.iv);
+                continue;
+            }
+            literals.add((Literal) value);
+        }
+
+        if (log.isInfoEnabled())
+            log.info("Scanned " + ntuples + " tuples on " + keyOrder
+                    + ", dictionary size=" + literals.size());
+
+        return new InlineLiteralDictionary(literals);
+
+    }
+
+    private static void offer(final PriorityQueue<Entry> heap,
+            final IV<?, ?> iv, final long count, final int maxSize,
+            final long minCount) {
+
+        if (iv == null || count < minCount)
+            return;
+
+        if (!iv.isLiteral() || iv.isInline())
+            return;
+
+        if (heap.size() == maxSize) {
+
+            if (heap.peek().count >= count)
+                return;
+
+            heap.poll();
+
+        }
+
+        heap.add(new Entry(iv, count));
+
+    }
+
+    /**
+     * Utility method to derive an {@link InlineLiteralDictionary} from a KB
+     * instance in a local journal.
+     * 
+     * @param args
+     *            <code>[-namespace <i>namespace</i>] [-maxSize <i>n</i>] [-minCount <i>n</i>] propertyFile outputFile</code>
+     *            where
+     *            <dl>
+     *            <dt>-namespace</dt>
+     *            <dd>The namespace of the KB instance (default
+     *            <code>kb</code>).</dd>
+     *            <dt>-maxSize</dt>
+     *            <dd>The maximum number of literals in the dictionary.</dd>
+     *            <dt>-minCount</dt>
+     *            <dd>The minimum number of statements using a literal as
+     *            their object for that literal to be included.</dd>
+     *            <dt>propertyFile</dt>
+     *            <dd>The configuration file for the database instance.</dd>
+     *            <dt>outputFile</dt>
+     *            <dd>The file on which the dictionary will be written.</dd>
+     *            </dl>
+     */
+    public static void main(final String[] args) throws IOException {
+
+        Banner.banner();
+
+        String namespace = "kb";
+
+        int maxSize = Integer
+                .parseInt(AbstractTripleStore.Options.DEFAULT_INLINE_LITERAL_DICTIONARY_MAX_SIZE);
+
+        long minCount = 2;
+
+        int i = 0;
+
+        while (i < args.length) {
+
+            final String arg = args[i];
+
+            if (arg.startsWith("-")) {
+
+                if (arg.equals("-namespace")) {
+
+                    namespace = args[++i];
+
+                } else if (arg.equals("-maxSize")) {
+
+                    maxSize = Integer.parseInt(args[++i]);
+
+                } else if (arg.equals("-minCount")) {
+
+                    minCount = Long.parseLong(args[++i]);
+
+                } else {
+
+                    System.err.println("Unknown argument: " + arg);
+
+                    usage();
+
+                }
+
+            } else {
+
+                break;
+
+            }
+
+            i++;
+
+        }
+
+        if (args.length - i < 2) {
+
+            System.err.println("Not enough arguments.");
+
+            usage();
+
+        }
+
+        final Properties properties = RebuildTextIndex
+                .processProperties(args[i++]);
+
+        final File outputFile = new File(args[i++]);
+
+        final Journal jnl = new Journal(properties);
+
+        try {
+
+            final AbstractTripleStore kb = (AbstractTripleStore) jnl
+                    .getResourceLocator().locate(namespace,
+                            jnl.getLastCommitTime());
+
+            if (kb == null) {
+
+                System.err.println("Namespace " + namespace
+                        + " does not exist");
+
+                return;
+
+            }
+
+            final InlineLiteralDictionary dictionary = build(kb, maxSize,
+                    minCount);
+
+            final Writer w = new OutputStreamWriter(new FileOutputStream(
+                    outputFile), "UTF-8");
+
+            try {
+                dictionary.write(w);
+            } finally {
+                w.close();
+            }
+
+            System.out.println("Wrote " + dictionary.size() + " literals on "
+                    + outputFile + " (" + Options.FILE + "="
+                    + properties.getProperty(Options.FILE) + ")");
+
+        } finally {
+
+            jnl.close();
+
+        }
+
+    }
+
+    private static void usage() {
+
+        System.err.println("usage: [-namespace namespace] [-maxSize n] [-minCount n] propertyFile outputFile");
+
+        System.exit(1);
+
+    }
+
+}
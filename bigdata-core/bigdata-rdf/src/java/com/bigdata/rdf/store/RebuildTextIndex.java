@@ -49,7 +49,7 @@ public class RebuildTextIndex {
      * Utility method to rebuid text index in a local journal.
      * 
      * @param args
-     *            <code>[-namespace <i>namespace</i>] [-forceCreate] propertyFile</code>
+     *            <code>[-namespace <i>namespace</i>] [-forceCreate] [-threads <i>n</i>] [-since <i>commitTime</i>] propertyFile</code>
      *            where
      *            <dl>
      *            <dt>-namespace</dt>
@@ -57,6 +57,14 @@ public class RebuildTextIndex {
      *            <dt>-forceCreate</dt>
      *            <dd>When <code>true</code> a new text index will be created
      *            if does not exist, <code>false</code> is default</dd>
+     *            <dt>-threads</dt>
+     *            <dd>The number of concurrent workers used to tokenize and
+     *            index the literals (default is the number of available
+     *            processors).</dd>
+     *            <dt>-since</dt>
+     *            <dd>When specified, the existing text index is retained and
+     *            only the literals added to the lexicon after the given commit
+     *            time are indexed.</dd>
      *            <dt>propertyFile</dt>
      *            <dd>The configuration file for the database instance.</dd>
      *            </dl>
@@ -69,6 +77,10 @@ public class RebuildTextIndex {
         
         boolean forceCreate = false;
         
+        int nthreads = Runtime.getRuntime().availableProcessors();
+        
+        long sinceCommitTime = 0L;
+        
         int i = 0;
         
         while (i < args.length) {
@@ -85,6 +97,14 @@ public class RebuildTextIndex {
                     
                     forceCreate = true;
                     
+                } else if (arg.equals("-threads")) {
+                    
+                    nthreads = Integer.valueOf(args[++i]);
+                    
+                } else if (arg.equals("-since")) {
+                    
+                    sinceCommitTime = Long.valueOf(args[++i]);
+                    
                 } else {
                     
                     System.err.println("Unknown argument: " + arg);
@@ -143,8 +163,15 @@ public class RebuildTextIndex {
                         
                         if (kb.getLexiconRelation().isTextIndex()) {
                         
+                            if (sinceCommitTime != 0L) {
+                                
+                                kb.getLexiconRelation().updateTextIndex(sinceCommitTime, nthreads);
+                                
+                            } else {
                         
-                            kb.getLexiconRelation().rebuildTextIndex(false /*forceCreate*/);
+                                kb.getLexiconRelation().rebuildTextIndex(false /*forceCreate*/, nthreads);
+                                
+                            }
                             
                             System.out.println(nm + " - completed");
                             
@@ -164,7 +191,15 @@ public class RebuildTextIndex {
                         
                         if (kb != null) {
                             
-                            kb.getLexiconRelation().rebuildTextIndex(forceCreate);
+                            if (sinceCommitTime != 0L) {
+                                
+                                kb.getLexiconRelation().updateTextIndex(sinceCommitTime, nthreads);
+                                
+                            } else {
+                            
+                                kb.getLexiconRelation().rebuildTextIndex(forceCreate, nthreads);
+                                
+                            }
                             
                             System.out.println(namespace + " - completed");
                         
@@ -217,7 +252,7 @@ public class RebuildTextIndex {
     
     private static void usage() {
         
-        System.err.println("usage: [-namespace namespace] [-forceCreate] propertyFile");
+        System.err.println("usage: [-namespace namespace] [-forceCreate] [-threads n] [-since commitTime] propertyFile");
         
         System.exit(1);
         
@@ -365,6 +365,12 @@ public class TempTripleStore extends AbstractLocalTripleStore {
                 // Ensure that the TempTripleStore has a unique namespace.
                 out.setProperty(key, val + "_temporaryStore=" + tempStore.getUUID());
                 
+            } else if (AbstractTripleStore.Options.CHARACTERISTIC_SETS.equals(key)
+                    || AbstractTripleStore.Options.HISTOGRAMS.equals(key)) {
+
+                // The statistics are not used for a temporary store.
+                out.setProperty(key, "false");
+
             } else {
 
                 out.setProperty(key, val);
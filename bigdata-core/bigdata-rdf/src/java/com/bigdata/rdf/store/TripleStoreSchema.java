@@ -1,6 +1,7 @@
 package com.bigdata.rdf.store;
 
 import com.bigdata.rdf.axioms.Axioms;
+import com.bigdata.rdf.internal.InlineLiteralDictionary;
 import com.bigdata.rdf.vocab.RDFSVocabulary;
 import com.bigdata.relation.RelationSchema;
 
@@ -35,6 +36,12 @@ public class TripleStoreSchema extends RelationSchema {
      */
     public static final String GEO_SPATIAL_CONFIG = ns + "geospatialconfig";
 
+    /**
+     * The serialized {@link InlineLiteralDictionary} as configured for the
+     * database (optional).
+     */
+    public static final String INLINE_LITERAL_DICTIONARY = ns + "inlineLiteralDictionary";
+
     /**
      * De-serialization ctor.
      */
@@ -268,6 +268,12 @@ abstract public class AbstractApiTask<T> implements IApiTask<T>, IReadOnly {
         
         // Setup a change listener. It will notice the #of mutations.
         conn.addChangeLog(new SailChangeLog());
+
+        // Setup an optional change listener for the task.
+        final IChangeLog changeLog = newChangeLog();
+
+        if (changeLog != null)
+            conn.addChangeLog(changeLog);
         
         return conn;
 
@@ -302,10 +308,29 @@ abstract public class AbstractApiTask<T> implements IApiTask<T>, IReadOnly {
         
         // Setup a change listener. It will notice the #of mutations.
         conn.addChangeLog(new SailChangeLog());
+
+        // Setup an optional change listener for the task.
+        final IChangeLog changeLog = newChangeLog();
+
+        if (changeLog != null)
+            conn.addChangeLog(changeLog);
         
         return conn;
 
     }
+
+    /**
+     * Return an additional {@link IChangeLog} to be registered on the
+     * connections returned by {@link #getConnection()} and
+     * {@link #getUnisolatedSailConnection()} -or- <code>null</code> if there is
+     * no such listener (this is the default). A new instance is requested for
+     * each connection.
+     */
+    protected IChangeLog newChangeLog() {
+
+        return null;
+
+    }
     
     private class SailChangeLog implements IChangeLog {
 
@@ -334,6 +359,27 @@ abstract public class AbstractApiTask<T> implements IApiTask<T>, IReadOnly {
             public void close() {
             }
     }
+
+   /**
+    * Return <code>true</code> iff the task will be run on the
+    * {@link IConcurrencyManager} of the {@link Journal} by
+    * {@link #submitApiTask(IIndexManager, IApiTask)}. Such tasks are not done
+    * until the group commit point and the {@link Future} returned for them is
+    * obtained from the {@link IConcurrencyManager}.
+    * 
+    * @param indexManager
+    *           The {@link IndexManager}.
+    * @param task
+    *           The task.
+    */
+   static public boolean isGroupCommitTask(final IIndexManager indexManager,
+         final IApiTask<?> task) {
+
+      return indexManager.isGroupCommit()
+            && !(indexManager instanceof IBigdataFederation)
+            && !TimestampUtility.isReadOnly(task.getTimestamp());
+
+   }
     
     /**
     * Submit a task and return a {@link Future} for that task. The task will be
@@ -362,11 +408,7 @@ abstract public class AbstractApiTask<T> implements IApiTask<T>, IReadOnly {
 
       final String namespace = task.getNamespace();
 
-      final long timestamp = task.getTimestamp();
-
-      if (!indexManager.isGroupCommit()
-            || indexManager instanceof IBigdataFederation
-            || TimestampUtility.isReadOnly(timestamp)) {
+      if (!isGroupCommitTask(indexManager, task)) {
 
          /*
           * Execute the REST API task.
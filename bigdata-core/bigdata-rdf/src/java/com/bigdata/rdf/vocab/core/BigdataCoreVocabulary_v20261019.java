@@ -0,0 +1,74 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+package com.bigdata.rdf.vocab.core;
+
+import com.bigdata.rdf.internal.impl.extensions.InlineLiteralDictionaryExtension;
+import com.bigdata.rdf.store.AbstractTripleStore;
+import com.bigdata.rdf.vocab.BaseVocabularyDecl;
+
+/**
+ * Core Bigdata vocabulary.
+ *  
+ * Note: Do not modify this class.  Create an entirely new vocabulary that
+ * extends this one and edit
+ * {@link AbstractTripleStore.Options#DEFAULT_VOCABULARY_CLASS}.
+ */
+public class BigdataCoreVocabulary_v20261019 extends BigdataCoreVocabulary_v20160317 {
+
+    /**
+     * De-serialization ctor.
+     */
+    public BigdataCoreVocabulary_v20261019() {
+        
+        super();
+        
+    }
+    
+    /**
+     * Used by {@link AbstractTripleStore#create()}.
+     * 
+     * @param namespace
+     *            The namespace of the KB instance.
+     */
+    public BigdataCoreVocabulary_v20261019(final String namespace) {
+
+        super(namespace);
+        
+    }
+
+    @Override
+    protected void addValues() {
+
+        super.addValues();
+
+        /*
+         * Marker datatype for the inline literal dictionary.
+         */
+        addDecl(new BaseVocabularyDecl(
+                InlineLiteralDictionaryExtension.DICTIONARY_LITERAL));
+
+    }
+
+}
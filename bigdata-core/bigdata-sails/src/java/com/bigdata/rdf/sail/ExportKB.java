@@ -42,6 +42,9 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.zip.GZIPOutputStream;
 
 import org.apache.log4j.Logger;
@@ -54,14 +57,28 @@ import org.openrdf.rio.RDFWriterRegistry;
 import org.openrdf.sail.SailException;
 
 import com.bigdata.Banner;
+import com.bigdata.btree.IIndex;
+import com.bigdata.btree.ILinearList;
+import com.bigdata.btree.IRangeQuery;
+import com.bigdata.btree.ITuple;
 import com.bigdata.journal.IIndexManager;
 import com.bigdata.journal.Journal;
 import com.bigdata.rawstore.IRawStore;
 import com.bigdata.rdf.sail.BigdataSail.BigdataSailConnection;
+import com.bigdata.rdf.spo.ExplicitSPOFilter;
+import com.bigdata.rdf.spo.ISPO;
 import com.bigdata.rdf.store.AbstractTripleStore;
+import com.bigdata.rdf.store.BigdataStatementIterator;
 import com.bigdata.relation.RelationSchema;
+import com.bigdata.relation.accesspath.ElementFilter;
 import com.bigdata.relation.locator.ILocatableResource;
 import com.bigdata.sparse.ITPS;
+import com.bigdata.striterator.ChunkedWrappedIterator;
+import com.bigdata.striterator.IChunkedIterator;
+import com.bigdata.striterator.IChunkedOrderedIterator;
+
+import cutthecrap.utils.striterators.Resolver;
+import cutthecrap.utils.striterators.Striterator;
 
 import info.aduna.iteration.CloseableIteration;
 
@@ -110,6 +127,13 @@ public class ExportKB {
      * exported.
      */
     private final boolean includeInferred;
+
+    /**
+     * The #of workers which will export the data. When greater than one, the
+     * statement index is partitioned by key range and each key range is
+     * written concurrently onto its own compressed data file.
+     */
+    private final int nworkers;
     
     /**
      * 
@@ -128,6 +152,38 @@ public class ExportKB {
     public ExportKB(final BigdataSailConnection conn, final File kbdir,
             final RDFFormat format, final boolean includeInferred) {
 
+        this(conn, kbdir, format, includeInferred, 1/* nworkers */);
+
+    }
+
+    /**
+     * 
+     * @param conn
+     *            The connection.
+     * @param kbdir
+     *            The directory into which the exported properties and RDF data
+     *            will be written.
+     * @param format
+     *            The {@link RDFFormat} to use when exporting the data.
+     * @param includeInferred
+     *            When <code>true</code> inferences and axioms will also be
+     *            exported. Otherwise just the explicitly given (aka told)
+     *            triples/quads will be exported.
+     * @param nworkers
+     *            The #of workers which will export the data. When greater than
+     *            one, the data are written onto one file per key range of the
+     *            statement index. This requires a read-only connection since
+     *            the workers read the indices concurrently, which is not safe
+     *            for the unisolated indices of a read/write connection.
+     * 
+     * @throws IllegalArgumentException
+     *             if <i>nworkers</i> is greater than one and the connection
+     *             is not read-only.
+     */
+    public ExportKB(final BigdataSailConnection conn, final File kbdir,
+            final RDFFormat format, final boolean includeInferred,
+            final int nworkers) {
+
         if (conn == null)
             throw new IllegalArgumentException("KB not specified.");
         
@@ -138,6 +194,14 @@ public class ExportKB {
         if (format == null)
             throw new IllegalArgumentException("RDFFormat not specified.");
 
+        if (nworkers <= 0)
+            throw new IllegalArgumentException("nworkers=" + nworkers);
+
+        if (nworkers > 1 && !conn.isReadOnly())
+            throw new IllegalArgumentException(
+                    "Parallel export requires a read-only connection: nworkers="
+                            + nworkers);
+
         final AbstractTripleStore kb = conn.getTripleStore();
         
         if (kb.isStatementIdentifiers() && !RDFFormat.RDFXML.equals(format))
@@ -160,6 +224,8 @@ public class ExportKB {
 
         this.includeInferred = includeInferred;
         
+        this.nworkers = nworkers;
+
     }
 
     /**
@@ -261,6 +327,10 @@ public class ExportKB {
      */
     public void exportData() throws IOException, SailException,
             RDFHandlerException {
+        if (nworkers > 1) {
+            exportDataParallel();
+            return;
+        }
         prepare();
 //        final BigdataSail sail = new BigdataSail(kb);
 //        try {
@@ -300,6 +370,145 @@ public class ExportKB {
 
     }
 
+    /**
+     * Exports all told statements associated with the last commit point for the
+     * KB using {@link #nworkers} concurrent workers. The primary statement
+     * index is partitioned into key ranges having roughly the same #of tuples.
+     * Each worker scans one key range, resolves the {@link ISPO}s to RDF Values
+     * in chunks, and writes the statements onto its own compressed data file.
+     * The data files may be loaded in any order.
+     * <p>
+     * Note: The connection MUST be read-only when there is more than one
+     * worker.
+     * 
+     * @return The #of statements written.
+     * 
+     * @throws IOException
+     * @throws RDFHandlerException
+     */
+    public long exportDataParallel() throws IOException, RDFHandlerException {
+        prepare();
+        final AbstractTripleStore kb = conn.getTripleStore();
+        final byte[][] separatorKeys = getSeparatorKeys(kb.getSPORelation()
+                .getPrimaryIndex(), nworkers);
+        final int n = separatorKeys.length - 1;
+        final List<Future<Long>> futures = new LinkedList<Future<Long>>();
+        try {
+            for (int i = 0; i < n; i++) {
+                final File file = new File(kbdir, "data-" + i + "."
+                        + format.getDefaultFileExtension() + ".gz");
+                System.out.println("Writing " + file);
+                futures.add(kb.getExecutorService().submit(
+                        new ExportTask(separatorKeys[i],
+                                separatorKeys[i + 1], file)));
+            }
+            long nstmts = 0;
+            for (Future<Long> f : futures) {
+                nstmts += f.get();
+            }
+            return nstmts;
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            if (e.getCause() instanceof RDFHandlerException)
+                throw (RDFHandlerException) e.getCause();
+            throw new RuntimeException(e);
+        } finally {
+            // Cancel any workers which are still running (error path).
+            for (Future<Long> f : futures) {
+                f.cancel(true/* mayInterruptIfRunning */);
+            }
+        }
+    }
+
+    /**
+     * Return the keys which partition the index into (at most) <i>n</i> key
+     * ranges having roughly the same #of tuples. The first and last keys are
+     * <code>null</code>, which correspond to the head and the tail of the
+     * index. A single key range is used if the index does not support
+     * {@link ILinearList}.
+     * 
+     * @param ndx
+     *            The index.
+     * @param n
+     *            The desired #of key ranges.
+     * 
+     * @return The keys. Key range <code>i</code> is
+     *         <code>[keys[i],keys[i+1])</code>.
+     */
+    static byte[][] getSeparatorKeys(final IIndex ndx, final int n) {
+        final long rangeCount = ndx.rangeCount();
+        final int m = ndx instanceof ILinearList ? (int) Math.max(1L,
+                Math.min(n, rangeCount)) : 1;
+        final byte[][] keys = new byte[m + 1][];
+        for (int i = 1; i < m; i++) {
+            keys[i] = ((ILinearList) ndx).keyAt(rangeCount * i / m);
+        }
+        return keys;
+    }
+
+    /**
+     * Task exports the statements in a key range of the primary statement
+     * index onto a compressed data file.
+     */
+    private class ExportTask implements Callable<Long> {
+
+        private final byte[] fromKey;
+        private final byte[] toKey;
+        private final File file;
+
+        ExportTask(final byte[] fromKey, final byte[] toKey, final File file) {
+            this.fromKey = fromKey;
+            this.toKey = toKey;
+            this.file = file;
+        }
+
+        @Override
+        public Long call() throws Exception {
+            final AbstractTripleStore kb = conn.getTripleStore();
+            final IIndex ndx = kb.getSPORelation().getPrimaryIndex();
+            @SuppressWarnings({ "unchecked", "rawtypes" })
+            final IChunkedOrderedIterator<ISPO> src = new ChunkedWrappedIterator<ISPO>(
+                    new Striterator(ndx.rangeIterator(fromKey, toKey,
+                            0/* capacity */, IRangeQuery.DEFAULT,
+                            includeInferred ? null : ElementFilter
+                                    .newInstance(ExplicitSPOFilter.INSTANCE)))
+                            .addFilter(new Resolver() {
+                                private static final long serialVersionUID = 1L;
+                                @Override
+                                protected Object resolve(final Object obj) {
+                                    return ((ITuple) obj).getObject();
+                                }
+                            }), IChunkedIterator.DEFAULT_CHUNK_SIZE,
+                    ISPO.class);
+            // Resolves the ISPOs to RDF Values in chunks.
+            final BigdataStatementIterator itr = kb.asStatementIterator(src);
+            long n = 0;
+            try {
+                final OutputStream os = new GZIPOutputStream(
+                        new FileOutputStream(file));
+                try {
+                    final RDFWriter writer = RDFWriterRegistry.getInstance()
+                            .get(format).getWriter(os);
+                    writer.startRDF();
+                    while (itr.hasNext()) {
+                        writer.handleStatement(itr.next());
+                        n++;
+                    }
+                    writer.endRDF();
+                } finally {
+                    os.close();
+                }
+            } finally {
+                itr.close();
+            }
+            return n;
+        }
+
+    }
+
     /**
      * Return a list of the namespaces for the {@link AbstractTripleStore}s
      * registered against the bigdata instance.
@@ -440,6 +649,13 @@ public class ExportKB {
      *            <dd>Normally only the told triples/quads will be exported.
      *            This option may be given to export the axioms and inferences
      *            as well as the told triples/quads.</dd>
+     *            <dt>-threads</dt>
+     *            <dd>The #of workers which will export the data (default 1).
+     *            When greater than one, the statement index is partitioned by
+     *            key range and each key range is written concurrently onto its
+     *            own compressed data file. If no format is specified, then
+     *            {@link RDFFormat#NQUADS} is used for quads and
+     *            {@link RDFFormat#NTRIPLES} for triples.</dd>
      *            <dt>-n</dt>
      *            <dd>Do nothing, but show the KBs which would be exported.</dd>
      *            <dt>-help</dt>
@@ -462,6 +678,7 @@ public class ExportKB {
          */
         boolean nothing = false;
         boolean includeInferred = false;
+        int nthreads = 1;
         RDFFormat format = null;
         File propertyFile = null;
         File outdir = new File(".");
@@ -485,6 +702,8 @@ public class ExportKB {
                 format = RDFFormat.valueOf(args[i++]);
             } else if(s.equals("-includeInferred")) {
                 includeInferred = true;
+            } else if(s.equals("-threads")) {
+                nthreads = Integer.valueOf(args[i++]);
             } else if (s.equals("-outdir")) {
                 outdir = new File(args[i++]);
             } else {
@@ -581,7 +800,9 @@ public class ExportKB {
                             if (conn.getTripleStore().isStatementIdentifiers()) {
                         fmt = RDFFormat.RDFXML;
                             } else if (conn.isQuads()) {
-                        fmt = RDFFormat.TRIX;
+                        fmt = nthreads > 1 ? RDFFormat.NQUADS : RDFFormat.TRIX;
+                            } else if (nthreads > 1) {
+                        fmt = RDFFormat.NTRIPLES;
                     } else {
                         fmt = RDFFormat.RDFXML;
                     }
@@ -590,7 +811,8 @@ public class ExportKB {
                         + fmt.getName() + " on " + kbdir);
                 if (!nothing) {
                     // Export KB.
-                            new ExportKB(conn, kbdir, fmt, includeInferred).export();
+                            new ExportKB(conn, kbdir, fmt, includeInferred,
+                                    nthreads).export();
                 }
 
                     } finally {
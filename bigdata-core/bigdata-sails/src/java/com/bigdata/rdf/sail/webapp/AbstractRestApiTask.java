@@ -34,6 +34,7 @@ import java.util.UUID;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+import javax.servlet.ServletContext;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -41,6 +42,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.log4j.Logger;
 
 import com.bigdata.journal.AbstractTask;
+import com.bigdata.rdf.changesets.IChangeLog;
 import com.bigdata.rdf.sparql.ast.QueryHints;
 import com.bigdata.rdf.task.AbstractApiTask;
 import com.bigdata.util.NV;
@@ -75,6 +77,15 @@ public abstract class AbstractRestApiTask<T> extends AbstractApiTask<T> {
     
     /** The {@link HttpServletResponse}. */
     protected final HttpServletResponse resp;
+
+    /**
+     * The {@link ServletContext} of the request.
+     * <p>
+     * Note: This is captured when the task is created since the container
+     * will not report the {@link ServletContext} of a request while it is
+     * being processed asynchronously.
+     */
+    protected final ServletContext servletContext;
     
     /**
      * The {@link ServletOutputStream} iff requested by the task.
@@ -220,6 +231,8 @@ public abstract class AbstractRestApiTask<T> extends AbstractApiTask<T> {
         
         this.resp = resp;
 
+        this.servletContext = req.getServletContext();
+
         // Extract the UUID of the request (if given).
         final String s = req.getParameter(QueryHints.QUERYID);
         
@@ -236,6 +249,24 @@ public abstract class AbstractRestApiTask<T> extends AbstractApiTask<T> {
 
     }
 
+    /**
+     * Registers the listener for the {@link SparqlResultCache} when that cache
+     * tracks the predicates modified by each commit.
+     */
+    @Override
+    protected IChangeLog newChangeLog() {
+
+        final BigdataRDFContext context = (BigdataRDFContext) servletContext
+                .getAttribute(BigdataServlet.ATTRIBUTE_RDF_CONTEXT);
+
+        if (context == null || context.getResultCache() == null)
+            return null;
+
+        return context.getResultCache().newChangeLog(getIndexManager(),
+                getNamespace());
+
+    }
+
     /**
 	 * Reports the mutation count and elapsed operation time as specified by the
 	 * REST API for mutation operations.
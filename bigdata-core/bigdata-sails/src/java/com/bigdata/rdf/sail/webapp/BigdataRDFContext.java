@@ -76,10 +76,12 @@ import org.openrdf.rio.RDFWriter;
 import org.openrdf.rio.RDFWriterRegistry;
 
 import com.bigdata.BigdataStatics;
+import com.bigdata.bop.BOpUtility;
 import com.bigdata.bop.engine.IRunningQuery;
 import com.bigdata.bop.engine.QueryEngine;
 import com.bigdata.bop.fed.QueryEngineFactory;
 import com.bigdata.counters.CAT;
+import com.bigdata.counters.CounterSet;
 import com.bigdata.io.NullOutputStream;
 import com.bigdata.journal.IIndexManager;
 import com.bigdata.journal.IJournal;
@@ -105,10 +107,12 @@ import com.bigdata.rdf.sail.sparql.Bigdata2ASTSPARQLParser;
 import com.bigdata.rdf.sail.webapp.XMLBuilder.Node;
 import com.bigdata.rdf.sail.webapp.client.StringUtil;
 import com.bigdata.rdf.sparql.ast.ASTContainer;
+import com.bigdata.rdf.sparql.ast.ConstantNode;
 import com.bigdata.rdf.sparql.ast.QueryHints;
 import com.bigdata.rdf.sparql.ast.QueryOptimizerEnum;
 import com.bigdata.rdf.sparql.ast.QueryRoot;
 import com.bigdata.rdf.sparql.ast.QueryType;
+import com.bigdata.rdf.sparql.ast.StatementPatternNode;
 import com.bigdata.rdf.sparql.ast.Update;
 import com.bigdata.rdf.store.AbstractTripleStore;
 import com.bigdata.relation.RelationSchema;
@@ -245,6 +249,24 @@ public class BigdataRDFContext extends BigdataBaseContext {
      * @see http://trac.blazegraph.com/ticket/914 (Set timeout on remote query)
      */
     static public final String HTTP_HEADER_BIGDATA_MAX_QUERY_MILLIS = "X-BIGDATA-MAX-QUERY-MILLIS";
+
+    /**
+     * HTTP header may be used to specify the workload class for a query. This
+     * takes precedence over the <code>workloadClass</code> query hint and the
+     * workload class of the namespace.
+     * 
+     * @see ConfigParams#WORKLOAD_CLASSES
+     */
+    static public final String HTTP_HEADER_BIGDATA_WORKLOAD_CLASS = "X-BIGDATA-WORKLOAD-CLASS";
+
+    /**
+     * HTTP response header reporting the identifier of the cursor from which
+     * the next page of solutions may be read. The header is not present on
+     * the last page.
+     * 
+     * @see QueryCursorManager
+     */
+    static public final String HTTP_HEADER_BIGDATA_CURSOR = "X-BIGDATA-CURSOR";
     
     /**
      * HTTP header may be used to echo back the query.
@@ -292,6 +314,37 @@ public class BigdataRDFContext extends BigdataBaseContext {
 	private final ScheduledFuture<?> m_queueStatsFuture;
 	private final ThreadPoolExecutorBaseStatisticsTask m_queueSampleTask;
 
+    /**
+     * The cache for SPARQL SELECT results -or- <code>null</code> if the result
+     * cache is disabled.
+     * 
+     * @see SparqlEndpointConfig#resultCacheCapacity
+     */
+    private final SparqlResultCache m_resultCache;
+
+    /**
+     * The server-side cursors for SPARQL SELECT queries -or- <code>null</code>
+     * if cursors are disabled.
+     * 
+     * @see SparqlEndpointConfig#maxCursors
+     */
+    private final QueryCursorManager m_cursors;
+
+    /**
+     * The workload classes for SPARQL queries, including the
+     * {@link WorkloadClass#DEFAULT} workload class.
+     * 
+     * @see SparqlEndpointConfig#workloadClasses
+     */
+    private final Map<String, WorkloadClass> m_workloadClasses;
+
+    /**
+     * The name of the workload class for each namespace.
+     * 
+     * @see SparqlEndpointConfig#workloadClassNamespaces
+     */
+    private final Map<String, String> m_workloadClassNamespaces;
+
     /**
      * The currently executing queries (does not include queries where a client
      * has established a connection but the query is not running because the
@@ -559,6 +612,53 @@ public class BigdataRDFContext extends BigdataBaseContext {
 
 		}
 
+        if (config.resultCacheCapacity > 0L) {
+
+            m_resultCache = new SparqlResultCache(config.resultCacheCapacity,
+                    config.resultCacheMaxSolutions,
+                    config.resultCacheChangeSets);
+
+        } else {
+
+            m_resultCache = null;
+
+        }
+
+        if (config.maxCursors > 0) {
+
+            m_cursors = new QueryCursorManager(this, config.maxCursors,
+                    config.cursorTimeout, config.cursorMaxPageSize);
+
+        } else {
+
+            m_cursors = null;
+
+        }
+
+        m_workloadClasses = WorkloadClass.parse(config.workloadClasses);
+
+        if (!m_workloadClasses.containsKey(WorkloadClass.DEFAULT)) {
+
+            // No limits unless the default workload class was declared.
+            m_workloadClasses.put(WorkloadClass.DEFAULT, new WorkloadClass(
+                    WorkloadClass.DEFAULT, 0/* maxRunning */, 0/* maxQueued */,
+                    0L/* timeoutMillis */, 0L/* maxMemory */));
+
+        }
+
+        m_workloadClassNamespaces = WorkloadClass
+                .parseNamespaces(config.workloadClassNamespaces);
+
+        for (Map.Entry<String, String> e : m_workloadClassNamespaces
+                .entrySet()) {
+
+            if (!m_workloadClasses.containsKey(e.getValue()))
+                throw new IllegalArgumentException(
+                        "Unknown workload class for namespace: " + e.getKey()
+                                + "=" + e.getValue());
+
+        }
+
 	}
 
 //    /**
@@ -602,9 +702,152 @@ public class BigdataRDFContext extends BigdataBaseContext {
 
         // Interrupt all running queries.
         queryService.shutdownNow();
+
+        // Cancel the queries for the open cursors.
+        if (m_cursors != null)
+            m_cursors.shutdownNow();
+
+        // Release the native memory used by the result cache.
+        if (m_resultCache != null)
+            m_resultCache.close();
         
     }
 
+    /**
+     * Return the cache for SPARQL SELECT results -or- <code>null</code> if the
+     * result cache is disabled.
+     */
+    public SparqlResultCache getResultCache() {
+
+        return m_resultCache;
+
+    }
+
+    /**
+     * Return the server-side cursors for SPARQL SELECT queries -or-
+     * <code>null</code> if cursors are disabled.
+     */
+    public QueryCursorManager getCursorManager() {
+
+        return m_cursors;
+
+    }
+
+    /**
+     * Return the workload class for a SPARQL query. The workload class is
+     * named by the {@link #HTTP_HEADER_BIGDATA_WORKLOAD_CLASS} header, the
+     * {@link QueryHints#WORKLOAD_CLASS} query hint, or the workload class of
+     * the namespace, in that order, and is otherwise the
+     * {@link WorkloadClass#DEFAULT} workload class.
+     * 
+     * @param req
+     *            The request.
+     * @param namespace
+     *            The namespace against which the query will be run.
+     * @param astContainer
+     *            The parsed query.
+     * 
+     * @return The workload class.
+     * 
+     * @throws HttpOperationException
+     *             with a status of 400 (Bad Request) if the workload class is
+     *             not known.
+     */
+    WorkloadClass getWorkloadClass(final HttpServletRequest req,
+            final String namespace, final ASTContainer astContainer)
+            throws HttpOperationException {
+
+        String name = req.getHeader(HTTP_HEADER_BIGDATA_WORKLOAD_CLASS);
+
+        if (name == null)
+            name = getWorkloadClassHint(astContainer.getOriginalAST());
+
+        if (name == null)
+            name = m_workloadClassNamespaces.get(namespace);
+
+        if (name == null)
+            name = WorkloadClass.DEFAULT;
+
+        final WorkloadClass workloadClass = m_workloadClasses.get(name);
+
+        if (workloadClass == null)
+            throw new HttpOperationException(HttpServletResponse.SC_BAD_REQUEST,
+                    BigdataServlet.MIME_TEXT_PLAIN, "Unknown workload class: "
+                            + name);
+
+        return workloadClass;
+
+    }
+
+    /**
+     * Return the value of the {@link QueryHints#WORKLOAD_CLASS} query hint
+     * -or- <code>null</code> if the query does not specify that query hint.
+     * <p>
+     * Note: The query hints have not been applied to the original AST, so the
+     * query hint is found by inspecting the statement patterns.
+     */
+    private static String getWorkloadClassHint(final QueryRoot queryRoot) {
+
+        if (queryRoot == null)
+            return null;
+
+        final String uri = QueryHints.NAMESPACE + QueryHints.WORKLOAD_CLASS;
+
+        final Iterator<StatementPatternNode> itr = BOpUtility.visitAll(
+                queryRoot, StatementPatternNode.class);
+
+        while (itr.hasNext()) {
+
+            final StatementPatternNode sp = itr.next();
+
+            if (!(sp.p() instanceof ConstantNode)
+                    || !(sp.o() instanceof ConstantNode))
+                continue;
+
+            final Value p = ((ConstantNode) sp.p()).getValue();
+
+            if (p != null && uri.equals(p.stringValue())) {
+
+                final Value o = ((ConstantNode) sp.o()).getValue();
+
+                if (o != null)
+                    return o.stringValue();
+
+            }
+
+        }
+
+        return null;
+
+    }
+
+    /**
+     * Return the performance counters for the workload classes.
+     */
+    CounterSet getWorkloadClassCounters() {
+
+        final CounterSet root = new CounterSet();
+
+        for (WorkloadClass workloadClass : m_workloadClasses.values()) {
+
+            root.makePath(workloadClass.getName()).attach(
+                    workloadClass.getCounters());
+
+        }
+
+        return root;
+
+    }
+
+    /**
+     * Return the workload classes.
+     */
+    Map<String, WorkloadClass> getWorkloadClasses() {
+
+        return Collections.unmodifiableMap(m_workloadClasses);
+
+    }
+
     public SparqlEndpointConfig getConfig() {
 		
 	    return m_config;
@@ -786,6 +1029,14 @@ public class BigdataRDFContext extends BigdataBaseContext {
          */
         protected final boolean update;
 
+        /**
+         * The workload class which admitted the query -or- <code>null</code>
+         * if the query was not subject to admission control. The timeout and
+         * the native memory budget of the workload class are imposed on the
+         * query.
+         */
+        private volatile WorkloadClass workloadClass;
+
         /**
          * A symbolic constant indicating the type of query.
          */
@@ -1139,6 +1390,19 @@ public class BigdataRDFContext extends BigdataBaseContext {
 
         }
 
+        /**
+         * Set the workload class which admitted the query. This must be done
+         * before the task is executed.
+         * 
+         * @param workloadClass
+         *            The workload class.
+         */
+        void setWorkloadClass(final WorkloadClass workloadClass) {
+
+            this.workloadClass = workloadClass;
+
+        }
+
         /**
          * If the {@link HttpServletRequest} included one or more of
          * <ul>
@@ -1225,6 +1489,15 @@ public class BigdataRDFContext extends BigdataBaseContext {
 
             }
 
+            if (workloadClass != null && workloadClass.getMaxMemory() > 0L) {
+
+                // Impose the native memory budget of the workload class.
+                astContainer.setQueryHint(
+                        QueryHints.ANALYTIC_MAX_MEMORY_PER_QUERY,
+                        Long.toString(workloadClass.getMaxMemory()));
+
+            }
+
             if (rto) {
 
                 // Turn analytic query on/off as requested.
@@ -1365,7 +1638,18 @@ public class BigdataRDFContext extends BigdataBaseContext {
              * setMaxQueryMillis() which set a HTTP header (in milliseconds).
              */
 
-        	final long queryTimeoutMillis = getQueryTimeout(req, getConfig().queryTimeout);
+            long timeout = getConfig().queryTimeout;
+
+            if (workloadClass != null
+                    && workloadClass.getTimeoutMillis() > 0L
+                    && (timeout == 0L || workloadClass.getTimeoutMillis() < timeout)) {
+
+                // Impose the shorter timeout of the workload class.
+                timeout = workloadClass.getTimeoutMillis();
+
+            }
+
+        	final long queryTimeoutMillis = getQueryTimeout(req, timeout);
 
             if (queryTimeoutMillis > 0) {
 
@@ -1710,7 +1994,15 @@ public class BigdataRDFContext extends BigdataBaseContext {
                 
             }
 
-            query.evaluate(w);
+            if (m_resultCache != null && !explain) {
+
+                m_resultCache.evaluate(query, w);
+
+            } else {
+
+                query.evaluate(w);
+
+            }
 
 		}
 
@@ -43,7 +43,12 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.Servlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -61,13 +66,17 @@ import org.openrdf.rio.RDFWriter;
 import org.openrdf.rio.RDFWriterFactory;
 import org.openrdf.rio.RDFWriterRegistry;
 
+import com.bigdata.bop.engine.QueryEngine;
 import com.bigdata.journal.IAtomicStore;
+import com.bigdata.journal.IIndexManager;
 import com.bigdata.rdf.properties.PropertiesFormat;
 import com.bigdata.rdf.properties.PropertiesWriter;
 import com.bigdata.rdf.properties.PropertiesWriterRegistry;
 import com.bigdata.rdf.rules.ConstraintViolationException;
 import com.bigdata.rdf.sail.webapp.client.EncodeDecodeValue;
 import com.bigdata.rdf.sparql.ast.QuadsOperationInTriplesModeException;
+import com.bigdata.rdf.task.AbstractApiTask;
+import com.bigdata.rdf.task.ApiTaskForIndexManager;
 import com.bigdata.util.InnerCause;
 
 /**
@@ -359,6 +368,214 @@ abstract public class BigdataRDFServlet extends BigdataServlet {
 		 */
     }
 
+    /**
+     * Submit a task and process the request asynchronously. The request is
+     * placed into the Servlet 3 asynchronous mode and this method returns
+     * without waiting for the task, which releases the servlet container
+     * thread. The task writes its response as usual. Once the task is done,
+     * the response is flushed and closed (or the error is reported using
+     * {@link #launderThrowable(Throwable, HttpServletResponse, String)}) and
+     * the asynchronous request is completed. This is always done by the
+     * thread which ran the task, and only once the task has stopped, so the
+     * request and response are never written after they have been recycled
+     * by the container.
+     * <p>
+     * The {@link AsyncListener} cancels the task if the request times out
+     * (the query timeout is used as the timeout of the asynchronous request)
+     * or if there is an error on the request (e.g., the client disconnects)
+     * and then waits until the task has stopped and the request was completed.
+     * The container would otherwise complete and recycle the request as soon
+     * as the listener returns. Tasks that run a query propagate the interrupt
+     * to the {@link QueryEngine}.
+     * <p>
+     * Note: This is not a non-blocking hand-off. The task runs on the
+     * executor service of the {@link IIndexManager} and a task which runs a
+     * query still blocks that thread until the query is done. Only the servlet
+     * container thread is released.
+     * <p>
+     * Note: The same visibility guarantees are provided as by
+     * {@link #submitApiTask(AbstractRestApiTask)}. Tasks which would be run
+     * through group commit are not done until the group commit point and are
+     * always processed synchronously.
+     * 
+     * @param task
+     *            The task.
+     * @param summary
+     *            A summary of the request which is logged if the task fails.
+     * 
+     * @return <code>true</code> iff the request will be processed
+     *         asynchronously. When <code>false</code>, the caller must process
+     *         the request synchronously using
+     *         {@link #submitApiTask(AbstractRestApiTask)}.
+     * 
+     * @see ConfigParams#ASYNC_QUERY
+     */
+    protected <T> boolean submitApiTaskAsync(final AbstractRestApiTask<T> task,
+            final String summary) {
+
+        if (task == null)
+            throw new IllegalArgumentException();
+
+        final HttpServletRequest req = task.req;
+
+        final BigdataRDFContext context = getBigdataRDFContext();
+
+        if (!context.getConfig().asyncQuery || !req.isAsyncSupported()
+                || req.isAsyncStarted()) {
+
+            // Synchronous processing.
+            return false;
+
+        }
+
+        final IIndexManager indexManager = getIndexManager();
+
+        if (AbstractApiTask.isGroupCommitTask(indexManager, task)) {
+
+            /*
+             * Synchronous processing. The task is done at the group commit
+             * point, which is only visible through the Future obtained from
+             * the ConcurrencyManager.
+             */
+            return false;
+
+        }
+
+        final AsyncContext asyncContext = req.startAsync();
+
+        /*
+         * The container times out the request, which cancels the task (zero
+         * is unlimited).
+         */
+        asyncContext.setTimeout(BigdataRDFContext.getQueryTimeout(req,
+                context.getConfig().queryTimeout));
+
+        final FutureTask<T> ft = new FutureTask<T>(
+                new ApiTaskForIndexManager<T>(indexManager, task));
+
+        // Counted down once the task has stopped and the request is complete.
+        final CountDownLatch stopped = new CountDownLatch(1);
+
+        /*
+         * Run the task and then complete the response on the same thread.
+         * 
+         * Note: The response is NOT completed from FutureTask#done(). When the
+         * task is cancelled, done() runs on the cancelling thread while the
+         * task may still be writing on the response. FutureTask#run() returns
+         * only once the task has stopped.
+         */
+        final Runnable r = new Runnable() {
+
+            @Override
+            public void run() {
+
+                try {
+
+                    ft.run();
+
+                } finally {
+
+                    // Clear an interrupt left behind by cancel(true).
+                    Thread.interrupted();
+
+                    try {
+
+                        // Throws out the cause of a failed or cancelled task.
+                        ft.get();
+
+                        // IFF successful, flush and close the response.
+                        task.flushAndClose();
+
+                    } catch (Throwable t) {
+
+                        launderThrowable(t, task.resp, summary);
+
+                    } finally {
+
+                        context.removeTask(task.uuid);
+
+                        try {
+                            asyncContext.complete();
+                        } finally {
+                            stopped.countDown();
+                        }
+
+                    }
+
+                }
+
+            }
+
+        };
+
+        // register task.
+        context.addTask(task, ft);
+
+        asyncContext.addListener(new AsyncListener() {
+
+            @Override
+            public void onStartAsync(final AsyncEvent event) {
+            }
+
+            @Override
+            public void onComplete(final AsyncEvent event) {
+            }
+
+            @Override
+            public void onTimeout(final AsyncEvent event) {
+                if (log.isInfoEnabled())
+                    log.info("Timeout: " + task);
+                cancelAndAwait();
+            }
+
+            @Override
+            public void onError(final AsyncEvent event) {
+                if (log.isInfoEnabled())
+                    log.info("Cancelling: " + task + ", cause="
+                            + event.getThrowable());
+                cancelAndAwait();
+            }
+
+            /**
+             * Cancel the task and wait until it has stopped and completed the
+             * request.
+             */
+            private void cancelAndAwait() {
+                ft.cancel(true/* mayInterruptIfRunning */);
+                try {
+                    stopped.await();
+                } catch (InterruptedException ex) {
+                    // Propagate the interrupt.
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+        });
+
+        try {
+
+            // Submit task. Will run.
+            indexManager.getExecutorService().execute(r);
+
+        } catch (Throwable t) {
+
+            // The task could not be submitted.
+            context.removeTask(task.uuid);
+
+            launderThrowable(t, task.resp, summary);
+
+            try {
+                asyncContext.complete();
+            } finally {
+                stopped.countDown();
+            }
+
+        }
+
+        return true;
+
+    }
+
     /**
      * Return the timestamp which will be used to execute the query. The uri
      * query parameter <code>timestamp</code> may be used to communicate the
@@ -452,9 +452,175 @@ public class BigdataRDFServletContextListener implements
 
         }
 
+        final long resultCacheCapacity;
+        {
+
+            final String s = getInitParameter( ConfigParams.RESULT_CACHE_CAPACITY);
+
+            resultCacheCapacity = s == null ? ConfigParams.DEFAULT_RESULT_CACHE_CAPACITY
+                    : Long.valueOf(s);
+
+            if (resultCacheCapacity < 0) {
+
+                throw new RuntimeException(ConfigParams.RESULT_CACHE_CAPACITY
+                        + " : Must be non-negative, not: " + s);
+
+            }
+
+            if (log.isInfoEnabled())
+                log.info(ConfigParams.RESULT_CACHE_CAPACITY + "="
+                        + resultCacheCapacity);
+
+        }
+
+        final int resultCacheMaxSolutions;
+        {
+
+            final String s = getInitParameter( ConfigParams.RESULT_CACHE_MAX_SOLUTIONS);
+
+            resultCacheMaxSolutions = s == null ? ConfigParams.DEFAULT_RESULT_CACHE_MAX_SOLUTIONS
+                    : Integer.valueOf(s);
+
+            if (resultCacheMaxSolutions <= 0) {
+
+                throw new RuntimeException(
+                        ConfigParams.RESULT_CACHE_MAX_SOLUTIONS
+                                + " : Must be positive, not: " + s);
+
+            }
+
+            if (log.isInfoEnabled())
+                log.info(ConfigParams.RESULT_CACHE_MAX_SOLUTIONS + "="
+                        + resultCacheMaxSolutions);
+
+        }
+
+        final boolean resultCacheChangeSets;
+        {
+
+            final String s = getInitParameter( ConfigParams.RESULT_CACHE_CHANGE_SETS);
+
+            resultCacheChangeSets = s == null ? ConfigParams.DEFAULT_RESULT_CACHE_CHANGE_SETS
+                    : Boolean.valueOf(s);
+
+            if (log.isInfoEnabled())
+                log.info(ConfigParams.RESULT_CACHE_CHANGE_SETS + "="
+                        + resultCacheChangeSets);
+
+        }
+
+        final String workloadClasses = getInitParameter(ConfigParams.WORKLOAD_CLASSES);
+
+        final String workloadClassNamespaces = getInitParameter(ConfigParams.WORKLOAD_CLASS_NAMESPACES);
+
+        if (log.isInfoEnabled()) {
+            log.info(ConfigParams.WORKLOAD_CLASSES + "=" + workloadClasses);
+            log.info(ConfigParams.WORKLOAD_CLASS_NAMESPACES + "="
+                    + workloadClassNamespaces);
+        }
+
+        final boolean asyncQuery;
+        {
+
+            final String s = getInitParameter( ConfigParams.ASYNC_QUERY);
+
+            asyncQuery = s == null ? ConfigParams.DEFAULT_ASYNC_QUERY
+                    : Boolean.valueOf(s);
+
+            if (log.isInfoEnabled())
+                log.info(ConfigParams.ASYNC_QUERY + "=" + asyncQuery);
+
+        }
+
+        final int maxCursors;
+        {
+
+            final String s = getInitParameter( ConfigParams.MAX_CURSORS);
+
+            maxCursors = s == null ? ConfigParams.DEFAULT_MAX_CURSORS
+                    : Integer.valueOf(s);
+
+            if (maxCursors < 0) {
+
+                throw new RuntimeException(ConfigParams.MAX_CURSORS
+                        + " : Must be non-negative, not: " + s);
+
+            }
+
+            if (log.isInfoEnabled())
+                log.info(ConfigParams.MAX_CURSORS + "=" + maxCursors);
+
+        }
+
+        final long cursorTimeout;
+        {
+
+            final String s = getInitParameter( ConfigParams.CURSOR_TIMEOUT);
+
+            cursorTimeout = s == null ? ConfigParams.DEFAULT_CURSOR_TIMEOUT
+                    : Long.valueOf(s);
+
+            if (cursorTimeout <= 0L) {
+
+                throw new RuntimeException(ConfigParams.CURSOR_TIMEOUT
+                        + " : Must be positive, not: " + s);
+
+            }
+
+            if (log.isInfoEnabled())
+                log.info(ConfigParams.CURSOR_TIMEOUT + "=" + cursorTimeout);
+
+        }
+
+        final int cursorMaxPageSize;
+        {
+
+            final String s = getInitParameter( ConfigParams.CURSOR_MAX_PAGE_SIZE);
+
+            cursorMaxPageSize = s == null ? ConfigParams.DEFAULT_CURSOR_MAX_PAGE_SIZE
+                    : Integer.valueOf(s);
+
+            if (cursorMaxPageSize <= 0) {
+
+                throw new RuntimeException(ConfigParams.CURSOR_MAX_PAGE_SIZE
+                        + " : Must be positive, not: " + s);
+
+            }
+
+            if (log.isInfoEnabled())
+                log.info(ConfigParams.CURSOR_MAX_PAGE_SIZE + "="
+                        + cursorMaxPageSize);
+
+        }
+
+        final long batchMaxResultSize;
+        {
+
+            final String s = getInitParameter(ConfigParams.BATCH_MAX_RESULT_SIZE);
+
+            batchMaxResultSize = s == null ? ConfigParams.DEFAULT_BATCH_MAX_RESULT_SIZE
+                    : Long.valueOf(s);
+
+            if (batchMaxResultSize <= 0L) {
+
+                throw new RuntimeException(ConfigParams.BATCH_MAX_RESULT_SIZE
+                        + " : Must be positive, not: " + s);
+
+            }
+
+            if (log.isInfoEnabled())
+                log.info(ConfigParams.BATCH_MAX_RESULT_SIZE + "="
+                        + batchMaxResultSize);
+
+        }
+
         final SparqlEndpointConfig config = new SparqlEndpointConfig(namespace,
                 timestamp, queryThreadPoolSize, describeEachNamedGraph,
-                readOnly, queryTimeout, executorMaxThreads);
+                readOnly, queryTimeout, executorMaxThreads,
+                resultCacheCapacity, resultCacheMaxSolutions,
+                resultCacheChangeSets, workloadClasses,
+                workloadClassNamespaces, asyncQuery, maxCursors,
+                cursorTimeout, cursorMaxPageSize, batchMaxResultSize);
 
         rdfContext = new BigdataRDFContext(config, indexManager);
 
@@ -27,6 +27,7 @@ import javax.servlet.ServletContextListener;
 
 import com.bigdata.journal.IIndexManager;
 import com.bigdata.rdf.sparql.ast.service.ServiceFactory;
+import com.bigdata.util.Bytes;
 
 /**
  * Interface declaring the <code>config-param</code>s understood by the
@@ -194,4 +195,141 @@ public interface ConfigParams {
      * new queries would not be launched if the pool has more active threads than this.
      */
     String EXECUTOR_SERVICE_MAX_THREADS = "executorMaxThreads";
+
+    /**
+     * The maximum #of bytes of native memory used to cache the results of
+     * SPARQL SELECT queries -or- ZERO (0) to disable the result cache (the
+     * default). Cached results are keyed by the namespace, the normalized
+     * query, the dataset and bindings, and are only reused for a view of the
+     * namespace having the same data version (the most recent commit which
+     * modified the namespace).
+     * 
+     * @see SparqlResultCache
+     */
+    String RESULT_CACHE_CAPACITY = "resultCacheCapacity";
+
+    long DEFAULT_RESULT_CACHE_CAPACITY = 0L;
+
+    /**
+     * The maximum #of solutions in a cached query result. Queries having more
+     * solutions are not cached.
+     * 
+     * @see #RESULT_CACHE_CAPACITY
+     */
+    String RESULT_CACHE_MAX_SOLUTIONS = "resultCacheMaxSolutions";
+
+    int DEFAULT_RESULT_CACHE_MAX_SOLUTIONS = 10000;
+
+    /**
+     * When <code>true</code>, the predicates modified by each commit made
+     * through the REST API are retained and a cached result remains valid
+     * across commits which did not modify any of the predicates used by its
+     * query. This requires that all mutations are made through the REST API
+     * and is not effective with group commit.
+     * 
+     * @see #RESULT_CACHE_CAPACITY
+     */
+    String RESULT_CACHE_CHANGE_SETS = "resultCacheChangeSets";
+
+    boolean DEFAULT_RESULT_CACHE_CHANGE_SETS = false;
+
+    /**
+     * A comma separated list of workload classes for SPARQL queries. Each
+     * workload class is specified as
+     * 
+     * <pre>
+     * name:maxRunning:maxQueued[:timeoutMillis[:maxMemoryBytes]]
+     * </pre>
+     * 
+     * A query is assigned to the workload class named by the
+     * {@link BigdataRDFContext#HTTP_HEADER_BIGDATA_WORKLOAD_CLASS} header, the
+     * <code>workloadClass</code> query hint, or the workload class of its
+     * namespace, in that order, and otherwise to the
+     * {@link WorkloadClass#DEFAULT} workload class, which imposes no limits
+     * unless it is declared here. The default is an empty list.
+     * 
+     * @see WorkloadClass
+     * @see #WORKLOAD_CLASS_NAMESPACES
+     */
+    String WORKLOAD_CLASSES = "workloadClasses";
+
+    /**
+     * A comma separated list of <code>namespace=workloadClass</code>
+     * assignments used for queries which do not otherwise name a workload
+     * class. The default is an empty list.
+     * 
+     * @see #WORKLOAD_CLASSES
+     */
+    String WORKLOAD_CLASS_NAMESPACES = "workloadClassNamespaces";
+
+    /**
+     * When <code>true</code>, SPARQL QUERY and SPARQL UPDATE requests are
+     * processed asynchronously (default {@value #DEFAULT_ASYNC_QUERY}). The
+     * request is placed into the Servlet 3 asynchronous mode and the servlet
+     * container thread is released as soon as the request has been submitted.
+     * The results are written onto the response as they are produced and the
+     * response is completed once the request is done. This decouples the
+     * number of concurrent requests from the size of the container's thread
+     * pool. If the client disconnects, the request and its running query are
+     * cancelled.
+     * <p>
+     * Note: This is not a non-blocking mode. A query still blocks a thread of
+     * the executor service of the database until it is done, but that thread
+     * is not drawn from the pool of the servlet container.
+     * <p>
+     * Note: Requests are handled synchronously if the servlet is not
+     * configured to support asynchronous requests. Mutations which are run
+     * through group commit are always handled synchronously.
+     */
+    String ASYNC_QUERY = "asyncQuery";
+
+    boolean DEFAULT_ASYNC_QUERY = false;
+
+    /**
+     * The maximum #of open server-side cursors for paging through the results
+     * of SPARQL SELECT queries -or- ZERO (0) to disable cursors (default
+     * {@value #DEFAULT_MAX_CURSORS}). Each open cursor holds a running query
+     * and a read-only transaction. A request to open a cursor is rejected
+     * when this many cursors are open.
+     * 
+     * @see QueryCursorManager
+     */
+    String MAX_CURSORS = "maxCursors";
+
+    int DEFAULT_MAX_CURSORS = 32;
+
+    /**
+     * The time in milliseconds after which an idle cursor is closed (default
+     * {@value #DEFAULT_CURSOR_TIMEOUT}). Closing the cursor cancels its query
+     * and releases its read-only transaction.
+     * 
+     * @see #MAX_CURSORS
+     */
+    String CURSOR_TIMEOUT = "cursorTimeout";
+
+    long DEFAULT_CURSOR_TIMEOUT = 60000L;
+
+    /**
+     * The maximum #of solutions in a page read from a cursor (default
+     * {@value #DEFAULT_CURSOR_MAX_PAGE_SIZE}). The solutions in a page are
+     * buffered on the Java heap before the page is written.
+     * 
+     * @see #MAX_CURSORS
+     */
+    String CURSOR_MAX_PAGE_SIZE = "cursorMaxPageSize";
+
+    int DEFAULT_CURSOR_MAX_PAGE_SIZE = 10000;
+
+    /**
+     * The maximum #of bytes of the encoded results of each query in a batch
+     * request (default {@value #DEFAULT_BATCH_MAX_RESULT_SIZE}). The results
+     * of each query are buffered on the Java heap until that query is done.
+     * A query whose results exceed this limit is cancelled and an error frame
+     * is written for it.
+     * 
+     * @see QueryServlet#ATTR_BATCH
+     */
+    String BATCH_MAX_RESULT_SIZE = "batchMaxResultSize";
+
+    long DEFAULT_BATCH_MAX_RESULT_SIZE = 10L * Bytes.megabyte;
 }
@@ -22,13 +22,25 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 */
 package com.bigdata.rdf.sail.webapp;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.UUID;
 import java.util.Vector;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.GZIPInputStream;
 
@@ -36,8 +48,10 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.log4j.Logger;
+import org.openrdf.model.BNode;
 import org.openrdf.model.Resource;
 import org.openrdf.model.Statement;
+import org.openrdf.model.Value;
 import org.openrdf.model.impl.URIImpl;
 import org.openrdf.rio.RDFFormat;
 import org.openrdf.rio.RDFHandlerException;
@@ -48,10 +62,14 @@ import org.openrdf.rio.helpers.RDFHandlerBase;
 import org.openrdf.sail.SailException;
 
 import com.bigdata.journal.ITx;
+import com.bigdata.rdf.model.BigdataValueFactory;
+import com.bigdata.rdf.rio.StatementBuffer;
 import com.bigdata.rdf.sail.BigdataSail.BigdataSailConnection;
 import com.bigdata.rdf.sail.BigdataSailRepositoryConnection;
 import com.bigdata.rdf.sail.webapp.client.MiniMime;
 import com.bigdata.rdf.sparql.ast.eval.AST2BOpUpdate;
+import com.bigdata.util.Bytes;
+import com.bigdata.util.concurrent.LatchedExecutor;
 
 /**
  * Handler for INSERT operations.
@@ -67,6 +85,29 @@ public class InsertServlet extends BigdataRDFServlet {
     
     static private final transient Logger log = Logger.getLogger(InsertServlet.class); 
 
+    /**
+     * URL query parameter requesting a streaming insert of the request body
+     * (default <code>false</code>).
+     * 
+     * @see StreamingInsertTask
+     */
+    static final transient String ATTR_STREAMING = "streaming";
+
+    /**
+     * URL query parameter specifying the number of threads that will parse a
+     * streaming insert. The request body is only split across threads for
+     * line oriented formats (N-Triples and N-Quads). The default is the number
+     * of available processors.
+     */
+    static final transient String ATTR_PARSER_THREADS = "parserThreads";
+
+    /**
+     * URL query parameter specifying the number of statements after which a
+     * streaming insert is committed. The default (<code>0</code>) commits once
+     * at the end of the request, so the request is atomic.
+     */
+    static final transient String ATTR_COMMIT_EVERY = "commitEvery";
+
     public InsertServlet() {
         
     }
@@ -201,6 +242,15 @@ public class InsertServlet extends BigdataRDFServlet {
             }
         }
 
+        if (getBooleanValue(req, ATTR_STREAMING, false/* default */)) {
+
+            doStreamingInsert(req, resp, baseURI, defaultContext,
+                    rdfParserFactory);
+
+            return;
+
+        }
+
         try {
             
             submitApiTask(
@@ -335,6 +385,552 @@ public class InsertServlet extends BigdataRDFServlet {
         
     }
 
+    /**
+     * POST with a request body which is parsed and inserted as it is read.
+     * 
+     * @see StreamingInsertTask
+     */
+    private void doStreamingInsert(final HttpServletRequest req,
+            final HttpServletResponse resp, final String baseURI,
+            final Resource[] defaultContext,
+            final RDFParserFactory rdfParserFactory) throws IOException {
+
+        final int parserThreads;
+        final long commitEvery;
+        try {
+
+            final String s1 = req.getParameter(ATTR_PARSER_THREADS);
+            
+            parserThreads = s1 == null ? Runtime.getRuntime()
+                    .availableProcessors() : Integer.valueOf(s1);
+
+            final String s2 = req.getParameter(ATTR_COMMIT_EVERY);
+
+            commitEvery = s2 == null ? 0L : Long.valueOf(s2);
+
+        } catch (NumberFormatException ex) {
+
+            buildAndCommitResponse(resp, HTTP_BADREQUEST, MIME_TEXT_PLAIN,
+                    ex.getLocalizedMessage());
+
+            return;
+
+        }
+
+        if (parserThreads <= 0 || commitEvery < 0) {
+
+            buildAndCommitResponse(resp, HTTP_BADREQUEST, MIME_TEXT_PLAIN,
+                    ATTR_PARSER_THREADS + "=" + parserThreads + ", "
+                            + ATTR_COMMIT_EVERY + "=" + commitEvery);
+
+            return;
+
+        }
+
+        try {
+
+            submitApiTask(
+                    new StreamingInsertTask(req, resp, getNamespace(req),
+                            ITx.UNISOLATED, baseURI, defaultContext,
+                            rdfParserFactory, parserThreads, commitEvery))
+                    .get();
+
+        } catch (Throwable t) {
+
+            BigdataRDFServlet.launderThrowable(t, resp,
+                    "INSERT-STREAMING: baseURI=" + baseURI + ", Content-Type="
+                            + req.getContentType() + ", "
+                            + ATTR_PARSER_THREADS + "=" + parserThreads + ", "
+                            + ATTR_COMMIT_EVERY + "=" + commitEvery);
+
+        }
+
+    }
+
+    /**
+     * Task for a streaming insert of the request body.
+     * <p>
+     * For line oriented formats (N-Triples and N-Quads) the request body is
+     * read into chunks which end on a line boundary and each chunk is parsed
+     * by one of up to <i>parserThreads</i> threads. Other formats are parsed
+     * by a single thread. The parsed statements are handed off in batches
+     * through a bounded queue to the thread running this task, which holds
+     * the unisolated connection and writes them onto the KB. Term resolution
+     * is batched by the {@link StatementBuffer} of that connection.
+     * <p>
+     * The number of chunks in flight and the number of batches in the queue
+     * are both bounded. When the writer falls behind, the parsers block on the
+     * queue, the reader blocks for a chunk permit and stops reading the
+     * request body, and TCP flow control pushes back on the client.
+     * <p>
+     * When <i>commitEvery</i> is positive, the writer commits each time that
+     * many statements have been written. The statements written before a
+     * failure remain committed in that case.
+     * <p>
+     * Note: Blank node IDs are preserved by the parsers when the request body
+     * is split into chunks, so the same label is the same blank node in every
+     * chunk. Each label is scoped to the request by a prefix which is unique
+     * to the request, just as a single parser does when it does not preserve
+     * blank node IDs.
+     */
+    private static class StreamingInsertTask extends AbstractRestApiTask<Void> {
+
+        /**
+         * The target size of a chunk of the request body.
+         */
+        private static final int CHUNK_SIZE = 1 * Bytes.megabyte32;
+
+        /**
+         * The number of statements in a batch handed off to the writer.
+         */
+        private static final int BATCH_SIZE = 10000;
+
+        /**
+         * A batch used to signal that the parsers are done.
+         */
+        private static final Statement[] EOF = new Statement[0];
+
+        private final String baseURI;
+        private final Resource[] defaultContext;
+        private final RDFParserFactory rdfParserFactory;
+        private final int parserThreads;
+        private final long commitEvery;
+
+        /**
+         * 
+         * @param namespace
+         *            The namespace of the target KB instance.
+         * @param timestamp
+         *            The timestamp used to obtain a mutable connection.
+         * @param baseURI
+         *            The base URI for the operation.
+         * @param defaultContext
+         *            The context(s) for triples without an explicit named graph
+         *            when the KB instance is operating in a quads mode.
+         * @param rdfParserFactory
+         *            The factory for the {@link RDFParser}.
+         * @param parserThreads
+         *            The maximum number of threads parsing the request body.
+         * @param commitEvery
+         *            The number of statements in each commit group and
+         *            <code>0</code> for a single commit.
+         */
+        public StreamingInsertTask(final HttpServletRequest req,
+                final HttpServletResponse resp, final String namespace,
+                final long timestamp, final String baseURI,
+                final Resource[] defaultContext,
+                final RDFParserFactory rdfParserFactory,
+                final int parserThreads, final long commitEvery) {
+            super(req, resp, namespace, timestamp);
+            this.baseURI = baseURI;
+            this.defaultContext = defaultContext;
+            this.rdfParserFactory = rdfParserFactory;
+            this.parserThreads = parserThreads;
+            this.commitEvery = commitEvery;
+        }
+
+        @Override
+        public boolean isReadOnly() {
+            return false;
+        }
+
+        /**
+         * Return <code>true</code> iff the format may be split on line
+         * boundaries.
+         */
+        private boolean isLineOriented() {
+
+            final RDFFormat format = rdfParserFactory.getRDFFormat();
+
+            return RDFFormat.NTRIPLES.equals(format)
+                    || RDFFormat.NQUADS.equals(format);
+
+        }
+
+        @Override
+        public Void call() throws Exception {
+
+            final long begin = System.currentTimeMillis();
+
+            final AtomicLong nmodified = new AtomicLong(0L);
+
+            BigdataSailRepositoryConnection conn = null;
+            boolean success = false;
+            FutureTask<Void> readerFuture = null;
+            try {
+
+                conn = getConnection();
+
+                final BigdataValueFactory valueFactory = conn.getTripleStore()
+                        .getValueFactory();
+
+                final boolean parallel = parserThreads > 1 && isLineOriented();
+
+                final BlockingQueue<Statement[]> queue = new ArrayBlockingQueue<Statement[]>(
+                        2 * parserThreads);
+
+                readerFuture = new FutureTask<Void>(new ReaderTask(
+                        req.getInputStream(), valueFactory, queue,
+                        parallel ? parserThreads : 1, "genid-"
+                                + UUID.randomUUID() + "-"));
+
+                getIndexManager().getExecutorService().execute(readerFuture);
+
+                final AddStatementHandler handler = new AddStatementHandler(
+                        conn.getSailConnection(), nmodified, defaultContext);
+
+                long ncommitted = 0L;
+
+                while (true) {
+
+                    final Statement[] batch = queue.poll(100,
+                            TimeUnit.MILLISECONDS);
+
+                    if (batch == null) {
+
+                        if (readerFuture.isDone()) {
+                            // Reader failed without queuing EOF.
+                            readerFuture.get();
+                            break;
+                        }
+
+                        continue;
+
+                    }
+
+                    if (batch == EOF)
+                        break;
+
+                    for (Statement stmt : batch) {
+
+                        handler.handleStatement(stmt);
+
+                    }
+
+                    if (commitEvery > 0
+                            && nmodified.get() - ncommitted >= commitEvery) {
+
+                        // Commit this group.
+                        conn.commit();
+
+                        ncommitted = nmodified.get();
+
+                    }
+
+                }
+
+                // Check for a parser error.
+                readerFuture.get();
+
+                // Commit the mutation.
+                conn.commit();
+
+                success = true;
+
+                final long elapsed = System.currentTimeMillis() - begin;
+
+                reportModifiedCount(nmodified.get(), elapsed);
+
+                return (Void) null;
+
+            } finally {
+
+                if (readerFuture != null) {
+
+                    // Stop the reader and parsers (if still running).
+                    readerFuture.cancel(true/* mayInterruptIfRunning */);
+
+                }
+
+                if (conn != null) {
+
+                    if (!success)
+                        conn.rollback();
+
+                    conn.close();
+
+                }
+
+            }
+
+        }
+
+        /**
+         * Reads the request body and dispatches chunks of it to the parsers.
+         * Queues {@link #EOF} once all chunks have been parsed.
+         */
+        private class ReaderTask implements Callable<Void> {
+
+            private final InputStream is;
+            private final BigdataValueFactory valueFactory;
+            private final BlockingQueue<Statement[]> queue;
+            private final int nparsers;
+            private final String bnodePrefix;
+
+            /**
+             * @param bnodePrefix
+             *            The prefix for the preserved blank node IDs, which
+             *            scopes them to the request.
+             */
+            ReaderTask(final InputStream is,
+                    final BigdataValueFactory valueFactory,
+                    final BlockingQueue<Statement[]> queue, final int nparsers,
+                    final String bnodePrefix) {
+                this.is = is;
+                this.valueFactory = valueFactory;
+                this.queue = queue;
+                this.nparsers = nparsers;
+                this.bnodePrefix = bnodePrefix;
+            }
+
+            @Override
+            public Void call() throws Exception {
+
+                if (nparsers == 1) {
+
+                    // Parse the entire request body on this thread.
+                    new ParserTask(is, false/* preserveBNodeIDs */).call();
+
+                    queue.put(EOF);
+
+                    return null;
+
+                }
+
+                final Executor parserService = new LatchedExecutor(
+                        getIndexManager().getExecutorService(), nparsers);
+
+                // Bounds the #of chunks in memory.
+                final Semaphore permits = new Semaphore(2 * nparsers);
+
+                final List<FutureTask<Void>> futures = new LinkedList<FutureTask<Void>>();
+
+                try {
+
+                    byte[] buf = new byte[CHUNK_SIZE];
+                    int len = 0;
+
+                    while (true) {
+
+                        if (len == buf.length) {
+                            // A line longer than the buffer.
+                            buf = Arrays.copyOf(buf, buf.length * 2);
+                        }
+
+                        final int n = is.read(buf, len, buf.length - len);
+
+                        if (n == -1) {
+
+                            if (len > 0)
+                                submit(parserService, permits, futures,
+                                        Arrays.copyOf(buf, len));
+
+                            break;
+
+                        }
+
+                        len += n;
+
+                        if (len < CHUNK_SIZE)
+                            continue;
+
+                        // Split after the last complete line.
+                        int eol = len - 1;
+                        while (eol >= 0 && buf[eol] != '\n')
+                            eol--;
+
+                        if (eol < 0)
+                            continue;
+
+                        submit(parserService, permits, futures,
+                                Arrays.copyOf(buf, eol + 1));
+
+                        final byte[] tmp = new byte[Math.max(CHUNK_SIZE, len
+                                - eol - 1)];
+
+                        System.arraycopy(buf, eol + 1, tmp, 0, len - eol - 1);
+
+                        buf = tmp;
+
+                        len = len - eol - 1;
+
+                    }
+
+                    // Wait for the parsers, reporting the first error.
+                    for (FutureTask<Void> f : futures) {
+
+                        f.get();
+
+                    }
+
+                    queue.put(EOF);
+
+                    return null;
+
+                } finally {
+
+                    for (FutureTask<Void> f : futures) {
+
+                        f.cancel(true/* mayInterruptIfRunning */);
+
+                    }
+
+                }
+
+            }
+
+            /**
+             * Submit a chunk to the parsers, blocking until a chunk permit is
+             * available.
+             */
+            private void submit(final Executor parserService,
+                    final Semaphore permits,
+                    final List<FutureTask<Void>> futures, final byte[] chunk)
+                    throws Exception {
+
+                // Check for a parser error before reading more data.
+                for (FutureTask<Void> f : futures) {
+
+                    if (f.isDone())
+                        f.get();
+
+                }
+
+                permits.acquire();
+
+                final FutureTask<Void> ft = new FutureTask<Void>(
+                        new ParserTask(new ByteArrayInputStream(chunk),
+                                true/* preserveBNodeIDs */)) {
+                    @Override
+                    protected void done() {
+                        permits.release();
+                    }
+                };
+
+                futures.add(ft);
+
+                parserService.execute(ft);
+
+            }
+
+            /**
+             * Parses some data, handing off the statements in batches to the
+             * writer.
+             */
+            private class ParserTask implements Callable<Void> {
+
+                private final InputStream in;
+                private final boolean preserveBNodeIDs;
+
+                ParserTask(final InputStream in, final boolean preserveBNodeIDs) {
+                    this.in = in;
+                    this.preserveBNodeIDs = preserveBNodeIDs;
+                }
+
+                @Override
+                public Void call() throws Exception {
+
+                    final RDFParser rdfParser = rdfParserFactory.getParser();
+
+                    rdfParser.setValueFactory(valueFactory);
+
+                    rdfParser.setVerifyData(true);
+
+                    rdfParser.setStopAtFirstError(true);
+
+                    rdfParser
+                            .setDatatypeHandling(RDFParser.DatatypeHandling.IGNORE);
+
+                    rdfParser.setPreserveBNodeIDs(preserveBNodeIDs);
+
+                    rdfParser.setRDFHandler(new RDFHandlerBase() {
+
+                        private final List<Statement> batch = new ArrayList<Statement>(
+                                BATCH_SIZE);
+
+                        @Override
+                        public void handleStatement(final Statement stmt)
+                                throws RDFHandlerException {
+
+                            batch.add(preserveBNodeIDs ? scopeBNodes(stmt)
+                                    : stmt);
+
+                            if (batch.size() == BATCH_SIZE)
+                                flush();
+
+                        }
+
+                        @Override
+                        public void endRDF() throws RDFHandlerException {
+
+                            flush();
+
+                        }
+
+                        private void flush() throws RDFHandlerException {
+
+                            if (batch.isEmpty())
+                                return;
+
+                            try {
+                                // Blocks if the writer is falling behind.
+                                queue.put(batch.toArray(new Statement[batch
+                                        .size()]));
+                            } catch (InterruptedException ex) {
+                                throw new RDFHandlerException(ex);
+                            }
+
+                            batch.clear();
+
+                        }
+
+                    });
+
+                    rdfParser.parse(in, baseURI);
+
+                    return null;
+
+                }
+
+                /**
+                 * Return a statement in which the ID of each blank node is
+                 * prefixed by {@link ReaderTask#bnodePrefix}.
+                 */
+                private Statement scopeBNodes(final Statement stmt) {
+
+                    final Resource s = stmt.getSubject();
+                    final Value o = stmt.getObject();
+                    final Resource c = stmt.getContext();
+
+                    if (!(s instanceof BNode) && !(o instanceof BNode)
+                            && !(c instanceof BNode)) {
+
+                        return stmt;
+
+                    }
+
+                    return valueFactory.createStatement(
+                            (Resource) scopeBNode(s), stmt.getPredicate(),
+                            scopeBNode(o), (Resource) scopeBNode(c));
+
+                }
+
+                private Value scopeBNode(final Value v) {
+
+                    if (!(v instanceof BNode))
+                        return v;
+
+                    return valueFactory.createBNode(bnodePrefix
+                            + ((BNode) v).getID());
+
+                }
+
+            }
+
+        }
+
+    }
+
     /**
 	 * POST with URIs of resources to be inserted (loads the referenced
 	 * resources).
@@ -37,9 +37,13 @@ import java.util.concurrent.TimeoutException;
 import javax.servlet.ServletContextListener;
 
 import org.apache.log4j.Logger;
+import org.eclipse.jetty.server.ConnectionFactory;
 import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.gzip.GzipHandler;
 import org.eclipse.jetty.util.resource.Resource;
 import org.eclipse.jetty.webapp.WebAppContext;
 import org.eclipse.jetty.xml.XmlConfiguration;
@@ -225,8 +229,58 @@ public class NanoSparqlServer {
 
 		String JETTY_HOME = "jetty.home";
 
+        /**
+         * When <code>true</code>, responses are compressed (gzip) for clients
+         * whose <code>Accept-Encoding</code> header permits it (default
+         * {@value #DEFAULT_JETTY_GZIP}). This applies to both <code>GET</code>
+         * and <code>POST</code> requests, so SPARQL queries sent using POST
+         * also receive compressed result streams. Each flush of the servlet
+         * output stream is propagated through the compressor, so results are
+         * still delivered incrementally to the client.
+         * <p>
+         * Note: The {@link com.bigdata.rdf.sail.webapp.client.DefaultHttpClientFactory} advertises and decodes
+         * gzip transparently. Compression trades CPU for bandwidth and is
+         * mainly of interest when the client and server are not on the same
+         * host.
+         */
+        String JETTY_GZIP = "jetty.gzip";
+
+        String DEFAULT_JETTY_GZIP = "false";
+
+        /**
+         * The minimum size in bytes of a response before it will be compressed
+         * (default {@value #DEFAULT_JETTY_GZIP_MIN_SIZE}).
+         * 
+         * @see #JETTY_GZIP
+         */
+        String JETTY_GZIP_MIN_SIZE = "jetty.gzip.minSize";
+
+        String DEFAULT_JETTY_GZIP_MIN_SIZE = "1024";
+
+        /**
+         * When <code>true</code>, cleartext HTTP/2 (h2c) is enabled on each
+         * {@link ServerConnector} in addition to HTTP/1.1 (default
+         * {@value #DEFAULT_JETTY_H2C}). Clients may then either upgrade from
+         * HTTP/1.1 or use HTTP/2 with prior knowledge and multiplex
+         * concurrent requests over a single connection.
+         * <p>
+         * Note: This requires the jetty <code>http2-server</code> module on
+         * the classpath. That module is not bundled, so the connection factory
+         * is resolved by name and a warning is logged if it is not available.
+         */
+        String JETTY_H2C = "jetty.h2c";
+
+        String DEFAULT_JETTY_H2C = "false";
+
     }
 
+    /**
+     * The name of the jetty connection factory for cleartext HTTP/2.
+     * 
+     * @see SystemProperties#JETTY_H2C
+     */
+    private static final String H2C_CONNECTION_FACTORY = "org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory";
+
     /**
      * Run an httpd service exposing a SPARQL endpoint. The service will respond
      * to the following URL paths:
@@ -792,6 +846,13 @@ public class NanoSparqlServer {
          */
         configureWebAppOverrides(server, indexManager, initParams);
 
+        /*
+         * Configure HTTP/2 and response compression.
+         */
+        configureProtocols(server);
+
+        configureCompression(server);
+
         return server;
         
     }
@@ -1106,6 +1167,101 @@ public class NanoSparqlServer {
 
     }
 
+    /**
+     * Enable cleartext HTTP/2 on the {@link ServerConnector}s if requested.
+     * 
+     * @see SystemProperties#JETTY_H2C
+     */
+    private static void configureProtocols(final Server server) {
+
+        final boolean h2c = Boolean.valueOf(System.getProperty(
+                SystemProperties.JETTY_H2C, SystemProperties.DEFAULT_JETTY_H2C));
+
+        if (!h2c)
+            return;
+
+        final Class<?> cls;
+        try {
+            cls = Class.forName(H2C_CONNECTION_FACTORY);
+        } catch (ClassNotFoundException ex) {
+            log.warn(SystemProperties.JETTY_H2C
+                    + " is set, but HTTP/2 is not available: "
+                    + H2C_CONNECTION_FACTORY + " not found.");
+            return;
+        }
+
+        for (Connector c : server.getConnectors()) {
+
+            if (!(c instanceof ServerConnector))
+                continue;
+
+            final ServerConnector connector = (ServerConnector) c;
+
+            final HttpConnectionFactory http1 = connector
+                    .getConnectionFactory(HttpConnectionFactory.class);
+
+            if (http1 == null)
+                continue;
+
+            try {
+
+                connector.addConnectionFactory((ConnectionFactory) cls
+                        .getConstructor(HttpConfiguration.class).newInstance(
+                                http1.getHttpConfiguration()));
+
+            } catch (Exception ex) {
+
+                throw new RuntimeException(ex);
+
+            }
+
+            if (log.isInfoEnabled())
+                log.info("Enabled h2c: " + connector);
+
+        }
+
+    }
+
+    /**
+     * Wrap the handlers of the {@link Server} in a {@link GzipHandler} if
+     * response compression was requested. The {@link GzipHandler} only
+     * compresses the response when the request indicates that the client
+     * accepts gzip.
+     * 
+     * @see SystemProperties#JETTY_GZIP
+     */
+    private static void configureCompression(final Server server) {
+
+        final boolean gzip = Boolean.valueOf(System.getProperty(
+                SystemProperties.JETTY_GZIP,
+                SystemProperties.DEFAULT_JETTY_GZIP));
+
+        if (!gzip)
+            return;
+
+        final int minSize = Integer.parseInt(System.getProperty(
+                SystemProperties.JETTY_GZIP_MIN_SIZE,
+                SystemProperties.DEFAULT_JETTY_GZIP_MIN_SIZE));
+
+        final GzipHandler gzipHandler = new GzipHandler();
+
+        // SPARQL queries are often sent using POST.
+        gzipHandler.setIncludedMethods("GET", "POST");
+
+        gzipHandler.setMinGzipSize(minSize);
+
+        // Propagate flush() so the results are streamed to the client.
+        gzipHandler.setSyncFlush(true);
+
+        gzipHandler.setHandler(server.getHandler());
+
+        server.setHandler(gzipHandler);
+
+        if (log.isInfoEnabled())
+            log.info("Enabled response compression: minSize=" + minSize);
+
+    }
+
     /**
      * Return the {@link WebAppContext} for the {@link Server}.
      * 
@@ -0,0 +1,626 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+
+package com.bigdata.rdf.sail.webapp;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.log4j.Logger;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.QueryEvaluationException;
+import org.openrdf.query.TupleQueryResult;
+
+import com.bigdata.rdf.sail.BigdataSailRepositoryConnection;
+
+/**
+ * Server-side cursors for paging through the solutions of SPARQL SELECT
+ * queries. A cursor holds the {@link TupleQueryResult} of a running query
+ * together with the read-only connection and the read-only transaction on
+ * which that query is evaluated, so each page continues from where the last
+ * page stopped against the same commit point. A client paging through a large
+ * result therefore pays for each page rather than re-running the query and
+ * skipping the solutions for all prior pages as it would with
+ * <code>LIMIT</code> and <code>OFFSET</code>.
+ * <p>
+ * The solutions are not materialized ahead of the client. The query engine
+ * stops producing solutions once the output buffer of the running query is
+ * full, so the memory used by an idle cursor is bounded by that buffer.
+ * Cursors are also subject to a maximum number of open cursors and are closed
+ * once they have been idle for longer than the configured timeout. Closing a
+ * cursor cancels its query and releases its read-only transaction, which
+ * would otherwise defer the recycling of storage on the RWStore.
+ * <p>
+ * The query of a cursor is admitted by its {@link WorkloadClass} and holds the
+ * permit of that workload class until the cursor is closed, whether it was
+ * exhausted, closed by the client or closed because it was idle.
+ * 
+ * @see ConfigParams#MAX_CURSORS
+ * @see ConfigParams#CURSOR_TIMEOUT
+ * @see ConfigParams#CURSOR_MAX_PAGE_SIZE
+ */
+public class QueryCursorManager {
+
+    static private final transient Logger log = Logger
+            .getLogger(QueryCursorManager.class);
+
+    private final BigdataRDFContext context;
+
+    /**
+     * The maximum number of open cursors.
+     */
+    private final int maxCursors;
+
+    /**
+     * The time in milliseconds after which an idle cursor is closed.
+     */
+    private final long timeoutMillis;
+
+    /**
+     * The maximum number of solutions in a page.
+     */
+    private final int maxPageSize;
+
+    /**
+     * The open cursors.
+     */
+    private final ConcurrentHashMap<UUID, QueryCursor> cursors = new ConcurrentHashMap<UUID, QueryCursor>();
+
+    /**
+     * The #of open or reserved cursors.
+     * 
+     * @see #reserve()
+     */
+    private final AtomicInteger reserved = new AtomicInteger();
+
+    /**
+     * The #of cursors which were opened.
+     */
+    private final AtomicLong openCount = new AtomicLong();
+
+    /**
+     * The #of cursors which were closed because they were idle.
+     */
+    private final AtomicLong timeoutCount = new AtomicLong();
+
+    /**
+     * The task which closes the idle cursors.
+     */
+    private final ScheduledFuture<?> timeoutFuture;
+
+    /**
+     * 
+     * @param context
+     *            The context used to release the read-only transactions.
+     * @param maxCursors
+     *            The maximum number of open cursors.
+     * @param timeoutMillis
+     *            The time in milliseconds after which an idle cursor is
+     *            closed.
+     * @param maxPageSize
+     *            The maximum number of solutions in a page.
+     */
+    public QueryCursorManager(final BigdataRDFContext context,
+            final int maxCursors, final long timeoutMillis,
+            final int maxPageSize) {
+
+        if (context == null)
+            throw new IllegalArgumentException();
+        if (maxCursors <= 0)
+            throw new IllegalArgumentException();
+        if (timeoutMillis <= 0L)
+            throw new IllegalArgumentException();
+        if (maxPageSize <= 0)
+            throw new IllegalArgumentException();
+
+        this.context = context;
+        this.maxCursors = maxCursors;
+        this.timeoutMillis = timeoutMillis;
+        this.maxPageSize = maxPageSize;
+
+        // Check for idle cursors several times per timeout, but at most 10x/s.
+        final long delay = Math.max(100L, Math.min(1000L, timeoutMillis / 4));
+
+        timeoutFuture = context.getIndexManager().addScheduledTask(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            closeIdleCursors();
+                        } catch (Throwable t) {
+                            // Log and continue so the task is rescheduled.
+                            log.error(t, t);
+                        }
+                    }
+                }, delay, delay, TimeUnit.MILLISECONDS);
+
+    }
+
+    /**
+     * The maximum number of solutions in a page.
+     */
+    public int getMaxPageSize() {
+
+        return maxPageSize;
+
+    }
+
+    /**
+     * The #of open cursors.
+     */
+    public int size() {
+
+        return cursors.size();
+
+    }
+
+    /**
+     * The #of cursors which were opened.
+     */
+    public long getOpenCount() {
+
+        return openCount.get();
+
+    }
+
+    /**
+     * The #of cursors which were closed because they were idle.
+     */
+    public long getTimeoutCount() {
+
+        return timeoutCount.get();
+
+    }
+
+    /**
+     * Reserve a cursor. This is done before the query is evaluated so a
+     * query is not run when it could not be held open as a cursor. The
+     * reservation is either consumed by {@link #open(String, long,
+     * BigdataSailRepositoryConnection, TupleQueryResult, int)} or MUST be
+     * given back using {@link #release()}.
+     * 
+     * @return <code>true</code> iff the cursor was reserved and
+     *         <code>false</code> if the maximum number of cursors is open.
+     */
+    public boolean reserve() {
+
+        while (true) {
+
+            final int n = reserved.get();
+
+            if (n >= maxCursors)
+                return false;
+
+            if (reserved.compareAndSet(n, n + 1))
+                return true;
+
+        }
+
+    }
+
+    /**
+     * Give back a reservation which was not used to open a cursor.
+     */
+    public void release() {
+
+        reserved.decrementAndGet();
+
+    }
+
+    /**
+     * Open a cursor. The cursor takes over the responsibility for the result,
+     * the connection, the read-only transaction and the permit of the workload
+     * class. The caller MUST have {@link #reserve() reserved} the cursor.
+     * 
+     * @param namespace
+     *            The namespace of the KB instance.
+     * @param tx
+     *            The read-only transaction.
+     * @param conn
+     *            The read-only connection on that transaction.
+     * @param result
+     *            The result of the query.
+     * @param pageSize
+     *            The default number of solutions in a page.
+     * @param workloadClass
+     *            The workload class which admitted the query. Its permit is
+     *            released when the cursor is closed.
+     * 
+     * @return The cursor.
+     * 
+     * @throws QueryEvaluationException
+     */
+    public QueryCursor open(final String namespace, final long tx,
+            final BigdataSailRepositoryConnection conn,
+            final TupleQueryResult result, final int pageSize,
+            final WorkloadClass workloadClass) throws QueryEvaluationException {
+
+        if (workloadClass == null)
+            throw new IllegalArgumentException();
+
+        final QueryCursor cursor = new QueryCursor(UUID.randomUUID(),
+                namespace, tx, conn, result, pageSize, workloadClass);
+
+        cursors.put(cursor.getId(), cursor);
+
+        openCount.incrementAndGet();
+
+        if (log.isInfoEnabled())
+            log.info("Opened: " + cursor);
+
+        return cursor;
+
+    }
+
+    /**
+     * Return the open cursor with that identifier.
+     * 
+     * @param id
+     *            The cursor identifier.
+     * 
+     * @return The cursor -or- <code>null</code> if there is no such open
+     *         cursor.
+     */
+    public QueryCursor get(final UUID id) {
+
+        return cursors.get(id);
+
+    }
+
+    /**
+     * Close a cursor.
+     * 
+     * @param id
+     *            The cursor identifier.
+     * 
+     * @return <code>true</code> iff the cursor was open.
+     */
+    public boolean close(final UUID id) {
+
+        final QueryCursor cursor = cursors.remove(id);
+
+        if (cursor == null)
+            return false;
+
+        try {
+
+            cursor.close();
+
+        } finally {
+
+            reserved.decrementAndGet();
+
+        }
+
+        if (log.isInfoEnabled())
+            log.info("Closed: " + cursor);
+
+        return true;
+
+    }
+
+    /**
+     * Close the cursors which have been idle for longer than the timeout. A
+     * cursor which is writing a page is not idle.
+     */
+    void closeIdleCursors() {
+
+        final long now = System.nanoTime();
+
+        final long timeoutNanos = TimeUnit.MILLISECONDS
+                .toNanos(timeoutMillis);
+
+        final List<UUID> idle = new ArrayList<UUID>();
+
+        for (QueryCursor cursor : cursors.values()) {
+
+            if (cursor.isIdle(now, timeoutNanos))
+                idle.add(cursor.getId());
+
+        }
+
+        for (UUID id : idle) {
+
+            if (close(id)) {
+
+                timeoutCount.incrementAndGet();
+
+                if (log.isInfoEnabled())
+                    log.info("Timeout: cursor=" + id);
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Close all cursors and stop checking for idle cursors.
+     */
+    void shutdownNow() {
+
+        timeoutFuture.cancel(true/* mayInterruptIfRunning */);
+
+        final Iterator<UUID> itr = cursors.keySet().iterator();
+
+        while (itr.hasNext()) {
+
+            close(itr.next());
+
+        }
+
+    }
+
+    /**
+     * A cursor over the solutions of a SPARQL SELECT query.
+     */
+    public class QueryCursor {
+
+        private final UUID id;
+        private final String namespace;
+        private final long tx;
+        private final BigdataSailRepositoryConnection conn;
+        private final TupleQueryResult result;
+        private final List<String> bindingNames;
+        private final int pageSize;
+        private final WorkloadClass workloadClass;
+
+        /**
+         * Serializes the pages and closing the cursor.
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * The time at which the last page was written.
+         */
+        private volatile long lastAccessNanos;
+
+        /**
+         * The #of solutions in the pages read so far.
+         */
+        private volatile long solutionCount;
+
+        /**
+         * <code>true</code> once all solutions have been read.
+         */
+        private volatile boolean exhausted;
+
+        /**
+         * <code>true</code> once the cursor is closed.
+         */
+        private boolean closed;
+
+        private QueryCursor(final UUID id, final String namespace,
+                final long tx, final BigdataSailRepositoryConnection conn,
+                final TupleQueryResult result, final int pageSize,
+                final WorkloadClass workloadClass)
+                throws QueryEvaluationException {
+
+            this.id = id;
+            this.namespace = namespace;
+            this.tx = tx;
+            this.conn = conn;
+            this.result = result;
+            this.bindingNames = result.getBindingNames();
+            this.pageSize = pageSize;
+            this.workloadClass = workloadClass;
+            this.lastAccessNanos = System.nanoTime();
+
+        }
+
+        /**
+         * The cursor identifier.
+         */
+        public UUID getId() {
+
+            return id;
+
+        }
+
+        /**
+         * The namespace of the KB instance.
+         */
+        public String getNamespace() {
+
+            return namespace;
+
+        }
+
+        /**
+         * The default number of solutions in a page.
+         */
+        public int getPageSize() {
+
+            return pageSize;
+
+        }
+
+        /**
+         * The names of the projected variables.
+         */
+        public List<String> getBindingNames() {
+
+            return bindingNames;
+
+        }
+
+        /**
+         * The #of solutions in the pages read so far.
+         */
+        public long getSolutionCount() {
+
+            return solutionCount;
+
+        }
+
+        /**
+         * <code>true</code> once the last page has been read.
+         */
+        public boolean isExhausted() {
+
+            return exhausted;
+
+        }
+
+        /**
+         * Read the next page. The solutions in the page are materialized so
+         * that the caller knows whether there will be another page before it
+         * writes this page.
+         * 
+         * @param n
+         *            The maximum number of solutions in the page.
+         * 
+         * @return The solutions -or- <code>null</code> if the cursor was
+         *         closed.
+         * 
+         * @throws QueryEvaluationException
+         *             if the query failed.
+         */
+        public List<BindingSet> nextPage(final int n)
+                throws QueryEvaluationException {
+
+            if (n <= 0 || n > maxPageSize)
+                throw new IllegalArgumentException();
+
+            lock.lock();
+
+            try {
+
+                if (closed)
+                    return null;
+
+                final List<BindingSet> solutions = new ArrayList<BindingSet>(
+                        Math.min(n, 1000));
+
+                while (solutions.size() < n && result.hasNext()) {
+
+                    solutions.add(result.next());
+
+                }
+
+                solutionCount += solutions.size();
+
+                exhausted = !result.hasNext();
+
+                lastAccessNanos = System.nanoTime();
+
+                return solutions;
+
+            } finally {
+
+                lock.unlock();
+
+            }
+
+        }
+
+        /**
+         * Return <code>true</code> if the cursor has been idle for longer
+         * than the timeout. A cursor which is reading a page is never idle.
+         */
+        private boolean isIdle(final long now, final long timeoutNanos) {
+
+            if (!lock.tryLock()) {
+
+                // Busy.
+                return false;
+
+            }
+
+            try {
+
+                return now - lastAccessNanos > timeoutNanos;
+
+            } finally {
+
+                lock.unlock();
+
+            }
+
+        }
+
+        /**
+         * Cancel the query, close the connection, release the read-only
+         * transaction and release the permit of the workload class.
+         */
+        private void close() {
+
+            lock.lock();
+
+            try {
+
+                if (closed)
+                    return;
+
+                closed = true;
+
+                try {
+                    result.close();
+                } catch (Throwable t) {
+                    log.warn("cursor=" + id + ": " + t, t);
+                }
+
+                try {
+                    conn.close();
+                } catch (Throwable t) {
+                    log.warn("cursor=" + id + ": " + t, t);
+                }
+
+                try {
+                    context.abortTx(tx);
+                } finally {
+                    workloadClass.release();
+                }
+
+            } finally {
+
+                lock.unlock();
+
+            }
+
+        }
+
+        @Override
+        public String toString() {
+
+            return getClass().getSimpleName() + "{id=" + id + ",namespace="
+                    + namespace + ",tx=" + tx + ",solutionCount="
+                    + solutionCount + ",exhausted=" + exhausted + "}";
+
+        }
+
+    }
+
+}
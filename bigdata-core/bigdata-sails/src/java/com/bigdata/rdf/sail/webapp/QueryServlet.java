@@ -22,6 +22,8 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 */
 package com.bigdata.rdf.sail.webapp;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
@@ -30,14 +32,19 @@ import java.io.StringWriter;
 import java.io.Writer;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -53,6 +60,14 @@ import org.openrdf.model.Statement;
 import org.openrdf.model.URI;
 import org.openrdf.model.Value;
 import org.openrdf.model.impl.LinkedHashModel;
+import org.openrdf.model.impl.URIImpl;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.QueryEvaluationException;
+import org.openrdf.query.TupleQueryResult;
+import org.openrdf.query.impl.DatasetImpl;
+import org.openrdf.query.resultio.TupleQueryResultFormat;
+import org.openrdf.query.resultio.TupleQueryResultWriter;
+import org.openrdf.query.resultio.TupleQueryResultWriterRegistry;
 import org.openrdf.repository.RepositoryResult;
 import org.openrdf.rio.RDFFormat;
 import org.openrdf.rio.RDFWriter;
@@ -78,16 +93,22 @@ import com.bigdata.mdi.PartitionLocator;
 import com.bigdata.rdf.sail.BigdataSail;
 import com.bigdata.rdf.sail.BigdataSailQuery;
 import com.bigdata.rdf.sail.BigdataSailRepositoryConnection;
+import com.bigdata.rdf.sail.BigdataSailTupleQuery;
+import com.bigdata.rdf.sail.QueryCancellationHelper;
 import com.bigdata.rdf.sail.sparql.Bigdata2ASTSPARQLParser;
 import com.bigdata.rdf.sail.sparql.ast.SimpleNode;
 import com.bigdata.rdf.sail.webapp.BigdataRDFContext.AbstractQueryTask;
 import com.bigdata.rdf.sail.webapp.BigdataRDFContext.RunningQuery;
 import com.bigdata.rdf.sail.webapp.BigdataRDFContext.UpdateTask;
+import com.bigdata.rdf.sail.webapp.QueryCursorManager.QueryCursor;
+import com.bigdata.rdf.sail.webapp.client.BatchQueryResultConstants;
 import com.bigdata.rdf.sail.webapp.client.ConnectOptions;
 import com.bigdata.rdf.sail.webapp.client.EncodeDecodeValue;
 import com.bigdata.rdf.sparql.ast.ASTBase.Annotations;
 import com.bigdata.rdf.sparql.ast.ASTContainer;
+import com.bigdata.rdf.sparql.ast.QueryHints;
 import com.bigdata.rdf.sparql.ast.QueryRoot;
+import com.bigdata.rdf.sparql.ast.QueryType;
 import com.bigdata.rdf.sparql.ast.explainhints.ExplainHints;
 import com.bigdata.rdf.sparql.ast.explainhints.IExplainHint;
 import com.bigdata.rdf.store.AbstractTripleStore;
@@ -182,6 +203,43 @@ public class QueryServlet extends BigdataRDFServlet {
      */
     static final transient String ATTR_UUID = "uuid";
 
+    /**
+     * The name of the URL query parameter that indicates a batch of SPARQL
+     * queries. The queries are given by the {@link #ATTR_QUERY} parameter,
+     * which may be repeated.
+     * 
+     * @see BatchQueryResultConstants
+     */
+    static final transient String ATTR_BATCH = "batch";
+
+    /**
+     * The name of the URL query parameter that requests a server-side cursor
+     * for a SPARQL SELECT query. The value is the #of solutions in each page.
+     * The first page is returned with the response and the identifier of the
+     * cursor is reported by the
+     * {@link BigdataRDFContext#HTTP_HEADER_BIGDATA_CURSOR} header unless
+     * there are no more solutions.
+     * 
+     * @see QueryCursorManager
+     */
+    static final transient String ATTR_PAGE_SIZE = "pageSize";
+
+    /**
+     * The name of the URL query parameter that identifies a server-side
+     * cursor from which the next page of solutions is read. The
+     * {@link #ATTR_PAGE_SIZE} parameter may be used to override the #of
+     * solutions in that page.
+     * 
+     * @see QueryCursorManager
+     */
+    static final transient String ATTR_CURSOR = "cursor";
+
+    /**
+     * The name of the URL query parameter that closes the server-side cursor
+     * identified by {@link #ATTR_CURSOR}.
+     */
+    static final transient String ATTR_CLOSE_CURSOR = "closeCursor";
+
    /**
     * The name of the URL query parameter which is any of:
     * <dl>
@@ -244,6 +302,21 @@ public class QueryServlet extends BigdataRDFServlet {
             // SPARQL 1.1 UPDATE, see trac 711 for bug report motivating this case
             doSparqlUpdate(req, resp);
             
+	    } else if (req.getParameter(ATTR_BATCH) != null) {
+
+            // Batch of SPARQL queries.
+            doBatchQuery(req, resp);
+
+	    } else if (req.getParameter(ATTR_CURSOR) != null) {
+
+            // Next page from a cursor.
+            doCursorPage(req, resp);
+
+	    } else if (req.getParameter(ATTR_PAGE_SIZE) != null) {
+
+            // Open a cursor.
+            doCursorQuery(req, resp);
+
 	    } else if (req.getParameter(ATTR_UUID) != null) {
 
             // UUID with caching defeated.
@@ -285,7 +358,20 @@ public class QueryServlet extends BigdataRDFServlet {
     protected void doGet(final HttpServletRequest req,
             final HttpServletResponse resp) throws IOException {
 
-        if (req.getParameter(ATTR_QUERY) != null) {
+        if (req.getParameter(ATTR_BATCH) != null) {
+
+            doBatchQuery(req, resp);
+
+        } else if (req.getParameter(ATTR_CURSOR) != null) {
+
+            doCursorPage(req, resp);
+
+        } else if (req.getParameter(ATTR_QUERY) != null
+                && req.getParameter(ATTR_PAGE_SIZE) != null) {
+
+            doCursorQuery(req, resp);
+
+        } else if (req.getParameter(ATTR_QUERY) != null) {
             
             doSparqlQuery(req, resp);
             
@@ -457,9 +543,16 @@ public class QueryServlet extends BigdataRDFServlet {
           * execution thread leaves this context. This provides the appropriate
           * visibility guarantees.
           */
-         submitApiTask(
-               new SparqlUpdateTask(req, resp, namespace, timestamp, updateStr, bindings,
-                     getBigdataRDFContext())).get();
+         final SparqlUpdateTask task = new SparqlUpdateTask(req, resp,
+               namespace, timestamp, updateStr, bindings,
+               getBigdataRDFContext());
+
+         if (submitApiTaskAsync(task, "SPARQL-UPDATE: updateStr=" + updateStr)) {
+            // The response will be completed asynchronously.
+            return;
+         }
+
+         submitApiTask(task).get();
 
       } catch (Throwable t) {
 
@@ -568,7 +661,13 @@ public class QueryServlet extends BigdataRDFServlet {
 					context.queryService.execute(ft);
 
 					// Wait for the Future.
-					ft.get();
+					try {
+						ft.get();
+					} catch (InterruptedException ex) {
+						// Cancel the UPDATE (it will not commit).
+						ft.cancel(true/* mayInterruptIfRunning */);
+						throw ex;
+					}
 
 	                success = true;
 	                
@@ -675,9 +774,16 @@ public class QueryServlet extends BigdataRDFServlet {
 
          final long timestamp = getTimestamp(req);
 
-         submitApiTask(
-               new SparqlQueryTask(req, resp, namespace, timestamp, queryStr, includeInferred, bindings,
-                     getBigdataRDFContext())).get();
+         final SparqlQueryTask task = new SparqlQueryTask(req, resp,
+               namespace, timestamp, queryStr, includeInferred, bindings,
+               getBigdataRDFContext());
+
+         if (submitApiTaskAsync(task, "SPARQL-QUERY: queryStr=" + queryStr)) {
+            // The response will be completed asynchronously.
+            return;
+         }
+
+         submitApiTask(task).get();
 
       } catch (Throwable t) {
 
@@ -740,6 +846,16 @@ public class QueryServlet extends BigdataRDFServlet {
             // Parse the query.
             final ASTContainer astContainer = new Bigdata2ASTSPARQLParser().parseQuery2(queryStr, baseURI);
 
+            /*
+             * Admission control. Wait until the workload class of the query
+             * admits the query or reject the query if the queue for that
+             * workload class is full.
+             */
+            final WorkloadClass workloadClass = context.getWorkloadClass(req,
+                    namespace, astContainer);
+
+            workloadClass.acquire();
+
 			BigdataSailRepositoryConnection conn = null;
 			try {
 
@@ -769,6 +885,8 @@ public class QueryServlet extends BigdataRDFServlet {
 							conn, namespace, timestamp, queryStr, baseURI, astContainer, includeInferred, bindings,
 							null/* acceptOverride */, req, resp, os);
 
+					queryTask.setWorkloadClass(workloadClass);
+
 					// /*
 					// * Test the cache.
 					// */
@@ -810,7 +928,8 @@ public class QueryServlet extends BigdataRDFServlet {
 							// Begin executing the query (asynchronous)
 							context.queryService.execute(ft);
 							// Send an explanation instead of the query results.
-							explainQuery(queryStr, queryTask, ft, w);
+							explainQuery(queryStr, getIndexManager(), queryTask, ft,
+									w);
 						} finally {
 							w.flush();
 							w.close();
@@ -886,7 +1005,7 @@ public class QueryServlet extends BigdataRDFServlet {
 						context.queryService.execute(ft);
 
 						// Wait for the Future.
-						ft.get();
+						awaitQuery(queryTask, ft);
 
 					}
 				}
@@ -895,6 +1014,8 @@ public class QueryServlet extends BigdataRDFServlet {
 
 			} finally {
 
+				workloadClass.release();
+
 				if (conn != null) {
 
 					conn.close();
@@ -905,8 +1026,935 @@ public class QueryServlet extends BigdataRDFServlet {
 
 		}
 
+		/**
+		 * Wait for the query. If this thread is interrupted (e.g., the client
+		 * disconnected from an asynchronous request) then the query is
+		 * cancelled, including its {@link IRunningQuery}.
+		 */
+		private void awaitQuery(final AbstractQueryTask queryTask,
+				final FutureTask<Void> ft) throws InterruptedException,
+				ExecutionException {
+
+			try {
+
+				ft.get();
+
+			} catch (InterruptedException ex) {
+
+				ft.cancel(true/* mayInterruptIfRunning */);
+
+				final UUID queryId2 = queryTask.queryId2;
+
+				if (queryId2 != null) {
+
+					final QueryEngine queryEngine = QueryEngineFactory
+							.getInstance().getQueryController(getIndexManager());
+
+					QueryCancellationHelper.tryCancelQuery(queryEngine,
+							queryId2);
+
+				}
+
+				throw ex;
+
+			}
+
+		}
+
     } // SparqlQueryTask.
 
+    /**
+     * Run a batch of SPARQL queries.
+     * 
+     * @see BatchQueryTask
+     */
+    void doBatchQuery(final HttpServletRequest req,
+            final HttpServletResponse resp) throws IOException {
+
+        if (!isReadable(getServletContext(), req, resp)) {
+            // HA Quorum in use, but quorum is not met.
+            return;
+        }
+
+        final String[] queries = req.getParameterValues(ATTR_QUERY);
+
+        if (queries == null || queries.length == 0) {
+
+            buildAndCommitResponse(resp, HTTP_BADREQUEST, MIME_TEXT_PLAIN,
+                    "Not found: query");
+
+            return;
+
+        }
+
+        if (overloaded(getBigdataRDFContext())) {
+            buildAndCommitResponse(resp, HttpServletResponse.SC_SERVICE_UNAVAILABLE, MIME_TEXT_PLAIN,
+                    "Service load too high, please come back later");
+            return;
+        }
+
+        final Map<String, Value> bindings = parseBindings(req, resp);
+        if (bindings == null) {
+            // There was a problem with the bindings. An error response was
+            // already committed.
+            return;
+        }
+
+        final boolean includeInferred = getBooleanValue(req, INCLUDE_INFERRED,
+                true/* default */);
+
+        final String summary = "SPARQL-QUERY: batch=" + queries.length
+                + ", queryStr=" + queries[0];
+
+        try {
+
+            final String namespace = getNamespace(req);
+
+            final long timestamp = getTimestamp(req);
+
+            final BatchQueryTask task = new BatchQueryTask(req, resp,
+                    namespace, timestamp, queries, includeInferred, bindings,
+                    getBigdataRDFContext());
+
+            if (submitApiTaskAsync(task, summary)) {
+                // The response will be completed asynchronously.
+                return;
+            }
+
+            submitApiTask(task).get();
+
+        } catch (Throwable t) {
+
+            launderThrowable(t, resp, summary);
+
+        }
+
+    }
+
+    /**
+     * Helper task for a batch of SPARQL queries. All queries are parsed before
+     * any is run. The queries then run concurrently on the
+     * {@link BigdataRDFContext#queryService} against a single read-only
+     * connection, so they all read on the same commit point. The results of
+     * each query are buffered and written onto the response as one frame as
+     * soon as that query is done.
+     * <p>
+     * Note: Each query is subject to admission control using its own workload
+     * class and holds a permit of that workload class while it runs, so a
+     * batch can not run more queries of a workload class than that workload
+     * class admits. A query which is rejected by its workload class gets an
+     * error frame.
+     * <p>
+     * Note: The buffered results of each query are limited to
+     * {@link SparqlEndpointConfig#batchMaxResultSize} bytes. A query whose
+     * results exceed that limit is cancelled and gets an error frame.
+     * 
+     * @see BatchQueryResultConstants
+     */
+    static class BatchQueryTask extends AbstractRestApiTask<Void> {
+
+        private final String[] queries;
+        private final BigdataRDFContext context;
+        private final boolean includeInferred;
+        private final Map<String, Value> bindings;
+
+        public BatchQueryTask(final HttpServletRequest req,
+                final HttpServletResponse resp, final String namespace,
+                final long timestamp, final String[] queries,
+                final boolean includeInferred,
+                final Map<String, Value> bindings,
+                final BigdataRDFContext context) {
+
+            super(req, resp, namespace, timestamp);
+
+            if (queries == null || queries.length == 0)
+                throw new IllegalArgumentException();
+            if (context == null)
+                throw new IllegalArgumentException();
+
+            this.queries = queries;
+            this.context = context;
+            this.includeInferred = includeInferred;
+            this.bindings = bindings;
+
+        }
+
+        @Override
+        final public boolean isReadOnly() {
+            return true;
+        }
+
+        @Override
+        public Void call() throws Exception {
+
+            final String baseURI = BigdataRDFContext.getBaseURI(req, resp);
+
+            // Parse the queries before obtaining the connection object.
+            final ASTContainer[] astContainers = new ASTContainer[queries.length];
+
+            for (int i = 0; i < queries.length; i++) {
+
+                astContainers[i] = new Bigdata2ASTSPARQLParser().parseQuery2(
+                        queries[i], baseURI);
+
+            }
+
+            final long maxResultSize = context.getConfig().batchMaxResultSize;
+
+            BigdataSailRepositoryConnection conn = null;
+            final FutureTask<?>[] futures = new FutureTask<?>[queries.length];
+            try {
+
+                // One read-only view for all queries.
+                conn = getQueryConnection();
+
+                // The index of each query once it is done.
+                final BlockingQueue<Integer> doneQueue = new LinkedBlockingQueue<Integer>();
+
+                final AbstractQueryTask[] queryTasks = new AbstractQueryTask[queries.length];
+
+                final BoundedByteArrayOutputStream[] buffers = new BoundedByteArrayOutputStream[queries.length];
+
+                for (int i = 0; i < queries.length; i++) {
+
+                    buffers[i] = new BoundedByteArrayOutputStream(maxResultSize);
+
+                    queryTasks[i] = context.getQueryTask(conn, namespace,
+                            timestamp, queries[i], baseURI, astContainers[i],
+                            includeInferred, bindings,
+                            null/* acceptOverride */, req, resp, buffers[i]);
+
+                }
+
+                resp.setStatus(HTTP_OK);
+
+                resp.setContentType(BatchQueryResultConstants.MIME_BATCH_RESULTS);
+
+                final DataOutputStream out = new DataOutputStream(
+                        resp.getOutputStream());
+
+                out.write(BatchQueryResultConstants.MAGIC);
+
+                out.writeInt(BatchQueryResultConstants.VERSION);
+
+                int nsubmitted = 0, nwritten = 0;
+
+                for (int i = 0; i < queries.length; i++) {
+
+                    /*
+                     * Admission control. Wait until the workload class of the
+                     * query admits the query. The permit is released when the
+                     * query is done.
+                     */
+                    final WorkloadClass workloadClass = context
+                            .getWorkloadClass(req, namespace, astContainers[i]);
+
+                    try {
+
+                        workloadClass.acquire();
+
+                    } catch (HttpOperationException ex) {
+
+                        writeFrame(out, i, ex.status, ex.mimeType,
+                                ex.content.getBytes("UTF-8"));
+
+                        buffers[i] = null;
+
+                        continue;
+
+                    }
+
+                    queryTasks[i].setWorkloadClass(workloadClass);
+
+                    final int index = i;
+
+                    futures[i] = new FutureTask<Void>(queryTasks[i]) {
+
+                        @Override
+                        protected void done() {
+
+                            workloadClass.release();
+
+                            doneQueue.add(index);
+
+                        }
+
+                    };
+
+                    nsubmitted++;
+
+                    context.queryService.execute(futures[i]);
+
+                    // Write the frames of the queries which are already done.
+                    Integer done;
+                    while ((done = doneQueue.poll()) != null) {
+
+                        writeFrame(out, done, futures[done], queryTasks[done],
+                                buffers[done]);
+
+                        buffers[done] = null;
+
+                        nwritten++;
+
+                    }
+
+                }
+
+                while (nwritten < nsubmitted) {
+
+                    // Next query to finish.
+                    final int done = doneQueue.take();
+
+                    writeFrame(out, done, futures[done], queryTasks[done],
+                            buffers[done]);
+
+                    buffers[done] = null;
+
+                    nwritten++;
+
+                }
+
+                out.writeInt(BatchQueryResultConstants.END);
+
+                out.flush();
+
+                return null;
+
+            } finally {
+
+                // Cancel any queries which are still running.
+                for (FutureTask<?> f : futures) {
+
+                    if (f != null)
+                        f.cancel(true/* mayInterruptIfRunning */);
+
+                }
+
+                if (conn != null) {
+
+                    conn.close();
+
+                }
+
+            }
+
+        }
+
+        /**
+         * Write the frame for a query which is done.
+         */
+        private void writeFrame(final DataOutputStream out, final int index,
+                final Future<?> f, final AbstractQueryTask queryTask,
+                final BoundedByteArrayOutputStream buffer) throws IOException,
+                InterruptedException {
+
+            int status = HTTP_OK;
+            String mimeType = queryTask.mimeType;
+            byte[] data;
+            try {
+                f.get();
+                data = buffer.toByteArray();
+            } catch (ExecutionException ex) {
+                status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+                mimeType = MIME_TEXT_PLAIN;
+                if (InnerCause.isInnerCause(ex,
+                        ResultSizeExceededException.class)) {
+                    data = ("Results exceed "
+                            + ConfigParams.BATCH_MAX_RESULT_SIZE + "="
+                            + buffer.maxSize + " bytes").getBytes("UTF-8");
+                } else {
+                    log.error("cause=" + ex + ", query=" + queries[index],
+                            ex);
+                    data = String.valueOf(ex.getCause()).getBytes("UTF-8");
+                }
+            }
+
+            writeFrame(out, index, status, mimeType, data);
+
+        }
+
+        private static void writeFrame(final DataOutputStream out,
+                final int index, final int status, final String mimeType,
+                final byte[] data) throws IOException {
+
+            out.writeInt(index);
+            out.writeInt(status);
+            out.writeUTF(mimeType);
+            out.writeInt(data.length);
+            out.write(data);
+
+            out.flush();
+
+        }
+
+    } // BatchQueryTask.
+
+    /**
+     * Thrown when the results of a query in a batch exceed
+     * {@link SparqlEndpointConfig#batchMaxResultSize}.
+     */
+    private static class ResultSizeExceededException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        ResultSizeExceededException(final long maxSize) {
+            super("maxSize=" + maxSize);
+        }
+
+    }
+
+    /**
+     * A buffer for the results of a query in a batch which may hold at most
+     * the given #of bytes.
+     */
+    private static class BoundedByteArrayOutputStream extends OutputStream {
+
+        private final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+
+        private final long maxSize;
+
+        BoundedByteArrayOutputStream(final long maxSize) {
+
+            if (maxSize <= 0L)
+                throw new IllegalArgumentException();
+
+            this.maxSize = maxSize;
+
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+
+            ensureCapacity(1);
+
+            buf.write(b);
+
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len)
+                throws IOException {
+
+            ensureCapacity(len);
+
+            buf.write(b, off, len);
+
+        }
+
+        private void ensureCapacity(final int len)
+                throws ResultSizeExceededException {
+
+            if (buf.size() + (long) len > maxSize)
+                throw new ResultSizeExceededException(maxSize);
+
+        }
+
+        public byte[] toByteArray() {
+
+            return buf.toByteArray();
+
+        }
+
+    }
+
+    /**
+     * Open a server-side cursor for a SPARQL SELECT query and send the first
+     * page of solutions.
+     * 
+     * @see CursorQueryTask
+     */
+    void doCursorQuery(final HttpServletRequest req,
+            final HttpServletResponse resp) throws IOException {
+
+        if (!isReadable(getServletContext(), req, resp)) {
+            // HA Quorum in use, but quorum is not met.
+            return;
+        }
+
+        final QueryCursorManager cursors = getBigdataRDFContext()
+                .getCursorManager();
+
+        if (cursors == null) {
+
+            buildAndCommitResponse(resp, HTTP_NOTIMPLEMENTED, MIME_TEXT_PLAIN,
+                    "Cursors are disabled");
+
+            return;
+
+        }
+
+        final int pageSize = getPageSize(req, resp, cursors, 0/* default */);
+
+        if (pageSize == -1) {
+            // An error response was already committed.
+            return;
+        }
+
+        final String queryStr = getQueryString(req);
+
+        if (queryStr == null) {
+
+            buildAndCommitResponse(resp, HTTP_BADREQUEST, MIME_TEXT_PLAIN,
+                    "Not found: query");
+
+            return;
+
+        }
+
+        if (overloaded(getBigdataRDFContext())) {
+            buildAndCommitResponse(resp, HttpServletResponse.SC_SERVICE_UNAVAILABLE, MIME_TEXT_PLAIN,
+                    "Service load too high, please come back later");
+            return;
+        }
+
+        final Map<String, Value> bindings = parseBindings(req, resp);
+        if (bindings == null) {
+            // There was a problem with the bindings. An error response was
+            // already committed.
+            return;
+        }
+
+        final boolean includeInferred = getBooleanValue(req, INCLUDE_INFERRED,
+                true/* default */);
+
+        final String summary = "SPARQL-QUERY: pageSize=" + pageSize
+                + ", queryStr=" + queryStr;
+
+        try {
+
+            final String namespace = getNamespace(req);
+
+            final long timestamp = getTimestamp(req);
+
+            final CursorQueryTask task = new CursorQueryTask(req, resp,
+                    namespace, timestamp, queryStr, pageSize,
+                    includeInferred, bindings, getBigdataRDFContext());
+
+            if (submitApiTaskAsync(task, summary)) {
+                // The response will be completed asynchronously.
+                return;
+            }
+
+            submitApiTask(task).get();
+
+        } catch (Throwable t) {
+
+            launderThrowable(t, resp, summary);
+
+        }
+
+    }
+
+    /**
+     * Send the next page of solutions from a server-side cursor or close that
+     * cursor.
+     */
+    void doCursorPage(final HttpServletRequest req,
+            final HttpServletResponse resp) throws IOException {
+
+        if (!isReadable(getServletContext(), req, resp)) {
+            // HA Quorum in use, but quorum is not met.
+            return;
+        }
+
+        final String s = req.getParameter(ATTR_CURSOR);
+
+        final UUID id;
+        try {
+            id = UUID.fromString(s);
+        } catch (IllegalArgumentException ex) {
+            buildAndCommitResponse(resp, HTTP_BADREQUEST, MIME_TEXT_PLAIN,
+                    "Could not parse: " + ATTR_CURSOR + "=" + s);
+            return;
+        }
+
+        final QueryCursorManager cursors = getBigdataRDFContext()
+                .getCursorManager();
+
+        final QueryCursor cursor = cursors == null ? null : cursors.get(id);
+
+        if (cursor == null
+                || !cursor.getNamespace().equals(getNamespace(req))) {
+
+            buildAndCommitResponse(resp, HTTP_NOTFOUND, MIME_TEXT_PLAIN,
+                    "Cursor not found: " + id);
+
+            return;
+
+        }
+
+        if (req.getParameter(ATTR_CLOSE_CURSOR) != null) {
+
+            if (cursors.close(id)) {
+
+                buildAndCommitResponse(resp, HTTP_OK, MIME_TEXT_PLAIN,
+                        "Closed cursor: " + id);
+
+            } else {
+
+                buildAndCommitResponse(resp, HTTP_NOTFOUND, MIME_TEXT_PLAIN,
+                        "Cursor not found: " + id);
+
+            }
+
+            return;
+
+        }
+
+        final int pageSize = getPageSize(req, resp, cursors,
+                cursor.getPageSize());
+
+        if (pageSize == -1) {
+            // An error response was already committed.
+            return;
+        }
+
+        try {
+
+            writePage(req, resp, cursors, cursor, pageSize);
+
+        } catch (Throwable t) {
+
+            launderThrowable(t, resp, "SPARQL-QUERY: cursor=" + id);
+
+        }
+
+    }
+
+    /**
+     * Return the #of solutions in a page as given by the
+     * {@link #ATTR_PAGE_SIZE} parameter.
+     * 
+     * @param defaultValue
+     *            The value used when the parameter is not given -or- ZERO (0)
+     *            if the parameter is required.
+     * 
+     * @return The page size -or- <code>-1</code> if the parameter was not
+     *         valid, in which case an error response was committed.
+     */
+    private int getPageSize(final HttpServletRequest req,
+            final HttpServletResponse resp, final QueryCursorManager cursors,
+            final int defaultValue) throws IOException {
+
+        final String s = req.getParameter(ATTR_PAGE_SIZE);
+
+        int pageSize = defaultValue;
+
+        if (s != null && s.length() > 0) {
+
+            try {
+                pageSize = Integer.parseInt(s);
+            } catch (NumberFormatException ex) {
+                pageSize = 0;
+            }
+
+        }
+
+        if (pageSize <= 0 || pageSize > cursors.getMaxPageSize()) {
+
+            buildAndCommitResponse(resp, HTTP_BADREQUEST, MIME_TEXT_PLAIN,
+                    ATTR_PAGE_SIZE + " must be in [1:"
+                            + cursors.getMaxPageSize() + "], not: " + s);
+
+            return -1;
+
+        }
+
+        return pageSize;
+
+    }
+
+    /**
+     * Read the next page from the cursor and write it onto the response using
+     * the negotiated {@link TupleQueryResultFormat}. The cursor is closed once
+     * it is exhausted or if the query fails. Otherwise the
+     * {@link BigdataRDFContext#HTTP_HEADER_BIGDATA_CURSOR} header reports the
+     * cursor so the client can ask for the next page.
+     */
+    static void writePage(final HttpServletRequest req,
+            final HttpServletResponse resp, final QueryCursorManager cursors,
+            final QueryCursor cursor, final int pageSize) throws Exception {
+
+        final List<BindingSet> solutions;
+        try {
+            solutions = cursor.nextPage(pageSize);
+        } catch (QueryEvaluationException ex) {
+            // The query failed.
+            cursors.close(cursor.getId());
+            throw ex;
+        }
+
+        if (solutions == null) {
+
+            // Closed since it was looked up (timeout).
+            buildAndCommitResponse(resp, HTTP_NOTFOUND, MIME_TEXT_PLAIN,
+                    "Cursor not found: " + cursor.getId());
+
+            return;
+
+        }
+
+        if (cursor.isExhausted()) {
+
+            cursors.close(cursor.getId());
+
+        } else {
+
+            resp.setHeader(BigdataRDFContext.HTTP_HEADER_BIGDATA_CURSOR,
+                    cursor.getId().toString());
+
+        }
+
+        // CONNEG for the MIME type.
+        final List<String> acceptHeaders = Collections.list(req
+                .getHeaders("Accept"));
+
+        final String acceptStr = ConnegUtil
+                .getMimeTypeForQueryParameterQueryRequest(req
+                        .getParameter(OUTPUT_FORMAT_QUERY_PARAMETER),
+                        acceptHeaders.toArray(new String[acceptHeaders.size()]));
+
+        final TupleQueryResultFormat format = new ConnegUtil(acceptStr)
+                .getTupleQueryResultFormat(TupleQueryResultFormat.SPARQL);
+
+        resp.setStatus(HTTP_OK);
+
+        resp.setContentType(format.getDefaultMIMEType());
+
+        if (format.hasCharset()) {
+
+            resp.setCharacterEncoding(format.getCharset().name());
+
+        }
+
+        final OutputStream os = resp.getOutputStream();
+
+        final TupleQueryResultWriter w = TupleQueryResultWriterRegistry
+                .getInstance().get(format).getWriter(os);
+
+        w.startQueryResult(cursor.getBindingNames());
+
+        for (BindingSet bset : solutions) {
+
+            w.handleSolution(bset);
+
+        }
+
+        w.endQueryResult();
+
+        os.flush();
+
+    }
+
+    /**
+     * Helper task to open a server-side cursor for a SPARQL SELECT query. The
+     * query is evaluated against a read-only transaction which is held by the
+     * cursor, so all pages read on the same commit point. The first page is
+     * written onto the response.
+     * <p>
+     * Note: The query holds the permit of its workload class until the cursor
+     * is closed. The timeout and the native memory budget of the workload
+     * class are applied to the query. The query timeout of the endpoint is not
+     * applied since the query runs until the cursor is exhausted or closed.
+     * The cursor is closed once it has been idle for longer than the
+     * configured timeout.
+     * 
+     * @see QueryCursorManager
+     */
+    static class CursorQueryTask extends AbstractRestApiTask<Void> {
+
+        private final String queryStr;
+        private final int pageSize;
+        private final BigdataRDFContext context;
+        private final boolean includeInferred;
+        private final Map<String, Value> bindings;
+
+        public CursorQueryTask(final HttpServletRequest req,
+                final HttpServletResponse resp, final String namespace,
+                final long timestamp, final String queryStr,
+                final int pageSize, final boolean includeInferred,
+                final Map<String, Value> bindings,
+                final BigdataRDFContext context) {
+
+            super(req, resp, namespace, timestamp);
+
+            if (queryStr == null)
+                throw new IllegalArgumentException();
+            if (pageSize <= 0)
+                throw new IllegalArgumentException();
+            if (context == null)
+                throw new IllegalArgumentException();
+
+            this.queryStr = queryStr;
+            this.pageSize = pageSize;
+            this.context = context;
+            this.includeInferred = includeInferred;
+            this.bindings = bindings;
+
+        }
+
+        @Override
+        final public boolean isReadOnly() {
+            return true;
+        }
+
+        @Override
+        public Void call() throws Exception {
+
+            final String baseURI = BigdataRDFContext.getBaseURI(req, resp);
+
+            // Parse the query before obtaining the connection object.
+            final ASTContainer astContainer = new Bigdata2ASTSPARQLParser()
+                    .parseQuery2(queryStr, baseURI);
+
+            if (astContainer.getOriginalAST().getQueryType() != QueryType.SELECT) {
+
+                throw new HttpOperationException(HTTP_BADREQUEST,
+                        MIME_TEXT_PLAIN,
+                        "Cursors are only supported for SELECT queries");
+
+            }
+
+            final QueryCursorManager cursors = context.getCursorManager();
+
+            if (!cursors.reserve()) {
+
+                throw new HttpOperationException(
+                        HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                        MIME_TEXT_PLAIN, "Too many open cursors");
+
+            }
+
+            final WorkloadClass workloadClass = context.getWorkloadClass(req,
+                    namespace, astContainer);
+
+            QueryCursor cursor = null;
+            long tx = ITx.UNISOLATED;
+            BigdataSailRepositoryConnection conn = null;
+            TupleQueryResult result = null;
+            boolean admitted = false;
+            try {
+
+                workloadClass.acquire();
+
+                admitted = true;
+
+                // The read-only transaction is held by the cursor.
+                tx = context.newTx(timestamp);
+
+                conn = getQueryConnection(namespace, tx);
+
+                if (workloadClass.getTimeoutMillis() > 0L) {
+
+                    // Impose the timeout of the workload class.
+                    astContainer.getOriginalAST().setTimeout(
+                            workloadClass.getTimeoutMillis());
+
+                }
+
+                if (workloadClass.getMaxMemory() > 0L) {
+
+                    // Impose the native memory budget of the workload class.
+                    astContainer.setQueryHint(
+                            QueryHints.ANALYTIC_MAX_MEMORY_PER_QUERY,
+                            Long.toString(workloadClass.getMaxMemory()));
+
+                }
+
+                final BigdataSailTupleQuery query = new BigdataSailTupleQuery(
+                        astContainer, conn);
+
+                query.setIncludeInferred(includeInferred);
+
+                if (bindings != null) {
+
+                    for (Map.Entry<String, Value> e : bindings.entrySet()) {
+
+                        query.setBinding(e.getKey(), e.getValue());
+
+                    }
+
+                }
+
+                setDataset(query);
+
+                result = query.evaluate();
+
+                // The permit is held by the cursor.
+                cursor = cursors.open(namespace, tx, conn, result, pageSize,
+                        workloadClass);
+
+                writePage(req, resp, cursors, cursor, pageSize);
+
+                return null;
+
+            } finally {
+
+                if (cursor == null) {
+
+                    // The cursor was not opened.
+                    if (result != null) {
+                        try {
+                            result.close();
+                        } catch (Throwable t) {
+                            log.warn(t, t);
+                        }
+                    }
+
+                    if (conn != null) {
+                        conn.close();
+                    }
+
+                    if (tx != ITx.UNISOLATED) {
+                        context.abortTx(tx);
+                    }
+
+                    cursors.release();
+
+                    if (admitted) {
+
+                        workloadClass.release();
+
+                    }
+
+                }
+
+            }
+
+        }
+
+        /**
+         * Override the dataset of the query if the protocol parameters for the
+         * default and named graphs were given.
+         */
+        private void setDataset(final BigdataSailTupleQuery query) {
+
+            final String[] defaultGraphURIs = req
+                    .getParameterValues(BigdataRDFContext.DEFAULT_GRAPH_URI);
+
+            final String[] namedGraphURIs = req
+                    .getParameterValues(BigdataRDFContext.NAMED_GRAPH_URI);
+
+            if (defaultGraphURIs != null || namedGraphURIs != null) {
+
+                final DatasetImpl dataset = new DatasetImpl();
+
+                if (defaultGraphURIs != null)
+                    for (String graphURI : defaultGraphURIs)
+                        dataset.addDefaultGraph(new URIImpl(graphURI));
+
+                if (namedGraphURIs != null)
+                    for (String graphURI : namedGraphURIs)
+                        dataset.addNamedGraph(new URIImpl(graphURI));
+
+                query.setDataset(dataset);
+
+            }
+
+        }
+
+    } // CursorQueryTask.
+
     /**
      * The SPARQL query.
      * 
@@ -940,6 +1988,7 @@ public class QueryServlet extends BigdataRDFServlet {
      * query results.
      * 
      * @param queryStr
+     * @param indexManager
      * @param queryTask
      * @param ft
      * @param os
@@ -974,6 +2023,7 @@ public class QueryServlet extends BigdataRDFServlet {
      *             want to paint the statics which it uncovers in its rounds.
      */
 	static private void explainQuery(final String queryStr,
+			final IIndexManager indexManager,
 			final AbstractQueryTask queryTask, final FutureTask<Void> ft,
 			final Writer w) throws Exception {
 		
@@ -1097,8 +2147,6 @@ public class QueryServlet extends BigdataRDFServlet {
 			if (queryId2 != null) {
 				if(log.isDebugEnabled())
 					log.debug("Resolving IRunningQuery: queryId2=" + queryId2);
-				final IIndexManager indexManager = BigdataServlet
-						.getIndexManager(queryTask.req.getServletContext());
 				final QueryEngine queryEngine = QueryEngineFactory.getInstance()
 						.getQueryController(indexManager);
 				while (!ft.isDone() && q == null) {
@@ -256,6 +256,7 @@ public class RESTServlet extends BigdataRDFServlet {
         if (req.getParameter(QueryServlet.ATTR_QUERY) != null
                 || req.getParameter(QueryServlet.ATTR_UPDATE) != null
                 || req.getParameter(QueryServlet.ATTR_UUID) != null
+                || req.getParameter(QueryServlet.ATTR_CURSOR) != null
                 || req.getParameter(QueryServlet.ATTR_ESTCARD) != null
                 || req.getParameter(QueryServlet.ATTR_HASSTMT) != null
                 || req.getParameter(QueryServlet.ATTR_GETSTMTS) != null
@@ -96,17 +96,199 @@ public class SparqlEndpointConfig {
       */
     final public long executorMaxThreads;
 
+    /**
+     * The maximum #of bytes of native memory used to cache SPARQL SELECT
+     * results -or- ZERO (0) if the result cache is disabled.
+     * 
+     * @see ConfigParams#RESULT_CACHE_CAPACITY
+     */
+    final public long resultCacheCapacity;
+
+    /**
+     * The maximum #of solutions in a cached result.
+     * 
+     * @see ConfigParams#RESULT_CACHE_MAX_SOLUTIONS
+     */
+    final public int resultCacheMaxSolutions;
+
+    /**
+     * When <code>true</code>, the result cache retains the predicates modified
+     * by each commit.
+     * 
+     * @see ConfigParams#RESULT_CACHE_CHANGE_SETS
+     */
+    final public boolean resultCacheChangeSets;
+
+    /**
+     * The workload classes for SPARQL queries (optional).
+     * 
+     * @see ConfigParams#WORKLOAD_CLASSES
+     */
+    final public String workloadClasses;
+
+    /**
+     * The workload class for each namespace (optional).
+     * 
+     * @see ConfigParams#WORKLOAD_CLASS_NAMESPACES
+     */
+    final public String workloadClassNamespaces;
+
+    /**
+     * When <code>true</code>, SPARQL QUERY and SPARQL UPDATE requests are
+     * processed asynchronously.
+     * 
+     * @see ConfigParams#ASYNC_QUERY
+     */
+    final public boolean asyncQuery;
+
+    /**
+     * The maximum #of open cursors -or- ZERO (0) if cursors are disabled.
+     * 
+     * @see ConfigParams#MAX_CURSORS
+     */
+    final public int maxCursors;
+
+    /**
+     * The time in milliseconds after which an idle cursor is closed.
+     * 
+     * @see ConfigParams#CURSOR_TIMEOUT
+     */
+    final public long cursorTimeout;
+
+    /**
+     * The maximum #of solutions in a page read from a cursor.
+     * 
+     * @see ConfigParams#CURSOR_MAX_PAGE_SIZE
+     */
+    final public int cursorMaxPageSize;
+
+    /**
+     * The maximum #of bytes of the encoded results of each query in a batch
+     * request.
+     * 
+     * @see ConfigParams#BATCH_MAX_RESULT_SIZE
+     */
+    final public long batchMaxResultSize;
+
     public SparqlEndpointConfig(final String namespace, final long timestamp,
             final int queryThreadPoolSize,
             final boolean describeEachNamedGraph, final boolean readOnly,
             final long queryTimeout, final long executorMaxThreads) {
 
+        this(namespace, timestamp, queryThreadPoolSize,
+                describeEachNamedGraph, readOnly, queryTimeout,
+                executorMaxThreads,
+                ConfigParams.DEFAULT_RESULT_CACHE_CAPACITY,
+                ConfigParams.DEFAULT_RESULT_CACHE_MAX_SOLUTIONS,
+                ConfigParams.DEFAULT_RESULT_CACHE_CHANGE_SETS);
+
+    }
+
+    public SparqlEndpointConfig(final String namespace, final long timestamp,
+            final int queryThreadPoolSize,
+            final boolean describeEachNamedGraph, final boolean readOnly,
+            final long queryTimeout, final long executorMaxThreads,
+            final long resultCacheCapacity, final int resultCacheMaxSolutions,
+            final boolean resultCacheChangeSets) {
+
+        this(namespace, timestamp, queryThreadPoolSize,
+                describeEachNamedGraph, readOnly, queryTimeout,
+                executorMaxThreads, resultCacheCapacity,
+                resultCacheMaxSolutions, resultCacheChangeSets,
+                null/* workloadClasses */, null/* workloadClassNamespaces */);
+
+    }
+
+    public SparqlEndpointConfig(final String namespace, final long timestamp,
+            final int queryThreadPoolSize,
+            final boolean describeEachNamedGraph, final boolean readOnly,
+            final long queryTimeout, final long executorMaxThreads,
+            final long resultCacheCapacity, final int resultCacheMaxSolutions,
+            final boolean resultCacheChangeSets, final String workloadClasses,
+            final String workloadClassNamespaces) {
+
+        this(namespace, timestamp, queryThreadPoolSize,
+                describeEachNamedGraph, readOnly, queryTimeout,
+                executorMaxThreads, resultCacheCapacity,
+                resultCacheMaxSolutions, resultCacheChangeSets,
+                workloadClasses, workloadClassNamespaces,
+                ConfigParams.DEFAULT_ASYNC_QUERY);
+
+    }
+
+    public SparqlEndpointConfig(final String namespace, final long timestamp,
+            final int queryThreadPoolSize,
+            final boolean describeEachNamedGraph, final boolean readOnly,
+            final long queryTimeout, final long executorMaxThreads,
+            final long resultCacheCapacity, final int resultCacheMaxSolutions,
+            final boolean resultCacheChangeSets, final String workloadClasses,
+            final String workloadClassNamespaces, final boolean asyncQuery) {
+
+        this(namespace, timestamp, queryThreadPoolSize,
+                describeEachNamedGraph, readOnly, queryTimeout,
+                executorMaxThreads, resultCacheCapacity,
+                resultCacheMaxSolutions, resultCacheChangeSets,
+                workloadClasses, workloadClassNamespaces, asyncQuery,
+                ConfigParams.DEFAULT_MAX_CURSORS,
+                ConfigParams.DEFAULT_CURSOR_TIMEOUT,
+                ConfigParams.DEFAULT_CURSOR_MAX_PAGE_SIZE);
+
+    }
+
+    public SparqlEndpointConfig(final String namespace, final long timestamp,
+            final int queryThreadPoolSize,
+            final boolean describeEachNamedGraph, final boolean readOnly,
+            final long queryTimeout, final long executorMaxThreads,
+            final long resultCacheCapacity, final int resultCacheMaxSolutions,
+            final boolean resultCacheChangeSets, final String workloadClasses,
+            final String workloadClassNamespaces, final boolean asyncQuery,
+            final int maxCursors, final long cursorTimeout,
+            final int cursorMaxPageSize) {
+
+        this(namespace, timestamp, queryThreadPoolSize,
+                describeEachNamedGraph, readOnly, queryTimeout,
+                executorMaxThreads, resultCacheCapacity,
+                resultCacheMaxSolutions, resultCacheChangeSets,
+                workloadClasses, workloadClassNamespaces, asyncQuery,
+                maxCursors, cursorTimeout, cursorMaxPageSize,
+                ConfigParams.DEFAULT_BATCH_MAX_RESULT_SIZE);
+
+    }
+
+    public SparqlEndpointConfig(final String namespace, final long timestamp,
+            final int queryThreadPoolSize,
+            final boolean describeEachNamedGraph, final boolean readOnly,
+            final long queryTimeout, final long executorMaxThreads,
+            final long resultCacheCapacity, final int resultCacheMaxSolutions,
+            final boolean resultCacheChangeSets, final String workloadClasses,
+            final String workloadClassNamespaces, final boolean asyncQuery,
+            final int maxCursors, final long cursorTimeout,
+            final int cursorMaxPageSize, final long batchMaxResultSize) {
+
         if (namespace == null)
             throw new IllegalArgumentException();
 
         if (queryTimeout < 0L)
             throw new IllegalArgumentException();
 
+        if (resultCacheCapacity < 0L)
+            throw new IllegalArgumentException();
+
+        if (resultCacheMaxSolutions <= 0)
+            throw new IllegalArgumentException();
+
+        if (maxCursors < 0)
+            throw new IllegalArgumentException();
+
+        if (cursorTimeout <= 0L)
+            throw new IllegalArgumentException();
+
+        if (cursorMaxPageSize <= 0)
+            throw new IllegalArgumentException();
+
+        if (batchMaxResultSize <= 0L)
+            throw new IllegalArgumentException();
+
         this.namespace = namespace;
 
         this.timestamp = timestamp;
@@ -120,6 +302,27 @@ public class SparqlEndpointConfig {
         this.queryTimeout = queryTimeout;
 
         this.executorMaxThreads = executorMaxThreads;
+
+        this.resultCacheCapacity = resultCacheCapacity;
+
+        this.resultCacheMaxSolutions = resultCacheMaxSolutions;
+
+        this.resultCacheChangeSets = resultCacheChangeSets;
+
+        this.workloadClasses = workloadClasses;
+
+        this.workloadClassNamespaces = workloadClassNamespaces;
+
+        this.asyncQuery = asyncQuery;
+
+        this.maxCursors = maxCursors;
+
+        this.cursorTimeout = cursorTimeout;
+
+        this.cursorMaxPageSize = cursorMaxPageSize;
+
+        this.batchMaxResultSize = batchMaxResultSize;
+
     }
 
 }
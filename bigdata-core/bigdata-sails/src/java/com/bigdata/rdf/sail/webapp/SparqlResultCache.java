@@ -0,0 +1,1364 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+
+package com.bigdata.rdf.sail.webapp;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.apache.log4j.Logger;
+import org.openrdf.model.Value;
+import org.openrdf.query.Binding;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.QueryEvaluationException;
+import org.openrdf.query.QueryResultHandlerException;
+import org.openrdf.query.TupleQueryResultHandler;
+import org.openrdf.query.TupleQueryResultHandlerException;
+import org.openrdf.query.impl.MapBindingSet;
+import org.openrdf.rio.ntriples.NTriplesUtil;
+
+import com.bigdata.bop.BOp;
+import com.bigdata.bop.BOpUtility;
+import com.bigdata.bop.Constant;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IConstant;
+import com.bigdata.bop.IVariable;
+import com.bigdata.bop.Var;
+import com.bigdata.bop.bindingSet.ListBindingSet;
+import com.bigdata.bop.solutions.SolutionSetStream;
+import com.bigdata.btree.BTree;
+import com.bigdata.btree.Checkpoint;
+import com.bigdata.btree.IIndex;
+import com.bigdata.counters.CAT;
+import com.bigdata.io.DirectBufferPool;
+import com.bigdata.journal.IIndexManager;
+import com.bigdata.rdf.changesets.IChangeLog;
+import com.bigdata.rdf.changesets.IChangeRecord;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.lexicon.LexiconRelation;
+import com.bigdata.rdf.model.BigdataValue;
+import com.bigdata.rdf.sail.BigdataSailTupleQuery;
+import com.bigdata.rdf.sparql.ast.ConstantNode;
+import com.bigdata.rdf.sparql.ast.FunctionNode;
+import com.bigdata.rdf.sparql.ast.FunctionRegistry;
+import com.bigdata.rdf.sparql.ast.NamedSubqueryInclude;
+import com.bigdata.rdf.sparql.ast.NamedSubqueryRoot;
+import com.bigdata.rdf.sparql.ast.PropertyPathNode;
+import com.bigdata.rdf.sparql.ast.QueryRoot;
+import com.bigdata.rdf.sparql.ast.StatementPatternNode;
+import com.bigdata.rdf.sparql.ast.TermNode;
+import com.bigdata.rdf.sparql.ast.service.ServiceFactory;
+import com.bigdata.rdf.sparql.ast.service.ServiceNode;
+import com.bigdata.rdf.sparql.ast.service.ServiceRegistry;
+import com.bigdata.rdf.spo.SPORelation;
+import com.bigdata.rdf.store.AbstractTripleStore;
+import com.bigdata.relation.accesspath.ThickCloseableIterator;
+import com.bigdata.rwstore.sector.IMemoryManager;
+import com.bigdata.rwstore.sector.MemStore;
+import com.bigdata.rwstore.sector.MemoryManager;
+import com.bigdata.search.FullTextIndex;
+import com.bigdata.stream.Stream.StreamIndexMetadata;
+
+import cutthecrap.utils.striterators.ICloseableIterator;
+
+/**
+ * A cache for the results of SPARQL SELECT queries. Entries are keyed by the
+ * namespace, the normalized query string, the protocol level dataset and
+ * bindings, and the <code>includeInferred</code> flag. Each entry also records
+ * the <em>data version</em> of the view against which the query was
+ * evaluated. The data version is the most recent commit time at which any of
+ * the statement, lexicon or full text indices of the namespace was modified
+ * and is read directly from the checkpoints of the read-only index views, so
+ * the cache is implicitly invalidated by any commit which changes the
+ * namespace while commits against other namespaces have no effect.
+ * <p>
+ * The solutions are encoded as {@link IV}s with their cached
+ * {@link BigdataValue}s onto a {@link SolutionSetStream} backed by a
+ * {@link MemStore} so the cached results live on the native heap. The cache
+ * has a byte budget and evicts the least recently used entries once that
+ * budget would be exceeded. Results having more than a configured number of
+ * solutions are not cached.
+ * <p>
+ * Optionally, the cache may also retain the set of predicates modified by
+ * each commit (as reported through an {@link IChangeLog}). An entry whose
+ * query only uses constant predicates then remains valid across commits which
+ * did not touch any of those predicates. This requires that all mutations of
+ * the namespace are reported to the {@link IChangeLog} returned by
+ * {@link #newChangeLog(IIndexManager, String)} and that the commit time is
+ * reported when the transaction commits (which is not true for group commit).
+ * Any commit for which no change set was recorded invalidates the entry.
+ * <p>
+ * Queries are not cached if they are not evaluated against a read-only view
+ * (the data version can not be established for the unisolated index views or
+ * for read/write transactions), if they use a non-deterministic function
+ * (<code>RAND()</code>, <code>NOW()</code>, <code>UUID()</code>,
+ * <code>STRUUID()</code>, <code>BNODE()</code>), if they invoke a service which
+ * is not a bigdata native service, or if they <code>INCLUDE</code> a named
+ * solution set which is not defined by the query.
+ * 
+ * @see ConfigParams#RESULT_CACHE_CAPACITY
+ * @see ConfigParams#RESULT_CACHE_MAX_SOLUTIONS
+ * @see ConfigParams#RESULT_CACHE_CHANGE_SETS
+ */
+public class SparqlResultCache {
+
+    static private final transient Logger log = Logger
+            .getLogger(SparqlResultCache.class);
+
+    /**
+     * The maximum #of commits for which a change set is retained for each
+     * namespace.
+     */
+    static private final int MAX_CHANGE_SETS = 1000;
+
+    /**
+     * The maximum #of distinct predicates recorded for a single commit. A
+     * commit which modifies more predicates is treated as having modified all
+     * predicates.
+     */
+    static private final int MAX_CHANGED_PREDICATES = 1000;
+
+    /**
+     * The maximum #of bytes of native memory used by the cache.
+     */
+    private final long capacity;
+
+    /**
+     * The maximum #of solutions in a cached result.
+     */
+    private final int maxSolutions;
+
+    /**
+     * When <code>true</code>, the predicates modified by each commit are
+     * retained and used to extend the validity of the cache entries.
+     */
+    private final boolean changeSets;
+
+    /**
+     * The backing memory manager. Each cache entry is written on its own
+     * allocation context.
+     */
+    private final MemoryManager memoryManager;
+
+    /**
+     * The cache entries in access order. All access is synchronized on this
+     * map.
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(
+            16/* initialCapacity */, .75f/* loadFactor */, true/* accessOrder */);
+
+    /**
+     * The #of bytes used by the cache entries (guarded by {@link #entries}).
+     */
+    private long byteCount = 0L;
+
+    /**
+     * The change sets for each namespace, keyed by the commit time.
+     */
+    private final ConcurrentHashMap<String, ConcurrentSkipListMap<Long, ChangeSet>> changeSetsByNamespace = new ConcurrentHashMap<String, ConcurrentSkipListMap<Long, ChangeSet>>();
+
+    private final CAT hitCount = new CAT();
+    private final CAT missCount = new CAT();
+    private final CAT evictionCount = new CAT();
+
+    /**
+     * @param capacity
+     *            The maximum #of bytes of native memory used by the cache.
+     * @param maxSolutions
+     *            The maximum #of solutions in a cached result.
+     * @param changeSets
+     *            When <code>true</code>, the predicates modified by each
+     *            commit are retained and used to extend the validity of the
+     *            cache entries.
+     */
+    public SparqlResultCache(final long capacity, final int maxSolutions,
+            final boolean changeSets) {
+
+        if (capacity <= 0L)
+            throw new IllegalArgumentException();
+
+        if (maxSolutions <= 0)
+            throw new IllegalArgumentException();
+
+        this.capacity = capacity;
+
+        this.maxSolutions = maxSolutions;
+
+        this.changeSets = changeSets;
+
+        final DirectBufferPool pool = DirectBufferPool.INSTANCE;
+
+        final long sectors = 1 + capacity / pool.getBufferCapacity();
+
+        this.memoryManager = new MemoryManager(pool,
+                (int) Math.min(Integer.MAX_VALUE, sectors), false/* blocks */,
+                null/* properties */);
+
+    }
+
+    /**
+     * The #of queries answered from the cache.
+     */
+    public long getHitCount() {
+
+        return hitCount.get();
+
+    }
+
+    /**
+     * The #of cacheable queries which were not answered from the cache.
+     */
+    public long getMissCount() {
+
+        return missCount.get();
+
+    }
+
+    /**
+     * The #of entries evicted from the cache to stay within its capacity.
+     */
+    public long getEvictionCount() {
+
+        return evictionCount.get();
+
+    }
+
+    /**
+     * The #of entries in the cache.
+     */
+    public int size() {
+
+        synchronized (entries) {
+
+            return entries.size();
+
+        }
+
+    }
+
+    /**
+     * The #of bytes of native memory used by the cache entries.
+     */
+    public long getByteCount() {
+
+        synchronized (entries) {
+
+            return byteCount;
+
+        }
+
+    }
+
+    /**
+     * Discard all cache entries.
+     */
+    public void clear() {
+
+        synchronized (entries) {
+
+            for (Entry e : entries.values()) {
+
+                e.evict();
+
+            }
+
+            entries.clear();
+
+            byteCount = 0L;
+
+        }
+
+    }
+
+    /**
+     * Discard all cache entries and release the native memory.
+     */
+    public void close() {
+
+        clear();
+
+        changeSetsByNamespace.clear();
+
+        memoryManager.close();
+
+    }
+
+    /**
+     * Evaluate the query, answering it from the cache if possible. If the
+     * query is cacheable but was not in the cache, then its solutions are
+     * captured as they are written onto the handler and the result is entered
+     * into the cache.
+     * 
+     * @param query
+     *            The query, which must be fully setup (dataset, bindings,
+     *            includeInferred).
+     * @param handler
+     *            The handler on which the solutions will be written.
+     */
+    public void evaluate(final BigdataSailTupleQuery query,
+            final TupleQueryResultHandler handler)
+            throws QueryEvaluationException, TupleQueryResultHandlerException {
+
+        final AbstractTripleStore tripleStore = query.getTripleStore();
+
+        final String namespace = tripleStore.getNamespace();
+
+        final long version = getDataVersion(tripleStore);
+
+        if (version == -1L || !isCacheable(query.getASTContainer()
+                .getOriginalAST())) {
+
+            query.evaluate(handler);
+
+            return;
+
+        }
+
+        final String key = getKey(namespace, query);
+
+        final Entry e = get(namespace, key, version);
+
+        if (e != null) {
+
+            hitCount.increment();
+
+            try {
+
+                e.replay(handler);
+
+            } finally {
+
+                e.unpin();
+
+            }
+
+            return;
+
+        }
+
+        missCount.increment();
+
+        query.evaluate(new CaptureHandler(handler, key, version, query
+                .getASTContainer().getOriginalAST()));
+
+    }
+
+    /**
+     * Return an {@link IChangeLog} which records the predicates modified by
+     * each commit against the namespace -or- <code>null</code> if the cache
+     * does not track change sets. A new instance must be obtained for each
+     * connection.
+     * 
+     * @param indexManager
+     *            The index manager.
+     * @param namespace
+     *            The namespace of the KB instance.
+     */
+    public IChangeLog newChangeLog(final IIndexManager indexManager,
+            final String namespace) {
+
+        if (!changeSets)
+            return null;
+
+        return new ChangeSetListener(indexManager, namespace);
+
+    }
+
+    /**
+     * Return the data version of the view -or- <code>-1L</code> if the data
+     * version can not be established for that view. The data version is the
+     * last commit time of the most recently modified statement, lexicon or
+     * full text index of the KB instance.
+     */
+    static long getDataVersion(final AbstractTripleStore tripleStore) {
+
+        long version = 0L;
+
+        final SPORelation spo = tripleStore.getSPORelation();
+
+        for (String name : spo.getIndexNames()) {
+
+            final long v = getDataVersion(spo.getIndex(name));
+
+            if (v == -1L)
+                return -1L;
+
+            version = Math.max(version, v);
+
+        }
+
+        final LexiconRelation lex = tripleStore.getLexiconRelation();
+
+        for (String name : lex.getIndexNames()) {
+
+            final long v = getDataVersion(lex.getIndex(name));
+
+            if (v == -1L)
+                return -1L;
+
+            version = Math.max(version, v);
+
+        }
+
+        if (lex.isTextIndex()
+                && lex.getSearchEngine() instanceof FullTextIndex) {
+
+            final long v = getDataVersion(((FullTextIndex<?>) lex
+                    .getSearchEngine()).getIndex());
+
+            if (v == -1L)
+                return -1L;
+
+            version = Math.max(version, v);
+
+        }
+
+        return version;
+
+    }
+
+    static private long getDataVersion(final IIndex ndx) {
+
+        if (ndx == null) {
+
+            // Index does not exist as of that view.
+            return 0L;
+
+        }
+
+        if (!(ndx instanceof BTree) || !((BTree) ndx).isReadOnly()) {
+
+            // Not a read-only view of a single checkpoint.
+            return -1L;
+
+        }
+
+        return ((BTree) ndx).getLastCommitTime();
+
+    }
+
+    /**
+     * Return <code>true</code> unless the query uses a non-deterministic
+     * function, a service which is not a bigdata native service, or a named
+     * solution set which is not defined by the query.
+     */
+    static boolean isCacheable(final QueryRoot queryRoot) {
+
+        final Set<String> namedSubqueries = new HashSet<String>();
+
+        final List<String> includes = new ArrayList<String>();
+
+        final Iterator<BOp> itr = BOpUtility
+                .preOrderIteratorWithAnnotations(queryRoot);
+
+        while (itr.hasNext()) {
+
+            final BOp op = itr.next();
+
+            if (op instanceof FunctionNode) {
+
+                final org.openrdf.model.URI fn = ((FunctionNode) op)
+                        .getFunctionURI();
+
+                if (FunctionRegistry.RAND.equals(fn)
+                        || FunctionRegistry.NOW.equals(fn)
+                        || FunctionRegistry.UUID.equals(fn)
+                        || FunctionRegistry.STRUUID.equals(fn)
+                        || FunctionRegistry.BNODE.equals(fn)) {
+
+                    return false;
+
+                }
+
+            } else if (op instanceof ServiceNode) {
+
+                final TermNode serviceRef = ((ServiceNode) op)
+                        .getServiceRef();
+
+                if (!serviceRef.isConstant())
+                    return false;
+
+                final Value serviceURI = serviceRef.getValue();
+
+                if (!(serviceURI instanceof org.openrdf.model.URI))
+                    return false;
+
+                final ServiceFactory f = ServiceRegistry.getInstance().get(
+                        (org.openrdf.model.URI) serviceURI);
+
+                if (f == null || !f.getServiceOptions().isBigdataNativeService())
+                    return false;
+
+            } else if (op instanceof NamedSubqueryRoot) {
+
+                namedSubqueries.add(((NamedSubqueryRoot) op).getName());
+
+            } else if (op instanceof NamedSubqueryInclude) {
+
+                includes.add(((NamedSubqueryInclude) op).getName());
+
+            }
+
+        }
+
+        return namedSubqueries.containsAll(includes);
+
+    }
+
+    /**
+     * Return the constant predicates used by the query -or- <code>null</code>
+     * if the predicates can not be determined (a variable or unknown
+     * predicate, a property path, or a service).
+     */
+    static Set<IV<?, ?>> getPredicates(final QueryRoot queryRoot) {
+
+        final Set<IV<?, ?>> predicates = new HashSet<IV<?, ?>>();
+
+        final Iterator<BOp> itr = BOpUtility
+                .preOrderIteratorWithAnnotations(queryRoot);
+
+        while (itr.hasNext()) {
+
+            final BOp op = itr.next();
+
+            if (op instanceof PropertyPathNode || op instanceof ServiceNode)
+                return null;
+
+            if (op instanceof StatementPatternNode) {
+
+                final TermNode p = ((StatementPatternNode) op).p();
+
+                if (!(p instanceof ConstantNode))
+                    return null;
+
+                final IV<?, ?> iv = p.getValueExpression().get();
+
+                if (iv == null || iv.isNullIV())
+                    return null;
+
+                predicates.add(iv);
+
+            }
+
+        }
+
+        return predicates;
+
+    }
+
+    /**
+     * Normalize the query string by collapsing white space and removing
+     * comments outside of string literals and IRIs.
+     */
+    static String normalizeQuery(final String s) {
+
+        final int n = s.length();
+
+        final StringBuilder sb = new StringBuilder(n);
+
+        boolean space = false;
+
+        int i = 0;
+
+        while (i < n) {
+
+            final char c = s.charAt(i);
+
+            if (Character.isWhitespace(c)) {
+
+                space = true;
+
+                i++;
+
+                continue;
+
+            }
+
+            if (c == '#') {
+
+                // Comment extends to the end of the line.
+                while (i < n && s.charAt(i) != '\n' && s.charAt(i) != '\r')
+                    i++;
+
+                space = true;
+
+                continue;
+
+            }
+
+            if (space && sb.length() > 0)
+                sb.append(' ');
+
+            space = false;
+
+            final int end;
+
+            if (c == '"' || c == '\'') {
+
+                end = endOfString(s, i);
+
+            } else if (c == '<') {
+
+                end = endOfIRI(s, i);
+
+            } else {
+
+                end = -1;
+
+            }
+
+            if (end == -1) {
+
+                sb.append(c);
+
+                i++;
+
+            } else {
+
+                sb.append(s, i, end);
+
+                i = end;
+
+            }
+
+        }
+
+        return sb.toString();
+
+    }
+
+    /**
+     * Return the index of the character after the string literal starting at
+     * <i>start</i>.
+     */
+    static private int endOfString(final String s, final int start) {
+
+        final int n = s.length();
+
+        final char q = s.charAt(start);
+
+        final boolean isLong = start + 2 < n && s.charAt(start + 1) == q
+                && s.charAt(start + 2) == q;
+
+        int i = start + (isLong ? 3 : 1);
+
+        while (i < n) {
+
+            final char c = s.charAt(i);
+
+            if (c == '\\') {
+
+                i += 2;
+
+                continue;
+
+            }
+
+            if (c == q) {
+
+                if (!isLong)
+                    return i + 1;
+
+                if (i + 2 < n && s.charAt(i + 1) == q && s.charAt(i + 2) == q) {
+
+                    i += 3;
+
+                    // Quotes may immediately precede the closing delimiter.
+                    while (i < n && s.charAt(i) == q)
+                        i++;
+
+                    return i;
+
+                }
+
+            } else if (!isLong && (c == '\n' || c == '\r')) {
+
+                // Not a well formed string literal.
+                return i;
+
+            }
+
+            i++;
+
+        }
+
+        return n;
+
+    }
+
+    /**
+     * Return the index of the character after the IRI starting at
+     * <i>start</i> -or- <code>-1</code> if the <code>&lt;</code> does not
+     * start an IRI (e.g., it is the less than operator).
+     */
+    static private int endOfIRI(final String s, final int start) {
+
+        final int n = s.length();
+
+        for (int i = start + 1; i < n; i++) {
+
+            final char c = s.charAt(i);
+
+            if (c == '>')
+                return i + 1;
+
+            if (c <= ' ' || "<\"{}|^`\\".indexOf(c) != -1)
+                return -1;
+
+        }
+
+        return -1;
+
+    }
+
+    /**
+     * Return the cache key for the query.
+     */
+    static String getKey(final String namespace,
+            final BigdataSailTupleQuery query) {
+
+        final StringBuilder sb = new StringBuilder();
+
+        sb.append(namespace);
+
+        sb.append('\n').append(query.getIncludeInferred());
+
+        sb.append('\n').append(query.getDataset());
+
+        sb.append('\n');
+
+        final BindingSet bindings = query.getBindings();
+
+        if (bindings != null && bindings.size() > 0) {
+
+            final TreeMap<String, String> sorted = new TreeMap<String, String>();
+
+            for (Binding b : bindings) {
+
+                sorted.put(b.getName(),
+                        NTriplesUtil.toNTriplesString(b.getValue()));
+
+            }
+
+            sb.append(sorted);
+
+        }
+
+        sb.append('\n').append(
+                normalizeQuery(query.getASTContainer().getQueryString()));
+
+        return sb.toString();
+
+    }
+
+    /**
+     * Return the cache entry for the key if it is valid for the data version.
+     * The entry is pinned and the caller MUST {@link Entry#unpin()} it.
+     */
+    private Entry get(final String namespace, final String key,
+            final long version) {
+
+        final Entry e;
+
+        synchronized (entries) {
+
+            e = entries.get(key);
+
+            if (e == null)
+                return null;
+
+            if (!isValid(namespace, e, version))
+                return null;
+
+            e.pin();
+
+        }
+
+        return e;
+
+    }
+
+    /**
+     * Return <code>true</code> iff the entry is valid for the data version.
+     */
+    private boolean isValid(final String namespace, final Entry e,
+            final long version) {
+
+        if (e.version == version)
+            return true;
+
+        if (!changeSets || e.predicates == null || version < e.version)
+            return false;
+
+        final ConcurrentSkipListMap<Long, ChangeSet> log = changeSetsByNamespace
+                .get(namespace);
+
+        if (log == null)
+            return false;
+
+        /*
+         * Walk back from the data version of the view to the data version of
+         * the entry. Each commit in between must have been recorded and must
+         * not have modified a predicate used by the query.
+         */
+        long v = version;
+
+        while (v > e.version) {
+
+            final ChangeSet cs = log.get(v);
+
+            if (cs == null || cs.isModified(e.predicates))
+                return false;
+
+            v = cs.priorVersion;
+
+        }
+
+        if (v != e.version)
+            return false;
+
+        // The entry is valid for the more recent data version.
+        e.version = version;
+
+        return true;
+
+    }
+
+    /**
+     * Enter the solutions into the cache.
+     */
+    private void put(final String key, final long version,
+            final List<String> bindingNames, final List<IBindingSet> solutions,
+            final Set<IV<?, ?>> predicates) {
+
+        final Entry e;
+        try {
+
+            e = new Entry(memoryManager.createAllocationContext(), version,
+                    bindingNames, solutions, predicates);
+
+        } catch (RuntimeException ex) {
+
+            // Native memory exhausted, etc.
+            if (log.isInfoEnabled())
+                log.info("Could not cache result: " + ex);
+
+            return;
+
+        }
+
+        if (e.byteCount > capacity) {
+
+            e.evict();
+
+            return;
+
+        }
+
+        synchronized (entries) {
+
+            final Entry old = entries.get(key);
+
+            if (old != null && old.version > version) {
+
+                // Do not replace a result for a more recent view.
+                e.evict();
+
+                return;
+
+            }
+
+            if (old != null) {
+
+                entries.remove(key);
+
+                byteCount -= old.byteCount;
+
+                old.evict();
+
+            }
+
+            final Iterator<Entry> itr = entries.values().iterator();
+
+            while (byteCount + e.byteCount > capacity && itr.hasNext()) {
+
+                // Evict the least recently used entry.
+                final Entry lru = itr.next();
+
+                itr.remove();
+
+                byteCount -= lru.byteCount;
+
+                lru.evict();
+
+                evictionCount.increment();
+
+            }
+
+            entries.put(key, e);
+
+            byteCount += e.byteCount;
+
+        }
+
+    }
+
+    /**
+     * A cached result.
+     */
+    private static class Entry {
+
+        /**
+         * The data version for which the entry is known to be valid.
+         */
+        private volatile long version;
+
+        /**
+         * The predicates used by the query -or- <code>null</code> if they are
+         * not known.
+         */
+        private final Set<IV<?, ?>> predicates;
+
+        /**
+         * The projected variables.
+         */
+        private final List<String> bindingNames;
+
+        /**
+         * The allocation context on which the solutions are written.
+         */
+        private final MemStore store;
+
+        /**
+         * The encoded solutions.
+         */
+        private final SolutionSetStream ssstr;
+
+        /**
+         * The #of bytes used by the encoded solutions.
+         */
+        private final long byteCount;
+
+        /**
+         * The #of readers replaying the entry.
+         */
+        private int pins = 0;
+
+        /**
+         * <code>true</code> once the entry has been removed from the cache.
+         */
+        private boolean evicted = false;
+
+        Entry(final IMemoryManager mmgr, final long version,
+                final List<String> bindingNames,
+                final List<IBindingSet> solutions,
+                final Set<IV<?, ?>> predicates) {
+
+            this.version = version;
+
+            this.predicates = predicates;
+
+            this.bindingNames = bindingNames;
+
+            this.store = new MemStore(mmgr);
+
+            try {
+
+                final StreamIndexMetadata metadata = new StreamIndexMetadata(
+                        UUID.randomUUID());
+
+                this.ssstr = new SolutionSetStream(store, new Checkpoint(
+                        metadata), metadata, false/* readOnly */);
+
+                ssstr.put(new ThickCloseableIterator<IBindingSet[]>(
+                        new IBindingSet[][] { solutions
+                                .toArray(new IBindingSet[solutions.size()]) }));
+
+                this.byteCount = store.getByteCount(ssstr.getRootAddr());
+
+            } catch (RuntimeException ex) {
+
+                store.destroy();
+
+                throw ex;
+
+            }
+
+        }
+
+        synchronized void pin() {
+
+            pins++;
+
+        }
+
+        synchronized void unpin() {
+
+            if (--pins == 0 && evicted)
+                store.destroy();
+
+        }
+
+        synchronized void evict() {
+
+            evicted = true;
+
+            if (pins == 0)
+                store.destroy();
+
+        }
+
+        /**
+         * Write the cached solutions onto the handler.
+         */
+        void replay(final TupleQueryResultHandler handler)
+                throws TupleQueryResultHandlerException {
+
+            handler.startQueryResult(bindingNames);
+
+            final ICloseableIterator<IBindingSet[]> itr = ssstr.get();
+
+            try {
+
+                while (itr.hasNext()) {
+
+                    for (IBindingSet bset : itr.next()) {
+
+                        final MapBindingSet bs = new MapBindingSet(
+                                bindingNames.size());
+
+                        for (String name : bindingNames) {
+
+                            @SuppressWarnings("rawtypes")
+                            final IConstant<IV> c = bset.get(Var.var(name));
+
+                            if (c != null)
+                                bs.addBinding(name, c.get().getValue());
+
+                        }
+
+                        handler.handleSolution(bs);
+
+                    }
+
+                }
+
+            } finally {
+
+                itr.close();
+
+            }
+
+            handler.endQueryResult();
+
+        }
+
+    }
+
+    /**
+     * Passes the solutions through to the delegate while capturing them as
+     * {@link IV}s with cached {@link BigdataValue}s. The captured solutions are
+     * entered into the cache before the end of the result is reported to the
+     * delegate so a client which has seen the complete result will observe
+     * the cache entry.
+     */
+    private class CaptureHandler implements TupleQueryResultHandler {
+
+        private final TupleQueryResultHandler delegate;
+
+        private final String key;
+
+        private final long version;
+
+        private final QueryRoot queryRoot;
+
+        private List<String> bindingNames;
+
+        /**
+         * The captured solutions -or- <code>null</code> if the result can not
+         * be cached.
+         */
+        private List<IBindingSet> solutions = new ArrayList<IBindingSet>();
+
+        CaptureHandler(final TupleQueryResultHandler delegate,
+                final String key, final long version, final QueryRoot queryRoot) {
+
+            this.delegate = delegate;
+
+            this.key = key;
+
+            this.version = version;
+
+            this.queryRoot = queryRoot;
+
+        }
+
+        @Override
+        public void startQueryResult(final List<String> bindingNames)
+                throws TupleQueryResultHandlerException {
+
+            this.bindingNames = new ArrayList<String>(bindingNames);
+
+            delegate.startQueryResult(bindingNames);
+
+        }
+
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        @Override
+        public void handleSolution(final BindingSet bindingSet)
+                throws TupleQueryResultHandlerException {
+
+            if (solutions != null) {
+
+                if (solutions.size() >= maxSolutions) {
+
+                    solutions = null;
+
+                } else {
+
+                    final IBindingSet bset = new ListBindingSet();
+
+                    for (Binding b : bindingSet) {
+
+                        final Value value = b.getValue();
+
+                        if (!(value instanceof BigdataValue)
+                                || ((BigdataValue) value).getIV() == null) {
+
+                            solutions = null;
+
+                            break;
+
+                        }
+
+                        final IV iv = ((BigdataValue) value).getIV();
+
+                        if (!iv.hasValue())
+                            iv.setValue((BigdataValue) value);
+
+                        final IVariable<IV> var = Var.var(b.getName());
+
+                        bset.set(var, new Constant<IV>(iv));
+
+                    }
+
+                    if (solutions != null)
+                        solutions.add(bset);
+
+                }
+
+            }
+
+            delegate.handleSolution(bindingSet);
+
+        }
+
+        @Override
+        public void endQueryResult() throws TupleQueryResultHandlerException {
+
+            if (solutions != null) {
+
+                put(key, version, bindingNames, solutions,
+                        getPredicates(queryRoot));
+
+            }
+
+            delegate.endQueryResult();
+
+        }
+
+        @Override
+        public void handleBoolean(final boolean value)
+                throws QueryResultHandlerException {
+
+            delegate.handleBoolean(value);
+
+        }
+
+        @Override
+        public void handleLinks(final List<String> linkUrls)
+                throws QueryResultHandlerException {
+
+            delegate.handleLinks(linkUrls);
+
+        }
+
+    }
+
+    /**
+     * The predicates modified by a commit.
+     */
+    private static class ChangeSet {
+
+        /**
+         * The data version of the namespace before the commit.
+         */
+        private final long priorVersion;
+
+        /**
+         * The modified predicates -or- <code>null</code> if all predicates
+         * must be assumed to have been modified.
+         */
+        private final Set<IV<?, ?>> predicates;
+
+        ChangeSet(final long priorVersion, final Set<IV<?, ?>> predicates) {
+
+            this.priorVersion = priorVersion;
+
+            this.predicates = predicates;
+
+        }
+
+        boolean isModified(final Set<IV<?, ?>> used) {
+
+            if (predicates == null)
+                return true;
+
+            for (IV<?, ?> iv : used) {
+
+                if (predicates.contains(iv))
+                    return true;
+
+            }
+
+            return false;
+
+        }
+
+    }
+
+    /**
+     * Records the predicates modified by each commit against a namespace.
+     */
+    private class ChangeSetListener implements IChangeLog {
+
+        private final IIndexManager indexManager;
+
+        private final String namespace;
+
+        /**
+         * The predicates modified since the transaction began -or-
+         * <code>null</code> if too many predicates were modified.
+         */
+        private Set<IV<?, ?>> predicates = new HashSet<IV<?, ?>>();
+
+        ChangeSetListener(final IIndexManager indexManager,
+                final String namespace) {
+
+            this.indexManager = indexManager;
+
+            this.namespace = namespace;
+
+        }
+
+        @Override
+        public void changeEvent(final IChangeRecord record) {
+
+            if (predicates == null)
+                return;
+
+            predicates.add(record.getStatement().p());
+
+            if (predicates.size() > MAX_CHANGED_PREDICATES)
+                predicates = null;
+
+        }
+
+        @Override
+        public void transactionBegin() {
+
+            predicates = new HashSet<IV<?, ?>>();
+
+        }
+
+        @Override
+        public void transactionPrepare() {
+        }
+
+        @Override
+        public void transactionCommited(final long commitTime) {
+
+            if (commitTime <= 0L) {
+
+                // The commit time is not known.
+                predicates = new HashSet<IV<?, ?>>();
+
+                return;
+
+            }
+
+            final AbstractTripleStore priorView = (AbstractTripleStore) indexManager
+                    .getResourceLocator().locate(namespace, commitTime - 1);
+
+            final long priorVersion = priorView == null ? -1L
+                    : getDataVersion(priorView);
+
+            ConcurrentSkipListMap<Long, ChangeSet> log = changeSetsByNamespace
+                    .get(namespace);
+
+            if (log == null) {
+
+                final ConcurrentSkipListMap<Long, ChangeSet> tmp = changeSetsByNamespace
+                        .putIfAbsent(namespace,
+                                log = new ConcurrentSkipListMap<Long, ChangeSet>());
+
+                if (tmp != null)
+                    log = tmp;
+
+            }
+
+            log.put(commitTime, new ChangeSet(priorVersion, predicates));
+
+            while (log.size() > MAX_CHANGE_SETS)
+                log.pollFirstEntry();
+
+            predicates = new HashSet<IV<?, ?>>();
+
+        }
+
+        @Override
+        public void transactionAborted() {
+
+            predicates = new HashSet<IV<?, ?>>();
+
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+}
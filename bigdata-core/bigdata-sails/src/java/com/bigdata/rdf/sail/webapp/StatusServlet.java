@@ -23,6 +23,7 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 package com.bigdata.rdf.sail.webapp;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.Writer;
@@ -42,6 +43,7 @@ import java.util.TreeMap;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import javax.servlet.http.HttpServletRequest;
@@ -80,6 +82,8 @@ import com.bigdata.rdf.sail.webapp.BigdataRDFContext.UpdateTask;
 import com.bigdata.rdf.sail.webapp.QueryServlet.SparqlQueryTask;
 import com.bigdata.rdf.sail.webapp.QueryServlet.SparqlUpdateTask;
 import com.bigdata.rdf.sail.webapp.client.ConnectOptions;
+import com.bigdata.rdf.sail.webapp.lbs.policy.workload.ServiceWorkload;
+import com.bigdata.rdf.sail.webapp.lbs.policy.workload.WorkloadLBSPolicy;
 import com.bigdata.rdf.sparql.ast.ASTContainer;
 import com.bigdata.rdf.sparql.ast.QueryHints;
 import com.bigdata.rdf.sparql.ast.QueryRoot;
@@ -227,6 +231,14 @@ public class StatusServlet extends BigdataRDFServlet {
      * Request information on the mapgraph-runtime.
      */
     static final String MAPGRAPH = "mapgraph";
+
+    /**
+     * Request a snapshot of the current workload of this service. This option
+     * is exclusive of other parameters.
+     * 
+     * @see ServiceWorkload
+     */
+    public static final String WORKLOAD = "workload";
     
     /**
      * Handles CANCEL requests (terminate a running query).
@@ -472,6 +484,13 @@ public class StatusServlet extends BigdataRDFServlet {
             return;
         }
 
+        if (req.getParameter(WORKLOAD) != null) {
+
+            doWorkload(req, resp);
+
+            return;
+        }
+
         if (req.getParameter(HEALTH) != null) {
 
             new HAStatusServletUtilProxy.HAStatusServletUtilFactory().getInstance(getIndexManager()).doHealthStatus(req,
@@ -828,6 +847,10 @@ public class StatusServlet extends BigdataRDFServlet {
 
                 }
 
+                // Admission control counters for the NSS workload classes.
+                counterSet.makePath("workloadClasses").attach(
+                        getBigdataRDFContext().getWorkloadClassCounters());
+
                 // @SuppressWarnings("rawtypes")
                 // final Iterator<ICounter> itr = counterSet
                 // .getCounters(null/* filter */);
@@ -1489,6 +1512,71 @@ public class StatusServlet extends BigdataRDFServlet {
 	 * @see <a href="http://trac.blazegraph.com/ticket/1082" > Add ability to dump
 	 *      threads to status page </a>
 	 */
+    /**
+     * Report a snapshot of the current workload of this service.
+     * <p>
+     * Note: This is polled frequently by the {@link WorkloadLBSPolicy} and must
+     * be cheap. It does not obtain any locks.
+     */
+    private void doWorkload(final HttpServletRequest req,
+            final HttpServletResponse resp) throws IOException {
+
+        final Map<String, Number> metrics = new LinkedHashMap<String, Number>();
+
+        final QueryEngine queryEngine = (QueryEngine) QueryEngineFactory
+                .getInstance().getQueryController(getIndexManager());
+
+        metrics.put(ServiceWorkload.RUNNING_QUERIES,
+                queryEngine.getRunningQueryCount());
+
+        metrics.put(ServiceWorkload.BUFFERED_CHUNKS,
+                queryEngine.getBufferedChunkMessageCount());
+
+        metrics.put(ServiceWorkload.NATIVE_HEAP_BYTES,
+                queryEngine.getBufferedChunkMessageBytesOnNativeHeap());
+
+        final BigdataRDFContext context = getBigdataRDFContext();
+
+        if (context.queryService instanceof ThreadPoolExecutor) {
+
+            metrics.put(ServiceWorkload.QUERY_QUEUE_LENGTH,
+                    ((ThreadPoolExecutor) context.queryService).getQueue()
+                            .size());
+
+        }
+
+        int admissionQueueLength = 0;
+
+        for (WorkloadClass workloadClass : context.getWorkloadClasses()
+                .values()) {
+
+            admissionQueueLength += workloadClass.getQueuedCount();
+
+        }
+
+        metrics.put(ServiceWorkload.ADMISSION_QUEUE_LENGTH,
+                admissionQueueLength);
+
+        resp.setStatus(HTTP_OK);
+
+        resp.setContentType(MIME_TEXT_PLAIN);
+
+        final OutputStream os = resp.getOutputStream();
+
+        try {
+
+            new ServiceWorkload(metrics).write(os);
+
+            os.flush();
+
+        } finally {
+
+            os.close();
+
+        }
+
+    }
+
 	private static void doThreadDump(final HttpServletRequest req,
 			final HttpServletResponse resp) throws IOException {
 
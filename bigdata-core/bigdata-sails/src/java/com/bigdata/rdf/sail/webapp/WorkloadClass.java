@@ -0,0 +1,415 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+
+package com.bigdata.rdf.sail.webapp;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServletResponse;
+
+import com.bigdata.counters.CAT;
+import com.bigdata.counters.CounterSet;
+import com.bigdata.counters.Instrument;
+
+/**
+ * A workload class for the SPARQL queries accepted by the NanoSparqlServer. A
+ * query is admitted once the number of running queries in its workload class
+ * is below the limit for that class. Otherwise it waits in the queue for that
+ * class and it is rejected if the queue is full or if it is not admitted
+ * within the timeout for the class. The timeout for the class is also imposed
+ * on the query itself, as is the native memory budget.
+ * <p>
+ * A workload class is specified as
+ * 
+ * <pre>
+ * name:maxRunning:maxQueued[:timeoutMillis[:maxMemoryBytes]]
+ * </pre>
+ * 
+ * where a ZERO (0) for <code>maxRunning</code>, <code>timeoutMillis</code> or
+ * <code>maxMemoryBytes</code> means that no limit is imposed.
+ * 
+ * @see ConfigParams#WORKLOAD_CLASSES
+ * @see ConfigParams#WORKLOAD_CLASS_NAMESPACES
+ */
+public class WorkloadClass {
+
+    /**
+     * The name of the workload class used for queries which do not specify a
+     * workload class. No limits are imposed unless a workload class having
+     * this name is configured.
+     */
+    public static final String DEFAULT = "default";
+
+    private final String name;
+
+    private final int maxRunning;
+
+    private final int maxQueued;
+
+    private final long timeoutMillis;
+
+    private final long maxMemory;
+
+    /**
+     * The permits for the running queries -or- <code>null</code> if the #of
+     * running queries is not limited.
+     */
+    private final Semaphore permits;
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final CAT admitted = new CAT();
+
+    private final CAT rejected = new CAT();
+
+    /**
+     * @param name
+     *            The name of the workload class.
+     * @param maxRunning
+     *            The maximum #of running queries -or- ZERO (0) for no limit.
+     * @param maxQueued
+     *            The maximum #of queries waiting to run.
+     * @param timeoutMillis
+     *            The timeout for queries in this class -or- ZERO (0) for no
+     *            timeout.
+     * @param maxMemory
+     *            The maximum #of bytes of native memory for each query in this
+     *            class -or- ZERO (0) for no limit.
+     */
+    public WorkloadClass(final String name, final int maxRunning,
+            final int maxQueued, final long timeoutMillis,
+            final long maxMemory) {
+
+        if (name == null || name.length() == 0)
+            throw new IllegalArgumentException();
+
+        if (maxRunning < 0)
+            throw new IllegalArgumentException();
+
+        if (maxQueued < 0)
+            throw new IllegalArgumentException();
+
+        if (timeoutMillis < 0L)
+            throw new IllegalArgumentException();
+
+        if (maxMemory < 0L)
+            throw new IllegalArgumentException();
+
+        this.name = name;
+        this.maxRunning = maxRunning;
+        this.maxQueued = maxQueued;
+        this.timeoutMillis = timeoutMillis;
+        this.maxMemory = maxMemory;
+        this.permits = maxRunning == 0 ? null : new Semaphore(maxRunning,
+                true/* fair */);
+
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * The maximum #of running queries -or- ZERO (0) if there is no limit.
+     */
+    public int getMaxRunning() {
+        return maxRunning;
+    }
+
+    /**
+     * The maximum #of queries waiting to run.
+     */
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    /**
+     * The timeout in milliseconds for queries in this class -or- ZERO (0) if
+     * there is no timeout.
+     */
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * The maximum #of bytes of native memory for each query in this class
+     * -or- ZERO (0) if there is no limit.
+     */
+    public long getMaxMemory() {
+        return maxMemory;
+    }
+
+    /** The #of queries waiting to run. */
+    public int getQueuedCount() {
+        return queued.get();
+    }
+
+    /** The #of running queries. */
+    public int getRunningCount() {
+        return running.get();
+    }
+
+    /** The #of queries admitted. */
+    public long getAdmittedCount() {
+        return admitted.get();
+    }
+
+    /** The #of queries rejected. */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Admit a query, waiting if necessary. Each successful invocation MUST be
+     * followed by {@link #release()} once the query is done.
+     * 
+     * @throws HttpOperationException
+     *             with a status of 503 (Service Unavailable) if the queue for
+     *             this class is full or if the query was not admitted within
+     *             the timeout for this class.
+     * @throws InterruptedException
+     *             if interrupted while waiting to run.
+     */
+    public void acquire() throws HttpOperationException, InterruptedException {
+
+        /*
+         * Note: tryAcquire() would barge ahead of the queued queries even
+         * though the semaphore is fair. A zero timeout honors the fairness.
+         */
+        if (permits != null
+                && !permits.tryAcquire(0L, TimeUnit.MILLISECONDS)) {
+
+            if (queued.incrementAndGet() > maxQueued) {
+
+                queued.decrementAndGet();
+
+                throw reject("queue is full");
+
+            }
+
+            final boolean acquired;
+            try {
+                if (timeoutMillis == 0L) {
+                    permits.acquire();
+                    acquired = true;
+                } else {
+                    acquired = permits.tryAcquire(timeoutMillis,
+                            TimeUnit.MILLISECONDS);
+                }
+            } finally {
+                queued.decrementAndGet();
+            }
+
+            if (!acquired) {
+
+                throw reject("timeout");
+
+            }
+
+        }
+
+        running.incrementAndGet();
+
+        admitted.increment();
+
+    }
+
+    /**
+     * Release the query admitted by {@link #acquire()}.
+     */
+    public void release() {
+
+        running.decrementAndGet();
+
+        if (permits != null)
+            permits.release();
+
+    }
+
+    private HttpOperationException reject(final String reason) {
+
+        rejected.increment();
+
+        return new HttpOperationException(
+                HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                BigdataServlet.MIME_TEXT_PLAIN, "Workload class " + name
+                        + " : " + reason + ", please come back later");
+
+    }
+
+    /**
+     * Return the performance counters for this workload class.
+     */
+    public CounterSet getCounters() {
+
+        final CounterSet root = new CounterSet();
+
+        root.addCounter("queued", new Instrument<Integer>() {
+            @Override
+            public void sample() {
+                setValue(queued.get());
+            }
+        });
+
+        root.addCounter("running", new Instrument<Integer>() {
+            @Override
+            public void sample() {
+                setValue(running.get());
+            }
+        });
+
+        root.addCounter("admitted", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(admitted.get());
+            }
+        });
+
+        root.addCounter("rejected", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(rejected.get());
+            }
+        });
+
+        return root;
+
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{name=" + name + ",maxRunning="
+                + maxRunning + ",maxQueued=" + maxQueued + ",timeoutMillis="
+                + timeoutMillis + ",maxMemory=" + maxMemory + ",queued="
+                + queued + ",running=" + running + ",admitted=" + admitted
+                + ",rejected=" + rejected + "}";
+    }
+
+    /**
+     * Parse a comma separated list of workload classes.
+     * 
+     * @param s
+     *            The list (optional).
+     * 
+     * @return The workload classes in the given order, indexed by name.
+     * 
+     * @throws IllegalArgumentException
+     *             if a workload class can not be parsed or if the same name
+     *             is used more than once.
+     * 
+     * @see ConfigParams#WORKLOAD_CLASSES
+     */
+    public static Map<String, WorkloadClass> parse(final String s) {
+
+        final Map<String, WorkloadClass> map = new LinkedHashMap<String, WorkloadClass>();
+
+        if (s == null)
+            return map;
+
+        for (String t : s.split(",")) {
+
+            t = t.trim();
+
+            if (t.length() == 0)
+                continue;
+
+            final String[] a = t.split(":");
+
+            if (a.length < 3 || a.length > 5)
+                throw new IllegalArgumentException("Workload class: " + t);
+
+            final WorkloadClass wc;
+            try {
+                wc = new WorkloadClass(a[0].trim(),
+                        Integer.parseInt(a[1].trim()),
+                        Integer.parseInt(a[2].trim()),
+                        a.length > 3 ? Long.parseLong(a[3].trim()) : 0L,
+                        a.length > 4 ? Long.parseLong(a[4].trim()) : 0L);
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Workload class: " + t, ex);
+            }
+
+            if (map.put(wc.getName(), wc) != null)
+                throw new IllegalArgumentException(
+                        "Workload class is defined more than once: "
+                                + wc.getName());
+
+        }
+
+        return map;
+
+    }
+
+    /**
+     * Parse a comma separated list of <code>namespace=workloadClass</code>
+     * assignments.
+     * 
+     * @param s
+     *            The list (optional).
+     * 
+     * @return The name of the workload class for each namespace.
+     * 
+     * @throws IllegalArgumentException
+     *             if an assignment can not be parsed.
+     * 
+     * @see ConfigParams#WORKLOAD_CLASS_NAMESPACES
+     */
+    public static Map<String, String> parseNamespaces(final String s) {
+
+        final Map<String, String> map = new LinkedHashMap<String, String>();
+
+        if (s == null)
+            return map;
+
+        for (String t : s.split(",")) {
+
+            t = t.trim();
+
+            if (t.length() == 0)
+                continue;
+
+            final int pos = t.indexOf('=');
+
+            if (pos <= 0 || pos == t.length() - 1)
+                throw new IllegalArgumentException("Workload class namespace: "
+                        + t);
+
+            map.put(t.substring(0, pos).trim(), t.substring(pos + 1).trim());
+
+        }
+
+        return map;
+
+    }
+
+}
@@ -0,0 +1,77 @@
+/**
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package com.bigdata.rdf.sail.webapp.lbs.policy.workload;
+
+import com.bigdata.rdf.sail.webapp.lbs.IHostMetrics;
+import com.bigdata.rdf.sail.webapp.lbs.IHostScoringRule;
+
+/**
+ * Best effort computation of a workload score for a service based on its
+ * {@link ServiceWorkload} defined as follows:
+ * 
+ * <pre>
+ * runningQueries + queryQueueLength + admissionQueueLength
+ *     + bufferedChunks / 100 + nativeHeapBytes / 100MB
+ * </pre>
+ * 
+ * The score is roughly the #of queries on the service. Buffered chunks and
+ * native memory add to the score of a service running a few large queries.
+ * If a metric is not reported, then it is taken as zero.
+ */
+public class DefaultServiceScoringRule implements IHostScoringRule {
+
+    @Override
+    public String[] getMetricNames() {
+
+        return new String[] { ServiceWorkload.RUNNING_QUERIES,
+                ServiceWorkload.QUERY_QUEUE_LENGTH,
+                ServiceWorkload.ADMISSION_QUEUE_LENGTH,
+                ServiceWorkload.BUFFERED_CHUNKS,
+                ServiceWorkload.NATIVE_HEAP_BYTES };
+
+    }
+
+    @Override
+    public double getScore(final IHostMetrics metrics) {
+
+        final double runningQueries = metrics.getNumeric(
+                ServiceWorkload.RUNNING_QUERIES, 0d);
+
+        final double queryQueueLength = metrics.getNumeric(
+                ServiceWorkload.QUERY_QUEUE_LENGTH, 0d);
+
+        final double admissionQueueLength = metrics.getNumeric(
+                ServiceWorkload.ADMISSION_QUEUE_LENGTH, 0d);
+
+        final double bufferedChunks = metrics.getNumeric(
+                ServiceWorkload.BUFFERED_CHUNKS, 0d);
+
+        final double nativeHeapBytes = metrics.getNumeric(
+                ServiceWorkload.NATIVE_HEAP_BYTES, 0d);
+
+        return runningQueries + queryQueueLength + admissionQueueLength
+                + bufferedChunks / 100d + nativeHeapBytes / (100d * 1024 * 1024);
+
+    }
+
+}
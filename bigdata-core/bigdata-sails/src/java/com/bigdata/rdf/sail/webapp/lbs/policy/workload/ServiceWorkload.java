@@ -0,0 +1,166 @@
+/**
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package com.bigdata.rdf.sail.webapp.lbs.policy.workload;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import com.bigdata.bop.engine.QueryEngine;
+import com.bigdata.rdf.sail.webapp.ConfigParams;
+import com.bigdata.rdf.sail.webapp.StatusServlet;
+import com.bigdata.rdf.sail.webapp.lbs.AbstractHostMetrics;
+
+/**
+ * A snapshot of the workload of a service. The snapshot is reported by the
+ * {@link StatusServlet} for a {@link StatusServlet#WORKLOAD} request as a
+ * {@link Properties} document. The metrics are read directly from the
+ * {@link QueryEngine} and the SPARQL end point of the service, so they are
+ * current when the request is made and cheap to produce.
+ * 
+ * @see WorkloadLBSPolicy
+ */
+public class ServiceWorkload extends AbstractHostMetrics {
+
+    /**
+     * The #of queries running on the {@link QueryEngine}.
+     */
+    public static final String RUNNING_QUERIES = "runningQueries";
+
+    /**
+     * The #of chunks of solutions buffered for the operators of the running
+     * queries.
+     */
+    public static final String BUFFERED_CHUNKS = "bufferedChunks";
+
+    /**
+     * The #of bytes for the chunks of solutions buffered on the native heap.
+     */
+    public static final String NATIVE_HEAP_BYTES = "nativeHeapBytes";
+
+    /**
+     * The #of SPARQL queries waiting for a thread of the query service.
+     * 
+     * @see ConfigParams#QUERY_THREAD_POOL_SIZE
+     */
+    public static final String QUERY_QUEUE_LENGTH = "queryQueueLength";
+
+    /**
+     * The #of SPARQL queries waiting for admission by their workload class.
+     * 
+     * @see ConfigParams#WORKLOAD_CLASSES
+     */
+    public static final String ADMISSION_QUEUE_LENGTH = "admissionQueueLength";
+
+    private final Map<String, Number> metrics;
+
+    /**
+     * 
+     * @param metrics
+     *            The metrics.
+     */
+    public ServiceWorkload(final Map<String, Number> metrics) {
+
+        if (metrics == null)
+            throw new IllegalArgumentException();
+
+        this.metrics = metrics;
+
+    }
+
+    @Override
+    public Number getNumeric(final String name) {
+
+        if (name == null)
+            throw new IllegalArgumentException();
+
+        return metrics.get(name);
+
+    }
+
+    @Override
+    public String[] getMetricNames() {
+
+        return metrics.keySet().toArray(new String[metrics.size()]);
+
+    }
+
+    /**
+     * Write the metrics as a {@link Properties} document.
+     */
+    public void write(final OutputStream os) throws IOException {
+
+        final Properties p = new Properties();
+
+        for (Map.Entry<String, Number> e : metrics.entrySet()) {
+
+            p.setProperty(e.getKey(), e.getValue().toString());
+
+        }
+
+        p.store(os, null/* comments */);
+
+    }
+
+    /**
+     * Read the metrics from a {@link Properties} document. Values which are
+     * not numeric are ignored.
+     */
+    public static ServiceWorkload read(final InputStream is)
+            throws IOException {
+
+        final Properties p = new Properties();
+
+        p.load(is);
+
+        final Map<String, Number> metrics = new LinkedHashMap<String, Number>();
+
+        for (String name : p.stringPropertyNames()) {
+
+            try {
+
+                metrics.put(name, Double.valueOf(p.getProperty(name)));
+
+            } catch (NumberFormatException ex) {
+
+                // Ignore.
+
+            }
+
+        }
+
+        return new ServiceWorkload(metrics);
+
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getSimpleName() + metrics;
+
+    }
+
+}
@@ -0,0 +1,518 @@
+/**
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package com.bigdata.rdf.sail.webapp.lbs.policy.workload;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.log4j.Logger;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.http.HttpMethod;
+
+import com.bigdata.bop.engine.QueryEngine;
+import com.bigdata.bop.fed.QueryEngineFactory;
+import com.bigdata.journal.IIndexManager;
+import com.bigdata.journal.Journal;
+import com.bigdata.journal.PlatformStatsPlugIn;
+import com.bigdata.rdf.sail.webapp.HALoadBalancerServlet;
+import com.bigdata.rdf.sail.webapp.StatusServlet;
+import com.bigdata.rdf.sail.webapp.lbs.AbstractLBSPolicy;
+import com.bigdata.rdf.sail.webapp.lbs.IHALoadBalancerPolicy;
+import com.bigdata.rdf.sail.webapp.lbs.IHostScoringRule;
+import com.bigdata.rdf.sail.webapp.lbs.ServiceScore;
+import com.bigdata.util.InnerCause;
+
+/**
+ * Proxy read requests to the least loaded service that is joined with the met
+ * quorum.
+ * <p>
+ * Each service is polled at a short interval for its {@link ServiceWorkload}
+ * (running queries, buffered chunks, native memory in use, and the length of
+ * the query service and admission queues) using the {@link StatusServlet}.
+ * Those metrics are live, so this {@link IHALoadBalancerPolicy} reacts to a
+ * hot spot within a poll interval. Unlike the host based policies, this
+ * policy scores each service rather than each host and does not require the
+ * {@link PlatformStatsPlugIn} or ganglia.
+ * <p>
+ * Between polls, the score of a service is increased by the #of requests
+ * which were proxied to it since its workload was last sampled. This keeps
+ * the policy from sending every request to the same service until the next
+ * poll.
+ */
+public class WorkloadLBSPolicy extends AbstractLBSPolicy {
+
+    private static final Logger log = Logger.getLogger(WorkloadLBSPolicy.class);
+
+    /**
+     * 
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Servlet <code>init-param</code> values understood by the
+     * {@link WorkloadLBSPolicy}.
+     * 
+     * @see HALoadBalancerServlet#getConfigParam(ServletConfig, Class, String,
+     *      String) for how these <code>init-param</code> values can be set in
+     *      <code>web.xml</code> and via environment variables.
+     */
+    public interface InitParams extends AbstractLBSPolicy.InitParams {
+
+        /**
+         * The {@link IHostScoringRule} that will be used to score the
+         * {@link ServiceWorkload} of each service (default
+         * {@link DefaultServiceScoringRule}).
+         */
+        String SCORING_RULE = "scoringRule";
+
+        /**
+         * The delay in milliseconds between polls of the workload of the
+         * joined services (default {@value #DEFAULT_POLL_DELAY}).
+         */
+        String POLL_DELAY = "pollDelay";
+
+        String DEFAULT_POLL_DELAY = "250"; // ms.
+
+        /**
+         * The timeout in milliseconds for a poll of the workload of a service
+         * (default {@value #DEFAULT_POLL_TIMEOUT}). A service which does not
+         * respond in time keeps its last workload score.
+         */
+        String POLL_TIMEOUT = "pollTimeout";
+
+        String DEFAULT_POLL_TIMEOUT = "1000"; // ms.
+
+    }
+
+    /**
+     * The workload score for a service.
+     */
+    private static class WorkloadScore {
+
+        /**
+         * The score for the most recent {@link ServiceWorkload}.
+         */
+        final double score;
+
+        /**
+         * The #of requests proxied to the service since its
+         * {@link ServiceWorkload} was sampled.
+         */
+        final AtomicLong nproxied = new AtomicLong();
+
+        WorkloadScore(final double score) {
+            this.score = score;
+        }
+
+        @Override
+        public String toString() {
+            return "{score=" + score + ",nproxied=" + nproxied + "}";
+        }
+
+    }
+
+    /**
+     * The rule used to score the {@link ServiceWorkload}s.
+     * 
+     * @see InitParams#SCORING_RULE
+     */
+    private final AtomicReference<IHostScoringRule> scoringRuleRef = new AtomicReference<IHostScoringRule>();
+
+    /**
+     * @see InitParams#POLL_DELAY
+     */
+    private long pollDelay = -1L;
+
+    /**
+     * @see InitParams#POLL_TIMEOUT
+     */
+    private long pollTimeout = -1L;
+
+    /**
+     * The most recent workload score for each joined service.
+     */
+    private final ConcurrentHashMap<UUID, WorkloadScore> workloadMap = new ConcurrentHashMap<UUID, WorkloadScore>();
+
+    /**
+     * The {@link Future} of a task that periodically polls the joined services
+     * for their workload.
+     */
+    private ScheduledFuture<?> scheduledFuture;
+
+    /**
+     * Random number generator used to break ties.
+     */
+    private final Random rand = new Random();
+
+    /**
+     * This is used to defeat the httpd cache for the <code>status</code>
+     * servlet.
+     */
+    private final AtomicInteger nextValue = new AtomicInteger();
+
+    @Override
+    protected void toString(final StringBuilder sb) {
+
+        super.toString(sb);
+
+        sb.append(",pollDelay=" + pollDelay);
+
+        sb.append(",pollTimeout=" + pollTimeout);
+
+        sb.append(",scoringRule=" + scoringRuleRef.get());
+
+        sb.append(",workload=" + workloadMap);
+
+    }
+
+    @Override
+    public void init(final ServletConfig servletConfig,
+            final IIndexManager indexManager) throws ServletException {
+
+        super.init(servletConfig, indexManager);
+
+        scoringRuleRef.set(HALoadBalancerServlet.newInstance(//
+                servletConfig,//
+                WorkloadLBSPolicy.class,// owningClass
+                IHostScoringRule.class, InitParams.SCORING_RULE,
+                DefaultServiceScoringRule.class.getName()));
+
+        pollDelay = Long.valueOf(HALoadBalancerServlet.getConfigParam(//
+                servletConfig, //
+                WorkloadLBSPolicy.class,// owningClass
+                InitParams.POLL_DELAY,//
+                InitParams.DEFAULT_POLL_DELAY));
+
+        pollTimeout = Long.valueOf(HALoadBalancerServlet.getConfigParam(//
+                servletConfig, //
+                WorkloadLBSPolicy.class,// owningClass
+                InitParams.POLL_TIMEOUT,//
+                InitParams.DEFAULT_POLL_TIMEOUT));
+
+        if (log.isInfoEnabled())
+            log.info(InitParams.SCORING_RULE + "=" + scoringRuleRef.get()
+                    + ", " + InitParams.POLL_DELAY + "=" + pollDelay + ", "
+                    + InitParams.POLL_TIMEOUT + "=" + pollTimeout);
+
+        /*
+         * Setup a scheduled task to poll the services for their workload.
+         */
+        scheduledFuture = ((Journal) indexManager).addScheduledTask(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            updateWorkloadTable();
+                        } catch (RuntimeException ex) {
+                            if (InnerCause.isInnerCause(ex,
+                                    InterruptedException.class)) {
+                                // Terminate if interrupted.
+                                throw ex;
+                            }
+                            /*
+                             * Note: If the task thows an exception it will not
+                             * be rescheduled, therefore log @ ERROR rather than
+                             * allowing the unchecked exception to be
+                             * propagated.
+                             */
+                            log.error(ex, ex);
+                        }
+                    }
+                }, pollDelay, pollDelay, TimeUnit.MILLISECONDS);
+
+    }
+
+    @Override
+    public void destroy() {
+
+        super.destroy();
+
+        scoringRuleRef.set(null);
+
+        workloadMap.clear();
+
+        if (scheduledFuture != null) {
+
+            scheduledFuture.cancel(true/* mayInterruptIfRunning */);
+
+            scheduledFuture = null;
+
+        }
+
+    }
+
+    /**
+     * Poll each joined service for its {@link ServiceWorkload} and update its
+     * workload score.
+     */
+    protected void updateWorkloadTable() {
+
+        final ServiceScore[] serviceScores = serviceTableRef.get();
+
+        final IHostScoringRule scoringRule = scoringRuleRef.get();
+
+        if (serviceScores == null || scoringRule == null) {
+
+            workloadMap.clear();
+
+            return;
+
+        }
+
+        final HttpClient cm = getClientConnectionManager();
+
+        final Set<UUID> joined = new HashSet<UUID>();
+
+        for (ServiceScore serviceScore : serviceScores) {
+
+            if (serviceScore == null || serviceScore.getRequestURI() == null)
+                continue;
+
+            final UUID serviceUUID = serviceScore.getServiceUUID();
+
+            joined.add(serviceUUID);
+
+            final ServiceWorkload workload;
+            try {
+                workload = doWorkloadQuery(cm, serviceScore.getRequestURI(),
+                        nextValue.incrementAndGet(), pollTimeout);
+            } catch (InterruptedException ex) {
+                // Terminate if interrupted.
+                throw new RuntimeException(ex);
+            } catch (Exception ex) {
+                log.warn("serviceUUID=" + serviceUUID + " : " + ex);
+                continue;
+            }
+
+            final double score = scoringRule.getScore(workload);
+
+            if (log.isDebugEnabled())
+                log.debug("serviceUUID=" + serviceUUID + ", workload="
+                        + workload + ", score=" + score);
+
+            workloadMap.put(serviceUUID, new WorkloadScore(score));
+
+        }
+
+        // Drop services which are no longer joined.
+        workloadMap.keySet().retainAll(joined);
+
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation chooses the joined service having the least
+     * workload score. A service whose workload is not yet known is given the
+     * mean score of the other services.
+     */
+    @Override
+    public String getReaderURI(final HttpServletRequest req) {
+
+        final ServiceScore[] serviceScores = serviceTableRef.get();
+
+        if (serviceScores == null || serviceScores.length == 0) {
+
+            // Nothing discovered. Can't proxy.
+            return null;
+
+        }
+
+        final WorkloadScore[] workloadScores = new WorkloadScore[serviceScores.length];
+
+        final double[] load = new double[serviceScores.length];
+
+        for (int i = 0; i < serviceScores.length; i++) {
+
+            final ServiceScore serviceScore = serviceScores[i];
+
+            if (serviceScore == null || serviceScore.getRequestURI() == null) {
+
+                // Can't proxy to this service.
+                load[i] = Double.POSITIVE_INFINITY;
+
+                continue;
+
+            }
+
+            final WorkloadScore workloadScore = workloadScores[i] = workloadMap
+                    .get(serviceScore.getServiceUUID());
+
+            load[i] = workloadScore == null ? Double.NaN : workloadScore.score
+                    + workloadScore.nproxied.get();
+
+        }
+
+        final int index = getLeastLoaded(rand, load);
+
+        if (index == -1) {
+
+            // No service. Can't proxy.
+            return null;
+
+        }
+
+        final ServiceScore serviceScore = serviceScores[index];
+
+        // track #of requests to each service.
+        serviceScore.nrequests.increment();
+
+        if (workloadScores[index] != null)
+            workloadScores[index].nproxied.incrementAndGet();
+
+        if (serviceScore.getServiceUUID().equals(serviceIDRef.get())) {
+            /*
+             * The target is *this* service. We return [null] so that the
+             * caller will perform a local forward, which has less latency than
+             * proxying to this service.
+             */
+            return null;
+        }
+
+        return serviceScore.getRequestURI();
+
+    }
+
+    /**
+     * Return the index of the least loaded service. Ties are broken randomly.
+     * <p>
+     * Note: This is package private in order to expose it to the test suite.
+     * 
+     * @param rand
+     *            A random number generator.
+     * @param load
+     *            The load for each service. {@link Double#NaN} indicates a
+     *            service whose load is not known and is replaced by the mean
+     *            load of the other services.
+     *            {@link Double#POSITIVE_INFINITY} indicates a service which
+     *            may not be chosen.
+     * 
+     * @return The index of the chosen service -or- <code>-1</code> if there
+     *         is no service which may be chosen.
+     */
+    static int getLeastLoaded(final Random rand, final double[] load) {
+
+        // The mean of the known loads.
+        double sum = 0d;
+        int nknown = 0;
+        for (double d : load) {
+            if (!Double.isNaN(d) && !Double.isInfinite(d)) {
+                sum += d;
+                nknown++;
+            }
+        }
+        final double mean = nknown == 0 ? 0d : sum / nknown;
+
+        int index = -1;
+        double min = Double.POSITIVE_INFINITY;
+        int nties = 0;
+
+        for (int i = 0; i < load.length; i++) {
+
+            final double d = Double.isNaN(load[i]) ? mean : load[i];
+
+            if (d == Double.POSITIVE_INFINITY)
+                continue;
+
+            if (d < min) {
+
+                index = i;
+                min = d;
+                nties = 1;
+
+            } else if (d == min && rand.nextInt(++nties) == 0) {
+
+                // Reservoir sampling over the tied services.
+                index = i;
+
+            }
+
+        }
+
+        return index;
+
+    }
+
+    private HttpClient getClientConnectionManager() {
+
+        final Journal journal = (Journal) getJournal();
+
+        final QueryEngine queryEngine = QueryEngineFactory.getInstance()
+                .getQueryController(journal);
+
+        return queryEngine.getClientConnectionManager();
+
+    }
+
+    /**
+     * Do an HTTP GET to the remote service and return its workload.
+     * 
+     * @param cm
+     *            The http client.
+     * @param baseRequestURI
+     *            The Request-URI of the service.
+     * @param uniqueId
+     *            Used to defeat any cache.
+     * @param timeout
+     *            The timeout in milliseconds.
+     */
+    private static ServiceWorkload doWorkloadQuery(final HttpClient cm,
+            final String baseRequestURI, final int uniqueId,
+            final long timeout) throws Exception {
+
+        final String uriStr = baseRequestURI + "/status?"
+                + StatusServlet.WORKLOAD + "&uniqueId=" + uniqueId;
+
+        final ContentResponse response = cm.newRequest(uriStr)
+                .method(HttpMethod.GET)
+                .timeout(timeout, TimeUnit.MILLISECONDS).send();
+
+        if (response.getStatus() != 200) {
+
+            throw new IOException("Status Code=" + response.getStatus()
+                    + ", uri=" + uriStr);
+
+        }
+
+        return ServiceWorkload.read(new ByteArrayInputStream(response
+                .getContent()));
+
+    }
+
+}
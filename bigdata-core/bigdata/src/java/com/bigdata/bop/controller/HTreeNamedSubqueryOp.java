@@ -51,6 +51,7 @@ import com.bigdata.bop.engine.QueryEngine;
 import com.bigdata.bop.join.HTreeHashJoinAnnotations;
 import com.bigdata.bop.join.HTreeHashJoinUtility;
 import com.bigdata.bop.join.HTreeSolutionSetHashJoinOp;
+import com.bigdata.bop.join.JoinKeyFilter;
 import com.bigdata.bop.join.JoinTypeEnum;
 import com.bigdata.bop.join.NamedSolutionSetStats;
 import com.bigdata.relation.accesspath.IBlockingBuffer;
@@ -200,6 +201,14 @@ public class HTreeNamedSubqueryOp extends PipelineOp implements
         private final boolean first;
 
         private final HTreeHashJoinUtility state;
+
+        /**
+         * The filter over the join keys of the named solution set -or-
+         * <code>null</code> if the filter is not being built.
+         * 
+         * @see Annotations#JOIN_KEY_FILTER
+         */
+        private final JoinKeyFilter joinKeyFilter;
         
         public ControllerTask(final HTreeNamedSubqueryOp op,
                 final BOpContext<IBindingSet> context) {
@@ -261,6 +270,23 @@ public class HTreeNamedSubqueryOp extends PipelineOp implements
 
                 this.state = state;
 
+                final IVariable<?>[] joinVars = (IVariable[]) op
+                        .getRequiredProperty(Annotations.JOIN_VARS);
+
+                if (first
+                        && joinVars.length > 0
+                        && op.getProperty(Annotations.JOIN_KEY_FILTER,
+                                Annotations.DEFAULT_JOIN_KEY_FILTER)) {
+
+                    this.joinKeyFilter = JoinKeyFilter.getOrCreate(attrs,
+                            namedSetRef);
+
+                } else {
+
+                    this.joinKeyFilter = null;
+
+                }
+
             }
             
         }
@@ -385,7 +411,10 @@ public class HTreeNamedSubqueryOp extends PipelineOp implements
 
                         // Buffer the solutions on the hash index.
                         final long ncopied = state.acceptSolutions(
-                                subquerySolutionItr, stats);
+                                joinKeyFilter == null ? subquerySolutionItr
+                                        : joinKeyFilter
+                                                .add(subquerySolutionItr),
+                                stats);
 
 						// Wait for the subquery to halt / test for errors.
 						runningSubquery.get();
@@ -396,6 +425,13 @@ public class HTreeNamedSubqueryOp extends PipelineOp implements
                         // Checkpoint the solution set.
                         state.saveSolutionSet();
 
+                        if (joinKeyFilter != null) {
+
+                            // Publish the filter.
+                            joinKeyFilter.seal();
+
+                        }
+
                         if (log.isInfoEnabled())
                             log.info("Solution set " + namedSetRef + " has "
                                     + ncopied + " solutions.");
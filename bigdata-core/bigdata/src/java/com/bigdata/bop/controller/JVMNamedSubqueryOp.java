@@ -51,6 +51,7 @@ import com.bigdata.bop.engine.QueryEngine;
 import com.bigdata.bop.join.JVMHashJoinAnnotations;
 import com.bigdata.bop.join.JVMHashJoinUtility;
 import com.bigdata.bop.join.JVMSolutionSetHashJoinOp;
+import com.bigdata.bop.join.JoinKeyFilter;
 import com.bigdata.bop.join.JoinTypeEnum;
 import com.bigdata.bop.join.NamedSolutionSetStats;
 import com.bigdata.relation.accesspath.IBlockingBuffer;
@@ -190,6 +191,14 @@ public class JVMNamedSubqueryOp extends PipelineOp implements INamedSubqueryOp,
         
         private final JVMHashJoinUtility state;
 
+        /**
+         * The filter over the join keys of the named solution set -or-
+         * <code>null</code> if the filter is not being built.
+         * 
+         * @see Annotations#JOIN_KEY_FILTER
+         */
+        private final JoinKeyFilter joinKeyFilter;
+
         public ControllerTask(final JVMNamedSubqueryOp op,
                 final BOpContext<IBindingSet> context) {
 
@@ -248,6 +257,23 @@ public class JVMNamedSubqueryOp extends PipelineOp implements INamedSubqueryOp,
 
                 this.state = state;
 
+                final IVariable<?>[] joinVars = (IVariable[]) op
+                        .getRequiredProperty(Annotations.JOIN_VARS);
+
+                if (first
+                        && joinVars.length > 0
+                        && op.getProperty(Annotations.JOIN_KEY_FILTER,
+                                Annotations.DEFAULT_JOIN_KEY_FILTER)) {
+
+                    this.joinKeyFilter = JoinKeyFilter.getOrCreate(attrs,
+                            namedSetRef);
+
+                } else {
+
+                    this.joinKeyFilter = null;
+
+                }
+
 
             }
             
@@ -373,7 +399,10 @@ public class JVMNamedSubqueryOp extends PipelineOp implements INamedSubqueryOp,
 
 						// Buffer the solutions on the hash index.
                         final long ncopied = state.acceptSolutions(
-                                subquerySolutionItr, stats);
+                                joinKeyFilter == null ? subquerySolutionItr
+                                        : joinKeyFilter
+                                                .add(subquerySolutionItr),
+                                stats);
 
 						// Wait for the subquery to halt / test for errors.
 						runningSubquery.get();
@@ -384,6 +413,13 @@ public class JVMNamedSubqueryOp extends PipelineOp implements INamedSubqueryOp,
 //                        // Publish the solution set on the query context.
 //                        saveSolutionSet();
 
+                        if (joinKeyFilter != null) {
+
+                            // Publish the filter.
+                            joinKeyFilter.seal();
+
+                        }
+
                         if (log.isInfoEnabled())
                             log.info("Solution set " + namedSetRef + " has "
                                     + ncopied + " solutions.");
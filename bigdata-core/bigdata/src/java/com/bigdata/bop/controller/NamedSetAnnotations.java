@@ -32,6 +32,9 @@ import com.bigdata.bop.IQueryAttributes;
 import com.bigdata.bop.PipelineOp;
 import com.bigdata.bop.engine.IRunningQuery;
 import com.bigdata.bop.join.IHashJoinUtility;
+import com.bigdata.bop.join.JoinKeyFilter;
+import com.bigdata.bop.join.PipelineJoin;
+import com.bigdata.bop.join.SolutionSetHashJoinOp;
 
 /**
  * Attributes for named solution set processing.
@@ -63,4 +66,18 @@ public interface NamedSetAnnotations {
      */
     final String NAMED_SET_REF = "namedSetRef";
 
+    /**
+     * When <code>true</code>, an operator which builds a hash index will also
+     * build a {@link JoinKeyFilter} over the join variables of the indexed
+     * solutions (default {@value #DEFAULT_JOIN_KEY_FILTER}). The filter is
+     * attached to the {@link IQueryAttributes} once the hash index has been
+     * checkpointed and is used by the {@link SolutionSetHashJoinOp} and by any
+     * {@link PipelineJoin} annotated with
+     * {@link PipelineJoin.Annotations#JOIN_KEY_FILTERS} to drop solutions which
+     * can not join with the hash index.
+     */
+    final String JOIN_KEY_FILTER = "joinKeyFilter";
+
+    final boolean DEFAULT_JOIN_KEY_FILTER = false;
+
 }
@@ -1635,7 +1635,9 @@ abstract public class AbstractRunningQuery implements IRunningQuery {
         final DirectBufferPool pool = DirectBufferPool.INSTANCE;
         
         // Figure out how much memory may be allocated by this query.
-        long maxMemoryBytesPerQuery = QueryHints.DEFAULT_ANALYTIC_MAX_MEMORY_PER_QUERY;
+        long maxMemoryBytesPerQuery = getQuery().getProperty(
+                QueryEngine.Annotations.MAX_MEMORY_PER_QUERY,
+                QueryHints.DEFAULT_ANALYTIC_MAX_MEMORY_PER_QUERY);
         if (maxMemoryBytesPerQuery < 0) {
             // Ignore illegal values.
             maxMemoryBytesPerQuery = 0L;
@@ -265,6 +265,18 @@ public class QueryEngine implements IQueryPeer, IQueryClient, ICounterSetAccess
          * @see BLZG-533 Vector query engine on native heap.
          */
         String CHUNK_HANDLER = QueryEngine.class.getName() + ".chunkHandler";
+
+        /**
+         * The maximum amount of native heap memory that may be allocated for
+         * the query -or- ZERO (0L) if no limit should be imposed. When not
+         * specified, the default is taken from
+         * <code>QueryHints.DEFAULT_ANALYTIC_MAX_MEMORY_PER_QUERY</code>.
+         * 
+         * @see <a href="http://jira.blazegraph.com/browse/BLZG-42" > Per query
+         *      memory limit for analytic query mode. </a>
+         */
+        String MAX_MEMORY_PER_QUERY = QueryEngine.class.getName()
+                + ".maxMemoryPerQuery";
         
     }
 
@@ -2270,6 +2282,36 @@ public class QueryEngine implements IQueryPeer, IQueryClient, ICounterSetAccess
 
     }
 
+    /**
+     * Return the #of running queries.
+     */
+    public int getRunningQueryCount() {
+
+        return runningQueries.size();
+
+    }
+
+    /**
+     * Return the #of chunks of solutions currently buffered for the input
+     * queues of the operators of the running queries.
+     */
+    public long getBufferedChunkMessageCount() {
+
+        return counters.bufferedChunkMessageCount.get();
+
+    }
+
+    /**
+     * Return the #of bytes for the chunks of solutions currently buffered on
+     * the native heap for the input queues of the operators of the running
+     * queries.
+     */
+    public long getBufferedChunkMessageBytesOnNativeHeap() {
+
+        return counters.bufferedChunkMessageBytesOnNativeHeap.get();
+
+    }
+
 //  synchronized public void addListener(final IQueryEngineListener listener) {
 //
 //      if (m_listeners == null) {
@@ -210,6 +210,14 @@ abstract public class HashIndexOpBase extends PipelineOp implements ISingleThrea
         
         protected final IHashJoinUtility state;
 
+        /**
+         * The filter over the join keys of the hash index -or-
+         * <code>null</code> if the filter is not being built.
+         * 
+         * @see Annotations#JOIN_KEY_FILTER
+         */
+        protected final JoinKeyFilter joinKeyFilter;
+
         /**
          * <code>true</code> iff this is the first invocation of this operator.
          */
@@ -286,6 +294,22 @@ abstract public class HashIndexOpBase extends PipelineOp implements ISingleThrea
                 
                 this.state = state;
 
+                final IVariable<?>[] joinVars = (IVariable[]) op
+                        .getRequiredProperty(Annotations.JOIN_VARS);
+
+                if (joinVars.length > 0
+                        && op.getProperty(Annotations.JOIN_KEY_FILTER,
+                                Annotations.DEFAULT_JOIN_KEY_FILTER)) {
+
+                    this.joinKeyFilter = JoinKeyFilter.getOrCreate(attrs,
+                            namedSetRef);
+
+                } else {
+
+                    this.joinKeyFilter = null;
+
+                }
+
             }
             
             // true iff we will build the index from the pipeline.
@@ -344,7 +368,8 @@ abstract public class HashIndexOpBase extends PipelineOp implements ISingleThrea
 
             try {
 
-                state.acceptSolutions(src, stats);
+                state.acceptSolutions(joinKeyFilter == null ? src
+                        : joinKeyFilter.add(src), stats);
 
             } finally {
 
@@ -366,6 +391,13 @@ abstract public class HashIndexOpBase extends PipelineOp implements ISingleThrea
         protected void checkpointSolutionSet() {
             
             state.saveSolutionSet();
+
+            if (joinKeyFilter != null) {
+
+                // Publish the filter.
+                joinKeyFilter.seal();
+
+            }
             
         }
 
@@ -0,0 +1,529 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+package com.bigdata.bop.join;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IConstant;
+import com.bigdata.bop.IQueryAttributes;
+import com.bigdata.bop.IVariable;
+import com.bigdata.bop.controller.INamedSolutionSetRef;
+import com.bigdata.bop.controller.NamedSetAnnotations;
+
+import cutthecrap.utils.striterators.ICloseableIterator;
+
+/**
+ * A compact, Bloom-style filter over the join keys of the solutions in a hash
+ * index. The filter is built as a side-effect of building the hash index and
+ * is attached to the {@link IQueryAttributes} once the hash index has been
+ * checkpointed. Operators which feed solutions to a hash join against that
+ * hash index may then use the filter to drop solutions which can not join
+ * before they are probed against the hash index or passed through further
+ * joins.
+ * <p>
+ * The filter may report false positives but never false negatives. A solution
+ * which does not bind all of the join variables is always reported as a
+ * possible match. If any solution in the hash index does not bind all of the
+ * join variables, then the filter reports all solutions as possible matches.
+ * <p>
+ * The filter is NOT thread-safe while it is being built. It relies on the
+ * operator building the hash index to provide synchronization. Once the filter
+ * has been {@link #seal() sealed} it is immutable and thread-safe.
+ * 
+ * @see NamedSetAnnotations#JOIN_KEY_FILTER
+ */
+public class JoinKeyFilter {
+
+    private static final transient Logger log = Logger
+            .getLogger(JoinKeyFilter.class);
+
+    /**
+     * The #of bits in the filter for each distinct join key.
+     */
+    static final int BITS_PER_KEY = 10;
+
+    /**
+     * The #of hash functions (5 gives a false positive rate of ~1% at
+     * {@value #BITS_PER_KEY} bits per key).
+     */
+    static final int NHASH = 5;
+
+    /**
+     * The maximum #of join keys that will be collected. If the hash index has
+     * more join keys then the filter reports all solutions as possible
+     * matches.
+     */
+    static final int MAX_KEYS = 1 << 24;
+
+    /**
+     * The join variables.
+     */
+    private final IVariable<?>[] joinVars;
+
+    /**
+     * The hash codes of the join keys (used while building the filter).
+     */
+    private int[] hashes = new int[64];
+
+    /**
+     * The #of hash codes in {@link #hashes}.
+     */
+    private int nhashes = 0;
+
+    /**
+     * The #of distinct join keys (set when the filter is sealed).
+     */
+    private int nkeys = 0;
+
+    /**
+     * <code>true</code> iff all solutions are reported as possible matches.
+     */
+    private boolean matchAll = false;
+
+    /**
+     * The bits. This is <code>null</code> until the filter is sealed.
+     */
+    private volatile long[] bits = null;
+
+    /**
+     * @param joinVars
+     *            The join variables.
+     */
+    public JoinKeyFilter(final IVariable<?>[] joinVars) {
+
+        if (joinVars == null)
+            throw new IllegalArgumentException();
+
+        if (joinVars.length == 0)
+            throw new IllegalArgumentException();
+
+        this.joinVars = joinVars;
+
+    }
+
+    /**
+     * The join variables.
+     */
+    public IVariable<?>[] getJoinVars() {
+
+        return joinVars;
+
+    }
+
+    /**
+     * Return <code>true</code> iff the filter has been sealed.
+     */
+    public boolean isSealed() {
+
+        return bits != null;
+
+    }
+
+    /**
+     * Return the #of distinct join keys in the filter (as reported by their
+     * hash codes). This is ZERO (0) until the filter has been sealed.
+     */
+    public int getKeyCount() {
+
+        return nkeys;
+
+    }
+
+    /**
+     * Return <code>true</code> iff the filter reports all solutions as
+     * possible matches.
+     */
+    public boolean isMatchAll() {
+
+        return matchAll;
+
+    }
+
+    /**
+     * Add the join key of a solution to the filter.
+     * 
+     * @throws IllegalStateException
+     *             if the filter has been sealed.
+     */
+    public void add(final IBindingSet bset) {
+
+        if (bits != null)
+            throw new IllegalStateException();
+
+        if (matchAll)
+            return;
+
+        final long h = hashCode(bset);
+
+        if (h == UNBOUND || nhashes == MAX_KEYS) {
+
+            // Can not rule out any solution.
+            matchAll = true;
+
+            hashes = null;
+
+            return;
+
+        }
+
+        if (nhashes == hashes.length) {
+
+            hashes = Arrays.copyOf(hashes, Math.min(MAX_KEYS,
+                    hashes.length << 1));
+
+        }
+
+        hashes[nhashes++] = (int) h;
+
+    }
+
+    /**
+     * Seal the filter. The filter is immutable once it has been sealed.
+     */
+    public void seal() {
+
+        if (bits != null)
+            return;
+
+        if (matchAll) {
+
+            bits = new long[0];
+
+            return;
+
+        }
+
+        // Count the distinct join keys.
+        Arrays.sort(hashes, 0, nhashes);
+
+        int ndistinct = 0;
+
+        for (int i = 0; i < nhashes; i++) {
+
+            if (i == 0 || hashes[i] != hashes[i - 1])
+                ndistinct++;
+
+        }
+
+        // The #of bits is a power of 2 (at least 64).
+        final long nbits = Math.max(64L,
+                Long.highestOneBit(Math.max(1L, (long) ndistinct * BITS_PER_KEY) - 1) << 1);
+
+        final long[] a = new long[(int) (nbits >>> 6)];
+
+        final int mask = (int) (nbits - 1);
+
+        for (int i = 0; i < nhashes; i++) {
+
+            final long x = mix(hashes[i]);
+
+            final int h1 = (int) x;
+
+            final int h2 = (int) (x >>> 32) | 1;
+
+            for (int j = 0; j < NHASH; j++) {
+
+                final int bit = (h1 + j * h2) & mask;
+
+                a[bit >>> 6] |= 1L << bit;
+
+            }
+
+        }
+
+        nkeys = ndistinct;
+
+        hashes = null;
+
+        // Publish.
+        bits = a;
+
+        if (log.isDebugEnabled())
+            log.debug("joinVars=" + Arrays.toString(joinVars) + ", nkeys="
+                    + nkeys + ", nbits=" + nbits);
+
+    }
+
+    /**
+     * Return <code>false</code> iff the solution binds all join variables and
+     * there is no solution in the hash index having the same join key.
+     * 
+     * @throws IllegalStateException
+     *             if the filter has not been sealed.
+     */
+    public boolean isMatch(final IBindingSet bset) {
+
+        final long[] a = bits;
+
+        if (a == null)
+            throw new IllegalStateException();
+
+        if (a.length == 0) {
+
+            // matchAll.
+            return true;
+
+        }
+
+        final long h = hashCode(bset);
+
+        if (h == UNBOUND)
+            return true;
+
+        final long x = mix((int) h);
+
+        final int h1 = (int) x;
+
+        final int h2 = (int) (x >>> 32) | 1;
+
+        final int mask = (a.length << 6) - 1;
+
+        for (int j = 0; j < NHASH; j++) {
+
+            final int bit = (h1 + j * h2) & mask;
+
+            if ((a[bit >>> 6] & (1L << bit)) == 0)
+                return false;
+
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Return an iterator which adds each visited solution to the filter.
+     */
+    public ICloseableIterator<IBindingSet[]> add(
+            final ICloseableIterator<IBindingSet[]> src) {
+
+        return new ICloseableIterator<IBindingSet[]>() {
+
+            @Override
+            public boolean hasNext() {
+                return src.hasNext();
+            }
+
+            @Override
+            public IBindingSet[] next() {
+                final IBindingSet[] chunk = src.next();
+                for (IBindingSet bset : chunk) {
+                    add(bset);
+                }
+                return chunk;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void close() {
+                src.close();
+            }
+
+        };
+
+    }
+
+    /**
+     * Return an iterator which drops the visited solutions that are not a
+     * {@link #isMatch(IBindingSet) match}.
+     */
+    public ICloseableIterator<IBindingSet[]> filter(
+            final ICloseableIterator<IBindingSet[]> src) {
+
+        return new ICloseableIterator<IBindingSet[]>() {
+
+            private IBindingSet[] next = null;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && src.hasNext()) {
+                    final IBindingSet[] chunk = src.next();
+                    int n = 0;
+                    for (int i = 0; i < chunk.length; i++) {
+                        if (isMatch(chunk[i]))
+                            chunk[n++] = chunk[i];
+                    }
+                    if (n > 0)
+                        next = n == chunk.length ? chunk : Arrays.copyOf(
+                                chunk, n);
+                }
+                return next != null;
+            }
+
+            @Override
+            public IBindingSet[] next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                final IBindingSet[] tmp = next;
+                next = null;
+                return tmp;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void close() {
+                src.close();
+            }
+
+        };
+
+    }
+
+    /**
+     * Reported by {@link #hashCode(IBindingSet)} for a solution which does not
+     * bind all join variables.
+     */
+    private static final long UNBOUND = -1L;
+
+    /**
+     * The hash code of the join key (consistent with the hash code used by the
+     * {@link HTreeHashJoinUtility}) as an unsigned int -or- {@link #UNBOUND}.
+     */
+    private long hashCode(final IBindingSet bset) {
+
+        int h = 1;
+
+        for (IVariable<?> v : joinVars) {
+
+            final IConstant<?> c = bset.get(v);
+
+            if (c == null)
+                return UNBOUND;
+
+            h = 31 * h + c.hashCode();
+
+        }
+
+        return h & 0xffffffffL;
+
+    }
+
+    /**
+     * Spread the bits of a hash code over a long (the MurmurHash3 finalizer).
+     */
+    private static long mix(final int h) {
+
+        long x = h;
+
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        x *= 0xc4ceb9fe1a85ec53L;
+        x ^= x >>> 33;
+
+        return x;
+
+    }
+
+    /*
+     * IQueryAttributes
+     */
+
+    /**
+     * Return the name of the {@link IQueryAttributes} attribute under which
+     * the {@link JoinKeyFilter} for a hash index is located.
+     * 
+     * @param namedSetRef
+     *            The hash index.
+     */
+    public static String getAttributeName(final INamedSolutionSetRef namedSetRef) {
+
+        return namedSetRef + "-" + JoinKeyFilter.class.getName();
+
+    }
+
+    /**
+     * Return the {@link JoinKeyFilter} for a hash index, creating it if it does
+     * not exist.
+     * 
+     * @param attrs
+     *            The attributes of the query to which the hash index is
+     *            attached.
+     * @param namedSetRef
+     *            The hash index.
+     */
+    public static JoinKeyFilter getOrCreate(final IQueryAttributes attrs,
+            final INamedSolutionSetRef namedSetRef) {
+
+        final String name = getAttributeName(namedSetRef);
+
+        JoinKeyFilter filter = (JoinKeyFilter) attrs.get(name);
+
+        if (filter == null) {
+
+            filter = new JoinKeyFilter(namedSetRef.getJoinVars());
+
+            final JoinKeyFilter tmp = (JoinKeyFilter) attrs.putIfAbsent(name,
+                    filter);
+
+            if (tmp != null)
+                filter = tmp;
+
+        }
+
+        return filter;
+
+    }
+
+    /**
+     * Return the {@link JoinKeyFilter} for a hash index iff it exists, has been
+     * sealed, and can rule out some solutions.
+     * 
+     * @param attrs
+     *            The attributes of the query to which the hash index is
+     *            attached.
+     * @param namedSetRef
+     *            The hash index.
+     * 
+     * @return The filter -or- <code>null</code>.
+     */
+    public static JoinKeyFilter get(final IQueryAttributes attrs,
+            final INamedSolutionSetRef namedSetRef) {
+
+        final JoinKeyFilter filter = (JoinKeyFilter) attrs
+                .get(getAttributeName(namedSetRef));
+
+        if (filter == null || !filter.isSealed() || filter.isMatchAll())
+            return null;
+
+        return filter;
+
+    }
+
+}
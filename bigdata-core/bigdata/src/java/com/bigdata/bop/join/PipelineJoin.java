@@ -31,6 +31,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -55,8 +56,12 @@ import com.bigdata.bop.IShardwisePipelineOp;
 import com.bigdata.bop.IVariable;
 import com.bigdata.bop.NV;
 import com.bigdata.bop.PipelineOp;
+import com.bigdata.bop.controller.INamedSolutionSetRef;
+import com.bigdata.bop.controller.NamedSetAnnotations;
 import com.bigdata.bop.engine.AbstractRunningQuery;
 import com.bigdata.bop.engine.QueryTimeoutException;
+import com.bigdata.btree.IIndex;
+import com.bigdata.btree.ITupleCursor;
 import com.bigdata.btree.keys.IKeyBuilder;
 import com.bigdata.concurrent.FutureTaskMon;
 import com.bigdata.relation.IRelation;
@@ -221,6 +226,25 @@ public class PipelineJoin<E> extends PipelineOp implements
 
         boolean DEFAULT_REORDER_ACCESS_PATHS = true;
 
+        /**
+         * When <code>true</code> and the access paths are reordered (see
+         * {@link #REORDER_ACCESS_PATHS}) and evaluated in the caller's thread
+         * (see {@link #MAX_PARALLEL_CHUNKS}), the access paths for a chunk of
+         * source solutions which read on the same local index are read using a
+         * single forward moving {@link ITupleCursor} (default
+         * {@value #DEFAULT_SORTED_PROBES}). The lookups for keys falling into
+         * the same leaf then reuse that leaf rather than descending from the
+         * root of the index for each access path. This only applies to access
+         * paths without filters and whose range count is small enough for a
+         * fully buffered read.
+         * 
+         * @see AccessPath#iterator(ITupleCursor)
+         */
+        String SORTED_PROBES = (PipelineJoin.class.getName() + ".sortedProbes")
+                .intern();
+
+        boolean DEFAULT_SORTED_PROBES = true;
+
         /**
          * The minimum number of (estimated) data points assigned to a task. This basically
          * defines the threshold upon which parallelization starts to pay out. Currently only
@@ -258,6 +282,22 @@ public class PipelineJoin<E> extends PipelineOp implements
            (PipelineJoin.class.getName() + ".numTasksPerThread").intern();
         
         public int DEFAULT_NUM_TASKS_PER_THREAD = 1;
+
+        /**
+         * An optional {@link INamedSolutionSetRef}[] identifying hash indices
+         * which the solutions produced by this join will later be joined
+         * against. If a {@link JoinKeyFilter} is available for such a hash
+         * index when the join runs, then the solutions which can not join with
+         * that hash index are dropped (sideways information passing).
+         * <p>
+         * Note: This MUST NOT be specified unless every solution produced by
+         * this join which does not join with those hash indices will be
+         * dropped downstream. It is ignored for an optional join.
+         * 
+         * @see NamedSetAnnotations#JOIN_KEY_FILTER
+         */
+        String JOIN_KEY_FILTERS = (PipelineJoin.class.getName() + ".joinKeyFilters")
+                .intern();
         
 
 	}
@@ -342,6 +382,15 @@ public class PipelineJoin<E> extends PipelineOp implements
 
     }
     
+	/**
+	 * @see Annotations#JOIN_KEY_FILTERS
+	 */
+	public INamedSolutionSetRef[] getJoinKeyFilters() {
+
+		return getProperty(Annotations.JOIN_KEY_FILTERS, null/* defaultValue */);
+
+	}
+
 	/**
 	 * @see Annotations#MAX_PARALLEL_CHUNKS
 	 */
@@ -480,6 +529,23 @@ public class PipelineJoin<E> extends PipelineOp implements
          */
 		final private boolean reorderAccessPaths;
 
+        /**
+         * When <code>true</code>, the reordered access paths for a chunk are
+         * read using a shared cursor for each index.
+         * 
+         * @see Annotations#SORTED_PROBES
+         */
+        final private boolean sortedProbes;
+
+		/**
+		 * The filters over the join keys of the hash indices that the solutions
+		 * produced by this join will be joined against -or- <code>null</code>
+		 * if there are no such filters.
+		 * 
+		 * @see Annotations#JOIN_KEY_FILTERS
+		 */
+		final private JoinKeyFilter[] joinKeyFilters;
+
 		/**
 		 * Used to enforce the {@link Annotations#LIMIT} iff one is specified.
 		 */
@@ -584,6 +650,12 @@ public class PipelineJoin<E> extends PipelineOp implements
             this.reorderAccessPaths = joinOp.getProperty(
                     Annotations.REORDER_ACCESS_PATHS,
                     Annotations.DEFAULT_REORDER_ACCESS_PATHS);
+            this.sortedProbes = reorderAccessPaths
+                    && joinOp.getProperty(Annotations.SORTED_PROBES,
+                            Annotations.DEFAULT_SORTED_PROBES);
+
+			this.joinKeyFilters = optional ? null : getJoinKeyFilters(joinOp,
+					context);
 
 			this.threadLocalBufferFactory = new TLBFactory(sink);
 
@@ -602,6 +674,63 @@ public class PipelineJoin<E> extends PipelineOp implements
 
 		}
 
+		/**
+		 * Resolve the {@link JoinKeyFilter}s which are available for the hash
+		 * indices identified by {@link Annotations#JOIN_KEY_FILTERS}.
+		 * 
+		 * @return The filters -or- <code>null</code> if there are none.
+		 */
+		private static JoinKeyFilter[] getJoinKeyFilters(
+				final PipelineJoin<?> joinOp,
+				final BOpContext<IBindingSet> context) {
+
+			final INamedSolutionSetRef[] refs = joinOp.getJoinKeyFilters();
+
+			if (refs == null || refs.length == 0)
+				return null;
+
+			final List<JoinKeyFilter> filters = new LinkedList<JoinKeyFilter>();
+
+			for (INamedSolutionSetRef ref : refs) {
+
+				final JoinKeyFilter filter = JoinKeyFilter.get(
+						context.getQueryAttributes(ref.getQueryId()), ref);
+
+				if (filter != null)
+					filters.add(filter);
+
+			}
+
+			return filters.isEmpty() ? null : filters
+					.toArray(new JoinKeyFilter[filters.size()]);
+
+		}
+
+		/**
+		 * Return <code>false</code> iff the solution is ruled out by one of
+		 * the {@link #joinKeyFilters}.
+		 */
+		private boolean isJoinKeyMatch(final IBindingSet bset) {
+
+			if (joinKeyFilters == null)
+				return true;
+
+			for (JoinKeyFilter filter : joinKeyFilters) {
+
+				if (!filter.isMatch(bset)) {
+
+					stats.joinKeyFilterRejects.increment();
+
+					return false;
+
+				}
+
+			}
+
+			return true;
+
+		}
+
 		/**
 		 * Runs the {@link JoinTask}.
 		 * 
@@ -1387,6 +1516,9 @@ public class PipelineJoin<E> extends PipelineOp implements
 					 * No Executor, so run each task in the caller's thread.
 					 */
 
+					if (sortedProbes && tasks.length > 1)
+						assignCursors(tasks);
+
 					for (AccessPathTask task : tasks) {
 
 						task.call();
@@ -1460,6 +1592,48 @@ public class PipelineJoin<E> extends PipelineOp implements
 
 		}
 
+		/**
+		 * Assign a shared {@link ITupleCursor} to each task whose
+		 * {@link AccessPath} reads on a local index. The tasks have been
+		 * sorted by their <i>fromKey</i> and are run in the caller's thread,
+		 * so each cursor moves forward through its index.
+		 * 
+		 * @param tasks
+		 *            The tasks.
+		 * 
+		 * @see Annotations#SORTED_PROBES
+		 */
+		private void assignCursors(final AccessPathTask[] tasks) {
+
+			final Map<IIndex, ITupleCursor<E>> cursors = new IdentityHashMap<IIndex, ITupleCursor<E>>();
+
+			for (AccessPathTask task : tasks) {
+
+				if (!(task.accessPath instanceof AccessPath<?>)
+						|| task.accessPath.getPredicate() instanceof IStarJoin<?>)
+					continue;
+
+				final AccessPath<E> ap = (AccessPath<E>) task.accessPath;
+
+				final IIndex ndx = ap.getIndex();
+
+				ITupleCursor<E> cursor = cursors.get(ndx);
+
+				if (cursor == null && !cursors.containsKey(ndx)) {
+
+					cursor = ap.newCursor();
+
+					// Note: null if the index does not support a cursor.
+					cursors.put(ndx, cursor);
+
+				}
+
+				task.cursor = cursor;
+
+			}
+
+		}
+
 		/**
 		 * Accepts an asBound {@link IPredicate} and a (non-empty) collection of
 		 * {@link IBindingSet}s each of which licenses the same asBound
@@ -1507,6 +1681,14 @@ public class PipelineJoin<E> extends PipelineOp implements
 			 */
 			final private IAccessPath<E> accessPath;
 
+			/**
+			 * A cursor shared with the other tasks reading on the same index
+			 * -or- <code>null</code>.
+			 * 
+			 * @see Annotations#SORTED_PROBES
+			 */
+			private ITupleCursor<E> cursor;
+
 			            /**
              * Return the <em>fromKey</em> for the {@link IAccessPath} generated
              * from the {@link IBindingSet} for this task.
@@ -1820,8 +2002,7 @@ public class PipelineJoin<E> extends PipelineOp implements
             			IPredicate.Annotations.DEFAULT_CUTOFF_LIMIT);
             	
                 // Obtain the iterator for the current join dimension.
-                final ICloseableIterator<IBindingSet[]> itr = ((IBindingSetAccessPath<?>) accessPath)
-                      .solutions(context, cutoffLimit, stats);
+                final ICloseableIterator<IBindingSet[]> itr = solutions(cutoffLimit);
 
                 try {
 
@@ -1851,7 +2032,7 @@ public class PipelineJoin<E> extends PipelineOp implements
                                     constraints,
                                     variablesToKeep);
                             
-                            if (bset != null) {
+                            if (bset != null && isJoinKeyMatch(bset)) {
                                 // solutions joined.
                                 if (limit != Long.MAX_VALUE
                                         && exactOutputCount.incrementAndGet() > limit) {
@@ -1968,6 +2149,34 @@ public class PipelineJoin<E> extends PipelineOp implements
 
                 }
 
+            }
+
+            /**
+             * Return the solutions for the access path. The access path is
+             * read using the shared {@link #cursor} when possible.
+             */
+            private ICloseableIterator<IBindingSet[]> solutions(
+                    final long cutoffLimit) {
+
+                if (cursor != null && cutoffLimit == Long.MAX_VALUE) {
+
+                    final IChunkedOrderedIterator<E> src = ((AccessPath<E>) accessPath)
+                            .iterator(cursor);
+
+                    if (src != null) {
+
+                        stats.sortedProbeCount.increment();
+
+                        return context.solutions(src,
+                                accessPath.getPredicate(), stats);
+
+                    }
+
+                }
+
+                return ((IBindingSetAccessPath<?>) accessPath).solutions(
+                        context, cutoffLimit, stats);
+
             }
 
 			protected void handleStarJoin() {
@@ -2348,7 +2557,8 @@ public class PipelineJoin<E> extends PipelineOp implements
 							bset = bset.clone();
 
 							// propagate bindings from the visited element.
-							if (BOpContext.bind(predicate, constraints, e, bset)) {
+							if (BOpContext.bind(predicate, constraints, e, bset)
+									&& isJoinKeyMatch(bset)) {
 
 								// optionally strip off unnecessary variables.
 								bset = variablesToKeep == null ? bset : bset
@@ -63,6 +63,22 @@ public class PipelineJoinStats extends BaseJoinStats {
      */
     public final CAT outputSolutions = new CAT();
 
+    /**
+     * The #of solutions produced by the join which were dropped because they
+     * can not join with a hash index downstream.
+     * 
+     * @see Annotations#JOIN_KEY_FILTERS
+     */
+    public final CAT joinKeyFilterRejects = new CAT();
+
+    /**
+     * The #of access paths which were read using a cursor shared with the
+     * other access paths on the same index.
+     * 
+     * @see Annotations#SORTED_PROBES
+     */
+    public final CAT sortedProbeCount = new CAT();
+
     /**
      * The estimated join hit ratio. This is computed as
      * 
@@ -128,6 +144,10 @@ public class PipelineJoinStats extends BaseJoinStats {
 
 			outputSolutions.add(t.outputSolutions.get());
 
+			joinKeyFilterRejects.add(t.joinKeyFilterRejects.get());
+
+			sortedProbeCount.add(t.sortedProbeCount.get());
+
 			// if (t.fanIn > this.fanIn) {
 			// // maximum reported fanIn for this join dimension.
 			// this.fanIn = t.fanIn;
@@ -146,6 +166,8 @@ public class PipelineJoinStats extends BaseJoinStats {
 		sb.append(",inputSolutions=" + inputSolutions.get());
 		sb.append(",outputSolutions=" + outputSolutions.get());
 		sb.append(",joinHitRatio=" + getJoinHitRatio());
+		sb.append(",joinKeyFilterRejects=" + joinKeyFilterRejects.get());
+		sb.append(",sortedProbeCount=" + sortedProbeCount.get());
 	}
 
 }
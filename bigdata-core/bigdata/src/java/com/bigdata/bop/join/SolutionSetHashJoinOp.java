@@ -70,6 +70,14 @@ import com.bigdata.relation.accesspath.UnsyncLocalOutputBuffer;
  * set must be constructed by a {@link JVMNamedSubqueryOp} or
  * {@link JVMHashIndexOp}.
  * 
+ * <h2>Join key filters</h2>
+ * 
+ * If a {@link JoinKeyFilter} was built for the hash index (see
+ * {@link NamedSetAnnotations#JOIN_KEY_FILTER}), then the source solutions
+ * which can not join with the hash index are dropped before they are probed
+ * against the hash index. This is safe for all {@link JoinTypeEnum}s since a
+ * source solution which does not join does not contribute to the output.
+ * 
  * <h2>Handling OPTIONAL, EXISTS, and NOT-EXISTS</h2>
  * 
  * {@link PipelineOp.Annotations#LAST_PASS} evaluation MUST be requested for any
@@ -196,6 +204,16 @@ abstract public class SolutionSetHashJoinOp extends PipelineOp {
 
         private final IHashJoinUtility state;
 
+        /**
+         * The filter over the join keys of the hash index -or-
+         * <code>null</code> if there is no such filter.
+         */
+        private final JoinKeyFilter joinKeyFilter;
+
+        private final IQueryAttributes attrs;
+
+        private final INamedSolutionSetRef namedSetRef;
+
         private final IConstraint[] constraints;
         
         private final boolean release;
@@ -223,7 +241,7 @@ abstract public class SolutionSetHashJoinOp extends PipelineOp {
             this.op = op;
 
             // The name of the attribute used to discover the solution set.
-            final INamedSolutionSetRef namedSetRef = (INamedSolutionSetRef) op
+            namedSetRef = (INamedSolutionSetRef) op
                     .getRequiredProperty(Annotations.NAMED_SET_REF);
 
             /*
@@ -231,10 +249,12 @@ abstract public class SolutionSetHashJoinOp extends PipelineOp {
 			 * solution set. See BLZG-1493 (if queryId is null, use the query
 			 * attributes for this running query).
 			 */
-			final IQueryAttributes attrs = context.getQueryAttributes(namedSetRef.getQueryId());
+			attrs = context.getQueryAttributes(namedSetRef.getQueryId());
 
             state = (IHashJoinUtility) attrs.get(namedSetRef);
 
+            joinKeyFilter = JoinKeyFilter.get(attrs, namedSetRef);
+
             if (state == null) {
                 
                 // The solution set was not found!
@@ -296,6 +316,8 @@ abstract public class SolutionSetHashJoinOp extends PipelineOp {
                      */
                     state.release();
 
+                    attrs.remove(JoinKeyFilter.getAttributeName(namedSetRef));
+
                 }
                 
                 sink.close();
@@ -322,7 +344,9 @@ abstract public class SolutionSetHashJoinOp extends PipelineOp {
             final UnsyncLocalOutputBuffer<IBindingSet> unsyncBuffer = new UnsyncLocalOutputBuffer<IBindingSet>(
                     op.getChunkCapacity(), sink);
 
-            state.hashJoin2(context.getSource(), stats, unsyncBuffer,
+            state.hashJoin2(
+                    joinKeyFilter == null ? context.getSource() : joinKeyFilter
+                            .filter(context.getSource()), stats, unsyncBuffer,
                     constraints);
 
             if (context.isLastInvocation()) {
@@ -0,0 +1,975 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+/*
+ * Created on Oct 19, 2026
+ */
+
+package com.bigdata.bop.joinGraph.rto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.bop.BOp;
+import com.bigdata.bop.BOpContext;
+import com.bigdata.bop.BOpUtility;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IConstraint;
+import com.bigdata.bop.IPredicate;
+import com.bigdata.bop.IQueryAttributes;
+import com.bigdata.bop.IVariable;
+import com.bigdata.bop.NV;
+import com.bigdata.bop.PipelineOp;
+import com.bigdata.bop.engine.AbstractRunningQuery;
+import com.bigdata.bop.engine.IRunningQuery;
+import com.bigdata.bop.engine.QueryEngine;
+import com.bigdata.bop.joinGraph.PartitionedJoinGroup;
+import com.bigdata.rdf.sparql.ast.JoinGroupNode;
+import com.bigdata.rdf.sparql.ast.eval.AST2BOpRTO;
+import com.bigdata.rdf.sparql.ast.optimizers.ASTStaticJoinOptimizer;
+import com.bigdata.relation.IRelation;
+import com.bigdata.util.NT;
+import com.bigdata.util.concurrent.Haltable;
+
+import cutthecrap.utils.striterators.ICloseableIterator;
+
+/**
+ * A join graph whose joins are evaluated in the order given by the static join
+ * order optimizer while the cardinality of the intermediate results is
+ * compared against the estimates on which that order was based. When the
+ * estimates turn out to be wrong, the remaining joins are re-ordered based on
+ * the observed cardinality of the intermediate result.
+ * <p>
+ * Each join is evaluated as a sub-query whose input is the materialized
+ * intermediate result of the previous joins. Once a join is done, the
+ * cardinality of its output is compared against the estimate for that join. If
+ * they differ by more than the {@link Annotations#ERROR_FACTOR}, the remaining
+ * joins are re-ordered. A join whose output overflows its estimate by more than
+ * that factor is cut off as soon as the overflow is observed and the remaining
+ * joins (including that one) are re-ordered starting from its input. A join
+ * is cut off at most once, so evaluation always makes progress. The last join
+ * is not materialized. Its solutions are copied directly to the sink.
+ * <p>
+ * The cardinality of the output of a join is estimated from the cardinality of
+ * its input and the cardinality of its access path using the same rules as the
+ * static join order optimizer: the product if the join does not share any
+ * variables with the intermediate result, the minimum if all of its variables
+ * are bound, and otherwise a combination of the minimum and the maximum
+ * governed by {@link Annotations#OPTIMISTIC}. The remaining joins are
+ * re-ordered greedily, preferring joins which share variables with the
+ * intermediate result and then joins having the lowest estimated cardinality.
+ * 
+ * @see JoinGraph
+ * @see ASTStaticJoinOptimizer
+ */
+public class AdaptiveJoinGraph extends PipelineOp {
+
+    private static final transient Logger log = Logger
+            .getLogger(AdaptiveJoinGraph.class);
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Known annotations.
+     */
+    public interface Annotations extends PipelineOp.Annotations {
+
+        /**
+         * The vertices of the join graph, expressed an an {@link IPredicate}[]
+         * in the order in which they should be evaluated unless the estimates
+         * turn out to be wrong (required).
+         */
+        String VERTICES = AdaptiveJoinGraph.class.getName() + ".vertices";
+
+        /**
+         * The estimated cardinality of each vertex, expressed as a
+         * <code>long[]</code> in the same order as the
+         * {@link #VERTICES} (optional). A negative value means that the
+         * cardinality is not known, in which case the range count of the access
+         * path is used.
+         */
+        String CARDINALITIES = AdaptiveJoinGraph.class.getName()
+                + ".cardinalities";
+
+        /**
+         * The constraints on the join graph, expressed an an
+         * {@link IConstraint}[] (optional, defaults to no constraints).
+         */
+        String CONSTRAINTS = AdaptiveJoinGraph.class.getName()
+                + ".constraints";
+
+        /**
+         * The factor by which the observed cardinality of an intermediate
+         * result must differ from its estimated cardinality before the
+         * remaining joins are re-ordered (default
+         * {@value #DEFAULT_ERROR_FACTOR}). This must be greater than ONE (1).
+         */
+        String ERROR_FACTOR = AdaptiveJoinGraph.class.getName()
+                + ".errorFactor";
+
+        double DEFAULT_ERROR_FACTOR = 10d;
+
+        /**
+         * The weight given to the minimum cardinality when estimating the
+         * cardinality of a join which shares some but not all of its variables
+         * with the intermediate result (default
+         * {@value #DEFAULT_OPTIMISTIC}).
+         * 
+         * @see ASTStaticJoinOptimizer.Annotations#OPTIMISTIC
+         */
+        String OPTIMISTIC = AdaptiveJoinGraph.class.getName() + ".optimistic";
+
+        double DEFAULT_OPTIMISTIC = 1d;
+
+        /**
+         * The set of variables that are known to have already been materialized
+         * in the context in which the join graph was invoked.
+         */
+        String DONE_SET = AdaptiveJoinGraph.class.getName() + ".doneSet";
+
+        /**
+         * The AST {@link JoinGroupNode} for the joins and filters in the join
+         * graph (required).
+         */
+        String JOIN_GROUP = AdaptiveJoinGraph.class.getName() + ".joinGroup";
+
+        /**
+         * An {@link NT} object specifying the namespace and timestamp of the KB
+         * view against which the joins will be evaluated (required).
+         */
+        String NT = AdaptiveJoinGraph.class.getName() + ".nt";
+
+    }
+
+    /**
+     * {@link IQueryAttributes} names for the {@link AdaptiveJoinGraph}. The
+     * fully qualified name of the attribute is formed by appending the
+     * attribute name to the "bopId-", where <code>bopId</code> is the value
+     * returned by {@link BOp#getId()}
+     */
+    public interface Attributes {
+
+        /**
+         * The bopIds of the vertices in the order in which they were evaluated
+         * by the most recent invocation of the operator (output).
+         */
+        String JOIN_ORDER = AdaptiveJoinGraph.class.getName() + ".joinOrder";
+
+        /**
+         * The #of times that the remaining joins were re-ordered (output).
+         */
+        String REOPTIMIZATIONS = AdaptiveJoinGraph.class.getName()
+                + ".reoptimizations";
+
+    }
+
+    /**
+     * @see Annotations#VERTICES
+     */
+    public IPredicate<?>[] getVertices() {
+
+        return (IPredicate[]) getRequiredProperty(Annotations.VERTICES);
+
+    }
+
+    /**
+     * @see Annotations#CARDINALITIES
+     */
+    public long[] getCardinalities() {
+
+        return (long[]) getProperty(Annotations.CARDINALITIES);
+
+    }
+
+    /**
+     * @see Annotations#CONSTRAINTS
+     */
+    public IConstraint[] getConstraints() {
+
+        return (IConstraint[]) getProperty(Annotations.CONSTRAINTS, null/* none */);
+
+    }
+
+    /**
+     * @see Annotations#ERROR_FACTOR
+     */
+    public double getErrorFactor() {
+
+        return getProperty(Annotations.ERROR_FACTOR,
+                Annotations.DEFAULT_ERROR_FACTOR);
+
+    }
+
+    /**
+     * @see Annotations#OPTIMISTIC
+     */
+    public double getOptimistic() {
+
+        return getProperty(Annotations.OPTIMISTIC,
+                Annotations.DEFAULT_OPTIMISTIC);
+
+    }
+
+    /**
+     * @see Annotations#DONE_SET
+     */
+    @SuppressWarnings("unchecked")
+    public Set<IVariable<?>> getDoneSet() {
+
+        return (Set<IVariable<?>>) getRequiredProperty(Annotations.DONE_SET);
+
+    }
+
+    /*
+     * IQueryAttributes
+     */
+
+    /**
+     * Return the bopIds of the vertices in the order in which they were
+     * evaluated.
+     * 
+     * @see Attributes#JOIN_ORDER
+     */
+    public int[] getJoinOrder(final IRunningQuery q) {
+
+        return (int[]) q.getAttributes().get(
+                getId() + "-" + Attributes.JOIN_ORDER);
+
+    }
+
+    /**
+     * Return the #of times that the remaining joins were re-ordered.
+     * 
+     * @see Attributes#REOPTIMIZATIONS
+     */
+    public int getReoptimizationCount(final IRunningQuery q) {
+
+        final AtomicInteger n = (AtomicInteger) q.getAttributes().get(
+                getId() + "-" + Attributes.REOPTIMIZATIONS);
+
+        return n == null ? 0 : n.get();
+
+    }
+
+    private void setJoinOrder(final IRunningQuery q,
+            final List<IPredicate<?>> path) {
+
+        final int[] ids = new int[path.size()];
+
+        int i = 0;
+
+        for (IPredicate<?> pred : path) {
+
+            ids[i++] = pred.getId();
+
+        }
+
+        q.getAttributes().put(getId() + "-" + Attributes.JOIN_ORDER, ids);
+
+    }
+
+    private void reoptimized(final IRunningQuery q) {
+
+        final String key = getId() + "-" + Attributes.REOPTIMIZATIONS;
+
+        AtomicInteger n = (AtomicInteger) q.getAttributes().get(key);
+
+        if (n == null) {
+
+            final AtomicInteger tmp = (AtomicInteger) q.getAttributes()
+                    .putIfAbsent(key, n = new AtomicInteger());
+
+            if (tmp != null)
+                n = tmp;
+
+        }
+
+        n.incrementAndGet();
+
+    }
+
+    /**
+     * Deep copy constructor.
+     * 
+     * @param op
+     */
+    public AdaptiveJoinGraph(final AdaptiveJoinGraph op) {
+
+        super(op);
+
+    }
+
+    public AdaptiveJoinGraph(final BOp[] args, final NV... anns) {
+
+        this(args, NV.asMap(anns));
+
+    }
+
+    public AdaptiveJoinGraph(final BOp[] args, final Map<String, Object> anns) {
+
+        super(args, anns);
+
+        // required property.
+        final IPredicate<?>[] vertices = (IPredicate[]) getProperty(Annotations.VERTICES);
+
+        if (vertices == null)
+            throw new IllegalArgumentException(Annotations.VERTICES);
+
+        if (vertices.length == 0)
+            throw new IllegalArgumentException(Annotations.VERTICES);
+
+        final long[] cardinalities = getCardinalities();
+
+        if (cardinalities != null && cardinalities.length != vertices.length)
+            throw new IllegalArgumentException(Annotations.CARDINALITIES);
+
+        if (!(getErrorFactor() > 1d))
+            throw new IllegalArgumentException(Annotations.ERROR_FACTOR);
+
+        if (getOptimistic() < 0d || getOptimistic() > 1d)
+            throw new IllegalArgumentException(Annotations.OPTIMISTIC);
+
+        // Required.
+        getDoneSet();
+
+        // Required.
+        getRequiredProperty(Annotations.JOIN_GROUP);
+
+        // Required.
+        getRequiredProperty(Annotations.NT);
+
+        if (!isController())
+            throw new IllegalArgumentException();
+
+        switch (getEvaluationContext()) {
+        case CONTROLLER:
+            break;
+        default:
+            throw new IllegalArgumentException(Annotations.EVALUATION_CONTEXT
+                    + "=" + getEvaluationContext());
+        }
+
+    }
+
+    @Override
+    public FutureTask<Void> eval(final BOpContext<IBindingSet> context) {
+
+        return new FutureTask<Void>(new AdaptiveJoinGraphTask(context));
+
+    }
+
+    /**
+     * Evaluation of an {@link AdaptiveJoinGraph}.
+     */
+    private class AdaptiveJoinGraphTask implements Callable<Void> {
+
+        private final BOpContext<IBindingSet> context;
+
+        AdaptiveJoinGraphTask(final BOpContext<IBindingSet> context) {
+
+            if (context == null)
+                throw new IllegalArgumentException();
+
+            this.context = context;
+
+        }
+
+        @Override
+        public Void call() throws Exception {
+
+            final IRunningQuery q = context.getRunningQuery();
+
+            final QueryEngine queryEngine = q.getQueryEngine();
+
+            final IPredicate<?>[] vertices = getVertices();
+
+            final IConstraint[] constraints = getConstraints();
+
+            final JoinGroupNode joinGroup = (JoinGroupNode) getRequiredProperty(Annotations.JOIN_GROUP);
+
+            final NT nt = (NT) getRequiredProperty(Annotations.NT);
+
+            final double errorFactor = getErrorFactor();
+
+            final double optimistic = getOptimistic();
+
+            final long[] cardinalities = getCardinalities(vertices);
+
+            // Fully materialize the upstream solutions.
+            IBindingSet[] solutions = BOpUtility.toArray(context.getSource(),
+                    context.getStats());
+
+            // The variables known to be materialized.
+            Set<IVariable<?>> doneSet = new LinkedHashSet<IVariable<?>>(
+                    getDoneSet());
+
+            // The variables bound in the intermediate result.
+            final Set<IVariable<?>> bound = getBoundVariables(solutions);
+
+            // The vertices in the order in which they were evaluated.
+            final List<IPredicate<?>> path = new ArrayList<IPredicate<?>>(
+                    vertices.length);
+
+            // The remaining vertices in the order in which they will be run.
+            List<Integer> plan = new LinkedList<Integer>();
+
+            for (int i = 0; i < vertices.length; i++) {
+
+                plan.add(i);
+
+            }
+
+            /*
+             * The estimated cardinality of the intermediate result after each
+             * of the remaining joins.
+             */
+            long[] estimates = estimate(vertices, plan, solutions.length,
+                    bound, cardinalities, null/* floor */, optimistic);
+
+            // The vertices whose evaluation has been cut off.
+            final boolean[] cutoff = new boolean[vertices.length];
+
+            while (true) {
+
+                final int v = plan.get(0);
+
+                final IPredicate<?> pred = vertices[v];
+
+                final boolean last = plan.size() == 1;
+
+                path.add(pred);
+
+                final IConstraint[][] constraintAttachmentArray = PartitionedJoinGroup
+                        .getJoinGraphConstraints(
+                                path.toArray(new IPredicate[path.size()]),
+                                constraints, null/* knownBound */, last/* pathIsComplete */);
+
+                /*
+                 * Note: The doneSet is only updated once the join is done since
+                 * the join might be cut off.
+                 */
+                final Set<IVariable<?>> doneSetTmp = new LinkedHashSet<IVariable<?>>(
+                        doneSet);
+
+                final PipelineOp queryOp = AST2BOpRTO.compileJoins(
+                        queryEngine, nt, joinGroup,
+                        new IPredicate[] { pred },
+                        new IConstraint[][] { constraintAttachmentArray[path
+                                .size() - 1] }, doneSetTmp);
+
+                if (last) {
+
+                    setJoinOrder(q, path);
+
+                    // Run the last join, copying its solutions to the sink.
+                    runSubquery(context, queryOp, solutions, null/* out */,
+                            Long.MAX_VALUE/* limit */);
+
+                    return null;
+
+                }
+
+                final long estimate = estimates[0];
+
+                final long limit = cutoff[v] ? Long.MAX_VALUE : (long) Math
+                        .min(Long.MAX_VALUE, Math.max(estimate, 1L)
+                                * errorFactor);
+
+                final List<IBindingSet> out = new ArrayList<IBindingSet>();
+
+                final boolean done = runSubquery(context, queryOp, solutions,
+                        out, limit);
+
+                if (q.isDone()) {
+
+                    // The query was halted (e.g., by a LIMIT).
+                    return null;
+
+                }
+
+                if (!done) {
+
+                    /*
+                     * The join overflowed its estimate. Re-order the remaining
+                     * joins (including this one) starting from its input.
+                     */
+
+                    path.remove(path.size() - 1);
+
+                    cutoff[v] = true;
+
+                    final long[] floor = new long[vertices.length];
+
+                    floor[v] = out.size();
+
+                    if (log.isInfoEnabled())
+                        log.info("Join cut off: pred=" + pred + ", estimate="
+                                + estimate + ", observed>=" + out.size());
+
+                    plan = replan(vertices, plan, solutions.length, bound,
+                            cardinalities, floor, optimistic);
+
+                    estimates = estimate(vertices, plan, solutions.length,
+                            bound, cardinalities, floor, optimistic);
+
+                    reoptimized(q);
+
+                    continue;
+
+                }
+
+                solutions = out.toArray(new IBindingSet[out.size()]);
+
+                doneSet = doneSetTmp;
+
+                addVariables(pred, bound);
+
+                plan.remove(0);
+
+                if (solutions.length == 0) {
+
+                    // No solutions for the remaining joins.
+                    setJoinOrder(q, path);
+
+                    return null;
+
+                }
+
+                if (plan.size() > 1
+                        && isError(solutions.length, estimate, errorFactor)) {
+
+                    if (log.isInfoEnabled())
+                        log.info("Cardinality estimate error: pred=" + pred
+                                + ", estimate=" + estimate + ", observed="
+                                + solutions.length);
+
+                    plan = replan(vertices, plan, solutions.length, bound,
+                            cardinalities, null/* floor */, optimistic);
+
+                    reoptimized(q);
+
+                }
+
+                // Re-estimate the remaining joins from the observed cardinality.
+                estimates = estimate(vertices, plan, solutions.length, bound,
+                        cardinalities, null/* floor */, optimistic);
+
+            }
+
+        }
+
+        /**
+         * Return the cardinality of each vertex, using the range count of the
+         * access path if the cardinality was not estimated when the query was
+         * compiled.
+         */
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        private long[] getCardinalities(final IPredicate<?>[] vertices) {
+
+            final long[] a = AdaptiveJoinGraph.this.getCardinalities();
+
+            final long[] cardinalities = a == null ? new long[vertices.length]
+                    : a.clone();
+
+            if (a == null)
+                Arrays.fill(cardinalities, -1L);
+
+            for (int i = 0; i < vertices.length; i++) {
+
+                if (cardinalities[i] < 0L) {
+
+                    final IPredicate pred = vertices[i];
+
+                    final IRelation r = context.getRelation(pred);
+
+                    cardinalities[i] = context.getAccessPath(r, pred)
+                            .rangeCount(false/* exact */);
+
+                }
+
+            }
+
+            return cardinalities;
+
+        }
+
+    } // class AdaptiveJoinGraphTask
+
+    /**
+     * Return <code>true</code> iff the observed cardinality differs from the
+     * estimated cardinality by more than the error factor.
+     */
+    static boolean isError(final long observed, final long estimate,
+            final double errorFactor) {
+
+        final double e = Math.max(estimate, 1L);
+
+        final double o = Math.max(observed, 1L);
+
+        return o > e * errorFactor || o * errorFactor < e;
+
+    }
+
+    /**
+     * Estimate the cardinality of the intermediate result after each join.
+     * 
+     * @param vertices
+     *            The vertices of the join graph.
+     * @param plan
+     *            The index of each vertex in the order in which they will be
+     *            evaluated.
+     * @param n
+     *            The cardinality of the input to the first join.
+     * @param bound
+     *            The variables bound in the input to the first join.
+     * @param cardinalities
+     *            The cardinality of each vertex.
+     * @param floor
+     *            The observed minimum cardinality of the first join for each
+     *            vertex (optional).
+     * @param optimistic
+     *            See {@link Annotations#OPTIMISTIC}.
+     * 
+     * @return The estimated cardinality of the intermediate result after each
+     *         join in the plan.
+     */
+    static long[] estimate(final IPredicate<?>[] vertices,
+            final List<Integer> plan, long n,
+            final Set<IVariable<?>> bound, final long[] cardinalities,
+            final long[] floor, final double optimistic) {
+
+        final Set<IVariable<?>> vars = new HashSet<IVariable<?>>(bound);
+
+        final long[] a = new long[plan.size()];
+
+        int i = 0;
+
+        for (Integer v : plan) {
+
+            n = estimate(n, vertices[v], cardinalities[v], vars, optimistic);
+
+            if (i == 0 && floor != null)
+                n = Math.max(n, floor[v]);
+
+            a[i++] = n;
+
+            addVariables(vertices[v], vars);
+
+        }
+
+        return a;
+
+    }
+
+    /**
+     * Greedily re-order the remaining joins.
+     * 
+     * @return The index of each remaining vertex in the order in which they
+     *         should be evaluated.
+     * 
+     * @see #estimate(IPredicate[], List, long, Set, long[], long[], double)
+     */
+    static List<Integer> replan(final IPredicate<?>[] vertices,
+            final List<Integer> plan, long n, final Set<IVariable<?>> bound,
+            final long[] cardinalities, final long[] floor,
+            final double optimistic) {
+
+        final List<Integer> pool = new LinkedList<Integer>(plan);
+
+        final List<Integer> order = new LinkedList<Integer>();
+
+        final Set<IVariable<?>> vars = new HashSet<IVariable<?>>(bound);
+
+        while (!pool.isEmpty()) {
+
+            Integer best = null;
+            boolean bestShared = false;
+            long bestEstimate = 0L;
+
+            for (Integer v : pool) {
+
+                final boolean shared = sharesVariables(vertices[v], vars);
+
+                long e = estimate(n, vertices[v], cardinalities[v], vars,
+                        optimistic);
+
+                if (order.isEmpty() && floor != null)
+                    e = Math.max(e, floor[v]);
+
+                /*
+                 * Prefer a join which shares variables with the intermediate
+                 * result, then the lowest estimated cardinality and then the
+                 * lowest cardinality for the access path. Ties are broken by
+                 * the existing order.
+                 */
+                if (best == null
+                        || (shared && !bestShared)
+                        || (shared == bestShared && (e < bestEstimate || (e == bestEstimate && cardinalities[v] < cardinalities[best])))) {
+
+                    best = v;
+                    bestShared = shared;
+                    bestEstimate = e;
+
+                }
+
+            }
+
+            order.add(best);
+
+            pool.remove(best);
+
+            n = bestEstimate;
+
+            addVariables(vertices[best], vars);
+
+        }
+
+        return order;
+
+    }
+
+    /**
+     * Estimate the cardinality of the join of an intermediate result with an
+     * access path.
+     * 
+     * @param n
+     *            The cardinality of the intermediate result.
+     * @param pred
+     *            The predicate for the access path.
+     * @param cardinality
+     *            The cardinality of the access path.
+     * @param bound
+     *            The variables bound in the intermediate result.
+     * @param optimistic
+     *            See {@link Annotations#OPTIMISTIC}.
+     */
+    static long estimate(final long n, final IPredicate<?> pred,
+            final long cardinality, final Set<IVariable<?>> bound,
+            final double optimistic) {
+
+        boolean shared = false, unshared = false;
+
+        final Iterator<IVariable<?>> itr = BOpUtility
+                .getArgumentVariables(pred);
+
+        while (itr.hasNext()) {
+
+            if (bound.contains(itr.next())) {
+                shared = true;
+            } else {
+                unshared = true;
+            }
+
+        }
+
+        if (!shared) {
+
+            // no shared variables - take the product.
+            return (long) Math.min(Long.MAX_VALUE, (double) n * cardinality);
+
+        }
+
+        final long min = Math.min(n, cardinality);
+
+        if (!unshared) {
+
+            // all variables are bound - take the min.
+            return min;
+
+        }
+
+        final long max = Math.max(n, cardinality);
+
+        return (long) (optimistic * min + (1d - optimistic) * max);
+
+    }
+
+    private static boolean sharesVariables(final IPredicate<?> pred,
+            final Set<IVariable<?>> bound) {
+
+        final Iterator<IVariable<?>> itr = BOpUtility
+                .getArgumentVariables(pred);
+
+        while (itr.hasNext()) {
+
+            if (bound.contains(itr.next()))
+                return true;
+
+        }
+
+        return false;
+
+    }
+
+    private static void addVariables(final IPredicate<?> pred,
+            final Set<IVariable<?>> vars) {
+
+        final Iterator<IVariable<?>> itr = BOpUtility
+                .getArgumentVariables(pred);
+
+        while (itr.hasNext()) {
+
+            vars.add(itr.next());
+
+        }
+
+    }
+
+    /**
+     * Return the variables bound in any of the solutions.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static Set<IVariable<?>> getBoundVariables(
+            final IBindingSet[] solutions) {
+
+        final Set<IVariable<?>> vars = new HashSet<IVariable<?>>();
+
+        for (IBindingSet bset : solutions) {
+
+            final Iterator<IVariable> itr = bset.vars();
+
+            while (itr.hasNext()) {
+
+                vars.add(itr.next());
+
+            }
+
+        }
+
+        return vars;
+
+    }
+
+    /**
+     * Run a sub-query on the given solutions.
+     * 
+     * @param parentContext
+     *            The context of the {@link AdaptiveJoinGraph}.
+     * @param queryOp
+     *            The query plan.
+     * @param bindingSets
+     *            The input solutions.
+     * @param out
+     *            The solutions are collected into this list. When
+     *            <code>null</code> they are copied to the sink of the
+     *            {@link AdaptiveJoinGraph} instead.
+     * @param limit
+     *            The sub-query is cut off once more than this many solutions
+     *            have been collected.
+     * 
+     * @return <code>false</code> iff the sub-query was cut off.
+     * 
+     * @see JoinGraph
+     */
+    private static boolean runSubquery(
+            final BOpContext<IBindingSet> parentContext,
+            final PipelineOp queryOp, final IBindingSet[] bindingSets,
+            final List<IBindingSet> out, final long limit) throws Exception {
+
+        final QueryEngine queryEngine = parentContext.getRunningQuery()
+                .getQueryEngine();
+
+        ICloseableIterator<IBindingSet[]> subquerySolutionItr = null;
+
+        final IRunningQuery runningSubquery = queryEngine.eval(queryOp,
+                bindingSets);
+
+        try {
+
+            // Declare the child query to the parent.
+            ((AbstractRunningQuery) parentContext.getRunningQuery())
+                    .addChild(runningSubquery);
+
+            // Iterator visiting the subquery solutions.
+            subquerySolutionItr = runningSubquery.iterator();
+
+            if (out == null) {
+
+                // Copy solutions from the subquery to the query.
+                BOpUtility.copy(subquerySolutionItr,
+                        parentContext.getSink(), null/* sink2 */,
+                        null/* mergeSolution */, null/* selectVars */,
+                        null/* constraints */, null/* stats */);
+
+            } else {
+
+                while (subquerySolutionItr.hasNext()) {
+
+                    Collections.addAll(out, subquerySolutionItr.next());
+
+                    if (out.size() > limit) {
+
+                        // Cut off.
+                        return false;
+
+                    }
+
+                }
+
+            }
+
+            // verify no problems.
+            runningSubquery.get();
+
+            return true;
+
+        } catch (Throwable t) {
+
+            if (Haltable.isTerminationByInterrupt(t)) {
+
+                // normal termination.
+                return true;
+
+            }
+
+            /*
+             * Propagate the error to the parent and rethrow the first cause
+             * error out of the subquery.
+             */
+            throw new RuntimeException(parentContext.getRunningQuery().halt(t));
+
+        } finally {
+
+            runningSubquery.cancel(true/* mayInterruptIfRunning */);
+
+            if (subquerySolutionItr != null)
+                subquerySolutionItr.close();
+
+        }
+
+    }
+
+}
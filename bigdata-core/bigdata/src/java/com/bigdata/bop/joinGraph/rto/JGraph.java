@@ -30,6 +30,7 @@ package com.bigdata.bop.joinGraph.rto;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Formatter;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -38,8 +39,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
@@ -480,6 +485,15 @@ public class JGraph {
         if (edgeSamples == null)
             throw new IllegalArgumentException();
 
+        /*
+         * The maximum time to spend sampling the join graph (ZERO means no
+         * limit).
+         */
+        final long maxSamplingNanos = TimeUnit.MILLISECONDS
+                .toNanos(joinGraph.getMaxSamplingTime());
+
+        final long begin = System.nanoTime();
+
         // Setup the join graph.
         Path[] paths = round0(queryEngine, limit, nedges);
 
@@ -503,6 +517,31 @@ public class JGraph {
 
         while (paths.length > 0 && round < nvertices - 1) {
 
+            if (maxSamplingNanos > 0
+                    && System.nanoTime() - begin >= maxSamplingNanos) {
+
+                /*
+                 * Out of time. Stop re-sampling and complete the join path by
+                 * greedily extending the best path found so far. Each round
+                 * then samples only the edges which extend that one path.
+                 */
+
+                if (paths.length > 1) {
+
+                    log.warn("Sampling time exceeded: round=" + round
+                            + ", npaths=" + paths.length + ", maxSamplingTime="
+                            + joinGraph.getMaxSamplingTime() + "ms");
+
+                    paths = new Path[] { getBestPath(paths) };
+
+                }
+
+                paths = expand(queryEngine, limit, round++, paths, edgeSamples);
+
+                continue;
+
+            }
+
             /*
              * Resample the paths.
              * 
@@ -598,42 +637,7 @@ public class JGraph {
                     + ", nunderflow=" + nunderflow + "\n"
                     + showTable(paths, null/* pruned */, edgeSamples));
 
-            Path t = null;
-            
-            for (Path p : paths) {
-            
-                if (p.edgeSample.isUnderflow()) {
-                
-                    /*
-                     * Skip paths with cardinality estimate underflow. They are
-                     * not fully tested in the data since no solutions have made
-                     * it through all of the joins.
-                     */
-                    
-                    continue;
-                    
-                }
-
-                if (t == null || p.sumEstCard < t.sumEstCard) {
-                
-                    // Accept path with the least cost.
-                    t = p;
-                    
-                }
-                
-            }
-            
-            if (t == null) {
-
-                /* Arbitrary choice if all paths underflow.
-                 * 
-                 * TODO Or throw out NoSolutionsException?
-                 */
-                t = paths[0];
-                
-            }
-            
-            selectedPath = t;
+            selectedPath = getBestPath(paths);
 
         } else {
             
@@ -653,6 +657,52 @@ public class JGraph {
 
     }
 
+    /**
+     * Return the path with the least cost, preferring paths which do not have
+     * a cardinality estimate underflow.
+     */
+    private static Path getBestPath(final Path[] paths) {
+
+        Path t = null;
+
+        for (Path p : paths) {
+
+            if (p.edgeSample.isUnderflow()) {
+
+                /*
+                 * Skip paths with cardinality estimate underflow. They are not
+                 * fully tested in the data since no solutions have made it
+                 * through all of the joins.
+                 */
+
+                continue;
+
+            }
+
+            if (t == null || p.sumEstCard < t.sumEstCard) {
+
+                // Accept path with the least cost.
+                t = p;
+
+            }
+
+        }
+
+        if (t == null) {
+
+            /*
+             * Arbitrary choice if all paths underflow.
+             * 
+             * TODO Or throw out NoSolutionsException?
+             */
+            t = paths[0];
+
+        }
+
+        return t;
+
+    }
+
     /**
      * Return a permutation vector which may be used to reorder the given
      * {@link IPredicate}[] into the evaluation order selected by the
@@ -939,37 +989,61 @@ public class JGraph {
          * surviving paths to share a join path prefix, so do not re-sample a
          * given path prefix more than once per round.
          * 
-         * FIXME PARALLELIZE: Parallelize the re-sampling for the active paths.
-         * This step is responsible for deepening the samples on the non-pruned
-         * paths. There is a data race that can occur since the [edgeSamples]
-         * map can contain samples for the same sequence of edges in different
-         * paths. This is because two paths can shared a common prefix sequence
-         * of edges, e.g., [2, 4, 6, 7] and [2, 4, 6, 9] share the path prefix
-         * [2, 4, 6]. Therefore both inspection and update of the [edgeSamples]
-         * map MUST be synchronized. This code is single threaded since that
-         * synchronization mechanism has not yet been put into place. The
-         * obvious way to handle this is to use a memoization pattern for the
-         * [ids] key for the [edgeSamples] map. This will ensure that the
-         * threads that need to resample a given edge will coordinate with the
-         * first such thread doing the resampling and the other thread(s)
-         * blocking until the resampled edge is available.
+         * Note: The paths are re-sampled in parallel. Two paths can share a
+         * common prefix sequence of edges, e.g., [2, 4, 6, 7] and [2, 4, 6, 9]
+         * share the path prefix [2, 4, 6]. A memoization pattern is used for
+         * the [ids] of each path segment so the first task to visit a given
+         * path segment re-samples it and any other task needing that segment
+         * blocks until the re-sampled edge is available. The sample limit for
+         * a path segment is the maximum of the new sample limits of the paths
+         * sharing that segment, so the outcome does not depend on which task
+         * gets there first.
          */
         if (log.isDebugEnabled())
             log.debug("Re-sampling in-use path segments.");
 
-        // #of paths with cardinality estimate underflow.
-        int nunderflow = 0;
+        final Map<PathIds, Integer> segmentLimits = new HashMap<PathIds, Integer>();
+
+        for (Path x : a) {
+
+            final int limit = x.getNewLimit(limitIn);
+
+            for (int segmentLength = 2; segmentLength <= x.vertices.length; segmentLength++) {
+
+                final PathIds ids = new PathIds(BOpUtility.getPredIds(x
+                        .getPathSegment(segmentLength)));
+
+                final Integer tmp = segmentLimits.get(ids);
+
+                if (tmp == null || tmp < limit)
+                    segmentLimits.put(ids, limit);
+
+            }
+
+        }
+
+        final ConcurrentMap<PathIds, FutureTask<EdgeSample>> resampled = new ConcurrentHashMap<PathIds, FutureTask<EdgeSample>>();
+
+        final Map<PathIds, EdgeSample> syncEdgeSamples = Collections
+                .synchronizedMap(edgeSamples);
+
         final List<Callable<Boolean>> tasks = new LinkedList<Callable<Boolean>>();
         for (Path x : a) {
 
-            tasks.add(new ResamplePathTask(queryEngine, x, limitIn, edgeSamples));
+            tasks.add(new ResamplePathTask(queryEngine, x, segmentLimits,
+                    resampled, syncEdgeSamples));
 
         } // next Path [x].
 
-        // Execute in the caller's thread.
-        for (Callable<Boolean> task : tasks) {
+        // Re-sample the paths in parallel.
+        final List<Future<Boolean>> futures = queryEngine.getIndexManager()
+                .getExecutorService().invokeAll(tasks);
+
+        // #of paths with cardinality estimate underflow.
+        int nunderflow = 0;
+        for (Future<Boolean> f : futures) {
 
-            if (task.call()) {
+            if (f.get()) {
 
                 nunderflow++;
 
@@ -992,29 +1066,33 @@ public class JGraph {
         
         private final QueryEngine queryEngine;
         private final Path x;
-        private final int limitIn;
+        private final Map<PathIds, Integer> segmentLimits;
+        private final ConcurrentMap<PathIds, FutureTask<EdgeSample>> resampled;
         private final Map<PathIds, EdgeSample> edgeSamples;
         
+        /**
+         * @param segmentLimits
+         *            The sample limit for each path segment (read-only).
+         * @param resampled
+         *            The path segments which have been (or are being)
+         *            re-sampled in this round by any task.
+         * @param edgeSamples
+         *            The samples for the path segments. This map MUST be
+         *            thread-safe.
+         */
         public ResamplePathTask(final QueryEngine queryEngine, final Path x,
-                final int limitIn, final Map<PathIds, EdgeSample> edgeSamples) {
+                final Map<PathIds, Integer> segmentLimits,
+                final ConcurrentMap<PathIds, FutureTask<EdgeSample>> resampled,
+                final Map<PathIds, EdgeSample> edgeSamples) {
             this.queryEngine = queryEngine;
             this.x = x;
-            this.limitIn = limitIn;
+            this.segmentLimits = segmentLimits;
+            this.resampled = resampled;
             this.edgeSamples = edgeSamples;
         }
         
         @Override
         public Boolean call() throws Exception {    
-            /*
-             * Get the new sample limit for the path.
-             * 
-             * TODO We only need to increase the sample limit starting at the
-             * vertex where we have a cardinality underflow or variability in
-             * the cardinality estimate. This is increasing the limit in each
-             * round of expansion, which means that we are reading more data
-             * than we really need to read.
-             */
-            final int limit = x.getNewLimit(limitIn);
 
             // The cutoff join sample of the one step shorter path segment.
             EdgeSample priorEdgeSample = null;
@@ -1025,6 +1103,96 @@ public class JGraph {
                 final PathIds ids = new PathIds(BOpUtility.getPredIds(x
                         .getPathSegment(segmentLength)));
 
+                FutureTask<EdgeSample> ft = resampled.get(ids);
+
+                if (ft == null) {
+
+                    final FutureTask<EdgeSample> tmp = new FutureTask<EdgeSample>(
+                            new ResampleSegmentTask(ids, segmentLength,
+                                    priorEdgeSample));
+
+                    ft = resampled.putIfAbsent(ids, tmp);
+
+                    if (ft == null) {
+
+                        // This task will re-sample the path segment.
+                        (ft = tmp).run();
+
+                    }
+
+                }
+
+                try {
+
+                    // Save sample. It will be used to re-sample the next edge.
+                    priorEdgeSample = ft.get();
+
+                } catch (ExecutionException ex) {
+
+                    if (ex.getCause() instanceof Exception)
+                        throw (Exception) ex.getCause();
+
+                    throw ex;
+
+                }
+
+            } // next path prefix in Path [x]
+
+            if (priorEdgeSample == null)
+                throw new AssertionError();
+
+            // Save the result on the path.
+            x.edgeSample = priorEdgeSample;
+
+            final boolean underflow = x.edgeSample.estimateEnum == EstimateEnum.Underflow;
+            if (underflow) {
+                if (log.isDebugEnabled())
+                    log.debug("Cardinality underflow: " + x);
+            }
+
+            // Done.
+            return underflow;
+        }
+
+        /**
+         * Re-sample one path segment of the path (if necessary).
+         */
+        private class ResampleSegmentTask implements Callable<EdgeSample> {
+
+            private final PathIds ids;
+            private final int segmentLength;
+            private final EdgeSample priorEdgeSample;
+
+            /**
+             * @param ids
+             *            The unique key for the join path segment.
+             * @param segmentLength
+             *            The #of vertices in the join path segment.
+             * @param priorEdgeSample
+             *            The cutoff join sample of the one step shorter path
+             *            segment (<code>null</code> for the first edge).
+             */
+            ResampleSegmentTask(final PathIds ids, final int segmentLength,
+                    final EdgeSample priorEdgeSample) {
+                this.ids = ids;
+                this.segmentLength = segmentLength;
+                this.priorEdgeSample = priorEdgeSample;
+            }
+
+            @Override
+            public EdgeSample call() throws Exception {
+
+                /*
+                 * Get the new sample limit for the path segment.
+                 * 
+                 * TODO We only need to increase the sample limit starting at
+                 * the vertex where we have a cardinality underflow or
+                 * variability in the cardinality estimate. This is increasing
+                 * the limit in each round of expansion, which means that we
+                 * are reading more data than we really need to read.
+                 */
+                final int limit = segmentLimits.get(ids);
+
                 // Look for sample for this path in our cache.
                 EdgeSample edgeSample = edgeSamples.get(ids);
 
@@ -1037,108 +1205,74 @@ public class JGraph {
                     edgeSample = null;
                 }
 
+                if (edgeSample != null)
+                    return edgeSample;
+
                 if (priorEdgeSample == null) {
 
                     /*
                      * This is the first edge in the path.
                      * 
-                     * Test our local table of join path segment estimates to
-                     * see if we have already re-sampled that edge. If not, then
-                     * re-sample it now.
+                     * Re-sample the 1st edge in the join path, updating the
+                     * sample on the edge as a side-effect. The cutoff sample
+                     * is based on the vertex sample for the minimum
+                     * cardinality vertex.
                      */
 
                     assert segmentLength == 2;
 
-                    if (edgeSample == null) {
-
-                        /*
-                         * Re-sample the 1st edge in the join path, updating the
-                         * sample on the edge as a side-effect. The cutoff
-                         * sample is based on the vertex sample for the minimum
-                         * cardinality vertex.
-                         */
-
-                        edgeSample = AST2BOpRTO.cutoffJoin(//
-                                queryEngine, //
-                                joinGraph, //
-                                limit,//
-                                x.getPathSegment(2),// 1st edge.
-                                C,// constraints
-                                V.length == 2,// pathIsComplete
-                                x.vertices[0].sample// source sample.
-                                );
-
-                        // Cache the sample.
-                        if (edgeSamples.put(ids, edgeSample) != null)
-                            throw new AssertionError();
-
-                    }
-
-                    // Save sample. It will be used to re-sample the next edge.
-                    priorEdgeSample = edgeSample;
+                    edgeSample = AST2BOpRTO.cutoffJoin(//
+                            queryEngine, //
+                            joinGraph, //
+                            limit,//
+                            x.getPathSegment(2),// 1st edge.
+                            C,// constraints
+                            V.length == 2,// pathIsComplete
+                            x.vertices[0].sample// source sample.
+                            );
 
                 } else {
 
                     /*
                      * The path segment is at least 3 vertices long.
+                     * 
+                     * This is some N-step edge in the path, where N is greater
+                     * than ONE (1). The source vertex is the vertex which
+                     * already appears in the prior edges of this join path.
+                     * The target vertex is the next vertex which is visited by
+                     * the join path. The sample passed in is the prior edge
+                     * sample -- that is, the sample from the path segment
+                     * without the target vertex. This is the sample that we
+                     * just updated when we visited the prior edge of the path.
                      */
-                    assert ids.length() >= 3;
 
-                    if (edgeSample == null) {
-
-                        /*
-                         * This is some N-step edge in the path, where N is
-                         * greater than ONE (1). The source vertex is the vertex
-                         * which already appears in the prior edges of this join
-                         * path. The target vertex is the next vertex which is
-                         * visited by the join path. The sample passed in is the
-                         * prior edge sample -- that is, the sample from the
-                         * path segment without the target vertex. This is the
-                         * sample that we just updated when we visited the prior
-                         * edge of the path.
-                         */
-
-                        edgeSample = AST2BOpRTO.cutoffJoin(//
-                                queryEngine,//
-                                joinGraph,//
-                                limit,//
-                                x.getPathSegment(ids.length()),//
-                                C, // constraints
-                                V.length == ids.length(), // pathIsComplete
-                                priorEdgeSample//
-                                );
-
-                        if (log.isTraceEnabled())
-                            log.trace("Resampled: " + ids + " : " + edgeSample);
-
-                        if (edgeSamples.put(ids, edgeSample) != null)
-                            throw new AssertionError();
+                    assert ids.length() >= 3;
 
-                    }
+                    edgeSample = AST2BOpRTO.cutoffJoin(//
+                            queryEngine,//
+                            joinGraph,//
+                            limit,//
+                            x.getPathSegment(ids.length()),//
+                            C, // constraints
+                            V.length == ids.length(), // pathIsComplete
+                            priorEdgeSample//
+                            );
 
-                    // Save sample. It will be used to re-sample the next edge.
-                    priorEdgeSample = edgeSample;
+                    if (log.isTraceEnabled())
+                        log.trace("Resampled: " + ids + " : " + edgeSample);
 
                 }
 
-            } // next path prefix in Path [x]
+                // Cache the sample.
+                if (edgeSamples.put(ids, edgeSample) != null)
+                    throw new AssertionError();
 
-            if (priorEdgeSample == null)
-                throw new AssertionError();
+                return edgeSample;
 
-            // Save the result on the path.
-            x.edgeSample = priorEdgeSample;
-
-            final boolean underflow = x.edgeSample.estimateEnum == EstimateEnum.Underflow;
-            if (underflow) {
-                if (log.isDebugEnabled())
-                    log.debug("Cardinality underflow: " + x);
             }
 
-            // Done.
-            return underflow;
         }
-        
+
     }
     
     /**
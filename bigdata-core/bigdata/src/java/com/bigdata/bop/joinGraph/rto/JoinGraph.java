@@ -159,6 +159,19 @@ public class JoinGraph extends PipelineOp {
         
         String DEFAULT_SAMPLE_TYPE = SampleType.RANDOM.name();
 
+        /**
+         * The maximum time in milliseconds which the runtime optimizer will
+         * spend sampling the join graph (default
+         * {@value #DEFAULT_MAX_SAMPLING_TIME}). Once this time has elapsed, the
+         * runtime optimizer no longer re-samples paths having a cardinality
+         * estimate underflow and completes the join path by greedily extending
+         * the best path found so far. ZERO (0) means no limit.
+         */
+        String MAX_SAMPLING_TIME = JoinGraph.class.getName()
+                + ".maxSamplingTime";
+
+        long DEFAULT_MAX_SAMPLING_TIME = 0L;
+
         /**
          * The set of variables that are known to have already been materialized
          * in the context in which the RTO was invoked.
@@ -271,6 +284,16 @@ public class JoinGraph extends PipelineOp {
 	    
 	}
 
+	/**
+	 * @see Annotations#MAX_SAMPLING_TIME
+	 */
+	public long getMaxSamplingTime() {
+
+		return getProperty(Annotations.MAX_SAMPLING_TIME,
+				Annotations.DEFAULT_MAX_SAMPLING_TIME);
+
+	}
+
     /**
      * Return the set of variables that are known to have already been
      * materialized at the point in the overall query plan where the RTO is
@@ -391,6 +414,9 @@ public class JoinGraph extends PipelineOp {
         if (getNEdges() <= 0)
             throw new IllegalArgumentException(Annotations.NEDGES);
 
+        if (getMaxSamplingTime() < 0)
+            throw new IllegalArgumentException(Annotations.MAX_SAMPLING_TIME);
+
         /*
          * TODO Check DONE_SET, NT, JOIN_NODES. These annotations are required
          * for the new code path. We should check for their presence. However,
@@ -27,6 +27,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.log4j.Logger;
 
@@ -41,8 +42,12 @@ import com.bigdata.bop.ap.SampleIndex;
 import com.bigdata.bop.ap.SampleIndex.SampleType;
 import com.bigdata.bop.bindingSet.ListBindingSet;
 import com.bigdata.bop.engine.QueryEngine;
+import com.bigdata.btree.BTree;
+import com.bigdata.btree.IIndex;
+import com.bigdata.cache.ConcurrentWeakValueCacheWithTimeout;
 import com.bigdata.htree.HTree;
 import com.bigdata.relation.IRelation;
+import com.bigdata.relation.accesspath.AccessPath;
 import com.bigdata.relation.accesspath.IAccessPath;
 import com.bigdata.relation.accesspath.IBindingSetAccessPath;
 import com.bigdata.striterator.IChunkedIterator;
@@ -111,7 +116,8 @@ public class Vertex implements Serializable {
      * Take a sample of the vertex, updating {@link #sample} as a side-effect.
      * If the sample is already exact, then this is a NOP. If the vertex was
      * already sampled to that limit, then this is a NOP (you have to raise the
-     * limit to re-sample the vertex).
+     * limit to re-sample the vertex). A sample taken by another query against
+     * the same read-only view of the index is reused when possible.
      * 
      * @param limit
      *            The sample cutoff.
@@ -192,6 +198,30 @@ public class Vertex implements Serializable {
 
         final IAccessPath ap = context.getAccessPath(r, pred);
 
+        /*
+         * Reuse a sample taken by another query against the same immutable
+         * view of the index.
+         */
+        final String cacheKey = getSampleCacheKey(ap, limit, sampleType);
+
+        if (cacheKey != null) {
+
+            final VertexSample cachedSample = sampleCache.get(cacheKey);
+
+            if (cachedSample != null) {
+
+                sample = cachedSample;
+
+                if (log.isTraceEnabled())
+                    log.trace("Reused: id=" + pred.getId() + ", sample="
+                            + sample);
+
+                return;
+
+            }
+
+        }
+
         final long rangeCount = oldSample == null ? ap
                 .rangeCount(false/* exact */) : oldSample.estCard;
 
@@ -246,6 +276,12 @@ public class Vertex implements Serializable {
 
         }
 
+        if (cacheKey != null) {
+
+            sampleCache.put(cacheKey, sample);
+
+        }
+
         if (log.isTraceEnabled())
             log.trace("Sampled: id=" + pred.getId() + ", sample=" + sample);
 
@@ -253,6 +289,59 @@ public class Vertex implements Serializable {
 
     }
 
+    /**
+     * Recently taken samples. The key identifies the index checkpoint, the
+     * predicate, the limit and the type of sample. Since the view of the index
+     * is immutable, the sample may be reused by any query which samples the
+     * same predicate against that view (e.g., the same query run again against
+     * the same commit point).
+     */
+    private static final ConcurrentWeakValueCacheWithTimeout<String, VertexSample> sampleCache = new ConcurrentWeakValueCacheWithTimeout<String, VertexSample>(
+            100/* queueCapacity */, TimeUnit.MINUTES.toNanos(1));
+
+    /**
+     * Return the key under which a sample of the access path may be shared
+     * with other queries -or- <code>null</code> if the sample may not be
+     * shared. A sample is only shared for a read-only {@link BTree} view and a
+     * predicate without filters, an expander, a key range or a cutoff limit.
+     */
+    private String getSampleCacheKey(final IAccessPath<?> ap,
+            final int limit, final SampleType sampleType) {
+
+        if (!(ap instanceof AccessPath))
+            return null;
+
+        if (pred.getProperty(IPredicate.Annotations.INDEX_LOCAL_FILTER) != null
+                || pred.getProperty(IPredicate.Annotations.ACCESS_PATH_FILTER) != null
+                || pred.getProperty(IPredicate.Annotations.ACCESS_PATH_EXPANDER) != null
+                || pred.getProperty(IPredicate.Annotations.RANGE) != null
+                || pred.getProperty(IPredicate.Annotations.CUTOFF_LIMIT) != null)
+            return null;
+
+        final IIndex ndx = ap.getIndex();
+
+        if (!(ndx instanceof BTree) || !((BTree) ndx).isReadOnly())
+            return null;
+
+        final StringBuilder sb = new StringBuilder();
+
+        sb.append(ndx.getIndexMetadata().getIndexUUID());
+        sb.append('@');
+        sb.append(((BTree) ndx).getCheckpoint().getCheckpointAddr());
+        sb.append(',').append(sampleType);
+        sb.append(',').append(limit);
+        sb.append(',').append(pred.getProperty(IPredicate.Annotations.FLAGS));
+
+        for (int i = 0; i < pred.arity(); i++) {
+
+            sb.append(',').append(pred.get(i));
+
+        }
+
+        return sb.toString();
+
+    }
+
     /**
      * Convert the source sample into an IBindingSet[].
      * 
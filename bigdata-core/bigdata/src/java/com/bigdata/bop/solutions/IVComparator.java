@@ -46,6 +46,7 @@ import org.openrdf.query.algebra.evaluation.util.ValueComparator;
 
 import com.bigdata.rdf.internal.IV;
 import com.bigdata.rdf.internal.impl.bnode.SidIV;
+import com.bigdata.rdf.internal.impl.literal.InlineDictionaryCodeIV;
 import com.bigdata.rdf.internal.impl.literal.LiteralExtensionIV;
 import com.bigdata.rdf.model.BigdataLiteral;
 
@@ -178,6 +179,9 @@ public class IVComparator implements Comparator<IV>, Serializable {
 		/*
 		 * Only thing we need to special case are LiteralExtensionIVs, which
 		 * are used to model xsd:dateTime.
+		 * 
+		 * Note: The codes of an InlineLiteralDictionary are assigned by
+		 * frequency, so they are compared using their materialized values.
 		 */
     	if (left instanceof LiteralExtensionIV &&
     			right instanceof LiteralExtensionIV) {
@@ -188,7 +192,10 @@ public class IVComparator implements Comparator<IV>, Serializable {
     	    @SuppressWarnings("rawtypes")
     		final IV rightDatatype = ((LiteralExtensionIV) right).getExtensionIV();
     		
-    		if (leftDatatype.equals(rightDatatype)) {
+    		final boolean ordered = !(((LiteralExtensionIV) left)
+    		        .getDelegate() instanceof InlineDictionaryCodeIV);
+    		
+    		if (ordered && leftDatatype.equals(rightDatatype)) {
     		
     			return left.compareTo(right);
     			
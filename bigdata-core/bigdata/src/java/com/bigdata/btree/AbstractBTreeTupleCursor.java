@@ -34,6 +34,7 @@ import org.apache.log4j.Logger;
 
 import com.bigdata.btree.Leaf.ILeafListener;
 import com.bigdata.btree.isolation.IsolatedFusedView;
+import com.bigdata.btree.raba.IRaba;
 import com.bigdata.btree.view.FusedView;
 import com.bigdata.io.DataOutputBuffer;
 import com.bigdata.mdi.LocalPartitionMetadata;
@@ -741,13 +742,51 @@ abstract public class AbstractBTreeTupleCursor<I extends AbstractBTree, L extend
 //        nextPosition = priorPosition = null;
 
         // new position is that key.
-        currentPosition = newPosition(key);
+        currentPosition = seekPosition(key);
 
         // Copy the data into [tuple].
         return currentPosition.get(tuple);
         
     }
 
+    /**
+     * Return a new {@link ICursorPosition} for a {@link #seek(byte[])} to the
+     * given <i>key</i>. If the B+Tree is read-only and the <i>key</i> lies
+     * strictly inside of the keys of the current leaf, then that leaf is
+     * reused rather than descending from the root of the B+Tree. This makes a
+     * sequence of seeks to ordered keys (such as the probes made by a join for
+     * a sorted chunk of solutions) much cheaper when several of those keys
+     * fall into the same leaf.
+     */
+    private AbstractCursorPosition<L, E> seekPosition(final byte[] key) {
+
+        final AbstractCursorPosition<L, E> p = currentPosition;
+
+        if (p != null && btree.isReadOnly() && rangeCheck(key)) {
+
+            final ILeafCursor<L> leafCursor = p.leafCursor;
+
+            final IRaba keys = leafCursor.leaf().getKeys();
+
+            final int index = keys.search(key);
+
+            if (index >= 0 || (-index - 1 > 0 && -index - 1 < keys.size())) {
+
+                /*
+                 * The key is spanned by the current leaf. The current
+                 * position is discarded, so its leaf cursor may be reused.
+                 */
+
+                return newPosition(leafCursor, index, key);
+
+            }
+
+        }
+
+        return newPosition(key);
+
+    }
+
 //    /**
 //     * Scan to the next cursor position having a visitable tuple.
 //     * 
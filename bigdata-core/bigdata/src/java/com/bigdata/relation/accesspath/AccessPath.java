@@ -29,6 +29,7 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 package com.bigdata.relation.accesspath;
 
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.FutureTask;
@@ -53,6 +54,8 @@ import com.bigdata.btree.IBloomFilter;
 import com.bigdata.btree.IIndex;
 import com.bigdata.btree.ILocalBTreeView;
 import com.bigdata.btree.IRangeQuery;
+import com.bigdata.btree.ITuple;
+import com.bigdata.btree.ITupleCursor;
 import com.bigdata.btree.ITupleIterator;
 import com.bigdata.btree.IndexSegment;
 import com.bigdata.btree.Tuple;
@@ -1098,6 +1101,115 @@ public class AccessPath<R> implements IAccessPath<R>, IBindingSetAccessPath<R> {
 
     }
 
+    /**
+     * Return a new {@link ITupleCursor} over the index for this access path
+     * -or- <code>null</code> if the index is not local. The cursor is not
+     * constrained to the key-range of this access path. It may be shared by
+     * access paths reading on the same index using
+     * {@link #iterator(ITupleCursor)}.
+     */
+    @SuppressWarnings("unchecked")
+    public ITupleCursor<R> newCursor() {
+
+        assertInitialized();
+
+        if (!(ndx instanceof ILocalBTreeView))
+            return null;
+
+        final ITupleIterator<R> itr = ndx.rangeIterator(null/* fromKey */,
+                null/* toKey */, 0/* capacity */, IRangeQuery.KEYS
+                        | IRangeQuery.VALS | IRangeQuery.CURSOR, null/* filter */);
+
+        return itr instanceof ITupleCursor ? (ITupleCursor<R>) itr : null;
+
+    }
+
+    /**
+     * Fully buffered read of the elements of this access path using a cursor
+     * obtained from {@link #newCursor()} for the same index. The cursor is
+     * positioned using {@link ITupleCursor#seek(byte[])} on the
+     * <i>fromKey</i> of this access path. When the access paths for a chunk of
+     * solutions are read through the same cursor in the order of their
+     * <i>fromKey</i>s, the index is read in a single forward pass and the
+     * lookups which fall into the same leaf do not descend from the root of
+     * the index again.
+     * 
+     * @param cursor
+     *            The cursor.
+     * 
+     * @return The iterator -or- <code>null</code> if this access path can not
+     *         be read using the cursor, in which case the caller should use
+     *         {@link #iterator()}. This is the case if the cursor is for
+     *         another index, if the access path has a filter, or if its range
+     *         count is not below the fully buffered read threshold.
+     */
+    public IChunkedOrderedIterator<R> iterator(final ITupleCursor<R> cursor) {
+
+        assertInitialized();
+
+        if (cursor.getIndex() != ndx)
+            return null;
+
+        if (indexLocalFilter != null || accessPathFilter != null)
+            return null;
+
+        final long rangeCount = rangeCount(false/* exact */);
+
+        if (rangeCount >= fullyBufferedReadThreshold)
+            return null;
+
+        if (rangeCount <= 0L) {
+
+            // Proven empty by the range count.
+            return new EmptyChunkedIterator<R>(keyOrder);
+
+        }
+
+        final ITuple<R> first = cursor.seek(fromKey == null ? BytesUtil.EMPTY
+                : fromKey);
+
+        final Iterator<R> src = new Iterator<R>() {
+
+            private ITuple<R> t = first != null ? first
+                    : (cursor.hasNext() ? cursor.next() : null);
+
+            @Override
+            public boolean hasNext() {
+
+                return t != null
+                        && (toKey == null || BytesUtil.compareBytes(
+                                t.getKey(), toKey) < 0);
+
+            }
+
+            @Override
+            public R next() {
+
+                if (!hasNext())
+                    throw new NoSuchElementException();
+
+                final R e = t.getObject();
+
+                t = cursor.hasNext() ? cursor.next() : null;
+
+                return e;
+
+            }
+
+            @Override
+            public void remove() {
+
+                throw new UnsupportedOperationException();
+
+            }
+
+        };
+
+        return synchronousIterator(0L/* offset */, isFullyBoundForKey ? 1L
+                : rangeCount, src);
+
+    }
+
     /**
      * Fully buffers all elements that would be visited by the
      * {@link IAccessPath} iterator.
@@ -0,0 +1,122 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+package com.bigdata.search;
+
+/**
+ * Okapi BM25 scoring for a query token.
+ * <p>
+ * The full text index does not store the raw term frequency or the length of
+ * each document. Instead, it stores the term frequency normalized by the
+ * magnitude of the term frequency vector of the document, which is already a
+ * document length normalized term frequency in <code>(0:1]</code>. That value
+ * is used for the BM25 term frequency component, so the <code>b</code>
+ * parameter does not apply and the score for a token is:
+ * 
+ * <pre>
+ * idf * qtf * w * (k1 + 1) / (w + k1)
+ * </pre>
+ * 
+ * where <code>w</code> is the normalized term frequency in the document,
+ * <code>qtf</code> is the frequency of the token in the query and
+ * 
+ * <pre>
+ * idf = ln(1 + (N - df + 0.5) / (df + 0.5))
+ * </pre>
+ * 
+ * Since <code>w &lt;= 1</code>, the term frequency component is at most ONE
+ * (1), so the scores are divided by the sum of <code>idf * qtf</code> over the
+ * query tokens. This places the relevance in <code>[0:1]</code> so it may be
+ * used with the same min/max relevance constraints as the cosine.
+ * 
+ * @see RelevanceModelEnum#BM25
+ */
+public class BM25TermScorer implements ITermScorer {
+
+    private final double k1;
+
+    /**
+     * <code>idf * qtf / norm</code>
+     */
+    private final double weight;
+
+    /**
+     * @param k1
+     *            The BM25 term frequency saturation parameter.
+     * @param idf
+     *            The inverse document frequency of the token.
+     * @param queryTermFreq
+     *            The frequency of the token in the query.
+     * @param norm
+     *            The sum of <code>idf * qtf</code> over all query tokens.
+     */
+    public BM25TermScorer(final double k1, final double idf,
+            final int queryTermFreq, final double norm) {
+
+        if (k1 < 0d)
+            throw new IllegalArgumentException();
+
+        if (norm <= 0d)
+            throw new IllegalArgumentException();
+
+        this.k1 = k1;
+
+        this.weight = idf * queryTermFreq / norm;
+
+    }
+
+    /**
+     * The BM25 inverse document frequency.
+     * 
+     * @param ndocs
+     *            The #of documents (or an estimate of that value).
+     * @param docFreq
+     *            The #of documents in which the token appears.
+     */
+    public static double idf(final long ndocs, final long docFreq) {
+
+        final long n = Math.max(ndocs, docFreq);
+
+        return Math.log(1d + (n - docFreq + .5d) / (docFreq + .5d));
+
+    }
+
+    @Override
+    public double score(final double localTermWeight) {
+
+        return weight * localTermWeight * (k1 + 1d) / (localTermWeight + k1);
+
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getSimpleName() + "{k1=" + k1 + ",weight=" + weight
+                + "}";
+
+    }
+
+}
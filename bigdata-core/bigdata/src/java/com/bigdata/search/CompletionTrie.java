@@ -0,0 +1,650 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+package com.bigdata.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+
+/**
+ * An immutable, memory compact dictionary of tokens and their weights which
+ * answers top-k completion requests for a prefix.
+ * <p>
+ * The tokens are kept in code point order using front coding: the tokens are
+ * grouped into buckets of {@link #BUCKET_SIZE}, the first token of each bucket
+ * is stored in full and each other token is stored as the length of the
+ * prefix which it shares with its predecessor plus the remaining characters.
+ * This is the sorted array form of a compacted trie: all tokens having a given
+ * prefix form a contiguous range which is located by a binary search over the
+ * bucket heads. A max tree over the weights then reports the k heaviest tokens
+ * in that range in <code>O(k log n)</code> without visiting the rest of the
+ * range.
+ * <p>
+ * Instances are immutable and may be shared by concurrent readers. Changes are
+ * applied with {@link #merge(SortedMap)}, which produces a new instance in a
+ * single ordered pass over the old instance and the changes.
+ * 
+ * @see FullTextIndex#complete(String, String, int)
+ */
+public class CompletionTrie {
+
+    /**
+     * The #of tokens in each front coded bucket.
+     */
+    static final int BUCKET_SIZE = 16;
+
+    /**
+     * An empty instance.
+     */
+    public static final CompletionTrie EMPTY = new Builder(0).build();
+
+    /**
+     * The #of tokens.
+     */
+    private final int size;
+
+    /**
+     * The stored characters of each token (the suffix following the shared
+     * prefix, or the entire token for the first token in a bucket).
+     */
+    private final char[] chars;
+
+    /**
+     * The offset into {@link #chars} of the stored characters for each token,
+     * with an extra entry marking the end of the last token.
+     */
+    private final int[] offsets;
+
+    /**
+     * The length of the prefix shared with the previous token in the same
+     * bucket (zero for the first token in a bucket).
+     */
+    private final char[] shared;
+
+    /**
+     * The weight of each token.
+     */
+    private final long[] weights;
+
+    /**
+     * The max tree over {@link #weights}. The leaves are at
+     * <code>[size:2*size)</code> and each internal node holds the index of the
+     * token having the greatest weight in its subtree.
+     */
+    private final int[] tree;
+
+    private CompletionTrie(final int size, final char[] chars,
+            final int[] offsets, final char[] shared, final long[] weights) {
+
+        this.size = size;
+        this.chars = chars;
+        this.offsets = offsets;
+        this.shared = shared;
+        this.weights = weights;
+
+        this.tree = new int[2 * size];
+
+        for (int i = 0; i < size; i++) {
+
+            tree[size + i] = i;
+
+        }
+
+        for (int i = size - 1; i > 0; i--) {
+
+            tree[i] = heavier(tree[2 * i], tree[2 * i + 1]);
+
+        }
+
+    }
+
+    /**
+     * The #of tokens.
+     */
+    public int size() {
+
+        return size;
+
+    }
+
+    /**
+     * Return the token at the given index (tokens are in code point order).
+     */
+    public String getToken(final int index) {
+
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException();
+
+        final StringBuilder sb = new StringBuilder();
+
+        for (int i = index - index % BUCKET_SIZE; i <= index; i++) {
+
+            decode(i, sb);
+
+        }
+
+        return sb.toString();
+
+    }
+
+    /**
+     * Return the weight of the token at the given index.
+     */
+    public long getWeight(final int index) {
+
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException();
+
+        return weights[index];
+
+    }
+
+    /**
+     * Return the tokens having the given prefix with the greatest weight in
+     * order of decreasing weight. Tokens having the same weight are reported
+     * in code point order.
+     * 
+     * @param prefix
+     *            The prefix (the empty string matches all tokens).
+     * @param k
+     *            The maximum #of completions to report.
+     */
+    public List<Completion> complete(final String prefix, final int k) {
+
+        if (prefix == null)
+            throw new IllegalArgumentException();
+
+        if (k <= 0)
+            throw new IllegalArgumentException();
+
+        final int lo = lowerBound(prefix);
+
+        final String successor = successor(prefix);
+
+        final int hi = successor == null ? size : lowerBound(successor);
+
+        if (lo >= hi)
+            return Collections.emptyList();
+
+        final List<Completion> a = new ArrayList<Completion>(Math.min(k, hi
+                - lo));
+
+        /*
+         * Each range in the queue is labeled with its heaviest token. Taking
+         * a token splits its range into the ranges on either side of it.
+         */
+        final PriorityQueue<Range> queue = new PriorityQueue<Range>();
+
+        queue.add(new Range(lo, hi, argmax(lo, hi)));
+
+        while (a.size() < k && !queue.isEmpty()) {
+
+            final Range r = queue.poll();
+
+            a.add(new Completion(getToken(r.best), weights[r.best]));
+
+            if (r.lo < r.best)
+                queue.add(new Range(r.lo, r.best, argmax(r.lo, r.best)));
+
+            if (r.best + 1 < r.hi)
+                queue.add(new Range(r.best + 1, r.hi, argmax(r.best + 1, r.hi)));
+
+        }
+
+        return a;
+
+    }
+
+    /**
+     * Return a new instance reflecting the given changes.
+     * 
+     * @param changes
+     *            The new weight for each changed token. A token whose weight
+     *            is not positive is removed.
+     */
+    public CompletionTrie merge(final SortedMap<String, Long> changes) {
+
+        if (changes.isEmpty())
+            return this;
+
+        final Builder b = new Builder(size + changes.size());
+
+        final TokenIterator itr = new TokenIterator();
+
+        final Iterator<Map.Entry<String, Long>> citr = changes.entrySet()
+                .iterator();
+
+        String token = itr.hasNext() ? itr.next() : null;
+
+        Map.Entry<String, Long> change = citr.hasNext() ? citr.next() : null;
+
+        while (token != null || change != null) {
+
+            final int cmp = token == null ? 1 : change == null ? -1 : token
+                    .compareTo(change.getKey());
+
+            if (cmp < 0) {
+
+                // unchanged.
+                b.add(token, weights[itr.index()]);
+
+                token = itr.hasNext() ? itr.next() : null;
+
+            } else {
+
+                // new or changed.
+                if (change.getValue() > 0)
+                    b.add(change.getKey(), change.getValue());
+
+                if (cmp == 0)
+                    token = itr.hasNext() ? itr.next() : null;
+
+                change = citr.hasNext() ? citr.next() : null;
+
+            }
+
+        }
+
+        return b.build();
+
+    }
+
+    /**
+     * Return a new instance for the given tokens.
+     * 
+     * @param tokens
+     *            The weight for each token. Tokens whose weight is not
+     *            positive are ignored.
+     */
+    public static CompletionTrie build(final SortedMap<String, Long> tokens) {
+
+        return EMPTY.merge(tokens);
+
+    }
+
+    /**
+     * Decode the token at index <i>i</i> given its predecessor in the
+     * buffer.
+     */
+    private void decode(final int i, final StringBuilder sb) {
+
+        sb.setLength(shared[i]);
+
+        sb.append(chars, offsets[i], offsets[i + 1] - offsets[i]);
+
+    }
+
+    /**
+     * Return the index of the first token GTE the key.
+     */
+    private int lowerBound(final String key) {
+
+        // the first bucket whose head is GT the key.
+        int lo = 0, hi = (size + BUCKET_SIZE - 1) / BUCKET_SIZE;
+
+        while (lo < hi) {
+
+            final int mid = (lo + hi) >>> 1;
+
+            if (compareHead(mid, key) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+
+        }
+
+        if (lo == 0) {
+
+            // the key is LT the first token.
+            return 0;
+
+        }
+
+        // scan the previous bucket.
+        final int start = (lo - 1) * BUCKET_SIZE;
+
+        final int end = Math.min(size, start + BUCKET_SIZE);
+
+        final StringBuilder sb = new StringBuilder();
+
+        for (int i = start; i < end; i++) {
+
+            decode(i, sb);
+
+            if (compare(sb, key) >= 0)
+                return i;
+
+        }
+
+        return end;
+
+    }
+
+    /**
+     * Compare the head of the bucket with the key.
+     */
+    private int compareHead(final int bucket, final String key) {
+
+        final int i = bucket * BUCKET_SIZE;
+
+        final int off = offsets[i];
+
+        final int len = offsets[i + 1] - off;
+
+        final int n = Math.min(len, key.length());
+
+        for (int j = 0; j < n; j++) {
+
+            final int d = chars[off + j] - key.charAt(j);
+
+            if (d != 0)
+                return d;
+
+        }
+
+        return len - key.length();
+
+    }
+
+    private static int compare(final CharSequence a, final String b) {
+
+        final int n = Math.min(a.length(), b.length());
+
+        for (int j = 0; j < n; j++) {
+
+            final int d = a.charAt(j) - b.charAt(j);
+
+            if (d != 0)
+                return d;
+
+        }
+
+        return a.length() - b.length();
+
+    }
+
+    /**
+     * Return the least string GT all strings having the given prefix -or-
+     * <code>null</code> if there is no such string.
+     */
+    static String successor(final String prefix) {
+
+        final StringBuilder sb = new StringBuilder(prefix);
+
+        while (sb.length() > 0) {
+
+            final int last = sb.length() - 1;
+
+            final char c = sb.charAt(last);
+
+            if (c != Character.MAX_VALUE) {
+
+                sb.setCharAt(last, (char) (c + 1));
+
+                return sb.toString();
+
+            }
+
+            sb.setLength(last);
+
+        }
+
+        return null;
+
+    }
+
+    /**
+     * Return the index of the heaviest token in <code>[lo:hi)</code>.
+     */
+    private int argmax(int lo, int hi) {
+
+        int best = lo;
+
+        for (lo += size, hi += size; lo < hi; lo >>= 1, hi >>= 1) {
+
+            if ((lo & 1) == 1)
+                best = heavier(best, tree[lo++]);
+
+            if ((hi & 1) == 1)
+                best = heavier(best, tree[--hi]);
+
+        }
+
+        return best;
+
+    }
+
+    /**
+     * Return the index of the heavier token, breaking ties in favor of the
+     * first token.
+     */
+    private int heavier(final int i, final int j) {
+
+        if (weights[i] != weights[j])
+            return weights[i] > weights[j] ? i : j;
+
+        return Math.min(i, j);
+
+    }
+
+    /**
+     * A range of tokens labeled with its heaviest token.
+     */
+    private class Range implements Comparable<Range> {
+
+        final int lo, hi, best;
+
+        Range(final int lo, final int hi, final int best) {
+            this.lo = lo;
+            this.hi = hi;
+            this.best = best;
+        }
+
+        @Override
+        public int compareTo(final Range o) {
+
+            if (weights[best] != weights[o.best])
+                return weights[best] > weights[o.best] ? -1 : 1;
+
+            return best < o.best ? -1 : best > o.best ? 1 : 0;
+
+        }
+
+    }
+
+    /**
+     * Visits the tokens in order, decoding each bucket once.
+     */
+    private class TokenIterator implements Iterator<String> {
+
+        private final StringBuilder sb = new StringBuilder();
+
+        private int next = 0;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            decode(next++, sb);
+            return sb.toString();
+        }
+
+        /**
+         * The index of the last visited token.
+         */
+        int index() {
+            return next - 1;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+    /**
+     * Builds an instance from tokens presented in code point order.
+     */
+    static class Builder {
+
+        private int size = 0;
+
+        private char[] chars;
+
+        private int[] offsets;
+
+        private char[] shared;
+
+        private long[] weights;
+
+        private String last = null;
+
+        Builder(final int capacity) {
+
+            chars = new char[Math.max(16, capacity * 4)];
+            offsets = new int[capacity + 1];
+            shared = new char[capacity];
+            weights = new long[capacity];
+
+        }
+
+        void add(final String token, final long weight) {
+
+            if (last != null && last.compareTo(token) >= 0)
+                throw new IllegalArgumentException("Out of order: " + token);
+
+            if (size == weights.length) {
+
+                final int n = Math.max(16, size * 2);
+                offsets = Arrays.copyOf(offsets, n + 1);
+                shared = Arrays.copyOf(shared, n);
+                weights = Arrays.copyOf(weights, n);
+
+            }
+
+            int common = 0;
+
+            if (size % BUCKET_SIZE != 0) {
+
+                final int n = Math.min(Math.min(last.length(), token.length()),
+                        Character.MAX_VALUE);
+
+                while (common < n && last.charAt(common) == token.charAt(common))
+                    common++;
+
+            }
+
+            final int len = token.length() - common;
+
+            final int off = offsets[size];
+
+            if (off + len > chars.length)
+                chars = Arrays.copyOf(chars, Math.max(off + len,
+                        chars.length * 2));
+
+            token.getChars(common, token.length(), chars, off);
+
+            shared[size] = (char) common;
+            weights[size] = weight;
+            offsets[size + 1] = off + len;
+
+            size++;
+
+            last = token;
+
+        }
+
+        CompletionTrie build() {
+
+            final int n = offsets[size];
+
+            return new CompletionTrie(size, Arrays.copyOf(chars, n),
+                    Arrays.copyOf(offsets, size + 1),
+                    Arrays.copyOf(shared, size),
+                    Arrays.copyOf(weights, size));
+
+        }
+
+    }
+
+    /**
+     * A completion for a prefix.
+     */
+    public static class Completion {
+
+        private final String token;
+
+        private final long weight;
+
+        Completion(final String token, final long weight) {
+            this.token = token;
+            this.weight = weight;
+        }
+
+        /**
+         * The token.
+         */
+        public String getToken() {
+            return token;
+        }
+
+        /**
+         * The weight of the token.
+         */
+        public long getWeight() {
+            return weight;
+        }
+
+        @Override
+        public String toString() {
+            return token + "=" + weight;
+        }
+
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getSimpleName() + "{size=" + size + ", chars="
+                + chars.length + "}";
+
+    }
+
+}
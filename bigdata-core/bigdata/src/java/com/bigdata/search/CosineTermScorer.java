@@ -0,0 +1,64 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+package com.bigdata.search;
+
+/**
+ * The contribution of a posting to the cosine between the query and the
+ * document is the product of the query and document term weights.
+ * 
+ * @see RelevanceModelEnum#Cosine
+ */
+public class CosineTermScorer implements ITermScorer {
+
+    private final double queryTermWeight;
+
+    /**
+     * @param queryTermWeight
+     *            The normalized weight of the token in the query.
+     */
+    public CosineTermScorer(final double queryTermWeight) {
+
+        this.queryTermWeight = queryTermWeight;
+
+    }
+
+    @Override
+    public double score(final double localTermWeight) {
+
+        return queryTermWeight * localTermWeight;
+
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getSimpleName() + "{queryTermWeight="
+                + queryTermWeight + "}";
+
+    }
+
+}
@@ -34,12 +34,15 @@ import java.io.StringReader;
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
@@ -51,20 +54,31 @@ import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.core.LowerCaseFilter;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
 
 import com.bigdata.bop.IBindingSet;
 import com.bigdata.bop.IPredicate;
+import com.bigdata.btree.BTree;
 import com.bigdata.btree.DefaultTupleSerializer;
 import com.bigdata.btree.IIndex;
+import com.bigdata.btree.IRangeQuery;
+import com.bigdata.btree.ITuple;
+import com.bigdata.btree.ITupleIterator;
 import com.bigdata.btree.IndexMetadata;
 import com.bigdata.btree.IndexTypeEnum;
+import com.bigdata.btree.filter.TupleFilter;
 import com.bigdata.btree.keys.DefaultKeyBuilderFactory;
 import com.bigdata.btree.keys.IKeyBuilder;
 import com.bigdata.btree.keys.IKeyBuilderFactory;
+import com.bigdata.btree.keys.KV;
 import com.bigdata.btree.keys.KeyBuilder;
 import com.bigdata.btree.keys.StrengthEnum;
 import com.bigdata.btree.raba.codec.EmptyRabaValueCoder;
+import com.bigdata.btree.proc.BatchInsert.BatchInsertConstructor;
+import com.bigdata.btree.raba.codec.SimpleRabaCoder;
 import com.bigdata.cache.ConcurrentWeakValueCacheWithTimeout;
+import com.bigdata.io.DataInputBuffer;
+import com.bigdata.io.DataOutputBuffer;
 import com.bigdata.journal.IIndexManager;
 import com.bigdata.journal.IResourceLock;
 import com.bigdata.journal.ITx;
@@ -74,6 +88,7 @@ import com.bigdata.relation.AbstractRelation;
 import com.bigdata.relation.locator.DefaultResourceLocator;
 import com.bigdata.striterator.IChunkedOrderedIterator;
 import com.bigdata.striterator.IKeyOrder;
+import com.bigdata.util.BytesUtil;
 import com.bigdata.util.concurrent.ExecutionHelper;
 
 /**
@@ -381,6 +396,78 @@ public class FullTextIndex<V extends Comparable<V>> extends AbstractRelation {
         String DEFAULT_HIT_CACHE_TIMEOUT_MILLIS =
                String.valueOf(TimeUnit.MINUTES.toMillis(1));
         
+        /**
+         * The model used to compute the relevance of a hit (default
+         * {@value #DEFAULT_RELEVANCE_MODEL}).
+         * <p>
+         * Note: {@link RelevanceModelEnum#BM25} is an approximation of BM25.
+         * The index does not maintain the #of documents, so the #of postings
+         * in the index is used for that value in the inverse document
+         * frequency.
+         * 
+         * @see RelevanceModelEnum
+         */
+        String RELEVANCE_MODEL = FullTextIndex.class.getName()
+                + ".relevanceModel";
+
+        String DEFAULT_RELEVANCE_MODEL = RelevanceModelEnum.Cosine.toString();
+
+        /**
+         * The term frequency saturation parameter for
+         * {@link RelevanceModelEnum#BM25} (default {@value #DEFAULT_BM25_K1}).
+         */
+        String BM25_K1 = FullTextIndex.class.getName() + ".bm25.k1";
+
+        String DEFAULT_BM25_K1 = "1.2";
+
+        /**
+         * When <code>true</code>, a query which only needs the top N hits
+         * (that is, a query with a maxRank and without prefix match, match
+         * all terms, match exact or a regex) is evaluated by the
+         * {@link TopKEvaluator}, which only reads as many postings for each
+         * token as are required to identify those hits (default
+         * {@value #DEFAULT_TOP_K_EVALUATION}).
+         */
+        String TOP_K_EVALUATION = FullTextIndex.class.getName()
+                + ".topKEvaluation";
+
+        String DEFAULT_TOP_K_EVALUATION = "true";
+
+        /**
+         * When <code>true</code>, the positions of each token within a field
+         * are stored in the value of the tuples in the full text index
+         * (default {@value #DEFAULT_POSITIONS_ENABLED}). This makes it
+         * possible to answer phrase and proximity queries from the index
+         * rather than by materializing and scanning the text of each hit.
+         * <p>
+         * Note: This option is fixed when the index is created. Documents
+         * indexed without positions will not match phrase or proximity
+         * queries.
+         * 
+         * @see FullTextQuery#isMatchPhrase()
+         * @see FullTextQuery#getProximity()
+         */
+        String POSITIONS_ENABLED = FullTextIndex.class.getName()
+                + ".positionsEnabled";
+
+        String DEFAULT_POSITIONS_ENABLED = "false";
+
+        /**
+         * When <code>true</code>, a completion index is maintained alongside
+         * the full text index (default {@value #DEFAULT_COMPLETION_INDEX}).
+         * The completion index records each distinct token together with the
+         * #of postings for that token and is used to answer prefix completion
+         * requests from an in-memory {@link CompletionTrie}.
+         * <p>
+         * Note: This option is fixed when the index is created.
+         * 
+         * @see FullTextIndex#complete(String, String, int)
+         */
+        String COMPLETION_INDEX = FullTextIndex.class.getName()
+                + ".completionIndex";
+
+        String DEFAULT_COMPLETION_INDEX = "false";
+
     }
     
     /**
@@ -442,6 +529,61 @@ public class FullTextIndex<V extends Comparable<V>> extends AbstractRelation {
      */
     private final ConcurrentWeakValueCacheWithTimeout<FullTextQuery, Hit<V>[]> cache;
 
+    /**
+     * @see Options#RELEVANCE_MODEL
+     */
+    private final RelevanceModelEnum relevanceModel;
+
+    /**
+     * @see Options#BM25_K1
+     */
+    private final double bm25K1;
+
+    /**
+     * @see Options#TOP_K_EVALUATION
+     */
+    private final boolean topKEvaluation;
+
+    /**
+     * @see Options#POSITIONS_ENABLED
+     */
+    private final boolean positionsEnabled;
+
+    /**
+     * Return the value configured by the {@link Options#POSITIONS_ENABLED}
+     * property.
+     */
+    public boolean isPositionsEnabled() {
+
+        return positionsEnabled;
+
+    }
+
+    /**
+     * @see Options#COMPLETION_INDEX
+     */
+    private final boolean completionIndexEnabled;
+
+    /**
+     * Return the value configured by the {@link Options#COMPLETION_INDEX}
+     * property.
+     */
+    public boolean isCompletionIndexEnabled() {
+
+        return completionIndexEnabled;
+
+    }
+
+    /**
+     * Return the value configured by the {@link Options#RELEVANCE_MODEL}
+     * property.
+     */
+    public RelevanceModelEnum getRelevanceModel() {
+
+        return relevanceModel;
+
+    }
+
 //    /**
 //     * @see Options#DOCID_FACTORY_CLASS
 //     */
@@ -466,6 +608,13 @@ public class FullTextIndex<V extends Comparable<V>> extends AbstractRelation {
      * The basename of the search index.
      */
     public static final transient String NAME_SEARCH = "search";
+
+    /**
+     * The basename of the completion index.
+     * 
+     * @see Options#COMPLETION_INDEX
+     */
+    public static final transient String NAME_COMPLETION = "completion";
     
     /**
      * <code>true</code> unless {{@link #getTimestamp()} is {@link ITx#UNISOLATED}.
@@ -568,6 +717,63 @@ public class FullTextIndex<V extends Comparable<V>> extends AbstractRelation {
                new ConcurrentWeakValueCacheWithTimeout<FullTextQuery, Hit<V>[]>(
                                hitCacheSize, hitCacheTimeoutMillis);
 
+        {
+
+            relevanceModel = RelevanceModelEnum.valueOf(properties.getProperty(
+                    Options.RELEVANCE_MODEL, Options.DEFAULT_RELEVANCE_MODEL));
+
+            if (log.isInfoEnabled())
+                log.info(Options.RELEVANCE_MODEL + "=" + relevanceModel);
+
+        }
+
+        {
+
+            bm25K1 = Double.parseDouble(properties.getProperty(
+                    Options.BM25_K1, Options.DEFAULT_BM25_K1));
+
+            if (bm25K1 < 0d)
+                throw new IllegalArgumentException(Options.BM25_K1 + "="
+                        + bm25K1);
+
+            if (log.isInfoEnabled())
+                log.info(Options.BM25_K1 + "=" + bm25K1);
+
+        }
+
+        {
+
+            topKEvaluation = Boolean.parseBoolean(properties.getProperty(
+                    Options.TOP_K_EVALUATION,
+                    Options.DEFAULT_TOP_K_EVALUATION));
+
+            if (log.isInfoEnabled())
+                log.info(Options.TOP_K_EVALUATION + "=" + topKEvaluation);
+
+        }
+
+        {
+
+            positionsEnabled = Boolean.parseBoolean(properties.getProperty(
+                    Options.POSITIONS_ENABLED,
+                    Options.DEFAULT_POSITIONS_ENABLED));
+
+            if (log.isInfoEnabled())
+                log.info(Options.POSITIONS_ENABLED + "=" + positionsEnabled);
+
+        }
+
+        {
+
+            completionIndexEnabled = Boolean.parseBoolean(properties
+                    .getProperty(Options.COMPLETION_INDEX,
+                            Options.DEFAULT_COMPLETION_INDEX));
+
+            if (log.isInfoEnabled())
+                log.info(Options.COMPLETION_INDEX + "=" + completionIndexEnabled);
+
+        }
+
         {
 
             final String className = getProperty(
@@ -694,8 +900,10 @@ public class FullTextIndex<V extends Comparable<V>> extends AbstractRelation {
             indexMetadata.setTupleSerializer(new FullTextIndexTupleSerializer<V>(
                     keyBuilderFactory,//
                     DefaultTupleSerializer.getDefaultLeafKeysCoder(),//
-                    EmptyRabaValueCoder.INSTANCE,//
-                    fieldsEnabled//
+                    positionsEnabled ? SimpleRabaCoder.INSTANCE
+                            : EmptyRabaValueCoder.INSTANCE,//
+                    fieldsEnabled,//
+                    positionsEnabled//
             ));
             
             indexManager.registerIndex(indexMetadata);
@@ -703,6 +911,9 @@ public class FullTextIndex<V extends Comparable<V>> extends AbstractRelation {
             if (log.isInfoEnabled())
                 log.info("Registered new text index: name=" + name);
 
+            if (isCompletionIndexEnabled())
+                createCompletionIndex();
+
             /*
              * Note: defer resolution of the index.
              */
@@ -731,6 +942,9 @@ public class FullTextIndex<V extends Comparable<V>> extends AbstractRelation {
 
             indexManager.dropIndex(getNamespace() +"."+ NAME_SEARCH);
 
+            if (isCompletionIndexEnabled())
+                indexManager.dropIndex(getNamespace() + "." + NAME_COMPLETION);
+
         } finally {
 
             unlock(resourceLock);
@@ -766,6 +980,352 @@ public class FullTextIndex<V extends Comparable<V>> extends AbstractRelation {
             
     }
 
+    /**
+     * The completion index (lazily resolved).
+     * 
+     * @see Options#COMPLETION_INDEX
+     */
+    volatile private IIndex completionNdx;
+
+    /**
+     * The index associating each distinct token with the #of postings for
+     * that token.
+     * 
+     * @throws UnsupportedOperationException
+     *             unless the {@link Options#COMPLETION_INDEX} was enabled when
+     *             the text index was created.
+     */
+    public IIndex getCompletionIndex() {
+
+        if (!isCompletionIndexEnabled())
+            throw new UnsupportedOperationException(Options.COMPLETION_INDEX);
+
+        if (completionNdx == null) {
+
+            synchronized (this) {
+
+                completionNdx = getIndex(getNamespace() + "."
+                        + NAME_COMPLETION);
+
+                if (completionNdx == null)
+                    throw new IllegalStateException();
+
+            }
+
+        }
+
+        return completionNdx;
+
+    }
+
+    /**
+     * Register the completion index. The key is the Unicode sort key of the
+     * token (as generated for the text index) and the value is the packed #of
+     * postings for the token followed by the token text.
+     */
+    protected void createCompletionIndex() {
+
+        final String name = getNamespace() + "." + NAME_COMPLETION;
+
+        final IndexMetadata indexMetadata = new IndexMetadata(
+                getIndexManager(), getProperties(), name, UUID.randomUUID(),
+                IndexTypeEnum.BTree);
+
+        /*
+         * Note: The version timestamps let us scan only those tuples which
+         * were written since a given commit point, which is how the in-memory
+         * completion trie is maintained incrementally.
+         */
+        indexMetadata.setVersionTimestamps(true);
+
+        getIndexManager().registerIndex(indexMetadata);
+
+        if (log.isInfoEnabled())
+            log.info("Registered new completion index: name=" + name);
+
+    }
+
+    /**
+     * Update the completion index for the given tokens. The weight of each
+     * token is the #of postings for that token in the text index, so this
+     * must be invoked after the postings have been written.
+     * 
+     * @param tokens
+     *            The distinct tokens which were written on the text index.
+     */
+    protected void updateCompletionIndex(final Set<String> tokens) {
+
+        if (tokens.isEmpty())
+            return;
+
+        final IKeyBuilder keyBuilder = getKeyBuilder();
+
+        final KV[] a = new KV[tokens.size()];
+
+        int n = 0;
+
+        for (String token : tokens) {
+
+            final long weight = new CountIndexTask<V>(token, 0/* termNdx */,
+                    1/* numTerms */, false/* prefixMatch */, 1d/* weight */,
+                    this).getRangeCount();
+
+            keyBuilder.reset();
+
+            keyBuilder.appendText(token, true/* unicode */, false/* successor */);
+
+            final DataOutputBuffer buf = new DataOutputBuffer();
+
+            buf.packLong(weight);
+
+            buf.writeUTF2(token);
+
+            a[n++] = new KV(keyBuilder.getKey(), buf.toByteArray());
+
+        }
+
+        Arrays.sort(a);
+
+        /*
+         * Note: Distinct tokens can have the same sort key (depending on the
+         * collator strength). Only the first such token is retained.
+         */
+
+        final byte[][] keys = new byte[n][];
+
+        final byte[][] vals = new byte[n][];
+
+        int m = 0;
+
+        for (int i = 0; i < n; i++) {
+
+            if (m > 0 && BytesUtil.bytesEqual(keys[m - 1], a[i].key))
+                continue;
+
+            keys[m] = a[i].key;
+
+            vals[m] = a[i].val;
+
+            m++;
+
+        }
+
+        getCompletionIndex().submit(0/* fromIndex */, m/* toIndex */, keys,
+                vals, BatchInsertConstructor.RETURN_NO_VALUES, null/* handler */);
+
+    }
+
+    /**
+     * Read the completion index.
+     * 
+     * @param ndx
+     *            The completion index.
+     * @param sinceCommitTime
+     *            When positive, only the tuples written after that commit
+     *            point are reported.
+     * 
+     * @return The weight for each token. A weight of zero indicates a token
+     *         which no longer has any postings.
+     */
+    private static SortedMap<String, Long> readCompletionIndex(
+            final IIndex ndx, final long sinceCommitTime) {
+
+        final SortedMap<String, Long> map = new TreeMap<String, Long>();
+
+        final ITupleIterator<?> itr = ndx.rangeIterator(null/* fromKey */,
+                null/* toKey */, 0/* capacity */, IRangeQuery.KEYS
+                        | IRangeQuery.VALS, sinceCommitTime > 0L ? new SinceFilter(
+                        sinceCommitTime) : null);
+
+        while (itr.hasNext()) {
+
+            final ITuple<?> tuple = itr.next();
+
+            final DataInputBuffer in = tuple.getValueStream();
+
+            try {
+
+                final long weight = in.unpackLong();
+
+                map.put(in.readUTF2(), weight);
+
+            } catch (IOException ex) {
+
+                throw new RuntimeException(ex);
+
+            }
+
+        }
+
+        return map;
+
+    }
+
+    /**
+     * Accepts tuples whose version timestamp is GT a given commit time.
+     */
+    private static class SinceFilter extends TupleFilter<Object> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long commitTime;
+
+        public SinceFilter(final long commitTime) {
+
+            this.commitTime = commitTime;
+
+        }
+
+        @Override
+        protected boolean isValid(final ITuple<Object> tuple) {
+
+            return tuple.getVersionTimestamp() > commitTime;
+
+        }
+
+    }
+
+    /**
+     * A {@link CompletionTrie} as of some commit point.
+     */
+    private static class CompletionSnapshot {
+
+        final long commitTime;
+
+        final CompletionTrie trie;
+
+        CompletionSnapshot(final long commitTime, final CompletionTrie trie) {
+
+            this.commitTime = commitTime;
+
+            this.trie = trie;
+
+        }
+
+    }
+
+    /**
+     * The most recent {@link CompletionTrie} for each completion index (keyed
+     * by the index UUID). A newer commit point is handled by merging the
+     * tuples written since the cached commit point into the cached trie.
+     */
+    private static final ConcurrentWeakValueCacheWithTimeout<UUID, CompletionSnapshot> completionCache = new ConcurrentWeakValueCacheWithTimeout<UUID, CompletionSnapshot>(
+            20/* queueCapacity */, TimeUnit.MINUTES.toNanos(5));
+
+    /**
+     * Return the {@link CompletionTrie} for the view of the completion index
+     * associated with this relation. For a read-only view (a historical read
+     * or a read-only transaction) the trie is cached and maintained
+     * incrementally as new commit points are read. Otherwise the trie is built
+     * from the current state of the index.
+     * 
+     * @throws UnsupportedOperationException
+     *             unless the {@link Options#COMPLETION_INDEX} is enabled.
+     */
+    public CompletionTrie getCompletionTrie() {
+
+        final IIndex ndx = getCompletionIndex();
+
+        if (!(ndx instanceof BTree) || !((BTree) ndx).isReadOnly()) {
+
+            return CompletionTrie.build(readCompletionIndex(ndx, 0L));
+
+        }
+
+        final long commitTime = ((BTree) ndx).getLastCommitTime();
+
+        final UUID indexUUID = ndx.getIndexMetadata().getIndexUUID();
+
+        final CompletionSnapshot prior = completionCache.get(indexUUID);
+
+        if (prior != null && prior.commitTime == commitTime) {
+
+            return prior.trie;
+
+        }
+
+        final CompletionTrie trie;
+
+        if (prior != null && prior.commitTime < commitTime) {
+
+            trie = prior.trie.merge(readCompletionIndex(ndx, prior.commitTime));
+
+        } else {
+
+            trie = CompletionTrie.build(readCompletionIndex(ndx, 0L));
+
+        }
+
+        if (prior == null || prior.commitTime < commitTime) {
+
+            completionCache.put(indexUUID, new CompletionSnapshot(commitTime,
+                    trie));
+
+        }
+
+        return trie;
+
+    }
+
+    /**
+     * Return the top-weighted completions for the last token in the given
+     * text. The weight of a completion is the #of postings for that token.
+     * 
+     * @param prefix
+     *            The text to be completed.
+     * @param languageCode
+     *            The language code -or- <code>null</code> to use the default
+     *            {@link Locale}.
+     * @param maxCompletions
+     *            The maximum #of completions to report.
+     * 
+     * @return The completions in descending weight order.
+     * 
+     * @throws UnsupportedOperationException
+     *             unless the {@link Options#COMPLETION_INDEX} is enabled.
+     */
+    public List<CompletionTrie.Completion> complete(final String prefix,
+            final String languageCode, final int maxCompletions) {
+
+        if (prefix == null)
+            throw new IllegalArgumentException();
+
+        if (maxCompletions <= 0)
+            throw new IllegalArgumentException();
+
+        String token = null;
+
+        final TokenStream tokenStream = getTokenStream(languageCode,
+                new StringReader(prefix), false/* filterStopwords */);
+
+        try {
+
+            tokenStream.reset();
+
+            while (tokenStream.incrementToken()) {
+
+                token = tokenStream.getAttribute(CharTermAttribute.class)
+                        .toString();
+
+            }
+
+            tokenStream.end();
+
+            tokenStream.close();
+
+        } catch (IOException ex) {
+
+            throw new RuntimeException(ex);
+
+        }
+
+        if (token == null)
+            return Collections.emptyList();
+
+        return getCompletionTrie().complete(token, maxCompletions);
+
+    }
+
     /**
      * See {@link #index(TokenBuffer, long, int, String, Reader, boolean)}.
      * <p>
@@ -830,12 +1390,29 @@ public class FullTextIndex<V extends Comparable<V>> extends AbstractRelation {
 
             tokenStream.reset();   
 
+            // the position of the current token (when recording positions).
+            int position = -1;
+
             while (tokenStream.incrementToken()) {
                 
                 final CharTermAttribute term = tokenStream
                         .getAttribute(CharTermAttribute.class);
                 
-                buffer.add(docId, fieldId, term.toString());
+                if (positionsEnabled) {
+
+                    /*
+                     * Note: The position increment reflects any tokens which
+                     * were removed (e.g., stopwords).
+                     */
+                    position = Math.max(0, position
+                            + tokenStream.getAttribute(
+                                    PositionIncrementAttribute.class)
+                                    .getPositionIncrement());
+
+                }
+
+                buffer.add(docId, fieldId, term.toString(),
+                        positionsEnabled ? position : -1);
 
                 n++;
 
@@ -1110,6 +1687,13 @@ public class FullTextIndex<V extends Comparable<V>> extends AbstractRelation {
         if (unit == null)
             throw new IllegalArgumentException();
         
+        final boolean positional = query.isPositional();
+
+        if (positional && !positionsEnabled)
+            throw new UnsupportedOperationException(
+                    "Phrase and proximity queries require "
+                            + Options.POSITIONS_ENABLED);
+
         if (log.isInfoEnabled())
             log.info("languageCode=[" + languageCode + "], text=[" + queryStr
                     + "], minCosine=" + minCosine 
@@ -1131,6 +1715,36 @@ public class FullTextIndex<V extends Comparable<V>> extends AbstractRelation {
         
         Hit<V>[] a;
         
+        if (isTopKQuery(query) && !cache.containsKey(cacheKey)) {
+
+            /*
+             * Only the top N hits are required, so read just enough of the
+             * postings to identify them.
+             * 
+             * Note: The result is not cached since the cache key does not
+             * include the maxRank.
+             */
+
+            final TermFrequencyData<V> qdata = tokenize(query);
+
+            if (qdata == null) {
+
+                return new Hit[] {};
+
+            }
+
+            a = executeTopKQuery(qdata, maxRank, timeout, unit);
+
+            a = slice(query, a);
+
+            if (log.isInfoEnabled())
+                log.info("Done: " + a.length + " hits in "
+                        + (System.currentTimeMillis() - begin) + "ms (top-k)");
+
+            return a;
+
+        }
+
         if (cache.containsKey(cacheKey)) {
         	
         	if (log.isInfoEnabled())
@@ -1155,7 +1769,7 @@ public class FullTextIndex<V extends Comparable<V>> extends AbstractRelation {
             			
             }
             
-            a = executeQuery(qdata, prefixMatch, timeout, unit);
+            a = executeQuery(qdata, prefixMatch, positional, timeout, unit);
             
 	        if (a.length == 0) {
 	        	
@@ -1171,9 +1785,11 @@ public class FullTextIndex<V extends Comparable<V>> extends AbstractRelation {
 	        /*
 	         * If match all is specified, remove any hits with a term count less
 	         * than the number of search tokens.  It's also an optimization to
-	         * run the pruning if we're going to do matchExact.
+	         * run the pruning if we're going to do matchExact.  Phrase and
+	         * proximity queries imply match all.
 	         */
-	        if ((matchAllTerms || matchExact) && qdata.distinctTermCount() > 1) {
+	        if ((matchAllTerms || matchExact || positional)
+	                && qdata.distinctTermCount() > 1) {
 	        	
 		        final int nterms = qdata.terms.size();
 		        
@@ -1214,6 +1830,16 @@ public class FullTextIndex<V extends Comparable<V>> extends AbstractRelation {
 	        	a = matchExact(a, queryStr);
 	        	
 	        }
+
+	        /*
+	         * Apply the phrase and proximity constraints using the token
+	         * positions collected from the index.
+	         */
+	        if (positional) {
+
+	            a = matchPositions(a, qdata, query);
+
+	        }
 	        
 	        if (a.length == 0) {
 	        	
@@ -1435,42 +2061,184 @@ public class FullTextIndex<V extends Comparable<V>> extends AbstractRelation {
         
     }
     
+    /**
+     * Return <code>true</code> iff the query may be evaluated by the
+     * {@link TopKEvaluator}.
+     * 
+     * @see Options#TOP_K_EVALUATION
+     */
+    protected boolean isTopKQuery(final FullTextQuery query) {
+
+        if (!topKEvaluation)
+            return false;
+
+        if (query.getMaxRank() == Integer.MAX_VALUE)
+            return false;
+
+        if (query.isPrefixMatch() || query.isMatchAllTerms()
+                || query.isMatchExact() || query.getMatchRegex() != null
+                || query.isPositional())
+            return false;
+
+        if (query.getMaxCosine() < 1d) {
+            /*
+             * The hits above the maxCosine would be discarded after the top N
+             * were selected.
+             */
+            return false;
+        }
+
+        final Object tupleSer = getIndex().getIndexMetadata()
+                .getTupleSerializer();
+
+        if (tupleSer instanceof FullTextIndexTupleSerializer
+                && ((FullTextIndexTupleSerializer<?>) tupleSer)
+                        .isFieldsEnabled()) {
+            // The key can not be formed without the fieldId.
+            return false;
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Evaluate the query for the top <i>k</i> hits.
+     * 
+     * @see TopKEvaluator
+     */
+    protected Hit<V>[] executeTopKQuery(final TermFrequencyData<V> qdata,
+            final int k, final long timeout, final TimeUnit unit) {
+
+        final List<CountIndexTask<V>> counts = newCountTasks(qdata, false/* prefixMatch */);
+
+        final ITermScorer[] scorers = getTermScorers(qdata, counts);
+
+        return new TopKEvaluator<V>(this, qdata, scorers, k, timeout, unit)
+                .call();
+
+    }
+
+    /**
+     * Return a {@link CountIndexTask} for each distinct query token (in the
+     * iteration order of {@link TermFrequencyData#terms}).
+     */
+    private List<CountIndexTask<V>> newCountTasks(
+            final TermFrequencyData<V> qdata, final boolean prefixMatch) {
+
+        final List<CountIndexTask<V>> tasks = new ArrayList<CountIndexTask<V>>(
+                qdata.distinctTermCount());
+
+        int i = 0;
+        for (Map.Entry<String, ITermMetadata> e : qdata.terms.entrySet()) {
+
+            final String termText = e.getKey();
+
+            final ITermMetadata md = e.getValue();
+
+            tasks.add(new CountIndexTask<V>(termText, i++, qdata.terms.size(),
+                    prefixMatch, md.getLocalTermWeight(), this));
+
+        }
+
+        return tasks;
+
+    }
+
+    /**
+     * Return the {@link ITermScorer} for each distinct query token (in the
+     * iteration order of {@link TermFrequencyData#terms}) for the configured
+     * {@link RelevanceModelEnum}. The document frequency of each token is
+     * reported to its {@link ITermMetadata}.
+     * 
+     * @param qdata
+     *            The tokenized query.
+     * @param counts
+     *            The range count for each query token.
+     */
+    protected ITermScorer[] getTermScorers(final TermFrequencyData<V> qdata,
+            final List<CountIndexTask<V>> counts) {
+
+        final ITermMetadata[] md = qdata.terms.values().toArray(
+                new ITermMetadata[qdata.distinctTermCount()]);
+
+        final ITermScorer[] scorers = new ITermScorer[md.length];
+
+        for (int i = 0; i < md.length; i++) {
+
+            md[i].setDocFreq(counts.get(i).getRangeCount());
+
+        }
+
+        switch (relevanceModel) {
+        case Cosine: {
+            for (int i = 0; i < md.length; i++) {
+                scorers[i] = new CosineTermScorer(md[i].getLocalTermWeight());
+            }
+            break;
+        }
+        case BM25: {
+            /*
+             * Note: The #of documents is not maintained by the index. The #of
+             * postings is used instead, which overstates the #of documents by
+             * the average #of distinct tokens per document. This adds roughly
+             * the log of that factor to the idf of every token, which gives
+             * the rare tokens less weight relative to the common tokens than
+             * BM25 would. The scores are therefore an approximation of BM25.
+             */
+            final long ndocs = getIndex().rangeCount();
+            final double[] idf = new double[md.length];
+            double norm = 0d;
+            for (int i = 0; i < md.length; i++) {
+                idf[i] = BM25TermScorer.idf(ndocs, md[i].getDocFreq());
+                norm += idf[i] * md[i].termFreq();
+            }
+            for (int i = 0; i < md.length; i++) {
+                scorers[i] = new BM25TermScorer(bm25K1, idf[i],
+                        md[i].termFreq(), norm);
+            }
+            break;
+        }
+        default:
+            throw new AssertionError(relevanceModel);
+        }
+
+        return scorers;
+
+    }
+
     protected Hit<V>[] executeQuery(final TermFrequencyData<V> qdata,
     		final boolean prefixMatch, final long timeout, final TimeUnit unit) {
+
+        return executeQuery(qdata, prefixMatch, false/* collectPositions */,
+                timeout, unit);
+
+    }
+
+    /**
+     * @param collectPositions
+     *            When <code>true</code>, the positions of the query tokens are
+     *            collected on the hits.
+     * 
+     * @see Options#POSITIONS_ENABLED
+     */
+    protected Hit<V>[] executeQuery(final TermFrequencyData<V> qdata,
+            final boolean prefixMatch, final boolean collectPositions,
+            final long timeout, final TimeUnit unit) {
     	
         final IHitCollector<V> hits;
         
+        final List<CountIndexTask<V>> counts = newCountTasks(qdata, prefixMatch);
+
+        final ITermScorer[] scorers = getTermScorers(qdata, counts);
+
         if (qdata.distinctTermCount() == 1) {
         	
-        	final Map.Entry<String, ITermMetadata> e = qdata.getSingletonEntry();
-        	
-            final String termText = e.getKey();
-        	
-            final ITermMetadata md = e.getValue();
-
-            final CountIndexTask<V> task1 = new CountIndexTask<V>(termText, 0, 1,
-            		prefixMatch, md.getLocalTermWeight(), this);
-            
-            hits = new SingleTokenHitCollector<V>(task1);
+            hits = new SingleTokenHitCollector<V>(counts.get(0));
         	
         } else {
         	
-            final List<CountIndexTask<V>> tasks = new ArrayList<CountIndexTask<V>>(
-                    qdata.distinctTermCount());
-
-            int i = 0;
-            for (Map.Entry<String, ITermMetadata> e : qdata.terms.entrySet()) {
-
-                final String termText = e.getKey();
-
-                final ITermMetadata md = e.getValue();
-
-                tasks.add(new CountIndexTask<V>(termText, i++, qdata.terms.size(), 
-                		prefixMatch, md.getLocalTermWeight(), this));
-
-            }
-            
-            hits = new MultiTokenHitCollector<V>(tasks);
+            hits = new MultiTokenHitCollector<V>(counts);
         	
         }
         
@@ -1487,8 +2255,11 @@ public class FullTextIndex<V extends Comparable<V>> extends AbstractRelation {
 
                 final ITermMetadata md = e.getValue();
 
-                tasks.add(new ReadIndexTask<V>(termText, i++, qdata.terms.size(),
-                		prefixMatch, md.getLocalTermWeight(), this, hits));
+                tasks.add(new ReadIndexTask<V>(termText, i, qdata.terms.size(),
+                		prefixMatch, md.getLocalTermWeight(), scorers[i],
+                		collectPositions, this, hits));
+
+                i++;
 
             }
 
@@ -1533,6 +2304,71 @@ public class FullTextIndex<V extends Comparable<V>> extends AbstractRelation {
 
     }
     
+    /**
+     * Retain only the hits which satisfy the phrase and proximity constraints
+     * of the query. This uses the positions of the query tokens which were
+     * collected on the hits from the index, so the text of the hits is not
+     * materialized.
+     * 
+     * @param hits
+     *            The hits.
+     * @param qdata
+     *            The tokenized query (including the positions of the query
+     *            tokens).
+     * @param query
+     *            The query.
+     * 
+     * @return The hits which satisfy the constraints.
+     */
+    protected Hit<V>[] matchPositions(final Hit<V>[] hits,
+            final TermFrequencyData<V> qdata, final FullTextQuery query) {
+
+        final int nterms = qdata.distinctTermCount();
+
+        // The positions of each token in the query.
+        final int[][] qpos = new int[nterms][];
+        {
+            int i = 0;
+            for (ITermMetadata md : qdata.terms.values()) {
+                qpos[i++] = md.getPositions();
+            }
+        }
+
+        final List<Hit<V>> tmp = new ArrayList<Hit<V>>(hits.length);
+
+        for (Hit<V> hit : hits) {
+
+            final int[][] dpos = new int[nterms][];
+
+            boolean ok = true;
+
+            for (int i = 0; i < nterms && ok; i++) {
+
+                dpos[i] = hit.getPositions(i);
+
+                // Documents indexed without positions can not match.
+                ok = dpos[i] != null && dpos[i].length > 0;
+
+            }
+
+            if (ok && query.isMatchPhrase())
+                ok = PositionMatcher.matchPhrase(qpos, dpos);
+
+            if (ok && query.getProximity() != Integer.MAX_VALUE)
+                ok = PositionMatcher.minWindow(dpos) <= query.getProximity();
+
+            if (ok)
+                tmp.add(hit);
+
+        }
+
+        if (log.isInfoEnabled())
+            log.info("hits before=" + hits.length + ", after=" + tmp.size());
+
+        return tmp.toArray(new Hit[tmp.size()]);
+
+    }
+
     /**
      * Subclasses can override this method to do exact match processing.  This
      * involves materializing the hits into their original text values and
@@ -42,6 +42,8 @@ import com.bigdata.btree.keys.IKeyBuilderFactory;
 import com.bigdata.btree.keys.KeyBuilder;
 import com.bigdata.btree.raba.codec.IRabaCoder;
 import com.bigdata.io.ByteArrayBuffer;
+import com.bigdata.io.DataInputBuffer;
+import com.bigdata.io.DataOutputBuffer;
 import com.bigdata.util.Bytes;
 import com.bigdata.util.BytesUtil;
 
@@ -62,12 +64,44 @@ public class FullTextIndexTupleSerializer<V extends Comparable<V>> extends
             .getLogger(FullTextIndexTupleSerializer.class);
 
     private boolean fieldsEnabled;
+    private boolean positionsEnabled;
 //    private boolean doublePrecision;
     
     public boolean isFieldsEnabled() {
         return fieldsEnabled;
     }
 
+    /**
+     * When <code>true</code> the positions of the token within the field are
+     * stored in the value of the tuple.
+     * 
+     * @see FullTextIndex.Options#POSITIONS_ENABLED
+     */
+    public boolean isPositionsEnabled() {
+        return positionsEnabled;
+    }
+
+    /**
+     * Used to serialize the positions in the values for the tuples in the
+     * index.
+     * <p>
+     * Note: The mutable B+Tree is restricted to a single writer, but the
+     * values are serialized by each {@link TokenBuffer} before they are
+     * written and several {@link TokenBuffer}s may be flushed concurrently
+     * by a parallel rebuild of the index. The buffer is therefore thread-local,
+     * like the {@link #getKeyBuilder() key builder}.
+     */
+    final transient private ThreadLocal<DataOutputBuffer> buf = new ThreadLocal<DataOutputBuffer>() {
+
+        @Override
+        protected DataOutputBuffer initialValue() {
+
+            return new DataOutputBuffer(24);
+
+        }
+
+    };
+
 //    public boolean isDoublePrecision() {
 //        return doublePrecision;
 //    }
@@ -110,13 +144,90 @@ public class FullTextIndexTupleSerializer<V extends Comparable<V>> extends
 //            final boolean doublePrecision//
             ) {
    
+        this(keyBuilderFactory, leafKeysCoder, leafValsCoder, fieldsEnabled,
+                false/* positionsEnabled */);
+        
+    }
+
+    /**
+     * @param positionsEnabled
+     *            When <code>true</code> the positions of the token within the
+     *            field will be stored in the value of the tuple. The
+     *            <i>leafValsCoder</i> must be able to code non-empty values.
+     */
+    public FullTextIndexTupleSerializer(//
+            final IKeyBuilderFactory keyBuilderFactory,//
+            final IRabaCoder leafKeysCoder, //
+            final IRabaCoder leafValsCoder,//
+            final boolean fieldsEnabled,//
+            final boolean positionsEnabled//
+            ) {
+   
         super(keyBuilderFactory, leafKeysCoder, leafValsCoder);
 
         this.fieldsEnabled = fieldsEnabled;
+        this.positionsEnabled = positionsEnabled;
 //        this.doublePrecision = doublePrecision;
         
     }
 
+    /**
+     * Write the positions of a token onto the buffer. The #of positions is
+     * written first, followed by the positions as packed deltas.
+     * 
+     * @param buf
+     *            The buffer.
+     * @param positions
+     *            The positions in increasing order (may be <code>null</code>,
+     *            which is coded as no positions).
+     */
+    public static void writePositions(final DataOutputBuffer buf,
+            final int[] positions) {
+
+        if (positions == null) {
+
+            buf.packLong(0);
+
+            return;
+
+        }
+
+        buf.packLong(positions.length);
+
+        int last = 0;
+
+        for (int position : positions) {
+
+            buf.packLong(position - last);
+
+            last = position;
+
+        }
+
+    }
+
+    /**
+     * Read the positions written by {@link #writePositions(DataOutputBuffer, int[])}.
+     */
+    public static int[] readPositions(final DataInputBuffer in)
+            throws IOException {
+
+        final int n = in.unpackInt();
+
+        final int[] positions = new int[n];
+
+        int last = 0;
+
+        for (int i = 0; i < n; i++) {
+
+            positions[i] = last = last + in.unpackInt();
+
+        }
+
+        return positions;
+
+    }
+
     @Override
     public byte[] serializeKey(final Object obj) {
 
@@ -171,6 +282,18 @@ public class FullTextIndexTupleSerializer<V extends Comparable<V>> extends
     @Override
     public byte[] serializeVal(final ITermDocVal obj) {
 
+        if (positionsEnabled) {
+
+            final DataOutputBuffer buf = this.buf.get();
+
+            buf.reset();
+
+            writePositions(buf, obj.getPositions());
+
+            return buf.toByteArray();
+
+        }
+
     	return null;
     	
 //        final ITermDocVal val = (ITermDocVal) obj;
@@ -285,8 +408,19 @@ public class FullTextIndexTupleSerializer<V extends Comparable<V>> extends
 //
 //        }
 //
+        final int[] positions;
+        if (positionsEnabled) {
+            try {
+                positions = readPositions(tuple.getValueStream());
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        } else {
+            positions = null;
+        }
+
         return new ReadOnlyTermDocRecord<V>(null/* token */, docId, fieldId,
-                /* termFreq, */ termWeight);
+                /* termFreq, */ termWeight, positions);
 
     }
 
@@ -295,7 +429,12 @@ public class FullTextIndexTupleSerializer<V extends Comparable<V>> extends
      */
     private static final transient byte VERSION0 = 0;
 
-    private static final transient byte VERSION = VERSION0;
+    /**
+     * Adds {@link #positionsEnabled}.
+     */
+    private static final transient byte VERSION1 = 1;
+
+    private static final transient byte VERSION = VERSION1;
 
     public void readExternal(final ObjectInput in) throws IOException,
             ClassNotFoundException {
@@ -303,11 +442,13 @@ public class FullTextIndexTupleSerializer<V extends Comparable<V>> extends
         final byte version = in.readByte();
         switch (version) {
         case VERSION0:
+        case VERSION1:
             break;
         default:
             throw new IOException("unknown version=" + version);
         }
         this.fieldsEnabled = in.readBoolean();
+        this.positionsEnabled = version >= VERSION1 ? in.readBoolean() : false;
 //        this.doublePrecision = in.readBoolean();
 
     }
@@ -316,6 +457,7 @@ public class FullTextIndexTupleSerializer<V extends Comparable<V>> extends
         super.writeExternal(out);
         out.writeByte(VERSION);
         out.writeBoolean(fieldsEnabled);
+        out.writeBoolean(positionsEnabled);
 //        out.writeBoolean(doublePrecision);
     }
 
@@ -1,5 +1,6 @@
 package com.bigdata.search;
 
+import java.util.Arrays;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
@@ -31,6 +32,12 @@ public class Hit<V extends Comparable<V>> implements IHit<V>,
     /** Rank order for this hit */
     private int rank;
 
+    /**
+     * The positions of each search term in the document (lazily allocated and
+     * only collected for phrase and proximity queries).
+     */
+    private int[][] positions;
+
     /**
      * Ctor used in conjunction with a {@link ConcurrentHashMap} to insert
      * objects into the result set.
@@ -128,6 +135,56 @@ public class Hit<V extends Comparable<V>> implements IHit<V>,
 
     }
 
+    /**
+     * Adds positions for a search term. When the search term matches more than
+     * one token (prefix match), the positions are merged.
+     * 
+     * @param termNdx
+     *            The index of the search term.
+     * @param a
+     *            The positions in increasing order (ignored if
+     *            <code>null</code>).
+     */
+    synchronized void addPositions(final int termNdx, final int[] a) {
+
+        if (a == null)
+            return;
+
+        if (positions == null)
+            positions = new int[searchTerms.length][];
+
+        final int[] b = positions[termNdx];
+
+        if (b == null) {
+
+            positions[termNdx] = a;
+
+        } else {
+
+            final int[] c = new int[a.length + b.length];
+
+            System.arraycopy(a, 0, c, 0, a.length);
+
+            System.arraycopy(b, 0, c, a.length, b.length);
+
+            Arrays.sort(c);
+
+            positions[termNdx] = c;
+
+        }
+
+    }
+
+    /**
+     * The positions of the search term in the document in increasing order
+     * -or- <code>null</code> if positions were not collected for that term.
+     */
+    synchronized int[] getPositions(final int termNdx) {
+
+        return positions == null ? null : positions[termNdx];
+
+    }
+
     public String toString() {
         
         return "Hit{docId"+docId+",nterms="+getTermCount()+",cosine="+cosine+"}";
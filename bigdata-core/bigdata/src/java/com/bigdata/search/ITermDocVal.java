@@ -36,6 +36,14 @@ package com.bigdata.search;
  */
 public interface ITermDocVal {
 
+    /**
+     * The positions of the token within the field in increasing order -or-
+     * <code>null</code> if positions are not stored in the index.
+     * 
+     * @see FullTextIndex.Options#POSITIONS_ENABLED
+     */
+    int[] getPositions();
+
 //    /**
 //     * The term-frequency count for the token and document in the associated
 //     * entry of the full text search index.
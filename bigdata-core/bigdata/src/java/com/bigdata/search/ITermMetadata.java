@@ -51,6 +51,20 @@ public interface ITermMetadata { // extends ITermDocVal {
      */
     void add();
 
+    /**
+     * Add an occurrence at the given token position.
+     * 
+     * @param position
+     *            The position of the token within the field.
+     */
+    void add(int position);
+
+    /**
+     * The positions of the occurrences in increasing order -or-
+     * <code>null</code> if the positions were not recorded.
+     */
+    int[] getPositions();
+
     /**
      * The local term weight, which may be computed by a variety of methods.
      */
@@ -60,4 +74,23 @@ public interface ITermMetadata { // extends ITermDocVal {
      * The local term weight, which may be computed by a variety of methods.
      */
     void setLocalTermWeight(double d);
+
+    /**
+     * The #of postings for the token in the full text index (only set for the
+     * tokens of a query).
+     */
+    long getDocFreq();
+
+    void setDocFreq(long docFreq);
+
+    /**
+     * An upper bound on the contribution of the token to the relevance score
+     * of any document (only set for the tokens of a query). This is used to
+     * terminate top-k evaluation without reading all postings.
+     * 
+     * @see TopKEvaluator
+     */
+    double getScoreUpperBound();
+
+    void setScoreUpperBound(double d);
 }
@@ -0,0 +1,51 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+package com.bigdata.search;
+
+/**
+ * Computes the contribution of a posting for some query token to the relevance
+ * of the document in which that token appears.
+ * 
+ * @see RelevanceModelEnum
+ */
+public interface ITermScorer {
+
+    /**
+     * Return the contribution of a posting to the relevance of the document.
+     * <p>
+     * Note: This MUST be monotonically non-decreasing in
+     * <i>localTermWeight</i>. The {@link TopKEvaluator} relies on this since
+     * the postings for a token are ordered by their local term weight in the
+     * full text index.
+     * 
+     * @param localTermWeight
+     *            The normalized term frequency of the token in the document
+     *            (as stored in the full text index).
+     */
+    double score(double localTermWeight);
+
+}
@@ -0,0 +1,167 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+package com.bigdata.search;
+
+import java.util.Arrays;
+
+import com.bigdata.rdf.lexicon.ITextIndexer.FullTextQuery;
+
+/**
+ * Static helper methods for matching the token positions of a document against
+ * the phrase and proximity constraints of a query.
+ * 
+ * @see FullTextIndex#matchPositions(Hit[], TermFrequencyData, FullTextQuery)
+ */
+class PositionMatcher {
+
+    private PositionMatcher() {
+    }
+
+    /**
+     * Return <code>true</code> iff the document contains the query tokens in
+     * the same relative order and at the same relative offsets as the query.
+     * 
+     * @param qpos
+     *            The sorted positions of each distinct token in the query.
+     * @param dpos
+     *            The sorted positions of the same tokens in the document.
+     */
+    static boolean matchPhrase(final int[][] qpos, final int[][] dpos) {
+
+        // The query token at the smallest position is the anchor.
+        int anchor = -1;
+        int base = Integer.MAX_VALUE;
+        for (int i = 0; i < qpos.length; i++) {
+            if (qpos[i] == null || qpos[i].length == 0)
+                return false;
+            if (qpos[i][0] < base) {
+                base = qpos[i][0];
+                anchor = i;
+            }
+        }
+
+        if (anchor == -1)
+            return false;
+
+        for (int d : dpos[anchor]) {
+
+            // The document position corresponding to the start of the query.
+            final int start = d - base;
+
+            if (matchAt(qpos, dpos, start))
+                return true;
+
+        }
+
+        return false;
+
+    }
+
+    private static boolean matchAt(final int[][] qpos, final int[][] dpos,
+            final int start) {
+
+        for (int i = 0; i < qpos.length; i++) {
+
+            for (int q : qpos[i]) {
+
+                if (Arrays.binarySearch(dpos[i], start + q) < 0)
+                    return false;
+
+            }
+
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Return the width of the smallest window of the document which contains
+     * at least one position of each token. Adjacent tokens have a width of
+     * ONE (1).
+     * 
+     * @param dpos
+     *            The positions of each token in the document.
+     * 
+     * @return The width of the window -or- {@link Integer#MAX_VALUE} if some
+     *         token does not appear in the document.
+     */
+    static int minWindow(final int[][] dpos) {
+
+        final int ntokens = dpos.length;
+
+        int n = 0;
+        for (int[] a : dpos) {
+            if (a == null || a.length == 0)
+                return Integer.MAX_VALUE;
+            n += a.length;
+        }
+
+        // Merge the positions, tagging each with its token index.
+        final long[] merged = new long[n];
+        {
+            int j = 0;
+            for (int i = 0; i < ntokens; i++) {
+                for (int p : dpos[i]) {
+                    merged[j++] = (((long) p) << 32) | i;
+                }
+            }
+        }
+        Arrays.sort(merged);
+
+        final int[] counts = new int[ntokens];
+        int covered = 0;
+        int best = Integer.MAX_VALUE;
+
+        for (int lo = 0, hi = 0; hi < n; hi++) {
+
+            if (counts[(int) merged[hi]]++ == 0)
+                covered++;
+
+            // Shrink the window from the left while it covers every token.
+            while (covered == ntokens) {
+
+                final int width = (int) (merged[hi] >>> 32)
+                        - (int) (merged[lo] >>> 32);
+
+                if (width < best)
+                    best = width;
+
+                if (--counts[(int) merged[lo]] == 0)
+                    covered--;
+
+                lo++;
+
+            }
+
+        }
+
+        return best;
+
+    }
+
+}
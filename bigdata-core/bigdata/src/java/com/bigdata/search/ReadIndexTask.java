@@ -39,6 +39,17 @@ public class ReadIndexTask<V extends Comparable<V>> extends AbstractIndexTask<V>
     private final IHitCollector<V> hits;
     private final ITupleIterator<?> itr;
 
+    /**
+     * Computes the contribution of each posting to the relevance of a hit.
+     */
+    private final ITermScorer scorer;
+
+    /**
+     * When <code>true</code> the positions of the token are collected on the
+     * {@link Hit}.
+     */
+    private final boolean collectPositions;
+
     /**
      * This instance is reused until it is consumed by a successful insertion
      * into {@link #hits} using
@@ -74,12 +85,59 @@ public class ReadIndexTask<V extends Comparable<V>> extends AbstractIndexTask<V>
     		final boolean prefixMatch, final double queryTermWeight, 
     		final FullTextIndex<V> searchEngine, final IHitCollector<V> hits) {
 
+        this(termText, termNdx, numTerms, prefixMatch, queryTermWeight,
+                new CosineTermScorer(queryTermWeight), false/* collectPositions */,
+                searchEngine, hits);
+
+    }
+
+    /**
+     * Setup a task that will perform a range scan for entries matching the
+     * search term.
+     * 
+     * @param termText
+     *            The term text for the search term.
+     * @param termNdx
+     * 			  The index of this term within the overall search.
+     * @param numTerms
+     * 			  The overall number of search terms.
+     * @param prefixMatch
+     *            When <code>true</code> any term having <i>termText</i> as a
+     *            prefix will be matched. Otherwise the term must be an exact
+     *            match for the <i>termText</i>.
+     * @param queryTermWeight
+     *            The weight for the search term.
+     * @param scorer
+     *            Computes the contribution of each posting to the relevance
+     *            of the hit.
+     * @param collectPositions
+     *            When <code>true</code> the positions of the token in each
+     *            document are collected on the {@link Hit} (this requires that
+     *            positions are stored in the index).
+     * @param searchEngine
+     *            The search engine.
+     * @param hits
+     *            The map where the hits are being aggregated.
+     */
+    public ReadIndexTask(final String termText, 
+            final int termNdx, final int numTerms,
+            final boolean prefixMatch, final double queryTermWeight,
+            final ITermScorer scorer, final boolean collectPositions,
+            final FullTextIndex<V> searchEngine, final IHitCollector<V> hits) {
+
     	super(termText, termNdx, numTerms, prefixMatch, queryTermWeight, searchEngine);
     	
         if (hits == null)
             throw new IllegalArgumentException();
         
         this.hits = hits;
+
+        if (scorer == null)
+            throw new IllegalArgumentException();
+
+        this.scorer = scorer;
+
+        this.collectPositions = collectPositions;
      
         if (log.isDebugEnabled())
             log.debug("termText=[" + termText + "], prefixMatch=" + prefixMatch
@@ -186,7 +244,13 @@ public class ReadIndexTask<V extends Comparable<V>> extends AbstractIndexTask<V>
                 }
             }
             
-            hit.add( queryTermNdx, queryTermWeight * termWeight );
+            hit.add( queryTermNdx, scorer.score(termWeight) );
+
+            if (collectPositions) {
+
+                hit.addPositions(queryTermNdx, rec.getPositions());
+
+            }
             
             nhits++;
             
@@ -18,11 +18,25 @@ public class ReadOnlyTermDocRecord<V extends Comparable<V>>
 
     private final double termWeight;
 
+    private final int[] positions;
+
     public ReadOnlyTermDocRecord(final String text, final V docId,
             final int fieldId, 
 //            final int termFreq, 
             final double termWeight) {
 
+        this(text, docId, fieldId, termWeight, null/* positions */);
+
+    }
+
+    /**
+     * @param positions
+     *            The positions of the token within the field -or-
+     *            <code>null</code> if positions are not available.
+     */
+    public ReadOnlyTermDocRecord(final String text, final V docId,
+            final int fieldId, final double termWeight, final int[] positions) {
+
         if (docId == null)
             throw new IllegalArgumentException();
 
@@ -31,6 +45,7 @@ public class ReadOnlyTermDocRecord<V extends Comparable<V>>
         this.fieldId = fieldId;
 //        this.termFreq = termFreq;
         this.termWeight = termWeight;
+        this.positions = positions;
 
     }
 
@@ -68,6 +83,10 @@ public class ReadOnlyTermDocRecord<V extends Comparable<V>>
         return termWeight;
     }
 
+    public int[] getPositions() {
+        return positions;
+    }
+
 //    public int termFreq() {
 //        return termFreq;
 //    }
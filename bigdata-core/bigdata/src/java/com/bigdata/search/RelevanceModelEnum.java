@@ -0,0 +1,54 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+package com.bigdata.search;
+
+/**
+ * The relevance model used to score the hits for a full text query.
+ * 
+ * @see FullTextIndex.Options#RELEVANCE_MODEL
+ */
+public enum RelevanceModelEnum {
+
+    /**
+     * The relevance of a hit is the cosine between the normalized term
+     * frequency vectors of the query and the document.
+     * 
+     * @see CosineTermScorer
+     */
+    Cosine,
+
+    /**
+     * The relevance of a hit is an approximation of the Okapi BM25 score,
+     * normalized into <code>[0:1]</code> by the maximum score that any
+     * document could have for the query. The #of postings in the index is used
+     * in place of the #of documents, which is not maintained by the index.
+     * 
+     * @see BM25TermScorer
+     */
+    BM25;
+
+}
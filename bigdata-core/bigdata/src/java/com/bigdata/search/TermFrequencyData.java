@@ -34,6 +34,18 @@ public class TermFrequencyData<V extends Comparable<V>> {
     public TermFrequencyData(final V docId, final int fieldId,
             final String token) {
 
+        this(docId, fieldId, token, -1/* position */);
+
+    }
+
+    /**
+     * @param position
+     *            The position of the token within the field -or- <code>-1</code>
+     *            if positions are not being recorded.
+     */
+    public TermFrequencyData(final V docId, final int fieldId,
+            final String token, final int position) {
+
         // Note: will be null when indexing a query.
 //        if (docId == null)
 //            throw new IllegalArgumentException();
@@ -42,7 +54,7 @@ public class TermFrequencyData<V extends Comparable<V>> {
         
         this.fieldId = fieldId;
         
-        add( token );
+        add( token, position );
         
     }
 
@@ -56,6 +68,24 @@ public class TermFrequencyData<V extends Comparable<V>> {
      *         {@link TermFrequencyData}.
      */
     public boolean add(final String token) {
+
+        return add(token, -1/* position */);
+
+    }
+
+    /**
+     * Add a {@link Token} at a given position.
+     * 
+     * @param token
+     *            The token.
+     * @param position
+     *            The position of the token within the field -or- <code>-1</code>
+     *            if positions are not being recorded.
+     * 
+     * @return true iff the termText did not previously exist for this
+     *         {@link TermFrequencyData}.
+     */
+    public boolean add(final String token, final int position) {
         
         final boolean newTerm;
         
@@ -75,7 +105,15 @@ public class TermFrequencyData<V extends Comparable<V>> {
             
         }
         
-        termMetadata.add();
+        if (position < 0) {
+
+            termMetadata.add();
+
+        } else {
+
+            termMetadata.add(position);
+
+        }
 
         totalTermCount++;
         
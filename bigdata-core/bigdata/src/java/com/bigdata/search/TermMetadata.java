@@ -1,5 +1,7 @@
 package com.bigdata.search;
 
+import java.util.Arrays;
+
 /**
  * Mutable metadata for the occurrences of a term within a field of some
  * document.
@@ -20,6 +22,24 @@ public class TermMetadata implements ITermMetadata {
     private double localTermWeight;
     private int noccurrences;
 
+    /**
+     * The positions of the occurrences (<code>null</code> unless recorded).
+     * Only the first {@link #npositions} entries are used.
+     */
+    private int[] positions;
+    private int npositions;
+
+    /**
+     * The #of postings for the token (query tokens only).
+     */
+    private long docFreq;
+
+    /**
+     * The upper bound on the score contribution of the token (query tokens
+     * only).
+     */
+    private double scoreUpperBound;
+
 //    public TermMetadata(final String token) {
 //        
 //        this.token = token;
@@ -55,9 +75,62 @@ public class TermMetadata implements ITermMetadata {
         
     }
 
+    public void add(final int position) {
+
+        add();
+
+        if (positions == null) {
+
+            positions = new int[4];
+
+        } else if (npositions == positions.length) {
+
+            positions = Arrays.copyOf(positions, npositions * 2);
+
+        }
+
+        positions[npositions++] = position;
+
+    }
+
+    public int[] getPositions() {
+
+        if (positions == null)
+            return null;
+
+        return Arrays.copyOf(positions, npositions);
+
+    }
+
+    public long getDocFreq() {
+
+        return docFreq;
+
+    }
+
+    public void setDocFreq(final long docFreq) {
+
+        this.docFreq = docFreq;
+
+    }
+
+    public double getScoreUpperBound() {
+
+        return scoreUpperBound;
+
+    }
+
+    public void setScoreUpperBound(final double d) {
+
+        scoreUpperBound = d;
+
+    }
+
     public String toString() {
 
-        return "{noccur=" + noccurrences + ",weight=" + localTermWeight + "}";
+        return "{noccur=" + noccurrences + ",weight=" + localTermWeight
+                + ",docFreq=" + docFreq + ",scoreUpperBound="
+                + scoreUpperBound + "}";
 
     }
     
@@ -1,7 +1,9 @@
 package com.bigdata.search;
 
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.log4j.Logger;
 
@@ -156,10 +158,32 @@ public class TokenBuffer<V extends Comparable<V>> {
      */
     public void add(final V docId, final int fieldId, final String token) {
 
+        add(docId, fieldId, token, -1/* position */);
+
+    }
+
+    /**
+     * Variant which also records the position of the token within the field.
+     * 
+     * @param docId
+     *            The document identifier.
+     * @param fieldId
+     *            The field identifier.
+     * @param token
+     *            The token.
+     * @param position
+     *            The position of the token within the field -or- <code>-1</code>
+     *            if positions are not being recorded.
+     * 
+     * @see FullTextIndex.Options#POSITIONS_ENABLED
+     */
+    public void add(final V docId, final int fieldId, final String token,
+            final int position) {
+
         if (log.isDebugEnabled()) {
 
             log.debug("docId=" + docId + ", fieldId=" + fieldId + ", token="
-                    + token);
+                    + token + ", position=" + position);
             
         }
         
@@ -220,13 +244,14 @@ public class TokenBuffer<V extends Comparable<V>> {
 
         if(newField) {
 
-            buffer[count++] = new TermFrequencyData<V>(docId, fieldId, token);
+            buffer[count++] = new TermFrequencyData<V>(docId, fieldId, token,
+                    position);
             
             nterms++;
             
         } else {
             
-            if( buffer[count-1].add(token) ) {
+            if( buffer[count-1].add(token, position) ) {
                 
                 nterms++;
                 
@@ -288,6 +313,10 @@ public class TokenBuffer<V extends Comparable<V>> {
         // #of {token,docId,fieldId} tuples generated
         int n = 0;
 
+        // the distinct tokens (when maintaining the completion index).
+        final Set<String> tokens = textIndexer
+                .isCompletionIndexEnabled() ? new HashSet<String>() : null;
+
         // for each document in the buffer.
         for (int i = 0; i < count; i++) {
 
@@ -304,6 +333,9 @@ public class TokenBuffer<V extends Comparable<V>> {
                 
                 final ITermMetadata termMetadata = e.getValue();
 
+                if (tokens != null)
+                    tokens.add(termText);
+
 //                final byte[] key = recordBuilder.getKey(keyBuilder, termText,
 //                        false/* successor */, docId, fieldId);
 
@@ -315,7 +347,8 @@ public class TokenBuffer<V extends Comparable<V>> {
                  */
                 final ITermDocRecord<V> rec = new ReadOnlyTermDocRecord<V>(
                         termText, docId, fieldId, /* termMetadata.termFreq(), */
-                        termMetadata.getLocalTermWeight());
+                        termMetadata.getLocalTermWeight(),
+                        termMetadata.getPositions());
 
                 final byte[] key = tupleSer.serializeKey(rec);
 
@@ -361,6 +394,13 @@ public class TokenBuffer<V extends Comparable<V>> {
         // Batch write on the index.
         writeOnIndex(n, keys, vals);
 
+        if (tokens != null) {
+
+            // Update the completion index for the tokens which were written.
+            textIndexer.updateCompletionIndex(tokens);
+
+        }
+
         // Clear the buffer.
         reset();
         
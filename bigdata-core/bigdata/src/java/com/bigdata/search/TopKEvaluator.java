@@ -0,0 +1,569 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+package com.bigdata.search;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.apache.lucene.search.similarities.DefaultSimilarity;
+
+import com.bigdata.btree.IIndex;
+import com.bigdata.btree.IRangeQuery;
+import com.bigdata.btree.ITupleIterator;
+import com.bigdata.btree.ITupleSerializer;
+
+/**
+ * Evaluates a full text query for the top <i>k</i> hits without reading all of
+ * the postings for the query tokens.
+ * <p>
+ * The key for the full text index is <code>{token, termWeight, docId}</code>,
+ * so the postings for a token are ordered by their local term weight (an
+ * impact ordering) rather than by the document identifier. This rules out the
+ * docId-ordered cursors used by WAND. Instead, this class uses the threshold
+ * algorithm, which is the analog of MaxScore for impact ordered postings:
+ * <ol>
+ * <li>Each query token is read in reverse key order, i.e., in decreasing
+ * order of its score contribution. The first posting gives the upper bound on
+ * the score contribution of that token, which is reported via
+ * {@link ITermMetadata#setScoreUpperBound(double)}. Thereafter, the next
+ * unread posting gives an upper bound (the <em>frontier</em>) on the score
+ * contribution of any document which has not yet been seen for that token.</li>
+ * <li>The postings are read round-robin in batches of increasing size. Each
+ * document seen has a lower bound (the sum of the contributions seen so far)
+ * and an upper bound (the lower bound plus the frontiers of the tokens for
+ * which it has not been seen).</li>
+ * <li>Reading stops once the k-th best lower bound is at least the sum of the
+ * frontiers, since no unseen document can do better.</li>
+ * <li>The exact scores of the documents whose upper bound is above the k-th
+ * best lower bound are then completed by probing the index for their unread
+ * tokens. Since the posting key includes the compact (single byte) term
+ * weight, this is a bounded number of point lookups per document and token.
+ * The top k of those documents are the hits.</li>
+ * </ol>
+ * The result is the same set of hits (modulo ties) with the same relevance as
+ * reading all postings and taking the first <i>k</i> hits, but the #of
+ * postings read depends on the skew of the score distribution rather than the
+ * document frequency of the tokens.
+ * <p>
+ * Note: This does not support prefix match since the postings for a prefix
+ * span many tokens and are therefore not in score order. It also requires
+ * that the fieldId is not part of the key since the probes must form the
+ * complete key.
+ * 
+ * @param <V>
+ *            The generic type of the document identifier.
+ * 
+ * @see FullTextIndex.Options#TOP_K_EVALUATION
+ */
+public class TopKEvaluator<V extends Comparable<V>> {
+
+    final private static Logger log = Logger.getLogger(TopKEvaluator.class);
+
+    /**
+     * The #of postings read for each token in the first round. The batch size
+     * doubles with each round.
+     */
+    static final int INITIAL_BATCH_SIZE = 128;
+
+    private final FullTextIndex<V> searchEngine;
+
+    private final IIndex ndx;
+
+    @SuppressWarnings("rawtypes")
+    private final ITupleSerializer tupleSer;
+
+    private final int k;
+
+    private final long deadline;
+
+    private final Cursor[] cursors;
+
+    /**
+     * The documents seen so far.
+     */
+    private final Map<V, Candidate<V>> candidates = new HashMap<V, Candidate<V>>();
+
+    /**
+     * The #of postings read.
+     */
+    private long nread = 0L;
+
+    /**
+     * @param searchEngine
+     *            The search engine.
+     * @param qdata
+     *            The tokenized query.
+     * @param scorers
+     *            The scorer for each query token (in the iteration order of
+     *            {@link TermFrequencyData#terms}).
+     * @param k
+     *            The #of hits to return.
+     * @param timeout
+     *            The timeout.
+     * @param unit
+     *            The unit for the timeout.
+     */
+    public TopKEvaluator(final FullTextIndex<V> searchEngine,
+            final TermFrequencyData<V> qdata, final ITermScorer[] scorers,
+            final int k, final long timeout, final TimeUnit unit) {
+
+        if (searchEngine == null)
+            throw new IllegalArgumentException();
+
+        if (qdata == null)
+            throw new IllegalArgumentException();
+
+        if (scorers == null || scorers.length != qdata.distinctTermCount())
+            throw new IllegalArgumentException();
+
+        if (k <= 0)
+            throw new IllegalArgumentException();
+
+        this.searchEngine = searchEngine;
+
+        this.ndx = searchEngine.getIndex();
+
+        this.tupleSer = ndx.getIndexMetadata().getTupleSerializer();
+
+        this.k = k;
+
+        final long nanos = unit.toNanos(timeout);
+
+        final long now = System.nanoTime();
+
+        this.deadline = nanos >= Long.MAX_VALUE - now ? Long.MAX_VALUE : now
+                + nanos;
+
+        final int nterms = qdata.distinctTermCount();
+
+        this.cursors = new TopKEvaluator.Cursor[nterms];
+
+        int i = 0;
+        for (Map.Entry<String, ITermMetadata> e : qdata.terms.entrySet()) {
+
+            cursors[i] = new Cursor(e.getKey(), i, nterms, e.getValue(),
+                    scorers[i]);
+
+            i++;
+
+        }
+
+    }
+
+    /**
+     * Evaluate the query.
+     * 
+     * @return The top <i>k</i> hits in rank order.
+     */
+    public Hit<V>[] call() {
+
+        final long begin = System.currentTimeMillis();
+
+        int batchSize = INITIAL_BATCH_SIZE;
+
+        boolean timedOut = false;
+
+        while (!isDone()) {
+
+            if (Thread.interrupted()) {
+
+                throw new RuntimeException(new InterruptedException());
+
+            }
+
+            if (System.nanoTime() >= deadline) {
+
+                log.warn("Timeout - only partial results will be returned.");
+
+                timedOut = true;
+
+                break;
+
+            }
+
+            for (Cursor c : cursors) {
+
+                c.read(batchSize);
+
+            }
+
+            batchSize = batchSize >= Integer.MAX_VALUE / 2 ? Integer.MAX_VALUE
+                    : batchSize * 2;
+
+        }
+
+        Candidate<V>[] a = getCandidatesByLowerBound();
+
+        if (!timedOut && a.length > 0) {
+
+            /*
+             * Complete the score of each document which could be in the top k.
+             */
+
+            final double kth = a[Math.min(k, a.length) - 1].lower;
+
+            for (Candidate<V> c : a) {
+
+                if (c.lower < kth && upperBound(c) <= kth)
+                    continue;
+
+                for (Cursor cursor : cursors) {
+
+                    if (Double.isNaN(c.scores[cursor.queryTermNdx])) {
+
+                        cursor.probe(c);
+
+                    }
+
+                }
+
+            }
+
+            a = getCandidatesByLowerBound();
+
+        }
+
+        final int n = Math.min(k, a.length);
+
+        @SuppressWarnings("unchecked")
+        final Hit<V>[] hits = new Hit[n];
+
+        for (int i = 0; i < n; i++) {
+
+            final Candidate<V> c = a[i];
+
+            final Hit<V> hit = new Hit<V>(cursors.length);
+
+            hit.setDocId(c.docId);
+
+            for (int j = 0; j < c.scores.length; j++) {
+
+                if (!Double.isNaN(c.scores[j]))
+                    hit.add(j, c.scores[j]);
+
+            }
+
+            hits[i] = hit;
+
+        }
+
+        Arrays.sort(hits);
+
+        for (int i = 0; i < hits.length; i++) {
+
+            hits[i].setRank(i + 1);
+
+        }
+
+        if (log.isInfoEnabled())
+            log.info("k=" + k + ", nhits=" + hits.length + ", ncandidates="
+                    + candidates.size() + ", nread=" + nread + ", elapsed="
+                    + (System.currentTimeMillis() - begin) + "ms");
+
+        return hits;
+
+    }
+
+    /**
+     * The #of postings read by {@link #call()}.
+     */
+    public long getReadCount() {
+
+        return nread;
+
+    }
+
+    /**
+     * Return <code>true</code> iff the top k documents are among those seen
+     * so far.
+     */
+    private boolean isDone() {
+
+        double unseen = 0d;
+
+        boolean exhausted = true;
+
+        for (Cursor c : cursors) {
+
+            unseen += c.frontier;
+
+            if (c.head != null)
+                exhausted = false;
+
+        }
+
+        if (exhausted) {
+
+            // All postings were read.
+            return true;
+
+        }
+
+        if (candidates.size() < k) {
+
+            return false;
+
+        }
+
+        final Candidate<V>[] a = getCandidatesByLowerBound();
+
+        // true unless an unseen document could still enter the top k.
+        return unseen <= a[k - 1].lower;
+
+    }
+
+    private double upperBound(final Candidate<V> c) {
+
+        double upper = c.lower;
+
+        for (Cursor cursor : cursors) {
+
+            if (Double.isNaN(c.scores[cursor.queryTermNdx]))
+                upper += cursor.frontier;
+
+        }
+
+        return upper;
+
+    }
+
+    @SuppressWarnings("unchecked")
+    private Candidate<V>[] getCandidatesByLowerBound() {
+
+        final Candidate<V>[] a = candidates.values().toArray(
+                new Candidate[candidates.size()]);
+
+        Arrays.sort(a, new Comparator<Candidate<V>>() {
+            @Override
+            public int compare(final Candidate<V> o1, final Candidate<V> o2) {
+                if (o1.lower < o2.lower)
+                    return 1;
+                if (o1.lower > o2.lower)
+                    return -1;
+                return o1.docId.compareTo(o2.docId);
+            }
+        });
+
+        return a;
+
+    }
+
+    /**
+     * A document seen for at least one query token.
+     */
+    private static class Candidate<V> {
+
+        final V docId;
+
+        /**
+         * The score contribution for each query token -or- NaN if the document
+         * has not been seen for that token.
+         */
+        final double[] scores;
+
+        /**
+         * The sum of the known score contributions.
+         */
+        double lower = 0d;
+
+        Candidate(final V docId, final int nterms) {
+
+            this.docId = docId;
+
+            this.scores = new double[nterms];
+
+            Arrays.fill(scores, Double.NaN);
+
+        }
+
+        void add(final int termNdx, final double score) {
+
+            scores[termNdx] = score;
+
+            lower += score;
+
+        }
+
+    }
+
+    /**
+     * Reads the postings for a query token in decreasing order of their score
+     * contribution.
+     */
+    private class Cursor extends AbstractIndexTask<V> {
+
+        private final ITermScorer scorer;
+
+        private final ITupleIterator<?> itr;
+
+        /**
+         * The next unread posting -or- <code>null</code> if the postings are
+         * exhausted.
+         */
+        private ITermDocKey<V> head;
+
+        /**
+         * An upper bound on the score contribution of any unread posting.
+         */
+        private double frontier;
+
+        /**
+         * The least local term weight for the token (lazily resolved).
+         */
+        private double minWeight = Double.NaN;
+
+        @SuppressWarnings("unchecked")
+        Cursor(final String termText, final int termNdx, final int numTerms,
+                final ITermMetadata md, final ITermScorer scorer) {
+
+            super(termText, termNdx, numTerms, false/* prefixMatch */, md
+                    .getLocalTermWeight(), searchEngine);
+
+            this.scorer = scorer;
+
+            this.itr = ndx.rangeIterator(fromKey, toKey, 0/* capacity */,
+                    IRangeQuery.KEYS | IRangeQuery.VALS | IRangeQuery.REVERSE,
+                    null/* filter */);
+
+            this.head = itr.hasNext() ? (ITermDocKey<V>) itr.next()
+                    .getObject() : null;
+
+            this.frontier = head == null ? 0d : scorer.score(head
+                    .getLocalTermWeight());
+
+            md.setScoreUpperBound(frontier);
+
+            if (log.isDebugEnabled())
+                log.debug("term=" + queryTerm + ", md=" + md + ", scorer="
+                        + scorer);
+
+        }
+
+        /**
+         * Read up to <i>n</i> postings.
+         */
+        @SuppressWarnings("unchecked")
+        void read(final int n) {
+
+            int i = 0;
+
+            while (head != null && i < n) {
+
+                final V docId = head.getDocId();
+
+                Candidate<V> c = candidates.get(docId);
+
+                if (c == null) {
+
+                    candidates.put(docId, c = new Candidate<V>(docId,
+                            numQueryTerms));
+
+                }
+
+                c.add(queryTermNdx, scorer.score(head.getLocalTermWeight()));
+
+                head = itr.hasNext() ? (ITermDocKey<V>) itr.next().getObject()
+                        : null;
+
+                i++;
+
+            }
+
+            nread += i;
+
+            frontier = head == null ? 0d : scorer.score(head
+                    .getLocalTermWeight());
+
+        }
+
+        /**
+         * Probe the unread postings of this token for the document, adding the
+         * score contribution to the candidate if the document is found.
+         */
+        @SuppressWarnings("unchecked")
+        void probe(final Candidate<V> c) {
+
+            if (head == null) {
+
+                // All postings were read, so the document does not have this token.
+                return;
+
+            }
+
+            final DefaultSimilarity similarity = new DefaultSimilarity();
+
+            final byte hi = (byte) similarity.encodeNormValue((float) head
+                    .getLocalTermWeight());
+
+            final byte lo = (byte) similarity
+                    .encodeNormValue((float) getMinWeight());
+
+            for (int b = hi; b >= lo; b--) {
+
+                final double w = similarity.decodeNormValue((byte) b);
+
+                final byte[] key = tupleSer
+                        .serializeKey(new ReadOnlyTermDocRecord<V>(queryTerm,
+                                c.docId, 0/* fieldId */, w));
+
+                if (ndx.contains(key)) {
+
+                    c.add(queryTermNdx, scorer.score(w));
+
+                    return;
+
+                }
+
+            }
+
+        }
+
+        @SuppressWarnings("unchecked")
+        private double getMinWeight() {
+
+            if (Double.isNaN(minWeight)) {
+
+                final ITupleIterator<?> itr = ndx.rangeIterator(fromKey, toKey,
+                        1/* capacity */, IRangeQuery.KEYS | IRangeQuery.VALS,
+                        null/* filter */);
+
+                minWeight = ((ITermDocKey<V>) itr.next().getObject())
+                        .getLocalTermWeight();
+
+            }
+
+            return minWeight;
+
+        }
+
+    }
+
+}
@@ -325,10 +325,19 @@ public abstract class AbstractScaleOutFederation<T> extends AbstractFederation<T
              * The first locator visited will be the first index partition whose
              * leftSeparator is LT the optional toKey. (If the toKey falls on an
              * index partition boundary then we use the prior index partition).
+             * 
+             * Note: As for the forward scan, the optional fromKey is replaced by
+             * the leftSeparator of the index partition which would contain that
+             * fromKey. Otherwise that index partition would not be visited.
              */
 
+            final byte[] _fromKey = fromKey == null //
+                ? null //
+                : mdi.find(fromKey).getLeftSeparatorKey()//
+                ;
+
             itr = mdi.rangeIterator(//
-                    fromKey,//
+                    _fromKey,//
                     toKey, //
                     0, // capacity
                     flags | IRangeQuery.REVERSE,
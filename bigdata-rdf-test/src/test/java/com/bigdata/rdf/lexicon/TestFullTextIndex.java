@@ -29,6 +29,8 @@ package com.bigdata.rdf.lexicon;
 
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Properties;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
@@ -62,14 +64,18 @@ import com.bigdata.rdf.spo.ISPO;
 import com.bigdata.rdf.spo.TestSPOKeyOrder;
 import com.bigdata.rdf.store.AbstractTripleStore;
 import com.bigdata.rdf.store.AbstractTripleStoreTestCase;
+import com.bigdata.rdf.store.BDS;
 import com.bigdata.rdf.store.BigdataValueIteratorImpl;
 import com.bigdata.rdf.util.DumpLexicon;
 import com.bigdata.rdf.vocab.NoVocabulary;
+import com.bigdata.search.FullTextIndex;
 import com.bigdata.search.Hit;
 import com.bigdata.search.Hiterator;
+import com.bigdata.search.ITermDocRecord;
 import com.bigdata.striterator.ChunkedWrappedIterator;
 import com.bigdata.striterator.Resolver;
 import com.bigdata.striterator.Striterator;
+import com.bigdata.util.BytesUtil;
 
 import cutthecrap.utils.striterators.ICloseableIterator;
 
@@ -160,11 +166,21 @@ public class TestFullTextIndex extends AbstractTripleStoreTestCase {
         
     }
 
-    @SuppressWarnings("unchecked")
     private void assertExpectedHits(final AbstractTripleStore store,
             final String query, final String languageCode, final boolean prefixMatch,
             final float minCosine, final BigdataValue[] expected) {
 
+        assertExpectedHits(store, query, languageCode, prefixMatch, minCosine,
+                false/* matchPhrase */, BDS.DEFAULT_PROXIMITY, expected);
+
+    }
+
+    @SuppressWarnings("unchecked")
+    private void assertExpectedHits(final AbstractTripleStore store,
+            final String query, final String languageCode, final boolean prefixMatch,
+            final float minCosine, final boolean matchPhrase,
+            final int proximity, final BigdataValue[] expected) {
+
         final Hiterator hitr = store.getLexiconRelation().getSearchEngine()
                 .search(new FullTextQuery(
                 		query, languageCode, 
@@ -175,7 +191,9 @@ public class TestFullTextIndex extends AbstractTripleStoreTestCase {
                 		minCosine, 1.0d/* maxCosine */,
                         1/* minRank */, Integer.MAX_VALUE/* maxRank */,
                         Long.MAX_VALUE,//2L/* timeout */,
-                        TimeUnit.MILLISECONDS// TimeUnit.SECONDS
+                        TimeUnit.MILLISECONDS,// TimeUnit.SECONDS
+                        matchPhrase,
+                        proximity
                         ));
 
         // assertEquals("#hits", (long) expected.length, itr.size());
@@ -506,6 +524,69 @@ public class TestFullTextIndex extends AbstractTripleStoreTestCase {
 
         }
         
+    }
+
+    /**
+     * Unit test for phrase and proximity queries against a text index which
+     * stores the positions of the tokens.
+     */
+    public void test_text_index_phrase() {
+
+        final Properties properties = getProperties();
+
+        properties.setProperty(FullTextIndex.Options.POSITIONS_ENABLED, "true");
+
+        AbstractTripleStore store = getStore(properties);
+
+        try {
+
+            final BigdataValueFactory f = store.getValueFactory();
+
+            final BigdataValue[] terms = new BigdataValue[] {//
+                    f.createLiteral("quick brown fox"),//
+                    f.createLiteral("brown quick fox"),//
+                    f.createLiteral("quick red brown fox"),//
+            };
+
+            store.addTerms(terms);
+
+            assertExpectedHits(store, "quick brown", null/* languageCode */,
+                    false/* prefixMatch */, 0f/* minCosine */,
+                    true/* matchPhrase */, BDS.DEFAULT_PROXIMITY,
+                    new BigdataValue[] {//
+                    f.createLiteral("quick brown fox") //
+                    });
+
+            assertExpectedHits(store, "quick fox", null/* languageCode */,
+                    false/* prefixMatch */, 0f/* minCosine */,
+                    false/* matchPhrase */, 2/* proximity */,
+                    new BigdataValue[] {//
+                    f.createLiteral("quick brown fox"), //
+                    f.createLiteral("brown quick fox") //
+                    });
+
+            if (store.isStable()) {
+
+                store.commit();
+
+                store = reopenStore(store);
+
+                assertExpectedHits(store, "brown fox", null/* languageCode */,
+                        false/* prefixMatch */, 0f/* minCosine */,
+                        true/* matchPhrase */, BDS.DEFAULT_PROXIMITY,
+                        new BigdataValue[] {//
+                        f.createLiteral("quick brown fox"), //
+                        f.createLiteral("quick red brown fox") //
+                        });
+
+            }
+
+        } finally {
+
+            store.__tearDownUnitTest();
+
+        }
+
     }
 
 	/**
@@ -905,5 +986,205 @@ public class TestFullTextIndex extends AbstractTripleStoreTestCase {
         }
 
     }
+
+    /**
+     * Unit test for {@link LexiconRelation#rebuildTextIndex(boolean, int)}
+     * verifying that a parallel rebuild over key ranges of the lexicon produces
+     * the same text index as a serial rebuild. Every posting is compared and
+     * decoded since the postings are serialized concurrently by the parallel
+     * rebuild.
+     */
+    public void test_rebuildIndex_parallel() {
+
+        final Properties properties = getProperties();
+
+        // Use variable length values.
+        properties.setProperty(FullTextIndex.Options.POSITIONS_ENABLED, "true");
+
+        final AbstractTripleStore store = getStore(properties);
+
+        try {
+
+            final BigdataValueFactory f = store.getValueFactory();
+
+            final int n = 5000;
+
+            addLiterals(store, "common word", n);
+
+            addLiterals(store, "common common common word word other", n);
+
+            store.getLexiconRelation().rebuildTextIndex(false/* forceCreate */,
+                    1/* nthreads */);
+
+            final Map<String, String> expected = getPostings(store);
+
+            assertTrue(expected.size() > 0);
+
+            store.getLexiconRelation().rebuildTextIndex(false/* forceCreate */,
+                    8/* nthreads */);
+
+            final Map<String, String> actual = getPostings(store);
+
+            assertEquals(expected.size(), actual.size());
+
+            for (Map.Entry<String, String> e : expected.entrySet()) {
+
+                assertEquals(e.getKey(), e.getValue(), actual.get(e.getKey()));
+
+            }
+
+            assertExpectedHits(store, "word17", null/* languageCode */,
+                    .0f/* minCosine */, new BigdataValue[] { //
+                    f.createLiteral("common word" + 17) //
+                    });
+
+            assertExpectedHits(store, "word" + (n - 1), null/* languageCode */,
+                    .0f/* minCosine */, new BigdataValue[] { //
+                    f.createLiteral("common word" + (n - 1)) //
+                    });
+
+        } finally {
+
+            store.__tearDownUnitTest();
+
+        }
+
+    }
+
+    /**
+     * Return the encoded value of each posting in the text index, keyed by the
+     * encoded key of that posting. Each posting is also decoded and its
+     * document identifier is verified against the lexicon.
+     */
+    private Map<String, String> getPostings(final AbstractTripleStore store) {
+
+        final Map<String, String> postings = new LinkedHashMap<String, String>();
+
+        final ITupleIterator<?> itr = getTextIndex(store).rangeIterator(
+                null/* fromKey */, null/* toKey */, 0/* capacity */,
+                IRangeQuery.KEYS | IRangeQuery.VALS, null/* filter */);
+
+        while (itr.hasNext()) {
+
+            final ITuple<?> tuple = itr.next();
+
+            final ITermDocRecord<?> rec = (ITermDocRecord<?>) tuple.getObject();
+
+            final IV<?, ?> docId = (IV<?, ?>) rec.getDocId();
+
+            assertNotNull(store.getLexiconRelation().getTerm(docId));
+
+            final int[] positions = rec.getPositions();
+
+            assertNotNull(positions);
+
+            assertTrue(positions.length > 0);
+
+            postings.put(BytesUtil.toString(tuple.getKey()),
+                    BytesUtil.toString(tuple.getValue()) + "/"
+                            + Arrays.toString(positions));
+
+        }
+
+        return postings;
+
+    }
+
+    /**
+     * Unit test for {@link LexiconRelation#updateTextIndex(long, int)}
+     * verifying that only the literals added after the given commit point are
+     * indexed.
+     */
+    public void test_updateTextIndex() {
+
+        final AbstractTripleStore store = getStore();
+
+        try {
+
+            if (!store.isStable()) {
+
+                // Requires access to historical commit points.
+                return;
+
+            }
+
+            final BigdataValueFactory f = store.getValueFactory();
+
+            addLiterals(store, "alpha", 10);
+
+            final long commitTime = store.commit();
+
+            addLiterals(store, "beta", 10);
+
+            store.commit();
+
+            // Clear the text index.
+            {
+                final ITupleIterator<?> itr = getTextIndex(store).rangeIterator(
+                        null/* fromKey */, null/* toKey */, 0/* capacity */,
+                        IRangeQuery.KEYS | IRangeQuery.REMOVEALL, null/* filter */);
+
+                while (itr.hasNext()) {
+                    itr.next();
+                }
+
+                store.commit();
+            }
+
+            assertExpectedHits(store, "beta3", null/* languageCode */,
+                    .0f/* minCosine */, new BigdataValue[] {});
+
+            store.getLexiconRelation().updateTextIndex(commitTime, 2/* nthreads */);
+
+            assertExpectedHits(store, "beta3", null/* languageCode */,
+                    .0f/* minCosine */, new BigdataValue[] { //
+                    f.createLiteral("beta" + 3) //
+                    });
+
+            // not indexed since it existed as of the commit point.
+            assertExpectedHits(store, "alpha3", null/* languageCode */,
+                    .0f/* minCosine */, new BigdataValue[] {});
+
+        } finally {
+
+            store.__tearDownUnitTest();
+
+        }
+
+    }
+
+    /**
+     * Add <i>n</i> literals of the form <code>prefix+i</code> to the store.
+     */
+    private void addLiterals(final AbstractTripleStore store,
+            final String prefix, final int n) {
+
+        final BigdataValueFactory f = store.getValueFactory();
+
+        final Resource s = f.createURI("x:s");
+
+        final URI p = f.createURI("x:p");
+
+        final IStatementBuffer<Statement> buffer = new StatementBuffer<Statement>(
+                null/* focusStore */, store, 1000/* capacity */, 0/* queueCapacity */);
+
+        for (int i = 0; i < n; i++) {
+
+            buffer.add(s, p, f.createLiteral(prefix + i));
+
+        }
+
+        buffer.flush();
+
+    }
+
+    private IIndex getTextIndex(final AbstractTripleStore store) {
+
+        final String name = store.getLexiconRelation().getNamespace() + "."
+                + BigdataValueCentricFullTextIndex.NAME_SEARCH;
+
+        return store.getIndexManager().getIndex(name, store.getTimestamp());
+
+    }
     
 }
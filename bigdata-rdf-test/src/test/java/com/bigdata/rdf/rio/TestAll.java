@@ -83,6 +83,9 @@ public class TestAll extends TestCase {
 		 */
         suite.addTestSuite(TestNTriplesWithSids.class);
 
+        // Compact binary encoding of SPARQL solutions.
+        suite.addTestSuite(TestBinaryTupleResults.class);
+
         /*
          * Correctness tests for the asynchronous bulk data loader. This
          * requires the scale-out architecture. SIDs are not supported yet.
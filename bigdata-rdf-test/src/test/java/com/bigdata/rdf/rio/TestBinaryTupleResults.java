@@ -0,0 +1,278 @@
+/**
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+package com.bigdata.rdf.rio;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.openrdf.model.Value;
+import org.openrdf.model.impl.BNodeImpl;
+import org.openrdf.model.impl.LiteralImpl;
+import org.openrdf.model.impl.URIImpl;
+import org.openrdf.model.vocabulary.XMLSchema;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.impl.ListBindingSet;
+import org.openrdf.query.impl.MapBindingSet;
+import org.openrdf.query.resultio.QueryResultParseException;
+import org.openrdf.query.resultio.TupleQueryResultFormat;
+import org.openrdf.query.resultio.TupleQueryResultParserRegistry;
+import org.openrdf.query.resultio.TupleQueryResultWriterRegistry;
+import org.openrdf.query.resultio.helpers.QueryResultCollector;
+
+import com.bigdata.rdf.ServiceProviderHook;
+import com.bigdata.rdf.internal.VTE;
+import com.bigdata.rdf.internal.impl.TermId;
+import com.bigdata.rdf.model.BigdataURI;
+import com.bigdata.rdf.model.BigdataValueFactory;
+import com.bigdata.rdf.model.BigdataValueFactoryImpl;
+import com.bigdata.rdf.rio.binary.BigdataBinaryTupleResultWriter;
+import com.bigdata.rdf.sail.webapp.client.BinaryTupleResultParser;
+
+import junit.framework.TestCase2;
+
+/**
+ * Test suite for the compact binary encoding of SPARQL solutions.
+ * 
+ * @see BigdataBinaryTupleResultWriter
+ * @see BinaryTupleResultParser
+ */
+public class TestBinaryTupleResults extends TestCase2 {
+
+    public TestBinaryTupleResults() {
+    }
+
+    public TestBinaryTupleResults(final String name) {
+        super(name);
+    }
+
+    private static final List<String> names = Arrays.asList("x", "y", "z");
+
+    /**
+     * The writer and parser are registered for the format.
+     */
+    public void test_registry() {
+
+        ServiceProviderHook.forceLoad();
+
+        final TupleQueryResultFormat format = TupleQueryResultFormat
+                .forMIMEType("application/x-bigdata-binary-results");
+
+        assertEquals(ServiceProviderHook.BINARY_RESULTS, format);
+
+        assertNotNull(TupleQueryResultWriterRegistry.getInstance().get(format));
+
+        assertNotNull(TupleQueryResultParserRegistry.getInstance().get(format));
+
+    }
+
+    public void test_empty() throws Exception {
+
+        assertEquals(Collections.<BindingSet> emptyList(),
+                roundTrip(Collections.<BindingSet> emptyList(), 1024, 1024));
+
+    }
+
+    /**
+     * Each kind of value, unbound variables, non-ASCII and long strings.
+     */
+    public void test_values() throws Exception {
+
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++)
+            sb.append((char) ('a' + i % 26));
+
+        final Value[] values = new Value[] {
+                new URIImpl("http://www.bigdata.com/a"),
+                new URIImpl("http://www.bigdata.com/b#c"),
+                new URIImpl("urn:x-y"),
+                new BNodeImpl("b1"),
+                new LiteralImpl("plain"),
+                new LiteralImpl("chat", "fr"),
+                new LiteralImpl("12", XMLSchema.INT),
+                new LiteralImpl("\u00e9t\u00e9 \u65e5\u672c"),
+                new LiteralImpl(sb.toString()),
+                new LiteralImpl(""),
+                null };
+
+        final List<BindingSet> solutions = new ArrayList<BindingSet>();
+
+        for (int i = 0; i < values.length; i++) {
+
+            solutions.add(new ListBindingSet(names, values[i],
+                    values[(i + 1) % values.length], values[(i + 3)
+                            % values.length]));
+
+        }
+
+        // A solution having a variable which is not projected.
+        final MapBindingSet bset = new MapBindingSet();
+        bset.addBinding("x", values[0]);
+        bset.addBinding("w", values[1]);
+        solutions.add(bset);
+
+        final List<BindingSet> expected = new ArrayList<BindingSet>(solutions);
+        expected.set(expected.size() - 1, new ListBindingSet(names,
+                values[0], null, null));
+
+        assertEquals(expected, roundTrip(solutions, 1024 * 1024, 1024));
+
+        // Many small chunks.
+        assertEquals(expected, roundTrip(solutions, 1, 1024));
+
+        // The dictionaries are cleared after each chunk.
+        assertEquals(expected, roundTrip(solutions, 16, 1));
+
+    }
+
+    /**
+     * Values having an IV are recognized by their IV and are sent once.
+     */
+    public void test_ivs() throws Exception {
+
+        final BigdataValueFactory f = BigdataValueFactoryImpl.getInstance(getName()
+                + UUID.randomUUID());
+
+        try {
+
+            final List<BindingSet> solutions = new ArrayList<BindingSet>();
+
+            for (int i = 0; i < 100; i++) {
+
+                final BigdataURI uri = f.createURI("http://www.bigdata.com/"
+                        + (i % 10));
+
+                uri.setIV(new TermId<BigdataURI>(VTE.URI, 1 + i % 10));
+
+                solutions.add(new ListBindingSet(names, uri, null, null));
+
+            }
+
+            final ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+            write(os, solutions, 1024 * 1024, 1024);
+
+            assertEquals(solutions, read(os.toByteArray()));
+
+            /*
+             * One byte per variable per row plus ten distinct values which
+             * are each sent once.
+             */
+            assertTrue(os.size() < 100 * names.size() + 100);
+
+        } finally {
+
+            f.remove();
+
+        }
+
+    }
+
+    /**
+     * A truncated response is detected.
+     */
+    public void test_truncated() throws Exception {
+
+        final List<BindingSet> solutions = new ArrayList<BindingSet>();
+
+        for (int i = 0; i < 100; i++) {
+
+            solutions.add(new ListBindingSet(names, new URIImpl(
+                    "http://www.bigdata.com/" + i), null, null));
+
+        }
+
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+        write(os, solutions, 64, 1024);
+
+        final byte[] a = os.toByteArray();
+
+        for (int len : new int[] { 0, 3, a.length / 2, a.length - 1 }) {
+
+            try {
+                read(Arrays.copyOf(a, len));
+                fail("Expecting: " + QueryResultParseException.class);
+            } catch (QueryResultParseException ex) {
+                if (log.isInfoEnabled())
+                    log.info("Ignoring expected exception: " + ex);
+            }
+
+        }
+
+    }
+
+    private static List<BindingSet> roundTrip(final List<BindingSet> solutions,
+            final int chunkSize, final int maxDictionarySize) throws Exception {
+
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+        write(os, solutions, chunkSize, maxDictionarySize);
+
+        return read(os.toByteArray());
+
+    }
+
+    private static void write(final ByteArrayOutputStream os,
+            final List<BindingSet> solutions, final int chunkSize,
+            final int maxDictionarySize) throws Exception {
+
+        final BigdataBinaryTupleResultWriter w = new BigdataBinaryTupleResultWriter(
+                os, chunkSize, maxDictionarySize);
+
+        w.startQueryResult(names);
+
+        for (BindingSet bs : solutions) {
+
+            w.handleSolution(bs);
+
+        }
+
+        w.endQueryResult();
+
+    }
+
+    private static List<BindingSet> read(final byte[] a) throws Exception {
+
+        final BinaryTupleResultParser p = new BinaryTupleResultParser();
+
+        final QueryResultCollector c = new QueryResultCollector();
+
+        p.setQueryResultHandler(c);
+
+        p.parseQueryResult(new ByteArrayInputStream(a));
+
+        assertEquals(names, c.getBindingNames());
+
+        return c.getBindingSets();
+
+    }
+
+}
@@ -0,0 +1,180 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+
+
+package com.bigdata.rdf.sparql.ast.eval;
+
+import java.util.Properties;
+
+import com.bigdata.bop.BOpUtility;
+import com.bigdata.bop.rdf.join.AccessPathMergeJoin;
+import com.bigdata.rdf.sparql.ast.QueryHints;
+import com.bigdata.rdf.sparql.ast.optimizers.ASTStaticJoinOptimizer;
+import com.bigdata.rdf.store.AbstractTripleStore;
+
+/**
+ * Data driven test suite for the {@link AccessPathMergeJoin} selected by the
+ * {@link ASTStaticJoinOptimizer}. The threshold for the range counts of the
+ * joined triple patterns is set to zero by a query hint since the data is
+ * small.
+ * 
+ * @see QueryHints#ACCESS_PATH_MERGE_JOIN_THRESHOLD
+ */
+public class TestAccessPathMergeJoin extends AbstractDataDrivenSPARQLTestCase {
+
+    public TestAccessPathMergeJoin() {
+    }
+
+    public TestAccessPathMergeJoin(String name) {
+        super(name);
+    }
+
+    /**
+     * The access path merge join only supports triples.
+     */
+    @Override
+    public Properties getProperties() {
+
+        final Properties properties = new Properties(super.getProperties());
+
+        // turn off quads.
+        properties.setProperty(AbstractTripleStore.Options.QUADS, "false");
+
+        // turn on triples
+        properties.setProperty(AbstractTripleStore.Options.TRIPLES_MODE,
+                "true");
+
+        return properties;
+
+    }
+
+    /**
+     * Two triple patterns sharing their object, which are both read from the
+     * POS index. The objects include an inline literal.
+     * 
+     * <pre>
+     * SELECT ?x ?y ?o
+     * WHERE {
+     *   hint:Query hint:accessPathMergeJoinThreshold "0" .
+     *   ?x :likes ?o .
+     *   ?y :hates ?o .
+     * }
+     * </pre>
+     */
+    public void test_access_path_merge_join_01() throws Exception {
+
+        final TestHelper h = new TestHelper("access-path-merge-join-01", // testURI,
+                "access-path-merge-join-01.rq",// queryFileURL
+                "access-path-merge-join-01.ttl",// dataFileURL
+                "access-path-merge-join-01.srx"// resultFileURL
+        );
+
+        h.runTest();
+
+        assertEquals(1, BOpUtility.toList(h.getASTContainer().getQueryPlan(),
+                AccessPathMergeJoin.class).size());
+
+    }
+
+    /**
+     * Variant of {@link #test_access_path_merge_join_01()} using the default
+     * threshold, which is not reached by the range counts.
+     */
+    public void test_access_path_merge_join_01a() throws Exception {
+
+        final TestHelper h = new TestHelper("access-path-merge-join-01a", // testURI,
+                "access-path-merge-join-01a.rq",// queryFileURL
+                "access-path-merge-join-01.ttl",// dataFileURL
+                "access-path-merge-join-01.srx"// resultFileURL
+        );
+
+        h.runTest();
+
+        assertEquals(0, BOpUtility.toList(h.getASTContainer().getQueryPlan(),
+                AccessPathMergeJoin.class).size());
+
+    }
+
+    /**
+     * Two triple patterns sharing their subject and having a constant object,
+     * with a join filter which requires materialization.
+     * 
+     * <pre>
+     * SELECT ?s
+     * WHERE {
+     *   hint:Query hint:accessPathMergeJoinThreshold "0" .
+     *   ?s a :Person .
+     *   ?s :likes :y .
+     *   FILTER(STR(?s) != "http://www.bigdata.com/a")
+     * }
+     * </pre>
+     */
+    public void test_access_path_merge_join_02() throws Exception {
+
+        final TestHelper h = new TestHelper("access-path-merge-join-02", // testURI,
+                "access-path-merge-join-02.rq",// queryFileURL
+                "access-path-merge-join-01.ttl",// dataFileURL
+                "access-path-merge-join-02.srx"// resultFileURL
+        );
+
+        h.runTest();
+
+        assertEquals(1, BOpUtility.toList(h.getASTContainer().getQueryPlan(),
+                AccessPathMergeJoin.class).size());
+
+    }
+
+    /**
+     * A merge join in which the join variable is bound by the source
+     * solutions.
+     * 
+     * <pre>
+     * SELECT ?x ?y ?o
+     * WHERE {
+     *   hint:Query hint:accessPathMergeJoinThreshold "0" .
+     *   VALUES ?o { :y 12 }
+     *   ?x :likes ?o .
+     *   ?y :hates ?o .
+     * }
+     * </pre>
+     */
+    public void test_access_path_merge_join_03() throws Exception {
+
+        final TestHelper h = new TestHelper("access-path-merge-join-03", // testURI,
+                "access-path-merge-join-03.rq",// queryFileURL
+                "access-path-merge-join-01.ttl",// dataFileURL
+                "access-path-merge-join-03.srx"// resultFileURL
+        );
+
+        h.runTest();
+
+        assertEquals(1, BOpUtility.toList(h.getASTContainer().getQueryPlan(),
+                AccessPathMergeJoin.class).size());
+
+    }
+
+}
@@ -117,12 +117,20 @@ public class TestAll extends TestCase {
 
         // Test suite for a merge join pattern
         suite.addTestSuite(TestMergeJoin.class);
+
+        // Test suite for the leapfrog triejoin of cyclic patterns.
+        suite.addTestSuite(TestLeapfrogJoin.class);
+
+        // Test suite for the merge join of two access paths.
+        suite.addTestSuite(TestAccessPathMergeJoin.class);
+        suite.addTestSuite(TestJoinMethod.class);
         
         // Test suite for explain hint annotationss
         suite.addTestSuite(TestExplainHints.class);
 
         // Test suite for aggregation queries.
         suite.addTestSuite(TestAggregationQuery.class);
+        suite.addTestSuite(TestInlineLiteralDictionarySPARQL.class);
 
         // Test suite for FILTER evaluation.
         suite.addTestSuite(TestFilters.class);
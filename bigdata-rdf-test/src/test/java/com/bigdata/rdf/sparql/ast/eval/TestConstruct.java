@@ -30,10 +30,16 @@ package com.bigdata.rdf.sparql.ast.eval;
 import java.util.LinkedList;
 import java.util.List;
 
+import com.bigdata.bop.rdf.filter.NativeDistinctFilter;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.model.BigdataBNode;
+import com.bigdata.rdf.model.BigdataLiteral;
+import com.bigdata.rdf.model.BigdataURI;
 import com.bigdata.rdf.sparql.ast.ASTContainer;
 import com.bigdata.rdf.sparql.ast.ConstructNode;
 import com.bigdata.rdf.sparql.ast.QueryRoot;
 import com.bigdata.rdf.sparql.ast.StatementPatternNode;
+import com.bigdata.rdf.spo.SPOKeyOrder;
 
 /**
  * Data driven test suite for CONSTRUCT queries.
@@ -160,6 +166,143 @@ public class TestConstruct extends AbstractDataDrivenSPARQLTestCase {
         
     }
 
+    /**
+     * A simple CONSTRUCT query using a native DISTINCT filter (enabled via the
+     * "constructStreaming" query hint).
+     * 
+     * <pre>
+     * PREFIX rdf:  <http://www.w3.org/1999/02/22-rdf-syntax-ns#>
+     * PREFIX rdfs: <http://www.w3.org/2000/01/rdf-schema#>
+     * PREFIX foaf: <http://xmlns.com/foaf/0.1/>
+     * 
+     * CONSTRUCT {
+     *   <http://www.bigdata.com/DC> rdfs:label "DC" .
+     *   ?x rdf:type foaf:Person . 
+     * } where {
+     *   # Stream the constructed graph in constant heap.
+     *   hint:Query hint:constructStreaming true .
+     *   ?x rdf:type foaf:Person 
+     * }
+     * </pre>
+     */
+    public void test_construct_1c() throws Exception {
+
+        final ASTContainer ast = new TestHelper(
+                "construct-1", // testURI,
+                "construct-1c.rq",// queryFileURL
+                "construct-1.trig",// dataFileURL
+                "construct-1-result.trig"// resultFileURL
+                ).runTest();
+
+        final ConstructNode construct = ast.getOptimizedAST().getConstruct();
+
+        assertNotNull(construct);
+
+        assertTrue(construct.isNativeDistinct());
+        
+    }
+
+    /**
+     * Unit test for the native DISTINCT filter used for the constructed
+     * statements. The filter is forced to evict onto the native memory index
+     * and is presented with statements whose values do not have {@link IV}s
+     * (as is the case for blank nodes and computed values).
+     */
+    public void test_nativeDistinctStatementFilter() {
+
+        final ConstructNode construct = new ConstructNode();
+
+        construct.setProperty(NativeDistinctFilter.Annotations.KEY_ORDER,
+                SPOKeyOrder.POS);
+
+        // Force the LRU to be evicted onto the index.
+        construct.setProperty(NativeDistinctFilter.Annotations.INITIAL_CAPACITY,
+                2);
+
+        final BigdataURI p = valueFactory.createURI("http://www.bigdata.com/p");
+        final BigdataURI g1 = valueFactory.createURI("http://www.bigdata.com/g1");
+        final BigdataURI g2 = valueFactory.createURI("http://www.bigdata.com/g2");
+
+        final ASTConstructIterator.NativeDistinctStatementFilter triples = new ASTConstructIterator.NativeDistinctStatementFilter(
+                construct, valueFactory, false/* quads */);
+
+        final ASTConstructIterator.NativeDistinctStatementFilter quads = new ASTConstructIterator.NativeDistinctStatementFilter(
+                construct, valueFactory, true/* quads */);
+
+        try {
+
+            for (int pass = 0; pass < 2; pass++) {
+
+                for (int i = 0; i < 10; i++) {
+
+                    final BigdataBNode s = valueFactory.createBNode("b" + i);
+
+                    final BigdataLiteral o = valueFactory.createLiteral("o" + i);
+
+                    assertNull(s.getIV());
+
+                    assertEquals(pass == 0, triples.isValid(valueFactory
+                            .createStatement(s, p, o, g1)));
+
+                    // Distinct SPOC, but not distinct SPO.
+                    assertFalse(triples.isValid(valueFactory.createStatement(s,
+                            p, o, g2)));
+
+                    assertEquals(pass == 0, quads.isValid(valueFactory
+                            .createStatement(s, p, o, g1)));
+
+                    assertEquals(pass == 0, quads.isValid(valueFactory
+                            .createStatement(s, p, o, g2)));
+
+                    assertEquals(pass == 0, quads.isValid(valueFactory
+                            .createStatement(s, p, o)));
+
+                }
+
+            }
+
+        } finally {
+
+            triples.close();
+
+            quads.close();
+
+        }
+
+    }
+
+    /**
+     * Unit test for the bounded REDUCED filter used for a streaming CONSTRUCT
+     * when the DISTINCT SPO semantics were disabled.
+     */
+    public void test_reducedFilter() {
+
+        final ASTConstructIterator.ReducedFilter filter = new ASTConstructIterator.ReducedFilter(
+                false/* quads */);
+
+        final BigdataURI p = valueFactory.createURI("http://www.bigdata.com/p");
+
+        final BigdataURI s = valueFactory.createURI("http://www.bigdata.com/s");
+
+        assertTrue(filter.isValid(valueFactory.createStatement(s, p,
+                valueFactory.createLiteral(0))));
+
+        assertFalse(filter.isValid(valueFactory.createStatement(s, p,
+                valueFactory.createLiteral(0))));
+
+        // Push the first statement out of the window.
+        for (int i = 1; i <= NativeDistinctFilter.Annotations.DEFAULT_INITIAL_CAPACITY; i++) {
+
+            assertTrue(filter.isValid(valueFactory.createStatement(s, p,
+                    valueFactory.createLiteral(i))));
+
+        }
+
+        assertTrue(filter.isValid(valueFactory.createStatement(s, p,
+                valueFactory.createLiteral(0))));
+
+    }
+
     /**
      * A CONSTRUCT without a template and having a ground triple in the WHERE
      * clause. For this variant of the test, the triple is not in the KB.
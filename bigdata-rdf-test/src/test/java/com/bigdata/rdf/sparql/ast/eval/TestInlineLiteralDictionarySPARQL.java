@@ -0,0 +1,110 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+package com.bigdata.rdf.sparql.ast.eval;
+
+import java.util.Properties;
+
+import com.bigdata.bop.solutions.IVComparator;
+import com.bigdata.rdf.internal.InlineLiteralDictionary;
+import com.bigdata.rdf.store.AbstractTripleStore;
+
+/**
+ * Data driven test suite for the SPARQL value ordering of literals which are
+ * inlined by an {@link InlineLiteralDictionary}. The codes of the dictionary
+ * are assigned by frequency, so the {@link IVComparator} must order those
+ * literals by their values. The dictionary declares <code>"zebra"</code>,
+ * <code>"apple"</code> and <code>"mango"</code> (in that order) while the
+ * other literals of the data are not inlined.
+ */
+public class TestInlineLiteralDictionarySPARQL extends
+        AbstractDataDrivenSPARQLTestCase {
+
+    public TestInlineLiteralDictionarySPARQL() {
+    }
+
+    public TestInlineLiteralDictionarySPARQL(String name) {
+        super(name);
+    }
+
+    /**
+     * ORDER BY over a mixture of dictionary coded and other literals.
+     * 
+     * <pre>
+     * SELECT ?x ?n
+     * WHERE {
+     *   ?x :name ?n .
+     * }
+     * ORDER BY ?n
+     * </pre>
+     */
+    public void test_inline_dictionary_orderBy() throws Exception {
+
+        new TestHelper("inline-dictionary-01", // testURI,
+                "inline-dictionary-01.rq",// queryFileURL
+                "inline-dictionary.ttl",// dataFileURL
+                "inline-dictionary-01.srx",// resultFileURL
+                true// checkOrder
+        ).runTest();
+
+    }
+
+    /**
+     * MIN and MAX over a mixture of dictionary coded and other literals.
+     * 
+     * <pre>
+     * SELECT (MIN(?n) AS ?min) (MAX(?n) AS ?max)
+     * WHERE {
+     *   ?x :name ?n .
+     * }
+     * </pre>
+     */
+    public void test_inline_dictionary_minMax() throws Exception {
+
+        new TestHelper("inline-dictionary-02", // testURI,
+                "inline-dictionary-02.rq",// queryFileURL
+                "inline-dictionary.ttl",// dataFileURL
+                "inline-dictionary-02.srx"// resultFileURL
+        ).runTest();
+
+    }
+
+    @Override
+    public Properties getProperties() {
+
+        // Note: clone to avoid modifying!!!
+        final Properties properties = (Properties) super.getProperties()
+                .clone();
+
+        properties.setProperty(
+                AbstractTripleStore.Options.INLINE_LITERAL_DICTIONARY,
+                "com/bigdata/rdf/sparql/ast/eval/inline-dictionary-literals.nt");
+
+        return properties;
+
+    }
+
+}
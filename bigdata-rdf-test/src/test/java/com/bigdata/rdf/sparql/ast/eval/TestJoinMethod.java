@@ -0,0 +1,241 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+
+package com.bigdata.rdf.sparql.ast.eval;
+
+import java.util.Iterator;
+
+import com.bigdata.bop.BOpUtility;
+import com.bigdata.bop.join.HTreeHashJoinOp;
+import com.bigdata.bop.join.JVMHashJoinOp;
+import com.bigdata.rdf.sparql.ast.JoinMethodEnum;
+import com.bigdata.rdf.sparql.ast.QueryHints;
+import com.bigdata.rdf.sparql.ast.StatementPatternNode;
+import com.bigdata.rdf.sparql.ast.optimizers.ASTStaticJoinOptimizer;
+
+/**
+ * Data driven test suite for the choice of the {@link JoinMethodEnum} for
+ * each statement pattern by the cost model of the
+ * {@link ASTStaticJoinOptimizer}. The threshold for the estimated input
+ * cardinality of the joins is set by a query hint since the data is small.
+ * 
+ * @see QueryHints#HASH_JOIN_THRESHOLD
+ * @see QueryHints#NATIVE_HASH_JOIN_THRESHOLD
+ */
+public class TestJoinMethod extends AbstractDataDrivenSPARQLTestCase {
+
+    public TestJoinMethod() {
+    }
+
+    public TestJoinMethod(String name) {
+        super(name);
+    }
+
+    /**
+     * A chain of three triple patterns. The estimated input cardinality of
+     * the last join is at least the range count of its triple pattern, so it
+     * is evaluated as a JVM hash join.
+     * 
+     * <pre>
+     * SELECT ?x ?y ?n
+     * WHERE {
+     *   hint:Query hint:hashJoinThreshold "1" .
+     *   ?x a :Person .
+     *   ?x :knows ?y .
+     *   ?y :name ?n .
+     * }
+     * </pre>
+     */
+    public void test_join_method_01() throws Exception {
+
+        final TestHelper h = new TestHelper("join-method-01", // testURI,
+                "join-method-01.rq",// queryFileURL
+                "join-method-01.ttl",// dataFileURL
+                "join-method-01.srx"// resultFileURL
+        );
+
+        h.runTest();
+
+        assertEquals(1, BOpUtility.toList(h.getASTContainer().getQueryPlan(),
+                JVMHashJoinOp.class).size());
+
+        assertEquals(0, BOpUtility.toList(h.getASTContainer().getQueryPlan(),
+                HTreeHashJoinOp.class).size());
+
+        assertJoinMethods(h, 1/* hashJoins */, 1/* pipelineJoins */);
+
+    }
+
+    /**
+     * Variant of {@link #test_join_method_01()} in which the estimated input
+     * cardinality also reaches the threshold for a native hash join.
+     */
+    public void test_join_method_01a() throws Exception {
+
+        final TestHelper h = new TestHelper("join-method-01a", // testURI,
+                "join-method-01a.rq",// queryFileURL
+                "join-method-01.ttl",// dataFileURL
+                "join-method-01.srx"// resultFileURL
+        );
+
+        h.runTest();
+
+        assertEquals(0, BOpUtility.toList(h.getASTContainer().getQueryPlan(),
+                JVMHashJoinOp.class).size());
+
+        assertEquals(1, BOpUtility.toList(h.getASTContainer().getQueryPlan(),
+                HTreeHashJoinOp.class).size());
+
+        assertJoinMethods(h, 1/* hashJoins */, 1/* pipelineJoins */);
+
+    }
+
+    /**
+     * Variant of {@link #test_join_method_01()} using the default threshold,
+     * which is not reached by the estimated input cardinality. The cost model
+     * is not consulted.
+     */
+    public void test_join_method_02() throws Exception {
+
+        final TestHelper h = new TestHelper("join-method-02", // testURI,
+                "join-method-02.rq",// queryFileURL
+                "join-method-01.ttl",// dataFileURL
+                "join-method-01.srx"// resultFileURL
+        );
+
+        h.runTest();
+
+        assertEquals(0, BOpUtility.toList(h.getASTContainer().getQueryPlan(),
+                JVMHashJoinOp.class).size());
+
+        assertEquals(0, BOpUtility.toList(h.getASTContainer().getQueryPlan(),
+                HTreeHashJoinOp.class).size());
+
+        assertJoinMethods(h, 0/* hashJoins */, 0/* pipelineJoins */);
+
+    }
+
+    /**
+     * Variant of {@link #test_join_method_01()} with a LIMIT. A hash join
+     * would read its entire access path before producing any solution, so
+     * the cost model is not consulted and the joins stay pipelined.
+     * 
+     * <pre>
+     * SELECT ?x ?y ?n
+     * WHERE {
+     *   hint:Query hint:hashJoinThreshold "1" .
+     *   ?x a :Person .
+     *   ?x :knows ?y .
+     *   ?y :name ?n .
+     * }
+     * LIMIT 10
+     * </pre>
+     */
+    public void test_join_method_03() throws Exception {
+
+        final TestHelper h = new TestHelper("join-method-03", // testURI,
+                "join-method-03.rq",// queryFileURL
+                "join-method-01.ttl",// dataFileURL
+                "join-method-01.srx"// resultFileURL
+        );
+
+        h.runTest();
+
+        assertEquals(0, BOpUtility.toList(h.getASTContainer().getQueryPlan(),
+                JVMHashJoinOp.class).size());
+
+        assertEquals(0, BOpUtility.toList(h.getASTContainer().getQueryPlan(),
+                HTreeHashJoinOp.class).size());
+
+        assertJoinMethods(h, 0/* hashJoins */, 0/* pipelineJoins */);
+
+    }
+
+    /**
+     * Variant of {@link #test_join_method_03()} in which the LIMIT is on a
+     * sub-select enclosing the join group.
+     */
+    public void test_join_method_03a() throws Exception {
+
+        final TestHelper h = new TestHelper("join-method-03a", // testURI,
+                "join-method-03a.rq",// queryFileURL
+                "join-method-01.ttl",// dataFileURL
+                "join-method-01.srx"// resultFileURL
+        );
+
+        h.runTest();
+
+        assertEquals(0, BOpUtility.toList(h.getASTContainer().getQueryPlan(),
+                JVMHashJoinOp.class).size());
+
+        assertEquals(0, BOpUtility.toList(h.getASTContainer().getQueryPlan(),
+                HTreeHashJoinOp.class).size());
+
+        assertJoinMethods(h, 0/* hashJoins */, 0/* pipelineJoins */);
+
+    }
+
+    /**
+     * Verify the #of statement patterns in the optimized AST for which the
+     * cost model chose a hash join and a pipeline join and that the estimated
+     * input cardinality was recorded for each of them.
+     */
+    private void assertJoinMethods(final TestHelper h, final int hashJoins,
+            final int pipelineJoins) {
+
+        int nhash = 0, npipeline = 0;
+
+        final Iterator<StatementPatternNode> itr = BOpUtility.visitAll(h
+                .getASTContainer().getOptimizedAST(),
+                StatementPatternNode.class);
+
+        while (itr.hasNext()) {
+
+            final StatementPatternNode sp = itr.next();
+
+            final JoinMethodEnum joinMethod = sp.getJoinMethod();
+
+            if (joinMethod == null)
+                continue;
+
+            assertNotNull(sp.getProperty(
+                    AST2BOpBase.Annotations.ESTIMATED_INPUT_CARDINALITY));
+
+            if (joinMethod.isHashJoin())
+                nhash++;
+            else if (joinMethod == JoinMethodEnum.PipelineJoin)
+                npipeline++;
+
+        }
+
+        assertEquals("hashJoins", hashJoins, nhash);
+
+        assertEquals("pipelineJoins", pipelineJoins, npipeline);
+
+    }
+
+}
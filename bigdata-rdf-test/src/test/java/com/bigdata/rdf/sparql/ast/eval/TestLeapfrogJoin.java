@@ -0,0 +1,182 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+
+package com.bigdata.rdf.sparql.ast.eval;
+
+import java.util.Properties;
+
+import com.bigdata.bop.BOpUtility;
+import com.bigdata.bop.rdf.join.LeapfrogTriejoinOp;
+import com.bigdata.rdf.sparql.ast.QueryHints;
+import com.bigdata.rdf.sparql.ast.optimizers.ASTLeapfrogJoinOptimizer;
+import com.bigdata.rdf.store.AbstractTripleStore;
+
+/**
+ * Data driven test suite for the {@link ASTLeapfrogJoinOptimizer} and its
+ * physical operator {@link LeapfrogTriejoinOp}.
+ * <p>
+ * The data has two directed triangles <code>(a,b,c)</code> and
+ * <code>(c,d,e)</code> which share the vertex <code>c</code> and an edge
+ * <code>(a,d)</code> which is not part of any triangle.
+ */
+public class TestLeapfrogJoin extends AbstractDataDrivenSPARQLTestCase {
+
+    public TestLeapfrogJoin() {
+    }
+
+    public TestLeapfrogJoin(String name) {
+        super(name);
+    }
+
+    /**
+     * The leapfrog triejoin only supports triples.
+     */
+    @Override
+    public Properties getProperties() {
+
+        final Properties properties = new Properties(super.getProperties());
+
+        // turn off quads.
+        properties.setProperty(AbstractTripleStore.Options.QUADS, "false");
+
+        // turn on triples
+        properties.setProperty(AbstractTripleStore.Options.TRIPLES_MODE,
+                "true");
+
+        return properties;
+
+    }
+
+    /**
+     * A triangle query.
+     * 
+     * <pre>
+     * SELECT ?a ?b ?c
+     * WHERE {
+     *   ?a :knows ?b .
+     *   ?b :knows ?c .
+     *   ?c :knows ?a .
+     * }
+     * </pre>
+     */
+    public void test_leapfrog_join_01() throws Exception {
+
+        final TestHelper h = new TestHelper("leapfrog-join-01", // testURI,
+                "leapfrog-join-01.rq",// queryFileURL
+                "leapfrog-join-01.ttl",// dataFileURL
+                "leapfrog-join-01.srx"// resultFileURL
+        );
+
+        h.runTest();
+
+        assertEquals(1, BOpUtility.toList(h.getASTContainer().getQueryPlan(),
+                LeapfrogTriejoinOp.class).size());
+
+        assertEquals(3, BOpUtility.toList(h.getASTContainer().getQueryPlan(),
+                LeapfrogTriejoinOp.class).get(0).getPredicates().length);
+
+    }
+
+    /**
+     * Variant of {@link #test_leapfrog_join_01()} in which the leapfrog
+     * triejoin is disabled by a query hint.
+     * 
+     * @see QueryHints#LEAPFROG_JOIN
+     */
+    public void test_leapfrog_join_01a() throws Exception {
+
+        final TestHelper h = new TestHelper("leapfrog-join-01a", // testURI,
+                "leapfrog-join-01a.rq",// queryFileURL
+                "leapfrog-join-01.ttl",// dataFileURL
+                "leapfrog-join-01.srx"// resultFileURL
+        );
+
+        h.runTest();
+
+        assertEquals(0, BOpUtility.toList(h.getASTContainer().getQueryPlan(),
+                LeapfrogTriejoinOp.class).size());
+
+    }
+
+    /**
+     * A triangle query with a statement pattern having a single variable and
+     * a join filter which requires materialization.
+     * 
+     * <pre>
+     * SELECT ?a ?b ?c
+     * WHERE {
+     *   ?a a :Person .
+     *   ?a :knows ?b .
+     *   ?b :knows ?c .
+     *   ?c :knows ?a .
+     *   FILTER(STR(?a) < STR(?b))
+     * }
+     * </pre>
+     */
+    public void test_leapfrog_join_02() throws Exception {
+
+        final TestHelper h = new TestHelper("leapfrog-join-02", // testURI,
+                "leapfrog-join-02.rq",// queryFileURL
+                "leapfrog-join-01.ttl",// dataFileURL
+                "leapfrog-join-02.srx"// resultFileURL
+        );
+
+        h.runTest();
+        assertEquals(4, BOpUtility.toList(h.getASTContainer().getQueryPlan(),
+                LeapfrogTriejoinOp.class).get(0).getPredicates().length);
+
+    }
+
+    /**
+     * A triangle query in which a variable is bound by the source solutions.
+     * 
+     * <pre>
+     * SELECT ?a ?b ?c
+     * WHERE {
+     *   VALUES ?a { :a :c }
+     *   ?a :knows ?b .
+     *   ?b :knows ?c .
+     *   ?c :knows ?a .
+     * }
+     * </pre>
+     */
+    public void test_leapfrog_join_03() throws Exception {
+
+        final TestHelper h = new TestHelper("leapfrog-join-03", // testURI,
+                "leapfrog-join-03.rq",// queryFileURL
+                "leapfrog-join-01.ttl",// dataFileURL
+                "leapfrog-join-03.srx"// resultFileURL
+        );
+
+        h.runTest();
+
+        assertEquals(1, BOpUtility.toList(h.getASTContainer().getQueryPlan(),
+                LeapfrogTriejoinOp.class).size());
+
+    }
+
+}
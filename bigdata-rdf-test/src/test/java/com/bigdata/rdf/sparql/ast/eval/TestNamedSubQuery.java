@@ -27,6 +27,13 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 
 package com.bigdata.rdf.sparql.ast.eval;
 
+import com.bigdata.bop.BOpUtility;
+import com.bigdata.bop.controller.NamedSetAnnotations;
+import com.bigdata.bop.controller.JVMNamedSubqueryOp;
+import com.bigdata.bop.join.PipelineJoin;
+import com.bigdata.rdf.sparql.ast.ASTContainer;
+import com.bigdata.rdf.sparql.ast.QueryHints;
+
 /**
  * Data driven test suite for named subquery evaluation (that is, for queries
  * which are explicitly written using the named subquery syntax).
@@ -187,5 +194,61 @@ public class TestNamedSubQuery extends AbstractDataDrivenSPARQLTestCase {
         new TestHelper("named-subquery-bindings-2").runTest();
 
     }
+
+    /**
+     * Variant of {@link #test_named_subquery()} in which the statement pattern
+     * is evaluated before the INCLUDE. The named subquery builds a join key
+     * filter for its hash index and that filter is pushed down onto the
+     * statement pattern join.
+     * 
+     * @see QueryHints#JOIN_KEY_FILTER
+     */
+    public void test_named_subquery_joinKeyFilter() throws Exception {
+
+        final ASTContainer astContainer = new TestHelper(
+                "named-subquery-joinKeyFilter",// testURI
+                "named-subquery-joinKeyFilter.rq",// queryFileURL
+                "named-subquery.trig",// dataFileURL
+                "named-subquery.srx"// resultFileURL
+        ).runTest();
+
+        final JVMNamedSubqueryOp nsop = BOpUtility.visitAll(
+                astContainer.getQueryPlan(), JVMNamedSubqueryOp.class).next();
+
+        assertTrue(nsop.getProperty(NamedSetAnnotations.JOIN_KEY_FILTER,
+                NamedSetAnnotations.DEFAULT_JOIN_KEY_FILTER));
+
+        final PipelineJoin<?> join = BOpUtility.visitAll(
+                astContainer.getQueryPlan(), PipelineJoin.class).next();
+
+        assertNotNull(join.getJoinKeyFilters());
+
+    }
+
+    /**
+     * Variant of {@link #test_named_subquery_joinKeyFilter()} in which the
+     * join key filters are disabled by a query hint.
+     */
+    public void test_named_subquery_joinKeyFilter_disabled() throws Exception {
+
+        final ASTContainer astContainer = new TestHelper(
+                "named-subquery-joinKeyFilter-disabled",// testURI
+                "named-subquery-joinKeyFilter-disabled.rq",// queryFileURL
+                "named-subquery.trig",// dataFileURL
+                "named-subquery.srx"// resultFileURL
+        ).runTest();
+
+        final JVMNamedSubqueryOp nsop = BOpUtility.visitAll(
+                astContainer.getQueryPlan(), JVMNamedSubqueryOp.class).next();
+
+        assertFalse(nsop.getProperty(NamedSetAnnotations.JOIN_KEY_FILTER,
+                NamedSetAnnotations.DEFAULT_JOIN_KEY_FILTER));
+
+        final PipelineJoin<?> join = BOpUtility.visitAll(
+                astContainer.getQueryPlan(), PipelineJoin.class).next();
+
+        assertNull(join.getJoinKeyFilters());
+
+    }
     
 }
@@ -0,0 +1,163 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+
+package com.bigdata.rdf.sparql.ast.eval.rto;
+
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.UUID;
+
+import com.bigdata.bop.BOpUtility;
+import com.bigdata.bop.engine.IRunningQuery;
+import com.bigdata.bop.engine.QueryEngine;
+import com.bigdata.bop.fed.QueryEngineFactory;
+import com.bigdata.bop.joinGraph.rto.AdaptiveJoinGraph;
+import com.bigdata.journal.IBTreeManager;
+import com.bigdata.rdf.sail.BigdataSail;
+import com.bigdata.rdf.sparql.ast.ASTContainer;
+import com.bigdata.rdf.sparql.ast.QueryHints;
+
+/**
+ * Data driven test suite for the {@link AdaptiveJoinGraph} using BAR data and
+ * queries.
+ * 
+ * @see QueryHints#REOPTIMIZE
+ */
+public class TestAdaptiveJoinGraph extends AbstractRTOTestCase {
+
+    public TestAdaptiveJoinGraph() {
+    }
+
+    public TestAdaptiveJoinGraph(final String name) {
+        super(name);
+    }
+
+    @Override
+    public Properties getProperties() {
+
+        // Note: clone to avoid modifying!!!
+        final Properties properties = (Properties) super.getProperties().clone();
+
+        properties.setProperty(BigdataSail.Options.QUADS_MODE, "true");
+
+        return properties;
+        
+    }
+
+    /**
+     * The same query as {@link TestRTO_BAR#test_BAR_Q1()} using the static
+     * join order optimizer with an error factor small enough that the
+     * remaining joins are always re-ordered. The query must produce the same
+     * solutions and each join must be run exactly once.
+     */
+    public void test_BAR_Q1_reoptimize() throws Exception {
+
+        final TestHelper helper = new TestHelper(//
+                "rto/BAR-Q1-reoptimize", // testURI,
+                "rto/BAR-Q1-reoptimize.rq",// queryFileURL
+                "src/test/resources/data/barData/barData.trig.gz",// dataFileURL
+                "rto/BAR-Q1.srx"// resultFileURL
+        );
+
+        helper.getASTContainer().setQueryHint(QueryHints.REOPTIMIZE, "true");
+
+        helper.getASTContainer().setQueryHint(
+                QueryHints.REOPTIMIZE_ERROR_FACTOR, "1.01");
+
+        final UUID queryId = UUID.randomUUID();
+
+        helper.getASTContainer().setQueryHint(QueryHints.QUERYID,
+                queryId.toString());
+
+        final QueryEngine queryEngine = QueryEngineFactory.getInstance()
+                .getExistingQueryController((IBTreeManager) helper
+                        .getTripleStore().getIndexManager());
+
+        final ASTContainer astContainer;
+        final MyQueryListener l = new MyQueryListener(queryId);
+        try {
+            queryEngine.addListener(l);
+            astContainer = helper.runTest();
+        } finally {
+            queryEngine.removeListener(l);
+        }
+
+        final AdaptiveJoinGraph joinGraph = BOpUtility.getOnly(
+                astContainer.getQueryPlan(), AdaptiveJoinGraph.class);
+
+        assertNotNull(joinGraph);
+
+        int[] joinOrder = null;
+        int reoptimizations = 0;
+        for (IRunningQuery q : l.getRunningQueries()) {
+            if (joinGraph.getJoinOrder(q) != null) {
+                joinOrder = joinGraph.getJoinOrder(q);
+                reoptimizations = joinGraph.getReoptimizationCount(q);
+                break;
+            }
+        }
+
+        assertNotNull(joinOrder);
+
+        if (log.isInfoEnabled())
+            log.info("joinOrder=" + Arrays.toString(joinOrder)
+                    + ", reoptimizations=" + reoptimizations);
+
+        // Each vertex is run exactly once.
+        final int[] actual = joinOrder.clone();
+        final int[] expected = new int[joinGraph.getVertices().length];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = joinGraph.getVertices()[i].getId();
+        }
+        Arrays.sort(actual);
+        Arrays.sort(expected);
+        assertTrue(Arrays.toString(joinOrder), Arrays.equals(expected, actual));
+
+        assertTrue(reoptimizations > 0);
+
+    }
+
+    /**
+     * The joins are not re-ordered at runtime unless requested.
+     */
+    public void test_BAR_Q1_static() throws Exception {
+
+        final TestHelper helper = new TestHelper(//
+                "rto/BAR-Q1-reoptimize", // testURI,
+                "rto/BAR-Q1-reoptimize.rq",// queryFileURL
+                "src/test/resources/data/barData/barData.trig.gz",// dataFileURL
+                "rto/BAR-Q1.srx"// resultFileURL
+        );
+
+        final ASTContainer astContainer = helper.runTest();
+
+        assertTrue(BOpUtility.toList(astContainer.getQueryPlan(),
+                AdaptiveJoinGraph.class).isEmpty());
+
+    }
+
+}
@@ -70,6 +70,9 @@ public class TestAll extends TestCase {
         // 'barData' test suite (quads mode).
         suite.addTestSuite(TestRTO_BAR.class);
 
+        // Adaptive re-ordering of the static join order (quads mode).
+        suite.addTestSuite(TestAdaptiveJoinGraph.class);
+
         /*
          * FOAF test suite (quads mode).
          * 
@@ -29,8 +29,12 @@ package com.bigdata.rdf.sparql.ast.eval.rto;
 
 import java.util.Properties;
 
+import com.bigdata.bop.BOpUtility;
+import com.bigdata.bop.joinGraph.rto.JoinGraph;
 import com.bigdata.bop.rdf.joinGraph.GenerateBarData;
 import com.bigdata.rdf.sail.BigdataSail;
+import com.bigdata.rdf.sparql.ast.ASTContainer;
+import com.bigdata.rdf.sparql.ast.QueryHints;
 
 /**
  * Data driven test suite for the Runtime Query Optimizer (RTO) using BAR data
@@ -112,4 +116,31 @@ public class TestRTO_BAR extends AbstractRTOTestCase {
 
     }
 
+    /**
+     * Variant of {@link #test_BAR_Q1()} in which the sampling time is
+     * exhausted immediately. The RTO must still produce a complete join path
+     * (by greedily extending the best path found by the initial sampling) and
+     * the query must produce the correct solutions.
+     */
+    public void test_BAR_Q1_maxSamplingTime() throws Exception {
+
+        final TestHelper helper = new TestHelper(//
+                "rto/BAR-Q1", // testURI,
+                "rto/BAR-Q1.rq",// queryFileURL
+                "src/test/resources/data/barData/barData.trig.gz",// dataFileURL
+                "rto/BAR-Q1.srx"// resultFileURL
+        );
+
+        helper.getASTContainer().setQueryHint(
+                QueryHints.RTO_MAX_SAMPLING_TIME, "1");
+
+        final ASTContainer astContainer = helper.runTest();
+
+        final JoinGraph joinGraph = BOpUtility.getOnly(
+                astContainer.getQueryPlan(), JoinGraph.class);
+
+        assertEquals(1L, joinGraph.getMaxSamplingTime());
+
+    }
+
 }
@@ -78,6 +78,9 @@ public class TestAll extends TestCase {
         // Full text search
         suite.addTestSuite(TestSearch.class);
 
+        // Prefix completion against the full text index.
+        suite.addTestSuite(TestCompletionService.class);
+
         /*
          * External service support (openrdf services in the same JVM).
          */
@@ -0,0 +1,93 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+
+package com.bigdata.rdf.sparql.ast.eval.service;
+
+import java.util.Properties;
+
+import com.bigdata.rdf.sparql.ast.eval.AbstractDataDrivenSPARQLTestCase;
+import com.bigdata.rdf.sparql.ast.eval.CompletionServiceFactory;
+import com.bigdata.search.FullTextIndex;
+
+/**
+ * Data driven test suite for the prefix completion service.
+ * 
+ * @see CompletionServiceFactory
+ */
+public class TestCompletionService extends AbstractDataDrivenSPARQLTestCase {
+
+    /**
+     * 
+     */
+    public TestCompletionService() {
+    }
+
+    /**
+     * @param name
+     */
+    public TestCompletionService(String name) {
+        super(name);
+    }
+
+    @Override
+    public Properties getProperties() {
+
+        // Note: clone to avoid modifying!!!
+        final Properties properties = (Properties) super.getProperties()
+                .clone();
+
+        // enable the completion index.
+        properties.setProperty(FullTextIndex.Options.COMPLETION_INDEX, "true");
+
+        return properties;
+
+    }
+
+    /**
+     * The top two completions for "mi", which are weighted by the #of
+     * literals in which each token appears.
+     * 
+     * <pre>
+     * PREFIX bds: <http://www.bigdata.com/rdf/search#>
+     * 
+     * SELECT ?completion ?weight
+     * WHERE {
+     *   SERVICE bds:completion {
+     *     ?completion bds:completion "mi" .
+     *     ?completion bds:completionWeight ?weight .
+     *     ?completion bds:maxCompletions "2" .
+     *   }
+     * }
+     * </pre>
+     */
+    public void test_search_completion() throws Exception {
+
+        new TestHelper("search-completion").runTest();
+
+    }
+
+}
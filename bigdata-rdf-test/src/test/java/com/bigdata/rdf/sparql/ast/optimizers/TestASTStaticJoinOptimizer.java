@@ -41,6 +41,7 @@ import com.bigdata.rdf.sparql.ast.AssignmentNode;
 import com.bigdata.rdf.sparql.ast.ConstantNode;
 import com.bigdata.rdf.sparql.ast.IQueryNode;
 import com.bigdata.rdf.sparql.ast.JoinGroupNode;
+import com.bigdata.rdf.sparql.ast.JoinMethodEnum;
 import com.bigdata.rdf.sparql.ast.NamedSubqueryInclude;
 import com.bigdata.rdf.sparql.ast.NamedSubqueryRoot;
 import com.bigdata.rdf.sparql.ast.ProjectionNode;
@@ -49,7 +50,9 @@ import com.bigdata.rdf.sparql.ast.QueryNodeWithBindingSet;
 import com.bigdata.rdf.sparql.ast.QueryRoot;
 import com.bigdata.rdf.sparql.ast.QueryType;
 import com.bigdata.rdf.sparql.ast.StatementPatternNode;
+import com.bigdata.rdf.sparql.ast.TermNode;
 import com.bigdata.rdf.sparql.ast.VarNode;
+import com.bigdata.rdf.sparql.ast.eval.AST2BOpBase;
 import com.bigdata.rdf.sparql.ast.eval.AST2BOpContext;
 import com.bigdata.rdf.sparql.ast.service.ServiceNode;
 import com.bigdata.rdf.store.BDS;
@@ -1600,16 +1603,20 @@ public class TestASTStaticJoinOptimizer extends AbstractOptimizerTestCase
                     new ConstantNode(reviewFor), new VarNode("product"), 2800000l));
 
             whereClause.addChild(newStatementPatternNode(new VarNode("review"),
-                    new ConstantNode(reviewer), new VarNode("reviewer"), 2800000l));
+                    new ConstantNode(reviewer), new VarNode("reviewer"), 2800000l,
+                    JoinMethodEnum.PipelineJoin, 989048l));
 
             whereClause.addChild(newStatementPatternNode(new VarNode("reviewer"),
-                    new ConstantNode(country), new ConstantNode(US), 61000l));
+                    new ConstantNode(country), new ConstantNode(US), 61000l,
+                    JoinMethodEnum.HTreeHashJoin, 1586662l));
             
             whereClause.addChild(newStatementPatternNode(new VarNode("product"),
-                    new ConstantNode(type), new VarNode("productType"), 10000000l));
+                    new ConstantNode(type), new VarNode("productType"), 10000000l,
+                    JoinMethodEnum.PipelineJoin, 564468l));
 
             whereClause.addChild(newStatementPatternNode(new VarNode("productType"),
-                    new ConstantNode(type), new ConstantNode(productType), 2000l));
+                    new ConstantNode(type), new ConstantNode(productType), 2000l,
+                    JoinMethodEnum.HTreeHashJoin, 3678192l));
 
             whereClause.setProperty(ASTStaticJoinOptimizer.Annotations.OPTIMISTIC, 0.67d);
 
@@ -2044,4 +2051,19 @@ where {
     	return sp;
     }
 
+    /**
+     * Return a new triple pattern annotated with the join method chosen by
+     * the cost model and the estimated input cardinality of its join.
+     */
+    private StatementPatternNode newStatementPatternNode(final TermNode s,
+            final TermNode p, final TermNode o, final long cardinality,
+            final JoinMethodEnum joinMethod, final long inputCardinality) {
+        final StatementPatternNode sp = newStatementPatternNode(s, p, o,
+                cardinality);
+        sp.setJoinMethod(joinMethod);
+        sp.setProperty(AST2BOpBase.Annotations.ESTIMATED_INPUT_CARDINALITY,
+                inputCardinality);
+        return sp;
+    }
+
 }
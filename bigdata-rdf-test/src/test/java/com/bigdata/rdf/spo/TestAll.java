@@ -89,6 +89,11 @@ public class TestAll extends TestCase {
         // star joins
 //        suite.addTestSuite(TestSPOStarJoin.class);
 
+        // characteristic sets.
+        suite.addTestSuite(TestCharacteristicSets.class);
+
+        suite.addTestSuite(TestHistograms.class);
+
         // test for shard split handler for the xxxC indices.
         suite.addTestSuite(TestXXXCShardSplitHandler.class);
         
@@ -0,0 +1,300 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+
+package com.bigdata.rdf.spo;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Properties;
+
+import org.openrdf.model.URI;
+import org.openrdf.model.impl.LiteralImpl;
+import org.openrdf.model.impl.URIImpl;
+import org.openrdf.query.TupleQueryResult;
+import org.openrdf.query.algebra.evaluation.QueryBindingSet;
+
+import com.bigdata.rdf.axioms.NoAxioms;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.sail.sparql.Bigdata2ASTSPARQLParser;
+import com.bigdata.rdf.sparql.ast.ASTContainer;
+import com.bigdata.rdf.sparql.ast.eval.ASTEvalHelper;
+import com.bigdata.rdf.sparql.ast.optimizers.ASTStaticJoinOptimizer.Annotations;
+import com.bigdata.rdf.spo.CharacteristicSets.CharacteristicSet;
+import com.bigdata.rdf.store.AbstractTripleStore;
+import com.bigdata.rdf.store.AbstractTripleStoreTestCase;
+
+/**
+ * Test suite for the {@link CharacteristicSets}.
+ */
+public class TestCharacteristicSets extends AbstractTripleStoreTestCase {
+
+    public TestCharacteristicSets() {
+    }
+
+    public TestCharacteristicSets(final String name) {
+        super(name);
+    }
+
+    @Override
+    public Properties getProperties() {
+
+        final Properties props = new Properties(super.getProperties());
+
+        props.setProperty(AbstractTripleStore.Options.CHARACTERISTIC_SETS,
+                "true");
+        props.setProperty(AbstractTripleStore.Options.AXIOMS_CLASS,
+                NoAxioms.class.getName());
+        props.setProperty(AbstractTripleStore.Options.JUSTIFY, "false");
+        props.setProperty(AbstractTripleStore.Options.TEXT_INDEX, "false");
+
+        return props;
+
+    }
+
+    private static final URI A = new URIImpl("http://www.bigdata.com/a");
+    private static final URI B = new URIImpl("http://www.bigdata.com/b");
+    private static final URI C = new URIImpl("http://www.bigdata.com/c");
+
+    private static final URI NAME = new URIImpl("http://www.bigdata.com/name");
+    private static final URI AGE = new URIImpl("http://www.bigdata.com/age");
+    private static final URI KNOWS = new URIImpl("http://www.bigdata.com/knows");
+
+    /**
+     * The characteristic sets are maintained as statements are added and
+     * removed, and are the same as those computed by a rebuild.
+     */
+    public void test_characteristicSets() {
+
+        final AbstractTripleStore store = getStore(getProperties());
+
+        try {
+
+            store.addStatement(A, NAME, new LiteralImpl("A"));
+            store.addStatement(A, AGE, new LiteralImpl("1"));
+            store.addStatement(A, KNOWS, B);
+            store.addStatement(A, KNOWS, C);
+            store.addStatement(B, NAME, new LiteralImpl("B"));
+            store.addStatement(B, AGE, new LiteralImpl("2"));
+            store.addStatement(B, KNOWS, C);
+            store.addStatement(C, NAME, new LiteralImpl("C"));
+            store.commit();
+
+            final IV<?, ?> name = store.getIV(NAME);
+            final IV<?, ?> age = store.getIV(AGE);
+            final IV<?, ?> knows = store.getIV(KNOWS);
+
+            CharacteristicSets csets = store.getSPORelation()
+                    .getCharacteristicSets();
+
+            // {name,age,knows} x 2 and {name} x 1.
+            assertEquals(2, csets.size());
+            assertEquals(3L, csets.getSubjectCount(Collections
+                    .<IV<?, ?>> singletonList(name)));
+            assertEquals(2L, csets.getSubjectCount(Arrays.<IV<?, ?>> asList(
+                    name, knows)));
+            assertEquals(3L, csets.getOccurrences(knows));
+
+            // (a name ?) x 2 + (b name ?) x 1
+            assertEquals(3L, csets.estimateStar(Arrays.<IV<?, ?>> asList(
+                    name, knows)));
+            assertEquals(3L, csets.estimateStar(Collections
+                    .<IV<?, ?>> singletonList(name)));
+
+            // No pair statistics until the characteristic sets are built.
+            assertEquals(-1L, csets.getPairCount(knows, name));
+
+            // {name,age,knows} x 1, {name,knows} x 1 and {name} x 1.
+            store.removeStatements(B, AGE, null);
+            store.removeStatements(A, KNOWS, C);
+            store.commit();
+
+            csets = store.getSPORelation().getCharacteristicSets();
+
+            assertEquals(3, csets.size());
+            assertEquals(2L, csets.getOccurrences(knows));
+            assertEquals(1L, csets.getOccurrences(age));
+            assertEquals(2L, csets.estimateStar(Arrays.<IV<?, ?>> asList(
+                    name, knows)));
+            assertEquals(1L, csets.estimateStar(Arrays.<IV<?, ?>> asList(
+                    name, age, knows)));
+
+            // Removing all statements for a subject removes it.
+            store.removeStatements(C, null, null);
+            store.commit();
+
+            csets = store.getSPORelation().getCharacteristicSets();
+
+            assertEquals(2, csets.size());
+            assertEquals(2L, csets.getSubjectCount(Collections
+                    .<IV<?, ?>> singletonList(name)));
+
+            // A rebuild reports the same characteristic sets.
+            final CharacteristicSets expected = csets;
+
+            assertEquals(2, store.getSPORelation().buildCharacteristicSets(
+                    100/* maxChainSubjects */));
+            store.commit();
+
+            csets = store.getSPORelation().getCharacteristicSets();
+
+            assertSameCharacteristicSets(expected, csets);
+
+            // (a knows b), (b name ?)
+            assertEquals(1L, csets.getPairCount(knows, name));
+            assertEquals(0L, csets.getPairCount(knows, age));
+            assertEquals(0L, csets.getPairCount(name, name));
+
+        } finally {
+
+            store.__tearDownUnitTest();
+
+        }
+
+    }
+
+    /**
+     * The predicate pair statistics are not computed when there are too many
+     * subjects.
+     */
+    public void test_maxChainSubjects() {
+
+        final AbstractTripleStore store = getStore(getProperties());
+
+        try {
+
+            store.addStatement(A, KNOWS, B);
+            store.addStatement(B, KNOWS, C);
+            store.addStatement(C, NAME, new LiteralImpl("C"));
+            store.commit();
+
+            final IV<?, ?> name = store.getIV(NAME);
+            final IV<?, ?> knows = store.getIV(KNOWS);
+
+            assertEquals(2, store.getSPORelation().buildCharacteristicSets(
+                    2/* maxChainSubjects */));
+
+            CharacteristicSets csets = store.getSPORelation()
+                    .getCharacteristicSets();
+
+            assertEquals(-1L, csets.getPairCount(knows, knows));
+
+            store.getSPORelation().buildCharacteristicSets(3/* maxChainSubjects */);
+
+            csets = store.getSPORelation().getCharacteristicSets();
+
+            assertEquals(1L, csets.getPairCount(knows, knows));
+            assertEquals(1L, csets.getPairCount(knows, name));
+
+        } finally {
+
+            store.__tearDownUnitTest();
+
+        }
+
+    }
+
+    /**
+     * The cardinality of a star join group is estimated from the
+     * characteristic sets.
+     */
+    public void test_starJoinEstimate() throws Exception {
+
+        final AbstractTripleStore store = getStore(getProperties());
+
+        try {
+
+            store.addStatement(A, NAME, new LiteralImpl("A"));
+            store.addStatement(A, KNOWS, B);
+            store.addStatement(A, KNOWS, C);
+            store.addStatement(B, NAME, new LiteralImpl("B"));
+            store.addStatement(B, KNOWS, C);
+            store.addStatement(C, NAME, new LiteralImpl("C"));
+            store.commit();
+
+            final ASTContainer astContainer = new Bigdata2ASTSPARQLParser()
+                    .parseQuery2("SELECT * { ?s <" + NAME + "> ?n . ?s <"
+                            + KNOWS + "> ?k }", null/* baseURI */);
+
+            final TupleQueryResult result = ASTEvalHelper.evaluateTupleQuery(
+                    store, astContainer, new QueryBindingSet(), null/* dataset */);
+
+            int n = 0;
+            try {
+                while (result.hasNext()) {
+                    result.next();
+                    n++;
+                }
+            } finally {
+                result.close();
+            }
+
+            assertEquals(3, n);
+
+            assertEquals(3L, astContainer.getOptimizedAST().getWhereClause()
+                    .getProperty(Annotations.ESTIMATED_CARDINALITY));
+
+        } finally {
+
+            store.__tearDownUnitTest();
+
+        }
+
+    }
+
+    private static void assertSameCharacteristicSets(
+            final CharacteristicSets expected, final CharacteristicSets actual) {
+
+        assertEquals(expected.size(), actual.size());
+
+        for (CharacteristicSet e : expected.getCharacteristicSets()) {
+
+            boolean found = false;
+
+            for (CharacteristicSet a : actual.getCharacteristicSets()) {
+
+                if (!e.getPredicates().equals(a.getPredicates()))
+                    continue;
+
+                assertEquals(e.getCount(), a.getCount());
+
+                for (IV<?, ?> p : e.getPredicates()) {
+
+                    assertEquals(e.getOccurrences(p), a.getOccurrences(p));
+
+                }
+
+                found = true;
+
+            }
+
+            assertTrue(e.toString(), found);
+
+        }
+
+    }
+
+}
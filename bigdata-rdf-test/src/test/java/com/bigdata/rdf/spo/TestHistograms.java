@@ -0,0 +1,265 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+
+package com.bigdata.rdf.spo;
+
+import java.util.Properties;
+
+import org.openrdf.model.URI;
+import org.openrdf.model.impl.LiteralImpl;
+import org.openrdf.model.impl.URIImpl;
+import org.openrdf.query.TupleQueryResult;
+import org.openrdf.query.algebra.evaluation.QueryBindingSet;
+
+import com.bigdata.journal.IJournal;
+import com.bigdata.rdf.axioms.NoAxioms;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.sail.sparql.Bigdata2ASTSPARQLParser;
+import com.bigdata.rdf.sparql.ast.ASTContainer;
+import com.bigdata.rdf.sparql.ast.StatementPatternNode;
+import com.bigdata.rdf.sparql.ast.eval.ASTEvalHelper;
+import com.bigdata.rdf.sparql.ast.optimizers.ASTRangeCountOptimizer;
+import com.bigdata.rdf.sparql.ast.optimizers.ASTStaticJoinOptimizer.Annotations;
+import com.bigdata.rdf.store.AbstractTripleStore;
+import com.bigdata.rdf.store.AbstractTripleStoreTestCase;
+
+/**
+ * Test suite for the {@link Histograms}.
+ */
+public class TestHistograms extends AbstractTripleStoreTestCase {
+
+    public TestHistograms() {
+    }
+
+    public TestHistograms(final String name) {
+        super(name);
+    }
+
+    @Override
+    public Properties getProperties() {
+
+        final Properties props = new Properties(super.getProperties());
+
+        props.setProperty(AbstractTripleStore.Options.HISTOGRAMS, "true");
+        props.setProperty(AbstractTripleStore.Options.HISTOGRAM_BUCKETS, "4");
+        props.setProperty(AbstractTripleStore.Options.AXIOMS_CLASS,
+                NoAxioms.class.getName());
+        props.setProperty(AbstractTripleStore.Options.JUSTIFY, "false");
+        props.setProperty(AbstractTripleStore.Options.TEXT_INDEX, "false");
+
+        return props;
+
+    }
+
+    private static final URI P1 = new URIImpl("http://www.bigdata.com/p1");
+    private static final URI P2 = new URIImpl("http://www.bigdata.com/p2");
+    private static final URI P3 = new URIImpl("http://www.bigdata.com/p3");
+
+    /**
+     * The histograms report the exact range count of the frequent key
+     * prefixes and are refreshed on commit once the entry count has drifted
+     * by more than the depth of a bucket.
+     */
+    public void test_histograms() {
+
+        final AbstractTripleStore store = getStore(getProperties());
+
+        try {
+
+            if (!(store.getIndexManager() instanceof IJournal)) {
+                // Note: read-only views require commit points.
+                log.warn("Histograms not supported: " + store.getClass());
+                return;
+            }
+
+            // no histograms for a mutable view.
+            assertNull(store.getSPORelation().getHistograms());
+
+            load(store, P1, 0, 60);
+            load(store, P2, 0, 30);
+            load(store, P3, 0, 1);
+
+            Histograms h = getReadOnlyView(store, store.commit())
+                    .getSPORelation().getHistograms();
+
+            final IV<?, ?> p1 = store.getIV(P1);
+            final IV<?, ?> p2 = store.getIV(P2);
+            final IV<?, ?> p3 = store.getIV(P3);
+
+            assertEquals(91L, h.getEntryCount(SPOKeyOrder.POS));
+            assertEquals(91L, h.getRangeCount(SPOKeyOrder.POS));
+
+            // the frequent predicates are always recorded.
+            assertEquals(60L, h.getRangeCount(SPOKeyOrder.POS, p1));
+            assertEquals(30L, h.getRangeCount(SPOKeyOrder.POS, p2));
+            assertEquals(60L, h.getRangeCount(SPOKeyOrder.POS, null, p1,
+                    null, null));
+
+            // a selective predicate may not be recorded.
+            final long n3 = h.getRangeCount(SPOKeyOrder.POS, p3);
+            assertTrue(n3 == -1L || n3 == 1L);
+
+            // the bound components are not a prefix of the key.
+            assertEquals(-1L, h.getRangeCount(SPOKeyOrder.SPO, null, p1,
+                    null, null));
+
+            assertEquals(3L, h.getDistinctCount(SPOKeyOrder.POS, 1));
+
+            // 60 distinct subjects (estimated).
+            final long ns = h.getDistinctCount(SPOKeyOrder.SPO, 1);
+            assertTrue("distinctSubjects=" + ns, ns >= 45 && ns <= 75);
+
+            // the drift is less than the depth of a bucket.
+            load(store, P1, 60, 70);
+
+            h = getReadOnlyView(store, store.commit()).getSPORelation()
+                    .getHistograms();
+
+            assertEquals(91L, h.getEntryCount(SPOKeyOrder.POS));
+            assertEquals(60L, h.getRangeCount(SPOKeyOrder.POS, p1));
+
+            // the drift is more than the depth of a bucket.
+            load(store, P1, 70, 100);
+
+            h = getReadOnlyView(store, store.commit()).getSPORelation()
+                    .getHistograms();
+
+            assertEquals(131L, h.getEntryCount(SPOKeyOrder.POS));
+            assertEquals(100L, h.getRangeCount(SPOKeyOrder.POS, p1));
+
+            // a forced rebuild is exact.
+            store.removeStatements(null, P2, null);
+            assertEquals(3, store.getSPORelation().updateHistograms(true/* force */));
+
+            h = getReadOnlyView(store, store.commit()).getSPORelation()
+                    .getHistograms();
+
+            assertEquals(101L, h.getEntryCount(SPOKeyOrder.POS));
+            assertEquals(-1L, h.getRangeCount(SPOKeyOrder.POS, p2));
+            assertEquals(2L, h.getDistinctCount(SPOKeyOrder.POS, 1));
+
+        } finally {
+
+            store.__tearDownUnitTest();
+
+        }
+
+    }
+
+    /**
+     * The {@link ASTRangeCountOptimizer} uses the histogram for a frequent
+     * constant and a range count for a selective constant.
+     */
+    public void test_rangeCountOptimizer() throws Exception {
+
+        final AbstractTripleStore store = getStore(getProperties());
+
+        try {
+
+            if (!(store.getIndexManager() instanceof IJournal)) {
+                // Note: read-only views require commit points.
+                log.warn("Histograms not supported: " + store.getClass());
+                return;
+            }
+
+            load(store, P1, 0, 60);
+            load(store, P2, 0, 30);
+            load(store, P3, 0, 1);
+            store.commit();
+
+            // less than the depth of a bucket, so the histogram is stale.
+            load(store, P1, 60, 70);
+
+            final AbstractTripleStore view = getReadOnlyView(store,
+                    store.commit());
+
+            // the histogram estimate.
+            assertEquals(60L, getEstimatedCardinality(view, P1));
+
+            // the range count.
+            assertEquals(1L, getEstimatedCardinality(view, P3));
+
+            // no histograms for a mutable view.
+            assertEquals(70L, getEstimatedCardinality(store, P1));
+
+        } finally {
+
+            store.__tearDownUnitTest();
+
+        }
+
+    }
+
+    private static long getEstimatedCardinality(
+            final AbstractTripleStore store, final URI p) throws Exception {
+
+        final ASTContainer astContainer = new Bigdata2ASTSPARQLParser()
+                .parseQuery2("SELECT * { ?s <" + p + "> ?o }", null/* baseURI */);
+
+        final TupleQueryResult result = ASTEvalHelper.evaluateTupleQuery(
+                store, astContainer, new QueryBindingSet(), null/* dataset */);
+
+        try {
+            while (result.hasNext()) {
+                result.next();
+            }
+        } finally {
+            result.close();
+        }
+
+        final StatementPatternNode sp = (StatementPatternNode) astContainer
+                .getOptimizedAST().getWhereClause().get(0);
+
+        return (Long) sp.getProperty(Annotations.ESTIMATED_CARDINALITY);
+
+    }
+
+    private static AbstractTripleStore getReadOnlyView(
+            final AbstractTripleStore store, final long commitTime) {
+
+        return (AbstractTripleStore) store.getIndexManager()
+                .getResourceLocator().locate(store.getNamespace(), commitTime);
+
+    }
+
+    /**
+     * Add <code>(s<i>i</i> p "i")</code> for <i>i</i> in
+     * <code>[from:to)</code>.
+     */
+    private static void load(final AbstractTripleStore store, final URI p,
+            final int from, final int to) {
+
+        for (int i = from; i < to; i++) {
+
+            store.addStatement(new URIImpl("http://www.bigdata.com/s" + i), p,
+                    new LiteralImpl(Integer.toString(i)));
+
+        }
+
+    }
+
+}
@@ -0,0 +1,259 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+package com.bigdata.rdf.store;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.openrdf.model.Literal;
+import org.openrdf.model.impl.LiteralImpl;
+import org.openrdf.model.vocabulary.RDFS;
+
+import com.bigdata.rdf.axioms.NoAxioms;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.InlineLiteralDictionary;
+import com.bigdata.rdf.internal.XSD;
+import com.bigdata.rdf.internal.impl.literal.InlineDictionaryCodeIV;
+import com.bigdata.rdf.internal.impl.literal.LiteralExtensionIV;
+import com.bigdata.rdf.model.BigdataLiteral;
+import com.bigdata.rdf.model.BigdataStatement;
+import com.bigdata.rdf.model.BigdataURI;
+import com.bigdata.rdf.model.BigdataValue;
+import com.bigdata.rdf.model.BigdataValueFactory;
+import com.bigdata.rdf.rio.StatementBuffer;
+import com.bigdata.rdf.sail.BigdataSail;
+
+/**
+ * Integration test suite for the {@link InlineLiteralDictionary} and the
+ * {@link InlineLiteralDictionaryBuilder}.
+ */
+public class TestInlineLiteralDictionary extends AbstractTripleStoreTestCase {
+
+    public TestInlineLiteralDictionary() {
+    }
+
+    public TestInlineLiteralDictionary(final String arg0) {
+        super(arg0);
+    }
+
+    @Override
+    public Properties getProperties() {
+
+        final Properties props = new Properties(super.getProperties());
+
+        props.setProperty(BigdataSail.Options.AXIOMS_CLASS, NoAxioms.class.getName());
+        props.setProperty(BigdataSail.Options.TRUTH_MAINTENANCE, "false");
+        props.setProperty(BigdataSail.Options.JUSTIFY, "false");
+        props.setProperty(BigdataSail.Options.TEXT_INDEX, "false");
+
+        return props;
+
+    }
+
+    private static final Literal RED = new LiteralImpl("red");
+
+    private static final Literal ROUGE = new LiteralImpl("rouge", "fr");
+
+    private static final Literal CODE = new LiteralImpl("ABC-123", XSD.STRING);
+
+    private static final Literal RARE = new LiteralImpl("rare");
+
+    /**
+     * Unit test for the codes assigned by the dictionary and the round trip
+     * through its external representation.
+     */
+    public void test_dictionary() throws Exception {
+
+        final InlineLiteralDictionary dict = new InlineLiteralDictionary(
+                Arrays.asList(RED, ROUGE, CODE));
+
+        assertEquals(3, dict.size());
+        assertEquals(0, dict.getCode(RED));
+        assertEquals(1, dict.getCode(ROUGE));
+        assertEquals(2, dict.getCode(CODE));
+        assertEquals(-1, dict.getCode(RARE));
+        // language tag and datatype are significant.
+        assertEquals(-1, dict.getCode(new LiteralImpl("red", "en")));
+        assertEquals(-1, dict.getCode(new LiteralImpl("ABC-123")));
+        assertEquals(ROUGE, dict.getLiteral(1));
+
+        try {
+            dict.getLiteral(3);
+            fail("Expecting: " + IllegalArgumentException.class);
+        } catch (IllegalArgumentException ex) {
+            // ignore
+        }
+
+        try {
+            new InlineLiteralDictionary(Arrays.asList(RED, ROUGE, RED));
+            fail("Expecting: " + IllegalArgumentException.class);
+        } catch (IllegalArgumentException ex) {
+            // ignore
+        }
+
+        final StringWriter w = new StringWriter();
+        dict.write(w);
+
+        final InlineLiteralDictionary dict2 = InlineLiteralDictionary.read(
+                new StringReader("# comment\n\n" + w.toString()), 100/* maxSize */);
+
+        assertEquals(3, dict2.size());
+        for (int i = 0; i < dict.size(); i++)
+            assertEquals(dict.getLiteral(i), dict2.getLiteral(i));
+
+        // maxSize truncates the dictionary.
+        assertEquals(2, InlineLiteralDictionary.read(
+                new StringReader(w.toString()), 2/* maxSize */).size());
+
+    }
+
+    /**
+     * Build a dictionary from a KB, then create a new KB using that dictionary
+     * and verify that the dictionary literals are inlined and materialize
+     * correctly while other literals are not affected.
+     */
+    public void test_buildAndInline() throws Exception {
+
+        final File file = File.createTempFile(getName(), ".nt");
+
+        try {
+
+            {
+                final AbstractTripleStore store = getStore(getProperties());
+
+                try {
+
+                    load(store);
+
+                    final InlineLiteralDictionary dict = InlineLiteralDictionaryBuilder
+                            .build(store, 3/* maxSize */, 2L/* minCount */);
+
+                    // most frequent first, [RARE] is below minCount.
+                    assertEquals(3, dict.size());
+                    assertEquals(RED, dict.getLiteral(0));
+                    assertEquals(ROUGE, dict.getLiteral(1));
+                    assertEquals(CODE, dict.getLiteral(2));
+
+                    final Writer w = new OutputStreamWriter(
+                            new FileOutputStream(file), "UTF-8");
+                    try {
+                        dict.write(w);
+                    } finally {
+                        w.close();
+                    }
+
+                } finally {
+                    store.__tearDownUnitTest();
+                }
+            }
+
+            final Properties props = new Properties(getProperties());
+
+            props.setProperty(
+                    AbstractTripleStore.Options.INLINE_LITERAL_DICTIONARY,
+                    file.getAbsolutePath());
+
+            final AbstractTripleStore store = getStore(props);
+
+            try {
+
+                assertEquals(3, store.getInlineLiteralDictionary().size());
+
+                load(store);
+
+                final BigdataValueFactory vf = store.getValueFactory();
+
+                for (Literal lit : new Literal[] { RED, ROUGE, CODE }) {
+
+                    final BigdataLiteral l = vf.asValue(lit);
+
+                    store.addTerms(new BigdataValue[] { l });
+
+                    final IV<?, ?> iv = l.getIV();
+
+                    assertTrue(iv.isInline());
+                    assertTrue(iv instanceof LiteralExtensionIV);
+                    assertTrue(((LiteralExtensionIV<?>) iv).getDelegate() instanceof InlineDictionaryCodeIV);
+
+                    // materializes back to the original literal.
+                    final BigdataValue v = store.getTerm(iv);
+                    assertEquals(lit, v);
+                    assertEquals(lit.getLanguage(), ((Literal) v).getLanguage());
+                    assertEquals(lit.getDatatype(), ((Literal) v).getDatatype());
+
+                    // and can be used to read the statement indices.
+                    assertTrue(store.getAccessPath(null, RDFS.LABEL, lit).rangeCount(false/* exact */) > 0);
+
+                }
+
+                {
+                    final BigdataLiteral l = vf.asValue(RARE);
+                    store.addTerms(new BigdataValue[] { l });
+                    assertFalse(l.getIV() instanceof LiteralExtensionIV);
+                }
+
+            } finally {
+                store.__tearDownUnitTest();
+            }
+
+        } finally {
+
+            file.delete();
+
+        }
+
+    }
+
+    private void load(final AbstractTripleStore store) {
+
+        final BigdataValueFactory vf = store.getValueFactory();
+
+        final StatementBuffer<BigdataStatement> sb = new StatementBuffer<BigdataStatement>(
+                store, 100/* capacity */);
+
+        for (int i = 0; i < 6; i++) {
+            final BigdataURI s = vf.createURI("urn:s:" + i);
+            sb.add(s, RDFS.LABEL, vf.asValue(RED));
+            if (i < 4)
+                sb.add(s, RDFS.LABEL, vf.asValue(ROUGE));
+            if (i < 2)
+                sb.add(s, RDFS.LABEL, vf.asValue(CODE));
+        }
+        sb.add(vf.createURI("urn:s:0"), RDFS.COMMENT, vf.asValue(RARE));
+
+        sb.flush();
+        store.commit();
+
+    }
+
+}
@@ -120,6 +120,9 @@ public class TestTripleStoreBasics extends TestCase2 {
         // See BLZG-1507 (Implement support for DTE extension types for URIs)
         suite.addTestSuite(com.bigdata.rdf.store.TestInlineURIs.class);
 
+        // integration test suite for the inline literal dictionary.
+        suite.addTestSuite(com.bigdata.rdf.store.TestInlineLiteralDictionary.class);
+
         return suite;
 
     }
@@ -116,6 +116,8 @@ public class TestBigdataSailWithQuads extends AbstractBigdataSailTestCase {
         // test suite for the history index.
         suite.addTestSuite(TestHistoryIndex.class);
 
+        suite.addTestSuite(TestExportKB.class);
+
 		suite.addTestSuite(com.bigdata.rdf.sail.TestRollbacks.class);
 		suite.addTestSuite(com.bigdata.rdf.sail.TestRollbacksTx.class);
 		suite.addTestSuite(com.bigdata.rdf.sail.TestMROWTransactionsNoHistory.class);
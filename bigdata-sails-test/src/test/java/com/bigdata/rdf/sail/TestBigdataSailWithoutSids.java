@@ -92,6 +92,8 @@ public class TestBigdataSailWithoutSids extends AbstractBigdataSailTestCase {
         // test suite for the history index.
         suite.addTestSuite(TestHistoryIndex.class);
 
+        suite.addTestSuite(TestExportKB.class);
+
 		suite.addTestSuite(com.bigdata.rdf.sail.TestRollbacks.class);
 		suite.addTestSuite(com.bigdata.rdf.sail.TestRollbacksTx.class);
         suite.addTestSuite(com.bigdata.rdf.sail.TestRollbacksTM.class);
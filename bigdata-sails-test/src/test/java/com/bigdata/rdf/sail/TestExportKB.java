@@ -0,0 +1,224 @@
+/**
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+
+package com.bigdata.rdf.sail;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFParser;
+import org.openrdf.rio.Rio;
+import org.openrdf.rio.helpers.RDFHandlerBase;
+
+import com.bigdata.rdf.model.BigdataValueFactory;
+import com.bigdata.rdf.sail.BigdataSail.BigdataSailConnection;
+
+import info.aduna.iteration.CloseableIteration;
+
+/**
+ * Test suite for the parallel export of a KB by {@link ExportKB}.
+ */
+public class TestExportKB extends ProxyBigdataSailTestCase {
+
+    public TestExportKB() {
+    }
+
+    public TestExportKB(final String name) {
+        super(name);
+    }
+
+    /**
+     * The statements are exported onto one data file per key range of the
+     * statement index. Together, the data files contain exactly the told
+     * statements.
+     */
+    public void test_exportDataParallel() throws Exception {
+
+        final BigdataSail sail = getSail();
+
+        final File kbdir = File.createTempFile(getName(), ".dir");
+
+        try {
+
+            sail.initialize();
+
+            final BigdataValueFactory vf = (BigdataValueFactory) sail
+                    .getValueFactory();
+
+            final boolean quads;
+            {
+                final BigdataSailConnection conn = sail.getConnection();
+                try {
+                    quads = conn.isQuads();
+                    final URI p = vf.createURI("http://www.bigdata.com/p");
+                    for (int i = 0; i < 1000; i++) {
+                        final URI s = vf.createURI("http://www.bigdata.com/s"
+                                + (i % 100));
+                        final Resource c = quads ? vf
+                                .createURI("http://www.bigdata.com/c" + (i % 3))
+                                : null;
+                        conn.addStatement(s, p, vf.createLiteral(i), c);
+                    }
+                    conn.commit();
+                } finally {
+                    conn.close();
+                }
+            }
+
+            if (!kbdir.delete())
+                fail("Could not delete: " + kbdir);
+
+            final RDFFormat format = quads ? RDFFormat.NQUADS
+                    : RDFFormat.NTRIPLES;
+
+            final Set<List<Value>> expected = new HashSet<List<Value>>();
+
+            final long n;
+            {
+                final BigdataSailConnection conn = sail.getReadOnlyConnection();
+                try {
+                    final CloseableIteration<? extends Statement, ?> itr = conn
+                            .getStatements(null/* s */, null/* p */,
+                                    null/* o */, false/* includeInferred */);
+                    try {
+                        while (itr.hasNext()) {
+                            expected.add(asList(itr.next()));
+                        }
+                    } finally {
+                        itr.close();
+                    }
+                    n = new ExportKB(conn, kbdir, format,
+                            false/* includeInferred */, 4/* nworkers */)
+                            .exportDataParallel();
+                } finally {
+                    conn.close();
+                }
+            }
+
+            assertEquals(1000, expected.size());
+
+            assertEquals(expected.size(), n);
+
+            final Set<List<Value>> actual = new HashSet<List<Value>>();
+
+            final File[] files = kbdir.listFiles();
+
+            assertEquals(4, files.length);
+
+            for (File file : files) {
+
+                final RDFParser parser = Rio.createParser(format);
+
+                parser.setRDFHandler(new RDFHandlerBase() {
+                    @Override
+                    public void handleStatement(final Statement stmt) {
+                        assertTrue(actual.add(asList(stmt)));
+                    }
+                });
+
+                final InputStream is = new GZIPInputStream(
+                        new FileInputStream(file));
+
+                try {
+                    parser.parse(is, "");
+                } finally {
+                    is.close();
+                }
+
+            }
+
+            assertEquals(expected, actual);
+
+        } finally {
+
+            if (kbdir.isDirectory()) {
+                for (File file : kbdir.listFiles()) {
+                    file.delete();
+                }
+            }
+
+            kbdir.delete();
+
+            sail.__tearDownUnitTest();
+
+        }
+
+    }
+
+    /**
+     * The parallel export requires a read-only connection.
+     */
+    public void test_exportDataParallel_readWriteConnection() throws Exception {
+
+        final BigdataSail sail = getSail();
+
+        final File kbdir = File.createTempFile(getName(), ".dir");
+
+        try {
+
+            sail.initialize();
+
+            final BigdataSailConnection conn = sail.getConnection();
+            try {
+                new ExportKB(conn, kbdir, RDFFormat.NQUADS,
+                        false/* includeInferred */, 4/* nworkers */);
+                fail("Expecting: " + IllegalArgumentException.class);
+            } catch (IllegalArgumentException ex) {
+                if (log.isInfoEnabled())
+                    log.info("Ignoring expected exception: " + ex);
+            } finally {
+                conn.close();
+            }
+
+        } finally {
+
+            kbdir.delete();
+
+            sail.__tearDownUnitTest();
+
+        }
+
+    }
+
+    private static List<Value> asList(final Statement stmt) {
+
+        return Arrays.asList(stmt.getSubject(), stmt.getPredicate(),
+                stmt.getObject(), stmt.getContext());
+
+    }
+
+}
@@ -62,6 +62,20 @@ public class TestAll extends TestCase {
 
         suite.addTestSuite(TestServiceWhiteList.class);
 
+        suite.addTestSuite(TestSparqlResultCache.class);
+
+        suite.addTestSuite(TestWorkloadClasses.class);
+
+        suite.addTestSuite(TestResponseCompression.class);
+
+        suite.addTestSuite(TestAsyncQuery.class);
+
+        suite.addTestSuite(TestBatchQuery.class);
+
+        suite.addTestSuite(TestStreamingInsert.class);
+
+        suite.addTestSuite(TestQueryCursor.class);
+
 //
 //        /*
 //         * WebApp Client.
@@ -0,0 +1,329 @@
+/**
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+package com.bigdata.rdf.sail.webapp;
+
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.server.Server;
+import org.openrdf.query.TupleQueryResult;
+
+import com.bigdata.BigdataStatics;
+import com.bigdata.journal.BufferMode;
+import com.bigdata.journal.Journal;
+import com.bigdata.rdf.sail.BigdataSail;
+import com.bigdata.rdf.sail.CreateKBTask;
+import com.bigdata.rdf.sail.DestroyKBTask;
+import com.bigdata.rdf.sail.webapp.client.HttpClientConfigurator;
+import com.bigdata.rdf.sail.webapp.client.HttpException;
+import com.bigdata.rdf.sail.webapp.client.IPreparedTupleQuery;
+import com.bigdata.rdf.sail.webapp.client.RemoteRepository;
+import com.bigdata.rdf.sail.webapp.client.RemoteRepositoryDecls;
+import com.bigdata.rdf.sail.webapp.client.RemoteRepositoryManager;
+import com.bigdata.rdf.task.AbstractApiTask;
+import com.bigdata.util.config.NicUtil;
+
+import junit.framework.TestCase2;
+
+/**
+ * Test suite for the asynchronous processing of SPARQL QUERY and SPARQL UPDATE
+ * requests.
+ * 
+ * @see ConfigParams#ASYNC_QUERY
+ */
+public class TestAsyncQuery extends TestCase2 {
+
+    private Server m_fixture;
+    private String namespace;
+    private Journal m_indexManager;
+    private RemoteRepositoryManager m_repo;
+    private HttpClient m_client;
+
+    public TestAsyncQuery() {
+    }
+
+    public TestAsyncQuery(final String name) {
+        super(name);
+    }
+
+    public void test_async() throws Exception {
+
+        doQueryTest();
+
+    }
+
+    public void test_sync() throws Exception {
+
+        doQueryTest();
+
+    }
+
+    /**
+     * Errors are reported to the client with the same status code for an
+     * asynchronous request.
+     */
+    public void test_async_badRequest() throws Exception {
+
+        final RemoteRepository repo = m_repo
+                .getRepositoryForNamespace(namespace);
+
+        try {
+            count(repo, "SELECT * { ?s ?p }");
+            fail("Expecting: " + HttpException.class);
+        } catch (HttpException ex) {
+            assertEquals(400, ex.getStatusCode());
+        }
+
+        try {
+            repo.prepareUpdate("INSERT DATA { <http://x/a> }").evaluate();
+            fail("Expecting: " + HttpException.class);
+        } catch (HttpException ex) {
+            assertEquals(400, ex.getStatusCode());
+        }
+
+    }
+
+    /**
+     * A query which times out is cancelled and reported to the client, and
+     * the server continues to process requests once the cancelled task has
+     * stopped.
+     */
+    public void test_async_timeout() throws Exception {
+
+        final RemoteRepository repo = m_repo
+                .getRepositoryForNamespace(namespace);
+
+        final StringBuilder sb = new StringBuilder("INSERT DATA {");
+        for (int i = 0; i < 100; i++)
+            sb.append(" <http://x/s" + i + "> <http://x/p> " + i + " .");
+        sb.append(" }");
+        repo.prepareUpdate(sb.toString()).evaluate();
+
+        for (int i = 0; i < 5; i++) {
+
+            final IPreparedTupleQuery query = repo
+                    .prepareTupleQuery("SELECT (COUNT(*) AS ?n) {"
+                            + " ?a <http://x/p> ?b . ?c <http://x/p> ?d ."
+                            + " ?e <http://x/p> ?f . ?g <http://x/p> ?h ."
+                            + " ?i <http://x/p> ?j }");
+
+            query.addRequestParam(RemoteRepositoryDecls.MAX_QUERY_TIME_MILLIS,
+                    "100");
+
+            try {
+                final TupleQueryResult res = query.evaluate();
+                try {
+                    while (res.hasNext())
+                        res.next();
+                } finally {
+                    res.close();
+                }
+                fail("Expecting a timeout");
+            } catch (Exception ex) {
+                if (log.isInfoEnabled())
+                    log.info("Ignoring expected exception: " + ex);
+            }
+
+        }
+
+        assertEquals(10, count(repo, "SELECT * { ?s <http://x/p> ?o } LIMIT 10"));
+
+    }
+
+    /**
+     * Run an UPDATE and then many concurrent queries.
+     */
+    private void doQueryTest() throws Exception {
+
+        final RemoteRepository repo = m_repo
+                .getRepositoryForNamespace(namespace);
+
+        final StringBuilder sb = new StringBuilder("INSERT DATA {");
+        for (int i = 0; i < 100; i++)
+            sb.append(" <http://x/s" + i + "> <http://x/p> " + i + " .");
+        sb.append(" }");
+        repo.prepareUpdate(sb.toString()).evaluate();
+
+        final int nqueries = 50;
+
+        final ExecutorService service = Executors.newFixedThreadPool(10);
+
+        try {
+
+            final List<Future<Integer>> futures = new LinkedList<Future<Integer>>();
+
+            for (int i = 0; i < nqueries; i++) {
+
+                final int limit = i + 1;
+
+                futures.add(service.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        return count(repo, "SELECT * { ?s <http://x/p> ?o } LIMIT "
+                                + limit);
+                    }
+                }));
+
+            }
+
+            int i = 0;
+            for (Future<Integer> f : futures) {
+                assertEquals(Math.min(100, ++i), f.get().intValue());
+            }
+
+        } finally {
+
+            service.shutdownNow();
+
+        }
+
+    }
+
+    private static int count(final RemoteRepository repo, final String query)
+            throws Exception {
+
+        final TupleQueryResult res = repo.prepareTupleQuery(query).evaluate();
+
+        int n = 0;
+        try {
+            while (res.hasNext()) {
+                res.next();
+                n++;
+            }
+        } finally {
+            res.close();
+        }
+
+        return n;
+
+    }
+
+    @Override
+    public void setUp() throws Exception {
+
+        final Properties properties = new Properties();
+
+        properties.setProperty(Journal.Options.BUFFER_MODE,
+                BufferMode.MemStore.name());
+
+        properties.setProperty(BigdataSail.Options.TRIPLES_MODE, "true");
+
+        namespace = getName() + UUID.randomUUID();
+
+        m_indexManager = new Journal(properties);
+
+        AbstractApiTask.submitApiTask(m_indexManager,
+                new CreateKBTask(namespace, properties)).get();
+
+        final Map<String, String> initParams = new LinkedHashMap<String, String>();
+
+        initParams.put(ConfigParams.NAMESPACE, namespace);
+
+        initParams.put(ConfigParams.CREATE, "false");
+
+        // The synchronous code path is used by the test_sync_* tests.
+        initParams.put(ConfigParams.ASYNC_QUERY,
+                Boolean.toString(!getName().startsWith("test_sync")));
+
+        m_fixture = NanoSparqlServer.newInstance(0/* port */, m_indexManager,
+                initParams);
+
+        m_fixture.start();
+
+        final int port = NanoSparqlServer.getLocalPort(m_fixture);
+
+        final String hostAddr = NicUtil.getIpAddress("default.nic", "default",
+                true/* loopbackOk */);
+
+        if (hostAddr == null) {
+
+            fail("Could not identify network address for this host.");
+
+        }
+
+        final String serviceURL = new URL("http", hostAddr, port,
+                BigdataStatics.getContextPath()).toExternalForm();
+
+        m_client = HttpClientConfigurator.getInstance().newInstance();
+
+        m_repo = new RemoteRepositoryManager(serviceURL, m_client,
+                m_indexManager.getExecutorService());
+
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+
+        if (m_fixture != null) {
+
+            m_fixture.stop();
+
+            m_fixture = null;
+
+        }
+
+        if (m_indexManager != null) {
+
+            AbstractApiTask.submitApiTask(m_indexManager,
+                    new DestroyKBTask(namespace)).get();
+
+            m_indexManager.destroy();
+
+            m_indexManager = null;
+
+        }
+
+        if (m_repo != null) {
+
+            m_repo.close();
+
+            m_repo = null;
+
+        }
+
+        if (m_client != null) {
+
+            m_client.stop();
+
+            m_client = null;
+
+        }
+
+        super.tearDown();
+
+    }
+
+}
@@ -0,0 +1,353 @@
+/**
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+package com.bigdata.rdf.sail.webapp;
+
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.server.Server;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.TupleQueryResult;
+
+import com.bigdata.BigdataStatics;
+import com.bigdata.journal.BufferMode;
+import com.bigdata.journal.Journal;
+import com.bigdata.rdf.sail.BigdataSail;
+import com.bigdata.rdf.sail.CreateKBTask;
+import com.bigdata.rdf.sail.DestroyKBTask;
+import com.bigdata.rdf.sail.webapp.client.HttpClientConfigurator;
+import com.bigdata.rdf.sail.webapp.client.HttpException;
+import com.bigdata.rdf.sail.webapp.client.RemoteRepository;
+import com.bigdata.rdf.sail.webapp.client.RemoteRepositoryManager;
+import com.bigdata.rdf.task.AbstractApiTask;
+import com.bigdata.util.config.NicUtil;
+
+import junit.framework.TestCase2;
+
+/**
+ * Test suite for a batch of SPARQL queries submitted in a single request.
+ * 
+ * @see QueryServlet#ATTR_BATCH
+ */
+public class TestBatchQuery extends TestCase2 {
+
+    private Server m_fixture;
+    private String namespace;
+    private Journal m_indexManager;
+    private RemoteRepositoryManager m_repo;
+    private HttpClient m_client;
+
+    public TestBatchQuery() {
+    }
+
+    public TestBatchQuery(final String name) {
+        super(name);
+    }
+
+    /**
+     * The results for each query of the batch are reported in the order in
+     * which the queries were given.
+     */
+    public void test_batch() throws Exception {
+
+        final RemoteRepository repo = m_repo
+                .getRepositoryForNamespace(namespace);
+
+        final StringBuilder sb = new StringBuilder("INSERT DATA {");
+        for (int i = 0; i < 100; i++)
+            sb.append(" <http://x/s" + i + "> <http://x/p> " + i + " .");
+        sb.append(" }");
+        repo.prepareUpdate(sb.toString()).evaluate();
+
+        final String[] queries = new String[50];
+
+        for (int i = 0; i < queries.length; i++) {
+
+            queries[i] = "SELECT * { ?s <http://x/p> ?o } LIMIT " + (i + 1);
+
+        }
+
+        final TupleQueryResult[] results = repo.batchTupleQuery(queries);
+
+        assertEquals(queries.length, results.length);
+
+        for (int i = 0; i < results.length; i++) {
+
+            assertEquals(i + 1, count(results[i]));
+
+        }
+
+        // Point lookups.
+        final TupleQueryResult[] results2 = repo.batchTupleQuery(
+                "SELECT ?o { <http://x/s7> <http://x/p> ?o }",
+                "SELECT ?o { <http://x/s42> <http://x/p> ?o }",
+                "SELECT ?o { <http://x/none> <http://x/p> ?o }");
+
+        assertEquals(3, results2.length);
+        assertEquals("7", only(results2[0]).getValue("o").stringValue());
+        assertEquals("42", only(results2[1]).getValue("o").stringValue());
+        assertEquals(0, count(results2[2]));
+
+    }
+
+    /**
+     * Each query of the batch is admitted by its workload class and holds a
+     * permit while it runs. The default workload class admits one running
+     * query in this test suite, so the queries of the batch run one at a
+     * time.
+     */
+    public void test_batch_workloadClass() throws Exception {
+
+        final RemoteRepository repo = m_repo
+                .getRepositoryForNamespace(namespace);
+
+        repo.prepareUpdate(
+                "INSERT DATA { <http://x/s1> <http://x/p> 1 . <http://x/s2> <http://x/p> 2 . }")
+                .evaluate();
+
+        final String[] queries = new String[10];
+
+        for (int i = 0; i < queries.length; i++) {
+
+            queries[i] = "SELECT * { ?s <http://x/p> ?o }";
+
+        }
+
+        final TupleQueryResult[] results = repo.batchTupleQuery(queries);
+
+        assertEquals(queries.length, results.length);
+
+        for (int i = 0; i < results.length; i++) {
+
+            assertEquals(2, count(results[i]));
+
+        }
+
+        final WorkloadClass workloadClass = getContext().getWorkloadClasses()
+                .get(WorkloadClass.DEFAULT);
+
+        assertEquals(queries.length, workloadClass.getAdmittedCount());
+
+        assertEquals(0, workloadClass.getRunningCount());
+
+    }
+
+    /**
+     * A query whose results exceed the limit on the buffered results gets an
+     * error frame. The limit is set to 1024 bytes for this test.
+     * 
+     * @see ConfigParams#BATCH_MAX_RESULT_SIZE
+     */
+    public void test_batch_maxResultSize() throws Exception {
+
+        final RemoteRepository repo = m_repo
+                .getRepositoryForNamespace(namespace);
+
+        final StringBuilder sb = new StringBuilder("INSERT DATA {");
+        for (int i = 0; i < 100; i++)
+            sb.append(" <http://x/s" + i + "> <http://x/p> " + i + " .");
+        sb.append(" }");
+        repo.prepareUpdate(sb.toString()).evaluate();
+
+        try {
+            repo.batchTupleQuery(
+                    "SELECT ?o { <http://x/s7> <http://x/p> ?o }",
+                    "SELECT * { ?s <http://x/p> ?o }");
+            fail("Expecting: " + HttpException.class);
+        } catch (HttpException ex) {
+            assertEquals(500, ex.getStatusCode());
+            assertTrue(ex.getMessage(), ex.getMessage().contains(
+                    ConfigParams.BATCH_MAX_RESULT_SIZE));
+        }
+
+        // A batch within the limit.
+        final TupleQueryResult[] results = repo.batchTupleQuery(
+                "SELECT ?o { <http://x/s7> <http://x/p> ?o }");
+
+        assertEquals("7", only(results[0]).getValue("o").stringValue());
+
+    }
+
+    /**
+     * A malformed query fails the entire batch.
+     */
+    public void test_batch_badRequest() throws Exception {
+
+        final RemoteRepository repo = m_repo
+                .getRepositoryForNamespace(namespace);
+
+        try {
+            repo.batchTupleQuery("SELECT * { ?s ?p ?o }", "SELECT * { ?s ?p }");
+            fail("Expecting: " + HttpException.class);
+        } catch (HttpException ex) {
+            assertEquals(400, ex.getStatusCode());
+        }
+
+    }
+
+    private BigdataRDFContext getContext() {
+
+        return (BigdataRDFContext) NanoSparqlServer.getWebApp(m_fixture)
+                .getServletContext()
+                .getAttribute(BigdataServlet.ATTRIBUTE_RDF_CONTEXT);
+
+    }
+
+    private static BindingSet only(final TupleQueryResult res)
+            throws Exception {
+
+        try {
+            assertTrue(res.hasNext());
+            final BindingSet bset = res.next();
+            assertFalse(res.hasNext());
+            return bset;
+        } finally {
+            res.close();
+        }
+
+    }
+
+    private static int count(final TupleQueryResult res) throws Exception {
+
+        int n = 0;
+        try {
+            while (res.hasNext()) {
+                res.next();
+                n++;
+            }
+        } finally {
+            res.close();
+        }
+
+        return n;
+
+    }
+
+    @Override
+    public void setUp() throws Exception {
+
+        final Properties properties = new Properties();
+
+        properties.setProperty(Journal.Options.BUFFER_MODE,
+                BufferMode.MemStore.name());
+
+        properties.setProperty(BigdataSail.Options.TRIPLES_MODE, "true");
+
+        namespace = getName() + UUID.randomUUID();
+
+        m_indexManager = new Journal(properties);
+
+        AbstractApiTask.submitApiTask(m_indexManager,
+                new CreateKBTask(namespace, properties)).get();
+
+        final Map<String, String> initParams = new LinkedHashMap<String, String>();
+
+        initParams.put(ConfigParams.NAMESPACE, namespace);
+
+        initParams.put(ConfigParams.CREATE, "false");
+
+        initParams.put(ConfigParams.WORKLOAD_CLASSES, WorkloadClass.DEFAULT
+                + ":1:100");
+
+        if (getName().equals("test_batch_maxResultSize")) {
+
+            initParams.put(ConfigParams.BATCH_MAX_RESULT_SIZE, "1024");
+
+        }
+
+        m_fixture = NanoSparqlServer.newInstance(0/* port */, m_indexManager,
+                initParams);
+
+        m_fixture.start();
+
+        final int port = NanoSparqlServer.getLocalPort(m_fixture);
+
+        final String hostAddr = NicUtil.getIpAddress("default.nic", "default",
+                true/* loopbackOk */);
+
+        if (hostAddr == null) {
+
+            fail("Could not identify network address for this host.");
+
+        }
+
+        final String serviceURL = new URL("http", hostAddr, port,
+                BigdataStatics.getContextPath()).toExternalForm();
+
+        m_client = HttpClientConfigurator.getInstance().newInstance();
+
+        m_repo = new RemoteRepositoryManager(serviceURL, m_client,
+                m_indexManager.getExecutorService());
+
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+
+        if (m_fixture != null) {
+
+            m_fixture.stop();
+
+            m_fixture = null;
+
+        }
+
+        if (m_indexManager != null) {
+
+            AbstractApiTask.submitApiTask(m_indexManager,
+                    new DestroyKBTask(namespace)).get();
+
+            m_indexManager.destroy();
+
+            m_indexManager = null;
+
+        }
+
+        if (m_repo != null) {
+
+            m_repo.close();
+
+            m_repo = null;
+
+        }
+
+        if (m_client != null) {
+
+            m_client.stop();
+
+            m_client = null;
+
+        }
+
+        super.tearDown();
+
+    }
+
+}
@@ -0,0 +1,477 @@
+/**
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+package com.bigdata.rdf.sail.webapp;
+
+import java.net.URL;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.server.Server;
+
+import com.bigdata.BigdataStatics;
+import com.bigdata.journal.BufferMode;
+import com.bigdata.journal.Journal;
+import com.bigdata.rdf.sail.BigdataSail;
+import com.bigdata.rdf.sail.CreateKBTask;
+import com.bigdata.rdf.sail.DestroyKBTask;
+import com.bigdata.rdf.sail.webapp.client.HttpClientConfigurator;
+import com.bigdata.rdf.sail.webapp.client.RemoteRepository;
+import com.bigdata.rdf.sail.webapp.client.RemoteRepositoryManager;
+import com.bigdata.rdf.task.AbstractApiTask;
+import com.bigdata.util.config.NicUtil;
+
+import junit.framework.TestCase2;
+
+/**
+ * Test suite for server-side cursors over the solutions of SPARQL SELECT
+ * queries.
+ * 
+ * @see QueryCursorManager
+ */
+public class TestQueryCursor extends TestCase2 {
+
+    private static final String MIME_TSV = "text/tab-separated-values";
+
+    private static final String QUERY = "SELECT ?s ?o { ?s <http://x/p> ?o }";
+
+    private Server m_fixture;
+    private String namespace;
+    private Journal m_indexManager;
+    private RemoteRepositoryManager m_repo;
+    private HttpClient m_client;
+
+    public TestQueryCursor() {
+    }
+
+    public TestQueryCursor(final String name) {
+        super(name);
+    }
+
+    /**
+     * The pages of a cursor are the solutions of the query. The cursor reads
+     * on the commit point against which it was opened.
+     */
+    public void test_cursor() throws Exception {
+
+        insert(0, 23);
+
+        final Set<String> rows = new HashSet<String>();
+
+        ContentResponse resp = open(QUERY, 5);
+
+        assertEquals(200, resp.getStatus());
+
+        String cursor = resp.getHeaders().get(
+                BigdataRDFContext.HTTP_HEADER_BIGDATA_CURSOR);
+
+        assertNotNull(cursor);
+
+        assertEquals(5, addRows(resp, rows));
+
+        assertEquals(1, getCursors().size());
+
+        // Not visible to the open cursor.
+        insert(23, 10);
+
+        final List<Integer> pageSizes = new LinkedList<Integer>();
+
+        while (cursor != null) {
+
+            resp = next(cursor, null/* pageSize */);
+
+            assertEquals(200, resp.getStatus());
+
+            pageSizes.add(addRows(resp, rows));
+
+            cursor = resp.getHeaders().get(
+                    BigdataRDFContext.HTTP_HEADER_BIGDATA_CURSOR);
+
+        }
+
+        assertEquals(Integer.valueOf(3), pageSizes.get(pageSizes.size() - 1));
+
+        assertEquals(23, rows.size());
+
+        // Closed once exhausted.
+        assertEquals(0, getCursors().size());
+
+        // The page size may be changed for each page.
+        resp = open(QUERY, 30);
+
+        assertEquals(30, addRows(resp, new HashSet<String>()));
+
+        cursor = resp.getHeaders().get(
+                BigdataRDFContext.HTTP_HEADER_BIGDATA_CURSOR);
+
+        resp = next(cursor, "10");
+
+        assertEquals(3, addRows(resp, new HashSet<String>()));
+
+        assertNull(resp.getHeaders().get(
+                BigdataRDFContext.HTTP_HEADER_BIGDATA_CURSOR));
+
+        // A single page when the results fit.
+        resp = open(QUERY + " LIMIT 4", 5);
+
+        assertEquals(4, addRows(resp, new HashSet<String>()));
+
+        assertNull(resp.getHeaders().get(
+                BigdataRDFContext.HTTP_HEADER_BIGDATA_CURSOR));
+
+        assertEquals(0, getCursors().size());
+
+    }
+
+    /**
+     * A cursor may be closed before it is exhausted.
+     */
+    public void test_close() throws Exception {
+
+        insert(0, 10);
+
+        final ContentResponse resp = open(QUERY, 2);
+
+        final String cursor = resp.getHeaders().get(
+                BigdataRDFContext.HTTP_HEADER_BIGDATA_CURSOR);
+
+        assertNotNull(cursor);
+
+        assertEquals(200, close(cursor).getStatus());
+
+        assertEquals(0, getCursors().size());
+
+        assertEquals(404, next(cursor, null).getStatus());
+
+        assertEquals(404, close(cursor).getStatus());
+
+    }
+
+    public void test_badRequest() throws Exception {
+
+        assertEquals(400, open(QUERY, 0).getStatus());
+
+        assertEquals(400, open(QUERY, ConfigParams.DEFAULT_CURSOR_MAX_PAGE_SIZE + 1)
+                .getStatus());
+
+        assertEquals(400, open("ASK { ?s ?p ?o }", 5).getStatus());
+
+        assertEquals(400, open("SELECT * {", 5).getStatus());
+
+        assertEquals(400, next("xyz", null).getStatus());
+
+        assertEquals(404, next(UUID.randomUUID().toString(), null).getStatus());
+
+        assertEquals(0, getCursors().size());
+
+    }
+
+    /**
+     * Cursors are rejected once the maximum #of cursors is open and idle
+     * cursors are closed.
+     */
+    public void test_maxCursors_timeout() throws Exception {
+
+        insert(0, 10);
+
+        final String cursor1 = open(QUERY, 2).getHeaders().get(
+                BigdataRDFContext.HTTP_HEADER_BIGDATA_CURSOR);
+
+        final String cursor2 = open(QUERY, 2).getHeaders().get(
+                BigdataRDFContext.HTTP_HEADER_BIGDATA_CURSOR);
+
+        assertNotNull(cursor1);
+
+        assertNotNull(cursor2);
+
+        assertEquals(503, open(QUERY, 2).getStatus());
+
+        final QueryCursorManager cursors = getCursors();
+
+        final long begin = System.currentTimeMillis();
+
+        while (cursors.size() > 0) {
+
+            if (System.currentTimeMillis() - begin > 10000L)
+                fail("Cursors were not closed: " + cursors.size());
+
+            Thread.sleep(100L);
+
+        }
+
+        assertEquals(2, cursors.getTimeoutCount());
+
+        assertEquals(404, next(cursor1, null).getStatus());
+
+        assertEquals(200, open(QUERY, 2).getStatus());
+
+    }
+
+    /**
+     * An open cursor holds the permit of its workload class until it is
+     * closed.
+     */
+    public void test_workloadClass() throws Exception {
+
+        insert(0, 10);
+
+        final WorkloadClass workloadClass = getContext().getWorkloadClasses()
+                .get(WorkloadClass.DEFAULT);
+
+        final String cursor = open(QUERY, 2).getHeaders().get(
+                BigdataRDFContext.HTTP_HEADER_BIGDATA_CURSOR);
+
+        assertNotNull(cursor);
+
+        assertEquals(1, workloadClass.getRunningCount());
+
+        // The permit is held by the open cursor.
+        assertEquals(503, open(QUERY, 2).getStatus());
+
+        assertEquals(200, next(cursor, null).getStatus());
+
+        assertEquals(1, workloadClass.getRunningCount());
+
+        assertEquals(200, close(cursor).getStatus());
+
+        assertEquals(0, workloadClass.getRunningCount());
+
+        // The exhausted cursor is closed and gives back its permit.
+        assertEquals(200, open(QUERY, 10).getStatus());
+
+        assertEquals(0, workloadClass.getRunningCount());
+
+        assertEquals(0, getCursors().size());
+
+    }
+
+    private BigdataRDFContext getContext() {
+
+        return (BigdataRDFContext) NanoSparqlServer.getWebApp(m_fixture)
+                .getServletContext()
+                .getAttribute(BigdataServlet.ATTRIBUTE_RDF_CONTEXT);
+
+    }
+
+    private QueryCursorManager getCursors() {
+
+        return getContext().getCursorManager();
+
+    }
+
+    private void insert(final int first, final int n) throws Exception {
+
+        final StringBuilder sb = new StringBuilder("INSERT DATA {");
+        for (int i = first; i < first + n; i++)
+            sb.append(" <http://x/s" + i + "> <http://x/p> " + i + " .");
+        sb.append(" }");
+
+        m_repo.getRepositoryForNamespace(namespace)
+                .prepareUpdate(sb.toString()).evaluate();
+
+    }
+
+    private Request newRequest() {
+
+        final RemoteRepository repo = m_repo
+                .getRepositoryForNamespace(namespace);
+
+        return m_client.newRequest(repo.getSparqlEndPoint()).header("Accept",
+                MIME_TSV);
+
+    }
+
+    private ContentResponse open(final String query, final int pageSize)
+            throws Exception {
+
+        return newRequest().param(QueryServlet.ATTR_QUERY, query)
+                .param(QueryServlet.ATTR_PAGE_SIZE, Integer.toString(pageSize))
+                .send();
+
+    }
+
+    private ContentResponse next(final String cursor, final String pageSize)
+            throws Exception {
+
+        final Request req = newRequest().param(QueryServlet.ATTR_CURSOR,
+                cursor);
+
+        if (pageSize != null)
+            req.param(QueryServlet.ATTR_PAGE_SIZE, pageSize);
+
+        return req.send();
+
+    }
+
+    private ContentResponse close(final String cursor) throws Exception {
+
+        return newRequest().param(QueryServlet.ATTR_CURSOR, cursor)
+                .param(QueryServlet.ATTR_CLOSE_CURSOR, "").send();
+
+    }
+
+    /**
+     * Add the rows of a page to the set and return the #of rows in the page.
+     */
+    private static int addRows(final ContentResponse resp,
+            final Set<String> rows) {
+
+        final String[] lines = resp.getContentAsString().split("\n");
+
+        assertEquals("?s\t?o", lines[0].trim());
+
+        int n = 0;
+
+        for (int i = 1; i < lines.length; i++) {
+
+            if (lines[i].trim().length() == 0)
+                continue;
+
+            assertTrue(lines[i], rows.add(lines[i]));
+
+            n++;
+
+        }
+
+        return n;
+
+    }
+
+    @Override
+    public void setUp() throws Exception {
+
+        final Properties properties = new Properties();
+
+        properties.setProperty(Journal.Options.BUFFER_MODE,
+                BufferMode.MemStore.name());
+
+        properties.setProperty(BigdataSail.Options.TRIPLES_MODE, "true");
+
+        namespace = getName() + UUID.randomUUID();
+
+        m_indexManager = new Journal(properties);
+
+        AbstractApiTask.submitApiTask(m_indexManager,
+                new CreateKBTask(namespace, properties)).get();
+
+        final Map<String, String> initParams = new LinkedHashMap<String, String>();
+
+        initParams.put(ConfigParams.NAMESPACE, namespace);
+
+        initParams.put(ConfigParams.CREATE, "false");
+
+        initParams.put(ConfigParams.MAX_CURSORS, "2");
+
+        if (getName().equals("test_maxCursors_timeout")) {
+
+            initParams.put(ConfigParams.CURSOR_TIMEOUT, "500");
+
+        }
+
+        if (getName().equals("test_workloadClass")) {
+
+            initParams.put(ConfigParams.WORKLOAD_CLASSES,
+                    WorkloadClass.DEFAULT + ":1:0");
+
+        }
+
+        m_fixture = NanoSparqlServer.newInstance(0/* port */, m_indexManager,
+                initParams);
+
+        m_fixture.start();
+
+        final int port = NanoSparqlServer.getLocalPort(m_fixture);
+
+        final String hostAddr = NicUtil.getIpAddress("default.nic", "default",
+                true/* loopbackOk */);
+
+        if (hostAddr == null) {
+
+            fail("Could not identify network address for this host.");
+
+        }
+
+        final String serviceURL = new URL("http", hostAddr, port,
+                BigdataStatics.getContextPath()).toExternalForm();
+
+        m_client = HttpClientConfigurator.getInstance().newInstance();
+
+        m_repo = new RemoteRepositoryManager(serviceURL, m_client,
+                m_indexManager.getExecutorService());
+
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+
+        if (m_fixture != null) {
+
+            m_fixture.stop();
+
+            m_fixture = null;
+
+        }
+
+        if (m_indexManager != null) {
+
+            AbstractApiTask.submitApiTask(m_indexManager,
+                    new DestroyKBTask(namespace)).get();
+
+            m_indexManager.destroy();
+
+            m_indexManager = null;
+
+        }
+
+        if (m_repo != null) {
+
+            m_repo.close();
+
+            m_repo = null;
+
+        }
+
+        if (m_client != null) {
+
+            m_client.stop();
+
+            m_client = null;
+
+        }
+
+        super.tearDown();
+
+    }
+
+}
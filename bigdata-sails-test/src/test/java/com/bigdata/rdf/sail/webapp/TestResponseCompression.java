@@ -0,0 +1,290 @@
+/**
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+package com.bigdata.rdf.sail.webapp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.server.Server;
+import org.openrdf.query.TupleQueryResult;
+
+import com.bigdata.BigdataStatics;
+import com.bigdata.journal.BufferMode;
+import com.bigdata.journal.Journal;
+import com.bigdata.rdf.sail.BigdataSail;
+import com.bigdata.rdf.sail.CreateKBTask;
+import com.bigdata.rdf.sail.DestroyKBTask;
+import com.bigdata.rdf.sail.webapp.client.HttpClientConfigurator;
+import com.bigdata.rdf.sail.webapp.client.RemoteRepository;
+import com.bigdata.rdf.sail.webapp.client.RemoteRepositoryManager;
+import com.bigdata.rdf.task.AbstractApiTask;
+import com.bigdata.util.config.NicUtil;
+
+import junit.framework.TestCase2;
+
+/**
+ * Test suite for the negotiated compression of responses.
+ * 
+ * @see NanoSparqlServer.SystemProperties#JETTY_GZIP
+ */
+public class TestResponseCompression extends TestCase2 {
+
+    private Server m_fixture;
+    private String namespace;
+    private String serviceURL;
+    private Journal m_indexManager;
+    private RemoteRepositoryManager m_repo;
+    private HttpClient m_client;
+
+    public TestResponseCompression() {
+    }
+
+    public TestResponseCompression(final String name) {
+        super(name);
+    }
+
+    private static final String QUERY = "SELECT ?s ?o { ?s <http://x/p> ?o }";
+
+    /**
+     * The results are compressed iff the client accepts gzip and are the same
+     * either way.
+     */
+    public void test_negotiatedCompression() throws Exception {
+
+        final byte[] plain = get(false/* gzip */);
+
+        final byte[] compressed = get(true/* gzip */);
+
+        assertTrue(compressed.length < plain.length);
+
+        assertEquals(new String(plain, "UTF-8"),
+                new String(gunzip(compressed), "UTF-8"));
+
+    }
+
+    /**
+     * The {@link RemoteRepository} decodes compressed results transparently.
+     */
+    public void test_remoteRepository() throws Exception {
+
+        final RemoteRepository repo = m_repo
+                .getRepositoryForNamespace(namespace);
+
+        final TupleQueryResult res = repo.prepareTupleQuery(QUERY).evaluate();
+
+        int n = 0;
+        try {
+            while (res.hasNext()) {
+                res.next();
+                n++;
+            }
+        } finally {
+            res.close();
+        }
+
+        assertEquals(200, n);
+
+    }
+
+    /**
+     * Issue the query using GET and return the response entity.
+     */
+    private byte[] get(final boolean gzip) throws Exception {
+
+        final URL url = new URL(serviceURL + "/namespace/" + namespace
+                + "/sparql?query=" + URLEncoder.encode(QUERY, "UTF-8"));
+
+        final HttpURLConnection conn = (HttpURLConnection) url
+                .openConnection();
+
+        try {
+
+            conn.setRequestProperty("Accept",
+                    "application/sparql-results+xml");
+
+            if (gzip)
+                conn.setRequestProperty("Accept-Encoding", "gzip");
+
+            assertEquals(200, conn.getResponseCode());
+
+            assertEquals(gzip ? "gzip" : null, conn.getContentEncoding());
+
+            return readAll(conn.getInputStream());
+
+        } finally {
+
+            conn.disconnect();
+
+        }
+
+    }
+
+    private static byte[] gunzip(final byte[] a) throws Exception {
+
+        return readAll(new GZIPInputStream(new ByteArrayInputStream(a)));
+
+    }
+
+    private static byte[] readAll(final InputStream is) throws Exception {
+
+        try {
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            final byte[] buf = new byte[4096];
+            int n;
+            while ((n = is.read(buf)) != -1) {
+                baos.write(buf, 0, n);
+            }
+            return baos.toByteArray();
+        } finally {
+            is.close();
+        }
+
+    }
+
+    @Override
+    public void setUp() throws Exception {
+
+        final Properties properties = new Properties();
+
+        properties.setProperty(Journal.Options.BUFFER_MODE,
+                BufferMode.MemStore.name());
+
+        properties.setProperty(BigdataSail.Options.TRIPLES_MODE, "true");
+
+        namespace = getName() + UUID.randomUUID();
+
+        m_indexManager = new Journal(properties);
+
+        AbstractApiTask.submitApiTask(m_indexManager,
+                new CreateKBTask(namespace, properties)).get();
+
+        final Map<String, String> initParams = new LinkedHashMap<String, String>();
+
+        initParams.put(ConfigParams.NAMESPACE, namespace);
+
+        initParams.put(ConfigParams.CREATE, "false");
+
+        final String old = System.setProperty(
+                NanoSparqlServer.SystemProperties.JETTY_GZIP, "true");
+
+        try {
+
+            m_fixture = NanoSparqlServer.newInstance(0/* port */,
+                    m_indexManager, initParams);
+
+        } finally {
+
+            if (old == null)
+                System.clearProperty(NanoSparqlServer.SystemProperties.JETTY_GZIP);
+            else
+                System.setProperty(NanoSparqlServer.SystemProperties.JETTY_GZIP, old);
+
+        }
+
+        m_fixture.start();
+
+        final int port = NanoSparqlServer.getLocalPort(m_fixture);
+
+        final String hostAddr = NicUtil.getIpAddress("default.nic", "default",
+                true/* loopbackOk */);
+
+        if (hostAddr == null) {
+
+            fail("Could not identify network address for this host.");
+
+        }
+
+        serviceURL = new URL("http", hostAddr, port,
+                BigdataStatics.getContextPath()).toExternalForm();
+
+        m_client = HttpClientConfigurator.getInstance().newInstance();
+
+        m_repo = new RemoteRepositoryManager(serviceURL, m_client,
+                m_indexManager.getExecutorService());
+
+        final StringBuilder sb = new StringBuilder("INSERT DATA {");
+        for (int i = 0; i < 200; i++)
+            sb.append(" <http://x/s" + i + "> <http://x/p> " + i + " .");
+        sb.append(" }");
+
+        m_repo.getRepositoryForNamespace(namespace)
+                .prepareUpdate(sb.toString()).evaluate();
+
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+
+        if (m_fixture != null) {
+
+            m_fixture.stop();
+
+            m_fixture = null;
+
+        }
+
+        if (m_indexManager != null) {
+
+            AbstractApiTask.submitApiTask(m_indexManager,
+                    new DestroyKBTask(namespace)).get();
+
+            m_indexManager.destroy();
+
+            m_indexManager = null;
+
+        }
+
+        if (m_repo != null) {
+
+            m_repo.close();
+
+            m_repo = null;
+
+        }
+
+        if (m_client != null) {
+
+            m_client.stop();
+
+            m_client = null;
+
+        }
+
+        super.tearDown();
+
+    }
+
+}
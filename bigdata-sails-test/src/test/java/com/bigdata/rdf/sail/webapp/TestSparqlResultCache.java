@@ -0,0 +1,335 @@
+/**
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+package com.bigdata.rdf.sail.webapp;
+
+import java.net.URL;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.server.Server;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.TupleQueryResult;
+
+import com.bigdata.BigdataStatics;
+import com.bigdata.journal.BufferMode;
+import com.bigdata.journal.Journal;
+import com.bigdata.rdf.sail.BigdataSail;
+import com.bigdata.rdf.sail.CreateKBTask;
+import com.bigdata.rdf.sail.DestroyKBTask;
+import com.bigdata.rdf.sail.webapp.client.HttpClientConfigurator;
+import com.bigdata.rdf.sail.webapp.client.RemoteRepository;
+import com.bigdata.rdf.sail.webapp.client.RemoteRepositoryManager;
+import com.bigdata.rdf.task.AbstractApiTask;
+import com.bigdata.util.Bytes;
+import com.bigdata.util.config.NicUtil;
+
+import junit.framework.TestCase2;
+
+/**
+ * Test suite for the {@link SparqlResultCache}.
+ */
+public class TestSparqlResultCache extends TestCase2 {
+
+    private Server m_fixture;
+    private String namespace;
+    private Journal m_indexManager;
+    private RemoteRepositoryManager m_repo;
+    private HttpClient m_client;
+
+    public TestSparqlResultCache() {
+    }
+
+    public TestSparqlResultCache(final String name) {
+        super(name);
+    }
+
+    /**
+     * White space and comments are removed outside of string literals and IRIs.
+     */
+    public void test_normalizeQuery() {
+
+        assertEquals("SELECT * { ?s ?p ?o }",
+                SparqlResultCache.normalizeQuery("  SELECT *\n{\t?s  ?p ?o # comment\n}\n"));
+
+        assertEquals("SELECT * { ?s ?p \"a  # b\" }",
+                SparqlResultCache.normalizeQuery("SELECT * { ?s ?p \"a  # b\" }"));
+
+        assertEquals("SELECT * { ?s ?p '''a\n\"#\" '''' }",
+                SparqlResultCache.normalizeQuery("SELECT * { ?s ?p '''a\n\"#\" ''''  }"));
+
+        assertEquals("SELECT * { <http://x/#a> ?p ?o }",
+                SparqlResultCache.normalizeQuery("SELECT * { <http://x/#a>  ?p ?o }"));
+
+        // The less than operator does not start an IRI.
+        assertEquals("SELECT * { ?s ?p ?o FILTER(?o < 3) }",
+                SparqlResultCache.normalizeQuery("SELECT * { ?s ?p ?o FILTER(?o < 3) # <x>\n}"));
+
+        assertEquals("SELECT * { ?s ?p \"a\\\"  b\" }",
+                SparqlResultCache.normalizeQuery("SELECT * { ?s ?p \"a\\\"  b\" }"));
+
+    }
+
+    /**
+     * A query is answered from the cache until a commit modifies one of the
+     * predicates used by the query.
+     */
+    public void test_cache() throws Exception {
+
+        final RemoteRepository repo = m_repo
+                .getRepositoryForNamespace(namespace);
+
+        final SparqlResultCache cache = getCache();
+
+        repo.prepareUpdate(
+                "INSERT DATA { <http://x/a> <http://x/title> \"A\" . "
+                        + "<http://x/b> <http://x/title> \"B\" . }")
+                .evaluate();
+
+        final String query = "SELECT ?s ?t { ?s <http://x/title> ?t }";
+
+        assertEquals(2, count(repo, query));
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.size());
+        assertTrue(cache.getByteCount() > 0);
+
+        // Same query modulo white space and comments.
+        assertEquals(2, count(repo, "SELECT ?s ?t  # comment\n{ ?s <http://x/title> ?t }"));
+        assertEquals(1, cache.getHitCount());
+
+        // The cached solutions are the same as the evaluated solutions.
+        assertEquals(evaluate(repo, query), evaluate(repo, query + " "));
+
+        // Modify another predicate. The cached result remains valid.
+        repo.prepareUpdate("INSERT DATA { <http://x/a> <http://x/other> \"C\" }")
+                .evaluate();
+
+        final long hits = cache.getHitCount();
+        assertEquals(2, count(repo, query));
+        assertEquals(hits + 1, cache.getHitCount());
+
+        // Modify the predicate used by the query.
+        repo.prepareUpdate("INSERT DATA { <http://x/c> <http://x/title> \"C\" }")
+                .evaluate();
+
+        final long misses = cache.getMissCount();
+        assertEquals(3, count(repo, query));
+        assertEquals(misses + 1, cache.getMissCount());
+        assertEquals(3, count(repo, query));
+        assertEquals(hits + 2, cache.getHitCount());
+
+        // A query with a variable predicate is invalidated by any change.
+        final String query2 = "SELECT * { <http://x/a> ?p ?o }";
+        assertEquals(2, count(repo, query2));
+        assertEquals(2, count(repo, query2));
+        assertEquals(hits + 3, cache.getHitCount());
+        repo.prepareUpdate("INSERT DATA { <http://x/d> <http://x/other> \"D\" }")
+                .evaluate();
+        assertEquals(2, count(repo, query2));
+        assertEquals(hits + 3, cache.getHitCount());
+
+        // Non-deterministic queries are not cached.
+        final long misses2 = cache.getMissCount();
+        final String query3 = "SELECT ?s (RAND() AS ?r) { ?s <http://x/title> ?t }";
+        assertEquals(3, count(repo, query3));
+        assertEquals(3, count(repo, query3));
+        assertEquals(hits + 3, cache.getHitCount());
+        assertEquals(misses2, cache.getMissCount());
+
+    }
+
+    /**
+     * Results having more solutions than the configured maximum are not
+     * cached.
+     */
+    public void test_maxSolutions() throws Exception {
+
+        final RemoteRepository repo = m_repo
+                .getRepositoryForNamespace(namespace);
+
+        final StringBuilder sb = new StringBuilder("INSERT DATA {");
+        for (int i = 0; i < 20; i++)
+            sb.append(" <http://x/s" + i + "> <http://x/p> " + i + " .");
+        sb.append(" }");
+        repo.prepareUpdate(sb.toString()).evaluate();
+
+        final SparqlResultCache cache = getCache();
+
+        final String query = "SELECT * { ?s <http://x/p> ?o }";
+
+        assertEquals(20, count(repo, query));
+        assertEquals(20, count(repo, query));
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0, cache.size());
+
+        final String query2 = query + " LIMIT 5";
+
+        assertEquals(5, count(repo, query2));
+        assertEquals(5, count(repo, query2));
+        assertEquals(1, cache.getHitCount());
+
+    }
+
+    private SparqlResultCache getCache() {
+
+        final BigdataRDFContext context = (BigdataRDFContext) NanoSparqlServer
+                .getWebApp(m_fixture).getServletContext()
+                .getAttribute(BigdataServlet.ATTRIBUTE_RDF_CONTEXT);
+
+        return context.getResultCache();
+
+    }
+
+    private static int count(final RemoteRepository repo, final String query)
+            throws Exception {
+
+        return evaluate(repo, query).size();
+
+    }
+
+    private static Set<BindingSet> evaluate(final RemoteRepository repo,
+            final String query) throws Exception {
+
+        final Set<BindingSet> solutions = new HashSet<BindingSet>();
+
+        final TupleQueryResult res = repo.prepareTupleQuery(query).evaluate();
+
+        try {
+            while (res.hasNext()) {
+                solutions.add(res.next());
+            }
+        } finally {
+            res.close();
+        }
+
+        return solutions;
+
+    }
+
+    @Override
+    public void setUp() throws Exception {
+
+        final Properties properties = new Properties();
+
+        properties.setProperty(Journal.Options.BUFFER_MODE,
+                BufferMode.MemStore.name());
+
+        properties.setProperty(BigdataSail.Options.TRIPLES_MODE, "true");
+
+        namespace = getName() + UUID.randomUUID();
+
+        m_indexManager = new Journal(properties);
+
+        AbstractApiTask.submitApiTask(m_indexManager,
+                new CreateKBTask(namespace, properties)).get();
+
+        final Map<String, String> initParams = new LinkedHashMap<String, String>();
+
+        initParams.put(ConfigParams.NAMESPACE, namespace);
+
+        initParams.put(ConfigParams.CREATE, "false");
+
+        initParams.put(ConfigParams.RESULT_CACHE_CAPACITY,
+                Long.toString(Bytes.megabyte));
+
+        initParams.put(ConfigParams.RESULT_CACHE_MAX_SOLUTIONS, "10");
+
+        initParams.put(ConfigParams.RESULT_CACHE_CHANGE_SETS, "true");
+
+        m_fixture = NanoSparqlServer.newInstance(0/* port */, m_indexManager,
+                initParams);
+
+        m_fixture.start();
+
+        final int port = NanoSparqlServer.getLocalPort(m_fixture);
+
+        final String hostAddr = NicUtil.getIpAddress("default.nic", "default",
+                true/* loopbackOk */);
+
+        if (hostAddr == null) {
+
+            fail("Could not identify network address for this host.");
+
+        }
+
+        final String serviceURL = new URL("http", hostAddr, port,
+                BigdataStatics.getContextPath()).toExternalForm();
+
+        m_client = HttpClientConfigurator.getInstance().newInstance();
+
+        m_repo = new RemoteRepositoryManager(serviceURL, m_client,
+                m_indexManager.getExecutorService());
+
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+
+        if (m_fixture != null) {
+
+            m_fixture.stop();
+
+            m_fixture = null;
+
+        }
+
+        if (m_indexManager != null) {
+
+            AbstractApiTask.submitApiTask(m_indexManager,
+                    new DestroyKBTask(namespace)).get();
+
+            m_indexManager.destroy();
+
+            m_indexManager = null;
+
+        }
+
+        if (m_repo != null) {
+
+            m_repo.close();
+
+            m_repo = null;
+
+        }
+
+        if (m_client != null) {
+
+            m_client.stop();
+
+            m_client = null;
+
+        }
+
+        super.tearDown();
+
+    }
+
+}
@@ -0,0 +1,304 @@
+/**
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+package com.bigdata.rdf.sail.webapp;
+
+import java.io.ByteArrayInputStream;
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.server.Server;
+import org.openrdf.query.TupleQueryResult;
+import org.openrdf.rio.RDFFormat;
+
+import com.bigdata.BigdataStatics;
+import com.bigdata.journal.BufferMode;
+import com.bigdata.journal.Journal;
+import com.bigdata.rdf.sail.BigdataSail;
+import com.bigdata.rdf.sail.CreateKBTask;
+import com.bigdata.rdf.sail.DestroyKBTask;
+import com.bigdata.rdf.sail.webapp.client.HttpClientConfigurator;
+import com.bigdata.rdf.sail.webapp.client.HttpException;
+import com.bigdata.rdf.sail.webapp.client.RemoteRepository;
+import com.bigdata.rdf.sail.webapp.client.RemoteRepository.AddOp;
+import com.bigdata.rdf.sail.webapp.client.RemoteRepositoryManager;
+import com.bigdata.rdf.task.AbstractApiTask;
+import com.bigdata.util.config.NicUtil;
+
+import junit.framework.TestCase2;
+
+/**
+ * Test suite for a streaming insert.
+ * 
+ * @see InsertServlet#ATTR_STREAMING
+ */
+public class TestStreamingInsert extends TestCase2 {
+
+    private Server m_fixture;
+    private String namespace;
+    private Journal m_indexManager;
+    private RemoteRepositoryManager m_repo;
+    private HttpClient m_client;
+
+    public TestStreamingInsert() {
+    }
+
+    public TestStreamingInsert(final String name) {
+        super(name);
+    }
+
+    /**
+     * N-Triples data spanning several chunks is parsed on several threads and
+     * committed in groups. Blank nodes used in more than one chunk are the
+     * same blank node.
+     */
+    public void test_streaming_parallel() throws Exception {
+
+        final RemoteRepository repo = m_repo
+                .getRepositoryForNamespace(namespace);
+
+        final int nstmts = 50000;
+        
+        final int nbnodes = 10;
+
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < nstmts; i++) {
+            sb.append("<http://x/s" + i + "> <http://x/p> \"" + i
+                    + "\" .\n");
+            if (i % 100 == 0)
+                sb.append("_:b" + (i % (100 * nbnodes)) + " <http://x/q> <http://x/s"
+                        + i + "> .\n");
+        }
+
+        final AddOp add = new AddOp(new ByteArrayInputStream(sb.toString()
+                .getBytes("UTF-8")), RDFFormat.NTRIPLES);
+
+        add.setStreaming(4/* parserThreads */, 10000/* commitEvery */);
+
+        assertEquals(nstmts + nstmts / 100, repo.add(add));
+
+        assertEquals(nstmts, count(repo, "SELECT * { ?s <http://x/p> ?o }"));
+
+        assertEquals(nbnodes,
+                count(repo, "SELECT DISTINCT ?s { ?s <http://x/q> ?o }"));
+
+    }
+
+    /**
+     * Blank node labels are scoped to the request, so the same label used by
+     * two requests is two distinct blank nodes.
+     */
+    public void test_streaming_bnodeScope() throws Exception {
+
+        final RemoteRepository repo = m_repo
+                .getRepositoryForNamespace(namespace);
+
+        for (int i = 0; i < 2; i++) {
+
+            final AddOp add = new AddOp(new ByteArrayInputStream(
+                    "_:b <http://x/q> <http://x/a> .\n".getBytes("UTF-8")),
+                    RDFFormat.NTRIPLES);
+
+            add.setStreaming(4/* parserThreads */, 0L/* commitEvery */);
+
+            assertEquals(1, repo.add(add));
+
+        }
+
+        assertEquals(2, count(repo, "SELECT DISTINCT ?s { ?s <http://x/q> ?o }"));
+
+    }
+
+    /**
+     * Formats which are not line oriented are parsed on a single thread.
+     */
+    public void test_streaming_turtle() throws Exception {
+
+        final RemoteRepository repo = m_repo
+                .getRepositoryForNamespace(namespace);
+
+        final String data = "@prefix x: <http://x/> .\n"
+                + "x:a x:p 1, 2, 3 .\n"
+                + "_:b x:q x:a ; x:q x:c .\n";
+
+        final AddOp add = new AddOp(new ByteArrayInputStream(
+                data.getBytes("UTF-8")), RDFFormat.TURTLE);
+
+        add.setStreaming(4/* parserThreads */, 0L/* commitEvery */);
+
+        assertEquals(5, repo.add(add));
+
+        assertEquals(1, count(repo, "SELECT DISTINCT ?s { ?s <http://x/q> ?o }"));
+
+    }
+
+    /**
+     * A parse error is reported to the client and nothing is inserted when
+     * there is a single commit.
+     */
+    public void test_streaming_badData() throws Exception {
+
+        final RemoteRepository repo = m_repo
+                .getRepositoryForNamespace(namespace);
+
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            sb.append("<http://x/s" + i + "> <http://x/p> \"" + i
+                    + "\" .\n");
+        }
+        sb.append("<http://x/s> <http://x/p> .\n");
+
+        final AddOp add = new AddOp(new ByteArrayInputStream(sb.toString()
+                .getBytes("UTF-8")), RDFFormat.NTRIPLES);
+
+        add.setStreaming(4/* parserThreads */, 0L/* commitEvery */);
+
+        try {
+            repo.add(add);
+            fail("Expecting: " + HttpException.class);
+        } catch (HttpException ex) {
+            if (log.isInfoEnabled())
+                log.info("Ignoring expected exception: " + ex);
+        }
+
+        assertEquals(0, count(repo, "SELECT * { ?s <http://x/p> ?o }"));
+
+    }
+
+    private static int count(final RemoteRepository repo, final String query)
+            throws Exception {
+
+        final TupleQueryResult res = repo.prepareTupleQuery(query).evaluate();
+
+        int n = 0;
+        try {
+            while (res.hasNext()) {
+                res.next();
+                n++;
+            }
+        } finally {
+            res.close();
+        }
+
+        return n;
+
+    }
+
+    @Override
+    public void setUp() throws Exception {
+
+        final Properties properties = new Properties();
+
+        properties.setProperty(Journal.Options.BUFFER_MODE,
+                BufferMode.MemStore.name());
+
+        properties.setProperty(BigdataSail.Options.TRIPLES_MODE, "true");
+
+        namespace = getName() + UUID.randomUUID();
+
+        m_indexManager = new Journal(properties);
+
+        AbstractApiTask.submitApiTask(m_indexManager,
+                new CreateKBTask(namespace, properties)).get();
+
+        final Map<String, String> initParams = new LinkedHashMap<String, String>();
+
+        initParams.put(ConfigParams.NAMESPACE, namespace);
+
+        initParams.put(ConfigParams.CREATE, "false");
+
+        m_fixture = NanoSparqlServer.newInstance(0/* port */, m_indexManager,
+                initParams);
+
+        m_fixture.start();
+
+        final int port = NanoSparqlServer.getLocalPort(m_fixture);
+
+        final String hostAddr = NicUtil.getIpAddress("default.nic", "default",
+                true/* loopbackOk */);
+
+        if (hostAddr == null) {
+
+            fail("Could not identify network address for this host.");
+
+        }
+
+        final String serviceURL = new URL("http", hostAddr, port,
+                BigdataStatics.getContextPath()).toExternalForm();
+
+        m_client = HttpClientConfigurator.getInstance().newInstance();
+
+        m_repo = new RemoteRepositoryManager(serviceURL, m_client,
+                m_indexManager.getExecutorService());
+
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+
+        if (m_fixture != null) {
+
+            m_fixture.stop();
+
+            m_fixture = null;
+
+        }
+
+        if (m_indexManager != null) {
+
+            AbstractApiTask.submitApiTask(m_indexManager,
+                    new DestroyKBTask(namespace)).get();
+
+            m_indexManager.destroy();
+
+            m_indexManager = null;
+
+        }
+
+        if (m_repo != null) {
+
+            m_repo.close();
+
+            m_repo = null;
+
+        }
+
+        if (m_client != null) {
+
+            m_client.stop();
+
+            m_client = null;
+
+        }
+
+        super.tearDown();
+
+    }
+
+}
@@ -0,0 +1,490 @@
+/**
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 19, 2026
+ */
+package com.bigdata.rdf.sail.webapp;
+
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.server.Server;
+import org.openrdf.query.TupleQueryResult;
+
+import com.bigdata.BigdataStatics;
+import com.bigdata.journal.BufferMode;
+import com.bigdata.journal.Journal;
+import com.bigdata.rdf.sail.BigdataSail;
+import com.bigdata.rdf.sail.CreateKBTask;
+import com.bigdata.rdf.sail.DestroyKBTask;
+import com.bigdata.rdf.sail.webapp.client.HttpClientConfigurator;
+import com.bigdata.rdf.sail.webapp.client.HttpException;
+import com.bigdata.rdf.sail.webapp.client.IPreparedTupleQuery;
+import com.bigdata.rdf.sail.webapp.client.RemoteRepository;
+import com.bigdata.rdf.sail.webapp.client.RemoteRepositoryManager;
+import com.bigdata.rdf.sparql.ast.QueryHints;
+import com.bigdata.rdf.task.AbstractApiTask;
+import com.bigdata.util.config.NicUtil;
+
+import junit.framework.TestCase2;
+
+/**
+ * Test suite for the {@link WorkloadClass}es used for admission control by the
+ * NanoSparqlServer.
+ */
+public class TestWorkloadClasses extends TestCase2 {
+
+    private Server m_fixture;
+    private String namespace;
+    private Journal m_indexManager;
+    private RemoteRepositoryManager m_repo;
+    private HttpClient m_client;
+
+    public TestWorkloadClasses() {
+    }
+
+    public TestWorkloadClasses(final String name) {
+        super(name);
+    }
+
+    public void test_parse() {
+
+        final Map<String, WorkloadClass> map = WorkloadClass
+                .parse(" olap:2:10:60000:1048576 , oltp:8:100 ");
+
+        assertEquals(2, map.size());
+
+        final WorkloadClass olap = map.get("olap");
+        assertEquals(2, olap.getMaxRunning());
+        assertEquals(10, olap.getMaxQueued());
+        assertEquals(60000L, olap.getTimeoutMillis());
+        assertEquals(1048576L, olap.getMaxMemory());
+
+        final WorkloadClass oltp = map.get("oltp");
+        assertEquals(8, oltp.getMaxRunning());
+        assertEquals(100, oltp.getMaxQueued());
+        assertEquals(0L, oltp.getTimeoutMillis());
+        assertEquals(0L, oltp.getMaxMemory());
+
+        assertTrue(WorkloadClass.parse(null).isEmpty());
+
+        for (String s : new String[] { "olap", "olap:1", "olap:x:1",
+                "olap:-1:1", "olap:1:1,olap:2:2" }) {
+            try {
+                WorkloadClass.parse(s);
+                fail("Expecting: " + IllegalArgumentException.class + " : "
+                        + s);
+            } catch (IllegalArgumentException ex) {
+                if (log.isInfoEnabled())
+                    log.info("Ignoring expected exception: " + ex);
+            }
+        }
+
+        final Map<String, String> ns = WorkloadClass
+                .parseNamespaces("kb=oltp, reports=olap");
+
+        assertEquals(2, ns.size());
+        assertEquals("oltp", ns.get("kb"));
+        assertEquals("olap", ns.get("reports"));
+
+        try {
+            WorkloadClass.parseNamespaces("kb");
+            fail("Expecting: " + IllegalArgumentException.class);
+        } catch (IllegalArgumentException ex) {
+            if (log.isInfoEnabled())
+                log.info("Ignoring expected exception: " + ex);
+        }
+
+    }
+
+    /**
+     * A query which arrives while another query is queued does not barge
+     * ahead of the queued query when a permit is released. The race is
+     * repeated since a barging query does not always win it.
+     */
+    public void test_fairness() throws Exception {
+
+        final WorkloadClass workloadClass = new WorkloadClass("olap",
+                1/* maxRunning */, 10/* maxQueued */, 0L/* timeoutMillis */,
+                0L/* maxMemory */);
+
+        for (int i = 0; i < 20; i++) {
+
+            final List<String> order = Collections
+                    .synchronizedList(new LinkedList<String>());
+
+            workloadClass.acquire();
+
+            final Thread t = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        workloadClass.acquire();
+                    } catch (Exception ex) {
+                        return;
+                    }
+                    order.add("queued");
+                    workloadClass.release();
+                }
+            };
+
+            t.start();
+
+            // Wait until the query is parked in the queue.
+            final long deadline = System.currentTimeMillis() + 10000;
+            while (t.getState() != Thread.State.WAITING
+                    && System.currentTimeMillis() < deadline)
+                Thread.sleep(1);
+            assertEquals(Thread.State.WAITING, t.getState());
+
+            // Release the permit and arrive as a new query.
+            workloadClass.release();
+            workloadClass.acquire();
+            order.add("new");
+            workloadClass.release();
+
+            t.join(10000);
+
+            assertEquals(Arrays.asList("queued", "new"), order);
+
+        }
+
+    }
+
+    /**
+     * A query waits in the queue while the running queries are at the limit
+     * for its workload class and is rejected once the queue is full.
+     */
+    public void test_admission() throws Exception {
+
+        final WorkloadClass wc = new WorkloadClass("olap", 1/* maxRunning */,
+                1/* maxQueued */, 0L/* timeoutMillis */, 0L/* maxMemory */);
+
+        final ExecutorService executorService = Executors
+                .newSingleThreadExecutor();
+
+        try {
+
+            wc.acquire();
+
+            assertEquals(1, wc.getRunningCount());
+
+            // The second query waits in the queue.
+            final Future<Void> f = executorService
+                    .submit(new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            wc.acquire();
+                            return null;
+                        }
+                    });
+
+            final long deadline = System.currentTimeMillis() + 5000;
+            while (wc.getQueuedCount() == 0
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertEquals(1, wc.getQueuedCount());
+            assertFalse(f.isDone());
+
+            // The third query is rejected.
+            try {
+                wc.acquire();
+                fail("Expecting: " + HttpOperationException.class);
+            } catch (HttpOperationException ex) {
+                assertEquals(503, ex.status);
+            }
+
+            assertEquals(1, wc.getRejectedCount());
+
+            // The queued query is admitted once the running query is done.
+            wc.release();
+
+            f.get(5000, TimeUnit.MILLISECONDS);
+
+            assertEquals(0, wc.getQueuedCount());
+            assertEquals(1, wc.getRunningCount());
+            assertEquals(2, wc.getAdmittedCount());
+
+            wc.release();
+
+            assertEquals(0, wc.getRunningCount());
+
+        } finally {
+
+            executorService.shutdownNow();
+
+        }
+
+    }
+
+    /**
+     * A query which is not admitted within the timeout for its workload class
+     * is rejected.
+     */
+    public void test_admissionTimeout() throws Exception {
+
+        final WorkloadClass wc = new WorkloadClass("olap", 1/* maxRunning */,
+                1/* maxQueued */, 50L/* timeoutMillis */, 0L/* maxMemory */);
+
+        wc.acquire();
+
+        try {
+            wc.acquire();
+            fail("Expecting: " + HttpOperationException.class);
+        } catch (HttpOperationException ex) {
+            assertEquals(503, ex.status);
+        }
+
+        assertEquals(0, wc.getQueuedCount());
+        assertEquals(1, wc.getRejectedCount());
+
+        wc.release();
+
+    }
+
+    /**
+     * The workload class is chosen by the HTTP header, the query hint, or the
+     * namespace, in that order.
+     */
+    public void test_selection() throws Exception {
+
+        final RemoteRepository repo = m_repo
+                .getRepositoryForNamespace(namespace);
+
+        repo.prepareUpdate("INSERT DATA { <http://x/a> <http://x/p> \"A\" }")
+                .evaluate();
+
+        final Map<String, WorkloadClass> workloadClasses = getContext()
+                .getWorkloadClasses();
+
+        final WorkloadClass olap = workloadClasses.get("olap");
+        final WorkloadClass oltp = workloadClasses.get("oltp");
+        final WorkloadClass def = workloadClasses.get(WorkloadClass.DEFAULT);
+
+        // The workload class of the namespace.
+        assertEquals(1, count(repo.prepareTupleQuery("SELECT * { ?s <http://x/p> ?o }")));
+        assertEquals(0, olap.getAdmittedCount());
+        assertEquals(1, oltp.getAdmittedCount());
+
+        // The query hint.
+        assertEquals(1, count(repo.prepareTupleQuery("PREFIX hint: <"
+                + QueryHints.NAMESPACE + ">\n"
+                + "SELECT * { hint:Query hint:workloadClass \"olap\" . "
+                + "?s <http://x/p> ?o }")));
+        assertEquals(1, olap.getAdmittedCount());
+        assertEquals(1, oltp.getAdmittedCount());
+
+        // The HTTP header.
+        {
+            final IPreparedTupleQuery query = repo.prepareTupleQuery("PREFIX hint: <"
+                    + QueryHints.NAMESPACE + ">\n"
+                    + "SELECT * { hint:Query hint:workloadClass \"olap\" . "
+                    + "?s <http://x/p> ?o }");
+            query.setHeader(
+                    BigdataRDFContext.HTTP_HEADER_BIGDATA_WORKLOAD_CLASS,
+                    WorkloadClass.DEFAULT);
+            assertEquals(1, count(query));
+        }
+        assertEquals(1, olap.getAdmittedCount());
+        assertEquals(1, oltp.getAdmittedCount());
+        assertEquals(1, def.getAdmittedCount());
+
+        // An unknown workload class.
+        {
+            final IPreparedTupleQuery query = repo
+                    .prepareTupleQuery("SELECT * { ?s <http://x/p> ?o }");
+            query.setHeader(
+                    BigdataRDFContext.HTTP_HEADER_BIGDATA_WORKLOAD_CLASS,
+                    "unknown");
+            try {
+                count(query);
+                fail("Expecting: " + HttpException.class);
+            } catch (Exception ex) {
+                final HttpException cause = (HttpException) getCause(ex,
+                        HttpException.class);
+                assertNotNull(cause);
+                assertEquals(400, cause.getStatusCode());
+            }
+        }
+
+        // Nothing is left running.
+        assertEquals(0, olap.getRunningCount());
+        assertEquals(0, oltp.getRunningCount());
+        assertEquals(0, def.getRunningCount());
+
+    }
+
+    private BigdataRDFContext getContext() {
+
+        return (BigdataRDFContext) NanoSparqlServer.getWebApp(m_fixture)
+                .getServletContext()
+                .getAttribute(BigdataServlet.ATTRIBUTE_RDF_CONTEXT);
+
+    }
+
+    private static Throwable getCause(Throwable t,
+            final Class<? extends Throwable> cls) {
+
+        while (t != null && !cls.isInstance(t)) {
+
+            t = t.getCause();
+
+        }
+
+        return t;
+
+    }
+
+    private static int count(final IPreparedTupleQuery query)
+            throws Exception {
+
+        int n = 0;
+
+        final TupleQueryResult res = query.evaluate();
+
+        try {
+            while (res.hasNext()) {
+                res.next();
+                n++;
+            }
+        } finally {
+            res.close();
+        }
+
+        return n;
+
+    }
+
+    @Override
+    public void setUp() throws Exception {
+
+        final Properties properties = new Properties();
+
+        properties.setProperty(Journal.Options.BUFFER_MODE,
+                BufferMode.MemStore.name());
+
+        properties.setProperty(BigdataSail.Options.TRIPLES_MODE, "true");
+
+        namespace = getName() + UUID.randomUUID();
+
+        m_indexManager = new Journal(properties);
+
+        AbstractApiTask.submitApiTask(m_indexManager,
+                new CreateKBTask(namespace, properties)).get();
+
+        final Map<String, String> initParams = new LinkedHashMap<String, String>();
+
+        initParams.put(ConfigParams.NAMESPACE, namespace);
+
+        initParams.put(ConfigParams.CREATE, "false");
+
+        initParams.put(ConfigParams.WORKLOAD_CLASSES,
+                "olap:1:10:60000:1048576,oltp:4:100:10000");
+
+        initParams.put(ConfigParams.WORKLOAD_CLASS_NAMESPACES, namespace
+                + "=oltp");
+
+        m_fixture = NanoSparqlServer.newInstance(0/* port */, m_indexManager,
+                initParams);
+
+        m_fixture.start();
+
+        final int port = NanoSparqlServer.getLocalPort(m_fixture);
+
+        final String hostAddr = NicUtil.getIpAddress("default.nic", "default",
+                true/* loopbackOk */);
+
+        if (hostAddr == null) {
+
+            fail("Could not identify network address for this host.");
+
+        }
+
+        final String serviceURL = new URL("http", hostAddr, port,
+                BigdataStatics.getContextPath()).toExternalForm();
+
+        m_client = HttpClientConfigurator.getInstance().newInstance();
+
+        m_repo = new RemoteRepositoryManager(serviceURL, m_client,
+                m_indexManager.getExecutorService());
+
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+
+        if (m_fixture != null) {
+
+            m_fixture.stop();
+
+            m_fixture = null;
+
+        }
+
+        if (m_indexManager != null) {
+
+            AbstractApiTask.submitApiTask(m_indexManager,
+                    new DestroyKBTask(namespace)).get();
+
+            m_indexManager.destroy();
+
+            m_indexManager = null;
+
+        }
+
+        if (m_repo != null) {
+
+            m_repo.close();
+
+            m_repo = null;
+
+        }
+
+        if (m_client != null) {
+
+            m_client.stop();
+
+            m_client = null;
+
+        }
+
+        super.tearDown();
+
+    }
+
+}
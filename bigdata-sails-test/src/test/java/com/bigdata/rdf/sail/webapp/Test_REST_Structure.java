@@ -23,6 +23,7 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 
 package com.bigdata.rdf.sail.webapp;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URL;
 import java.util.Map;
@@ -40,6 +41,7 @@ import com.bigdata.journal.IIndexManager;
 import com.bigdata.rdf.sail.webapp.client.ConnectOptions;
 import com.bigdata.rdf.sail.webapp.client.HttpException;
 import com.bigdata.rdf.sail.webapp.client.JettyResponseListener;
+import com.bigdata.rdf.sail.webapp.lbs.policy.workload.ServiceWorkload;
 import com.bigdata.util.config.NicUtil;
 
 /**
@@ -220,6 +222,25 @@ public class Test_REST_Structure<S extends IIndexManager> extends
 
    }
 
+   /**
+    * The <code>/status</code> servlet reports the workload of the service.
+    */
+   public void test_webapp_structure_status_workload() throws Exception {
+
+      final ServiceWorkload workload = ServiceWorkload
+            .read(new ByteArrayInputStream(doGET(
+                  m_serviceURL + "/status?" + StatusServlet.WORKLOAD)
+                  .getBytes("ISO-8859-1")));
+
+      assertNotNull(workload.getNumeric(ServiceWorkload.RUNNING_QUERIES));
+
+      assertNotNull(workload.getNumeric(ServiceWorkload.BUFFERED_CHUNKS));
+
+      assertNotNull(workload
+            .getNumeric(ServiceWorkload.ADMISSION_QUEUE_LENGTH));
+
+   }
+
    /**
     * The <code>/counters</code> servlet responds.
     */
@@ -26,6 +26,8 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 
 package com.bigdata.rdf.sail.webapp.lbs;
 
+import com.bigdata.rdf.sail.webapp.lbs.policy.workload.TestWorkloadLBSPolicy;
+
 import junit.framework.Test;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
@@ -56,6 +58,8 @@ public class TestAll extends TestCase {
         final TestSuite suite = new TestSuite("LBS");
 
         suite.addTestSuite(TestAbstractHostLBSPolicy.class);
+
+        suite.addTestSuite(TestWorkloadLBSPolicy.class);
         
         return suite;
 
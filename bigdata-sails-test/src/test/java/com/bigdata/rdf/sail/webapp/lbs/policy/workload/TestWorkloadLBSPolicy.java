@@ -0,0 +1,161 @@
+/**
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package com.bigdata.rdf.sail.webapp.lbs.policy.workload;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase2;
+
+/**
+ * Test suite for the {@link WorkloadLBSPolicy}.
+ */
+public class TestWorkloadLBSPolicy extends TestCase2 {
+
+    public TestWorkloadLBSPolicy() {
+    }
+
+    public TestWorkloadLBSPolicy(String name) {
+        super(name);
+    }
+
+    /**
+     * The least loaded service is chosen.
+     */
+    public void test_leastLoaded() {
+
+        final Random rand = new Random();
+
+        assertEquals(-1, WorkloadLBSPolicy.getLeastLoaded(rand, new double[] {}));
+
+        assertEquals(0, WorkloadLBSPolicy.getLeastLoaded(rand, new double[] { 3d }));
+
+        assertEquals(1, WorkloadLBSPolicy.getLeastLoaded(rand, new double[] {
+                3d, 1d, 2d }));
+
+        assertEquals(2, WorkloadLBSPolicy.getLeastLoaded(rand, new double[] {
+                3d, 1.5d, 1d }));
+
+    }
+
+    /**
+     * A service which can not be proxied is never chosen.
+     */
+    public void test_leastLoaded_infinite() {
+
+        final Random rand = new Random();
+
+        assertEquals(-1, WorkloadLBSPolicy.getLeastLoaded(rand, new double[] {
+                Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY }));
+
+        assertEquals(1, WorkloadLBSPolicy.getLeastLoaded(rand, new double[] {
+                Double.POSITIVE_INFINITY, 10d }));
+
+    }
+
+    /**
+     * A service whose load is not known is given the mean load of the other
+     * services.
+     */
+    public void test_leastLoaded_unknown() {
+
+        final Random rand = new Random();
+
+        assertEquals(0, WorkloadLBSPolicy.getLeastLoaded(rand, new double[] {
+                4d, 6d, Double.NaN, 5.5d }));
+
+        assertEquals(1, WorkloadLBSPolicy.getLeastLoaded(rand, new double[] {
+                Double.NaN, 4d, 6d }));
+
+        // Preferred to a service which can not be proxied.
+        assertEquals(1, WorkloadLBSPolicy.getLeastLoaded(rand, new double[] {
+                Double.POSITIVE_INFINITY, Double.NaN }));
+
+        // Nothing is known.
+        assertTrue(WorkloadLBSPolicy.getLeastLoaded(rand, new double[] {
+                Double.NaN, Double.NaN }) >= 0);
+
+    }
+
+    /**
+     * Ties are broken randomly.
+     */
+    public void test_leastLoaded_ties() {
+
+        final Random rand = new Random(71L);
+
+        final int[] counts = new int[4];
+
+        for (int i = 0; i < 1000; i++) {
+
+            counts[WorkloadLBSPolicy.getLeastLoaded(rand, new double[] { 2d,
+                    1d, 2d, 1d })]++;
+
+        }
+
+        assertEquals(0, counts[0]);
+        assertEquals(0, counts[2]);
+        assertTrue(counts[1] > 400);
+        assertTrue(counts[3] > 400);
+
+    }
+
+    /**
+     * The {@link ServiceWorkload} round trips through its wire format.
+     */
+    public void test_serviceWorkload() throws Exception {
+
+        final Map<String, Number> metrics = new LinkedHashMap<String, Number>();
+
+        metrics.put(ServiceWorkload.RUNNING_QUERIES, 3);
+        metrics.put(ServiceWorkload.QUERY_QUEUE_LENGTH, 2);
+        metrics.put(ServiceWorkload.ADMISSION_QUEUE_LENGTH, 1);
+        metrics.put(ServiceWorkload.BUFFERED_CHUNKS, 200L);
+        metrics.put(ServiceWorkload.NATIVE_HEAP_BYTES, 100L * 1024 * 1024);
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        new ServiceWorkload(metrics).write(baos);
+
+        final ServiceWorkload actual = ServiceWorkload
+                .read(new ByteArrayInputStream(baos.toByteArray()));
+
+        assertEquals(metrics.size(), actual.getMetricNames().length);
+
+        assertEquals(3, actual.getNumeric(ServiceWorkload.RUNNING_QUERIES)
+                .intValue());
+
+        assertEquals(3 + 2 + 1 + 2 + 1d,
+                new DefaultServiceScoringRule().getScore(actual));
+
+        // Missing metrics are taken as zero.
+        assertEquals(0d, new DefaultServiceScoringRule()
+                .getScore(new ServiceWorkload(
+                        new LinkedHashMap<String, Number>())));
+
+    }
+
+}